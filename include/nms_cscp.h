@@ -175,7 +175,7 @@ typedef struct
    uint32_t dciId;
    uint32_t numRows;
    uint32_t dataType;
-   uint32_t padding;
+   uint32_t padding;    // Contains aggregation function set for aggregated data
 } DCI_DATA_HEADER;
 
 /**
@@ -1549,6 +1549,9 @@ typedef struct
 #define VID_NETMAP_DEFAULT_HEIGHT   ((uint32_t)843)
 #define VID_WIDTH                   ((uint32_t)844)
 #define VID_ENABLE_TWO_PHASE_SETUP  ((uint32_t)845)
+#define VID_AGGREGATION_INTERVAL    ((uint32_t)846)
+#define VID_AGGREGATION_FUNCTIONS   ((uint32_t)847)
+#define VID_EFFECTIVE_RIGHTS_LIST   ((uint32_t)848)
 
 // Base variabe for single threshold in message
 #define VID_THRESHOLD_BASE          ((UINT32)0x00800000)
@@ -1101,6 +1101,12 @@ enum AggregationFunction
    DCI_AGG_SUM  = 4
 };
 
+/**
+ * Aggregation function set (used in aggregated historical data requests)
+ */
+#define DCI_AGG_FUNCTION_BIT(f)  (1 << (f))
+#define DCI_AGG_FUNCTION_MASK    0x1F
+
 /**
  * Threshold operations
  */
@@ -0,0 +1,33 @@
+/**
+ * Java-Bridge NetXMS subagent
+ * Copyright (C) 2013-2023 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.agent;
+
+/**
+ * Contribution item (parameter, list, or table) which results can be cached by subagent. Within cache TTL all requests
+ * with same full name are served from single handler call.
+ */
+public interface CacheableContributionItem extends AgentContributionItem
+{
+   /**
+    * Get cache TTL for this item.
+    *
+    * @return cache TTL in milliseconds, 0 to disable caching, or negative value to use default TTL from agent configuration
+    */
+   public long getCacheTTL();
+}
@@ -0,0 +1,154 @@
+/**
+ * Java-Bridge NetXMS subagent
+ * Copyright (C) 2013-2023 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.agent;
+
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Statistics for plugin handler calls and result cache
+ */
+final class HandlerStatistics
+{
+   private static final int SAMPLE_COUNT = 1024;
+
+   private final AtomicLong cacheHits = new AtomicLong(0);
+   private final AtomicLong cacheMisses = new AtomicLong(0);
+   private final AtomicLong coalescedRequests = new AtomicLong(0);
+   private final AtomicLong backgroundRefreshes = new AtomicLong(0);
+   private final AtomicLong handlerCalls = new AtomicLong(0);
+   private final AtomicInteger inFlight = new AtomicInteger(0);
+   private final long[] latencySamples = new long[SAMPLE_COUNT];
+   private int sampleIndex = 0;
+   private int sampleCount = 0;
+
+   /**
+    * Call handler and record its latency.
+    *
+    * @param handler handler to call
+    * @return handler result
+    * @throws Exception if handler throws an exception
+    */
+   <T> T measure(Callable<T> handler) throws Exception
+   {
+      inFlight.incrementAndGet();
+      long startTime = System.nanoTime();
+      try
+      {
+         return handler.call();
+      }
+      finally
+      {
+         long elapsed = System.nanoTime() - startTime;
+         inFlight.decrementAndGet();
+         handlerCalls.incrementAndGet();
+         synchronized(latencySamples)
+         {
+            latencySamples[sampleIndex] = elapsed;
+            sampleIndex = (sampleIndex + 1) % SAMPLE_COUNT;
+            if (sampleCount < SAMPLE_COUNT)
+               sampleCount++;
+         }
+      }
+   }
+
+   void cacheHit()
+   {
+      cacheHits.incrementAndGet();
+   }
+
+   void cacheMiss()
+   {
+      cacheMisses.incrementAndGet();
+   }
+
+   void coalescedRequest()
+   {
+      coalescedRequests.incrementAndGet();
+   }
+
+   void backgroundRefresh()
+   {
+      backgroundRefreshes.incrementAndGet();
+   }
+
+   long getCacheHits()
+   {
+      return cacheHits.get();
+   }
+
+   long getCacheMisses()
+   {
+      return cacheMisses.get();
+   }
+
+   /**
+    * Get cache hit rate.
+    *
+    * @return cache hit rate in percents
+    */
+   double getCacheHitRate()
+   {
+      long hits = cacheHits.get();
+      long total = hits + cacheMisses.get();
+      return (total > 0) ? (double)hits * 100.0 / (double)total : 0;
+   }
+
+   long getCoalescedRequests()
+   {
+      return coalescedRequests.get();
+   }
+
+   long getBackgroundRefreshes()
+   {
+      return backgroundRefreshes.get();
+   }
+
+   long getHandlerCalls()
+   {
+      return handlerCalls.get();
+   }
+
+   int getInFlight()
+   {
+      return inFlight.get();
+   }
+
+   /**
+    * Get handler latency percentile over last handler calls.
+    *
+    * @param percentile percentile (0-100)
+    * @return latency in milliseconds
+    */
+   double getLatencyPercentile(double percentile)
+   {
+      long[] samples;
+      synchronized(latencySamples)
+      {
+         if (sampleCount == 0)
+            return 0;
+         samples = Arrays.copyOf(latencySamples, sampleCount);
+      }
+      Arrays.sort(samples);
+      int index = (int)Math.ceil(percentile / 100.0 * samples.length) - 1;
+      return (double)samples[Math.max(0, Math.min(index, samples.length - 1))] / 1000000.0;
+   }
+}
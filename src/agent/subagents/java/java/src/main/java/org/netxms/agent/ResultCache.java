@@ -0,0 +1,293 @@
+/**
+ * Java-Bridge NetXMS subagent
+ * Copyright (C) 2013-2023 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.agent;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.netxms.bridge.Platform;
+
+/**
+ * Cache for plugin handler results. Provides per-item TTL, single-flight execution of concurrent identical requests, and
+ * background refresh of frequently requested entries shortly before they expire.
+ */
+final class ResultCache
+{
+   private static final double REFRESH_AHEAD_FACTOR = 0.75;
+   private static final int HOT_ENTRY_THRESHOLD = 2;
+   private static final long CLEANUP_INTERVAL = 60000;
+
+   private final Map<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+   private final HandlerStatistics statistics;
+   private final long defaultTTL;
+   private final ScheduledExecutorService executor;
+
+   /**
+    * Create new result cache.
+    *
+    * @param defaultTTL default TTL in milliseconds for items that do not define their own
+    * @param refreshThreads number of threads for background refresh
+    * @param statistics statistics collector
+    */
+   ResultCache(long defaultTTL, int refreshThreads, HandlerStatistics statistics)
+   {
+      this.defaultTTL = defaultTTL;
+      this.statistics = statistics;
+      executor = Executors.newScheduledThreadPool(Math.max(1, refreshThreads), new ThreadFactory() {
+         private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+         @Override
+         public Thread newThread(Runnable r)
+         {
+            Thread t = new Thread(r, "ResultCache-" + threadNumber.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+         }
+      });
+      executor.scheduleWithFixedDelay(new Runnable() {
+         @Override
+         public void run()
+         {
+            cleanup();
+         }
+      }, CLEANUP_INTERVAL, CLEANUP_INTERVAL, TimeUnit.MILLISECONDS);
+   }
+
+   /**
+    * Get effective TTL for given contribution item.
+    *
+    * @param item contribution item
+    * @return effective TTL in milliseconds (0 if caching is disabled)
+    */
+   long getTTL(Object item)
+   {
+      if (item instanceof CacheableContributionItem)
+      {
+         long ttl = ((CacheableContributionItem)item).getCacheTTL();
+         return (ttl >= 0) ? ttl : defaultTTL;
+      }
+      return defaultTTL;
+   }
+
+   /**
+    * Get result for given key, calling handler if there is no valid cached result.
+    *
+    * @param key cache key
+    * @param ttl TTL in milliseconds (0 to bypass cache)
+    * @param handler handler to call
+    * @return handler result
+    * @throws Throwable if handler throws an exception
+    */
+   @SuppressWarnings("unchecked")
+   <T> T get(String key, long ttl, Callable<T> handler) throws Throwable
+   {
+      if (ttl <= 0)
+         return statistics.measure(handler);
+
+      Entry e = entries.get(key);
+      if (e == null)
+      {
+         e = new Entry();
+         Entry existing = entries.putIfAbsent(key, e);
+         if (existing != null)
+            e = existing;
+      }
+
+      CompletableFuture<Object> future;
+      Object cachedValue = null;
+      boolean owner = false;
+      boolean refresh = false;
+      synchronized(e)
+      {
+         long now = System.currentTimeMillis();
+         e.ttl = ttl;
+         e.lastAccess = now;
+         if (e.loaded && (now - e.timestamp < ttl))
+         {
+            statistics.cacheHit();
+            e.accessCount++;
+            if ((e.pending == null) && (e.accessCount >= HOT_ENTRY_THRESHOLD) && (now - e.timestamp >= ttl * REFRESH_AHEAD_FACTOR))
+            {
+               e.pending = new CompletableFuture<Object>();
+               cachedValue = e.value;
+               refresh = true;
+            }
+            else
+            {
+               return (T)e.value;
+            }
+            future = null;
+         }
+         else
+         {
+            statistics.cacheMiss();
+            if (e.pending != null)
+            {
+               statistics.coalescedRequest();
+               future = e.pending;
+            }
+            else
+            {
+               future = new CompletableFuture<Object>();
+               e.pending = future;
+               owner = true;
+            }
+         }
+      }
+
+      if (refresh)
+      {
+         scheduleRefresh(key, e, handler);
+         return (T)cachedValue;
+      }
+
+      if (owner)
+         load(e, future, handler);
+
+      try
+      {
+         return (T)future.get();
+      }
+      catch(ExecutionException ex)
+      {
+         throw ex.getCause();
+      }
+   }
+
+   /**
+    * Schedule background refresh of given entry.
+    */
+   private void scheduleRefresh(final String key, final Entry e, final Callable<?> handler)
+   {
+      final CompletableFuture<Object> future;
+      synchronized(e)
+      {
+         future = e.pending;
+      }
+      try
+      {
+         executor.execute(new Runnable() {
+            @Override
+            public void run()
+            {
+               Platform.writeDebugLog(SubAgent.DEBUG_TAG, 8, "Background refresh of cached result for " + key);
+               statistics.backgroundRefresh();
+               load(e, future, handler);
+            }
+         });
+      }
+      catch(RejectedExecutionException ex)
+      {
+         synchronized(e)
+         {
+            e.pending = null;
+         }
+         future.cancel(false);
+      }
+   }
+
+   /**
+    * Call handler and store result in cache entry.
+    */
+   private void load(Entry e, CompletableFuture<Object> future, Callable<?> handler)
+   {
+      try
+      {
+         Object value = statistics.measure(handler);
+         synchronized(e)
+         {
+            e.value = value;
+            e.timestamp = System.currentTimeMillis();
+            e.loaded = true;
+            e.accessCount = 0;
+            e.pending = null;
+         }
+         future.complete(value);
+      }
+      catch(Throwable t)
+      {
+         // Errors are not cached, next request will call handler again
+         synchronized(e)
+         {
+            e.pending = null;
+         }
+         future.completeExceptionally(t);
+      }
+   }
+
+   /**
+    * Remove entries that were not accessed for long time.
+    */
+   private void cleanup()
+   {
+      long now = System.currentTimeMillis();
+      Iterator<Entry> it = entries.values().iterator();
+      while(it.hasNext())
+      {
+         Entry e = it.next();
+         synchronized(e)
+         {
+            if ((e.pending == null) && (now - e.lastAccess > Math.max(e.ttl * 2, CLEANUP_INTERVAL)))
+               it.remove();
+         }
+      }
+   }
+
+   /**
+    * Get number of cache entries.
+    *
+    * @return number of cache entries
+    */
+   int size()
+   {
+      return entries.size();
+   }
+
+   /**
+    * Shutdown cache.
+    */
+   void shutdown()
+   {
+      executor.shutdownNow();
+      entries.clear();
+   }
+
+   /**
+    * Cache entry
+    */
+   private static class Entry
+   {
+      Object value = null;
+      boolean loaded = false;
+      long timestamp = 0;
+      long lastAccess = 0;
+      long ttl = 0;
+      int accessCount = 0;
+      CompletableFuture<Object> pending = null;
+   }
+}
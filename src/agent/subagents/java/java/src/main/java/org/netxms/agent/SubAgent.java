@@ -29,12 +29,14 @@
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.Callable;
 import java.util.jar.Attributes;
 import java.util.jar.Manifest;
 import org.netxms.bridge.Config;
 import org.netxms.bridge.ConfigEntry;
 import org.netxms.bridge.DirectoryType;
 import org.netxms.bridge.LogLevel;
+import org.netxms.agent.adapters.ParameterAdapter;
 import org.netxms.bridge.Platform;
 
 /**
@@ -48,6 +50,7 @@
    private static final String MANIFEST_PATH = "META-INF/MANIFEST.MF";
 
    protected static final String DEBUG_TAG = "java.agent";
+   private static final String INTERNAL_PREFIX = "#internal/";
 
    protected Map<String, Plugin> plugins;
    protected Map<String, Action> actions;
@@ -57,6 +60,8 @@
    protected Map<String, TableParameter> tables;
 
    private Config config = null;
+   private HandlerStatistics statistics = new HandlerStatistics();
+   private ResultCache resultCache;
 
    /**
     * Private constructor. Will be invoked by native wrapper only.
@@ -75,6 +80,12 @@ private SubAgent(Config config)
       this.config = config;
       Platform.writeDebugLog(DEBUG_TAG, 1, "Java SubAgent created");
 
+      // Result caching is opt-in: default TTL is 0 unless set in configuration or by individual items
+      long cacheTTL = config.getValueLong("/Java/CacheTTL", 0);
+      resultCache = new ResultCache(cacheTTL, config.getValueInt("/Java/CacheRefreshThreads", 2), statistics);
+      Platform.writeDebugLog(DEBUG_TAG, 3, "Default result cache TTL is " + cacheTTL + " ms");
+      registerInternalParameters();
+
       // load all Plugins
       ConfigEntry configEntry = config.getEntry("/Java/Plugin");
       if (configEntry != null)
@@ -196,6 +207,7 @@ public void shutdown()
             Platform.writeDebugLog(DEBUG_TAG, 6, "   ", e);
          }
       }
+      resultCache.shutdown();
       Platform.writeDebugLog(DEBUG_TAG, 2, "Java subagent shutdown completed");
    }
 
@@ -391,10 +403,18 @@ public String parameterHandler(final String param, final String id) throws Throw
    {
       try
       {
-         Parameter parameter = parameters.get(id);
+         final Parameter parameter = parameters.get(id);
          if (parameter != null)
          {
-            return parameter.getValue(param);
+            if (id.startsWith(INTERNAL_PREFIX))
+               return parameter.getValue(param);
+            return resultCache.get(id + "|" + param, resultCache.getTTL(parameter), new Callable<String>() {
+               @Override
+               public String call() throws Exception
+               {
+                  return parameter.getValue(param);
+               }
+            });
          }
          return null;
       }
@@ -418,10 +438,16 @@ public String[] listHandler(final String param, final String id) throws Throwabl
    {
       try
       {
-         ListParameter listParameter = lists.get(id);
+         final ListParameter listParameter = lists.get(id);
          if (listParameter != null)
          {
-            return listParameter.getValue(param);
+            return resultCache.get(id + "|" + param, resultCache.getTTL(listParameter), new Callable<String[]>() {
+               @Override
+               public String[] call() throws Exception
+               {
+                  return listParameter.getValue(param);
+               }
+            });
          }
          return null;
       }
@@ -445,11 +471,18 @@ public String[][] tableHandler(final String name, final String id) throws Throwa
    {
       try
       {
-         TableParameter tableParameter = tables.get(id);
+         final TableParameter tableParameter = tables.get(id);
          if (tableParameter != null)
          {
-            Platform.writeDebugLog(DEBUG_TAG, 7, "SubAgent.tableParameterHandler(name=" + name + ", id=" + id + ") returning " + tableParameter.getValue(name));
-            return tableParameter.getValue(name);
+            String[][] value = resultCache.get(id + "|" + name, resultCache.getTTL(tableParameter), new Callable<String[][]>() {
+               @Override
+               public String[][] call() throws Exception
+               {
+                  return tableParameter.getValue(name);
+               }
+            });
+            Platform.writeDebugLog(DEBUG_TAG, 7, "SubAgent.tableParameterHandler(name=" + name + ", id=" + id + ") returning " + value);
+            return value;
          }
          return null;
       }
@@ -580,6 +613,94 @@ public String[] getTables()
       return list.toArray(new String[0]);
    }
    
+   /**
+    * Register internal parameters providing handler and result cache statistics.
+    */
+   private void registerInternalParameters()
+   {
+      Parameter[] internalParameters = new Parameter[] {
+         new ParameterAdapter("Java.Cache.BackgroundRefreshes", "Java subagent: background result cache refreshes", ParameterType.UINT64) {
+            @Override
+            public String getValue(String param) throws Exception
+            {
+               return Long.toString(statistics.getBackgroundRefreshes());
+            }
+         },
+         new ParameterAdapter("Java.Cache.CoalescedRequests", "Java subagent: requests coalesced with in-flight handler call", ParameterType.UINT64) {
+            @Override
+            public String getValue(String param) throws Exception
+            {
+               return Long.toString(statistics.getCoalescedRequests());
+            }
+         },
+         new ParameterAdapter("Java.Cache.HitRate", "Java subagent: result cache hit rate", ParameterType.FLOAT) {
+            @Override
+            public String getValue(String param) throws Exception
+            {
+               return Double.toString(statistics.getCacheHitRate());
+            }
+         },
+         new ParameterAdapter("Java.Cache.Hits", "Java subagent: result cache hits", ParameterType.UINT64) {
+            @Override
+            public String getValue(String param) throws Exception
+            {
+               return Long.toString(statistics.getCacheHits());
+            }
+         },
+         new ParameterAdapter("Java.Cache.Misses", "Java subagent: result cache misses", ParameterType.UINT64) {
+            @Override
+            public String getValue(String param) throws Exception
+            {
+               return Long.toString(statistics.getCacheMisses());
+            }
+         },
+         new ParameterAdapter("Java.Cache.Size", "Java subagent: result cache entries", ParameterType.UINT) {
+            @Override
+            public String getValue(String param) throws Exception
+            {
+               return Integer.toString(resultCache.size());
+            }
+         },
+         new ParameterAdapter("Java.Handler.Calls", "Java subagent: plugin handler calls", ParameterType.UINT64) {
+            @Override
+            public String getValue(String param) throws Exception
+            {
+               return Long.toString(statistics.getHandlerCalls());
+            }
+         },
+         new ParameterAdapter("Java.Handler.InFlight", "Java subagent: plugin handler calls in progress", ParameterType.UINT) {
+            @Override
+            public String getValue(String param) throws Exception
+            {
+               return Integer.toString(statistics.getInFlight());
+            }
+         },
+         new ParameterAdapter("Java.Handler.Latency.P50", "Java subagent: plugin handler latency (ms), 50th percentile", ParameterType.FLOAT) {
+            @Override
+            public String getValue(String param) throws Exception
+            {
+               return Double.toString(statistics.getLatencyPercentile(50));
+            }
+         },
+         new ParameterAdapter("Java.Handler.Latency.P95", "Java subagent: plugin handler latency (ms), 95th percentile", ParameterType.FLOAT) {
+            @Override
+            public String getValue(String param) throws Exception
+            {
+               return Double.toString(statistics.getLatencyPercentile(95));
+            }
+         },
+         new ParameterAdapter("Java.Handler.Latency.P99", "Java subagent: plugin handler latency (ms), 99th percentile", ParameterType.FLOAT) {
+            @Override
+            public String getValue(String param) throws Exception
+            {
+               return Double.toString(statistics.getLatencyPercentile(99));
+            }
+         }
+      };
+      for(Parameter p : internalParameters)
+         parameters.put(INTERNAL_PREFIX + p.getName(), p);
+   }
+
    /**
     * Create contribution item ID.
     * 
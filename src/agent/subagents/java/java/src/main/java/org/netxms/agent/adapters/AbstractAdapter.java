@@ -19,13 +19,33 @@
  */
 package org.netxms.agent.adapters;
 
+import org.netxms.agent.CacheableContributionItem;
 import org.netxms.agent.SubAgent;
 
 /**
  * Abstract adapter for metric handlers
  */
-abstract class AbstractAdapter
+abstract class AbstractAdapter implements CacheableContributionItem
 {
+    private long cacheTTL = -1;
+
+    /**
+     * @see org.netxms.agent.CacheableContributionItem#getCacheTTL()
+     */
+    @Override
+    public long getCacheTTL() {
+        return cacheTTL;
+    }
+
+    /**
+     * Set cache TTL for this item.
+     *
+     * @param cacheTTL cache TTL in milliseconds, 0 to disable caching, or negative value to use default TTL from agent configuration
+     */
+    public void setCacheTTL(long cacheTTL) {
+        this.cacheTTL = cacheTTL;
+    }
+
     protected String getArgument(String name, int index) {
         return SubAgent.getParameterArg(name, index + 1);
     }
@@ -0,0 +1,169 @@
+/**
+ * JMX subagent
+ * Copyright (C) 2013-2023 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.agent.jmx;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import org.netxms.bridge.Platform;
+
+/**
+ * Collection engine shared by all configured JMX servers. Holds bounded poller thread pool, cache settings and parsed object
+ * name cache.
+ */
+public class Collector
+{
+   private static final String DEBUG_TAG = "jmx";
+   private static final long CLEANUP_INTERVAL = 60000;
+
+   private final long cacheTTL;
+   private final long requestTimeout;
+   private final long retentionTime;
+   private final ExecutorService executor;
+   private final Map<String, CachedObjectName> objectNames = new ConcurrentHashMap<String, CachedObjectName>();
+   private final AtomicLong lastCleanup = new AtomicLong(System.currentTimeMillis());
+
+   /**
+    * Create collector.
+    *
+    * @param threads number of poller threads
+    * @param cacheTTL time in milliseconds collected attribute values considered valid
+    * @param requestTimeout time in milliseconds to wait for server poll completion
+    * @param retentionTime time in milliseconds attributes and parsed object names are kept after last request
+    */
+   public Collector(int threads, long cacheTTL, long requestTimeout, long retentionTime)
+   {
+      this.cacheTTL = cacheTTL;
+      this.requestTimeout = requestTimeout;
+      this.retentionTime = retentionTime;
+      executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+         private AtomicInteger threadNumber = new AtomicInteger(1);
+
+         @Override
+         public Thread newThread(Runnable r)
+         {
+            Thread t = new Thread(r, "JMX-Poller-" + threadNumber.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+         }
+      });
+      ((ThreadPoolExecutor)executor).allowCoreThreadTimeOut(true);
+      Platform.writeDebugLog(DEBUG_TAG, 3, "JMX collector started (threads=" + threads + ", cacheTTL=" + cacheTTL + "ms, timeout=" + requestTimeout +
+            "ms, retention=" + retentionTime + "ms)");
+   }
+
+   /**
+    * Get parsed object name. Parsed names are cached, so repeated requests for same object do not parse name again. Names
+    * not requested within retention time are removed from cache.
+    *
+    * @param name object name
+    * @return parsed object name
+    * @throws MalformedObjectNameException if given name is not valid object name
+    */
+   public ObjectName getObjectName(String name) throws MalformedObjectNameException
+   {
+      long now = System.currentTimeMillis();
+      CachedObjectName cachedName = objectNames.get(name);
+      if (cachedName == null)
+      {
+         cachedName = new CachedObjectName(new ObjectName(name));
+         objectNames.put(name, cachedName);
+      }
+      cachedName.lastAccessTime = now;
+
+      long cleanupTime = lastCleanup.get();
+      if ((now - cleanupTime > CLEANUP_INTERVAL) && lastCleanup.compareAndSet(cleanupTime, now))
+      {
+         objectNames.values().removeIf((n) -> now - n.lastAccessTime > retentionTime);
+      }
+      return cachedName.objectName;
+   }
+
+   /**
+    * Submit poll task for execution.
+    *
+    * @param task poll task
+    * @return future for submitted task
+    */
+   Future<?> submit(Runnable task)
+   {
+      return executor.submit(task);
+   }
+
+   /**
+    * Get cache TTL.
+    *
+    * @return cache TTL in milliseconds
+    */
+   public long getCacheTTL()
+   {
+      return cacheTTL;
+   }
+
+   /**
+    * Get request timeout.
+    *
+    * @return request timeout in milliseconds
+    */
+   public long getRequestTimeout()
+   {
+      return requestTimeout;
+   }
+
+   /**
+    * Get retention time for requested attributes and parsed object names.
+    *
+    * @return retention time in milliseconds
+    */
+   public long getRetentionTime()
+   {
+      return retentionTime;
+   }
+
+   /**
+    * Shutdown collector.
+    */
+   public void shutdown()
+   {
+      executor.shutdownNow();
+   }
+
+   /**
+    * Cached parsed object name
+    */
+   private static class CachedObjectName
+   {
+      final ObjectName objectName;
+      volatile long lastAccessTime;
+
+      CachedObjectName(ObjectName objectName)
+      {
+         this.objectName = objectName;
+      }
+   }
+}
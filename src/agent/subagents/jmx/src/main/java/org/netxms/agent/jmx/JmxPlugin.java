@@ -44,6 +44,7 @@ public class JmxPlugin extends Plugin
    private static final String OBJECT_THREADING = "java.lang:type=Threading";
 
    private Map<String, Server> servers = new HashMap<String, Server>();
+   private Collector collector = null;
 
    /**
     * Constructor
@@ -81,6 +82,9 @@ public void init(Config config) throws PluginInitException
    {
       super.init(config);
 
+      collector = new Collector(config.getValueInt("/JMX/PollerThreads", 4), config.getValueLong("/JMX/CacheTTL", 2000), config.getValueLong("/JMX/RequestTimeout", 10000),
+            config.getValueLong("/JMX/AttributeRetentionTime", 900000));
+
       ConfigEntry e = config.getEntry("/JMX/Server");
       if (e == null)
          throw new PluginInitException("JMX servers not defined");
@@ -90,6 +94,17 @@ public void init(Config config) throws PluginInitException
          addServer(e.getValue(i));
       }
    }
+
+   /**
+    * @see org.netxms.agent.Plugin#shutdown()
+    */
+   @Override
+   public void shutdown()
+   {
+      if (collector != null)
+         collector.shutdown();
+      super.shutdown();
+   }
    
    /**
     * Add server from config
@@ -124,11 +139,11 @@ private void addServer(String config) throws PluginInitException
             login = uparts[0];
             password = "";
          }
-         s = new Server(parts[0].trim(), uparts[1].trim(), login, password);
+         s = new Server(parts[0].trim(), uparts[1].trim(), login, password, collector);
       }
       else
       {
-         s = new Server(parts[0].trim(), parts[1].trim(), null, null);
+         s = new Server(parts[0].trim(), parts[1].trim(), null, null, collector);
       }
       servers.put(s.getName(), s);
       Platform.writeDebugLog(DEBUG_TAG, 3, "Added JMX server connection " + s.getName() + " (" + s.getUrl() + ")");
@@ -177,6 +192,38 @@ public String getValue(String param) throws Exception
                   return ((CompositeData)value).get(item).toString();
                }
             },
+            new ParameterAdapter("JMX.Collector.AverageLatency(*)", "JMX server {instance}: average collection latency (ms)", ParameterType.UINT64) {
+               @Override
+               public String getValue(String param) throws Exception
+               {
+                  Server server = getServer(getArgument(param, 0));
+                  return (server != null) ? Long.toString(server.getAveragePollLatency()) : null;
+               }
+            },
+            new ParameterAdapter("JMX.Collector.CacheHits(*)", "JMX server {instance}: attribute requests served from cache", ParameterType.UINT64) {
+               @Override
+               public String getValue(String param) throws Exception
+               {
+                  Server server = getServer(getArgument(param, 0));
+                  return (server != null) ? Long.toString(server.getCacheHits()) : null;
+               }
+            },
+            new ParameterAdapter("JMX.Collector.Latency(*)", "JMX server {instance}: last collection latency (ms)", ParameterType.UINT64) {
+               @Override
+               public String getValue(String param) throws Exception
+               {
+                  Server server = getServer(getArgument(param, 0));
+                  return (server != null) ? Long.toString(server.getLastPollLatency()) : null;
+               }
+            },
+            new ParameterAdapter("JMX.Collector.Requests(*)", "JMX server {instance}: remote requests", ParameterType.UINT64) {
+               @Override
+               public String getValue(String param) throws Exception
+               {
+                  Server server = getServer(getArgument(param, 0));
+                  return (server != null) ? Long.toString(server.getRequestCount()) : null;
+               }
+            },
             new JmxObjectParameterAdapter("JMX.Memory.ObjectsPendingFinalization(*)", "JVM {instance}: objects pending finalization", OBJECT_MEMORY, "ObjectPendingFinalizationCount", ParameterType.UINT),
             new JmxObjectParameterAdapter("JMX.Memory.Heap.Committed(*)", "JVM {instance}: committed heap memory", OBJECT_MEMORY, "HeapMemoryUsage", "committed", ParameterType.UINT64),
             new JmxObjectParameterAdapter("JMX.Memory.Heap.Current(*)", "JVM {instance}: current heap size", OBJECT_MEMORY, "HeapMemoryUsage", "used", ParameterType.UINT64),
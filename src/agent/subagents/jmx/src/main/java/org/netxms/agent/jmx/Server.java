@@ -22,8 +22,16 @@
 import java.net.MalformedURLException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
-import javax.management.AttributeNotFoundException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.InstanceNotFoundException;
 import javax.management.MBeanAttributeInfo;
 import javax.management.MBeanInfo;
 import javax.management.MBeanServerConnection;
@@ -34,7 +42,8 @@
 import org.netxms.bridge.Platform;
 
 /**
- * JMX server
+ * JMX server. Attribute values are collected in bulk - all attributes requested so far for same MBean are read with single
+ * getAttributes() call and cached for configured time, so all DCIs polled within one cycle share same snapshot.
  */
 public class Server
 {
@@ -44,20 +53,33 @@
    private String url;
    private String login;
    private String password;
-   JMXConnector jmxc = null;
-   MBeanServerConnection mbsc = null;
+   private Collector collector;
+   private JMXConnector jmxc = null;
+   private MBeanServerConnection mbsc = null;
+   private Map<ObjectName, Map<String, Long>> requestedAttributes = new ConcurrentHashMap<ObjectName, Map<String, Long>>();
+   private Map<ObjectName, Snapshot> snapshots = new ConcurrentHashMap<ObjectName, Snapshot>();
+   private Object pollLock = new Object();
+   private Future<?> pollFuture = null;
+   private volatile Exception lastPollError = null;
+   private volatile long lastPollLatency = 0;
+   private volatile long averagePollLatency = 0;
+   private AtomicLong requestCount = new AtomicLong(0);
+   private AtomicLong cacheHits = new AtomicLong(0);
 
    /**
-    * @param url
-    * @param login
-    * @param password
+    * @param name server name
+    * @param url server URL
+    * @param login login name (can be null)
+    * @param password password (can be null)
+    * @param collector collection engine
     */
-   public Server(String name, String url, String login, String password)
+   public Server(String name, String url, String login, String password, Collector collector)
    {
       this.name = name;
       this.url = url;
       this.login = login;
       this.password = password;
+      this.collector = collector;
    }
    
    /**
@@ -77,12 +99,53 @@ public String getUrl()
    }
 
    /**
-    * Connect to server
+    * Get latency of last bulk poll.
+    *
+    * @return latency of last bulk poll in milliseconds
+    */
+   public long getLastPollLatency()
+   {
+      return lastPollLatency;
+   }
+
+   /**
+    * Get average (exponentially smoothed) latency of bulk polls.
+    *
+    * @return average latency of bulk polls in milliseconds
+    */
+   public long getAveragePollLatency()
+   {
+      return averagePollLatency;
+   }
+
+   /**
+    * Get number of remote requests made to this server.
+    *
+    * @return number of remote requests
+    */
+   public long getRequestCount()
+   {
+      return requestCount.get();
+   }
+
+   /**
+    * Get number of attribute requests served from cache.
+    *
+    * @return number of cache hits
+    */
+   public long getCacheHits()
+   {
+      return cacheHits.get();
+   }
+
+   /**
+    * Connect to server if not connected already.
     * 
+    * @return MBean server connection
     * @throws MalformedURLException
     * @throws IOException
     */
-   private void connect() throws MalformedURLException, IOException
+   private synchronized MBeanServerConnection connect() throws MalformedURLException, IOException
    {
       if (jmxc == null)
       {
@@ -121,12 +184,13 @@ private void connect() throws MalformedURLException, IOException
             throw e;
          }
       }
+      return mbsc;
    }
 
    /**
     * Disconnect from server 
     */
-   private void disconnect()
+   private synchronized void disconnect()
    {
       if (jmxc != null)
       {
@@ -150,12 +214,13 @@ private void disconnect()
     * @return
     * @throws Exception
     */
-   public synchronized String[] getDomains() throws Exception
+   public String[] getDomains() throws Exception
    {
-      connect();
+      MBeanServerConnection connection = connect();
       try
       {
-         return mbsc.getDomains();
+         requestCount.incrementAndGet();
+         return connection.getDomains();
       }
       catch(IOException e)
       {
@@ -171,14 +236,16 @@ public synchronized String[] getDomains() throws Exception
     * @return
     * @throws Exception
     */
-   public synchronized String[] getObjects(String domain) throws Exception
+   public String[] getObjects(String domain) throws Exception
    {
-      connect();
+      MBeanServerConnection connection = connect();
       try
       {
          if ((domain == null) || domain.isEmpty())
             domain = "*";
-         Set<ObjectName> names = mbsc.queryNames(new ObjectName(domain + ":*"), null);
+         requestCount.incrementAndGet();
+         // Pattern is not put into collector's name cache, it is only used for browsing
+         Set<ObjectName> names = connection.queryNames(new ObjectName(domain + ":*"), null);
          String objects[] = new String[names.size()];
          int i = 0;
          for (ObjectName n : names)
@@ -201,12 +268,13 @@ public synchronized String[] getObjects(String domain) throws Exception
     * @return
     * @throws Exception
     */
-   public synchronized String[] getObjectAttributes(String object) throws Exception
+   public String[] getObjectAttributes(String object) throws Exception
    {
-      connect();
+      MBeanServerConnection connection = connect();
       try
       {
-         MBeanInfo info = mbsc.getMBeanInfo(new ObjectName(object));
+         requestCount.incrementAndGet();
+         MBeanInfo info = connection.getMBeanInfo(collector.getObjectName(object));
          MBeanAttributeInfo[] mbAttributes = info.getAttributes();
          int count = mbAttributes.length;
          String[] attributes = new String[count];
@@ -224,29 +292,56 @@ public synchronized String[] getObjectAttributes(String object) throws Exception
    }
    
    /**
-    * Get value of given attribute
+    * Get value of given attribute. Value is taken from cached snapshot if it is still valid, otherwise bulk poll of all known
+    * attributes is scheduled on collector's thread pool and calling thread waits for its completion. If poll fails, poll
+    * error is thrown - values from older snapshots are never returned after cache TTL expiration.
     * 
     * @param object
     * @param attribute
-    * @return
+    * @return attribute value or null if attribute does not exist
     * @throws Exception
     */
-   public synchronized Object getAttributeValue(String object, String attribute) throws Exception
+   public Object getAttributeValue(String object, String attribute) throws Exception
    {
-      connect();
-      try
-      {
-         return mbsc.getAttribute(new ObjectName(object), attribute);
-      }
-      catch(AttributeNotFoundException e)
+      ObjectName objectName = collector.getObjectName(object);
+      Snapshot snapshot = snapshots.get(objectName);
+      if ((snapshot != null) && snapshot.isValid(collector.getCacheTTL()) && snapshot.contains(attribute))
       {
-         return null;
+         cacheHits.incrementAndGet();
+         Map<String, Long> attributes = requestedAttributes.get(objectName);
+         if (attributes != null)
+            attributes.put(attribute, System.currentTimeMillis());  // Keep attribute from being evicted
+         return snapshot.get(attribute);
       }
-      catch(IOException e)
+
+      final long requestTime = System.currentTimeMillis();
+      requestedAttributes.compute(objectName, (n, m) -> {
+         if (m == null)
+            m = new ConcurrentHashMap<String, Long>();
+         m.put(attribute, requestTime);
+         return m;
+      });
+
+      // Poll already in progress could be started before attribute was registered, so try one more time if needed
+      for(int i = 0; i < 2; i++)
       {
-         disconnect();
-         throw e;
+         long pollStartTime = System.currentTimeMillis();
+         waitForPoll(schedulePoll());
+         snapshot = snapshots.get(objectName);
+         if ((snapshot != null) && (snapshot.timestamp >= pollStartTime))
+         {
+            if (snapshot.contains(attribute))
+               return snapshot.get(attribute);
+         }
+         else
+         {
+            // Snapshot was not updated by poll - either poll failed or it was started before object was registered
+            Exception pollError = lastPollError;
+            if (pollError != null)
+               throw pollError;
+         }
       }
+      return null;
    }
 
    /**
@@ -254,25 +349,159 @@ public synchronized Object getAttributeValue(String object, String attribute) th
     * 
     * @param object
     * @param attribute
-    * @return
+    * @return attribute value as string or null if attribute does not exist
     * @throws Exception
     */
-   public synchronized String getAttributeValueAsString(String object, String attribute) throws Exception
+   public String getAttributeValueAsString(String object, String attribute) throws Exception
+   {
+      Object value = getAttributeValue(object, attribute);
+      return (value != null) ? value.toString() : null;
+   }
+
+   /**
+    * Schedule bulk poll or return already running one.
+    *
+    * @return future for poll task
+    */
+   private Future<?> schedulePoll()
+   {
+      synchronized(pollLock)
+      {
+         if ((pollFuture == null) || pollFuture.isDone())
+         {
+            pollFuture = collector.submit(new Runnable() {
+               @Override
+               public void run()
+               {
+                  poll();
+               }
+            });
+         }
+         return pollFuture;
+      }
+   }
+
+   /**
+    * Wait for poll task completion.
+    *
+    * @param future poll task future
+    * @throws Exception on timeout or poll task failure
+    */
+   private void waitForPoll(Future<?> future) throws Exception
    {
-      connect();
       try
       {
-         Platform.writeDebugLog(DEBUG_TAG, 6, String.format("Reading JMX object %s attribute %s", object, attribute));
-         return mbsc.getAttribute(new ObjectName(object), attribute).toString();
+         future.get(collector.getRequestTimeout(), TimeUnit.MILLISECONDS);
       }
-      catch(AttributeNotFoundException e)
+      catch(ExecutionException e)
       {
-         return null;
+         Throwable cause = e.getCause();
+         throw (cause instanceof Exception) ? (Exception)cause : e;
       }
-      catch(IOException e)
+   }
+
+   /**
+    * Read all requested attributes from server. Called on collector's thread pool.
+    */
+   private void poll()
+   {
+      long startTime = System.currentTimeMillis();
+      try
       {
-         disconnect();
-         throw e;
+         evictUnusedAttributes(startTime);
+         MBeanServerConnection connection = connect();
+         for(Entry<ObjectName, Map<String, Long>> e : requestedAttributes.entrySet())
+         {
+            String[] attributes = e.getValue().keySet().toArray(new String[0]);
+            if (attributes.length == 0)
+               continue;
+            Map<String, Object> values = new HashMap<String, Object>(attributes.length * 2);
+            try
+            {
+               requestCount.incrementAndGet();
+               AttributeList list = connection.getAttributes(e.getKey(), attributes);
+               for(Attribute a : list.asList())
+                  values.put(a.getName(), a.getValue());
+            }
+            catch(InstanceNotFoundException ex)
+            {
+               Platform.writeDebugLog(DEBUG_TAG, 6, "JMX object " + e.getKey() + " not found on server " + name);
+            }
+            // Attributes missing from response do not exist, so they are stored with null value
+            for(String a : attributes)
+            {
+               if (!values.containsKey(a))
+                  values.put(a, null);
+            }
+            snapshots.put(e.getKey(), new Snapshot(values));
+         }
+         lastPollError = null;
+      }
+      catch(Exception e)
+      {
+         Platform.writeDebugLog(DEBUG_TAG, 5, "Exception while polling JMX server " + name + ": " + e.getClass().getCanonicalName() + ": " + e.getMessage());
+         if (e instanceof IOException)
+            disconnect();
+         lastPollError = e;
+      }
+
+      long elapsed = System.currentTimeMillis() - startTime;
+      lastPollLatency = elapsed;
+      averagePollLatency = (averagePollLatency == 0) ? elapsed : (averagePollLatency * 7 + elapsed) / 8;
+      Platform.writeDebugLog(DEBUG_TAG, 7, "JMX server " + name + " polled in " + elapsed + " ms (" + requestedAttributes.size() + " objects)");
+   }
+
+   /**
+    * Remove attributes not requested within collector's retention time, and objects without remaining attributes, so
+    * values that are no longer collected are not polled anymore.
+    *
+    * @param now current time
+    */
+   private void evictUnusedAttributes(long now)
+   {
+      long retentionTime = collector.getRetentionTime();
+      for(ObjectName objectName : requestedAttributes.keySet())
+      {
+         // Done inside compute() so attribute registration from getAttributeValue() cannot be lost
+         Map<String, Long> attributes = requestedAttributes.computeIfPresent(objectName, (n, m) -> {
+            m.values().removeIf((t) -> now - t > retentionTime);
+            return m.isEmpty() ? null : m;
+         });
+         if (attributes == null)
+         {
+            snapshots.remove(objectName);
+            Platform.writeDebugLog(DEBUG_TAG, 6, "JMX object " + objectName + " on server " + name + " removed from poll list");
+         }
+      }
+   }
+
+   /**
+    * Snapshot of attribute values for single object
+    */
+   private static class Snapshot
+   {
+      final long timestamp;
+      final Map<String, Object> values;
+
+      Snapshot(Map<String, Object> values)
+      {
+         this.timestamp = System.currentTimeMillis();
+         this.values = values;
+      }
+
+      boolean isValid(long ttl)
+      {
+         return System.currentTimeMillis() - timestamp < ttl;
+      }
+
+      boolean contains(String attribute)
+      {
+         return values.containsKey(attribute);
+      }
+
+      Object get(String attribute)
+      {
+         return values.get(attribute);
       }
    }
 }
@@ -0,0 +1,394 @@
+/**
+ * OPC UA subagent
+ * Copyright (C) 2017-2023 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package com.radensolutions.netxms.agent.opcua;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.eclipse.milo.opcua.sdk.client.OpcUaClient;
+import org.eclipse.milo.opcua.sdk.client.api.subscriptions.UaMonitoredItem;
+import org.eclipse.milo.opcua.sdk.client.api.subscriptions.UaSubscription;
+import org.eclipse.milo.opcua.sdk.client.api.subscriptions.UaSubscriptionManager;
+import org.eclipse.milo.opcua.stack.core.AttributeId;
+import org.eclipse.milo.opcua.stack.core.UaException;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DataValue;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DateTime;
+import org.eclipse.milo.opcua.stack.core.types.builtin.NodeId;
+import org.eclipse.milo.opcua.stack.core.types.builtin.QualifiedName;
+import org.eclipse.milo.opcua.stack.core.types.builtin.StatusCode;
+import org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.UInteger;
+import org.eclipse.milo.opcua.stack.core.types.enumerated.MonitoringMode;
+import org.eclipse.milo.opcua.stack.core.types.enumerated.TimestampsToReturn;
+import org.eclipse.milo.opcua.stack.core.types.structured.MonitoredItemCreateRequest;
+import org.eclipse.milo.opcua.stack.core.types.structured.MonitoringParameters;
+import org.eclipse.milo.opcua.stack.core.types.structured.ReadValueId;
+import org.netxms.bridge.Platform;
+
+/**
+ * Cache of node values backed by monitored item subscription. Nodes are added to subscription on first request; until first
+ * value is received from subscription (or if subscription becomes stale) values are read directly from server. Direct reads
+ * requested while another direct read is in progress are queued and sent to server as single multi-node read request.
+ * Nodes not requested within retention time are removed from subscription.
+ */
+public class NodeValueCache implements UaSubscriptionManager.SubscriptionListener
+{
+   private OpcUaClient session;
+   private String url;
+   private double publishingInterval;
+   private long staleTimeout;
+   private long timeout;
+   private long retentionTime;
+   private UaSubscription subscription = null;
+   private Map<NodeId, CachedValue> values = new ConcurrentHashMap<NodeId, CachedValue>();
+   private Map<NodeId, Long> accessTimes = new ConcurrentHashMap<NodeId, Long>();
+   private Set<NodeId> monitoredNodes = ConcurrentHashMap.newKeySet();
+   private Map<NodeId, UaMonitoredItem> monitoredItems = new ConcurrentHashMap<NodeId, UaMonitoredItem>();
+   private AtomicLong lastCleanup = new AtomicLong(System.currentTimeMillis());
+   private Map<NodeId, CompletableFuture<DataValue>> pendingReads = new ConcurrentHashMap<NodeId, CompletableFuture<DataValue>>();
+   private Object readLock = new Object();
+   private volatile long lastSubscriptionActivity = 0;
+
+   /**
+    * Create new cache for given session.
+    *
+    * @param session OPC UA client session
+    * @param url server URL (for logging)
+    * @param publishingInterval subscription publishing interval in milliseconds
+    * @param staleTimeout time in milliseconds after which cached value is considered stale if there were no activity on
+    *           subscription
+    * @param timeout request timeout in milliseconds
+    * @param retentionTime time in milliseconds after which node that was not requested is removed from cache and
+    *           subscription
+    */
+   public NodeValueCache(OpcUaClient session, String url, double publishingInterval, long staleTimeout, long timeout, long retentionTime)
+   {
+      this.session = session;
+      this.url = url;
+      this.publishingInterval = publishingInterval;
+      this.staleTimeout = staleTimeout;
+      this.timeout = timeout;
+      this.retentionTime = retentionTime;
+   }
+
+   /**
+    * Get value of given node. Value is taken from cache if it is not stale, otherwise read from server.
+    *
+    * @param nodeId node ID
+    * @return node value
+    * @throws Exception on read error
+    */
+   public DataValue getValue(NodeId nodeId) throws Exception
+   {
+      long now = System.currentTimeMillis();
+      accessTimes.put(nodeId, now);
+      long last = lastCleanup.get();
+      if ((retentionTime > 0) && (now - last >= Math.min(retentionTime, 60000)) && lastCleanup.compareAndSet(last, now))
+         removeUnusedNodes(now);
+
+      CachedValue v = values.get(nodeId);
+      if ((v != null) && isFresh(nodeId, v))
+         return v.value;
+
+      CompletableFuture<DataValue> f = pendingReads.computeIfAbsent(nodeId, (k) -> new CompletableFuture<DataValue>());
+      flushPendingReads();
+      return f.get(timeout, TimeUnit.MILLISECONDS);
+   }
+
+   /**
+    * Get number of cached values.
+    *
+    * @return number of cached values
+    */
+   public int size()
+   {
+      return values.size();
+   }
+
+   /**
+    * Get number of nodes monitored by subscription.
+    *
+    * @return number of monitored nodes
+    */
+   public int getMonitoredNodeCount()
+   {
+      return monitoredNodes.size();
+   }
+
+   /**
+    * Check if cached value is still fresh.
+    *
+    * @param nodeId node ID
+    * @param v cached value
+    * @return true if value is fresh
+    */
+   private boolean isFresh(NodeId nodeId, CachedValue v)
+   {
+      long lastUpdate = monitoredNodes.contains(nodeId) ? Math.max(v.timestamp, lastSubscriptionActivity) : v.timestamp;
+      return System.currentTimeMillis() - lastUpdate < staleTimeout;
+   }
+
+   /**
+    * Read all pending nodes from server with single request and subscribe to them.
+    */
+   private void flushPendingReads()
+   {
+      synchronized(readLock)
+      {
+         if (pendingReads.isEmpty())
+            return;
+
+         List<NodeId> nodes = new ArrayList<NodeId>(pendingReads.keySet());
+         List<CompletableFuture<DataValue>> futures = new ArrayList<CompletableFuture<DataValue>>(nodes.size());
+         for(NodeId n : nodes)
+            futures.add(pendingReads.remove(n));
+
+         try
+         {
+            List<DataValue> results = session.readValues(0, TimestampsToReturn.Neither, nodes).get(timeout, TimeUnit.MILLISECONDS);
+            Platform.writeDebugLog(6, String.format("OPCUA: read %d nodes from %s", nodes.size(), url));
+            long now = System.currentTimeMillis();
+            for(int i = 0; i < nodes.size(); i++)
+            {
+               DataValue value = results.get(i);
+               values.put(nodes.get(i), new CachedValue(value, now));
+               futures.get(i).complete(value);
+            }
+         }
+         catch(Exception e)
+         {
+            Throwable cause = (e.getCause() != null) ? e.getCause() : e;
+            for(CompletableFuture<DataValue> f : futures)
+               f.completeExceptionally(cause);
+            return;
+         }
+
+         subscribe(nodes);
+      }
+   }
+
+   /**
+    * Add given nodes to subscription. Should be called with read lock held.
+    *
+    * @param nodes nodes to add
+    */
+   private void subscribe(List<NodeId> nodes)
+   {
+      try
+      {
+         if (subscription == null)
+         {
+            subscription = session.getSubscriptionManager().createSubscription(publishingInterval).get(timeout, TimeUnit.MILLISECONDS);
+            session.getSubscriptionManager().addSubscriptionListener(this);
+            lastSubscriptionActivity = System.currentTimeMillis();
+            Platform.writeDebugLog(5, String.format("OPCUA: created subscription %s on %s (publishing interval %f)", subscription.getSubscriptionId(), url, subscription.getRevisedPublishingInterval()));
+         }
+
+         List<MonitoredItemCreateRequest> requests = new ArrayList<MonitoredItemCreateRequest>();
+         for(NodeId n : nodes)
+         {
+            if (!monitoredNodes.add(n))
+               continue;
+            ReadValueId readValueId = new ReadValueId(n, AttributeId.Value.uid(), null, QualifiedName.NULL_VALUE);
+            MonitoringParameters parameters = new MonitoringParameters(subscription.nextClientHandle(), publishingInterval, null, UInteger.valueOf(1), true);
+            requests.add(new MonitoredItemCreateRequest(readValueId, MonitoringMode.Reporting, parameters));
+         }
+         if (requests.isEmpty())
+            return;
+
+         List<UaMonitoredItem> items = subscription.createMonitoredItems(TimestampsToReturn.Both, requests,
+               (item, index) -> {
+                  final NodeId nodeId = item.getReadValueId().getNodeId();
+                  item.setValueConsumer((value) -> onValueUpdate(nodeId, value));
+               }).get(timeout, TimeUnit.MILLISECONDS);
+         for(UaMonitoredItem item : items)
+         {
+            if (item.getStatusCode().isGood())
+            {
+               monitoredItems.put(item.getReadValueId().getNodeId(), item);
+            }
+            else
+            {
+               Platform.writeDebugLog(6, String.format("OPCUA: cannot create monitored item for node %s on %s (%s)", item.getReadValueId().getNodeId(), url, item.getStatusCode()));
+               monitoredNodes.remove(item.getReadValueId().getNodeId());
+            }
+         }
+         Platform.writeDebugLog(6, String.format("OPCUA: %d nodes monitored on %s", monitoredNodes.size(), url));
+      }
+      catch(Exception e)
+      {
+         Platform.writeDebugLog(5, String.format("OPCUA: cannot subscribe to nodes on %s (%s)", url, e.getMessage()));
+         Platform.writeDebugLog(6, "OPCUA:   ", e);
+         monitoredNodes.removeAll(nodes);
+      }
+   }
+
+   /**
+    * Remove nodes that were not requested within retention time from cache and subscription.
+    *
+    * @param now current time
+    */
+   private void removeUnusedNodes(long now)
+   {
+      synchronized(readLock)
+      {
+         List<NodeId> unused = new ArrayList<NodeId>();
+         for(Map.Entry<NodeId, Long> e : accessTimes.entrySet())
+         {
+            if (now - e.getValue() > retentionTime)
+               unused.add(e.getKey());
+         }
+         if (unused.isEmpty())
+            return;
+
+         List<UaMonitoredItem> items = new ArrayList<UaMonitoredItem>();
+         for(NodeId n : unused)
+         {
+            accessTimes.remove(n);
+            values.remove(n);
+            monitoredNodes.remove(n);
+            UaMonitoredItem item = monitoredItems.remove(n);
+            if (item != null)
+               items.add(item);
+         }
+         Platform.writeDebugLog(6, String.format("OPCUA: %d unused nodes removed from cache for %s", unused.size(), url));
+
+         if ((subscription == null) || items.isEmpty())
+            return;
+         try
+         {
+            subscription.deleteMonitoredItems(items).get(timeout, TimeUnit.MILLISECONDS);
+         }
+         catch(Exception e)
+         {
+            Platform.writeDebugLog(5, String.format("OPCUA: cannot delete monitored items on %s (%s)", url, e.getMessage()));
+            Platform.writeDebugLog(6, "OPCUA:   ", e);
+         }
+      }
+   }
+
+   /**
+    * Handle value update from subscription.
+    *
+    * @param nodeId node ID
+    * @param value new value
+    */
+   private void onValueUpdate(NodeId nodeId, DataValue value)
+   {
+      long now = System.currentTimeMillis();
+      if (monitoredNodes.contains(nodeId))
+         values.put(nodeId, new CachedValue(value, now));
+      lastSubscriptionActivity = now;
+   }
+
+   /**
+    * Close cache and delete subscription.
+    */
+   public void close()
+   {
+      synchronized(readLock)
+      {
+         if (subscription != null)
+         {
+            session.getSubscriptionManager().removeSubscriptionListener(this);
+            try
+            {
+               session.getSubscriptionManager().deleteSubscription(subscription.getSubscriptionId()).get(timeout, TimeUnit.MILLISECONDS);
+            }
+            catch(Exception e)
+            {
+               Platform.writeDebugLog(6, "OPCUA: exception while deleting subscription on " + url);
+               Platform.writeDebugLog(6, "OPCUA:   ", e);
+            }
+            subscription = null;
+         }
+         monitoredNodes.clear();
+         monitoredItems.clear();
+         values.clear();
+         accessTimes.clear();
+      }
+   }
+
+   /**
+    * @see org.eclipse.milo.opcua.sdk.client.api.subscriptions.UaSubscriptionManager.SubscriptionListener#onKeepAlive(org.eclipse.milo.opcua.sdk.client.api.subscriptions.UaSubscription,
+    *      org.eclipse.milo.opcua.stack.core.types.builtin.DateTime)
+    */
+   @Override
+   public void onKeepAlive(UaSubscription subscription, DateTime publishTime)
+   {
+      lastSubscriptionActivity = System.currentTimeMillis();
+   }
+
+   /**
+    * @see org.eclipse.milo.opcua.sdk.client.api.subscriptions.UaSubscriptionManager.SubscriptionListener#onStatusChanged(org.eclipse.milo.opcua.sdk.client.api.subscriptions.UaSubscription,
+    *      org.eclipse.milo.opcua.stack.core.types.builtin.StatusCode)
+    */
+   @Override
+   public void onStatusChanged(UaSubscription subscription, StatusCode status)
+   {
+      Platform.writeDebugLog(5, String.format("OPCUA: subscription %s on %s status changed to %s", subscription.getSubscriptionId(), url, status));
+   }
+
+   /**
+    * @see org.eclipse.milo.opcua.sdk.client.api.subscriptions.UaSubscriptionManager.SubscriptionListener#onPublishFailure(org.eclipse.milo.opcua.stack.core.UaException)
+    */
+   @Override
+   public void onPublishFailure(UaException exception)
+   {
+      Platform.writeDebugLog(6, String.format("OPCUA: publish failure on %s (%s)", url, exception.getMessage()));
+   }
+
+   /**
+    * @see org.eclipse.milo.opcua.sdk.client.api.subscriptions.UaSubscriptionManager.SubscriptionListener#onSubscriptionTransferFailed(org.eclipse.milo.opcua.sdk.client.api.subscriptions.UaSubscription,
+    *      org.eclipse.milo.opcua.stack.core.types.builtin.StatusCode)
+    */
+   @Override
+   public void onSubscriptionTransferFailed(UaSubscription subscription, StatusCode statusCode)
+   {
+      Platform.writeDebugLog(5, String.format("OPCUA: subscription transfer failed on %s (%s), will re-subscribe on next request", url, statusCode));
+      synchronized(readLock)
+      {
+         if (this.subscription == subscription)
+         {
+            this.subscription = null;
+            monitoredNodes.clear();
+            monitoredItems.clear();
+         }
+      }
+   }
+
+   /**
+    * Cached node value
+    */
+   private static class CachedValue
+   {
+      final DataValue value;
+      final long timestamp;
+
+      CachedValue(DataValue value, long timestamp)
+      {
+         this.value = value;
+         this.timestamp = timestamp;
+      }
+   }
+}
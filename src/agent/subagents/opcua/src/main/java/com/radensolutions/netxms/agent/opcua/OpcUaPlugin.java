@@ -38,6 +38,10 @@ public class OpcUaPlugin extends Plugin
 {
    private Map<String, ServerConnection> servers = new HashMap<String, ServerConnection>();
    private int timeout = 5000;
+   private boolean useSubscriptions = false;
+   private int publishingInterval = 1000;
+   private int staleTimeout = 30000;
+   private int retentionTime = 900000;
 
    /**
     * Create plugin instance
@@ -76,6 +80,10 @@ public void init(Config config) throws PluginInitException
       super.init(config);
       
       timeout = config.getValueInt("/OPCUA/Timeout", 5000);
+      useSubscriptions = config.getValueBoolean("/OPCUA/UseSubscriptions", false);
+      publishingInterval = config.getValueInt("/OPCUA/PublishingInterval", 1000);
+      staleTimeout = config.getValueInt("/OPCUA/StaleTimeout", 30000);
+      retentionTime = config.getValueInt("/OPCUA/ItemRetentionTime", 900000);
       
       ConfigEntry e = config.getEntry("/OPCUA/Server");
       if (e == null)
@@ -120,11 +128,11 @@ private void addServer(String config) throws PluginInitException
             login = uparts[0];
             password = "";
          }
-         s = new ServerConnection(parts[0].trim(), uparts[1].trim(), login, password, timeout);
+         s = new ServerConnection(parts[0].trim(), uparts[1].trim(), login, password, timeout, useSubscriptions, publishingInterval, staleTimeout, retentionTime);
       }
       else
       {
-         s = new ServerConnection(parts[0].trim(), parts[1].trim(), null, null, timeout);
+         s = new ServerConnection(parts[0].trim(), parts[1].trim(), null, null, timeout, useSubscriptions, publishingInterval, staleTimeout, retentionTime);
       }
       servers.put(s.getName(), s);
       Platform.writeDebugLog(3, "OPCUA: added server connection " + s.getName() + " (" + s.getUrl() + ")");
@@ -18,13 +18,15 @@
  */
 package com.radensolutions.netxms.agent.opcua;
 
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import org.eclipse.milo.opcua.sdk.client.OpcUaClient;
 import org.eclipse.milo.opcua.sdk.client.api.identity.AnonymousProvider;
 import org.eclipse.milo.opcua.sdk.client.api.identity.UsernameProvider;
@@ -56,8 +58,14 @@
    private String login;
    private String password;
    private int timeout;
-   private OpcUaClient session;
-   private Map<NodeId, ExpandedNodeId> dataTypeCache = new HashMap<>();
+   private boolean useSubscriptions;
+   private int publishingInterval;
+   private int staleTimeout;
+   private long retentionTime;
+   private volatile OpcUaClient session;
+   private volatile NodeValueCache cache = null;
+   private ReadWriteLock sessionLock = new ReentrantReadWriteLock();
+   private Map<NodeId, ExpandedNodeId> dataTypeCache = new ConcurrentHashMap<>();
 
    /**
     * @param url
@@ -65,12 +73,32 @@
     * @param password
     */
    public ServerConnection(String name, String url, String login, String password, int timeout)
+   {
+      this(name, url, login, password, timeout, false, 0, 0, 0);
+   }
+
+   /**
+    * @param url
+    * @param login
+    * @param password
+    * @param timeout request timeout in milliseconds
+    * @param useSubscriptions true to serve node values from subscription-based cache
+    * @param publishingInterval subscription publishing interval in milliseconds
+    * @param staleTimeout time in milliseconds after which cached values are considered stale if there were no activity on
+    *           subscription
+    * @param retentionTime time in milliseconds after which node that was not requested is removed from subscription
+    */
+   public ServerConnection(String name, String url, String login, String password, int timeout, boolean useSubscriptions, int publishingInterval, int staleTimeout, long retentionTime)
    {
       this.name = name;
       this.url = url;
       this.login = login;
       this.password = password;
       this.timeout = timeout;
+      this.useSubscriptions = useSubscriptions;
+      this.publishingInterval = publishingInterval;
+      this.staleTimeout = staleTimeout;
+      this.retentionTime = retentionTime;
    }
    
    /**
@@ -90,18 +118,19 @@ public String getUrl()
    }
    
    /**
-    * Connect to server
+    * Connect to server. Session is published only after successful connect, so concurrent readers never see half
+    * initialized session.
     * 
     * @throws Exception on any error
     */
-   private void connect() throws Exception
+   private synchronized void connect() throws Exception
    {
       if (session != null)
          return;
 
       try
       {
-         session = OpcUaClient.create(url,
+         OpcUaClient session = OpcUaClient.create(url,
                endpoints ->
                   endpoints
                      .stream()
@@ -117,6 +146,9 @@ private void connect() throws Exception
                      .setRequestTimeout(UInteger.valueOf(5000))
                      .build());
          session.connect().get(timeout, TimeUnit.MILLISECONDS);
+         if (useSubscriptions)
+            cache = new NodeValueCache(session, url, publishingInterval, staleTimeout, timeout, retentionTime);
+         this.session = session;
       }
       catch(Exception e)
       {
@@ -127,23 +159,72 @@ private void connect() throws Exception
    }
 
    /**
-    * Disconnect from server
+    * Disconnect from server. Waits for all requests currently using session to complete. Must not be called by thread
+    * holding session read lock.
     */
-   private void disconnect()
+   private synchronized void disconnect()
    {
       if (session == null)
          return;
-      
+
+      sessionLock.writeLock().lock();
       try
       {
-         session.disconnect().get();
+         if (cache != null)
+         {
+            cache.close();
+            cache = null;
+         }
+
+         try
+         {
+            session.disconnect().get();
+         }
+         catch(Exception e)
+         {
+            Platform.writeDebugLog(6, "OPCUA: exception in disconnect() call for " + url);
+            Platform.writeDebugLog(6, "OPCUA:   ", e);
+         }
+         session = null;
       }
-      catch(Exception e)
+      finally
       {
-         Platform.writeDebugLog(6, "OPCUA: exception in disconnect() call for " + url);
-         Platform.writeDebugLog(6, "OPCUA:   ", e);
+         sessionLock.writeLock().unlock();
+      }
+   }
+
+   /**
+    * Get current session. Should be called with session read lock held.
+    *
+    * @return current session
+    * @throws IllegalStateException if there is no active session
+    */
+   private OpcUaClient getSession()
+   {
+      OpcUaClient session = this.session;
+      if (session == null)
+         throw new IllegalStateException("Not connected to " + url);
+      return session;
+   }
+
+   /**
+    * Execute given action with session read lock held, so session cannot be torn down while in use.
+    *
+    * @param action action to execute
+    * @return result of action execution
+    * @throws Exception in case of failure
+    */
+   private <T extends Object> T executeWithSession(Callable<T> action) throws Exception
+   {
+      sessionLock.readLock().lock();
+      try
+      {
+         return action.call();
+      }
+      finally
+      {
+         sessionLock.readLock().unlock();
       }
-      session = null;
    }
 
    /**
@@ -194,8 +275,20 @@ private <T extends Object> T handleExecutionException(ExecutionException e, Call
     */
    private String readNodeValue(NodeId nodeId) throws Exception
    {
-      UaVariableNode node = session.getAddressSpace().getVariableNode(nodeId);
-      Object value = node.readValue().getValue().getValue();
+      DataValue dataValue;
+      OpcUaClient session = getSession();
+      NodeValueCache cache = this.cache;
+      if (cache != null)
+      {
+         dataValue = cache.getValue(nodeId);
+      }
+      else
+      {
+         UaVariableNode node = session.getAddressSpace().getVariableNode(nodeId);
+         dataValue = node.readValue();
+      }
+
+      Object value = dataValue.getValue().getValue();
       if (value == null)
          return null;
 
@@ -226,6 +319,24 @@ private String readNodeValue(NodeId nodeId) throws Exception
       return value.toString();
    }
 
+   /**
+    * Get value of given node, connecting to server as necessary. If subscription mode is enabled, value is taken from
+    * subscription-based cache and concurrent requests are not serialized.
+    * 
+    * @param name node symbolic name
+    * @return node value or null to indicate unsupported node
+    * @throws Exception
+    */
+   public String getNodeValue(String name) throws Exception
+   {
+      if (useSubscriptions)
+         return getNodeValueInternal(name);
+      synchronized(this)
+      {
+         return getNodeValueInternal(name);
+      }
+   }
+
    /**
     * Get value of given node, connecting to server as necessary
     * 
@@ -233,7 +344,7 @@ private String readNodeValue(NodeId nodeId) throws Exception
     * @return node value or null to indicate unsupported node
     * @throws Exception
     */
-   public synchronized String getNodeValue(String name) throws Exception
+   private String getNodeValueInternal(String name) throws Exception
    {
       connect();
 
@@ -250,11 +361,11 @@ public synchronized String getNodeValue(String name) throws Exception
 
       try
       {
-         return readNodeValue(nodeId);
+         return executeWithSession(() -> readNodeValue(nodeId));
       }
       catch(ExecutionException e)
       {
-         return handleExecutionException(e, () -> { return readNodeValue(nodeId); });
+         return handleExecutionException(e, () -> executeWithSession(() -> readNodeValue(nodeId)));
       }
       catch(Exception e)
       {
@@ -272,6 +383,7 @@ public synchronized String getNodeValue(String name) throws Exception
     */
    private boolean writeNodeValue(NodeId nodeId, String newValue) throws Exception
    {
+      OpcUaClient session = getSession();
       UaVariableNode node = session.getAddressSpace().getVariableNode(nodeId);
       
       // Determine data type
@@ -336,11 +448,11 @@ public boolean writeNode(String node, String value) throws Exception
 
       try
       {
-         return writeNodeValue(nodeId, value);
+         return executeWithSession(() -> writeNodeValue(nodeId, value));
       }
       catch(ExecutionException e)
       {
-         return handleExecutionException(e, () -> { return writeNodeValue(nodeId, value); });
+         return handleExecutionException(e, () -> executeWithSession(() -> writeNodeValue(nodeId, value)));
       }
       catch(Exception e)
       {
@@ -0,0 +1,166 @@
+/**
+ * OPC UA subagent
+ * Copyright (C) 2017-2023 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package com.radensolutions.netxms.agent.opcua;
+
+import java.util.concurrent.TimeUnit;
+import org.eclipse.milo.examples.server.ExampleServer;
+import org.eclipse.milo.opcua.sdk.client.OpcUaClient;
+import org.eclipse.milo.opcua.sdk.client.api.identity.AnonymousProvider;
+import org.eclipse.milo.opcua.stack.core.security.SecurityPolicy;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DataValue;
+import org.eclipse.milo.opcua.stack.core.types.builtin.LocalizedText;
+import org.eclipse.milo.opcua.stack.core.types.builtin.NodeId;
+import org.eclipse.milo.opcua.stack.core.types.builtin.StatusCode;
+import org.eclipse.milo.opcua.stack.core.types.builtin.Variant;
+import junit.framework.TestCase;
+
+/**
+ * Tests for subscription-based node value cache (using Milo example server)
+ */
+public class NodeValueCacheTest extends TestCase
+{
+   static final String URL = "opc.tcp://localhost:12686/milo";
+   static final NodeId INT32_NODE = NodeId.parse("ns=2;s=HelloWorld/ScalarTypes/Int32");
+   static final NodeId DOUBLE_NODE = NodeId.parse("ns=2;s=HelloWorld/ScalarTypes/Double");
+
+   private ExampleServer server;
+   private OpcUaClient client;
+   private NodeValueCache cache;
+
+   /**
+    * Create client connected to example server.
+    */
+   static OpcUaClient createClient() throws Exception
+   {
+      OpcUaClient client = OpcUaClient.create(URL,
+            endpoints -> endpoints.stream().filter(e -> e.getSecurityPolicyUri().equals(SecurityPolicy.None.getUri())).findFirst(),
+            configBuilder -> configBuilder
+                  .setApplicationName(LocalizedText.english("NetXMS Agent Test"))
+                  .setApplicationUri("urn:netxms:agent:test")
+                  .setIdentityProvider(new AnonymousProvider())
+                  .build());
+      client.connect().get(10, TimeUnit.SECONDS);
+      return client;
+   }
+
+   /**
+    * Wait until given node has given value in cache.
+    */
+   private static boolean waitForValue(NodeValueCache cache, NodeId nodeId, Object value) throws Exception
+   {
+      long deadline = System.currentTimeMillis() + 5000;
+      while(System.currentTimeMillis() < deadline)
+      {
+         if (value.equals(cache.getValue(nodeId).getValue().getValue()))
+            return true;
+         Thread.sleep(50);
+      }
+      return false;
+   }
+
+   /**
+    * @see junit.framework.TestCase#setUp()
+    */
+   @Override
+   protected void setUp() throws Exception
+   {
+      server = new ExampleServer();
+      server.startup().get(30, TimeUnit.SECONDS);
+      client = createClient();
+   }
+
+   /**
+    * @see junit.framework.TestCase#tearDown()
+    */
+   @Override
+   protected void tearDown() throws Exception
+   {
+      if (cache != null)
+         cache.close();
+      client.disconnect().get(10, TimeUnit.SECONDS);
+      server.shutdown().get(30, TimeUnit.SECONDS);
+   }
+
+   public void testSubscriptionSetup() throws Exception
+   {
+      cache = new NodeValueCache(client, URL, 100, 60000, 5000, 0);
+      assertEquals(0, cache.getMonitoredNodeCount());
+
+      DataValue value = cache.getValue(INT32_NODE);
+      assertTrue(value.getStatusCode().isGood());
+      assertTrue(value.getValue().getValue() instanceof Integer);
+      assertEquals(1, cache.getMonitoredNodeCount());
+      assertEquals(1, cache.size());
+
+      cache.getValue(DOUBLE_NODE);
+      assertEquals(2, cache.getMonitoredNodeCount());
+      assertEquals(1, client.getSubscriptionManager().getSubscriptions().size());
+      assertEquals(2, client.getSubscriptionManager().getSubscriptions().get(0).getMonitoredItems().size());
+
+      cache.close();
+      assertEquals(0, cache.getMonitoredNodeCount());
+      assertEquals(0, client.getSubscriptionManager().getSubscriptions().size());
+      cache = null;
+   }
+
+   public void testCachedReads() throws Exception
+   {
+      cache = new NodeValueCache(client, URL, 100, 60000, 5000, 0);
+      cache.getValue(INT32_NODE);
+      Thread.sleep(1000); // wait for initial value from subscription
+
+      // Static value is served from cache without reading from server
+      DataValue value = cache.getValue(INT32_NODE);
+      assertSame(value, cache.getValue(INT32_NODE));
+
+      // Changes are delivered by subscription
+      int newValue = (Integer)value.getValue().getValue() + 1;
+      StatusCode status = client.writeValue(INT32_NODE, new DataValue(new Variant(newValue))).get(5, TimeUnit.SECONDS);
+      assertTrue(status.isGood());
+      assertTrue(waitForValue(cache, INT32_NODE, newValue));
+   }
+
+   public void testStaleValues() throws Exception
+   {
+      // Without subscription activity within stale timeout values are read directly
+      cache = new NodeValueCache(client, URL, 10000, 200, 5000, 0);
+      DataValue value = cache.getValue(INT32_NODE);
+      assertSame(value, cache.getValue(INT32_NODE));
+      Thread.sleep(500);
+      assertNotSame(value, cache.getValue(INT32_NODE));
+   }
+
+   public void testUnusedItemsExpire() throws Exception
+   {
+      cache = new NodeValueCache(client, URL, 100, 60000, 5000, 300);
+      cache.getValue(INT32_NODE);
+      cache.getValue(DOUBLE_NODE);
+      assertEquals(2, cache.getMonitoredNodeCount());
+
+      Thread.sleep(500);
+      cache.getValue(INT32_NODE); // triggers cleanup
+      assertEquals(1, cache.getMonitoredNodeCount());
+      assertEquals(1, cache.size());
+      assertEquals(1, client.getSubscriptionManager().getSubscriptions().get(0).getMonitoredItems().size());
+
+      // Expired node is added back on next request
+      cache.getValue(DOUBLE_NODE);
+      assertEquals(2, cache.getMonitoredNodeCount());
+   }
+}
@@ -0,0 +1,109 @@
+/**
+ * OPC UA subagent
+ * Copyright (C) 2017-2023 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package com.radensolutions.netxms.agent.opcua;
+
+import java.util.concurrent.TimeUnit;
+import org.eclipse.milo.examples.server.ExampleServer;
+import org.eclipse.milo.opcua.sdk.server.nodes.UaVariableNode;
+import org.eclipse.milo.opcua.stack.core.types.builtin.NodeId;
+import junit.framework.TestCase;
+
+/**
+ * Tests for OPC UA server connection (using Milo example server)
+ */
+public class ServerConnectionTest extends TestCase
+{
+   private static final String INT32_NODE = "ns=2;s=HelloWorld/ScalarTypes/Int32";
+
+   private ExampleServer server;
+
+   /**
+    * Wait until given node has given value.
+    */
+   private static boolean waitForValue(ServerConnection connection, String node, String value, long timeout) throws Exception
+   {
+      long deadline = System.currentTimeMillis() + timeout;
+      while(System.currentTimeMillis() < deadline)
+      {
+         if (value.equals(connection.getNodeValue(node)))
+            return true;
+         Thread.sleep(100);
+      }
+      return false;
+   }
+
+   /**
+    * @see junit.framework.TestCase#setUp()
+    */
+   @Override
+   protected void setUp() throws Exception
+   {
+      server = new ExampleServer();
+      server.startup().get(30, TimeUnit.SECONDS);
+   }
+
+   /**
+    * @see junit.framework.TestCase#tearDown()
+    */
+   @Override
+   protected void tearDown() throws Exception
+   {
+      server.shutdown().get(30, TimeUnit.SECONDS);
+   }
+
+   public void testReadWrite() throws Exception
+   {
+      ServerConnection connection = new ServerConnection("test", NodeValueCacheTest.URL, null, null, 5000);
+      assertNotNull(connection.getNodeValue(INT32_NODE));
+      assertTrue(connection.writeNode(INT32_NODE, "1234"));
+      assertEquals("1234", connection.getNodeValue(INT32_NODE));
+      assertNull(connection.getNodeValue("ns=2;s=HelloWorld/NoSuchNode"));
+      assertNull(connection.getNodeValue("invalid node"));
+   }
+
+   public void testSubscriptionMode() throws Exception
+   {
+      ServerConnection connection = new ServerConnection("test", NodeValueCacheTest.URL, null, null, 5000, true, 100, 5000, 60000);
+      assertNotNull(connection.getNodeValue(INT32_NODE));
+      assertTrue(connection.writeNode(INT32_NODE, "4321"));
+      assertTrue(waitForValue(connection, INT32_NODE, "4321", 5000));
+   }
+
+   public void testReconnect() throws Exception
+   {
+      ServerConnection connection = new ServerConnection("test", NodeValueCacheTest.URL, null, null, 5000, true, 100, 1000, 60000);
+      assertTrue(connection.writeNode(INT32_NODE, "777"));
+      assertTrue(waitForValue(connection, INT32_NODE, "777", 5000));
+
+      // Restarted server has no session and subscription of previous instance and initial node values
+      server.shutdown().get(30, TimeUnit.SECONDS);
+      server = new ExampleServer();
+      server.startup().get(30, TimeUnit.SECONDS);
+
+      String initialValue = server.getServer().getAddressSpaceManager().getManagedNode(NodeId.parse(INT32_NODE))
+            .map(n -> ((UaVariableNode)n).getValue().getValue().getValue().toString()).orElse(null);
+      assertNotNull(initialValue);
+      assertFalse("777".equals(initialValue));
+      assertTrue(waitForValue(connection, INT32_NODE, initialValue, 30000));
+
+      // Values are delivered by subscription created on new server
+      assertTrue(connection.writeNode(INT32_NODE, "888"));
+      assertTrue(waitForValue(connection, INT32_NODE, "888", 5000));
+   }
+}
@@ -0,0 +1,74 @@
+/**
+ * OPC UA subagent
+ * Copyright (C) 2017-2023 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.bridge;
+
+/**
+ * Replacement of platform bridge for unit tests. Native bridge library is only available inside agent process, so test
+ * classes take precedence over bridge library on test class path and debug messages are written to standard output.
+ */
+public final class Platform
+{
+   /**
+    * Write debug log message to standard output.
+    *
+    * @param tag debug tag
+    * @param level debug level (0-9)
+    * @param message message
+    */
+   public static void writeDebugLog(String tag, int level, String message)
+   {
+      System.out.println("[" + ((tag != null) ? tag : "") + ":" + level + "] " + message);
+   }
+
+   /**
+    * Write debug log message to standard output.
+    *
+    * @param level debug level (0-9)
+    * @param message message
+    */
+   public static void writeDebugLog(int level, String message)
+   {
+      writeDebugLog(null, level, message);
+   }
+
+   /**
+    * Write exception's stack trace to standard output.
+    *
+    * @param level log level
+    * @param prefix message prefix
+    * @param e exception to log
+    */
+   public static void writeDebugLog(int level, String prefix, Throwable e)
+   {
+      writeDebugLog(null, level, prefix, e);
+   }
+
+   /**
+    * Write exception's stack trace to standard output.
+    *
+    * @param tag debug tag
+    * @param level log level
+    * @param prefix message prefix
+    * @param e exception to log
+    */
+   public static void writeDebugLog(String tag, int level, String prefix, Throwable e)
+   {
+      writeDebugLog(tag, level, prefix + e.toString());
+   }
+}
@@ -3,6 +3,8 @@
 import java.util.regex.Pattern;
 import org.netxms.agent.Action;
 import org.netxms.agent.ListParameter;
+import org.netxms.agent.Parameter;
+import org.netxms.agent.ParameterType;
 import org.netxms.agent.Plugin;
 import org.netxms.agent.PushParameter;
 import org.netxms.agent.SubAgent;
@@ -11,10 +13,10 @@
 import org.netxms.bridge.LogLevel;
 import org.netxms.bridge.Platform;
 import com.rfelements.exception.CollectorException;
-import com.rfelements.model.json.ligowave.Ligowave;
-import com.rfelements.model.json.ubiquiti.Ubiquiti;
+import com.rfelements.model.DeviceSnapshot;
 import com.rfelements.provider.DataProvider;
 import com.rfelements.provider.DataProviderImpl;
+import com.rfelements.workers.WorkerStatistics;
 
 /**
  * @author Pichanič Ján
@@ -57,14 +59,76 @@ public String getVersion() {
         return VERSION;
     }
 
-    protected Ligowave getDlbObject(String param) throws CollectorException {
+    protected DeviceSnapshot getSnapshot(String param) throws CollectorException {
         String ip = parseDeviceIdentifierParameter(param);
-        return dataProvider.getLigowaveObject(protocol, basePath, ip, type);
+        return dataProvider.getSnapshot(protocol, basePath, ip, type);
     }
 
-    protected Ubiquiti getUbntObject(String param) throws CollectorException {
-        String ip = parseDeviceIdentifierParameter(param);
-        return this.dataProvider.getUbiquitiObject(protocol, basePath, ip, type);
+    protected String value(Object value) throws CollectorException {
+        if (value == null)
+            throw new CollectorException("Value is not available");
+        return value.toString();
+    }
+
+    protected abstract Parameter[] getDeviceParameters();
+
+    @Override
+    public Parameter[] getParameters() {
+        Parameter[] deviceParameters = getDeviceParameters();
+        Parameter[] collectorParameters = new Parameter[] {
+                new CollectorParameter("collector/devices", "Number of polled devices", ParameterType.INT) {
+                    @Override
+                    protected long getValue(WorkerStatistics statistics) {
+                        return statistics.getDevices();
+                    }
+                },
+                new CollectorParameter("collector/polls", "Number of completed polls", ParameterType.UINT64) {
+                    @Override
+                    protected long getValue(WorkerStatistics statistics) {
+                        return statistics.getPolls();
+                    }
+                },
+                new CollectorParameter("collector/failures", "Number of failed polls", ParameterType.UINT64) {
+                    @Override
+                    protected long getValue(WorkerStatistics statistics) {
+                        return statistics.getFailures();
+                    }
+                },
+                new CollectorParameter("collector/poll_latency", "Last poll latency (ms)", ParameterType.UINT64) {
+                    @Override
+                    protected long getValue(WorkerStatistics statistics) {
+                        return statistics.getLastPollLatency();
+                    }
+                },
+                new CollectorParameter("collector/poll_latency_avg", "Average poll latency (ms)", ParameterType.UINT64) {
+                    @Override
+                    protected long getValue(WorkerStatistics statistics) {
+                        return statistics.getAveragePollLatency();
+                    }
+                },
+                new CollectorParameter("collector/queue_lag", "Last poll queue lag (ms)", ParameterType.UINT64) {
+                    @Override
+                    protected long getValue(WorkerStatistics statistics) {
+                        return statistics.getLastQueueLag();
+                    }
+                },
+                new CollectorParameter("collector/queue_lag_avg", "Average poll queue lag (ms)", ParameterType.UINT64) {
+                    @Override
+                    protected long getValue(WorkerStatistics statistics) {
+                        return statistics.getAverageQueueLag();
+                    }
+                },
+                new CollectorParameter("collector/queue_size", "Number of scheduled polls for all device types", ParameterType.INT) {
+                    @Override
+                    protected long getValue(WorkerStatistics statistics) {
+                        return dataProvider.getQueueSize();
+                    }
+                }
+        };
+        Parameter[] result = new Parameter[deviceParameters.length + collectorParameters.length];
+        System.arraycopy(deviceParameters, 0, result, 0, deviceParameters.length);
+        System.arraycopy(collectorParameters, 0, result, deviceParameters.length, collectorParameters.length);
+        return result;
     }
 
     protected String parseDeviceIdentifierParameter(String param) throws CollectorException {
@@ -102,4 +166,44 @@ public TableParameter[] getTableParameters() {
     public Action[] getActions() {
         return new Action[0];
     }
+
+    /**
+     * Parameter providing collector statistics for this device type
+     */
+    private abstract class CollectorParameter implements Parameter {
+
+        private final String name;
+
+        private final String description;
+
+        private final ParameterType parameterType;
+
+        CollectorParameter(String name, String description, ParameterType parameterType) {
+            this.name = name;
+            this.description = description;
+            this.parameterType = parameterType;
+        }
+
+        protected abstract long getValue(WorkerStatistics statistics);
+
+        @Override
+        public String getName() {
+            return basePath + name;
+        }
+
+        @Override
+        public String getDescription() {
+            return description;
+        }
+
+        @Override
+        public ParameterType getType() {
+            return parameterType;
+        }
+
+        @Override
+        public String getValue(String param) throws Exception {
+            return String.valueOf(getValue(dataProvider.getStatistics(type)));
+        }
+    }
 }
@@ -1,6 +1,5 @@
 package com.rfelements;
 
-import com.rfelements.model.json.ligowave.Ligowave;
 import org.netxms.agent.Parameter;
 import org.netxms.agent.ParameterType;
 import org.netxms.bridge.Config;
@@ -33,7 +32,7 @@ public void shutdown() {
     }
 
     @Override
-    public Parameter[] getParameters() {
+    protected Parameter[] getDeviceParameters() {
         return new Parameter[]{new Parameter() {
 
             @Override
@@ -53,9 +52,7 @@ public ParameterType getType() {
 
             @Override
             public String getValue(String param) throws Exception {
-                Ligowave dlb;
-                dlb = getDlbObject(param);
-                return dlb.getWirelessInformation().getRadios().getDev().getWifi0().getChannelWidth();
+                return value(getSnapshot(param).getChannelWidth());
             }
         }, new Parameter() {
 
@@ -76,9 +73,7 @@ public ParameterType getType() {
 
             @Override
             public String getValue(String param) throws Exception {
-                Ligowave dlb;
-                dlb = getDlbObject(param);
-                return String.valueOf(dlb.getWirelessInformation().getRadios().getDev().getWifi0().getFrequency());
+                return value(getSnapshot(param).getFrequency());
             }
         }, new Parameter() {
 
@@ -99,9 +94,7 @@ public ParameterType getType() {
 
             @Override
             public String getValue(String param) throws Exception {
-                Ligowave dlb;
-                dlb = getDlbObject(param);
-                return String.valueOf(dlb.getWirelessInformation().getVaps()[0].getPeerCount());
+                return value(getSnapshot(param).getPeerCount());
             }
         }, new Parameter() {
 
@@ -122,10 +115,7 @@ public ParameterType getType() {
 
             @Override
             public String getValue(String param) throws Exception {
-                Ligowave dlb;
-                dlb = getDlbObject(param);
-                Integer[] noise = dlb.getWirelessInformation().getRadios().getDev().getWifi0().getNoise();
-                return String.valueOf(noise[0]);
+                return value(getSnapshot(param).getNoiseFloor());
             }
         }};
     }
@@ -1,7 +1,6 @@
 package com.rfelements;
 
 import com.rfelements.exception.CollectorException;
-import com.rfelements.model.json.ligowave.Ligowave;
 import org.netxms.agent.Parameter;
 import org.netxms.agent.ParameterType;
 import org.netxms.bridge.Config;
@@ -34,7 +33,7 @@ public void shutdown() {
     }
 
     @Override
-    public Parameter[] getParameters() {
+    protected Parameter[] getDeviceParameters() {
         return new Parameter[]{new Parameter() {
 
             @Override
@@ -54,10 +53,7 @@ public ParameterType getType() {
 
             @Override
             public String getValue(String param) throws Exception {
-                Ligowave dlb;
-                dlb = getDlbObject(param);
-                Integer signal = dlb.getWirelessInformation().getPeers()[0].getSignal()[0];
-                return String.valueOf(signal);
+                return value(getSnapshot(param).getSignalChain0());
             }
         }, new Parameter() {
 
@@ -78,10 +74,7 @@ public ParameterType getType() {
 
             @Override
             public String getValue(String param) throws Exception {
-                Ligowave dlb;
-                dlb = getDlbObject(param);
-                Integer signal = dlb.getWirelessInformation().getPeers()[0].getSignal()[1];
-                return String.valueOf(signal);
+                return value(getSnapshot(param).getSignalChain1());
             }
         }, new Parameter() {
 
@@ -102,10 +95,7 @@ public ParameterType getType() {
 
             @Override
             public String getValue(String param) throws Exception {
-                Ligowave dlb;
-                dlb = getDlbObject(param);
-                Integer[] noise = dlb.getRemoteInformation()[0].getWireless().getNoise();
-                return String.valueOf(noise[0]);
+                return value(getSnapshot(param).getNoiseFloor());
             }
         }, new Parameter() {
 
@@ -126,10 +116,7 @@ public ParameterType getType() {
 
             @Override
             public String getValue(String param) throws Exception {
-                Ligowave dlb;
-                dlb = getDlbObject(param);
-                Integer rxCcq = dlb.getWirelessInformation().getPeers()[0].getRxCcqPercent();
-                return String.valueOf(rxCcq);
+                return value(getSnapshot(param).getRxCcqPercent());
             }
         }, new Parameter() {
 
@@ -150,10 +137,7 @@ public ParameterType getType() {
 
             @Override
             public String getValue(String param) throws Exception {
-                Ligowave dlb;
-                dlb = getDlbObject(param);
-                Integer rxRate = dlb.getWirelessInformation().getPeers()[0].getRxRate();
-                return String.valueOf(rxRate);
+                return value(getSnapshot(param).getRxRate());
             }
         }, new Parameter() {
 
@@ -174,10 +158,7 @@ public ParameterType getType() {
 
             @Override
             public String getValue(String param) throws Exception {
-                Ligowave dlb;
-                dlb = getDlbObject(param);
-                Integer rxCcq = dlb.getWirelessInformation().getPeers()[0].getTxCcqPercent();
-                return String.valueOf(rxCcq);
+                return value(getSnapshot(param).getTxCcqPercent());
             }
         }, new Parameter() {
 
@@ -198,10 +179,7 @@ public ParameterType getType() {
 
             @Override
             public String getValue(String param) throws Exception {
-                Ligowave dlb;
-                dlb = getDlbObject(param);
-                Integer txRate = dlb.getWirelessInformation().getPeers()[0].getTxRate();
-                return String.valueOf(txRate);
+                return value(getSnapshot(param).getTxRate());
             }
         }};
     }
@@ -1,6 +1,5 @@
 package com.rfelements;
 
-import com.rfelements.model.json.ubiquiti.Ubiquiti;
 import org.netxms.agent.Parameter;
 import org.netxms.agent.ParameterType;
 import org.netxms.bridge.Config;
@@ -32,7 +31,7 @@ public void shutdown() {
     }
 
     @Override
-    public Parameter[] getParameters() {
+    protected Parameter[] getDeviceParameters() {
         return new Parameter[]{new Parameter() {
 
             @Override
@@ -52,9 +51,7 @@ public ParameterType getType() {
 
             @Override
             public String getValue(String param) throws Exception {
-                Ubiquiti ubnt;
-                ubnt = getUbntObject(param);
-                return String.valueOf(ubnt.getHost().getUptime());
+                return value(getSnapshot(param).getUptime());
             }
         }, new Parameter() {
 
@@ -75,9 +72,7 @@ public ParameterType getType() {
 
             @Override
             public String getValue(String param) throws Exception {
-                Ubiquiti ubnt;
-                ubnt = getUbntObject(param);
-                return String.valueOf(ubnt.getWireless().getPolling().getCapacity());
+                return value(getSnapshot(param).getAirmaxCapacity());
             }
         }, new Parameter() {
 
@@ -98,9 +93,7 @@ public ParameterType getType() {
 
             @Override
             public String getValue(String param) throws Exception {
-                Ubiquiti ubnt;
-                ubnt = getUbntObject(param);
-                return String.valueOf(ubnt.getWireless().getPolling().getQuality());
+                return value(getSnapshot(param).getAirmaxQuality());
             }
         }, new Parameter() {
 
@@ -121,9 +114,7 @@ public ParameterType getType() {
 
             @Override
             public String getValue(String param) throws Exception {
-                Ubiquiti ubnt;
-                ubnt = getUbntObject(param);
-                return String.valueOf(ubnt.getWireless().getNoisef());
+                return value(getSnapshot(param).getNoiseFloor());
             }
         }, new Parameter() {
 
@@ -144,11 +135,7 @@ public ParameterType getType() {
 
             @Override
             public String getValue(String param) throws Exception {
-                Ubiquiti ubnt;
-                ubnt = getUbntObject(param);
-                String frequency = ubnt.getWireless().getFrequency();
-                String[] split = frequency.split("\\s+");
-                return split[0].trim();
+                return value(getSnapshot(param).getFrequency());
             }
         }, new Parameter() {
 
@@ -169,9 +156,7 @@ public ParameterType getType() {
 
             @Override
             public String getValue(String param) throws Exception {
-                Ubiquiti ubnt;
-                ubnt = getUbntObject(param);
-                return String.valueOf(ubnt.getWireless().getChwidth());
+                return value(getSnapshot(param).getChannelWidth());
             }
         }, new Parameter() {
 
@@ -192,9 +177,7 @@ public ParameterType getType() {
 
             @Override
             public String getValue(String param) throws Exception {
-                Ubiquiti ubnt;
-                ubnt = getUbntObject(param);
-                return String.valueOf(ubnt.getWireless().getCcq());
+                return value(getSnapshot(param).getTransmitCcq());
             }
         }};
     }
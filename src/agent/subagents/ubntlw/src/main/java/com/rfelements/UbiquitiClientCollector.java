@@ -1,6 +1,5 @@
 package com.rfelements;
 
-import com.rfelements.model.json.ubiquiti.Ubiquiti;
 import org.netxms.agent.Parameter;
 import org.netxms.agent.ParameterType;
 import org.netxms.bridge.Config;
@@ -31,37 +30,8 @@ public void shutdown() {
         super.shutdown();
     }
 
-    private int[] getSignals(Ubiquiti json) {
-        Integer signal = json.getWireless().getSignal();
-        Integer rssi = json.getWireless().getRssi();
-        Integer chwidth = json.getWireless().getChwidth();
-        Integer rxchainmask = json.getWireless().getRxChainmask();
-        Integer[] chainrssi = json.getWireless().getChainrssi();
-        return computeSignalLevel(signal, rssi, chwidth, rxchainmask, chainrssi);
-    }
-
-    private int[] computeSignalLevel(Integer signal, Integer rssi, Integer chwidth, Integer rxchainmask, Integer[] chainrssi) {
-
-        int[] result = new int[2];
-        int d = signal - rssi;
-        if (chwidth != null) {
-
-            for (int e = 0; e < 3; e++) {
-                int p = rxchainmask & (1 << e);
-                if (p > 0) {
-                    result[e] = rssiToSignal(chainrssi[e], d);
-                }
-            }
-        }
-        return result;
-    }
-
-    private int rssiToSignal(int a, int b) {
-        return b + a;
-    }
-
     @Override
-    public Parameter[] getParameters() {
+    protected Parameter[] getDeviceParameters() {
         return new Parameter[]{new Parameter() {
 
             @Override
@@ -81,9 +51,7 @@ public ParameterType getType() {
 
             @Override
             public String getValue(String param) throws Exception {
-                Ubiquiti ubnt;
-                ubnt = getUbntObject(param);
-                return String.valueOf(ubnt.getHost().getUptime());
+                return value(getSnapshot(param).getUptime());
             }
 
         }, new Parameter() {
@@ -105,9 +73,7 @@ public ParameterType getType() {
 
             @Override
             public String getValue(String param) throws Exception {
-                Ubiquiti ubnt;
-                ubnt = getUbntObject(param);
-                return String.valueOf(ubnt.getWireless().getPolling().getCapacity());
+                return value(getSnapshot(param).getAirmaxCapacity());
             }
         }, new Parameter() {
 
@@ -128,9 +94,7 @@ public ParameterType getType() {
 
             @Override
             public String getValue(String param) throws Exception {
-                Ubiquiti ubnt;
-                ubnt = getUbntObject(param);
-                return String.valueOf(ubnt.getWireless().getPolling().getQuality());
+                return value(getSnapshot(param).getAirmaxQuality());
             }
         }, new Parameter() {
 
@@ -151,9 +115,7 @@ public ParameterType getType() {
 
             @Override
             public String getValue(String param) throws Exception {
-                Ubiquiti ubnt;
-                ubnt = getUbntObject(param);
-                return String.valueOf(ubnt.getWireless().getNoisef());
+                return value(getSnapshot(param).getNoiseFloor());
             }
         }, new Parameter() {
 
@@ -174,9 +136,7 @@ public ParameterType getType() {
 
             @Override
             public String getValue(String param) throws Exception {
-                Ubiquiti ubnt;
-                ubnt = getUbntObject(param);
-                return String.valueOf(getSignals(ubnt)[0]);
+                return value(getSnapshot(param).getSignalChain0());
             }
         }, new Parameter() {
 
@@ -197,9 +157,7 @@ public ParameterType getType() {
 
             @Override
             public String getValue(String param) throws Exception {
-                Ubiquiti ubnt;
-                ubnt = getUbntObject(param);
-                return String.valueOf(getSignals(ubnt)[1]);
+                return value(getSnapshot(param).getSignalChain1());
             }
         }, new Parameter() {
 
@@ -220,9 +178,7 @@ public ParameterType getType() {
 
             @Override
             public String getValue(String param) throws Exception {
-                Ubiquiti ubnt;
-                ubnt = getUbntObject(param);
-                return String.valueOf(ubnt.getWireless().getCcq());
+                return value(getSnapshot(param).getTransmitCcq());
             }
         }};
     }
@@ -1,6 +1,7 @@
 package com.rfelements.cache;
 
 import com.rfelements.model.DeviceCredentials;
+import com.rfelements.model.DeviceSnapshot;
 
 /**
  * @author Pichanič Ján
@@ -13,9 +14,9 @@ public interface Cache {
 
     DeviceCredentials putDeviceCredentials(String key, DeviceCredentials deviceCredentials);
 
-    Object putJsonObject(String key, Object object);
+    DeviceSnapshot putSnapshot(String key, DeviceSnapshot snapshot);
 
-    Object getJsonObject(String key);
+    DeviceSnapshot getSnapshot(String key);
 
     boolean removeValue(String key);
 }
@@ -4,14 +4,13 @@
 import org.netxms.bridge.LogLevel;
 import org.netxms.bridge.Platform;
 import com.rfelements.model.DeviceCredentials;
+import com.rfelements.model.DeviceSnapshot;
 
 /**
  * @author Pichanič Ján
  */
 public class CacheImpl implements Cache {
 
-    private final static int DEBUG_LEVEL = 5;
-
     private final ConcurrentHashMap<String, Object> cache = new ConcurrentHashMap<>();
 
     private static CacheImpl instance;
@@ -58,41 +57,24 @@ public DeviceCredentials putDeviceCredentials(String key, DeviceCredentials devi
     }
 
     @Override
-    public Object putJsonObject(String key, Object object) {
-        // DEBUG OUTPUT
-        if (object != null)
-           Platform.writeDebugLog(DEBUG_LEVEL,
-                    "[" + this.getClass().getName() + "] Storing object into cache , key : " + key + " JSON obj : " + object.getClass().getName());
-        else {
-           Platform.writeDebugLog(DEBUG_LEVEL, "[" + this.getClass().getName() + "] Storing object into cache , key : " + key + " JSON obj : null");
-        }
-
-        if (!cache.containsKey(key)) {
-            StorableItem store = new StorableItem();
-            store.setJsonObject(object);
-            cache.put(key, store);
+    public DeviceSnapshot putSnapshot(String key, DeviceSnapshot snapshot) {
+        StorableItem store = (StorableItem) cache.get(key);
+        if (store == null) {
+            store = new StorableItem();
+            store.setSnapshot(snapshot);
+            StorableItem existing = (StorableItem) cache.putIfAbsent(key, store);
+            if (existing != null)
+                existing.setSnapshot(snapshot);
         } else {
-            StorableItem store = (StorableItem) cache.get(key);
-            store.setJsonObject(object);
+            store.setSnapshot(snapshot);
         }
-        return object;
+        return snapshot;
     }
 
     @Override
-    public Object getJsonObject(String key) {
+    public DeviceSnapshot getSnapshot(String key) {
         StorableItem store = (StorableItem) cache.get(key);
-        if (store == null) {
-           Platform.writeDebugLog(DEBUG_LEVEL, "[" + this.getClass().getName() + "] Getting object from cache, key : " + key + " JSON obj : null");
-            return null;
-        }
-        if (store.getJsonObject() == null) {
-           Platform.writeDebugLog(DEBUG_LEVEL, "[" + this.getClass().getName() + "] Getting object from cache, key : " + key + " JSON obj : null");
-            return null;
-        }
-        Platform.writeDebugLog(DEBUG_LEVEL,
-                "[" + this.getClass().getName() + "] Getting object from cache, key : " + key + " JSON obj : " + store.getJsonObject().getClass()
-                        .getName());
-        return store.getJsonObject();
+        return (store != null) ? store.getSnapshot() : null;
     }
 
     @Override
@@ -107,9 +89,9 @@ public boolean removeValue(String key) {
 
 class StorableItem {
 
-    private DeviceCredentials deviceCredentials;
+    private volatile DeviceCredentials deviceCredentials;
 
-    private Object jsonObject;
+    private volatile DeviceSnapshot snapshot;
 
     public DeviceCredentials getDeviceCredentials() {
         return deviceCredentials;
@@ -119,11 +101,11 @@ public void setDeviceCredentials(DeviceCredentials deviceCredentials) {
         this.deviceCredentials = deviceCredentials;
     }
 
-    public Object getJsonObject() {
-        return jsonObject;
+    public DeviceSnapshot getSnapshot() {
+        return snapshot;
     }
 
-    public void setJsonObject(Object jsonObject) {
-        this.jsonObject = jsonObject;
+    public void setSnapshot(DeviceSnapshot snapshot) {
+        this.snapshot = snapshot;
     }
 }
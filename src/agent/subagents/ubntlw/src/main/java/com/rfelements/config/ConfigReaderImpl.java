@@ -53,12 +53,16 @@ public void readSettings() {
         Settings.SOCKET_TIMEOUT = config.getValueInt(DATACOLLECTOR_CONFIG_BASIC_PATH + "SOCKET_TIMEOUT", 8000);
         Settings.LOGIN_TRIES_COUNT = config.getValueInt(DATACOLLECTOR_CONFIG_BASIC_PATH + "LOGIN_TRIES_COUNT", 3);
         Settings.UPDATE_PERIOD = config.getValueInt(DATACOLLECTOR_CONFIG_BASIC_PATH + "UPDATE_PERIOD", 20000);
+        Settings.WORKER_THREADS = config.getValueInt(DATACOLLECTOR_CONFIG_BASIC_PATH + "WORKER_THREADS", 16);
+        Settings.MAX_BACKOFF_PERIOD = config.getValueInt(DATACOLLECTOR_CONFIG_BASIC_PATH + "MAX_BACKOFF_PERIOD", 300000);
 
         log.i("CONNECTION_TIMEOUT  : " + Settings.CONNECTION_TIMEOUT);
         log.i("REQUEST_TIMEOUT     : " + Settings.REQUEST_TIMEOUT);
         log.i("SOCKET_TIMEOUT      : " + Settings.SOCKET_TIMEOUT);
         log.i("LOGIN_TRIES_COUNT   : " + Settings.LOGIN_TRIES_COUNT);
         log.i("UPDATE_PERIOD       : " + Settings.UPDATE_PERIOD);
+        log.i("WORKER_THREADS      : " + Settings.WORKER_THREADS);
+        log.i("MAX_BACKOFF_PERIOD  : " + Settings.MAX_BACKOFF_PERIOD);
     }
 
     @Override
@@ -0,0 +1,191 @@
+package com.rfelements.model;
+
+import java.util.concurrent.Callable;
+import com.rfelements.DeviceType;
+import com.rfelements.model.json.ligowave.Ligowave;
+import com.rfelements.model.json.ubiquiti.Ubiquiti;
+
+/**
+ * Flat snapshot of device parameter values. Values are extracted from deserialized device status once per poll, so
+ * parameter handlers do not need to navigate (and cache does not need to keep) whole JSON object graph. Value is null
+ * if it is not available from device.
+ */
+public final class DeviceSnapshot {
+
+    private final long timestamp;
+
+    private Integer uptime;
+
+    private Integer airmaxCapacity;
+
+    private Integer airmaxQuality;
+
+    private Integer noiseFloor;
+
+    private String frequency;
+
+    private String channelWidth;
+
+    private Integer transmitCcq;
+
+    private Integer signalChain0;
+
+    private Integer signalChain1;
+
+    private Integer peerCount;
+
+    private Integer rxCcqPercent;
+
+    private Integer rxRate;
+
+    private Integer txCcqPercent;
+
+    private Integer txRate;
+
+    private DeviceSnapshot() {
+        this.timestamp = System.currentTimeMillis();
+    }
+
+    /**
+     * Create snapshot from Ubiquiti device status.
+     *
+     * @param ubnt device status
+     * @param type device type
+     * @return snapshot
+     */
+    public static DeviceSnapshot fromUbiquiti(final Ubiquiti ubnt, DeviceType type) {
+        DeviceSnapshot s = new DeviceSnapshot();
+        s.uptime = extract(() -> ubnt.getHost().getUptime());
+        s.airmaxCapacity = extract(() -> ubnt.getWireless().getPolling().getCapacity());
+        s.airmaxQuality = extract(() -> ubnt.getWireless().getPolling().getQuality());
+        s.noiseFloor = extract(() -> ubnt.getWireless().getNoisef());
+        s.frequency = extract(() -> ubnt.getWireless().getFrequency().split("\\s+")[0].trim());
+        s.channelWidth = extract(() -> String.valueOf(ubnt.getWireless().getChwidth()));
+        s.transmitCcq = extract(() -> ubnt.getWireless().getCcq());
+        if (type == DeviceType.UBIQUITI_CLIENT) {
+            int[] signals = extract(() -> computeSignalLevel(ubnt));
+            if (signals != null) {
+                s.signalChain0 = signals[0];
+                s.signalChain1 = signals[1];
+            }
+        }
+        return s;
+    }
+
+    /**
+     * Create snapshot from LigoWave device status.
+     *
+     * @param dlb device status
+     * @param type device type
+     * @return snapshot
+     */
+    public static DeviceSnapshot fromLigowave(final Ligowave dlb, DeviceType type) {
+        DeviceSnapshot s = new DeviceSnapshot();
+        if (type == DeviceType.LIGOWAVE_AP) {
+            s.channelWidth = extract(() -> dlb.getWirelessInformation().getRadios().getDev().getWifi0().getChannelWidth());
+            s.frequency = extract(() -> String.valueOf(dlb.getWirelessInformation().getRadios().getDev().getWifi0().getFrequency()));
+            s.peerCount = extract(() -> dlb.getWirelessInformation().getVaps()[0].getPeerCount());
+            s.noiseFloor = extract(() -> dlb.getWirelessInformation().getRadios().getDev().getWifi0().getNoise()[0]);
+        } else {
+            s.signalChain0 = extract(() -> dlb.getWirelessInformation().getPeers()[0].getSignal()[0]);
+            s.signalChain1 = extract(() -> dlb.getWirelessInformation().getPeers()[0].getSignal()[1]);
+            s.noiseFloor = extract(() -> dlb.getRemoteInformation()[0].getWireless().getNoise()[0]);
+            s.rxCcqPercent = extract(() -> dlb.getWirelessInformation().getPeers()[0].getRxCcqPercent());
+            s.rxRate = extract(() -> dlb.getWirelessInformation().getPeers()[0].getRxRate());
+            s.txCcqPercent = extract(() -> dlb.getWirelessInformation().getPeers()[0].getTxCcqPercent());
+            s.txRate = extract(() -> dlb.getWirelessInformation().getPeers()[0].getTxRate());
+        }
+        return s;
+    }
+
+    /**
+     * Extract single value, treating missing parts of object graph as missing value.
+     */
+    private static <T> T extract(Callable<T> extractor) {
+        try {
+            return extractor.call();
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static int[] computeSignalLevel(Ubiquiti ubnt) {
+        Integer signal = ubnt.getWireless().getSignal();
+        Integer rssi = ubnt.getWireless().getRssi();
+        Integer chwidth = ubnt.getWireless().getChwidth();
+        Integer rxchainmask = ubnt.getWireless().getRxChainmask();
+        Integer[] chainrssi = ubnt.getWireless().getChainrssi();
+
+        int[] result = new int[2];
+        int d = signal - rssi;
+        if (chwidth != null) {
+            for (int e = 0; e < 3; e++) {
+                int p = rxchainmask & (1 << e);
+                if (p > 0) {
+                    result[e] = chainrssi[e] + d;
+                }
+            }
+        }
+        return result;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public Integer getUptime() {
+        return uptime;
+    }
+
+    public Integer getAirmaxCapacity() {
+        return airmaxCapacity;
+    }
+
+    public Integer getAirmaxQuality() {
+        return airmaxQuality;
+    }
+
+    public Integer getNoiseFloor() {
+        return noiseFloor;
+    }
+
+    public String getFrequency() {
+        return frequency;
+    }
+
+    public String getChannelWidth() {
+        return channelWidth;
+    }
+
+    public Integer getTransmitCcq() {
+        return transmitCcq;
+    }
+
+    public Integer getSignalChain0() {
+        return signalChain0;
+    }
+
+    public Integer getSignalChain1() {
+        return signalChain1;
+    }
+
+    public Integer getPeerCount() {
+        return peerCount;
+    }
+
+    public Integer getRxCcqPercent() {
+        return rxCcqPercent;
+    }
+
+    public Integer getRxRate() {
+        return rxRate;
+    }
+
+    public Integer getTxCcqPercent() {
+        return txCcqPercent;
+    }
+
+    public Integer getTxRate() {
+        return txRate;
+    }
+}
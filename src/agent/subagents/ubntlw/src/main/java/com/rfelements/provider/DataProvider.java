@@ -4,8 +4,8 @@
 import com.rfelements.DeviceType;
 import com.rfelements.Protocol;
 import com.rfelements.exception.CollectorException;
-import com.rfelements.model.json.ligowave.Ligowave;
-import com.rfelements.model.json.ubiquiti.Ubiquiti;
+import com.rfelements.model.DeviceSnapshot;
+import com.rfelements.workers.WorkerStatistics;
 
 /**
  * @author Pichanič Ján
@@ -14,9 +14,11 @@ public interface DataProvider {
 
     void setConfig(Config config);
 
-    Ligowave getLigowaveObject(Protocol defaultProtocol, String basePath, String ip, DeviceType type) throws CollectorException;
+    DeviceSnapshot getSnapshot(Protocol defaultProtocol, String basePath, String ip, DeviceType type) throws CollectorException;
 
-    Ubiquiti getUbiquitiObject(Protocol defaultProtocol, String basePath, String ip, DeviceType type) throws CollectorException;
+    WorkerStatistics getStatistics(DeviceType type);
+
+    int getQueueSize();
 
     void onShutdown(DeviceType type);
 }
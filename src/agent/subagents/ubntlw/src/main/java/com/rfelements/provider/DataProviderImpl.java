@@ -11,8 +11,8 @@
 import com.rfelements.config.ConfigReaderImpl;
 import com.rfelements.exception.CollectorException;
 import com.rfelements.model.DeviceCredentials;
-import com.rfelements.model.json.ligowave.Ligowave;
-import com.rfelements.model.json.ubiquiti.Ubiquiti;
+import com.rfelements.model.DeviceSnapshot;
+import com.rfelements.workers.WorkerStatistics;
 import com.rfelements.workers.WorkersProvider;
 import com.rfelements.workers.WorkersProviderImpl;
 
@@ -56,29 +56,26 @@ public void setConfig(Config config) {
     }
 
     @Override
-    public Ligowave getLigowaveObject(Protocol defaultProtocol, String basePath, String ip, DeviceType type) throws CollectorException {
+    public DeviceSnapshot getSnapshot(Protocol defaultProtocol, String basePath, String ip, DeviceType type) throws CollectorException {
         DeviceCredentials deviceCredentials = configReader.getDeviceCredentials(defaultProtocol, basePath, ip);
         this.workersProvider.startNewWorker(deviceCredentials, type);
-        Ligowave ligowave = (Ligowave) cache.getJsonObject(deviceCredentials.getIp());
-        if (ligowave == null) {
-            String message = "Value of ligowave JSON object in the cache, under key : " + ip + " , is NULL !";
+        DeviceSnapshot snapshot = cache.getSnapshot(deviceCredentials.getIp());
+        if (snapshot == null) {
+            String message = "Value of device snapshot in the cache, under key : " + ip + " , is NULL !";
             Platform.writeDebugLog(DEBUG_LEVEL, message);
             throw new CollectorException(message);
         }
-        return ligowave;
+        return snapshot;
     }
 
     @Override
-    public Ubiquiti getUbiquitiObject(Protocol defaultProtocol, String basePath, String ip, DeviceType type) throws CollectorException {
-        DeviceCredentials deviceCredentials = configReader.getDeviceCredentials(defaultProtocol, basePath, ip);
-        this.workersProvider.startNewWorker(deviceCredentials, type);
-        Ubiquiti ubnt = (Ubiquiti) cache.getJsonObject(deviceCredentials.getIp());
-        if (ubnt == null) {
-            String message = "Value of ubiquiti JSON object in the cache, under key : " + ip + " , is NULL !";
-            Platform.writeDebugLog(DEBUG_LEVEL, message);
-            throw new CollectorException(message);
-        }
-        return ubnt;
+    public WorkerStatistics getStatistics(DeviceType type) {
+        return this.workersProvider.getStatistics(type);
+    }
+
+    @Override
+    public int getQueueSize() {
+        return this.workersProvider.getQueueSize();
     }
 
     @Override
@@ -22,6 +22,7 @@
 import org.netxms.bridge.Platform;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonSyntaxException;
 import com.rfelements.config.Settings;
 import com.rfelements.exception.CollectorException;
 import com.rfelements.gson.BooleanTypeAdapter;
@@ -43,11 +44,28 @@ public class Rest {
 
     private static final ConcurrentHashMap<String, HttpClient> httpClientCache = new ConcurrentHashMap<>();
 
+    private static final Gson ubiquitiGson = new GsonBuilder().registerTypeAdapter(Boolean.class, new BooleanTypeAdapter()).create();
+
+    private static final Gson ligowaveGson = new GsonBuilder().registerTypeAdapter(Boolean.class, new BooleanTypeAdapter())
+            .registerTypeAdapter(String.class, new StringTypeAdapter()).create();
+
     private static HttpClient initOrGetHttpClient(String ip) throws CollectorException {
         HttpClient client = httpClientCache.get(ip);
         if (client != null) {
             return client;
         }
+        return createHttpClient(ip);
+    }
+
+    /**
+     * Create HTTP client for given device. Synchronized so that concurrent pollers of same device share one client and
+     * cookie store; cached clients are returned by initOrGetHttpClient without locking.
+     */
+    private static synchronized HttpClient createHttpClient(String ip) throws CollectorException {
+        HttpClient client = httpClientCache.get(ip);
+        if (client != null) {
+            return client;
+        }
 
         SSLContextBuilder ctx = SSLContextBuilder.create();
         RequestConfig.Builder request = RequestConfig.custom();
@@ -175,16 +193,6 @@ public static void getIndexSiteUbnt(DeviceCredentials deviceCredentials) throws
         }
     }
 
-    public static boolean isJSONValid(String JSON_STRING) {
-        try {
-            Gson gson = new Gson();
-            gson.fromJson(JSON_STRING, Object.class);
-            return true;
-        } catch (com.google.gson.JsonSyntaxException ex) {
-            return false;
-        }
-    }
-
     public static Ubiquiti updateUbiquitiJsonObject(DeviceCredentials deviceCredentials, int loginTries) throws CollectorException {
         Platform.writeDebugLog(DEBUG_LEVEL,
                 Thread.currentThread().getName() + " [" + Rest.class.getName() + "] [updateUbiquitiJsonObject] ip : " + deviceCredentials.getIp()
@@ -204,13 +212,6 @@ public static Ubiquiti updateUbiquitiJsonObject(DeviceCredentials deviceCredenti
                     Thread.currentThread().getName() + " [" + Rest.class.getName() + "] [updateUbiquitiJsonObject] ip : " + deviceCredentials.getIp()
                             + " Update UBNT obj response code : " + response.getStatusLine().getStatusCode());
             responseStr = EntityUtils.toString(response.getEntity());
-            if (!isJSONValid(responseStr)) {
-                //				getIndexSiteUbnt(deviceCredentials);
-                if (loginTries <= 0)
-                    return null;
-                loginUbiquiti(deviceCredentials);
-                return updateUbiquitiJsonObject(deviceCredentials, --loginTries);
-            }
             Platform.writeDebugLog(DEBUG_LEVEL_DETAILED,
                     Thread.currentThread().getName() + " [" + Rest.class.getName() + "] [updateUbiquitiJsonObject] ip : " + deviceCredentials.getIp()
                             + " , response text : " + responseStr);
@@ -223,10 +224,15 @@ public static Ubiquiti updateUbiquitiJsonObject(DeviceCredentials deviceCredenti
                 EntityUtils.consumeQuietly(response.getEntity());
         }
 
-        Gson gson = new GsonBuilder().registerTypeAdapter(Boolean.class, new BooleanTypeAdapter()).create();
+        // Session cookie is reused between polls; login is performed only when device returns non-JSON response (login page)
         Ubiquiti ubnt;
         try {
-            ubnt = gson.fromJson(responseStr, Ubiquiti.class);
+            ubnt = ubiquitiGson.fromJson(responseStr, Ubiquiti.class);
+        } catch (JsonSyntaxException e) {
+            if (loginTries <= 0)
+                return null;
+            loginUbiquiti(deviceCredentials);
+            return updateUbiquitiJsonObject(deviceCredentials, --loginTries);
         } catch (Exception e) {
             Platform.writeLog(LogLevel.ERROR,
                     Thread.currentThread().getName() + " [" + Rest.class.getName() + "] [updateUbiquitiJsonObject] " + e.getLocalizedMessage());
@@ -268,11 +274,9 @@ public static Ligowave updateLigowaveJsonObject(DeviceCredentials deviceCredenti
             if (response != null)
                 EntityUtils.consumeQuietly(response.getEntity());
         }
-        Gson gson = new GsonBuilder().registerTypeAdapter(Boolean.class, new BooleanTypeAdapter())
-                .registerTypeAdapter(String.class, new StringTypeAdapter()).create();
         Ligowave ligowave;
         try {
-            ligowave = gson.fromJson(responseStr, Ligowave.class);
+            ligowave = ligowaveGson.fromJson(responseStr, Ligowave.class);
         } catch (Exception e) {
             Platform.writeLog(LogLevel.ERROR, " [" + Rest.class.getName() + "] [updateLigowaveJsonObject] " + e.getLocalizedMessage());
             throw new CollectorException(e.getMessage(), e.getCause());
@@ -1,7 +1,9 @@
 package com.rfelements.workers;
 
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 import org.netxms.bridge.Platform;
 import com.rfelements.DeviceType;
 import com.rfelements.cache.Cache;
@@ -9,109 +11,130 @@
 import com.rfelements.config.Settings;
 import com.rfelements.exception.CollectorException;
 import com.rfelements.model.DeviceCredentials;
+import com.rfelements.model.DeviceSnapshot;
 import com.rfelements.model.json.ligowave.Ligowave;
 import com.rfelements.model.json.ubiquiti.Ubiquiti;
 import com.rfelements.rest.Rest;
 
 /**
+ * Poll task for single device. Task is executed on shared scheduler and re-schedules itself after each run - with normal
+ * update period after successful poll and with exponential backoff after failures.
+ *
  * @author Pichanič Ján
  */
-public class SingleWorker extends Timer {
+public class SingleWorker implements Runnable {
+
+    private static final int DEBUG_LEVEL = 7;
 
     private final DeviceCredentials deviceCredentials;
 
     private final DeviceType type;
 
+    private final ScheduledExecutorService executor;
+
+    private final WorkerStatistics statistics;
+
     private Cache cache = CacheImpl.getInstance();
 
-    public SingleWorker(DeviceCredentials deviceCredentials, DeviceType type) {
-        super(true);
+    private volatile ScheduledFuture<?> future;
+
+    private volatile boolean stopped = false;
+
+    private long plannedTime;
+
+    private int failures = 0;
+
+    public SingleWorker(DeviceCredentials deviceCredentials, DeviceType type, ScheduledExecutorService executor, WorkerStatistics statistics) {
         this.deviceCredentials = deviceCredentials;
         this.type = type;
-        Platform.writeDebugLog(3, Thread.currentThread().getName() + " [SingleWorker] Construction ...");
-        Platform.writeDebugLog(3,
-                Thread.currentThread().getName() + " [SingleWorker] Args - deviceCredentials : " + deviceCredentials.hashCode() + ", type : " + type.toString());
+        this.executor = executor;
+        this.statistics = statistics;
+        Platform.writeDebugLog(DEBUG_LEVEL, Thread.currentThread().getName() + " [SingleWorker] Created for " + type.toString() + " URL : " + deviceCredentials.getUrl());
     }
 
+    /**
+     * Start polling. First poll is delayed by random time within update period, so devices added at the same time
+     * do not poll simultaneously.
+     */
     public void start() {
-        this.scheduleAtFixedRate(new TimerTask() {
-
-            @Override
-            public void run() {
-                Platform.writeDebugLog(3, Thread.currentThread().getName() +
-                        " [SingleWorker] Reschedule, EntryPoint : " + type.toString() + "  URL : " + deviceCredentials.getUrl() + " , deviceCredentials : " + deviceCredentials.hashCode());
-                switch (type) {
-                    case LIGOWAVE_AP:
-                        updateLigowave();
-                        break;
-                    case UBIQUITI_AP:
-                        updateUbiquiti();
-                        break;
-                    case LIGOWAVE_CLIENT:
-                        updateLigowave();
-                        break;
-                    case UBIQUITI_CLIENT:
-                        updateUbiquiti();
-                        break;
-                    default:
-                        break;
-                }
-            }
-        }, 0, Settings.UPDATE_PERIOD);
+        long delay = (Settings.UPDATE_PERIOD > 0) ? ThreadLocalRandom.current().nextLong(Settings.UPDATE_PERIOD) : 0;
+        statistics.deviceAdded();
+        schedule(delay);
+    }
+
+    private synchronized void schedule(long delay) {
+        if (stopped)
+            return;
+        plannedTime = System.currentTimeMillis() + delay;
+        future = executor.schedule(this, delay, TimeUnit.MILLISECONDS);
     }
 
-    private void updateUbiquiti() {
-        Platform.writeDebugLog(3, Thread.currentThread().getName() +
-                " [SingleWorker] Calling update ! EntryPoint :" + type.toString() + " URL : " + deviceCredentials.getUrl() + " , deviceCredentials : "
-                + deviceCredentials.hashCode());
+    @Override
+    public void run() {
+        long startTime = System.currentTimeMillis();
+        long queueLag = Math.max(0, startTime - plannedTime);
+
+        boolean success;
+        switch (type) {
+            case LIGOWAVE_AP:
+            case LIGOWAVE_CLIENT:
+                success = updateLigowave();
+                break;
+            case UBIQUITI_AP:
+            case UBIQUITI_CLIENT:
+                success = updateUbiquiti();
+                break;
+            default:
+                success = false;
+                break;
+        }
+
+        long latency = System.currentTimeMillis() - startTime;
+        statistics.recordPoll(latency, queueLag, success);
+
+        long delay;
+        if (success) {
+            failures = 0;
+            delay = Settings.UPDATE_PERIOD;
+        } else {
+            failures++;
+            delay = Math.min((long)Settings.UPDATE_PERIOD << Math.min(failures, 10), Math.max(Settings.MAX_BACKOFF_PERIOD, Settings.UPDATE_PERIOD));
+            Platform.writeDebugLog(DEBUG_LEVEL, Thread.currentThread().getName() + " [SingleWorker] Poll failed for " + deviceCredentials.getUrl()
+                    + " (" + failures + " consecutive failures), next attempt in " + delay + " ms");
+        }
+        schedule(delay);
+    }
+
+    private boolean updateUbiquiti() {
         try {
             Ubiquiti ubnt = Rest.updateUbiquitiJsonObject(deviceCredentials, Settings.LOGIN_TRIES_COUNT);
-            cache.putJsonObject(deviceCredentials.getIp(), ubnt);
-
-            // DEBUG OUTPUT
-            if (ubnt == null)
-                Platform.writeDebugLog(3, Thread.currentThread().getName() +
-                        " [SingleWorker] JSON object updated ! EntryPoint :" + type.toString() + " URL : " + deviceCredentials.getUrl() + " JSON obj : null");
-            else
-                Platform.writeDebugLog(3, Thread.currentThread().getName() +
-                        " [SingleWorker] JSON object updated ! EntryPoint :" + type.toString() + " URL : " + deviceCredentials.getUrl() + " JSON obj : " + ubnt.getClass().getName());
+            cache.putSnapshot(deviceCredentials.getIp(), (ubnt != null) ? DeviceSnapshot.fromUbiquiti(ubnt, type) : null);
+            return ubnt != null;
         } catch (CollectorException e) {
-            Platform.writeDebugLog(3, e.getLocalizedMessage());
-            cache.putJsonObject(deviceCredentials.getIp(), null);
-            Platform.writeDebugLog(3, Thread.currentThread().getName() +
-                    " [SingleWorker] JSON object updated as NULL ! EntryPoint :" + type.toString() + " URL : " + deviceCredentials.getUrl());
+            Platform.writeDebugLog(DEBUG_LEVEL, Thread.currentThread().getName() + " [SingleWorker] Update failed for " + deviceCredentials.getUrl() + " : " + e.getLocalizedMessage());
+            cache.putSnapshot(deviceCredentials.getIp(), null);
+            return false;
         }
     }
 
-    private void updateLigowave() {
-        Platform.writeDebugLog(3, Thread.currentThread().getName() +
-                " [SingleWorker] Calling update ! EntryPoint :" + type.toString() + " URL : " + deviceCredentials.getUrl() + " , deviceCredentials : "
-                + deviceCredentials.hashCode());
+    private boolean updateLigowave() {
         try {
             Ligowave ligowave = Rest.updateLigowaveJsonObject(deviceCredentials, Settings.LOGIN_TRIES_COUNT);
-            cache.putJsonObject(deviceCredentials.getIp(), ligowave);
-
-            // DEBUG OUTPUT
-            if (ligowave == null)
-                Platform.writeDebugLog(3, Thread.currentThread().getName() +
-                        " [SingleWorker] JSON object updated ! EntryPoint :" + type.toString() + " URL : " + deviceCredentials.getUrl()
-                        + " JSON obj : null");
-            else
-                Platform.writeDebugLog(3, Thread.currentThread().getName() +
-                        " [SingleWorker] JSON object updated ! EntryPoint :" + type.toString() + " URL : " + deviceCredentials.getUrl()
-                        + " JSON obj : " + ligowave.getClass().getName());
+            cache.putSnapshot(deviceCredentials.getIp(), (ligowave != null) ? DeviceSnapshot.fromLigowave(ligowave, type) : null);
+            return ligowave != null;
         } catch (CollectorException e) {
-            Platform.writeDebugLog(3, e.getLocalizedMessage());
-            cache.putJsonObject(deviceCredentials.getIp(), null);
-            Platform.writeDebugLog(3, Thread.currentThread().getName() +
-                    " [SingleWorker] JSON object updated as NULL ! EntryPoint :" + type.toString() + " URL : " + deviceCredentials.getUrl());
+            Platform.writeDebugLog(DEBUG_LEVEL, Thread.currentThread().getName() + " [SingleWorker] Update failed for " + deviceCredentials.getUrl() + " : " + e.getLocalizedMessage());
+            cache.putSnapshot(deviceCredentials.getIp(), null);
+            return false;
         }
     }
 
-    public void stop() {
-        this.cancel();
-        this.purge();
+    public synchronized void stop() {
+        if (stopped)
+            return;
+        stopped = true;
+        statistics.deviceRemoved();
+        if (future != null)
+            future.cancel(false);
     }
 }
-
-
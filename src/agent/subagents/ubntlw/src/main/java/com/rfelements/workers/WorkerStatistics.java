@@ -0,0 +1,79 @@
+package com.rfelements.workers;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Poll statistics for all workers of one device type
+ *
+ * @author Pichanič Ján
+ */
+public class WorkerStatistics {
+
+    private final AtomicInteger devices = new AtomicInteger(0);
+
+    private final AtomicLong polls = new AtomicLong(0);
+
+    private final AtomicLong failures = new AtomicLong(0);
+
+    private volatile long lastPollLatency = 0;
+
+    private volatile long averagePollLatency = 0;
+
+    private volatile long lastQueueLag = 0;
+
+    private volatile long averageQueueLag = 0;
+
+    void deviceAdded() {
+        devices.incrementAndGet();
+    }
+
+    void deviceRemoved() {
+        devices.decrementAndGet();
+    }
+
+    /**
+     * Record completed poll.
+     *
+     * @param latency poll duration in milliseconds
+     * @param queueLag delay between planned and actual poll start in milliseconds
+     * @param success true if poll was successful
+     */
+    synchronized void recordPoll(long latency, long queueLag, boolean success) {
+        polls.incrementAndGet();
+        if (!success)
+            failures.incrementAndGet();
+        lastPollLatency = latency;
+        averagePollLatency = (averagePollLatency * 15 + latency) / 16;
+        lastQueueLag = queueLag;
+        averageQueueLag = (averageQueueLag * 15 + queueLag) / 16;
+    }
+
+    public int getDevices() {
+        return devices.get();
+    }
+
+    public long getPolls() {
+        return polls.get();
+    }
+
+    public long getFailures() {
+        return failures.get();
+    }
+
+    public long getLastPollLatency() {
+        return lastPollLatency;
+    }
+
+    public long getAveragePollLatency() {
+        return averagePollLatency;
+    }
+
+    public long getLastQueueLag() {
+        return lastQueueLag;
+    }
+
+    public long getAverageQueueLag() {
+        return averageQueueLag;
+    }
+}
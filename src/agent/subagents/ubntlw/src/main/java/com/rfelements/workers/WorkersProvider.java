@@ -12,4 +12,7 @@ public interface WorkersProvider {
 
     void stopDeviceTypeWorkers(DeviceType type);
 
+    WorkerStatistics getStatistics(DeviceType type);
+
+    int getQueueSize();
 }
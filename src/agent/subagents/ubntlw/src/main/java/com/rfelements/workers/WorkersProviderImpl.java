@@ -1,19 +1,27 @@
 package com.rfelements.workers;
 
-import java.util.HashMap;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.netxms.bridge.LogLevel;
 import org.netxms.bridge.Platform;
 import com.rfelements.DeviceType;
+import com.rfelements.config.Settings;
 import com.rfelements.model.DeviceCredentials;
 
 /**
+ * Workers provider. All device workers share one bounded scheduler thread pool.
+ *
  * @author Pichanič Ján
  */
 public class WorkersProviderImpl implements WorkersProvider {
 
     private static final int DEBUG_LEVEL = 7;
 
-    public static WorkersProvider getInstance() {
+    public static synchronized WorkersProvider getInstance() {
         if (instance == null)
             instance = new WorkersProviderImpl();
         return instance;
@@ -21,41 +29,84 @@ public static WorkersProvider getInstance() {
 
     private static WorkersProvider instance;
 
-    private HashMap<DeviceType, HashMap<String, SingleWorker>> workers;
+    private final Map<DeviceType, Map<String, SingleWorker>> workers;
+
+    private final Map<DeviceType, WorkerStatistics> statistics;
+
+    private ScheduledThreadPoolExecutor executor;
 
     private WorkersProviderImpl() {
         Platform.writeLog(LogLevel.INFO,
                 Thread.currentThread().getName() + " [" + this.getClass().getName() + "] Workers provider initialized !");
-        this.workers = new HashMap<>();
+        this.workers = new EnumMap<>(DeviceType.class);
+        this.statistics = new EnumMap<>(DeviceType.class);
+        for (DeviceType type : DeviceType.values()) {
+            workers.put(type, new ConcurrentHashMap<String, SingleWorker>());
+            statistics.put(type, new WorkerStatistics());
+        }
+    }
+
+    /**
+     * Get scheduler, creating it on first use (settings are not yet available when provider is constructed).
+     */
+    private synchronized ScheduledThreadPoolExecutor getExecutor() {
+        if (executor == null) {
+            int threads = Math.max(1, Settings.WORKER_THREADS);
+            executor = new ScheduledThreadPoolExecutor(threads, new ThreadFactory() {
+                private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "UBNTLW-Worker-" + threadNumber.getAndIncrement());
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+            executor.setRemoveOnCancelPolicy(true);
+            Platform.writeLog(LogLevel.INFO, "[" + this.getClass().getName() + "] Worker pool started with " + threads + " threads");
+        }
+        return executor;
     }
 
     @Override
     public void startNewWorker(DeviceCredentials deviceCredentials, DeviceType type) {
-        if (!workers.containsKey(type)) {
-            SingleWorker worker = new SingleWorker(deviceCredentials, type);
+        Map<String, SingleWorker> list = workers.get(type);
+        if (list.containsKey(deviceCredentials.getIp()))
+            return;
+
+        synchronized (list) {
+            if (list.containsKey(deviceCredentials.getIp()))
+                return;
+            SingleWorker worker = new SingleWorker(deviceCredentials, type, getExecutor(), statistics.get(type));
             Platform.writeDebugLog(DEBUG_LEVEL, Thread.currentThread().getName() +
                     " [" + this.getClass().getName() + "] Single worker created ! EntryPoint : " + type.toString() + "  URL : " + deviceCredentials.getUrl());
-            HashMap<String, SingleWorker> hashMap = new HashMap<>();
-            hashMap.put(deviceCredentials.getIp(), worker);
-            workers.put(type, hashMap);
+            list.put(deviceCredentials.getIp(), worker);
             worker.start();
-        } else {
-            HashMap<String, SingleWorker> list = workers.get(type);
-            if (!list.containsKey(deviceCredentials.getIp())) {
-                SingleWorker worker = new SingleWorker(deviceCredentials, type);
-                Platform.writeDebugLog(DEBUG_LEVEL, Thread.currentThread().getName() +
-                        " [" + this.getClass().getName() + "] Single worker created ! EntryPoint : " + type.toString() + "  URL : " + deviceCredentials.getUrl());
-                list.put(deviceCredentials.getIp(), worker);
-                worker.start();
-            }
         }
     }
 
     @Override
     public void stopDeviceTypeWorkers(DeviceType type) {
-        HashMap<String, SingleWorker> hashMap = workers.get(type);
-        for (String worker : hashMap.keySet()) {
-            hashMap.get(worker).stop();
+        Map<String, SingleWorker> list = workers.get(type);
+        synchronized (list) {
+            for (SingleWorker worker : list.values()) {
+                worker.stop();
+            }
+            list.clear();
+        }
+    }
+
+    @Override
+    public WorkerStatistics getStatistics(DeviceType type) {
+        return statistics.get(type);
+    }
+
+    @Override
+    public int getQueueSize() {
+        ScheduledThreadPoolExecutor e;
+        synchronized (this) {
+            e = executor;
         }
+        return (e != null) ? e.getQueue().size() : 0;
     }
 }
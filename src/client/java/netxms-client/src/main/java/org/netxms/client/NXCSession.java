@@ -43,6 +43,7 @@
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -84,6 +85,7 @@
 import org.netxms.client.constants.ObjectStatus;
 import org.netxms.client.constants.RCC;
 import org.netxms.client.dashboards.DashboardElement;
+import org.netxms.client.datacollection.AggregatedDciData;
 import org.netxms.client.datacollection.ChartDciConfig;
 import org.netxms.client.datacollection.ConditionDciInfo;
 import org.netxms.client.datacollection.DCOStatusHolder;
@@ -102,6 +104,7 @@
 import org.netxms.client.datacollection.DciValue;
 import org.netxms.client.datacollection.GraphDefinition;
 import org.netxms.client.datacollection.GraphFolder;
+import org.netxms.client.datacollection.LastValuesChangeSet;
 import org.netxms.client.datacollection.MeasurementUnit;
 import org.netxms.client.datacollection.PerfTabDci;
 import org.netxms.client.datacollection.PredictionEngine;
@@ -166,6 +169,7 @@
 import org.netxms.client.objects.Rack;
 import org.netxms.client.objects.Sensor;
 import org.netxms.client.objects.ServiceRoot;
+import org.netxms.client.objects.StatusRollupIndex;
 import org.netxms.client.objects.Subnet;
 import org.netxms.client.objects.Template;
 import org.netxms.client.objects.TemplateGroup;
@@ -178,6 +182,8 @@
 import org.netxms.client.objects.interfaces.NodeItemPair;
 import org.netxms.client.objects.queries.ObjectQuery;
 import org.netxms.client.objects.queries.ObjectQueryResult;
+import org.netxms.client.objecttools.BulkExecutionListener;
+import org.netxms.client.objecttools.BulkToolExecution;
 import org.netxms.client.objecttools.ObjectContextBase;
 import org.netxms.client.objecttools.ObjectTool;
 import org.netxms.client.objecttools.ObjectToolDetails;
@@ -200,6 +206,7 @@
 import org.netxms.client.snmp.SnmpUsmCredential;
 import org.netxms.client.snmp.SnmpValue;
 import org.netxms.client.snmp.SnmpWalkListener;
+import org.netxms.client.snmp.SnmpWalkResult;
 import org.netxms.client.topology.ArpCacheEntry;
 import org.netxms.client.topology.ConnectionPoint;
 import org.netxms.client.topology.FdbEntry;
@@ -323,6 +330,7 @@
    private boolean allowCompression = false;
    private EncryptionContext encryptionContext = null;
    private Throwable receiverStopCause = null;
+   private final SessionMetricsCollector metrics = new SessionMetricsCollector();
 
    // Communication parameters
    private int defaultRecvBufferSize = 4194304; // Default is 4MB
@@ -382,6 +390,11 @@
    private Map<Integer, Zone> zoneList = new HashMap<Integer, Zone>();
    private Map<Integer, ObjectCategory> objectCategories = new HashMap<Integer, ObjectCategory>();
    private boolean objectsSynchronized = false;
+   private SharedObjectModel ownedObjectModel = null;
+   private final ObjectDecoder objectDecoder = new ObjectDecoder(this);
+   private boolean lazyObjectDecoding = false;
+   private SharedObjectModel attachedObjectModel = null;
+   private StatusRollupIndex statusRollupIndex = null;
    private Set<String> responsibleUserTags = new HashSet<String>();
 
    // Users
@@ -504,13 +517,22 @@ public void run()
          }
 
          int errorCount = 0;
+         long bytesReceived = 0;
          while(socket.isConnected())
          {
             try
             {
                NXCPMessage msg = receiver.receiveMessage(in, encryptionContext);
                errorCount = 0;
-               switch(msg.getMessageCode())
+               metrics.messageReceived(msg, receiver.getBytesReceived() - bytesReceived);
+               bytesReceived = receiver.getBytesReceived();
+
+               // Make sure that all object updates received before this message are visible
+               int code = msg.getMessageCode();
+               if ((code != NXCPCodes.CMD_OBJECT) && (code != NXCPCodes.CMD_OBJECT_UPDATE) && (code != NXCPCodes.CMD_KEEPALIVE))
+                  objectDecoder.flush();
+
+               switch(code)
                {
                   case NXCPCodes.CMD_REQUEST_SESSION_KEY:
                      setupEncryption(msg);
@@ -521,39 +543,10 @@ public void run()
                      break;
                   case NXCPCodes.CMD_OBJECT:
                   case NXCPCodes.CMD_OBJECT_UPDATE:
-                     if (!msg.getFieldAsBoolean(NXCPCodes.VID_IS_DELETED))
-                     {
-                        final AbstractObject obj = createObjectFromMessage(msg);
-                        synchronized(objectList)
-                        {
-                           objectList.put(obj.getObjectId(), obj);
-                           objectListGUID.put(obj.getGuid(), obj);
-                           if (obj instanceof Zone)
-                              zoneList.put(((Zone)obj).getUIN(), (Zone)obj);
-                        }
-                        if (msg.getMessageCode() == NXCPCodes.CMD_OBJECT_UPDATE)
-                        {
-                           sendNotification(new SessionNotification(SessionNotification.OBJECT_CHANGED, obj.getObjectId(), obj));
-                        }
-                     }
-                     else
-                     {
-                        long objectId = msg.getFieldAsInt32(NXCPCodes.VID_OBJECT_ID);
-                        synchronized(objectList)
-                        {
-                           AbstractObject object = objectList.get(objectId);
-                           if (object != null)
-                           {
-                              objectListGUID.remove(object.getGuid());
-                              objectList.remove(objectId);
-                              if (object instanceof Zone)
-                                 zoneList.remove(((Zone)object).getUIN());
-                           }
-                        }
-                        sendNotification(new SessionNotification(SessionNotification.OBJECT_DELETED, objectId));
-                     }
+                     objectDecoder.submit(msg);
                      break;
                   case NXCPCodes.CMD_OBJECT_LIST_END:
+                     objectDecoder.syncCompleted();
                      completeSync(syncObjects);
                      break;
                   case NXCPCodes.CMD_OBJECT_CATEGORY_UPDATE:
@@ -1372,17 +1365,9 @@ public void run()
             // possible deadlock when one of the listeners calls 
             // syncExec on UI thread while UI thread trying to add
             // new listener and stays locked inside addListener
-            for(SessionListener l : cachedListenerList)
-            {
-               try
-               {
-                  l.notificationHandler(n);
-               }
-               catch(Exception e)
-               {
-                  logger.error("Unhandled exception in notification handler", e);
-               }
-            }
+            long startTime = System.nanoTime();
+            dispatchNotification(n, cachedListenerList);
+            metrics.notificationProcessed(System.nanoTime() - startTime);
          }
          cachedListenerList = null;
       }
@@ -1507,6 +1492,84 @@ protected AbstractObject createCustomObjectFromMessage(int objectClass, NXCPMess
       return null;
    }
 
+   /**
+    * Decode object received from server. Called by object decoder, possibly on worker thread.
+    *
+    * @param update object update to decode
+    */
+   void decodeObjectUpdate(ObjectDecoder.Update update)
+   {
+      update.object = createObjectFromMessage(update.msg);
+      if ((ownedObjectModel != null) && (update.object instanceof Node))
+         update.restrictedObject = createRestrictedObject(update.msg);
+   }
+
+   /**
+    * Commit decoded object updates to object list and send change notifications. Called by object decoder, possibly on worker
+    * thread. Updates are always committed (and notifications sent) in order they were received from server.
+    *
+    * @param updates decoded object updates
+    */
+   void commitObjectUpdates(List<ObjectDecoder.Update> updates)
+   {
+      synchronized(objectList)
+      {
+         for(ObjectDecoder.Update u : updates)
+         {
+            if (u.deleted)
+            {
+               AbstractObject object = objectList.remove(u.objectId);
+               if (object != null)
+               {
+                  objectListGUID.remove(object.getGuid());
+                  if (object instanceof Zone)
+                     zoneList.remove(((Zone)object).getUIN());
+               }
+            }
+            else if (u.object != null)
+            {
+               objectList.put(u.object.getObjectId(), u.object);
+               objectListGUID.put(u.object.getGuid(), u.object);
+               if (u.object instanceof Zone)
+                  zoneList.put(((Zone)u.object).getUIN(), (Zone)u.object);
+            }
+         }
+      }
+
+      SharedObjectModel model = ownedObjectModel;
+      for(ObjectDecoder.Update u : updates)
+      {
+         if (u.deleted)
+         {
+            sendNotification(new SessionNotification(SessionNotification.OBJECT_DELETED, u.objectId));
+         }
+         else if (u.object != null)
+         {
+            if ((model != null) && (u.restrictedObject != null))
+               model.updateRestrictedObject(u.restrictedObject);
+            if (u.isChangeNotification())
+               sendNotification(new SessionNotification(SessionNotification.OBJECT_CHANGED, u.object.getObjectId(), u.object));
+         }
+      }
+   }
+
+   /**
+    * Create object from message with credentials masked the same way as server does for users without modify access to node.
+    * Message fields are modified by this method.
+    *
+    * @param msg Source NXCP message
+    * @return NetXMS object with masked credentials
+    */
+   private AbstractObject createRestrictedObject(NXCPMessage msg)
+   {
+      msg.setField(NXCPCodes.VID_SHARED_SECRET, "********");
+      msg.setField(NXCPCodes.VID_SNMP_AUTH_OBJECT, "********");
+      msg.setField(NXCPCodes.VID_SNMP_AUTH_PASSWORD, "********");
+      msg.setField(NXCPCodes.VID_SNMP_PRIV_PASSWORD, "********");
+      msg.setField(NXCPCodes.VID_SSH_PASSWORD, "********");
+      return createObjectFromMessage(msg);
+   }
+
    /**
     * Create object from message
     *
@@ -1799,10 +1862,44 @@ protected void sendNotification(SessionNotification n)
    {
       if (!notificationQueue.offer(n))
       {
+         metrics.notificationDropped();
          logger.warn("Notification processing queue is full");
       }
    }
 
+   /**
+    * Call notification handlers on given listeners on current thread. If this session is attached to shared object model, its
+    * object view is bound to current thread while handlers are running, so shared objects passed to handlers resolve their
+    * parents, children, and access rights for this session's user.
+    *
+    * @param n notification object
+    * @param listenerList listeners to call
+    */
+   void dispatchNotification(SessionNotification n, SessionListener[] listenerList)
+   {
+      SharedObjectModel model = attachedObjectModel;
+      SharedObjectModel.ViewBinding binding = (model != null) ? model.bindAttachedView(this) : null;
+      try
+      {
+         for(SessionListener l : listenerList)
+         {
+            try
+            {
+               l.notificationHandler(n);
+            }
+            catch(Exception e)
+            {
+               logger.error("Unhandled exception in notification handler", e);
+            }
+         }
+      }
+      finally
+      {
+         if (binding != null)
+            binding.close();
+      }
+   }
+
    /**
     * Send message to server
     *
@@ -1834,6 +1931,7 @@ public synchronized void sendMessage(final NXCPMessage msg) throws IOException,
          message = msg.createNXCPMessage(allowCompression);
       }
       outputStream.write(message);
+      metrics.messageSent(msg, message.length);
    }
 
    /**
@@ -1988,8 +2086,10 @@ public NXCPMessage waitForMessage(final int code, final long id, final int timeo
       final NXCPMessage msg = msgWaitQueue.waitForMessage(code, id, timeout);
       if (msg == null)
       {
+         metrics.requestFailed(id, receiverStopCause != null);
          throw (receiverStopCause != null) ? new NXCException(RCC.COMM_FAILURE, receiverStopCause) : new NXCException(RCC.TIMEOUT);
       }
+      metrics.responseReceived(id, msg);
       return msg;
    }
 
@@ -2622,6 +2722,11 @@ private synchronized void disconnect(int reason)
       logger.debug("Session disconnect requested (reason=" + reason + ")");
 
       disconnected = true;
+      if (attachedObjectModel != null)
+      {
+         attachedObjectModel.detach(this);
+         attachedObjectModel = null;
+      }
       if (socket != null)
       {
          logger.debug("Closing TCP socket");
@@ -2665,6 +2770,8 @@ private synchronized void disconnect(int reason)
          recvThread = null;
       }
 
+      objectDecoder.shutdown();
+
       if (housekeeperThread != null)
       {
          logger.debug("Waiting for housekeepeer thread shutdown");
@@ -3116,6 +3223,52 @@ public void setConnectTimeout(int connectTimeout)
       this.connectTimeout = connectTimeout;
    }
 
+   /**
+    * Set number of threads used for decoding objects received from server (must be set before first object synchronization).
+    * Decoded objects are committed and change notifications are sent in order they were received from server regardless of
+    * number of threads. If set to 0, objects are decoded on network receiver thread. Default is 0.
+    *
+    * @param threads number of object decoder threads
+    */
+   public void setObjectDecoderThreads(int threads)
+   {
+      objectDecoder.setThreadCount(threads);
+   }
+
+   /**
+    * Get number of threads used for decoding objects received from server.
+    *
+    * @return number of object decoder threads
+    */
+   public int getObjectDecoderThreads()
+   {
+      return objectDecoder.getThreadCount();
+   }
+
+   /**
+    * Enable or disable lazy object decoding. In lazy mode objects keep compact snapshot of rarely used fields (custom attributes,
+    * URLs, access list, module data, responsible users, poll states, geolocation, and postal address) and decode each group on
+    * first access to it. This reduces memory usage and synchronization time for applications that mostly use basic object
+    * properties.
+    * Should be set before object synchronization.
+    *
+    * @param lazyObjectDecoding true to enable lazy object decoding
+    */
+   public void setLazyObjectDecoding(boolean lazyObjectDecoding)
+   {
+      this.lazyObjectDecoding = lazyObjectDecoding;
+   }
+
+   /**
+    * Check if lazy object decoding is enabled.
+    *
+    * @return true if lazy object decoding is enabled
+    */
+   public boolean isLazyObjectDecoding()
+   {
+      return lazyObjectDecoding;
+   }
+
    /**
     * Get identifier of logged in user.
     *
@@ -3407,9 +3560,12 @@ public void syncObjects() throws IOException, NXCException
    public void syncObjects(boolean syncNodeComponents) throws IOException, NXCException
    {
       syncObjectCategories();
+      if (attachedObjectModel != null)
+         return; // Objects are provided by shared object model
 
       syncObjects.acquireUninterruptibly();
 
+      objectDecoder.syncStarted();
       NXCPMessage msg = newMessage(NXCPCodes.CMD_GET_OBJECTS);
       msg.setField(NXCPCodes.VID_SYNC_NODE_COMPONENTS, syncNodeComponents);
       sendMessage(msg);
@@ -3607,12 +3763,162 @@ public List<AbstractObject> findObjectByRegex(String regex)
     */
    public AbstractObject findObjectById(final long id)
    {
+      NXCSession view = getObjectView();
+      if (view != this)
+         return (view != null) ? view.findObjectById(id) : null;
+
       synchronized(objectList)
       {
          return objectList.get(id);
       }
    }
 
+   /**
+    * Find NetXMS object by it's identifier in this session's own object list, without redirecting lookup to attached user
+    * session view.
+    *
+    * @param id Object identifier
+    * @return Object with given ID or null if object cannot be found
+    */
+   AbstractObject findLocalObjectById(final long id)
+   {
+      synchronized(objectList)
+      {
+         return objectList.get(id);
+      }
+   }
+
+   /**
+    * Get session which object lookups should be served by. For backend session of shared object model, where objects shared
+    * with user sessions resolve their parents and children through this session, lookups are redirected to user session view
+    * bound to current thread, and denied if there is no such view.
+    *
+    * @return session to serve lookup (this session if lookup should not be redirected) or null if lookup should be denied
+    */
+   private NXCSession getObjectView()
+   {
+      SharedObjectModel model = ownedObjectModel;
+      return (model != null) ? model.getCurrentView() : this;
+   }
+
+   /**
+    * Set shared object model backed by this session.
+    *
+    * @param model shared object model
+    */
+   void setOwnedObjectModel(SharedObjectModel model)
+   {
+      ownedObjectModel = model;
+   }
+
+   /**
+    * Check if this session is a backend session of shared object model.
+    *
+    * @return true if this session is a backend session of shared object model
+    */
+   public boolean isSharedObjectModelBackend()
+   {
+      return ownedObjectModel != null;
+   }
+
+   /**
+    * Get shared object model this session is attached to.
+    *
+    * @return shared object model or null if this session maintains its own object list
+    */
+   public SharedObjectModel getAttachedObjectModel()
+   {
+      return attachedObjectModel;
+   }
+
+   /**
+    * Get status roll-up index for this session. Index is created on first call.
+    *
+    * @return status roll-up index
+    */
+   public synchronized StatusRollupIndex getStatusRollupIndex()
+   {
+      if (statusRollupIndex == null)
+         statusRollupIndex = new StatusRollupIndex(this);
+      return statusRollupIndex;
+   }
+
+   /**
+    * Attach this session to shared object model. Own object list is replaced with given set of shared objects.
+    *
+    * @param model shared object model
+    * @param objects objects visible to this session's user
+    */
+   void attachObjectModel(SharedObjectModel model, Collection<AbstractObject> objects)
+   {
+      synchronized(objectList)
+      {
+         attachedObjectModel = model;
+         objectList.clear();
+         objectListGUID.clear();
+         zoneList.clear();
+         for(AbstractObject obj : objects)
+         {
+            objectList.put(obj.getObjectId(), obj);
+            objectListGUID.put(obj.getGuid(), obj);
+            if (obj instanceof Zone)
+               zoneList.put(((Zone)obj).getUIN(), (Zone)obj);
+         }
+         objectsSynchronized = true;
+      }
+      sendNotification(new SessionNotification(SessionNotification.OBJECT_SYNC_COMPLETED));
+   }
+
+   /**
+    * Update object received from shared object model.
+    *
+    * @param obj updated object
+    */
+   void updateSharedObject(AbstractObject obj)
+   {
+      synchronized(objectList)
+      {
+         objectList.put(obj.getObjectId(), obj);
+         objectListGUID.put(obj.getGuid(), obj);
+         if (obj instanceof Zone)
+            zoneList.put(((Zone)obj).getUIN(), (Zone)obj);
+      }
+      sendNotification(new SessionNotification(SessionNotification.OBJECT_CHANGED, obj.getObjectId(), obj));
+   }
+
+   /**
+    * Remove object received from shared object model (because it was deleted or become inaccessible for this session's user).
+    *
+    * @param objectId object ID
+    */
+   void removeSharedObject(long objectId)
+   {
+      synchronized(objectList)
+      {
+         AbstractObject object = objectList.remove(objectId);
+         if (object == null)
+            return;
+         objectListGUID.remove(object.getGuid());
+         if (object instanceof Zone)
+            zoneList.remove(((Zone)object).getUIN());
+      }
+      sendNotification(new SessionNotification(SessionNotification.OBJECT_DELETED, objectId));
+   }
+
+   /**
+    * Check if given object is in this session's object list.
+    *
+    * @param objectId object ID
+    * @return true if object is in this session's object list
+    */
+   boolean hasLocalObject(long objectId)
+   {
+      synchronized(objectList)
+      {
+         return objectList.containsKey(objectId);
+      }
+   }
+
    /**
     * Find NetXMS object by it's identifier or return wait an object to wait on
     *
@@ -3725,13 +4031,17 @@ public List<AbstractObject> findMultipleObjects(final long[] idList, boolean ret
     */
    public List<AbstractObject> findMultipleObjects(final long[] idList, Class<? extends AbstractObject> classFilter, boolean returnUnknown)
    {
+      NXCSession view = getObjectView();
+      if ((view != this) && (view != null))
+         return view.findMultipleObjects(idList, classFilter, returnUnknown);
+
       List<AbstractObject> result = new ArrayList<AbstractObject>(idList.length);
 
       synchronized(objectList)
       {
          for(int i = 0; i < idList.length; i++)
          {
-            final AbstractObject object = objectList.get(idList[i]);
+            final AbstractObject object = (view != null) ? objectList.get(idList[i]) : null;
             if ((object != null) && ((classFilter == null) || classFilter.isInstance(object)))
             {
                result.add(object);
@@ -3768,13 +4078,17 @@ public List<AbstractObject> findMultipleObjects(final Collection<Long> idList, b
     */
    public List<AbstractObject> findMultipleObjects(final Collection<Long> idList, Class<? extends AbstractObject> classFilter, boolean returnUnknown)
    {
+      NXCSession view = getObjectView();
+      if ((view != this) && (view != null))
+         return view.findMultipleObjects(idList, classFilter, returnUnknown);
+
       List<AbstractObject> result = new ArrayList<AbstractObject>(idList.size());
 
       synchronized(objectList)
       {
          for(Long id : idList)
          {
-            final AbstractObject object = objectList.get(id);
+            final AbstractObject object = (view != null) ? objectList.get(id) : null;
             if ((object != null) && ((classFilter == null) || classFilter.isInstance(object)))
             {
                result.add(object);
@@ -5280,6 +5594,37 @@ public DciValue[] getLastValues(final long nodeId) throws IOException, NXCExcept
    {
       return getLastValues(nodeId, false, false, false);
    }
+
+   /**
+    * Get last DCI values for given node changed since given time. Server will return only DCIs with value or status
+    * changed at or after given time, and list of IDs of all DCIs matching filter so client can detect deleted DCIs. If
+    * <code>changedSince</code> is null, or server does not support incremental requests, full set of values is returned.
+    * Time value for next request should be taken from {@link LastValuesChangeSet#getTimestamp()} (it is server time, so
+    * difference between server and client clocks does not matter). See also
+    * {@link org.netxms.client.datacollection.LastValuesMerger} for keeping value set current.
+    *
+    * @param nodeId                ID of the node to get DCI values for
+    * @param objectTooltipOnly     if set to true, only DCIs with DCF_SHOW_ON_OBJECT_TOOLTIP flag set are returned
+    * @param overviewOnly          if set to true, only DCIs with DCF_SHOW_IN_OBJECT_OVERVIEW flag set are returned
+    * @param includeNoValueObjects if set to true, objects with no value (like instance discovery DCIs) will be returned as well
+    * @param changedSince          change cursor returned by previous request or null to get full set of values
+    * @return set of changed DCI values
+    * @throws IOException  if socket I/O error occurs
+    * @throws NXCException if NetXMS server returns an error or operation was timed out
+    */
+   public LastValuesChangeSet getLastValues(final long nodeId, boolean objectTooltipOnly, boolean overviewOnly,
+         boolean includeNoValueObjects, Date changedSince) throws IOException, NXCException
+   {
+      final NXCPMessage msg = newMessage(NXCPCodes.CMD_GET_LAST_VALUES);
+      msg.setFieldInt32(NXCPCodes.VID_OBJECT_ID, (int)nodeId);
+      msg.setField(NXCPCodes.VID_OBJECT_TOOLTIP_ONLY, objectTooltipOnly);
+      msg.setField(NXCPCodes.VID_OVERVIEW_ONLY, overviewOnly);
+      msg.setField(NXCPCodes.VID_INCLUDE_NOVALUE_OBJECTS, includeNoValueObjects);
+      if (changedSince != null)
+         msg.setField(NXCPCodes.VID_TIMESTAMP, changedSince);
+      sendMessage(msg);
+      return new LastValuesChangeSet(waitForRCC(msg.getMessageId()), changedSince != null);
+   }
    
    /**
     * Get tooltip last values for all objects 
@@ -5749,6 +6094,202 @@ public DciData getCollectedTableData(long nodeId, long dciId, String instance, S
       return getCollectedDataInternal(nodeId, dciId, instance, dataColumn, from, to, maxRows, HistoricalDataType.PROCESSED);
    }
 
+   /**
+    * Get collected DCI data aggregated into fixed width time buckets. Aggregation is done by server; if server does not
+    * support aggregation, raw data is retrieved and aggregated locally.
+    *
+    * @param nodeId     Node ID
+    * @param dciId      DCI ID
+    * @param instance   instance value (for table DCI only)
+    * @param dataColumn name of column to retrieve data from (for table DCI only)
+    * @param from       Start of time range or null for no limit
+    * @param to         End of time range or null for no limit
+    * @param interval   bucket width in seconds
+    * @param functions  set of aggregation functions
+    * @param valueType  value type (only PROCESSED and RAW are supported)
+    * @return aggregated DCI data
+    * @throws IOException  if socket I/O error occurs
+    * @throws NXCException if NetXMS server returns an error or operation was timed out
+    */
+   private AggregatedDciData getAggregatedDataInternal(long nodeId, long dciId, String instance, String dataColumn, Date from, Date to,
+         int interval, Set<AggregationFunction> functions, HistoricalDataType valueType) throws IOException, NXCException
+   {
+      if ((interval <= 0) || functions.isEmpty() || ((valueType != HistoricalDataType.PROCESSED) && (valueType != HistoricalDataType.RAW)))
+         throw new NXCException(RCC.INVALID_ARGUMENT);
+
+      NXCPMessage msg;
+      if (instance != null) // table DCI
+      {
+         msg = newMessage(NXCPCodes.CMD_GET_TABLE_DCI_DATA);
+         msg.setField(NXCPCodes.VID_INSTANCE, instance);
+         msg.setField(NXCPCodes.VID_DATA_COLUMN, dataColumn);
+      }
+      else
+      {
+         msg = newMessage(NXCPCodes.CMD_GET_DCI_DATA);
+      }
+      msg.setFieldInt32(NXCPCodes.VID_OBJECT_ID, (int)nodeId);
+      msg.setFieldInt32(NXCPCodes.VID_DCI_ID, (int)dciId);
+      msg.setFieldInt16(NXCPCodes.VID_HISTORICAL_DATA_TYPE, valueType.getValue());
+      msg.setFieldInt32(NXCPCodes.VID_MAX_ROWS, 0);
+      msg.setFieldInt32(NXCPCodes.VID_TIME_FROM, (from != null) ? (int)(from.getTime() / 1000) : 0);
+      msg.setFieldInt32(NXCPCodes.VID_TIME_TO, (to != null) ? (int)(to.getTime() / 1000) : 0);
+      msg.setFieldInt32(NXCPCodes.VID_AGGREGATION_INTERVAL, interval);
+      int functionSet = 0;
+      for(AggregationFunction f : functions)
+         functionSet |= 1 << f.getValue();
+      msg.setFieldInt32(NXCPCodes.VID_AGGREGATION_FUNCTIONS, functionSet);
+      sendMessage(msg);
+
+      NXCPMessage response = waitForRCC(msg.getMessageId());
+      NXCPMessage dataMessage = waitForMessage(NXCPCodes.CMD_DCI_DATA, msg.getMessageId());
+      if (!dataMessage.isBinaryMessage())
+         throw new NXCException(RCC.INTERNAL_ERROR);
+
+      if (response.isFieldPresent(NXCPCodes.VID_AGGREGATION_INTERVAL))
+         return new AggregatedDciData(nodeId, dciId, interval, functions, dataMessage.getBinaryData());
+
+      // Server does not support aggregation and sent raw data
+      DciData data = new DciData(nodeId, dciId);
+      if (parseDataRows(dataMessage.getBinaryData(), data) == MAX_DCI_DATA_ROWS)
+      {
+         DciDataRow row = data.getLastValue();
+         if (row != null)
+         {
+            // Rows goes in newest to oldest order, so remaining data is before last received row
+            DciData remainingData = getCollectedDataInternal(nodeId, dciId, instance, dataColumn, from,
+                  new Date(row.getTimestamp().getTime() - 1000), 0, valueType);
+            for(DciDataRow r : remainingData.getValues())
+               data.addDataRow(r);
+         }
+      }
+      if (!data.getDataType().isNumeric())
+         throw new NXCException(RCC.INCOMPATIBLE_OPERATION);
+      return new AggregatedDciData(data, interval, functions, false);
+   }
+
+   /**
+    * Get collected DCI data aggregated into fixed width time buckets. Intended for charts covering long time ranges, where
+    * bucket width is typically calculated by {@link AggregatedDciData#calculateInterval(Date, Date, int)}.
+    *
+    * @param nodeId    Node ID
+    * @param dciId     DCI ID
+    * @param from      Start of time range or null for no limit
+    * @param to        End of time range or null for no limit
+    * @param interval  bucket width in seconds
+    * @param functions set of aggregation functions
+    * @param valueType value type (only PROCESSED and RAW are supported)
+    * @return aggregated DCI data
+    * @throws IOException  if socket I/O error occurs
+    * @throws NXCException if NetXMS server returns an error or operation was timed out
+    */
+   public AggregatedDciData getAggregatedData(long nodeId, long dciId, Date from, Date to, int interval, Set<AggregationFunction> functions,
+         HistoricalDataType valueType) throws IOException, NXCException
+   {
+      return getAggregatedDataInternal(nodeId, dciId, null, null, from, to, interval, functions, valueType);
+   }
+
+   /**
+    * Get collected table DCI data aggregated into fixed width time buckets.
+    *
+    * @param nodeId     Node ID
+    * @param dciId      DCI ID
+    * @param instance   instance value
+    * @param dataColumn name of column to retrieve data from
+    * @param from       Start of time range or null for no limit
+    * @param to         End of time range or null for no limit
+    * @param interval   bucket width in seconds
+    * @param functions  set of aggregation functions
+    * @return aggregated DCI data
+    * @throws IOException  if socket I/O error occurs
+    * @throws NXCException if NetXMS server returns an error or operation was timed out
+    */
+   public AggregatedDciData getAggregatedTableData(long nodeId, long dciId, String instance, String dataColumn, Date from, Date to,
+         int interval, Set<AggregationFunction> functions) throws IOException, NXCException
+   {
+      if (instance == null || dataColumn == null)
+         throw new NXCException(RCC.INVALID_ARGUMENT);
+      return getAggregatedDataInternal(nodeId, dciId, instance, dataColumn, from, to, interval, functions, HistoricalDataType.PROCESSED);
+   }
+
+   /**
+    * Get collected DCI data for line chart of given width. If time range contains no more values than chart width in pixels,
+    * values are returned as is. Otherwise server aggregates data into buckets about one pixel wide, and result is built by
+    * {@link AggregatedDciData#toChartDciData()} from minimum, average, and maximum of each bucket. Data for open time range
+    * (start or end is null) is limited to chart width of latest values, and data for non-numeric DCIs is never aggregated.
+    *
+    * @param nodeId     Node ID
+    * @param dciId      DCI ID
+    * @param instance   instance value (for table DCI only)
+    * @param dataColumn name of column to retrieve data from (for table DCI only)
+    * @param from       Start of time range
+    * @param to         End of time range
+    * @param width      chart width in pixels
+    * @param valueType  value type (only PROCESSED and RAW are supported)
+    * @return DCI data set
+    * @throws IOException  if socket I/O error occurs
+    * @throws NXCException if NetXMS server returns an error or operation was timed out
+    */
+   private DciData getChartDataInternal(long nodeId, long dciId, String instance, String dataColumn, Date from, Date to, int width,
+         HistoricalDataType valueType) throws IOException, NXCException
+   {
+      // Bucket width cannot be calculated for open time range, so only latest values are returned
+      if ((from == null) || (to == null))
+         return getCollectedDataInternal(nodeId, dciId, instance, dataColumn, from, to, width, valueType);
+
+      // Read one row more than chart width to find out if aggregation is needed
+      DciData data = getCollectedDataInternal(nodeId, dciId, instance, dataColumn, from, to, width + 1, valueType);
+      if ((data.getValues().length <= width) || !data.getDataType().isNumeric())
+         return data;
+
+      int interval = AggregatedDciData.calculateInterval(from, to, width);
+      return getAggregatedDataInternal(nodeId, dciId, instance, dataColumn, from, to, interval,
+            EnumSet.of(AggregationFunction.MIN, AggregationFunction.MAX, AggregationFunction.AVERAGE), valueType).toChartDciData();
+   }
+
+   /**
+    * Get collected DCI data for line chart of given width. Data is aggregated only if time range contains more values than
+    * chart width in pixels (see {@link AggregatedDciData#toChartDciData()} for details).
+    *
+    * @param nodeId    Node ID
+    * @param dciId     DCI ID
+    * @param from      Start of time range
+    * @param to        End of time range
+    * @param width     chart width in pixels
+    * @param valueType value type (only PROCESSED and RAW are supported)
+    * @return DCI data set
+    * @throws IOException  if socket I/O error occurs
+    * @throws NXCException if NetXMS server returns an error or operation was timed out
+    */
+   public DciData getChartData(long nodeId, long dciId, Date from, Date to, int width, HistoricalDataType valueType)
+         throws IOException, NXCException
+   {
+      return getChartDataInternal(nodeId, dciId, null, null, from, to, width, valueType);
+   }
+
+   /**
+    * Get collected table DCI data for line chart of given width. Data is aggregated only if time range contains more values
+    * than chart width in pixels (see {@link AggregatedDciData#toChartDciData()} for details).
+    *
+    * @param nodeId     Node ID
+    * @param dciId      DCI ID
+    * @param instance   instance value
+    * @param dataColumn name of column to retrieve data from
+    * @param from       Start of time range
+    * @param to         End of time range
+    * @param width      chart width in pixels
+    * @return DCI data set
+    * @throws IOException  if socket I/O error occurs
+    * @throws NXCException if NetXMS server returns an error or operation was timed out
+    */
+   public DciData getChartTableData(long nodeId, long dciId, String instance, String dataColumn, Date from, Date to, int width)
+         throws IOException, NXCException
+   {
+      if (instance == null || dataColumn == null)
+         throw new NXCException(RCC.INVALID_ARGUMENT);
+      return getChartDataInternal(nodeId, dciId, instance, dataColumn, from, to, width, HistoricalDataType.PROCESSED);
+   }
+
    /**
     * Clear collected data for given DCI
     *
@@ -7118,12 +7659,42 @@ public void setObjectManaged(final long objectId, final boolean isManaged) throw
     */
    public int getEffectiveRights(final long objectId) throws IOException, NXCException
    {
+      NXCSession view = getObjectView();
+      if (view != this)
+         return (view != null) ? view.getEffectiveRights(objectId) : 0;
+
       NXCPMessage msg = newMessage(NXCPCodes.CMD_GET_EFFECTIVE_RIGHTS);
       msg.setFieldInt32(NXCPCodes.VID_OBJECT_ID, (int)objectId);
       sendMessage(msg);
       return waitForRCC(msg.getMessageId()).getFieldAsInt32(NXCPCodes.VID_EFFECTIVE_RIGHTS);
    }
 
+   /**
+    * Get effective rights of currently logged in user to multiple objects with single request.
+    *
+    * @param objects object identifiers
+    * @return effective rights for each object in same order as in request (0 for unknown objects)
+    * @throws IOException  if socket I/O error occurs
+    * @throws NXCException if NetXMS server returns an error or operation was timed out
+    */
+   public int[] getEffectiveRights(final long[] objects) throws IOException, NXCException
+   {
+      NXCSession view = getObjectView();
+      if (view != this)
+         return (view != null) ? view.getEffectiveRights(objects) : new int[objects.length];
+
+      NXCPMessage msg = newMessage(NXCPCodes.CMD_GET_EFFECTIVE_RIGHTS);
+      msg.setField(NXCPCodes.VID_OBJECT_LIST, objects);
+      sendMessage(msg);
+      long[] values = waitForRCC(msg.getMessageId()).getFieldAsUInt32Array(NXCPCodes.VID_EFFECTIVE_RIGHTS_LIST);
+      if ((values == null) || (values.length != objects.length))
+         throw new NXCException(RCC.NOT_IMPLEMENTED); // Server does not support bulk request
+      int[] rights = new int[values.length];
+      for(int i = 0; i < values.length; i++)
+         rights[i] = (int)values[i];
+      return rights;
+   }
+
    /**
     * Common internal implementation for bindObject, unbindObject, and
     * removeTemplate
@@ -9645,6 +10216,32 @@ public Table executeTableTool(long toolId, long nodeId) throws IOException, NXCE
       return new Table(response);
    }
 
+   /**
+    * Execute object tool on multiple targets with limited number of concurrent requests. Method returns immediately, results for
+    * individual targets are reported to listener as they become available. Only tools for which
+    * <code>BulkToolExecution.isSupported</code> returns true can be executed this way.
+    *
+    * @param tool object tool to execute
+    * @param targets execution targets
+    * @param inputValues values for tool's input fields (can be null)
+    * @param maskedFields list of input fields whose content should be masked (can be null)
+    * @param parallelism maximum number of targets processed concurrently
+    * @param timeout per-target timeout in milliseconds (0 to use command timeout)
+    * @param listener execution listener (can be null)
+    * @return bulk execution object that can be used to track progress, cancel execution, or retry failed targets
+    */
+   public BulkToolExecution executeObjectTool(ObjectTool tool, Collection<? extends ObjectContextBase> targets, Map<String, String> inputValues,
+         List<String> maskedFields, int parallelism, int timeout, BulkExecutionListener listener)
+   {
+      BulkToolExecution execution = new BulkToolExecution(this, tool, targets, inputValues, maskedFields);
+      execution.setParallelism(parallelism);
+      execution.setTimeout(timeout);
+      if (listener != null)
+         execution.addListener(listener);
+      execution.start();
+      return execution;
+   }
+
    /**
     * Execute server command related to given object (usually defined as object tool)
     *
@@ -11241,6 +11838,45 @@ public void snmpWalk(long nodeId, String rootOid, SnmpWalkListener listener) thr
       }
    }
 
+   /**
+    * Do SNMP walk. Operation will start at given root object, and received data will be stored directly into provided result
+    * object without creating intermediate SnmpValue objects. Update is published to result object after each received batch,
+    * so consumer can display data while walk is still running. This method will exit only when walk operation is complete.
+    * Result object is marked as complete on exit (even if walk failed).
+    *
+    * @param nodeId node object ID
+    * @param rootOid root SNMP object ID (as text)
+    * @param result result object
+    * @throws IOException if socket or file I/O error occurs
+    * @throws NXCException if NetXMS server returns an error or operation was timed out
+    */
+   public void snmpWalk(long nodeId, String rootOid, SnmpWalkResult result) throws IOException, NXCException
+   {
+      try
+      {
+         final NXCPMessage msg = newMessage(NXCPCodes.CMD_START_SNMP_WALK);
+         msg.setFieldInt32(NXCPCodes.VID_OBJECT_ID, (int)nodeId);
+         msg.setField(NXCPCodes.VID_SNMP_OID, rootOid);
+         sendMessage(msg);
+         waitForRCC(msg.getMessageId());
+         while(true)
+         {
+            final NXCPMessage response = waitForMessage(NXCPCodes.CMD_SNMP_WALK_DATA, msg.getMessageId());
+            final int count = response.getFieldAsInt32(NXCPCodes.VID_NUM_VARIABLES);
+            long varId = NXCPCodes.VID_SNMP_WALKER_DATA_BASE;
+            for(int i = 0; i < count; i++, varId += 3)
+               result.add(response.getFieldAsString(varId), response.getFieldAsInt32(varId + 1), response.getFieldAsString(varId + 2));
+            if (response.isEndOfSequence())
+               break;
+            result.publishUpdate();
+         }
+      }
+      finally
+      {
+         result.complete();
+      }
+   }
+
    /**
     * Get list of VLANs configured on given node
     *
@@ -11275,6 +11911,59 @@ public boolean areObjectsSynchronized()
       return objectsSynchronized;
    }
 
+   /**
+    * Get object decoding and synchronization statistics (throughput of last full synchronization and decoding time per object
+    * class).
+    *
+    * @return snapshot of object synchronization statistics
+    */
+   public ObjectSyncStatistics getObjectSyncStatistics()
+   {
+      return objectDecoder.getStatistics();
+   }
+
+   /**
+    * Get session performance metrics (request latencies by command, network traffic, message wait queue and notification
+    * processing statistics).
+    *
+    * @return snapshot of session performance metrics
+    */
+   public SessionMetrics getMetrics()
+   {
+      return metrics.createSnapshot(msgWaitQueue, notificationQueue.size(), objectDecoder.getStatistics());
+   }
+
+   /**
+    * Add request trace listener. Listener will be called for each completed request that took longer than threshold set
+    * by <code>setRequestTraceThreshold</code>.
+    *
+    * @param listener listener to add
+    */
+   public void addRequestTraceListener(RequestTraceListener listener)
+   {
+      metrics.addTraceListener(listener);
+   }
+
+   /**
+    * Remove request trace listener.
+    *
+    * @param listener listener to remove
+    */
+   public void removeRequestTraceListener(RequestTraceListener listener)
+   {
+      metrics.removeTraceListener(listener);
+   }
+
+   /**
+    * Set minimal request duration for passing request traces to trace listeners (default is 0, i.e. all requests are traced).
+    *
+    * @param threshold minimal request duration in milliseconds
+    */
+   public void setRequestTraceThreshold(int threshold)
+   {
+      metrics.setTraceThreshold(threshold);
+   }
+
    /**
     * Get address list.
     *
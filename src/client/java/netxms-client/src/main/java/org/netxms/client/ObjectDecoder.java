@@ -0,0 +1,414 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2023 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.client;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import org.netxms.base.NXCPCodes;
+import org.netxms.base.NXCPMessage;
+import org.netxms.client.objects.AbstractObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Object decoding pipeline for session's receiver thread. By default messages are decoded and committed on caller's thread.
+ * If worker threads are enabled, object messages are distributed between them by object ID and decoded in parallel, but decoded
+ * objects are still committed to session's object list (and OBJECT_CHANGED / OBJECT_DELETED notifications are posted) strictly
+ * in order messages were received from server.
+ */
+final class ObjectDecoder
+{
+   private static final int BATCH_SIZE = 256;
+   private static final int QUEUE_CAPACITY = 4096;
+
+   private static final Logger logger = LoggerFactory.getLogger(ObjectDecoder.class);
+
+   private final NXCSession session;
+   private int threadCount;
+   private Worker[] workers = null;
+   private final ConcurrentLinkedQueue<Update> commitQueue = new ConcurrentLinkedQueue<Update>();
+   private final Object commitLock = new Object();
+   private final AtomicLong pending = new AtomicLong(0);
+   private final Object flushLock = new Object();
+   private final ConcurrentHashMap<Integer, ClassCounters> classCounters = new ConcurrentHashMap<Integer, ClassCounters>();
+   private final LongAdder objectsDecoded = new LongAdder();
+   private long syncStartTime = 0;
+   private long syncStartCount = 0;
+   private long lastSyncObjects = 0;
+   private long lastSyncTime = 0;
+
+   /**
+    * Object update received from server
+    */
+   static final class Update
+   {
+      final NXCPMessage msg;
+      final long objectId;
+      final boolean deleted;
+      AbstractObject object = null;
+      AbstractObject restrictedObject = null;
+      volatile boolean decoded = false;
+
+      /**
+       * Create update from NXCP message.
+       *
+       * @param msg NXCP message (CMD_OBJECT or CMD_OBJECT_UPDATE)
+       */
+      Update(NXCPMessage msg)
+      {
+         this.msg = msg;
+         this.objectId = msg.getFieldAsInt64(NXCPCodes.VID_OBJECT_ID);
+         this.deleted = msg.getFieldAsBoolean(NXCPCodes.VID_IS_DELETED);
+      }
+
+      /**
+       * Check if this update was received as change notification (as opposed to synchronization).
+       *
+       * @return true if this update was received as change notification
+       */
+      boolean isChangeNotification()
+      {
+         return msg.getMessageCode() == NXCPCodes.CMD_OBJECT_UPDATE;
+      }
+   }
+
+   /**
+    * Decoding counters for single object class
+    */
+   private static final class ClassCounters
+   {
+      final LongAdder count = new LongAdder();
+      final LongAdder time = new LongAdder();
+   }
+
+   /**
+    * Worker thread
+    */
+   private final class Worker extends Thread
+   {
+      final BlockingQueue<Update> queue = new LinkedBlockingQueue<Update>(QUEUE_CAPACITY);
+
+      Worker(int index)
+      {
+         super("Object Decoder #" + index);
+         setDaemon(true);
+      }
+
+      @Override
+      public void run()
+      {
+         List<Update> batch = new ArrayList<Update>(BATCH_SIZE);
+         while(true)
+         {
+            try
+            {
+               batch.add(queue.take());
+            }
+            catch(InterruptedException e)
+            {
+               break;
+            }
+            queue.drainTo(batch, BATCH_SIZE - 1);
+            decode(batch);
+            batch.clear();
+            commitDecoded();
+         }
+      }
+   }
+
+   /**
+    * Create object decoder for given session.
+    *
+    * @param session owning session
+    */
+   ObjectDecoder(NXCSession session)
+   {
+      this.session = session;
+      this.threadCount = 0;
+   }
+
+   /**
+    * Set number of worker threads. Has no effect after first object update was processed.
+    *
+    * @param threadCount number of worker threads (0 to decode objects on receiver thread)
+    */
+   synchronized void setThreadCount(int threadCount)
+   {
+      if (workers == null)
+         this.threadCount = Math.max(0, threadCount);
+   }
+
+   /**
+    * Get number of worker threads.
+    *
+    * @return number of worker threads
+    */
+   synchronized int getThreadCount()
+   {
+      return threadCount;
+   }
+
+   /**
+    * Start worker threads.
+    */
+   private synchronized Worker[] startWorkers()
+   {
+      if (workers == null)
+      {
+         workers = new Worker[threadCount];
+         for(int i = 0; i < threadCount; i++)
+         {
+            workers[i] = new Worker(i + 1);
+            workers[i].start();
+         }
+         logger.debug("Started " + threadCount + " object decoder threads");
+      }
+      return workers;
+   }
+
+   /**
+    * Submit object message for processing. Should be called only by receiver thread.
+    *
+    * @param msg NXCP message (CMD_OBJECT or CMD_OBJECT_UPDATE)
+    */
+   void submit(NXCPMessage msg)
+   {
+      Update update = new Update(msg);
+      Worker[] w = (workers != null) ? workers : startWorkers();
+      if (w.length == 0)
+      {
+         List<Update> batch = new ArrayList<Update>(1);
+         batch.add(update);
+         decode(batch);
+         commit(batch);
+         return;
+      }
+
+      pending.incrementAndGet();
+      commitQueue.add(update);
+      try
+      {
+         w[(int)(update.objectId % w.length)].queue.put(update);
+      }
+      catch(InterruptedException e)
+      {
+         // Update is already in commit queue, so it should be committed (as failed to decode) to keep subsequent updates going
+         logger.debug("Interrupted while queueing update for object " + update.objectId);
+         update.decoded = true;
+         commitDecoded();
+      }
+   }
+
+   /**
+    * Decode batch of updates.
+    *
+    * @param batch updates to decode
+    */
+   private void decode(List<Update> batch)
+   {
+      for(Update u : batch)
+      {
+         if (u.deleted)
+         {
+            u.decoded = true;
+            continue;
+         }
+         int objectClass = u.msg.getFieldAsInt32(NXCPCodes.VID_OBJECT_CLASS);
+         long startTime = System.nanoTime();
+         try
+         {
+            session.decodeObjectUpdate(u);
+         }
+         catch(Exception e)
+         {
+            logger.error("Cannot decode object " + u.objectId + " (class " + objectClass + ")", e);
+            u.object = null;
+            u.decoded = true;
+            continue;
+         }
+         ClassCounters c = classCounters.get(objectClass);
+         if (c == null)
+         {
+            c = new ClassCounters();
+            ClassCounters prev = classCounters.putIfAbsent(objectClass, c);
+            if (prev != null)
+               c = prev;
+         }
+         c.count.increment();
+         c.time.add(System.nanoTime() - startTime);
+         objectsDecoded.increment();
+         u.decoded = true;
+      }
+   }
+
+   /**
+    * Commit all decoded updates from the head of commit queue. Updates are taken in order they were submitted and committing
+    * stops at first update not decoded yet - whichever worker decodes it will continue from there.
+    */
+   private void commitDecoded()
+   {
+      synchronized(commitLock)
+      {
+         List<Update> batch = new ArrayList<Update>();
+         Update u;
+         while(((u = commitQueue.peek()) != null) && u.decoded)
+         {
+            commitQueue.poll();
+            batch.add(u);
+         }
+         if (batch.isEmpty())
+            return;
+         commit(batch);
+         complete(batch.size());
+      }
+   }
+
+   /**
+    * Commit batch of decoded updates.
+    *
+    * @param batch updates to commit
+    */
+   private void commit(List<Update> batch)
+   {
+      try
+      {
+         session.commitObjectUpdates(batch);
+      }
+      catch(Exception e)
+      {
+         logger.error("Exception while committing object updates", e);
+      }
+   }
+
+   /**
+    * Mark given number of pending updates as completed.
+    *
+    * @param count number of completed updates
+    */
+   private void complete(int count)
+   {
+      if (pending.addAndGet(-count) == 0)
+      {
+         synchronized(flushLock)
+         {
+            flushLock.notifyAll();
+         }
+      }
+   }
+
+   /**
+    * Wait until all submitted updates are committed.
+    */
+   void flush()
+   {
+      if (pending.get() == 0)
+         return;
+      synchronized(flushLock)
+      {
+         while(pending.get() > 0)
+         {
+            try
+            {
+               flushLock.wait();
+            }
+            catch(InterruptedException e)
+            {
+               return;
+            }
+         }
+      }
+   }
+
+   /**
+    * Mark start of full object synchronization.
+    */
+   synchronized void syncStarted()
+   {
+      syncStartTime = System.currentTimeMillis();
+      syncStartCount = objectsDecoded.sum();
+   }
+
+   /**
+    * Mark completion of full object synchronization. Should be called after flush().
+    */
+   void syncCompleted()
+   {
+      synchronized(this)
+      {
+         if (syncStartTime == 0)
+            return;
+         lastSyncObjects = objectsDecoded.sum() - syncStartCount;
+         lastSyncTime = Math.max(System.currentTimeMillis() - syncStartTime, 1);
+         syncStartTime = 0;
+      }
+      logger.debug("Object synchronization completed: " + lastSyncObjects + " objects in " + lastSyncTime + " ms (" +
+            (lastSyncObjects * 1000 / lastSyncTime) + " objects/sec, " + threadCount + " decoder threads)");
+   }
+
+   /**
+    * Stop worker threads. Updates submitted before this call are decoded and committed before threads are stopped. Should not be
+    * called concurrently with submit().
+    */
+   synchronized void shutdown()
+   {
+      if (workers == null)
+         return;
+      flush();
+      for(Worker w : workers)
+         w.interrupt();
+      for(Worker w : workers)
+      {
+         try
+         {
+            w.join();
+         }
+         catch(InterruptedException e)
+         {
+         }
+      }
+      commitQueue.clear();
+      pending.set(0);
+      synchronized(flushLock)
+      {
+         flushLock.notifyAll();
+      }
+      workers = new Worker[0];
+   }
+
+   /**
+    * Get decoding statistics.
+    *
+    * @return snapshot of decoding statistics
+    */
+   synchronized ObjectSyncStatistics getStatistics()
+   {
+      Map<Integer, ObjectSyncStatistics.ClassStatistics> classes = new HashMap<Integer, ObjectSyncStatistics.ClassStatistics>();
+      for(Map.Entry<Integer, ClassCounters> e : classCounters.entrySet())
+         classes.put(e.getKey(), new ObjectSyncStatistics.ClassStatistics(e.getKey(), e.getValue().count.sum(), e.getValue().time.sum()));
+      return new ObjectSyncStatistics(threadCount, objectsDecoded.sum(), lastSyncObjects, lastSyncTime, pending.get(), classes);
+   }
+}
@@ -0,0 +1,209 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2023 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.client;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Snapshot of object decoding and synchronization statistics for client session.
+ */
+public class ObjectSyncStatistics
+{
+   private final int decoderThreads;
+   private final long objectsDecoded;
+   private final long lastSyncObjects;
+   private final long lastSyncTime;
+   private final long pendingUpdates;
+   private final Map<Integer, ClassStatistics> classStatistics;
+
+   /**
+    * Decoding statistics for single object class
+    */
+   public static class ClassStatistics
+   {
+      private final int objectClass;
+      private final long count;
+      private final long decodeTime;
+
+      /**
+       * Create class statistics.
+       *
+       * @param objectClass object class
+       * @param count number of decoded objects
+       * @param decodeTime total decoding time in nanoseconds
+       */
+      protected ClassStatistics(int objectClass, long count, long decodeTime)
+      {
+         this.objectClass = objectClass;
+         this.count = count;
+         this.decodeTime = decodeTime;
+      }
+
+      /**
+       * Get object class.
+       *
+       * @return object class (one of AbstractObject.OBJECT_* constants)
+       */
+      public int getObjectClass()
+      {
+         return objectClass;
+      }
+
+      /**
+       * Get number of decoded objects of this class.
+       *
+       * @return number of decoded objects
+       */
+      public long getCount()
+      {
+         return count;
+      }
+
+      /**
+       * Get total decoding time for objects of this class.
+       *
+       * @return total decoding time in nanoseconds
+       */
+      public long getDecodeTime()
+      {
+         return decodeTime;
+      }
+
+      /**
+       * Get average decoding time for single object of this class.
+       *
+       * @return average decoding time in nanoseconds
+       */
+      public long getAverageDecodeTime()
+      {
+         return (count > 0) ? decodeTime / count : 0;
+      }
+
+      /**
+       * @see java.lang.Object#toString()
+       */
+      @Override
+      public String toString()
+      {
+         return "ClassStatistics [objectClass=" + objectClass + ", count=" + count + ", decodeTime=" + decodeTime + "]";
+      }
+   }
+
+   /**
+    * Create statistics snapshot.
+    *
+    * @param decoderThreads number of decoder threads
+    * @param objectsDecoded total number of decoded objects
+    * @param lastSyncObjects number of objects received during last full synchronization
+    * @param lastSyncTime duration of last full synchronization in milliseconds
+    * @param pendingUpdates number of updates waiting for decoding
+    * @param classStatistics per-class decoding statistics
+    */
+   protected ObjectSyncStatistics(int decoderThreads, long objectsDecoded, long lastSyncObjects, long lastSyncTime, long pendingUpdates,
+         Map<Integer, ClassStatistics> classStatistics)
+   {
+      this.decoderThreads = decoderThreads;
+      this.objectsDecoded = objectsDecoded;
+      this.lastSyncObjects = lastSyncObjects;
+      this.lastSyncTime = lastSyncTime;
+      this.pendingUpdates = pendingUpdates;
+      this.classStatistics = Collections.unmodifiableMap(classStatistics);
+   }
+
+   /**
+    * Get number of decoder threads (0 means that objects are decoded on receiver thread).
+    *
+    * @return number of decoder threads
+    */
+   public int getDecoderThreads()
+   {
+      return decoderThreads;
+   }
+
+   /**
+    * Get total number of objects decoded by this session.
+    *
+    * @return total number of decoded objects
+    */
+   public long getObjectsDecoded()
+   {
+      return objectsDecoded;
+   }
+
+   /**
+    * Get number of objects received during last full synchronization.
+    *
+    * @return number of objects received during last full synchronization
+    */
+   public long getLastSyncObjects()
+   {
+      return lastSyncObjects;
+   }
+
+   /**
+    * Get duration of last full synchronization.
+    *
+    * @return duration of last full synchronization in milliseconds (0 if there was no full synchronization yet)
+    */
+   public long getLastSyncTime()
+   {
+      return lastSyncTime;
+   }
+
+   /**
+    * Get throughput of last full synchronization.
+    *
+    * @return number of objects per second
+    */
+   public long getLastSyncThroughput()
+   {
+      return (lastSyncTime > 0) ? lastSyncObjects * 1000 / lastSyncTime : 0;
+   }
+
+   /**
+    * Get number of object updates waiting for decoding.
+    *
+    * @return number of pending updates
+    */
+   public long getPendingUpdates()
+   {
+      return pendingUpdates;
+   }
+
+   /**
+    * Get per-class decoding statistics.
+    *
+    * @return per-class decoding statistics (key is object class)
+    */
+   public Map<Integer, ClassStatistics> getClassStatistics()
+   {
+      return classStatistics;
+   }
+
+   /**
+    * @see java.lang.Object#toString()
+    */
+   @Override
+   public String toString()
+   {
+      return "ObjectSyncStatistics [decoderThreads=" + decoderThreads + ", objectsDecoded=" + objectsDecoded + ", lastSyncObjects=" +
+            lastSyncObjects + ", lastSyncTime=" + lastSyncTime + ", pendingUpdates=" + pendingUpdates + "]";
+   }
+}
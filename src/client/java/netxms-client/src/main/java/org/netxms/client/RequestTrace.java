@@ -0,0 +1,179 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2023 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.client;
+
+import java.util.Date;
+
+/**
+ * Trace record for single request sent by client session. Request is considered completed when first response message with
+ * same ID is received.
+ */
+public class RequestTrace
+{
+   /**
+    * Request completion status
+    */
+   public enum Status
+   {
+      SUCCESS, ERROR, TIMEOUT, COMM_FAILURE
+   }
+
+   private final long requestId;
+   private final int command;
+   private final long startTime;
+   private final long duration;
+   private final int bytesSent;
+   private final Status status;
+   private final int responseCode;
+   private final int rcc;
+
+   /**
+    * Create trace record.
+    *
+    * @param requestId request ID
+    * @param command request command code
+    * @param startTime request start time (milliseconds since epoch)
+    * @param duration request duration in nanoseconds
+    * @param bytesSent size of request message as sent over the network
+    * @param status completion status
+    * @param responseCode code of response message (0 if response was not received)
+    * @param rcc request completion code from response (-1 if response does not contain completion code)
+    */
+   protected RequestTrace(long requestId, int command, long startTime, long duration, int bytesSent, Status status, int responseCode, int rcc)
+   {
+      this.requestId = requestId;
+      this.command = command;
+      this.startTime = startTime;
+      this.duration = duration;
+      this.bytesSent = bytesSent;
+      this.status = status;
+      this.responseCode = responseCode;
+      this.rcc = rcc;
+   }
+
+   /**
+    * Get request ID.
+    *
+    * @return request ID
+    */
+   public long getRequestId()
+   {
+      return requestId;
+   }
+
+   /**
+    * Get request command code.
+    *
+    * @return command code (one of NXCPCodes.CMD_* constants)
+    */
+   public int getCommand()
+   {
+      return command;
+   }
+
+   /**
+    * Get request command name.
+    *
+    * @return command name
+    */
+   public String getCommandName()
+   {
+      return SessionMetrics.getCommandName(command);
+   }
+
+   /**
+    * Get request start time.
+    *
+    * @return request start time
+    */
+   public Date getStartTime()
+   {
+      return new Date(startTime);
+   }
+
+   /**
+    * Get request duration.
+    *
+    * @return request duration in nanoseconds
+    */
+   public long getDuration()
+   {
+      return duration;
+   }
+
+   /**
+    * Get request duration in milliseconds.
+    *
+    * @return request duration in milliseconds
+    */
+   public double getDurationMillis()
+   {
+      return duration / 1000000.0;
+   }
+
+   /**
+    * Get size of request message as sent over the network.
+    *
+    * @return size of request message in bytes
+    */
+   public int getBytesSent()
+   {
+      return bytesSent;
+   }
+
+   /**
+    * Get completion status.
+    *
+    * @return completion status
+    */
+   public Status getStatus()
+   {
+      return status;
+   }
+
+   /**
+    * Get code of response message.
+    *
+    * @return code of response message or 0 if response was not received
+    */
+   public int getResponseCode()
+   {
+      return responseCode;
+   }
+
+   /**
+    * Get request completion code.
+    *
+    * @return request completion code or -1 if response does not contain completion code
+    */
+   public int getRCC()
+   {
+      return rcc;
+   }
+
+   /**
+    * @see java.lang.Object#toString()
+    */
+   @Override
+   public String toString()
+   {
+      return "RequestTrace [requestId=" + requestId + ", command=" + getCommandName() + ", duration=" + getDurationMillis() +
+            "ms, bytesSent=" + bytesSent + ", status=" + status + ", responseCode=" + responseCode + ", rcc=" + rcc + "]";
+   }
+}
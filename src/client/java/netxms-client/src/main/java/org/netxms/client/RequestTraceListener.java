@@ -0,0 +1,33 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2023 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.client;
+
+/**
+ * Listener for request completion traces
+ */
+public interface RequestTraceListener
+{
+   /**
+    * Called when request is completed (response received, timed out, or failed). Called on the thread that was waiting for
+    * response, so implementation should return quickly.
+    *
+    * @param trace request trace
+    */
+   public void requestCompleted(RequestTrace trace);
+}
@@ -0,0 +1,580 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2023 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.client;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.netxms.base.NXCPCodes;
+
+/**
+ * Snapshot of client session performance metrics: request latencies by command, network traffic, message wait queue and
+ * notification processing statistics. All values except queue sizes are cumulative since session creation.
+ * <p>
+ * Values can be exported to external metrics registries either by reading individual getters or via {@link #toMap()},
+ * which returns flat map of metric names to values.
+ */
+public class SessionMetrics
+{
+   /**
+    * Upper bounds (in milliseconds) of request latency histogram buckets. Last bucket (for requests longer than last bound)
+    * is implicit.
+    */
+   public static final long[] LATENCY_BUCKETS = { 1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000, 30000 };
+
+   private static Map<Integer, String> commandNames = null;
+
+   private final Map<Integer, CommandStatistics> commandStatistics;
+   private final long messagesSent;
+   private final long bytesSent;
+   private final long bytesSentUncompressed;
+   private final long messagesReceived;
+   private final long bytesReceived;
+   private final long bytesReceivedUncompressed;
+   private final int pendingRequests;
+   private final int waitQueueSize;
+   private final long waitQueueTimeouts;
+   private final long waitQueueExpiredMessages;
+   private final int notificationQueueSize;
+   private final long notificationsProcessed;
+   private final long notificationsDropped;
+   private final long listenerTime;
+   private final long maxListenerTime;
+   private final ObjectSyncStatistics objectSyncStatistics;
+
+   /**
+    * Request statistics for single command
+    */
+   public static class CommandStatistics
+   {
+      private final int command;
+      private final long count;
+      private final long errors;
+      private final long timeouts;
+      private final long totalTime;
+      private final long maxTime;
+      private final long[] histogram;
+
+      /**
+       * Create command statistics.
+       *
+       * @param command command code
+       * @param count number of completed requests
+       * @param errors number of requests completed with error
+       * @param timeouts number of requests that timed out or failed because of communication failure
+       * @param totalTime total time of completed requests in nanoseconds
+       * @param maxTime maximum request time in nanoseconds
+       * @param histogram latency histogram (number of requests in each bucket defined by LATENCY_BUCKETS, plus overflow bucket)
+       */
+      protected CommandStatistics(int command, long count, long errors, long timeouts, long totalTime, long maxTime, long[] histogram)
+      {
+         this.command = command;
+         this.count = count;
+         this.errors = errors;
+         this.timeouts = timeouts;
+         this.totalTime = totalTime;
+         this.maxTime = maxTime;
+         this.histogram = histogram;
+      }
+
+      /**
+       * Get command code.
+       *
+       * @return command code (one of NXCPCodes.CMD_* constants)
+       */
+      public int getCommand()
+      {
+         return command;
+      }
+
+      /**
+       * Get command name.
+       *
+       * @return command name
+       */
+      public String getCommandName()
+      {
+         return SessionMetrics.getCommandName(command);
+      }
+
+      /**
+       * Get number of completed requests (including requests completed with error, but not timed out ones).
+       *
+       * @return number of completed requests
+       */
+      public long getCount()
+      {
+         return count;
+      }
+
+      /**
+       * Get number of requests completed with error code.
+       *
+       * @return number of requests completed with error code
+       */
+      public long getErrors()
+      {
+         return errors;
+      }
+
+      /**
+       * Get number of requests that timed out or failed because of communication failure.
+       *
+       * @return number of timed out requests
+       */
+      public long getTimeouts()
+      {
+         return timeouts;
+      }
+
+      /**
+       * Get total time of completed requests.
+       *
+       * @return total time in nanoseconds
+       */
+      public long getTotalTime()
+      {
+         return totalTime;
+      }
+
+      /**
+       * Get average request time.
+       *
+       * @return average request time in milliseconds
+       */
+      public double getAverageTime()
+      {
+         return (count > 0) ? (double)totalTime / count / 1000000.0 : 0;
+      }
+
+      /**
+       * Get maximum request time.
+       *
+       * @return maximum request time in milliseconds
+       */
+      public double getMaxTime()
+      {
+         return maxTime / 1000000.0;
+      }
+
+      /**
+       * Get latency histogram. Element N contains number of requests completed within LATENCY_BUCKETS[N] milliseconds but
+       * slower than LATENCY_BUCKETS[N - 1]; last element contains number of requests slower than last bucket bound.
+       *
+       * @return latency histogram
+       */
+      public long[] getHistogram()
+      {
+         return Arrays.copyOf(histogram, histogram.length);
+      }
+
+      /**
+       * Estimate latency percentile from histogram. Returned value is upper bound of histogram bucket containing requested
+       * percentile (or maximum request time if it is in overflow bucket or is smaller than bucket bound).
+       *
+       * @param p percentile (0 .. 100)
+       * @return estimated latency in milliseconds
+       */
+      public double getPercentile(double p)
+      {
+         if (count == 0)
+            return 0;
+         long rank = (long)Math.ceil(p / 100.0 * count);
+         long sum = 0;
+         for(int i = 0; i < LATENCY_BUCKETS.length; i++)
+         {
+            sum += histogram[i];
+            if (sum >= rank)
+               return Math.min(LATENCY_BUCKETS[i], getMaxTime());
+         }
+         return getMaxTime();
+      }
+
+      /**
+       * @see java.lang.Object#toString()
+       */
+      @Override
+      public String toString()
+      {
+         return "CommandStatistics [command=" + getCommandName() + ", count=" + count + ", errors=" + errors + ", timeouts=" + timeouts +
+               ", averageTime=" + getAverageTime() + ", maxTime=" + getMaxTime() + "]";
+      }
+   }
+
+   /**
+    * Create metrics snapshot.
+    *
+    * @param commandStatistics per-command request statistics
+    * @param messagesSent number of messages sent
+    * @param bytesSent number of bytes sent over the network
+    * @param bytesSentUncompressed size of sent messages before compression and encryption
+    * @param messagesReceived number of messages received
+    * @param bytesReceived number of bytes received from the network
+    * @param bytesReceivedUncompressed size of received messages after decompression and decryption
+    * @param pendingRequests number of requests waiting for response
+    * @param waitQueueSize number of received messages in wait queue
+    * @param waitQueueTimeouts number of timed out waits on wait queue
+    * @param waitQueueExpiredMessages number of messages expired in wait queue
+    * @param notificationQueueSize number of notifications waiting for processing
+    * @param notificationsProcessed number of processed notifications
+    * @param notificationsDropped number of notifications dropped because of queue overflow
+    * @param listenerTime total time spent in notification listeners in nanoseconds
+    * @param maxListenerTime maximum time spent in notification listeners for single notification in nanoseconds
+    * @param objectSyncStatistics object synchronization statistics
+    */
+   protected SessionMetrics(Map<Integer, CommandStatistics> commandStatistics, long messagesSent, long bytesSent, long bytesSentUncompressed,
+         long messagesReceived, long bytesReceived, long bytesReceivedUncompressed, int pendingRequests, int waitQueueSize,
+         long waitQueueTimeouts, long waitQueueExpiredMessages, int notificationQueueSize, long notificationsProcessed,
+         long notificationsDropped, long listenerTime, long maxListenerTime, ObjectSyncStatistics objectSyncStatistics)
+   {
+      this.commandStatistics = Collections.unmodifiableMap(commandStatistics);
+      this.messagesSent = messagesSent;
+      this.bytesSent = bytesSent;
+      this.bytesSentUncompressed = bytesSentUncompressed;
+      this.messagesReceived = messagesReceived;
+      this.bytesReceived = bytesReceived;
+      this.bytesReceivedUncompressed = bytesReceivedUncompressed;
+      this.pendingRequests = pendingRequests;
+      this.waitQueueSize = waitQueueSize;
+      this.waitQueueTimeouts = waitQueueTimeouts;
+      this.waitQueueExpiredMessages = waitQueueExpiredMessages;
+      this.notificationQueueSize = notificationQueueSize;
+      this.notificationsProcessed = notificationsProcessed;
+      this.notificationsDropped = notificationsDropped;
+      this.listenerTime = listenerTime;
+      this.maxListenerTime = maxListenerTime;
+      this.objectSyncStatistics = objectSyncStatistics;
+   }
+
+   /**
+    * Get symbolic name for NXCP command code.
+    *
+    * @param command command code
+    * @return command name (name of corresponding NXCPCodes constant) or hexadecimal code if name is not known
+    */
+   public static String getCommandName(int command)
+   {
+      Map<Integer, String> names;
+      synchronized(SessionMetrics.class)
+      {
+         if (commandNames == null)
+         {
+            commandNames = new HashMap<Integer, String>();
+            for(Field f : NXCPCodes.class.getFields())
+            {
+               if (!f.getName().startsWith("CMD_") || !Modifier.isStatic(f.getModifiers()) || (f.getType() != int.class))
+                  continue;
+               try
+               {
+                  commandNames.putIfAbsent(f.getInt(null), f.getName());
+               }
+               catch(IllegalAccessException e)
+               {
+               }
+            }
+         }
+         names = commandNames;
+      }
+      String name = names.get(command);
+      return (name != null) ? name : String.format("0x%04X", command);
+   }
+
+   /**
+    * Get per-command request statistics.
+    *
+    * @return per-command request statistics (key is command code)
+    */
+   public Map<Integer, CommandStatistics> getCommandStatistics()
+   {
+      return commandStatistics;
+   }
+
+   /**
+    * Get total number of completed requests.
+    *
+    * @return total number of completed requests
+    */
+   public long getRequestCount()
+   {
+      long count = 0;
+      for(CommandStatistics s : commandStatistics.values())
+         count += s.count;
+      return count;
+   }
+
+   /**
+    * Get total number of requests completed with error.
+    *
+    * @return total number of requests completed with error
+    */
+   public long getRequestErrors()
+   {
+      long count = 0;
+      for(CommandStatistics s : commandStatistics.values())
+         count += s.errors;
+      return count;
+   }
+
+   /**
+    * Get total number of timed out requests.
+    *
+    * @return total number of timed out requests
+    */
+   public long getRequestTimeouts()
+   {
+      long count = 0;
+      for(CommandStatistics s : commandStatistics.values())
+         count += s.timeouts;
+      return count;
+   }
+
+   /**
+    * Get number of messages sent.
+    *
+    * @return number of messages sent
+    */
+   public long getMessagesSent()
+   {
+      return messagesSent;
+   }
+
+   /**
+    * Get number of bytes sent over the network (after compression and encryption).
+    *
+    * @return number of bytes sent
+    */
+   public long getBytesSent()
+   {
+      return bytesSent;
+   }
+
+   /**
+    * Get total size of sent messages before compression and encryption.
+    *
+    * @return total size of sent messages in bytes
+    */
+   public long getBytesSentUncompressed()
+   {
+      return bytesSentUncompressed;
+   }
+
+   /**
+    * Get number of messages received.
+    *
+    * @return number of messages received
+    */
+   public long getMessagesReceived()
+   {
+      return messagesReceived;
+   }
+
+   /**
+    * Get number of bytes received from the network (before decompression and decryption).
+    *
+    * @return number of bytes received
+    */
+   public long getBytesReceived()
+   {
+      return bytesReceived;
+   }
+
+   /**
+    * Get total size of received messages after decompression and decryption.
+    *
+    * @return total size of received messages in bytes
+    */
+   public long getBytesReceivedUncompressed()
+   {
+      return bytesReceivedUncompressed;
+   }
+
+   /**
+    * Get number of requests waiting for response.
+    *
+    * @return number of requests waiting for response
+    */
+   public int getPendingRequests()
+   {
+      return pendingRequests;
+   }
+
+   /**
+    * Get number of received messages waiting in message wait queue.
+    *
+    * @return number of messages in wait queue
+    */
+   public int getWaitQueueSize()
+   {
+      return waitQueueSize;
+   }
+
+   /**
+    * Get number of waits on message wait queue that ended with timeout.
+    *
+    * @return number of timed out waits
+    */
+   public long getWaitQueueTimeouts()
+   {
+      return waitQueueTimeouts;
+   }
+
+   /**
+    * Get number of messages that were discarded from wait queue because nobody claimed them.
+    *
+    * @return number of expired messages
+    */
+   public long getWaitQueueExpiredMessages()
+   {
+      return waitQueueExpiredMessages;
+   }
+
+   /**
+    * Get number of notifications waiting for processing.
+    *
+    * @return notification queue size
+    */
+   public int getNotificationQueueSize()
+   {
+      return notificationQueueSize;
+   }
+
+   /**
+    * Get number of notifications passed to listeners.
+    *
+    * @return number of processed notifications
+    */
+   public long getNotificationsProcessed()
+   {
+      return notificationsProcessed;
+   }
+
+   /**
+    * Get number of notifications dropped because notification queue was full.
+    *
+    * @return number of dropped notifications
+    */
+   public long getNotificationsDropped()
+   {
+      return notificationsDropped;
+   }
+
+   /**
+    * Get total time spent in notification listeners.
+    *
+    * @return total time in milliseconds
+    */
+   public double getListenerTime()
+   {
+      return listenerTime / 1000000.0;
+   }
+
+   /**
+    * Get average time spent in notification listeners per notification.
+    *
+    * @return average time in milliseconds
+    */
+   public double getAverageListenerTime()
+   {
+      return (notificationsProcessed > 0) ? (double)listenerTime / notificationsProcessed / 1000000.0 : 0;
+   }
+
+   /**
+    * Get maximum time spent in notification listeners for single notification.
+    *
+    * @return maximum time in milliseconds
+    */
+   public double getMaxListenerTime()
+   {
+      return maxListenerTime / 1000000.0;
+   }
+
+   /**
+    * Get object synchronization statistics.
+    *
+    * @return object synchronization statistics
+    */
+   public ObjectSyncStatistics getObjectSyncStatistics()
+   {
+      return objectSyncStatistics;
+   }
+
+   /**
+    * Get all metrics as flat map of metric names to values. Per-command metrics are named
+    * "requests.&lt;command name&gt;.&lt;metric&gt;".
+    *
+    * @return map of metric names to values
+    */
+   public Map<String, Number> toMap()
+   {
+      Map<String, Number> map = new LinkedHashMap<String, Number>();
+      map.put("requests.count", getRequestCount());
+      map.put("requests.errors", getRequestErrors());
+      map.put("requests.timeouts", getRequestTimeouts());
+      map.put("requests.pending", pendingRequests);
+      map.put("messages.sent", messagesSent);
+      map.put("messages.received", messagesReceived);
+      map.put("bytes.sent", bytesSent);
+      map.put("bytes.sent.uncompressed", bytesSentUncompressed);
+      map.put("bytes.received", bytesReceived);
+      map.put("bytes.received.uncompressed", bytesReceivedUncompressed);
+      map.put("waitQueue.size", waitQueueSize);
+      map.put("waitQueue.timeouts", waitQueueTimeouts);
+      map.put("waitQueue.expired", waitQueueExpiredMessages);
+      map.put("notifications.queueSize", notificationQueueSize);
+      map.put("notifications.processed", notificationsProcessed);
+      map.put("notifications.dropped", notificationsDropped);
+      map.put("notifications.listenerTime", getListenerTime());
+      map.put("notifications.maxListenerTime", getMaxListenerTime());
+      if (objectSyncStatistics != null)
+      {
+         map.put("objects.decoded", objectSyncStatistics.getObjectsDecoded());
+         map.put("objects.pendingUpdates", objectSyncStatistics.getPendingUpdates());
+         map.put("objects.lastSyncTime", objectSyncStatistics.getLastSyncTime());
+         map.put("objects.lastSyncObjects", objectSyncStatistics.getLastSyncObjects());
+      }
+      for(CommandStatistics s : commandStatistics.values())
+      {
+         String prefix = "requests." + s.getCommandName() + ".";
+         map.put(prefix + "count", s.count);
+         map.put(prefix + "errors", s.errors);
+         map.put(prefix + "timeouts", s.timeouts);
+         map.put(prefix + "averageTime", s.getAverageTime());
+         map.put(prefix + "maxTime", s.getMaxTime());
+         map.put(prefix + "p95", s.getPercentile(95));
+      }
+      return map;
+   }
+
+   /**
+    * @see java.lang.Object#toString()
+    */
+   @Override
+   public String toString()
+   {
+      return "SessionMetrics [requests=" + getRequestCount() + ", errors=" + getRequestErrors() + ", timeouts=" + getRequestTimeouts() +
+            ", messagesSent=" + messagesSent + ", bytesSent=" + bytesSent + ", bytesSentUncompressed=" + bytesSentUncompressed +
+            ", messagesReceived=" + messagesReceived + ", bytesReceived=" + bytesReceived + ", bytesReceivedUncompressed=" +
+            bytesReceivedUncompressed + ", waitQueueSize=" + waitQueueSize + ", notificationQueueSize=" + notificationQueueSize +
+            ", notificationsProcessed=" + notificationsProcessed + ", notificationsDropped=" + notificationsDropped + "]";
+   }
+}
@@ -0,0 +1,315 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2023 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.client;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import org.netxms.base.NXCPCodes;
+import org.netxms.base.NXCPMessage;
+import org.netxms.base.NXCPMsgWaitQueue;
+import org.netxms.client.constants.RCC;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Collector for client session performance metrics. Request latency is measured from sending request message to receiving
+ * first response with same message ID by one of waitForMessage calls.
+ */
+final class SessionMetricsCollector
+{
+   private static final Logger logger = LoggerFactory.getLogger(SessionMetricsCollector.class);
+
+   /**
+    * Number of pending requests that triggers cleanup of requests that will never receive response
+    */
+   private static final int PENDING_CLEANUP_THRESHOLD = 1024;
+
+   /**
+    * Age (in nanoseconds) of pending request that is considered abandoned
+    */
+   private static final long PENDING_REQUEST_MAX_AGE = TimeUnit.MINUTES.toNanos(10);
+
+   /**
+    * Request waiting for response
+    */
+   private static class PendingRequest
+   {
+      final int command;
+      final long startTime;
+      final long wallClockTime;
+      final int bytes;
+
+      PendingRequest(int command, int bytes)
+      {
+         this.command = command;
+         this.startTime = System.nanoTime();
+         this.wallClockTime = System.currentTimeMillis();
+         this.bytes = bytes;
+      }
+   }
+
+   /**
+    * Counters for single command
+    */
+   private static class CommandCounters
+   {
+      final LongAdder count = new LongAdder();
+      final LongAdder errors = new LongAdder();
+      final LongAdder timeouts = new LongAdder();
+      final LongAdder totalTime = new LongAdder();
+      final AtomicLong maxTime = new AtomicLong(0);
+      final AtomicLongArray histogram = new AtomicLongArray(SessionMetrics.LATENCY_BUCKETS.length + 1);
+
+      void update(long elapsed, boolean error)
+      {
+         count.increment();
+         if (error)
+            errors.increment();
+         totalTime.add(elapsed);
+         maxTime.accumulateAndGet(elapsed, Math::max);
+         long millis = TimeUnit.NANOSECONDS.toMillis(elapsed);
+         int bucket = 0;
+         while((bucket < SessionMetrics.LATENCY_BUCKETS.length) && (millis >= SessionMetrics.LATENCY_BUCKETS[bucket]))
+            bucket++;
+         histogram.incrementAndGet(bucket);
+      }
+   }
+
+   private final ConcurrentHashMap<Long, PendingRequest> pendingRequests = new ConcurrentHashMap<Long, PendingRequest>();
+   private final ConcurrentHashMap<Integer, CommandCounters> commandCounters = new ConcurrentHashMap<Integer, CommandCounters>();
+   private final LongAdder messagesSent = new LongAdder();
+   private final LongAdder bytesSent = new LongAdder();
+   private final LongAdder bytesSentUncompressed = new LongAdder();
+   private final LongAdder messagesReceived = new LongAdder();
+   private final LongAdder bytesReceived = new LongAdder();
+   private final LongAdder bytesReceivedUncompressed = new LongAdder();
+   private final LongAdder notificationsProcessed = new LongAdder();
+   private final LongAdder notificationsDropped = new LongAdder();
+   private final LongAdder listenerTime = new LongAdder();
+   private final AtomicLong maxListenerTime = new AtomicLong(0);
+   private final CopyOnWriteArrayList<RequestTraceListener> traceListeners = new CopyOnWriteArrayList<RequestTraceListener>();
+   private volatile long traceThreshold = 0;
+
+   /**
+    * Register message sent to server.
+    *
+    * @param msg message
+    * @param size size of message as sent over the network
+    */
+   void messageSent(NXCPMessage msg, int size)
+   {
+      messagesSent.increment();
+      bytesSent.add(size);
+      bytesSentUncompressed.add(msg.getEncodedSize());
+
+      // Responses to server requests and file data are not tracked as requests
+      int code = msg.getMessageCode();
+      if ((code == NXCPCodes.CMD_REQUEST_COMPLETED) || msg.isBinaryMessage() || msg.isControlMessage())
+         return;
+
+      pendingRequests.putIfAbsent(msg.getMessageId(), new PendingRequest(code, size));
+      if (pendingRequests.size() > PENDING_CLEANUP_THRESHOLD)
+         removeAbandonedRequests();
+   }
+
+   /**
+    * Remove requests that were not completed within reasonable time (usually messages that do not expect response).
+    */
+   private void removeAbandonedRequests()
+   {
+      long now = System.nanoTime();
+      Iterator<PendingRequest> it = pendingRequests.values().iterator();
+      while(it.hasNext())
+      {
+         if (now - it.next().startTime > PENDING_REQUEST_MAX_AGE)
+            it.remove();
+      }
+   }
+
+   /**
+    * Register message received from server.
+    *
+    * @param msg message
+    * @param size size of message as received from the network
+    */
+   void messageReceived(NXCPMessage msg, long size)
+   {
+      messagesReceived.increment();
+      bytesReceived.add(size);
+      bytesReceivedUncompressed.add(msg.getEncodedSize());
+   }
+
+   /**
+    * Register response for request with given ID.
+    *
+    * @param requestId request ID
+    * @param response response message
+    */
+   void responseReceived(long requestId, NXCPMessage response)
+   {
+      PendingRequest request = pendingRequests.remove(requestId);
+      if (request == null)
+         return;
+
+      long elapsed = System.nanoTime() - request.startTime;
+      int rcc = (response.getMessageCode() == NXCPCodes.CMD_REQUEST_COMPLETED) ? response.getFieldAsInt32(NXCPCodes.VID_RCC) : -1;
+      boolean error = (rcc > 0) && (rcc != RCC.FILE_APPEND_POSSIBLE);
+      getCounters(request.command).update(elapsed, error);
+      trace(requestId, request, elapsed, error ? RequestTrace.Status.ERROR : RequestTrace.Status.SUCCESS, response.getMessageCode(), rcc);
+   }
+
+   /**
+    * Register failed wait for response to request with given ID.
+    *
+    * @param requestId request ID
+    * @param commFailure true if wait failed because of communication failure
+    */
+   void requestFailed(long requestId, boolean commFailure)
+   {
+      PendingRequest request = pendingRequests.remove(requestId);
+      if (request == null)
+         return;
+
+      long elapsed = System.nanoTime() - request.startTime;
+      getCounters(request.command).timeouts.increment();
+      trace(requestId, request, elapsed, commFailure ? RequestTrace.Status.COMM_FAILURE : RequestTrace.Status.TIMEOUT, 0, -1);
+   }
+
+   /**
+    * Get counters for given command.
+    */
+   private CommandCounters getCounters(int command)
+   {
+      CommandCounters c = commandCounters.get(command);
+      if (c == null)
+      {
+         c = new CommandCounters();
+         CommandCounters prev = commandCounters.putIfAbsent(command, c);
+         if (prev != null)
+            c = prev;
+      }
+      return c;
+   }
+
+   /**
+    * Pass request trace to registered listeners.
+    */
+   private void trace(long requestId, PendingRequest request, long elapsed, RequestTrace.Status status, int responseCode, int rcc)
+   {
+      if (traceListeners.isEmpty() || (elapsed < traceThreshold))
+         return;
+
+      RequestTrace trace = new RequestTrace(requestId, request.command, request.wallClockTime, elapsed, request.bytes, status, responseCode, rcc);
+      for(RequestTraceListener l : traceListeners)
+      {
+         try
+         {
+            l.requestCompleted(trace);
+         }
+         catch(Exception e)
+         {
+            logger.error("Unhandled exception in request trace listener", e);
+         }
+      }
+   }
+
+   /**
+    * Register notification passed to listeners.
+    *
+    * @param elapsed time spent in listeners in nanoseconds
+    */
+   void notificationProcessed(long elapsed)
+   {
+      notificationsProcessed.increment();
+      listenerTime.add(elapsed);
+      maxListenerTime.accumulateAndGet(elapsed, Math::max);
+   }
+
+   /**
+    * Register notification dropped because of queue overflow.
+    */
+   void notificationDropped()
+   {
+      notificationsDropped.increment();
+   }
+
+   /**
+    * Add request trace listener.
+    *
+    * @param listener listener to add
+    */
+   void addTraceListener(RequestTraceListener listener)
+   {
+      traceListeners.addIfAbsent(listener);
+   }
+
+   /**
+    * Remove request trace listener.
+    *
+    * @param listener listener to remove
+    */
+   void removeTraceListener(RequestTraceListener listener)
+   {
+      traceListeners.remove(listener);
+   }
+
+   /**
+    * Set minimal request duration for passing request traces to listeners.
+    *
+    * @param threshold minimal request duration in milliseconds
+    */
+   void setTraceThreshold(int threshold)
+   {
+      traceThreshold = TimeUnit.MILLISECONDS.toNanos(threshold);
+   }
+
+   /**
+    * Create metrics snapshot.
+    *
+    * @param waitQueue message wait queue (can be null)
+    * @param notificationQueueSize current notification queue size
+    * @param objectSyncStatistics object synchronization statistics
+    * @return metrics snapshot
+    */
+   SessionMetrics createSnapshot(NXCPMsgWaitQueue waitQueue, int notificationQueueSize, ObjectSyncStatistics objectSyncStatistics)
+   {
+      Map<Integer, SessionMetrics.CommandStatistics> commands = new HashMap<Integer, SessionMetrics.CommandStatistics>();
+      for(Map.Entry<Integer, CommandCounters> e : commandCounters.entrySet())
+      {
+         CommandCounters c = e.getValue();
+         long[] histogram = new long[c.histogram.length()];
+         for(int i = 0; i < histogram.length; i++)
+            histogram[i] = c.histogram.get(i);
+         commands.put(e.getKey(), new SessionMetrics.CommandStatistics(e.getKey(), c.count.sum(), c.errors.sum(), c.timeouts.sum(),
+               c.totalTime.sum(), c.maxTime.get(), histogram));
+      }
+      return new SessionMetrics(commands, messagesSent.sum(), bytesSent.sum(), bytesSentUncompressed.sum(), messagesReceived.sum(),
+            bytesReceived.sum(), bytesReceivedUncompressed.sum(), pendingRequests.size(), (waitQueue != null) ? waitQueue.size() : 0,
+            (waitQueue != null) ? waitQueue.getTimeoutCount() : 0, (waitQueue != null) ? waitQueue.getExpiredMessageCount() : 0,
+            notificationQueueSize, notificationsProcessed.sum(), notificationsDropped.sum(), listenerTime.sum(), maxListenerTime.get(),
+            objectSyncStatistics);
+   }
+}
@@ -0,0 +1,232 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2023 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.client;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Exports metrics of client session as JMX MXBean. Metrics snapshot is taken at most once per second, so reading all
+ * attributes at once does not cause repeated snapshot creation.
+ */
+public class SessionMetricsExporter implements SessionMetricsMXBean
+{
+   private static final long SNAPSHOT_TTL = 1000;
+
+   private final NXCSession session;
+   private ObjectName objectName = null;
+   private SessionMetrics snapshot = null;
+   private long snapshotTime = 0;
+
+   /**
+    * Create exporter for given session.
+    *
+    * @param session client session
+    */
+   public SessionMetricsExporter(NXCSession session)
+   {
+      this.session = session;
+   }
+
+   /**
+    * Register exporter with platform MBean server under name "org.netxms.client:type=SessionMetrics,name=&lt;name&gt;".
+    *
+    * @param name session name (for example, user and server name)
+    * @return registered object name
+    * @throws JMException if registration fails
+    */
+   public synchronized ObjectName register(String name) throws JMException
+   {
+      if (objectName != null)
+         unregister();
+      ObjectName on = new ObjectName("org.netxms.client:type=SessionMetrics,name=" + ObjectName.quote(name));
+      ManagementFactory.getPlatformMBeanServer().registerMBean(this, on);
+      objectName = on;
+      return on;
+   }
+
+   /**
+    * Unregister exporter from platform MBean server. Does nothing if exporter is not registered.
+    *
+    * @throws JMException if unregistration fails
+    */
+   public synchronized void unregister() throws JMException
+   {
+      if (objectName == null)
+         return;
+      MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      if (server.isRegistered(objectName))
+         server.unregisterMBean(objectName);
+      objectName = null;
+   }
+
+   /**
+    * Get current metrics snapshot.
+    */
+   private synchronized SessionMetrics getSnapshot()
+   {
+      long now = System.currentTimeMillis();
+      if ((snapshot == null) || (now - snapshotTime >= SNAPSHOT_TTL))
+      {
+         snapshot = session.getMetrics();
+         snapshotTime = now;
+      }
+      return snapshot;
+   }
+
+   @Override
+   public long getRequestCount()
+   {
+      return getSnapshot().getRequestCount();
+   }
+
+   @Override
+   public long getRequestErrors()
+   {
+      return getSnapshot().getRequestErrors();
+   }
+
+   @Override
+   public long getRequestTimeouts()
+   {
+      return getSnapshot().getRequestTimeouts();
+   }
+
+   @Override
+   public int getPendingRequests()
+   {
+      return getSnapshot().getPendingRequests();
+   }
+
+   @Override
+   public long getMessagesSent()
+   {
+      return getSnapshot().getMessagesSent();
+   }
+
+   @Override
+   public long getBytesSent()
+   {
+      return getSnapshot().getBytesSent();
+   }
+
+   @Override
+   public long getBytesSentUncompressed()
+   {
+      return getSnapshot().getBytesSentUncompressed();
+   }
+
+   @Override
+   public long getMessagesReceived()
+   {
+      return getSnapshot().getMessagesReceived();
+   }
+
+   @Override
+   public long getBytesReceived()
+   {
+      return getSnapshot().getBytesReceived();
+   }
+
+   @Override
+   public long getBytesReceivedUncompressed()
+   {
+      return getSnapshot().getBytesReceivedUncompressed();
+   }
+
+   @Override
+   public int getWaitQueueSize()
+   {
+      return getSnapshot().getWaitQueueSize();
+   }
+
+   @Override
+   public long getWaitQueueTimeouts()
+   {
+      return getSnapshot().getWaitQueueTimeouts();
+   }
+
+   @Override
+   public int getNotificationQueueSize()
+   {
+      return getSnapshot().getNotificationQueueSize();
+   }
+
+   @Override
+   public long getNotificationsProcessed()
+   {
+      return getSnapshot().getNotificationsProcessed();
+   }
+
+   @Override
+   public long getNotificationsDropped()
+   {
+      return getSnapshot().getNotificationsDropped();
+   }
+
+   @Override
+   public double getAverageListenerTime()
+   {
+      return getSnapshot().getAverageListenerTime();
+   }
+
+   @Override
+   public double getMaxListenerTime()
+   {
+      return getSnapshot().getMaxListenerTime();
+   }
+
+   @Override
+   public long getLastObjectSyncTime()
+   {
+      ObjectSyncStatistics s = getSnapshot().getObjectSyncStatistics();
+      return (s != null) ? s.getLastSyncTime() : 0;
+   }
+
+   @Override
+   public Map<String, Long> getCommandCounts()
+   {
+      Map<String, Long> result = new HashMap<String, Long>();
+      for(SessionMetrics.CommandStatistics s : getSnapshot().getCommandStatistics().values())
+         result.put(s.getCommandName(), s.getCount());
+      return result;
+   }
+
+   @Override
+   public Map<String, Double> getCommandAverageTimes()
+   {
+      Map<String, Double> result = new HashMap<String, Double>();
+      for(SessionMetrics.CommandStatistics s : getSnapshot().getCommandStatistics().values())
+         result.put(s.getCommandName(), s.getAverageTime());
+      return result;
+   }
+
+   @Override
+   public Map<String, Double> getCommandP95Times()
+   {
+      Map<String, Double> result = new HashMap<String, Double>();
+      for(SessionMetrics.CommandStatistics s : getSnapshot().getCommandStatistics().values())
+         result.put(s.getCommandName(), s.getPercentile(95));
+      return result;
+   }
+}
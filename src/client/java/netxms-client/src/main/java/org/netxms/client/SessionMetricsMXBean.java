@@ -0,0 +1,69 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2023 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.client;
+
+import java.util.Map;
+
+/**
+ * JMX management interface for client session metrics
+ *
+ * @see SessionMetricsExporter
+ */
+public interface SessionMetricsMXBean
+{
+   public long getRequestCount();
+   public long getRequestErrors();
+   public long getRequestTimeouts();
+   public int getPendingRequests();
+   public long getMessagesSent();
+   public long getBytesSent();
+   public long getBytesSentUncompressed();
+   public long getMessagesReceived();
+   public long getBytesReceived();
+   public long getBytesReceivedUncompressed();
+   public int getWaitQueueSize();
+   public long getWaitQueueTimeouts();
+   public int getNotificationQueueSize();
+   public long getNotificationsProcessed();
+   public long getNotificationsDropped();
+   public double getAverageListenerTime();
+   public double getMaxListenerTime();
+   public long getLastObjectSyncTime();
+
+   /**
+    * Get number of completed requests by command name.
+    *
+    * @return number of completed requests by command name
+    */
+   public Map<String, Long> getCommandCounts();
+
+   /**
+    * Get average request time in milliseconds by command name.
+    *
+    * @return average request time by command name
+    */
+   public Map<String, Double> getCommandAverageTimes();
+
+   /**
+    * Get estimated 95th percentile of request time in milliseconds by command name.
+    *
+    * @return 95th percentile of request time by command name
+    */
+   public Map<String, Double> getCommandP95Times();
+}
@@ -0,0 +1,706 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2023 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.client;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import org.netxms.client.constants.UserAccessRights;
+import org.netxms.client.objects.AbstractObject;
+import org.netxms.client.objects.Node;
+import org.netxms.client.users.AbstractUserObject;
+import org.netxms.client.users.UserGroup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Object model shared by multiple client sessions connected to same server. Objects are synchronized once by privileged backend
+ * session, and each attached user session gets lightweight view of shared object instances, filtered by user's effective rights.
+ * Effective rights are always requested from server by user session itself, so server remains the only place where access
+ * lists are evaluated. Object change notifications received by backend session are passed to attached sessions which can see
+ * changed object.
+ * <p>
+ * Backend session should be logged in as user having read and modify access to all objects. Nodes are passed to users without
+ * modify access as separate instances with credentials masked.
+ * <p>
+ * Shared objects resolve their parents and children via backend session. Such lookups are redirected to user session view
+ * explicitly bound with {@link #bindView(NXCSession)} by code working on behalf of that user session. Lookups made without bound
+ * view do not see any objects and get no access rights. User session binds its own view while calling its notification
+ * listeners.
+ * <p>
+ * When rights have to be requested again (for new objects, or after change of attributes affecting access), requests are
+ * collected per view and sent from background thread after short delay, so bursts of changes result in single request.
+ * Affected objects are published to user session only after server reports rights to them. Model lock is never held while
+ * waiting for server response.
+ */
+public class SharedObjectModel
+{
+   private static Logger logger = LoggerFactory.getLogger(SharedObjectModel.class);
+
+   private static final int REFRESH_THREADS = 4;
+   private static final long REFRESH_DELAY = 200; // milliseconds
+
+   private final NXCSession backend;
+   private final Map<NXCSession, View> views = new ConcurrentHashMap<NXCSession, View>();
+   private final Map<Long, AbstractObject> restrictedObjects = new ConcurrentHashMap<Long, AbstractObject>();
+   private final Map<Long, AccessSignature> accessSignatures = new ConcurrentHashMap<Long, AccessSignature>();
+   private final SessionListener listener = (n) -> processNotification(n);
+   private final ThreadLocal<NXCSession> boundView = new ThreadLocal<NXCSession>();
+   private final ScheduledThreadPoolExecutor refreshExecutor;
+
+   /**
+    * Binding of user session view to current thread. Closing binding restores previous binding.
+    */
+   public final class ViewBinding implements AutoCloseable
+   {
+      private final NXCSession previous;
+
+      /**
+       * Create binding.
+       *
+       * @param previous previously bound session (can be null)
+       */
+      private ViewBinding(NXCSession previous)
+      {
+         this.previous = previous;
+      }
+
+      /**
+       * @see java.lang.AutoCloseable#close()
+       */
+      @Override
+      public void close()
+      {
+         if (previous != null)
+            boundView.set(previous);
+         else
+            boundView.remove();
+      }
+   }
+
+   /**
+    * Create shared object model.
+    *
+    * @param backend connected and logged in backend session
+    */
+   public SharedObjectModel(NXCSession backend)
+   {
+      this.backend = backend;
+      refreshExecutor = new ScheduledThreadPoolExecutor(REFRESH_THREADS, new ThreadFactory() {
+         @Override
+         public Thread newThread(Runnable r)
+         {
+            Thread t = new Thread(r, "Shared Object Model Rights Refresh");
+            t.setDaemon(true);
+            return t;
+         }
+      });
+      refreshExecutor.setKeepAliveTime(60, TimeUnit.SECONDS);
+      refreshExecutor.allowCoreThreadTimeOut(true);
+   }
+
+   /**
+    * Start model - synchronize user database and objects using backend session and subscribe to updates.
+    *
+    * @throws IOException if socket I/O error occurs
+    * @throws NXCException if NetXMS server returns an error or operation was timed out
+    */
+   public void start() throws IOException, NXCException
+   {
+      backend.setOwnedObjectModel(this);
+      backend.addListener(listener);
+      backend.syncUserDatabase();
+      backend.syncObjects();
+      initialize();
+   }
+
+   /**
+    * Initialize model from objects already present in backend session.
+    */
+   void initialize()
+   {
+      backend.setOwnedObjectModel(this);
+      for(AbstractObject object : backend.getAllObjects())
+         accessSignatures.put(object.getObjectId(), new AccessSignature(object));
+      logger.info("Shared object model started (" + accessSignatures.size() + " objects)");
+   }
+
+   /**
+    * Stop model. Attached sessions keep objects they already have but will not receive updates anymore.
+    */
+   public void stop()
+   {
+      backend.removeListener(listener);
+      backend.setOwnedObjectModel(null);
+      views.clear();
+      refreshExecutor.shutdownNow();
+   }
+
+   /**
+    * Get backend session.
+    *
+    * @return backend session
+    */
+   public NXCSession getBackendSession()
+   {
+      return backend;
+   }
+
+   /**
+    * Get number of attached sessions.
+    *
+    * @return number of attached sessions
+    */
+   public int getViewCount()
+   {
+      return views.size();
+   }
+
+   /**
+    * Attach user session to this model. Effective rights of session's user to all objects are requested from server via that
+    * session, and session's own object list is replaced by objects from shared model visible to session's user. Session will
+    * not synchronize objects with server by itself. Object changes received while rights are being requested are applied to
+    * the session after it is attached.
+    *
+    * @param session logged in user session
+    * @throws IOException if socket I/O error occurs
+    * @throws NXCException if NetXMS server returns an error or operation was timed out
+    */
+   public void attach(NXCSession session) throws IOException, NXCException
+   {
+      View view = new View(session.getUserId());
+      List<AbstractObject> allObjects;
+      synchronized(this)
+      {
+         view.groups = calculateGroupMembership(view.userId);
+         allObjects = backend.getAllObjects();
+         views.put(session, view); // changes from now on are queued in view until it is ready
+      }
+
+      try
+      {
+         requestRights(session, view, allObjects);
+      }
+      catch(IOException | NXCException | RuntimeException e)
+      {
+         views.remove(session, view);
+         throw e;
+      }
+
+      int count;
+      synchronized(this)
+      {
+         if (views.get(session) != view)
+            throw new IllegalStateException("Session was detached while being attached to shared object model");
+
+         List<AbstractObject> objects = new ArrayList<AbstractObject>();
+         for(AbstractObject object : allObjects)
+         {
+            if (!accessSignatures.containsKey(object.getObjectId()))
+               continue; // deleted while rights were requested
+            AbstractObject instance = getVisibleInstance(view, object);
+            if (instance != null)
+               objects.add(instance);
+         }
+         session.attachObjectModel(this, objects);
+         count = objects.size();
+         synchronized(view.pending)
+         {
+            view.ready = true;
+            if (!view.pending.isEmpty())
+               scheduleRefresh(session, view);
+         }
+      }
+      logger.debug("Session for user " + view.userId + " attached to shared object model (" + count + " objects visible)");
+   }
+
+   /**
+    * Detach user session from this model.
+    *
+    * @param session user session
+    */
+   public void detach(NXCSession session)
+   {
+      if (views.remove(session) != null)
+         logger.debug("Session for user " + session.getUserId() + " detached from shared object model");
+   }
+
+   /**
+    * Bind view of given user session to current thread. Until returned binding is closed, object lookups made by shared objects
+    * on current thread will be filtered by that session's view. Should be called by code which runs on behalf of given user
+    * session, typically at the beginning of background job created by that session.
+    *
+    * @param session user session attached to this model
+    * @return view binding
+    * @throws IllegalArgumentException if given session is not attached to this model
+    */
+   public ViewBinding bindView(NXCSession session)
+   {
+      ViewBinding binding = bindAttachedView(session);
+      if (binding == null)
+         throw new IllegalArgumentException("Session is not attached to shared object model");
+      return binding;
+   }
+
+   /**
+    * Bind view of given user session to current thread if that session is attached to this model.
+    *
+    * @param session user session
+    * @return view binding or null if given session is not attached to this model
+    */
+   ViewBinding bindAttachedView(NXCSession session)
+   {
+      if (!views.containsKey(session))
+         return null;
+      ViewBinding binding = new ViewBinding(boundView.get());
+      boundView.set(session);
+      return binding;
+   }
+
+   /**
+    * Get user session object lookups from backend session should be redirected to.
+    *
+    * @return user session or null if current thread has no bound view
+    */
+   NXCSession getCurrentView()
+   {
+      NXCSession session = boundView.get();
+      return ((session != null) && views.containsKey(session)) ? session : null;
+   }
+
+   /**
+    * Update node instance with masked credentials.
+    *
+    * @param object node instance with masked credentials
+    */
+   void updateRestrictedObject(AbstractObject object)
+   {
+      restrictedObjects.put(object.getObjectId(), object);
+   }
+
+   /**
+    * Process notification received by backend session.
+    *
+    * @param n notification
+    */
+   private void processNotification(SessionNotification n)
+   {
+      switch(n.getCode())
+      {
+         case SessionNotification.OBJECT_CHANGED:
+            onObjectChange((AbstractObject)n.getObject());
+            break;
+         case SessionNotification.OBJECT_DELETED:
+            onObjectDelete(n.getSubCode());
+            break;
+         case SessionNotification.USER_DB_CHANGED:
+            onUserDatabaseChange();
+            break;
+      }
+   }
+
+   /**
+    * Handle object change. If object is new or attributes affecting access rights were changed, rights to object and its
+    * descendants are requested from server again (asynchronously), and affected objects are published to user session when
+    * server responds. Otherwise object is published immediately.
+    *
+    * @param object changed object
+    */
+   synchronized void onObjectChange(AbstractObject object)
+   {
+      AccessSignature signature = new AccessSignature(object);
+      AccessSignature prevSignature = accessSignatures.put(object.getObjectId(), signature);
+      boolean accessChanged = (prevSignature != null) && !prevSignature.equals(signature);
+
+      List<AbstractObject> descendants = accessChanged ? getAllDescendants(object) : null;
+      for(Map.Entry<NXCSession, View> e : views.entrySet())
+      {
+         NXCSession session = e.getKey();
+         View view = e.getValue();
+         synchronized(view.pending)
+         {
+            if (accessChanged || !view.ready || !view.rights.containsKey(object.getObjectId()) || view.pending.containsKey(object.getObjectId()))
+            {
+               addPendingUpdate(view, object, true);
+               if (descendants != null)
+               {
+                  for(AbstractObject o : descendants)
+                     addPendingUpdate(view, o, false);
+               }
+               scheduleRefresh(session, view);
+               continue;
+            }
+         }
+         publish(session, view, object, true);
+      }
+   }
+
+   /**
+    * Add object to set of objects waiting for rights refresh in given view. Caller must hold lock on view's pending set.
+    *
+    * @param view view state
+    * @param object shared object
+    * @param changed true if object itself was changed
+    */
+   private static void addPendingUpdate(View view, AbstractObject object, boolean changed)
+   {
+      PendingUpdate prev = view.pending.get(object.getObjectId());
+      view.pending.put(object.getObjectId(), new PendingUpdate(object, changed || ((prev != null) && prev.changed)));
+   }
+
+   /**
+    * Schedule rights refresh for given view if it is ready and refresh is not scheduled yet. Caller must hold lock on view's
+    * pending set.
+    *
+    * @param session user session
+    * @param view view state
+    */
+   private void scheduleRefresh(NXCSession session, View view)
+   {
+      if (!view.ready || view.refreshScheduled)
+         return;
+      view.refreshScheduled = true;
+      try
+      {
+         refreshExecutor.schedule(() -> refreshView(session, view), REFRESH_DELAY, TimeUnit.MILLISECONDS);
+      }
+      catch(Exception e)
+      {
+         view.refreshScheduled = false;
+         logger.debug("Cannot schedule rights refresh for user " + view.userId + " (model stopped)");
+      }
+   }
+
+   /**
+    * Request rights to all objects waiting for rights refresh in given view from server and publish them to user session.
+    * Refreshes for same view never run concurrently. On failure rights to those objects are revoked.
+    *
+    * @param session user session
+    * @param view view state
+    */
+   private void refreshView(NXCSession session, View view)
+   {
+      synchronized(view.refreshLock)
+      {
+         List<PendingUpdate> updates;
+         synchronized(view.pending)
+         {
+            view.refreshScheduled = false;
+            if (view.pending.isEmpty())
+               return;
+            updates = new ArrayList<PendingUpdate>(view.pending.values());
+            view.pending.clear();
+         }
+
+         long[] idList = new long[updates.size()];
+         for(int i = 0; i < idList.length; i++)
+            idList[i] = updates.get(i).object.getObjectId();
+         int[] rights;
+         try
+         {
+            rights = session.getEffectiveRights(idList);
+         }
+         catch(Exception e)
+         {
+            logger.warn("Cannot get effective rights for user " + view.userId + " from server", e);
+            rights = null;
+         }
+
+         synchronized(this)
+         {
+            if (views.get(session) != view)
+               return; // detached while waiting for server
+            for(int i = 0; i < idList.length; i++)
+            {
+               if (rights != null)
+                  view.rights.put(idList[i], rights[i]);
+               else
+                  view.rights.remove(idList[i]);
+            }
+            for(PendingUpdate u : updates)
+            {
+               if (accessSignatures.containsKey(u.object.getObjectId())) // could be deleted while waiting for server
+                  publish(session, view, u.object, u.changed);
+            }
+         }
+      }
+   }
+
+   /**
+    * Run pending rights refresh for all views on calling thread and wait for its completion.
+    */
+   void flushPendingRefresh()
+   {
+      for(Map.Entry<NXCSession, View> e : views.entrySet())
+         refreshView(e.getKey(), e.getValue());
+   }
+
+   /**
+    * Handle object deletion.
+    *
+    * @param objectId deleted object ID
+    */
+   private synchronized void onObjectDelete(long objectId)
+   {
+      accessSignatures.remove(objectId);
+      restrictedObjects.remove(objectId);
+      for(Map.Entry<NXCSession, View> e : views.entrySet())
+      {
+         View view = e.getValue();
+         synchronized(view.pending)
+         {
+            view.pending.remove(objectId);
+         }
+         view.rights.remove(objectId);
+         e.getKey().removeSharedObject(objectId);
+      }
+   }
+
+   /**
+    * Handle user database change. Group membership is re-calculated for all views, and for views with changed membership rights
+    * to all objects are requested from server again (asynchronously).
+    */
+   private synchronized void onUserDatabaseChange()
+   {
+      List<AbstractObject> objects = null;
+      for(Map.Entry<NXCSession, View> e : views.entrySet())
+      {
+         View view = e.getValue();
+         Set<Long> groups = calculateGroupMembership(view.userId);
+         if (groups.equals(view.groups))
+            continue;
+
+         view.groups = groups;
+         if (objects == null)
+            objects = backend.getAllObjects();
+         synchronized(view.pending)
+         {
+            for(AbstractObject object : objects)
+               addPendingUpdate(view, object, false);
+            scheduleRefresh(e.getKey(), view);
+         }
+      }
+   }
+
+   /**
+    * Request effective rights of view's user to given objects from server. Rights are requested via user session, so they are
+    * calculated by server for that session's user.
+    *
+    * @param session user session
+    * @param view view state
+    * @param objects objects to get rights for
+    * @throws IOException if socket I/O error occurs
+    * @throws NXCException if NetXMS server returns an error or operation was timed out
+    */
+   private static void requestRights(NXCSession session, View view, List<AbstractObject> objects) throws IOException, NXCException
+   {
+      long[] idList = new long[objects.size()];
+      for(int i = 0; i < idList.length; i++)
+         idList[i] = objects.get(i).getObjectId();
+      int[] rights = session.getEffectiveRights(idList);
+      for(int i = 0; i < idList.length; i++)
+         view.rights.put(idList[i], rights[i]);
+   }
+
+   /**
+    * Publish object to user session if it is visible to session's user, or remove it from session otherwise.
+    *
+    * @param session user session
+    * @param view view state
+    * @param object shared object
+    * @param changed true if object itself was changed
+    */
+   private void publish(NXCSession session, View view, AbstractObject object, boolean changed)
+   {
+      AbstractObject instance = getVisibleInstance(view, object);
+      if (instance != null)
+      {
+         if (changed || (session.findLocalObjectById(object.getObjectId()) != instance))
+            session.updateSharedObject(instance);
+      }
+      else
+      {
+         session.removeSharedObject(object.getObjectId());
+      }
+   }
+
+   /**
+    * Get object instance visible to view's user.
+    *
+    * @param view view state
+    * @param object shared object
+    * @return object instance or null if object is not visible to view's user
+    */
+   private AbstractObject getVisibleInstance(View view, AbstractObject object)
+   {
+      Integer rights = view.rights.get(object.getObjectId());
+      if ((rights == null) || ((rights & UserAccessRights.OBJECT_ACCESS_READ) == 0))
+         return null;
+      if ((object instanceof Node) && ((rights & UserAccessRights.OBJECT_ACCESS_MODIFY) == 0))
+         return restrictedObjects.get(object.getObjectId()); // Do not expose node credentials even if masked copy is missing
+      return object;
+   }
+
+   /**
+    * Calculate set of groups given user is member of, directly or via nested groups. Used only to detect membership changes
+    * which require rights to be requested from server again.
+    *
+    * @param userId user ID
+    * @return set of group IDs
+    */
+   private Set<Long> calculateGroupMembership(long userId)
+   {
+      Set<Long> groups = new HashSet<Long>();
+      groups.add(AbstractUserObject.WELL_KNOWN_ID_EVERYONE);
+
+      AbstractUserObject[] userDatabase = backend.getUserDatabaseObjects();
+      if (userDatabase == null)
+         return groups;
+
+      boolean changed = true;
+      while(changed)
+      {
+         changed = false;
+         for(AbstractUserObject o : userDatabase)
+         {
+            if (!(o instanceof UserGroup) || o.isDisabled() || groups.contains(o.getId()))
+               continue;
+            for(long member : ((UserGroup)o).getMembers())
+            {
+               if ((member == userId) || groups.contains(member))
+               {
+                  groups.add(o.getId());
+                  changed = true;
+                  break;
+               }
+            }
+         }
+      }
+      return groups;
+   }
+
+   /**
+    * Get all descendants of given object.
+    *
+    * @param object root object
+    * @return list of all descendants
+    */
+   private List<AbstractObject> getAllDescendants(AbstractObject object)
+   {
+      List<AbstractObject> result = new ArrayList<AbstractObject>();
+      Set<Long> processed = new HashSet<Long>();
+      List<Long> queue = new ArrayList<Long>();
+      for(long id : object.getChildIdList())
+         queue.add(id);
+      while(!queue.isEmpty())
+      {
+         long id = queue.remove(queue.size() - 1);
+         if (!processed.add(id))
+            continue;
+         AbstractObject child = backend.findLocalObjectById(id);
+         if (child == null)
+            continue;
+         result.add(child);
+         for(long c : child.getChildIdList())
+            queue.add(c);
+      }
+      return result;
+   }
+
+   /**
+    * State of user session view
+    */
+   private static class View
+   {
+      final long userId;
+      final Map<Long, Integer> rights = new ConcurrentHashMap<Long, Integer>();
+      volatile Set<Long> groups = Collections.emptySet();
+      final Map<Long, PendingUpdate> pending = new LinkedHashMap<Long, PendingUpdate>(); // guarded by itself
+      boolean ready = false;
+      boolean refreshScheduled = false;
+      final Object refreshLock = new Object();
+
+      View(long userId)
+      {
+         this.userId = userId;
+      }
+   }
+
+   /**
+    * Object waiting for rights refresh
+    */
+   private static class PendingUpdate
+   {
+      final AbstractObject object;
+      final boolean changed;
+
+      PendingUpdate(AbstractObject object, boolean changed)
+      {
+         this.object = object;
+         this.changed = changed;
+      }
+   }
+
+   /**
+    * Object attributes affecting effective rights
+    */
+   private static class AccessSignature
+   {
+      private final boolean inheritAccessRights;
+      private final long[] accessList;
+      private final long[] parents;
+
+      AccessSignature(AbstractObject object)
+      {
+         inheritAccessRights = object.isInheritAccessRights();
+         AccessListElement[] acl = object.getAccessList();
+         accessList = new long[acl.length];
+         for(int i = 0; i < acl.length; i++)
+            accessList[i] = (acl[i].getUserId() << 32) | (acl[i].getAccessRights() & 0xFFFFFFFFL);
+         Arrays.sort(accessList);
+         parents = object.getParentIdList();
+         Arrays.sort(parents);
+      }
+
+      @Override
+      public boolean equals(Object obj)
+      {
+         if (!(obj instanceof AccessSignature))
+            return false;
+         AccessSignature s = (AccessSignature)obj;
+         return (inheritAccessRights == s.inheritAccessRights) && Arrays.equals(accessList, s.accessList) && Arrays.equals(parents, s.parents);
+      }
+
+      @Override
+      public int hashCode()
+      {
+         return Arrays.hashCode(accessList) * 31 + Arrays.hashCode(parents) + (inheritAccessRights ? 1 : 0);
+      }
+   }
+}
@@ -80,6 +80,16 @@ public boolean isSigned()
       return (this == INT32) || (this == INT64) || (this == FLOAT);
    }
 
+   /**
+    * Returns true if this type is numeric
+    * 
+    * @return true if this type is numeric
+    */
+   public boolean isNumeric()
+   {
+      return (this != STRING) && (this != NULL);
+   }
+
    /**
     * Returns true if this type is 64 bit
     * 
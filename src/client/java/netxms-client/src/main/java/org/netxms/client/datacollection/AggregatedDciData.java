@@ -0,0 +1,401 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2023 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.client.datacollection;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.Set;
+import org.netxms.base.NXCPDataInputStream;
+import org.netxms.client.constants.AggregationFunction;
+import org.netxms.client.constants.DataType;
+
+/**
+ * Collected DCI data aggregated into fixed width time buckets. Buckets are aligned to multiples of bucket width since
+ * epoch and stored in ascending time order. Only buckets containing at least one value are present. Series are kept
+ * in primitive arrays to avoid per-point object allocation for long time ranges.
+ */
+public class AggregatedDciData
+{
+   private final long nodeId;
+   private final long dciId;
+   private final int interval;
+   private final Set<AggregationFunction> functions;
+   private DataType dataType;
+   private long[] timestamps;
+   private int[] counts;
+   private double[][] values;
+
+   /**
+    * Create aggregated data from raw message CMD_DCI_DATA sent by server in response to aggregated data request.
+    *
+    * @param nodeId node ID
+    * @param dciId DCI ID
+    * @param interval bucket width in seconds
+    * @param functions set of aggregation functions
+    * @param input raw message data
+    * @throws IOException if message data is malformed
+    */
+   public AggregatedDciData(long nodeId, long dciId, int interval, Set<AggregationFunction> functions, byte[] input) throws IOException
+   {
+      this.nodeId = nodeId;
+      this.dciId = dciId;
+      this.interval = interval;
+      this.functions = EnumSet.copyOf(functions);
+
+      final NXCPDataInputStream in = new NXCPDataInputStream(input);
+      try
+      {
+         in.skipBytes(4); // DCI ID
+         int rows = in.readInt();
+         dataType = DataType.getByValue(in.readInt());
+         in.skipBytes(4); // function set
+         allocate(rows);
+
+         // Server sends buckets in descending time order
+         for(int i = rows - 1; i >= 0; i--)
+         {
+            timestamps[i] = in.readUnsignedInt() * 1000L;
+            counts[i] = in.readInt();
+            for(AggregationFunction f : AggregationFunction.values())
+            {
+               if (values[f.getValue()] != null)
+                  values[f.getValue()][i] = in.readDouble();
+            }
+         }
+      }
+      finally
+      {
+         in.close();
+      }
+   }
+
+   /**
+    * Create aggregated data from raw DCI data. Used when server does not support aggregation.
+    *
+    * @param data raw DCI data (in any order)
+    * @param interval bucket width in seconds
+    * @param functions set of aggregation functions
+    * @param useRawValues if true, raw values will be aggregated instead of processed values
+    */
+   public AggregatedDciData(DciData data, int interval, Set<AggregationFunction> functions, boolean useRawValues)
+   {
+      this.nodeId = data.getNodeId();
+      this.dciId = data.getDciId();
+      this.interval = interval;
+      this.functions = EnumSet.copyOf(functions);
+      this.dataType = data.getDataType();
+
+      DciDataRow[] rows = data.getValues();
+      long[] rowTimestamps = new long[rows.length];
+      double[] rowValues = new double[rows.length];
+      Integer[] order = new Integer[rows.length];
+      for(int i = 0; i < rows.length; i++)
+      {
+         rowTimestamps[i] = rows[i].getTimestamp().getTime();
+         rowValues[i] = useRawValues ? rows[i].getRawValueAsDouble() : rows[i].getValueAsDouble();
+         order[i] = i;
+      }
+      Arrays.sort(order, (a, b) -> Long.compare(rowTimestamps[a], rowTimestamps[b]));
+
+      int buckets = 0;
+      long currentBucket = Long.MIN_VALUE;
+      for(int i : order)
+      {
+         long bucket = getBucketStart(rowTimestamps[i]);
+         if (bucket != currentBucket)
+         {
+            buckets++;
+            currentBucket = bucket;
+         }
+      }
+
+      allocate(buckets);
+      int index = -1;
+      currentBucket = Long.MIN_VALUE;
+      double sum = 0;
+      for(int i : order)
+      {
+         long bucket = getBucketStart(rowTimestamps[i]);
+         double v = rowValues[i];
+         if (bucket != currentBucket)
+         {
+            if (index >= 0)
+               finishBucket(index, sum);
+            index++;
+            currentBucket = bucket;
+            timestamps[index] = bucket;
+            sum = 0;
+            setValue(AggregationFunction.MIN, index, v);
+            setValue(AggregationFunction.MAX, index, v);
+         }
+         else
+         {
+            if ((values[AggregationFunction.MIN.getValue()] != null) && (v < values[AggregationFunction.MIN.getValue()][index]))
+               values[AggregationFunction.MIN.getValue()][index] = v;
+            if ((values[AggregationFunction.MAX.getValue()] != null) && (v > values[AggregationFunction.MAX.getValue()][index]))
+               values[AggregationFunction.MAX.getValue()][index] = v;
+         }
+         counts[index]++;
+         sum += v;
+         setValue(AggregationFunction.LAST, index, v);
+      }
+      if (index >= 0)
+         finishBucket(index, sum);
+   }
+
+   /**
+    * Get start time of bucket containing given timestamp.
+    *
+    * @param timestamp timestamp in milliseconds
+    * @return bucket start time in milliseconds
+    */
+   private long getBucketStart(long timestamp)
+   {
+      long seconds = Math.floorDiv(timestamp, 1000L);
+      return (seconds - Math.floorMod(seconds, (long)interval)) * 1000L;
+   }
+
+   /**
+    * Allocate arrays for given number of buckets.
+    *
+    * @param size number of buckets
+    */
+   private void allocate(int size)
+   {
+      timestamps = new long[size];
+      counts = new int[size];
+      values = new double[AggregationFunction.values().length][];
+      for(AggregationFunction f : functions)
+         values[f.getValue()] = new double[size];
+   }
+
+   /**
+    * Set value for given function if that function was requested.
+    *
+    * @param f aggregation function
+    * @param index bucket index
+    * @param v value
+    */
+   private void setValue(AggregationFunction f, int index, double v)
+   {
+      if (values[f.getValue()] != null)
+         values[f.getValue()][index] = v;
+   }
+
+   /**
+    * Calculate sum and average for completed bucket.
+    *
+    * @param index bucket index
+    * @param sum sum of all values in bucket
+    */
+   private void finishBucket(int index, double sum)
+   {
+      setValue(AggregationFunction.SUM, index, sum);
+      setValue(AggregationFunction.AVERAGE, index, sum / counts[index]);
+   }
+
+   /**
+    * Calculate bucket width for displaying given time range with given number of points. Returned width is never less
+    * than one second.
+    *
+    * @param from start of time range (can be null)
+    * @param to end of time range (can be null)
+    * @param points desired number of points
+    * @return bucket width in seconds
+    */
+   public static int calculateInterval(Date from, Date to, int points)
+   {
+      if ((from == null) || (to == null))
+         return 1;
+      long range = (to.getTime() - from.getTime()) / 1000L;
+      if ((points <= 0) || (range <= points))
+         return 1;
+      long interval = (range + points - 1) / points;
+      return (interval > Integer.MAX_VALUE) ? Integer.MAX_VALUE : (int)interval;
+   }
+
+   /**
+    * Convert series for given aggregation function into DCI data set with rows in newest to oldest order (as returned by
+    * {@link org.netxms.client.NXCSession#getCollectedData(long, long, Date, Date, int, org.netxms.client.constants.HistoricalDataType)}).
+    * Each row has bucket start time as timestamp.
+    *
+    * @param function aggregation function
+    * @return DCI data set
+    * @throws IllegalArgumentException if given function was not requested
+    */
+   public DciData toDciData(AggregationFunction function)
+   {
+      double[] series = getValues(function);
+      if (series == null)
+         throw new IllegalArgumentException("Aggregation function " + function + " was not requested");
+      DciData data = new DciData(nodeId, dciId);
+      data.setDataType(DataType.FLOAT);
+      for(int i = timestamps.length - 1; i >= 0; i--)
+         data.addDataRow(new DciDataRow(new Date(timestamps[i]), Double.valueOf(series[i])));
+      return data;
+   }
+
+   /**
+    * Convert minimum, average, and maximum series into single DCI data set for line charts, with rows in newest to oldest
+    * order. Bucket with single distinct value produces one row at bucket start. Other buckets produce three rows spread
+    * within the bucket: one extreme, average, and another extreme, ordered so that line continues from the nearest extreme
+    * of previous bucket. This way short spikes remain visible on chart while average trend is preserved.
+    *
+    * @return DCI data set
+    * @throws IllegalArgumentException if any of MIN, MAX, or AVERAGE functions was not requested
+    */
+   public DciData toChartDciData()
+   {
+      double[] min = getValues(AggregationFunction.MIN);
+      double[] max = getValues(AggregationFunction.MAX);
+      double[] avg = getValues(AggregationFunction.AVERAGE);
+      if ((min == null) || (max == null) || (avg == null))
+         throw new IllegalArgumentException("Aggregation functions MIN, MAX, and AVERAGE are required");
+
+      long[] rowTimestamps = new long[timestamps.length * 3];
+      double[] rowValues = new double[timestamps.length * 3];
+      int count = 0;
+      long step = interval * 1000L / 3;
+      for(int i = 0; i < timestamps.length; i++)
+      {
+         if (min[i] == max[i])
+         {
+            rowTimestamps[count] = timestamps[i];
+            rowValues[count++] = avg[i];
+            continue;
+         }
+
+         boolean fromMax = (count > 0) && (Math.abs(rowValues[count - 1] - max[i]) < Math.abs(rowValues[count - 1] - min[i]));
+         rowTimestamps[count] = timestamps[i];
+         rowValues[count++] = fromMax ? max[i] : min[i];
+         rowTimestamps[count] = timestamps[i] + step;
+         rowValues[count++] = avg[i];
+         rowTimestamps[count] = timestamps[i] + step * 2;
+         rowValues[count++] = fromMax ? min[i] : max[i];
+      }
+
+      DciData data = new DciData(nodeId, dciId);
+      data.setDataType(DataType.FLOAT);
+      for(int i = count - 1; i >= 0; i--)
+         data.addDataRow(new DciDataRow(new Date(rowTimestamps[i]), Double.valueOf(rowValues[i])));
+      return data;
+   }
+
+   /**
+    * Get node ID.
+    *
+    * @return node ID
+    */
+   public long getNodeId()
+   {
+      return nodeId;
+   }
+
+   /**
+    * Get DCI ID.
+    *
+    * @return DCI ID
+    */
+   public long getDciId()
+   {
+      return dciId;
+   }
+
+   /**
+    * Get bucket width.
+    *
+    * @return bucket width in seconds
+    */
+   public int getInterval()
+   {
+      return interval;
+   }
+
+   /**
+    * Get set of aggregation functions.
+    *
+    * @return set of aggregation functions
+    */
+   public Set<AggregationFunction> getFunctions()
+   {
+      return functions;
+   }
+
+   /**
+    * Get data type of source DCI.
+    *
+    * @return data type of source DCI
+    */
+   public DataType getDataType()
+   {
+      return dataType;
+   }
+
+   /**
+    * Get number of buckets.
+    *
+    * @return number of buckets
+    */
+   public int size()
+   {
+      return timestamps.length;
+   }
+
+   /**
+    * Get bucket start times (milliseconds since epoch, ascending).
+    *
+    * @return bucket start times
+    */
+   public long[] getTimestamps()
+   {
+      return timestamps;
+   }
+
+   /**
+    * Get number of collected values in each bucket.
+    *
+    * @return number of collected values in each bucket
+    */
+   public int[] getCounts()
+   {
+      return counts;
+   }
+
+   /**
+    * Get series for given aggregation function.
+    *
+    * @param function aggregation function
+    * @return series for given aggregation function or null if that function was not requested
+    */
+   public double[] getValues(AggregationFunction function)
+   {
+      return values[function.getValue()];
+   }
+
+   /**
+    * @see java.lang.Object#toString()
+    */
+   @Override
+   public String toString()
+   {
+      return "AggregatedDciData [nodeId=" + nodeId + ", dciId=" + dciId + ", interval=" + interval + ", functions=" + functions + ", dataType=" + dataType + ", size=" + timestamps.length + "]";
+   }
+}
@@ -263,7 +263,7 @@ public ChartConfiguration(ChartConfiguration src)
 	 */
 	public String createXml() throws Exception
 	{
-		Serializer serializer = XMLTools.createSerializer();
+		Serializer serializer = XMLTools.getSerializer();
 		Writer writer = new StringWriter();
 		serializer.write(this, writer);
 		return writer.toString();
@@ -0,0 +1,99 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2023 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.client.datacollection;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import org.netxms.base.NXCPCodes;
+import org.netxms.base.NXCPMessage;
+
+/**
+ * Result of "changed since" last values request. Contains either full set of DCI values (if full update was requested or
+ * server does not support change cursors) or only values changed since given time together with list of IDs of all DCIs
+ * currently matching request filter.
+ */
+public class LastValuesChangeSet
+{
+   private final List<DciValue> values;
+   private final long[] dciList;
+   private final Date timestamp;
+
+   /**
+    * Create change set from server response.
+    *
+    * @param msg NXCP message
+    * @param incremental true if incremental update was requested
+    */
+   public LastValuesChangeSet(NXCPMessage msg, boolean incremental)
+   {
+      int count = msg.getFieldAsInt32(NXCPCodes.VID_NUM_ITEMS);
+      values = new ArrayList<DciValue>(count);
+      long fieldId = NXCPCodes.VID_DCI_VALUES_BASE;
+      for(int i = 0; i < count; i++, fieldId += 50)
+      {
+         DciValue v = DciValue.createFromMessage(msg, fieldId);
+         if (v != null)
+            values.add(v);
+      }
+      dciList = incremental ? msg.getFieldAsUInt32Array(NXCPCodes.VID_DCI_LIST) : null;
+      timestamp = msg.isFieldPresent(NXCPCodes.VID_TIMESTAMP) ? msg.getFieldAsDate(NXCPCodes.VID_TIMESTAMP) : null;
+   }
+
+   /**
+    * Check if this change set contains full set of values.
+    *
+    * @return true if this change set contains full set of values
+    */
+   public boolean isFullUpdate()
+   {
+      return dciList == null;
+   }
+
+   /**
+    * Get DCI values. For incremental update only changed values are returned.
+    *
+    * @return DCI values
+    */
+   public List<DciValue> getValues()
+   {
+      return values;
+   }
+
+   /**
+    * Get IDs of all DCIs matching request filter. Any DCI not in this list should be considered deleted. Only available for
+    * incremental update.
+    *
+    * @return IDs of all DCIs matching request filter or null for full update
+    */
+   public long[] getDciList()
+   {
+      return dciList;
+   }
+
+   /**
+    * Get change cursor for next incremental request (server time when this change set was created).
+    *
+    * @return change cursor or null if server does not support incremental updates
+    */
+   public Date getTimestamp()
+   {
+      return timestamp;
+   }
+}
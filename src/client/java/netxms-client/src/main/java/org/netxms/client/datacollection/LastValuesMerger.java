@@ -0,0 +1,312 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2023 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.client.datacollection;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import org.netxms.client.NXCException;
+import org.netxms.client.NXCSession;
+
+/**
+ * Keeps set of last DCI values for single node current using incremental ("changed since") requests. First update
+ * retrieves full set of values, subsequent updates retrieve only values changed since previous update. Unchanged DCI
+ * values keep their identity, so views can update only changed elements.
+ */
+public class LastValuesMerger
+{
+   private final long nodeId;
+   private final boolean objectTooltipOnly;
+   private final boolean overviewOnly;
+   private final boolean includeNoValueObjects;
+   private final Map<Long, DciValue> values = new LinkedHashMap<Long, DciValue>();
+   private final Object updateLock = new Object();
+   private Date cursor = null;
+
+   /**
+    * Create merger for all DCIs with values on given node.
+    *
+    * @param nodeId node object ID
+    */
+   public LastValuesMerger(long nodeId)
+   {
+      this(nodeId, false, false, false);
+   }
+
+   /**
+    * Create merger for given node. Filter options have same meaning as in
+    * {@link NXCSession#getLastValues(long, boolean, boolean, boolean)}.
+    *
+    * @param nodeId node object ID
+    * @param objectTooltipOnly if set to true, only DCIs with DCF_SHOW_ON_OBJECT_TOOLTIP flag set are included
+    * @param overviewOnly if set to true, only DCIs with DCF_SHOW_IN_OBJECT_OVERVIEW flag set are included
+    * @param includeNoValueObjects if set to true, objects with no value (like instance discovery DCIs) are included as well
+    */
+   public LastValuesMerger(long nodeId, boolean objectTooltipOnly, boolean overviewOnly, boolean includeNoValueObjects)
+   {
+      this.nodeId = nodeId;
+      this.objectTooltipOnly = objectTooltipOnly;
+      this.overviewOnly = overviewOnly;
+      this.includeNoValueObjects = includeNoValueObjects;
+   }
+
+   /**
+    * Request changes from server and merge them into current value set. Concurrent calls are serialized.
+    *
+    * @param session client session
+    * @return changes applied to value set
+    * @throws IOException if socket I/O error occurs
+    * @throws NXCException if NetXMS server returns an error or operation was timed out
+    */
+   public Changes update(NXCSession session) throws IOException, NXCException
+   {
+      synchronized(updateLock)
+      {
+         Date since;
+         synchronized(values)
+         {
+            since = cursor;
+         }
+         return merge(session.getLastValues(nodeId, objectTooltipOnly, overviewOnly, includeNoValueObjects, since));
+      }
+   }
+
+   /**
+    * Merge change set into current value set.
+    *
+    * @param changeSet change set received from server
+    * @return changes applied to value set
+    */
+   public Changes merge(LastValuesChangeSet changeSet)
+   {
+      Changes changes = new Changes(changeSet.isFullUpdate());
+      synchronized(values)
+      {
+         Set<Long> validIds = new HashSet<Long>();
+         if (changeSet.isFullUpdate())
+         {
+            for(DciValue v : changeSet.getValues())
+               validIds.add(v.getId());
+         }
+         else
+         {
+            for(long id : changeSet.getDciList())
+               validIds.add(id);
+         }
+
+         Iterator<DciValue> it = values.values().iterator();
+         while(it.hasNext())
+         {
+            DciValue v = it.next();
+            if (!validIds.contains(v.getId()))
+            {
+               it.remove();
+               changes.removed.add(v);
+            }
+         }
+
+         for(DciValue v : changeSet.getValues())
+         {
+            if (!validIds.contains(v.getId()))
+               continue; // DCI was deleted while response was prepared
+            DciValue prev = values.get(v.getId());
+            if (prev == null)
+            {
+               values.put(v.getId(), v);
+               changes.added.add(v);
+            }
+            else if (!isSameState(prev, v))
+            {
+               values.put(v.getId(), v);
+               changes.updated.add(v);
+            }
+         }
+
+         cursor = changeSet.getTimestamp();
+      }
+      return changes;
+   }
+
+   /**
+    * Check if two values of same DCI represent same state.
+    *
+    * @param v1 first value
+    * @param v2 second value
+    * @return true if values represent same state
+    */
+   private static boolean isSameState(DciValue v1, DciValue v2)
+   {
+      return Objects.equals(v1.getTimestamp(), v2.getTimestamp()) && Objects.equals(v1.getValue(), v2.getValue()) &&
+            (v1.getStatus() == v2.getStatus()) && (v1.getErrorCount() == v2.getErrorCount()) && (v1.getFlags() == v2.getFlags()) &&
+            (v1.getThresholdSeverity() == v2.getThresholdSeverity()) && (v1.getMultiplier() == v2.getMultiplier()) &&
+            Objects.equals(v1.getName(), v2.getName()) && Objects.equals(v1.getDescription(), v2.getDescription()) &&
+            Objects.equals(v1.getComments(), v2.getComments());
+   }
+
+   /**
+    * Reset merger state. Next update will retrieve full set of values.
+    */
+   public void reset()
+   {
+      synchronized(values)
+      {
+         values.clear();
+         cursor = null;
+      }
+   }
+
+   /**
+    * Get current DCI values.
+    *
+    * @return current DCI values
+    */
+   public DciValue[] getValues()
+   {
+      synchronized(values)
+      {
+         return values.values().toArray(new DciValue[values.size()]);
+      }
+   }
+
+   /**
+    * Get current value of given DCI.
+    *
+    * @param dciId DCI ID
+    * @return current DCI value or null if DCI is not known
+    */
+   public DciValue getValue(long dciId)
+   {
+      synchronized(values)
+      {
+         return values.get(dciId);
+      }
+   }
+
+   /**
+    * Get change cursor that will be used for next update.
+    *
+    * @return change cursor or null if next update will retrieve full set of values
+    */
+   public Date getCursor()
+   {
+      synchronized(values)
+      {
+         return cursor;
+      }
+   }
+
+   /**
+    * Get node ID.
+    *
+    * @return node ID
+    */
+   public long getNodeId()
+   {
+      return nodeId;
+   }
+
+   /**
+    * Changes applied to value set by single update
+    */
+   public static class Changes
+   {
+      private final boolean fullUpdate;
+      private final List<DciValue> added = new ArrayList<DciValue>(0);
+      private final List<DciValue> updated = new ArrayList<DciValue>(0);
+      private final List<DciValue> removed = new ArrayList<DciValue>(0);
+
+      /**
+       * Create empty change list.
+       *
+       * @param fullUpdate true if changes were calculated from full value set
+       */
+      protected Changes(boolean fullUpdate)
+      {
+         this.fullUpdate = fullUpdate;
+      }
+
+      /**
+       * Check if changes were calculated from full value set received from server.
+       *
+       * @return true if changes were calculated from full value set
+       */
+      public boolean isFullUpdate()
+      {
+         return fullUpdate;
+      }
+
+      /**
+       * Check if there are no changes.
+       *
+       * @return true if there are no changes
+       */
+      public boolean isEmpty()
+      {
+         return added.isEmpty() && updated.isEmpty() && removed.isEmpty();
+      }
+
+      /**
+       * Check if set of DCIs was changed (some DCIs were added or removed).
+       *
+       * @return true if set of DCIs was changed
+       */
+      public boolean isStructureChanged()
+      {
+         return !added.isEmpty() || !removed.isEmpty();
+      }
+
+      /**
+       * Get values for new DCIs.
+       *
+       * @return values for new DCIs
+       */
+      public List<DciValue> getAddedValues()
+      {
+         return Collections.unmodifiableList(added);
+      }
+
+      /**
+       * Get new values for existing DCIs.
+       *
+       * @return new values for existing DCIs
+       */
+      public List<DciValue> getUpdatedValues()
+      {
+         return Collections.unmodifiableList(updated);
+      }
+
+      /**
+       * Get last known values of removed DCIs.
+       *
+       * @return last known values of removed DCIs
+       */
+      public List<DciValue> getRemovedValues()
+      {
+         return Collections.unmodifiableList(removed);
+      }
+   }
+}
@@ -72,7 +72,8 @@
    private int colorSource;
    private int color;
    private String colorProvider;
-   private LinkConfig config = new LinkConfig();
+   private volatile LinkConfig config;
+   private String configXml = null;
    private int flags;
    private int duplicateCount = 0;
    private int position = 0;
@@ -104,6 +105,7 @@ public NetworkMapLink(long id, String name, int type, long element1, long elemen
       this.colorSource = COLOR_SOURCE_DEFAULT;
       this.color = 0;
       this.colorProvider = null;
+      config = new LinkConfig();
       config.setDciList(dciList);
    }
 
@@ -157,16 +159,42 @@ public NetworkMapLink(NXCPMessage msg, long baseId)
       color = msg.getFieldAsInt32(baseId + 9);
       colorProvider = msg.getFieldAsString(baseId + 10);
 
+      // Link configuration is parsed on first access
       String xml = msg.getFieldAsString(baseId + 11);
-      try
-      {
-         config = ((xml != null) && !xml.isEmpty()) ? XMLTools.createFromXml(LinkConfig.class, xml) : new LinkConfig();
-      }
-      catch(Exception e)
-      {
-         logger.warn("Cannot create NetworkMapLink object from XML document", e);
-         logger.debug("Source XML: " + xml);
+      if ((xml != null) && !xml.isEmpty())
+         configXml = xml;
+      else
          config = new LinkConfig();
+   }
+
+   /**
+    * Get link configuration, parsing it from XML document received from server if needed.
+    *
+    * @return link configuration
+    */
+   private LinkConfig getParsedConfig()
+   {
+      LinkConfig c = config;
+      if (c != null)
+         return c;
+
+      synchronized(this)
+      {
+         if (config == null)
+         {
+            try
+            {
+               config = XMLTools.createFromXml(LinkConfig.class, configXml);
+            }
+            catch(Exception e)
+            {
+               logger.warn("Cannot create NetworkMapLink object from XML document", e);
+               logger.debug("Source XML: " + configXml);
+               config = new LinkConfig();
+            }
+            configXml = null;
+         }
+         return config;
       }
    }
 
@@ -179,13 +207,22 @@ public NetworkMapLink(NXCPMessage msg, long baseId)
    public void fillMessage(NXCPMessage msg, long baseId)
    {
       String xml = "";
-      try
+      synchronized(this)
       {
-         xml = config.createXml();
+         if (config == null)
+            xml = configXml; // Configuration was not accessed and so not changed
       }
-      catch(Exception e)
+      if (xml.isEmpty())
       {
-         logger.warn("Cannot create XML from LinkConfig object (" + config.toString() + ")", e);
+         LinkConfig c = getParsedConfig();
+         try
+         {
+            xml = c.createXml();
+         }
+         catch(Exception e)
+         {
+            logger.warn("Cannot create XML from LinkConfig object (" + c.toString() + ")", e);
+         }
       }
 
       msg.setFieldInt32(baseId, (int)id);
@@ -390,7 +427,7 @@ public void setColorProvider(String colorProvider)
     */
    public List<Long> getStatusObjects()
    {
-      return config.getObjectStatusList();
+      return getParsedConfig().getObjectStatusList();
    }
 
    /**
@@ -400,7 +437,7 @@ public List<Long> getStatusObjects()
     */
    public void setStatusObjects(List<Long> statusObjects)
    {
-      config.setObjectStatusList((statusObjects != null) ? statusObjects : new ArrayList<Long>(0));
+      getParsedConfig().setObjectStatusList((statusObjects != null) ? statusObjects : new ArrayList<Long>(0));
    }
 
    /**
@@ -408,7 +445,7 @@ public void setStatusObjects(List<Long> statusObjects)
     */
    public int getRouting()
    {
-      return config.getRouting();
+      return getParsedConfig().getRouting();
    }
 
    /**
@@ -416,7 +453,7 @@ public int getRouting()
     */
    public void setRouting(int routing)
    {
-      config.setRouting(routing);
+      getParsedConfig().setRouting(routing);
    }
 
    /**
@@ -424,7 +461,7 @@ public void setRouting(int routing)
     */
    public long[] getBendPoints()
    {
-      return config.getBendPoints();
+      return getParsedConfig().getBendPoints();
    }
 
    /**
@@ -432,7 +469,7 @@ public long[] getBendPoints()
     */
    public void setBendPoints(long[] bendPoints)
    {
-      config.setBendPoints(bendPoints);
+      getParsedConfig().setBendPoints(bendPoints);
    }
 
    /**
@@ -466,7 +503,7 @@ public boolean isAutoGenerated()
     */
    public boolean hasDciData()
    {
-      SingleDciConfig[] dciList = config.getDciList();
+      SingleDciConfig[] dciList = getParsedConfig().getDciList();
       if (dciList != null && dciList.length > 0)
          return true;
       return false;
@@ -479,7 +516,7 @@ public SingleDciConfig[] getDciList()
    {
       if (hasDciData())
       {
-         return config.getDciList();
+         return getParsedConfig().getDciList();
       }
       else
       {
@@ -574,7 +611,7 @@ public int getPosition()
     */
    public LinkConfig getConfig()
    {
-      return config;
+      return getParsedConfig();
    }
 
    /**
@@ -585,7 +622,7 @@ public String toString()
    {
       return "NetworkMapLink [name=" + name + ", type=" + type + ", element1=" + element1 + ", element2=" + element2
             + ", connectorName1=" + connectorName1 + ", connectorName2=" + connectorName2 + ", colorSource=" + colorSource + ", color=" +
-            color + ", statusObject=" + config.getObjectStatusList() + ", routing=" + config.getRouting() + ", flags=" + flags + 
-            ", labelPosition=" + config.getLabelPosition() + "]";
+            color + ", statusObject=" + getParsedConfig().getObjectStatusList() + ", routing=" + getParsedConfig().getRouting() + ", flags=" + flags + 
+            ", labelPosition=" + getParsedConfig().getLabelPosition() + "]";
    }
 }
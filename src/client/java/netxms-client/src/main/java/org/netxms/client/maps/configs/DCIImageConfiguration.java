@@ -64,7 +64,7 @@
     */
    public String createXml() throws Exception
    {
-      Serializer serializer = XMLTools.createSerializer();
+      Serializer serializer = XMLTools.getSerializer();
       Writer writer = new StringWriter();
       serializer.write(this, writer);
       return writer.toString();
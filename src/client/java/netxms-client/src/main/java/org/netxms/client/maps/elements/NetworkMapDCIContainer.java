@@ -36,6 +36,7 @@ public class NetworkMapDCIContainer extends NetworkMapElement
    private int borderColor;
    private boolean borderRequired;
 	private SingleDciConfig[] dciArray;
+   private String pendingConfigXml = null;
 	
 	/**
 	 * Create DCI container from NXCP message.
@@ -47,9 +48,19 @@ protected NetworkMapDCIContainer(NXCPMessage msg, long baseId)
 	{
 		super(msg, baseId);
 		DCIListXml = msg.getFieldAsString(baseId+10);
+		pendingConfigXml = DCIListXml; // Parsed on first access
+	}
+
+   /**
+    * Parse configuration received from server if it was not parsed yet. Should be called by all accessors.
+    */
+   private synchronized void parseConfig()
+   {
+      if (pendingConfigXml == null)
+         return;
 		try
       {
-         DciContainerConfiguration conf = XMLTools.createFromXml(DciContainerConfiguration.class, DCIListXml);
+         DciContainerConfiguration conf = XMLTools.createFromXml(DciContainerConfiguration.class, pendingConfigXml);
 		   backgroundColor = conf.getBackgroundColor();
 		   textColor = conf.getTextColor();
 		   borderColor = conf.getBorderColor();
@@ -60,7 +71,7 @@ protected NetworkMapDCIContainer(NXCPMessage msg, long baseId)
       { 
          dciArray = null;
       }
-		
+      pendingConfigXml = null;
 	}
 	
 	/**
@@ -85,6 +96,7 @@ public NetworkMapDCIContainer(long id)
    public void fillMessage(NXCPMessage msg, long baseId)
    {
       super.fillMessage(msg, baseId);
+      parseConfig();
       DciContainerConfiguration dciList = new DciContainerConfiguration();
       dciList.setDciList(dciArray);
       dciList.setBackgroundColor(backgroundColor);
@@ -109,6 +121,7 @@ public void fillMessage(NXCPMessage msg, long baseId)
     */
    public boolean hasDciData()
    {
+      parseConfig();
       return (dciArray != null) && (dciArray.length > 0);
    }
 
@@ -119,6 +132,7 @@ public boolean hasDciData()
 	 */
 	public SingleDciConfig[] getObjectDCIArray()
 	{
+	   parseConfig();
 		return dciArray;
 	}
 
@@ -129,6 +143,7 @@ public SingleDciConfig[] getObjectDCIArray()
 	 */
 	public void setObjectDCIArray(SingleDciConfig[] dciArray)
 	{
+	   parseConfig();
 	   this.dciArray = dciArray;
 	}
 
@@ -139,6 +154,7 @@ public void setObjectDCIArray(SingleDciConfig[] dciArray)
     */
    public List<SingleDciConfig> getDciAsList()
    {
+      parseConfig();
       List<SingleDciConfig> dciList = new ArrayList<SingleDciConfig>();
       if(hasDciData())
       {
@@ -155,6 +171,7 @@ public List<SingleDciConfig> getDciAsList()
     */
    public int getBackgroundColor()
    {
+      parseConfig();
       return backgroundColor;
    }
 
@@ -165,6 +182,7 @@ public int getBackgroundColor()
     */
    public void setBackgroundColor(int backgroundColor)
    {
+      parseConfig();
       this.backgroundColor = backgroundColor;
    }
 
@@ -175,6 +193,7 @@ public void setBackgroundColor(int backgroundColor)
     */
    public int getTextColor()
    {
+      parseConfig();
       return textColor;
    }
 
@@ -185,6 +204,7 @@ public int getTextColor()
     */
    public void setTextColor(int textColor)
    {
+      parseConfig();
       this.textColor = textColor;
    }
 
@@ -195,6 +215,7 @@ public void setTextColor(int textColor)
     */
    public int getBorderColor()
    {
+      parseConfig();
       return borderColor;
    }
 
@@ -205,6 +226,7 @@ public int getBorderColor()
     */
    public void setBorderColor(int borderColor)
    {
+      parseConfig();
       this.borderColor = borderColor;
    }
 
@@ -215,6 +237,7 @@ public void setBorderColor(int borderColor)
     */
    public boolean isBorderRequired()
    {
+      parseConfig();
       return borderRequired;
    }
 
@@ -225,6 +248,7 @@ public boolean isBorderRequired()
     */
    public void setBorderRequired(boolean borderRequired)
    {
+      parseConfig();
       this.borderRequired = borderRequired;
    }
 }
@@ -29,6 +29,7 @@
 public class NetworkMapDCIImage  extends NetworkMapElement
 {
    private DCIImageConfiguration imageOptions;
+   private String imageOptionsXml = null;
 	
 	/**
 	 * Create DCI image element from NXCP message.
@@ -39,17 +40,31 @@ public class NetworkMapDCIImage  extends NetworkMapElement
 	protected NetworkMapDCIImage(NXCPMessage msg, long baseId)
 	{
 		super(msg, baseId);
-		String DCIImageConfigXML = msg.getFieldAsString(baseId+10);
-		try
+		imageOptionsXml = msg.getFieldAsString(baseId+10); // Parsed on first access
+		imageOptions = null;
+	}
+
+   /**
+    * Get image configuration, parsing it from XML document received from server if needed.
+    *
+    * @return image configuration
+    */
+   private synchronized DCIImageConfiguration getParsedImageOptions()
+   {
+      if (imageOptions == null)
       {
-         imageOptions = XMLTools.createFromXml(DCIImageConfiguration.class, DCIImageConfigXML);
+         try
+         {
+            imageOptions = XMLTools.createFromXml(DCIImageConfiguration.class, imageOptionsXml);
+         }
+         catch(Exception e)
+         {
+            imageOptions = new DCIImageConfiguration();
+         }
+         imageOptionsXml = null;
       }
-      catch(Exception e)
-      { 
-         imageOptions = new DCIImageConfiguration();
-      }
-		
-	}
+      return imageOptions;
+   }
 
 	/**
 	 * Create new DCI image element
@@ -74,7 +89,7 @@ public void fillMessage(NXCPMessage msg, long baseId)
       String xml = "";
 		try
       {
-		   xml = imageOptions.createXml();
+		   xml = getParsedImageOptions().createXml();
       }
       catch(Exception e)
       {
@@ -89,7 +104,7 @@ public void fillMessage(NXCPMessage msg, long baseId)
     */
    public DCIImageConfiguration getImageOptions()
    {
-      return imageOptions;
+      return getParsedImageOptions();
    }
 
    /**
@@ -97,8 +112,9 @@ public DCIImageConfiguration getImageOptions()
     *
     * @param imageOptions new image configuration
     */
-   public void setImageOptions(DCIImageConfiguration imageOptions)
+   public synchronized void setImageOptions(DCIImageConfiguration imageOptions)
    {
       this.imageOptions = imageOptions;
+      imageOptionsXml = null;
    }
 }
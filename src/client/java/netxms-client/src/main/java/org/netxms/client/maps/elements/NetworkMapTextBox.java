@@ -34,6 +34,7 @@ public class NetworkMapTextBox extends NetworkMapElement
    private int fontSize;
    private long drillDownObjectId;
    private boolean borderRequired;
+   private String configXml = null;
    
    /**
     * Create new text box from NXCP messgae
@@ -44,10 +45,20 @@ public class NetworkMapTextBox extends NetworkMapElement
    protected NetworkMapTextBox(NXCPMessage msg, long baseId)
    {
       super(msg, baseId);
-      String xmlConfig = msg.getFieldAsString(baseId + 10);
+      configXml = msg.getFieldAsString(baseId + 10); // Parsed on first access
+      type = MAP_ELEMENT_TEXT_BOX;
+   }
+
+   /**
+    * Parse configuration received from server if it was not parsed yet. Should be called by all accessors.
+    */
+   private synchronized void parseConfig()
+   {
+      if (configXml == null)
+         return;
       try
       {
-         TextBoxConfig conf = XMLTools.createFromXml(TextBoxConfig.class, xmlConfig);
+         TextBoxConfig conf = XMLTools.createFromXml(TextBoxConfig.class, configXml);
          text = conf.getText();
          backgroundColor = conf.getBackgroundColor();
          textColor = conf.getTextColor();
@@ -66,7 +77,7 @@ protected NetworkMapTextBox(NXCPMessage msg, long baseId)
          fontSize = 10;
          drillDownObjectId = 0;
       }
-      type = MAP_ELEMENT_TEXT_BOX;
+      configXml = null;
    }
 
    /**
@@ -93,6 +104,7 @@ public NetworkMapTextBox(long id)
    public void fillMessage(NXCPMessage msg, long baseId)
    {
       super.fillMessage(msg, baseId);
+      parseConfig();
       TextBoxConfig config = new TextBoxConfig();
       config.setText(text);
       config.setBackgroundColor(backgroundColor);
@@ -120,6 +132,7 @@ public void fillMessage(NXCPMessage msg, long baseId)
     */
    public String getText()
    {
+      parseConfig();
       return text;
    }
    
@@ -130,6 +143,7 @@ public String getText()
     */
    public void setText(String text)
    {
+      parseConfig();
       this.text = text;
    }
    
@@ -140,6 +154,7 @@ public void setText(String text)
     */
    public int getBackgroundColor()
    {
+      parseConfig();
       return backgroundColor;
    }
 
@@ -150,6 +165,7 @@ public int getBackgroundColor()
     */
    public void setBackgroundColor(int backgroundColor)
    {
+      parseConfig();
       this.backgroundColor = backgroundColor;
    }
 
@@ -160,6 +176,7 @@ public void setBackgroundColor(int backgroundColor)
     */
    public int getTextColor()
    {
+      parseConfig();
       return textColor;
    }
 
@@ -170,6 +187,7 @@ public int getTextColor()
     */
    public void setTextColor(int textColor)
    {
+      parseConfig();
       this.textColor = textColor;
    }
 
@@ -180,6 +198,7 @@ public void setTextColor(int textColor)
     */
    public int getBorderColor()
    {
+      parseConfig();
       return borderColor;
    }
 
@@ -190,6 +209,7 @@ public int getBorderColor()
     */
    public void setBorderColor(int borderColor)
    {
+      parseConfig();
       this.borderColor = borderColor;
    }
 
@@ -198,6 +218,7 @@ public void setBorderColor(int borderColor)
     */
    public boolean isBorderRequired()
    {
+      parseConfig();
       return borderRequired;
    }
 
@@ -206,6 +227,7 @@ public boolean isBorderRequired()
     */
    public void setBorderRequired(boolean borderRequired)
    {
+      parseConfig();
       this.borderRequired = borderRequired;
    }
    
@@ -214,6 +236,7 @@ public void setBorderRequired(boolean borderRequired)
     */
    public int getFontSize()
    {
+      parseConfig();
       return fontSize;
    }
    
@@ -222,6 +245,7 @@ public int getFontSize()
     */
    public void setFontSize(int fontSize)
    {
+      parseConfig();
       this.fontSize = fontSize;
    }
    
@@ -230,6 +254,7 @@ public void setFontSize(int fontSize)
     */
    public long getDrillDownObjectId()
    {
+      parseConfig();
       return drillDownObjectId;
    }
    
@@ -238,6 +263,7 @@ public long getDrillDownObjectId()
     */
    public void setDrillDownObjectId(long drillDownObjectId)
    {
+      parseConfig();
       this.drillDownObjectId = drillDownObjectId;
    }
 }
@@ -31,8 +31,10 @@
 import java.util.Set;
 import java.util.UUID;
 import org.netxms.base.GeoLocation;
+import org.netxms.base.InetAddressEx;
 import org.netxms.base.NXCPCodes;
 import org.netxms.base.NXCPMessage;
+import org.netxms.base.NXCPMessageField;
 import org.netxms.base.NXCommon;
 import org.netxms.base.PostalAddress;
 import org.netxms.base.annotations.Internal;
@@ -45,6 +47,8 @@
 import org.netxms.client.objects.configs.CustomAttribute;
 import org.netxms.client.services.ServiceManager;
 import org.netxms.client.users.ResponsibleUser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * Abstract base class for all NetXMS objects (both built-in and provided by extensions)
@@ -121,6 +125,23 @@
 	public static final int PROPAGATE_RELATIVE = 3;
 	public static final int PROPAGATE_TRANSLATED = 4;
 
+   // Groups of rarely used fields which can be decoded on first access (see NXCSession.setLazyObjectDecoding)
+   public static final int DEFERRED_GEOLOCATION = 0;
+   public static final int DEFERRED_POSTAL_ADDRESS = 1;
+   public static final int DEFERRED_CUSTOM_ATTRIBUTES = 2;
+   public static final int DEFERRED_URLS = 3;
+   public static final int DEFERRED_ACCESS_LIST = 4;
+   public static final int DEFERRED_MODULE_DATA = 5;
+   public static final int DEFERRED_RESPONSIBLE_USERS = 6;
+   public static final int DEFERRED_POLL_STATES = 7;
+   private static final int DEFERRED_GROUP_COUNT = 8;
+
+   // Fields of postal address group
+   private static final long[] POSTAL_ADDRESS_FIELDS = { NXCPCodes.VID_COUNTRY, NXCPCodes.VID_REGION, NXCPCodes.VID_CITY,
+         NXCPCodes.VID_DISTRICT, NXCPCodes.VID_STREET_ADDRESS, NXCPCodes.VID_POSTCODE };
+
+   private static final Logger logger = LoggerFactory.getLogger(AbstractObject.class);
+
 	@Internal protected NXCSession session = null;
 	protected long objectId = 0;
 	protected UUID guid;
@@ -162,6 +183,8 @@
    protected final List<ResponsibleUser> responsibleUsers = new ArrayList<ResponsibleUser>(0);
 	protected Map<String, Object> moduleData = null;
    protected PollState[] pollStates = null;
+   @Internal private DeferredFields deferredFields = null;
+   @Internal private volatile int deferredGroups = 0;
 
 	@Internal private int effectiveRights = 0;
 	@Internal private boolean effectiveRightsCached = false;
@@ -209,7 +232,7 @@ protected AbstractObject(final long id, final NXCSession session)
 	public AbstractObject(final NXCPMessage msg, final NXCSession session)
 	{
 		int i, count;
-		long id, id2;
+		long id;
 
 		this.session = session;
 
@@ -229,8 +252,6 @@ public AbstractObject(final NXCPMessage msg, final NXCSession session)
       backupZoneProxyId = msg.getFieldAsInt64(NXCPCodes.VID_BACKUP_ZONE_PROXY_ID);
 		comments = msg.getFieldAsString(NXCPCodes.VID_COMMENTS);
 		commentsSource = msg.getFieldAsString(NXCPCodes.VID_COMMENTS_SOURCE);
-		geolocation = new GeoLocation(msg);
-		postalAddress = new PostalAddress(msg);
 		mapImage = msg.getFieldAsUUID(NXCPCodes.VID_IMAGE);
 		drillDownObjectId = msg.getFieldAsInt64(NXCPCodes.VID_DRILL_DOWN_OBJECT_ID);
       assetId = msg.getFieldAsInt64(NXCPCodes.VID_ASSET_ID);
@@ -281,60 +302,269 @@ public AbstractObject(final NXCPMessage msg, final NXCSession session)
 		if ((d != null) && (d.length > 0))
 		   dashboards.addAll(Arrays.asList(d));
 
-		// Custom attributes
-		count = msg.getFieldAsInt32(NXCPCodes.VID_NUM_CUSTOM_ATTRIBUTES);
-		for(i = 0, id = NXCPCodes.VID_CUSTOM_ATTRIBUTES_BASE; i < count; i++, id += 4)
-		{
-			customAttributes.put(msg.getFieldAsString(id), new CustomAttribute(msg, id+1));
-		}
+      // Access rights inheritance flag is decoded immediately, access list itself can be deferred
+		inheritAccessRights = msg.getFieldAsBoolean(NXCPCodes.VID_INHERIT_RIGHTS);
 
-		// URLs
-      count = msg.getFieldAsInt32(NXCPCodes.VID_NUM_URLS);
-      for(i = 0, id = NXCPCodes.VID_URL_LIST_BASE; i < count; i++, id += 10)
+      if ((session != null) && session.isLazyObjectDecoding())
       {
-         urls.add(new ObjectUrl(msg, id));
+         List<NXCPMessageField> fields = new ArrayList<NXCPMessageField>();
+         int[] groupStart = new int[DEFERRED_GROUP_COUNT + 1];
+         int pending = 0;
+         for(int group = 0; group < DEFERRED_GROUP_COUNT; group++)
+         {
+            groupStart[group] = fields.size();
+            findDeferredGroupFields(msg, group, fields);
+            if (fields.size() > groupStart[group])
+               pending |= 1 << group;
+            else
+               decodeDeferredGroup(msg, group); // Empty groups are cheap to decode
+         }
+         groupStart[DEFERRED_GROUP_COUNT] = fields.size();
+         if (pending != 0)
+            deferredFields = new DeferredFields(fields, groupStart);
+         deferredGroups = pending;
       }
-      
-		// Access list
-		inheritAccessRights = msg.getFieldAsBoolean(NXCPCodes.VID_INHERIT_RIGHTS);
-		count = msg.getFieldAsInt32(NXCPCodes.VID_ACL_SIZE);
-		for(i = 0, id = NXCPCodes.VID_ACL_USER_BASE, id2 = NXCPCodes.VID_ACL_RIGHTS_BASE; i < count; i++, id++, id2++)
-		{
-			accessList.add(new AccessListElement(msg.getFieldAsInt64(id), msg.getFieldAsInt32(id2)));
-		}
-		
-		// Module-specific data
-		count = msg.getFieldAsInt32(NXCPCodes.VID_MODULE_DATA_COUNT);
-		if (count > 0)
-		{
-		   moduleData = new HashMap<String, Object>(count);
-		   for(i = 0, id = NXCPCodes.VID_MODULE_DATA_BASE; i < count; i++, id += 0x100000)
-		   {
-		      String module = msg.getFieldAsString(id);
-            ModuleDataProvider p = ServiceManager.getModuleDataProvider(module);
-		      if (p != null)
-		      {
-		         moduleData.put(module, p.createModuleData(msg, id + 1));
-		      }
-		   }
-		}
+      else
+      {
+         for(int group = 0; group < DEFERRED_GROUP_COUNT; group++)
+            decodeDeferredGroup(msg, group);
+      }
+	}
+
+   /**
+    * Decode one group of fields that are rarely used by client applications.
+    *
+    * @param msg NXCP message
+    * @param group group ID (one of DEFERRED_xxx constants)
+    */
+   private void decodeDeferredGroup(final NXCPMessage msg, int group)
+   {
+      int i, count;
+      long id, id2;
 
-		// Responsible users
-      count = msg.getFieldAsInt32(NXCPCodes.VID_RESPONSIBLE_USERS_COUNT);
-      id = NXCPCodes.VID_RESPONSIBLE_USERS_BASE;
-      for(i = 0; i < count; i++, id += 10)
-         responsibleUsers.add(new ResponsibleUser(msg, id));
+      switch(group)
+      {
+         case DEFERRED_GEOLOCATION:
+            geolocation = new GeoLocation(msg);
+            break;
+         case DEFERRED_POSTAL_ADDRESS:
+            postalAddress = new PostalAddress(msg);
+            break;
+         case DEFERRED_CUSTOM_ATTRIBUTES:
+            count = msg.getFieldAsInt32(NXCPCodes.VID_NUM_CUSTOM_ATTRIBUTES);
+            for(i = 0, id = NXCPCodes.VID_CUSTOM_ATTRIBUTES_BASE; i < count; i++, id += 4)
+            {
+               customAttributes.put(msg.getFieldAsString(id), new CustomAttribute(msg, id + 1));
+            }
+            break;
+         case DEFERRED_URLS:
+            count = msg.getFieldAsInt32(NXCPCodes.VID_NUM_URLS);
+            for(i = 0, id = NXCPCodes.VID_URL_LIST_BASE; i < count; i++, id += 10)
+            {
+               urls.add(new ObjectUrl(msg, id));
+            }
+            break;
+         case DEFERRED_ACCESS_LIST:
+            count = msg.getFieldAsInt32(NXCPCodes.VID_ACL_SIZE);
+            for(i = 0, id = NXCPCodes.VID_ACL_USER_BASE, id2 = NXCPCodes.VID_ACL_RIGHTS_BASE; i < count; i++, id++, id2++)
+            {
+               accessList.add(new AccessListElement(msg.getFieldAsInt64(id), msg.getFieldAsInt32(id2)));
+            }
+            break;
+         case DEFERRED_MODULE_DATA:
+            count = msg.getFieldAsInt32(NXCPCodes.VID_MODULE_DATA_COUNT);
+            if (count > 0)
+            {
+               moduleData = new HashMap<String, Object>(count);
+               for(i = 0, id = NXCPCodes.VID_MODULE_DATA_BASE; i < count; i++, id += 0x100000)
+               {
+                  String module = msg.getFieldAsString(id);
+                  ModuleDataProvider p = ServiceManager.getModuleDataProvider(module);
+                  if (p != null)
+                  {
+                     moduleData.put(module, p.createModuleData(msg, id + 1));
+                  }
+               }
+            }
+            break;
+         case DEFERRED_RESPONSIBLE_USERS:
+            count = msg.getFieldAsInt32(NXCPCodes.VID_RESPONSIBLE_USERS_COUNT);
+            id = NXCPCodes.VID_RESPONSIBLE_USERS_BASE;
+            for(i = 0; i < count; i++, id += 10)
+               responsibleUsers.add(new ResponsibleUser(msg, id));
+            break;
+         case DEFERRED_POLL_STATES:
+            count = msg.getFieldAsInt32(NXCPCodes.VID_NUM_POLL_STATES);
+            if (count > 0)
+            {
+               id = NXCPCodes.VID_POLL_STATE_LIST_BASE;
+               pollStates = new PollState[count];
+               for(i = 0; i < count; i++, id += 10)
+                  pollStates[i] = new PollState(msg, id);
+            }
+            break;
+      }
+   }
 
-      // Poll states
-      count = msg.getFieldAsInt32(NXCPCodes.VID_NUM_POLL_STATES);
-      if (count > 0)
+   /**
+    * Find message fields used by given group of deferred fields.
+    *
+    * @param msg NXCP message
+    * @param group group ID (one of DEFERRED_xxx constants)
+    * @param fields list to add found fields to (nothing is added if group is empty)
+    */
+   private static void findDeferredGroupFields(final NXCPMessage msg, int group, List<NXCPMessageField> fields)
+   {
+      int count;
+      switch(group)
       {
-         id = NXCPCodes.VID_POLL_STATE_LIST_BASE;
-         pollStates = new PollState[count];
-         for(i = 0; i < count; i++, id += 10)
-            pollStates[i] = new PollState(msg, id);
+         case DEFERRED_GEOLOCATION:
+            if (msg.getFieldAsInt32(NXCPCodes.VID_GEOLOCATION_TYPE) == GeoLocation.UNSET)
+               break;
+            msg.findFields(NXCPCodes.VID_LATITUDE, NXCPCodes.VID_LONGITUDE, fields);
+            msg.findFields(NXCPCodes.VID_GEOLOCATION_TYPE, NXCPCodes.VID_GEOLOCATION_TYPE, fields);
+            msg.findFields(NXCPCodes.VID_ACCURACY, NXCPCodes.VID_ACCURACY, fields);
+            msg.findFields(NXCPCodes.VID_GEOLOCATION_TIMESTAMP, NXCPCodes.VID_GEOLOCATION_TIMESTAMP, fields);
+            break;
+         case DEFERRED_POSTAL_ADDRESS:
+            for(long fieldId : POSTAL_ADDRESS_FIELDS)
+               msg.findFields(fieldId, fieldId, fields);
+            break;
+         case DEFERRED_CUSTOM_ATTRIBUTES:
+            findListFields(msg, NXCPCodes.VID_NUM_CUSTOM_ATTRIBUTES, NXCPCodes.VID_CUSTOM_ATTRIBUTES_BASE, 4, fields);
+            break;
+         case DEFERRED_URLS:
+            findListFields(msg, NXCPCodes.VID_NUM_URLS, NXCPCodes.VID_URL_LIST_BASE, 10, fields);
+            break;
+         case DEFERRED_ACCESS_LIST:
+            count = msg.getFieldAsInt32(NXCPCodes.VID_ACL_SIZE);
+            if (count > 0)
+            {
+               msg.findFields(NXCPCodes.VID_ACL_SIZE, NXCPCodes.VID_ACL_SIZE, fields);
+               msg.findFields(NXCPCodes.VID_ACL_USER_BASE, NXCPCodes.VID_ACL_USER_BASE + count - 1, fields);
+               msg.findFields(NXCPCodes.VID_ACL_RIGHTS_BASE, NXCPCodes.VID_ACL_RIGHTS_BASE + count - 1, fields);
+            }
+            break;
+         case DEFERRED_MODULE_DATA:
+            findListFields(msg, NXCPCodes.VID_MODULE_DATA_COUNT, NXCPCodes.VID_MODULE_DATA_BASE, 0x100000, fields);
+            break;
+         case DEFERRED_RESPONSIBLE_USERS:
+            findListFields(msg, NXCPCodes.VID_RESPONSIBLE_USERS_COUNT, NXCPCodes.VID_RESPONSIBLE_USERS_BASE, 10, fields);
+            break;
+         case DEFERRED_POLL_STATES:
+            findListFields(msg, NXCPCodes.VID_NUM_POLL_STATES, NXCPCodes.VID_POLL_STATE_LIST_BASE, 10, fields);
+            break;
       }
-	}
+   }
+
+   /**
+    * Find fields of list encoded as element count field followed by fixed size blocks of fields.
+    *
+    * @param msg NXCP message
+    * @param countFieldId ID of element count field
+    * @param baseId ID of first field of first element
+    * @param blockSize number of field IDs reserved for each element
+    * @param fields list to add found fields to (nothing is added if list is empty)
+    */
+   private static void findListFields(final NXCPMessage msg, long countFieldId, long baseId, long blockSize, List<NXCPMessageField> fields)
+   {
+      int count = msg.getFieldAsInt32(countFieldId);
+      if (count == 0)
+         return;
+      msg.findFields(countFieldId, countFieldId, fields);
+      msg.findFields(baseId, baseId + count * blockSize - 1, fields);
+   }
+
+   /**
+    * Decode given group of deferred fields if object was created in lazy decoding mode and that group was not decoded yet.
+    * Should be called by all methods accessing fields from that group.
+    *
+    * @param group group ID (one of DEFERRED_xxx constants)
+    */
+   protected final void materializeDeferredFields(int group)
+   {
+      if ((deferredGroups & (1 << group)) == 0)
+         return;
+
+      synchronized(this)
+      {
+         int pending = deferredGroups;
+         if ((pending & (1 << group)) == 0)
+            return;
+         try
+         {
+            decodeDeferredGroup(deferredFields.restore(group), group);
+         }
+         catch(Exception e)
+         {
+            logger.error("Cannot decode deferred field group " + group + " for object " + objectId, e);
+            resetDeferredGroup(group);
+         }
+         pending &= ~(1 << group);
+         if (pending == 0)
+            deferredFields = null;
+         deferredGroups = pending;
+      }
+   }
+
+   /**
+    * Set fields of given deferred group to empty values (used when group cannot be decoded, so that partially decoded data
+    * is not exposed).
+    *
+    * @param group group ID (one of DEFERRED_xxx constants)
+    */
+   private void resetDeferredGroup(int group)
+   {
+      switch(group)
+      {
+         case DEFERRED_GEOLOCATION:
+            geolocation = new GeoLocation(false);
+            break;
+         case DEFERRED_POSTAL_ADDRESS:
+            postalAddress = new PostalAddress();
+            break;
+         case DEFERRED_CUSTOM_ATTRIBUTES:
+            customAttributes.clear();
+            break;
+         case DEFERRED_URLS:
+            urls.clear();
+            break;
+         case DEFERRED_ACCESS_LIST:
+            accessList.clear();
+            break;
+         case DEFERRED_MODULE_DATA:
+            moduleData = null;
+            break;
+         case DEFERRED_RESPONSIBLE_USERS:
+            responsibleUsers.clear();
+            break;
+         case DEFERRED_POLL_STATES:
+            pollStates = null;
+            break;
+      }
+   }
+
+   /**
+    * Check if all deferred fields (custom attributes, URLs, access list, module data, responsible users, poll states,
+    * geolocation, and postal address) are already decoded.
+    *
+    * @return true if deferred fields are decoded
+    */
+   public boolean isFullyDecoded()
+   {
+      return deferredGroups == 0;
+   }
+
+   /**
+    * Check if given group of deferred fields is already decoded.
+    *
+    * @param group group ID (one of DEFERRED_xxx constants)
+    * @return true if given group is decoded
+    */
+   public boolean isDecoded(int group)
+   {
+      return (deferredGroups & (1 << group)) == 0;
+   }
 
 	/**
 	 * Check if object should be represented by class default image
@@ -377,6 +607,7 @@ public Iterator<Long> getChildren()
 	 */
 	public AccessListElement[] getAccessList()
 	{
+		materializeDeferredFields(DEFERRED_ACCESS_LIST);
 		return accessList.toArray(new AccessListElement[accessList.size()]);
 	}
 	
@@ -387,6 +618,7 @@ public AccessListElement[] getAccessList()
 	 */
 	public List<ObjectUrl> getUrls()
 	{
+	   materializeDeferredFields(DEFERRED_URLS);
 	   return new ArrayList<ObjectUrl>(urls);
 	}
 	
@@ -397,6 +629,7 @@ public List<ObjectUrl> getUrls()
 	 */
 	public boolean hasUrls()
 	{
+	   materializeDeferredFields(DEFERRED_URLS);
 	   return !urls.isEmpty();
 	}
 
@@ -967,6 +1200,7 @@ public String getObjectClassName()
 	 */
 	public Map<String, CustomAttribute> getCustomAttributes()
 	{
+		materializeDeferredFields(DEFERRED_CUSTOM_ATTRIBUTES);
 		return customAttributes;
 	}
 
@@ -978,6 +1212,7 @@ public Map<String, CustomAttribute> getCustomAttributes()
     */
    public CustomAttribute getCustomAttribute(String name)
    {
+      materializeDeferredFields(DEFERRED_CUSTOM_ATTRIBUTES);
       return customAttributes.get(name);
    }
 
@@ -989,6 +1224,7 @@ public CustomAttribute getCustomAttribute(String name)
     */
    public String getCustomAttributeValue(String name)
    {
+      materializeDeferredFields(DEFERRED_CUSTOM_ATTRIBUTES);
       CustomAttribute a = customAttributes.get(name);
       return (a != null) ? a.getValue() : null;
    }
@@ -1001,6 +1237,7 @@ public String getCustomAttributeValue(String name)
     */
    public boolean getCustomAttributeValueAsBoolean(String name)
    {
+      materializeDeferredFields(DEFERRED_CUSTOM_ATTRIBUTES);
       CustomAttribute a = customAttributes.get(name);
       if (a == null)
          return false;
@@ -1024,6 +1261,7 @@ public boolean getCustomAttributeValueAsBoolean(String name)
     */
    public boolean hasCustomAttribute(String name)
    {
+      materializeDeferredFields(DEFERRED_CUSTOM_ATTRIBUTES);
       return customAttributes.containsKey(name);
    }
 
@@ -1032,6 +1270,7 @@ public boolean hasCustomAttribute(String name)
 	 */
 	public GeoLocation getGeolocation()
 	{
+		materializeDeferredFields(DEFERRED_GEOLOCATION);
 		return geolocation;
 	}
 
@@ -1184,6 +1423,10 @@ public int getEffectiveRights()
       
       try
       {
+         // Object from shared object model is used by different users, so rights cannot be cached in object itself
+         if (session.isSharedObjectModelBackend())
+            return session.getEffectiveRights(objectId);
+
          effectiveRights = session.getEffectiveRights(objectId);
          effectiveRightsCached = true;
       }
@@ -1202,6 +1445,7 @@ public int getEffectiveRights()
     */
    public Object getModuleData(String module)
    {
+      materializeDeferredFields(DEFERRED_MODULE_DATA);
       return (moduleData != null) ? moduleData.get(module) : null;
    }
 
@@ -1210,6 +1454,7 @@ public Object getModuleData(String module)
     */
    public PostalAddress getPostalAddress()
    {
+      materializeDeferredFields(DEFERRED_POSTAL_ADDRESS);
       return postalAddress;
    }
 
@@ -1277,6 +1522,9 @@ public Set<String> getStrings()
       addString(strings, comments);
       addString(strings, objectName);
       addString(strings, alias);
+      materializeDeferredFields(DEFERRED_POSTAL_ADDRESS);
+      materializeDeferredFields(DEFERRED_CUSTOM_ATTRIBUTES);
+      materializeDeferredFields(DEFERRED_URLS);
       if ((postalAddress != null) && !postalAddress.isEmpty())
          strings.add(postalAddress.getAddressLine());
       for(CustomAttribute s : customAttributes.values())
@@ -1296,6 +1544,7 @@ public Set<String> getStrings()
     */
    public List<ResponsibleUser> getResponsibleUsers()
    {
+      materializeDeferredFields(DEFERRED_RESPONSIBLE_USERS);
       return responsibleUsers;
    }
 
@@ -1318,4 +1567,93 @@ public boolean areChildrenSynchronized()
    {
       return session.areChildrenSynchronized(objectId);
    }
+
+   /**
+    * Compact immutable snapshot of message fields used by deferred field groups. Only primary value of each field is kept,
+    * values are shared with source message.
+    */
+   private static final class DeferredFields
+   {
+      private final int[] ids;
+      private final byte[] types;
+      private final Object[] values;
+      private final int[] groupStart;
+
+      /**
+       * Create snapshot.
+       *
+       * @param fields fields of all groups, ordered by group
+       * @param groupStart index of first field for each group (with total number of fields as last element)
+       */
+      DeferredFields(List<NXCPMessageField> fields, int[] groupStart)
+      {
+         int count = fields.size();
+         ids = new int[count];
+         types = new byte[count];
+         values = new Object[count];
+         for(int i = 0; i < count; i++)
+         {
+            NXCPMessageField f = fields.get(i);
+            ids[i] = (int)f.getId();
+            types[i] = (byte)f.getType();
+            switch(f.getType())
+            {
+               case NXCPMessageField.TYPE_INTEGER:
+               case NXCPMessageField.TYPE_INT16:
+               case NXCPMessageField.TYPE_INT64:
+                  values[i] = f.getAsInteger();
+                  break;
+               case NXCPMessageField.TYPE_FLOAT:
+                  values[i] = f.getAsReal();
+                  break;
+               case NXCPMessageField.TYPE_BINARY:
+                  values[i] = f.getAsBinary();
+                  break;
+               case NXCPMessageField.TYPE_INETADDR:
+                  values[i] = f.getAsInetAddressEx();
+                  break;
+               default:
+                  values[i] = f.getAsString();
+                  break;
+            }
+         }
+         this.groupStart = groupStart;
+      }
+
+      /**
+       * Restore message containing fields of given group.
+       *
+       * @param group group ID
+       * @return message with group's fields
+       */
+      NXCPMessage restore(int group)
+      {
+         NXCPMessage msg = new NXCPMessage(0);
+         for(int i = groupStart[group]; i < groupStart[group + 1]; i++)
+         {
+            long id = ids[i] & 0xFFFFFFFFL;
+            switch(types[i])
+            {
+               case NXCPMessageField.TYPE_INTEGER:
+               case NXCPMessageField.TYPE_INT16:
+               case NXCPMessageField.TYPE_INT64:
+                  msg.setField(new NXCPMessageField(id, types[i], (Long)values[i]));
+                  break;
+               case NXCPMessageField.TYPE_FLOAT:
+                  msg.setField(new NXCPMessageField(id, (Double)values[i]));
+                  break;
+               case NXCPMessageField.TYPE_BINARY:
+                  msg.setField(new NXCPMessageField(id, (byte[])values[i]));
+                  break;
+               case NXCPMessageField.TYPE_INETADDR:
+                  msg.setField(new NXCPMessageField(id, (InetAddressEx)values[i]));
+                  break;
+               default:
+                  msg.setField(new NXCPMessageField(id, (String)values[i]));
+                  break;
+            }
+         }
+         return msg;
+      }
+   }
 }
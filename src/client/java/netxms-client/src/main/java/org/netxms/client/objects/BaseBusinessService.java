@@ -233,6 +233,7 @@ public Set<String> getStrings()
    @Override
    public PollState[] getPollStates()
    {
+      materializeDeferredFields(DEFERRED_POLL_STATES);
       return pollStates;
    }
 }
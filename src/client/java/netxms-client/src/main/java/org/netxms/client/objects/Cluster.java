@@ -272,6 +272,7 @@ public int getAutoBindFlags()
    @Override
    public PollState[] getPollStates()
    {
+      materializeDeferredFields(DEFERRED_POLL_STATES);
       return pollStates;
    }
 }
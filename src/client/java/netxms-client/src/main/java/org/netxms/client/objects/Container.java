@@ -209,6 +209,7 @@ public boolean canUseModbus()
    @Override
    public PollState[] getPollStates()
    {
+      materializeDeferredFields(DEFERRED_POLL_STATES);
       return pollStates;
    }
 }
@@ -542,6 +542,7 @@ public boolean canUseModbus()
    @Override
    public PollState[] getPollStates()
    {
+      materializeDeferredFields(DEFERRED_POLL_STATES);
       return pollStates;
    }
 }
@@ -0,0 +1,215 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2023 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.client.objects;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import org.netxms.client.constants.ObjectStatus;
+
+/**
+ * Immutable snapshot of status aggregates for all direct and indirect children of container object. Each descendant is counted
+ * once, even if it is reachable via multiple paths.
+ */
+public class StatusRollup
+{
+   private static final int STATUS_COUNT = ObjectStatus.values().length;
+
+   private final long objectId;
+   private final int[] statusCounts;
+   private final Map<Integer, int[]> classCounts;
+   private final int descendantCount;
+   private final long structureHash;
+
+   /**
+    * Create snapshot from mutable aggregate.
+    *
+    * @param objectId container object ID
+    * @param statusCounts counts by status
+    * @param classCounts counts by class and status
+    * @param descendantCount number of descendants
+    * @param structureHash hash of descendant set
+    */
+   StatusRollup(long objectId, int[] statusCounts, Map<Integer, int[]> classCounts, int descendantCount, long structureHash)
+   {
+      this.objectId = objectId;
+      this.statusCounts = Arrays.copyOf(statusCounts, STATUS_COUNT);
+      this.classCounts = new HashMap<Integer, int[]>(classCounts.size());
+      for(Map.Entry<Integer, int[]> e : classCounts.entrySet())
+         this.classCounts.put(e.getKey(), Arrays.copyOf(e.getValue(), STATUS_COUNT));
+      this.descendantCount = descendantCount;
+      this.structureHash = structureHash;
+   }
+
+   /**
+    * Get container object ID.
+    *
+    * @return container object ID
+    */
+   public long getObjectId()
+   {
+      return objectId;
+   }
+
+   /**
+    * Get number of descendants with given status.
+    *
+    * @param status object status
+    * @return number of descendants with given status
+    */
+   public int getCount(ObjectStatus status)
+   {
+      return statusCounts[status.getValue()];
+   }
+
+   /**
+    * Get number of descendants of given class with given status.
+    *
+    * @param objectClass object class
+    * @param status object status
+    * @return number of matching descendants
+    */
+   public int getCount(int objectClass, ObjectStatus status)
+   {
+      int[] counts = classCounts.get(objectClass);
+      return (counts != null) ? counts[status.getValue()] : 0;
+   }
+
+   /**
+    * Get number of descendants of given classes with given status.
+    *
+    * @param classFilter object classes (null to count descendants of all classes)
+    * @param status object status
+    * @return number of matching descendants
+    */
+   public int getCount(int[] classFilter, ObjectStatus status)
+   {
+      if (classFilter == null)
+         return getCount(status);
+      int count = 0;
+      for(int c : classFilter)
+         count += getCount(c, status);
+      return count;
+   }
+
+   /**
+    * Get number of descendants of given class.
+    *
+    * @param objectClass object class
+    * @return number of descendants of given class
+    */
+   public int getDescendantCount(int objectClass)
+   {
+      int[] counts = classCounts.get(objectClass);
+      if (counts == null)
+         return 0;
+      int count = 0;
+      for(int c : counts)
+         count += c;
+      return count;
+   }
+
+   /**
+    * Get total number of descendants.
+    *
+    * @return total number of descendants
+    */
+   public int getDescendantCount()
+   {
+      return descendantCount;
+   }
+
+   /**
+    * Get classes of descendants.
+    *
+    * @return set of descendant classes
+    */
+   public Set<Integer> getDescendantClasses()
+   {
+      return Collections.unmodifiableSet(classCounts.keySet());
+   }
+
+   /**
+    * Get most severe status among descendants. Only statuses from NORMAL to CRITICAL are considered.
+    *
+    * @return most severe status or UNKNOWN if there are no descendants with such status
+    */
+   public ObjectStatus getWorstStatus()
+   {
+      for(int i = ObjectStatus.CRITICAL.getValue(); i >= ObjectStatus.NORMAL.getValue(); i--)
+      {
+         if (statusCounts[i] > 0)
+            return ObjectStatus.getByValue(i);
+      }
+      return ObjectStatus.UNKNOWN;
+   }
+
+   /**
+    * Check if this snapshot has same set of descendants as given snapshot.
+    *
+    * @param other other snapshot (can be null)
+    * @return true if set of descendants is the same
+    */
+   public boolean isSameStructure(StatusRollup other)
+   {
+      return (other != null) && (other.descendantCount == descendantCount) && (other.structureHash == structureHash);
+   }
+
+   /**
+    * @see java.lang.Object#equals(java.lang.Object)
+    */
+   @Override
+   public boolean equals(Object obj)
+   {
+      if (this == obj)
+         return true;
+      if (!(obj instanceof StatusRollup))
+         return false;
+      StatusRollup other = (StatusRollup)obj;
+      if ((objectId != other.objectId) || !isSameStructure(other) || !Arrays.equals(statusCounts, other.statusCounts) ||
+          !classCounts.keySet().equals(other.classCounts.keySet()))
+         return false;
+      for(Map.Entry<Integer, int[]> e : classCounts.entrySet())
+      {
+         if (!Arrays.equals(e.getValue(), other.classCounts.get(e.getKey())))
+            return false;
+      }
+      return true;
+   }
+
+   /**
+    * @see java.lang.Object#hashCode()
+    */
+   @Override
+   public int hashCode()
+   {
+      return Long.hashCode(objectId) * 31 + Arrays.hashCode(statusCounts);
+   }
+
+   /**
+    * @see java.lang.Object#toString()
+    */
+   @Override
+   public String toString()
+   {
+      return "StatusRollup [objectId=" + objectId + ", descendantCount=" + descendantCount + ", statusCounts=" + Arrays.toString(statusCounts) + "]";
+   }
+}
@@ -0,0 +1,505 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2023 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.client.objects;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import org.netxms.client.NXCSession;
+import org.netxms.client.SessionListener;
+import org.netxms.client.SessionNotification;
+import org.netxms.client.constants.ObjectStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Incrementally maintained index of status aggregates for object hierarchies. Aggregates are calculated on first request for
+ * given container and then kept up to date from object change notifications: status change of single object updates
+ * aggregates of its tracked ancestors in O(depth), and only changes of parent or child lists cause re-calculation of affected
+ * aggregates. Listeners are notified only when aggregate actually changes.
+ * <p>
+ * Containers tracked with {@link #track(long)} should be released with {@link #release(long)} when no longer needed. Last known
+ * object states are dropped together with last tracked container, so re-tracking always starts from current object states.
+ */
+public class StatusRollupIndex
+{
+   private static final Logger logger = LoggerFactory.getLogger(StatusRollupIndex.class);
+   private static final int STATUS_COUNT = ObjectStatus.values().length;
+
+   private final NXCSession session;
+   private final Map<Long, Aggregate> aggregates = new HashMap<Long, Aggregate>();
+   private final Map<Long, ObjectState> states = new HashMap<Long, ObjectState>();
+   private final Set<StatusRollupListener> listeners = new CopyOnWriteArraySet<StatusRollupListener>();
+   private final SessionListener sessionListener;
+
+   /**
+    * Create new index for given session.
+    *
+    * @param session client session
+    */
+   public StatusRollupIndex(NXCSession session)
+   {
+      this.session = session;
+      sessionListener = (n) -> {
+         switch(n.getCode())
+         {
+            case SessionNotification.OBJECT_CHANGED:
+               onObjectChange((AbstractObject)n.getObject());
+               break;
+            case SessionNotification.OBJECT_DELETED:
+               onObjectDelete(n.getSubCode());
+               break;
+            case SessionNotification.OBJECT_SYNC_COMPLETED:
+               recalculateAll();
+               break;
+         }
+      };
+      session.addListener(sessionListener);
+   }
+
+   /**
+    * Stop tracking object changes.
+    */
+   public void dispose()
+   {
+      session.removeListener(sessionListener);
+      listeners.clear();
+      synchronized(this)
+      {
+         aggregates.clear();
+         states.clear();
+      }
+   }
+
+   /**
+    * Add roll-up change listener.
+    *
+    * @param listener listener to add
+    */
+   public void addListener(StatusRollupListener listener)
+   {
+      listeners.add(listener);
+   }
+
+   /**
+    * Remove roll-up change listener.
+    *
+    * @param listener listener to remove
+    */
+   public void removeListener(StatusRollupListener listener)
+   {
+      listeners.remove(listener);
+   }
+
+   /**
+    * Get status roll-up for given container. Container is tracked from first call of this method.
+    *
+    * @param containerId container object ID
+    * @return status roll-up or null if object is not known
+    */
+   public synchronized StatusRollup getRollup(long containerId)
+   {
+      Aggregate a = getAggregate(containerId);
+      return (a != null) ? a.getSnapshot() : null;
+   }
+
+   /**
+    * Start tracking given container and get its current status roll-up. Each call to this method should be paired with call to
+    * {@link #release(long)}.
+    *
+    * @param containerId container object ID
+    * @return status roll-up or null if object is not known (in that case container is not tracked and should not be released)
+    */
+   public synchronized StatusRollup track(long containerId)
+   {
+      Aggregate a = getAggregate(containerId);
+      if (a == null)
+         return null;
+      a.references++;
+      return a.getSnapshot();
+   }
+
+   /**
+    * Get aggregate for given container, creating it if needed. Must be called with lock held.
+    *
+    * @param containerId container object ID
+    * @return aggregate or null if object is not known
+    */
+   private Aggregate getAggregate(long containerId)
+   {
+      Aggregate a = aggregates.get(containerId);
+      if (a != null)
+         return a;
+
+      AbstractObject root = session.findObjectById(containerId);
+      if (root == null)
+         return null;
+
+      a = new Aggregate(containerId);
+      a.recalculate(root);
+      aggregates.put(containerId, a);
+      logger.debug("Started tracking status roll-up for object " + containerId + " (" + a.descendantCount + " descendants)");
+      return a;
+   }
+
+   /**
+    * Release given container. Container is no longer tracked when all references obtained by {@link #track(long)} are released
+    * (containers tracked only by {@link #getRollup(long)} are released immediately).
+    *
+    * @param containerId container object ID
+    */
+   public synchronized void release(long containerId)
+   {
+      Aggregate a = aggregates.get(containerId);
+      if ((a == null) || (--a.references > 0))
+         return;
+
+      aggregates.remove(containerId);
+      if (aggregates.isEmpty())
+         states.clear(); // Object states are not updated while nothing is tracked
+      logger.debug("Stopped tracking status roll-up for object " + containerId);
+   }
+
+   /**
+    * Check if given container is tracked.
+    *
+    * @param containerId container object ID
+    * @return true if container is tracked
+    */
+   public synchronized boolean isTracked(long containerId)
+   {
+      return aggregates.containsKey(containerId);
+   }
+
+   /**
+    * Handle object change.
+    *
+    * @param object changed object
+    */
+   private void onObjectChange(AbstractObject object)
+   {
+      List<Change> changes = new ArrayList<Change>();
+      synchronized(this)
+      {
+         if (aggregates.isEmpty())
+            return;
+
+         ObjectState prev = states.get(object.getObjectId());
+         ObjectState curr = new ObjectState(object);
+         if ((prev != null) && prev.isSameStructure(curr))
+         {
+            if (prev.status == curr.status)
+               return;
+
+            states.put(object.getObjectId(), curr);
+            for(Long id : findTrackedAncestors(curr.parents))
+            {
+               Aggregate a = aggregates.get(id);
+               StatusRollup before = a.getSnapshot();
+               a.updateStatus(curr.objectClass, prev.status, curr.status);
+               changes.add(new Change(id, before, a.getSnapshot()));
+            }
+         }
+         else
+         {
+            Set<Long> affected = findTrackedAncestors(curr.parents);
+            if (prev != null)
+               affected.addAll(findTrackedAncestors(prev.parents));
+            if (aggregates.containsKey(object.getObjectId()))
+               affected.add(object.getObjectId());
+            if (affected.isEmpty())
+            {
+               if (prev != null)
+                  states.put(object.getObjectId(), curr);
+               return;
+            }
+            states.put(object.getObjectId(), curr);
+            recalculate(affected, changes);
+         }
+      }
+      fireChanges(changes);
+   }
+
+   /**
+    * Handle object deletion.
+    *
+    * @param objectId deleted object ID
+    */
+   private void onObjectDelete(long objectId)
+   {
+      List<Change> changes = new ArrayList<Change>();
+      synchronized(this)
+      {
+         ObjectState prev = states.remove(objectId);
+         Aggregate a = aggregates.remove(objectId);
+         if (a != null)
+            changes.add(new Change(objectId, a.getSnapshot(), null));
+         if (prev != null)
+         {
+            Set<Long> affected = findTrackedAncestors(prev.parents);
+            recalculate(affected, changes);
+         }
+         if (aggregates.isEmpty())
+            states.clear();
+      }
+      fireChanges(changes);
+   }
+
+   /**
+    * Re-calculate all tracked aggregates (after full object synchronization).
+    */
+   private void recalculateAll()
+   {
+      List<Change> changes = new ArrayList<Change>();
+      synchronized(this)
+      {
+         states.clear();
+         recalculate(new HashSet<Long>(aggregates.keySet()), changes);
+      }
+      fireChanges(changes);
+   }
+
+   /**
+    * Re-calculate given aggregates. Must be called with lock held.
+    *
+    * @param ids IDs of containers to re-calculate
+    * @param changes list of changes to be filled
+    */
+   private void recalculate(Set<Long> ids, List<Change> changes)
+   {
+      for(Long id : ids)
+      {
+         Aggregate a = aggregates.get(id);
+         if (a == null)
+            continue;
+
+         StatusRollup before = a.getSnapshot();
+         AbstractObject root = session.findObjectById(id);
+         if (root == null)
+         {
+            aggregates.remove(id);
+            changes.add(new Change(id, before, null));
+            continue;
+         }
+         a.recalculate(root);
+         StatusRollup after = a.getSnapshot();
+         if (!after.equals(before))
+            changes.add(new Change(id, before, after));
+      }
+      if (aggregates.isEmpty())
+         states.clear();
+   }
+
+   /**
+    * Find all tracked containers that are direct or indirect parents of object with given parents. Must be called with lock
+    * held.
+    *
+    * @param parents parents of object
+    * @return set of tracked ancestors
+    */
+   private Set<Long> findTrackedAncestors(long[] parents)
+   {
+      Set<Long> result = new HashSet<Long>();
+      Set<Long> visited = new HashSet<Long>();
+      ArrayDeque<Long> queue = new ArrayDeque<Long>();
+      for(long id : parents)
+         queue.add(id);
+      while(!queue.isEmpty())
+      {
+         Long id = queue.poll();
+         if (!visited.add(id))
+            continue;
+         if (aggregates.containsKey(id))
+            result.add(id);
+         AbstractObject object = session.findObjectById(id);
+         if (object != null)
+         {
+            for(long p : object.getParentIdList())
+               if (!visited.contains(p))
+                  queue.add(p);
+         }
+      }
+      return result;
+   }
+
+   /**
+    * Notify listeners about changes. Must be called without lock held.
+    *
+    * @param changes list of changes
+    */
+   private void fireChanges(List<Change> changes)
+   {
+      for(Change c : changes)
+      {
+         for(StatusRollupListener l : listeners)
+         {
+            try
+            {
+               l.onStatusRollupChange(c.objectId, c.previous, c.current);
+            }
+            catch(Exception e)
+            {
+               logger.error("Exception in status roll-up listener", e);
+            }
+         }
+      }
+   }
+
+   /**
+    * Mix object ID into structure hash
+    *
+    * @param id object ID
+    * @return hash component
+    */
+   private static long mix(long id)
+   {
+      long h = id * 0x9E3779B97F4A7C15L;
+      return h ^ (h >>> 31);
+   }
+
+   /**
+    * Last known state of object as counted in aggregates
+    */
+   private static class ObjectState
+   {
+      final int objectClass;
+      final int status;
+      final long[] parents;
+      final long[] children;
+
+      ObjectState(AbstractObject object)
+      {
+         objectClass = object.getObjectClass();
+         status = object.getStatus().getValue();
+         parents = object.getParentIdList();
+         children = object.getChildIdList();
+         Arrays.sort(parents);
+         Arrays.sort(children);
+      }
+
+      boolean isSameStructure(ObjectState other)
+      {
+         return Arrays.equals(parents, other.parents) && Arrays.equals(children, other.children);
+      }
+   }
+
+   /**
+    * Mutable aggregate for tracked container
+    */
+   private class Aggregate
+   {
+      final long objectId;
+      final int[] statusCounts = new int[STATUS_COUNT];
+      final Map<Integer, int[]> classCounts = new HashMap<Integer, int[]>();
+      int descendantCount = 0;
+      long structureHash = 0;
+      int references = 0;
+      StatusRollup snapshot = null;
+
+      Aggregate(long objectId)
+      {
+         this.objectId = objectId;
+      }
+
+      /**
+       * Re-calculate aggregate by walking subtree. Status of objects already known to the index is taken from last known
+       * state, so aggregates stay consistent with each other until pending change notifications are processed.
+       */
+      void recalculate(AbstractObject root)
+      {
+         Arrays.fill(statusCounts, 0);
+         classCounts.clear();
+         descendantCount = 0;
+         structureHash = 0;
+         snapshot = null;
+
+         Set<Long> visited = new HashSet<Long>();
+         ArrayDeque<Long> queue = new ArrayDeque<Long>();
+         for(long id : root.getChildIdList())
+            queue.add(id);
+         while(!queue.isEmpty())
+         {
+            Long id = queue.poll();
+            if (!visited.add(id))
+               continue;
+            AbstractObject object = session.findObjectById(id);
+            if (object == null)
+               continue;
+
+            ObjectState state = states.get(id);
+            if (state == null)
+            {
+               state = new ObjectState(object);
+               states.put(id, state);
+            }
+            statusCounts[state.status]++;
+            classCounts.computeIfAbsent(state.objectClass, (k) -> new int[STATUS_COUNT])[state.status]++;
+            descendantCount++;
+            structureHash += mix(id);
+
+            for(long c : object.getChildIdList())
+               if (!visited.contains(c))
+                  queue.add(c);
+         }
+      }
+
+      /**
+       * Update aggregate after status change of single descendant.
+       */
+      void updateStatus(int objectClass, int oldStatus, int newStatus)
+      {
+         statusCounts[oldStatus]--;
+         statusCounts[newStatus]++;
+         int[] counts = classCounts.computeIfAbsent(objectClass, (k) -> new int[STATUS_COUNT]);
+         counts[oldStatus]--;
+         counts[newStatus]++;
+         snapshot = null;
+      }
+
+      StatusRollup getSnapshot()
+      {
+         if (snapshot == null)
+            snapshot = new StatusRollup(objectId, statusCounts, classCounts, descendantCount, structureHash);
+         return snapshot;
+      }
+   }
+
+   /**
+    * Roll-up change
+    */
+   private static class Change
+   {
+      final long objectId;
+      final StatusRollup previous;
+      final StatusRollup current;
+
+      Change(long objectId, StatusRollup previous, StatusRollup current)
+      {
+         this.objectId = objectId;
+         this.previous = previous;
+         this.current = current;
+      }
+   }
+}
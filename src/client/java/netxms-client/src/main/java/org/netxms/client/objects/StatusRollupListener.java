@@ -0,0 +1,35 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2023 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.client.objects;
+
+/**
+ * Listener for status roll-up changes
+ */
+@FunctionalInterface
+public interface StatusRollupListener
+{
+   /**
+    * Called when status roll-up for tracked container changes. Called on the thread that processes session notifications.
+    *
+    * @param containerId container object ID
+    * @param previous previous roll-up (null if container was not tracked before)
+    * @param current current roll-up (null if container was deleted)
+    */
+   public void onStatusRollupChange(long containerId, StatusRollup previous, StatusRollup current);
+}
@@ -0,0 +1,172 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2023 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.client.objecttools;
+
+import org.netxms.client.Table;
+
+/**
+ * Result of object tool execution on single target within bulk execution. Instances are updated by owning
+ * {@link BulkToolExecution} as execution progresses.
+ */
+public class BulkExecutionResult
+{
+   /**
+    * Execution status
+    */
+   public enum Status
+   {
+      PENDING,
+      RUNNING,
+      SUCCESS,
+      FAILED,
+      TIMEOUT,
+      CANCELLED;
+
+      /**
+       * Check if this status is final (execution on target is not in progress and is not scheduled).
+       *
+       * @return true if this status is final
+       */
+      public boolean isFinal()
+      {
+         return (this != PENDING) && (this != RUNNING);
+      }
+   }
+
+   private final ObjectContextBase target;
+   volatile Status status = Status.PENDING;
+   volatile int attempts = 0;
+   volatile long startTime = 0;
+   volatile long endTime = 0;
+   volatile String output = null;
+   volatile Table table = null;
+   volatile String errorMessage = null;
+
+   /**
+    * Create result for given target.
+    *
+    * @param target execution target
+    */
+   BulkExecutionResult(ObjectContextBase target)
+   {
+      this.target = target;
+   }
+
+   /**
+    * Get execution target.
+    *
+    * @return execution target
+    */
+   public ObjectContextBase getTarget()
+   {
+      return target;
+   }
+
+   /**
+    * Get ID of target object.
+    *
+    * @return ID of target object
+    */
+   public long getObjectId()
+   {
+      return target.object.getObjectId();
+   }
+
+   /**
+    * Get current execution status.
+    *
+    * @return current execution status
+    */
+   public Status getStatus()
+   {
+      return status;
+   }
+
+   /**
+    * Get number of execution attempts on this target.
+    *
+    * @return number of execution attempts
+    */
+   public int getAttempts()
+   {
+      return attempts;
+   }
+
+   /**
+    * Get start time of last execution attempt.
+    *
+    * @return start time of last execution attempt (milliseconds since epoch) or 0 if not started yet
+    */
+   public long getStartTime()
+   {
+      return startTime;
+   }
+
+   /**
+    * Get elapsed time of last execution attempt. For running attempt time elapsed so far is returned.
+    *
+    * @return elapsed time in milliseconds
+    */
+   public long getElapsedTime()
+   {
+      if (startTime == 0)
+         return 0;
+      return ((endTime != 0) ? endTime : System.currentTimeMillis()) - startTime;
+   }
+
+   /**
+    * Get text output of the tool (only for tools that generate output).
+    *
+    * @return text output or null
+    */
+   public String getOutput()
+   {
+      return output;
+   }
+
+   /**
+    * Get table returned by the tool (only for table tools).
+    *
+    * @return table or null
+    */
+   public Table getTable()
+   {
+      return table;
+   }
+
+   /**
+    * Get error message for failed execution.
+    *
+    * @return error message or null
+    */
+   public String getErrorMessage()
+   {
+      return errorMessage;
+   }
+
+   /**
+    * @see java.lang.Object#toString()
+    */
+   @Override
+   public String toString()
+   {
+      return "BulkExecutionResult [objectId=" + getObjectId() + ", status=" + status + ", attempts=" + attempts + ", errorMessage=" +
+            errorMessage + "]";
+   }
+}
@@ -0,0 +1,661 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2023 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.client.objecttools;
+
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.netxms.client.NXCException;
+import org.netxms.client.NXCSession;
+import org.netxms.client.Table;
+import org.netxms.client.TextOutputListener;
+import org.netxms.client.constants.RCC;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Execution of object tool on multiple targets. Targets are processed by limited number of worker threads, so number of
+ * concurrent requests to server never exceeds configured parallelism. Result for each target is reported to listeners as soon
+ * as it is available.
+ * <p>
+ * If per-target timeout is set, target is marked as timed out when timeout expires, but worker thread remains occupied until
+ * server responds or request times out on session level.
+ */
+public class BulkToolExecution
+{
+   public static final int DEFAULT_PARALLELISM = 8;
+   public static final int DEFAULT_OUTPUT_LIMIT = 65536;
+
+   private static final Logger logger = LoggerFactory.getLogger(BulkToolExecution.class);
+   private static final AtomicInteger executionId = new AtomicInteger(0);
+   private static final ScheduledThreadPoolExecutor watchdog;
+
+   static
+   {
+      watchdog = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+         @Override
+         public Thread newThread(Runnable r)
+         {
+            Thread t = new Thread(r, "Bulk Tool Execution Watchdog");
+            t.setDaemon(true);
+            return t;
+         }
+      });
+      watchdog.setKeepAliveTime(60, TimeUnit.SECONDS);
+      watchdog.allowCoreThreadTimeOut(true);
+      watchdog.setRemoveOnCancelPolicy(true);
+   }
+
+   private final NXCSession session;
+   private final ObjectTool tool;
+   private final Map<String, String> inputValues;
+   private final List<String> maskedFields;
+   private final List<BulkExecutionResult> results;
+   private final List<BulkExecutionListener> listeners = new CopyOnWriteArrayList<BulkExecutionListener>();
+   private int parallelism = DEFAULT_PARALLELISM;
+   private int timeout = 0;
+   private int outputLimit = DEFAULT_OUTPUT_LIMIT;
+   private ThreadPoolExecutor executor = null;
+   private int activeCount = 0;
+
+   /**
+    * Check if given tool can be executed in bulk mode. Tools that are executed on server or agent (actions, server commands, SSH
+    * commands, server scripts, and table tools) are supported.
+    *
+    * @param tool object tool
+    * @return true if given tool can be executed in bulk mode
+    */
+   public static boolean isSupported(ObjectTool tool)
+   {
+      switch(tool.getToolType())
+      {
+         case ObjectTool.TYPE_ACTION:
+         case ObjectTool.TYPE_AGENT_LIST:
+         case ObjectTool.TYPE_AGENT_TABLE:
+         case ObjectTool.TYPE_SERVER_COMMAND:
+         case ObjectTool.TYPE_SERVER_SCRIPT:
+         case ObjectTool.TYPE_SNMP_TABLE:
+         case ObjectTool.TYPE_SSH_COMMAND:
+            return true;
+         default:
+            return false;
+      }
+   }
+
+   /**
+    * Create new bulk execution. Execution should be started by calling <code>start()</code>.
+    *
+    * @param session client session
+    * @param tool object tool to execute
+    * @param targets execution targets
+    * @param inputValues values for tool's input fields (can be null)
+    * @param maskedFields list of input fields whose content should be masked (can be null)
+    */
+   public BulkToolExecution(NXCSession session, ObjectTool tool, Collection<? extends ObjectContextBase> targets, Map<String, String> inputValues,
+         List<String> maskedFields)
+   {
+      if (!isSupported(tool))
+         throw new IllegalArgumentException("Object tool of type " + tool.getToolType() + " cannot be executed in bulk mode");
+      this.session = session;
+      this.tool = tool;
+      this.inputValues = inputValues;
+      this.maskedFields = maskedFields;
+      results = new ArrayList<BulkExecutionResult>(targets.size());
+      for(ObjectContextBase t : targets)
+         results.add(new BulkExecutionResult(t));
+   }
+
+   /**
+    * Set maximum number of targets processed concurrently. Has no effect after execution is started.
+    *
+    * @param parallelism maximum number of targets processed concurrently
+    */
+   public synchronized void setParallelism(int parallelism)
+   {
+      if (executor == null)
+         this.parallelism = Math.max(1, parallelism);
+   }
+
+   /**
+    * Get maximum number of targets processed concurrently.
+    *
+    * @return maximum number of targets processed concurrently
+    */
+   public synchronized int getParallelism()
+   {
+      return parallelism;
+   }
+
+   /**
+    * Set per-target timeout.
+    *
+    * @param timeout per-target timeout in milliseconds (0 to rely on session's command timeout)
+    */
+   public synchronized void setTimeout(int timeout)
+   {
+      this.timeout = Math.max(0, timeout);
+   }
+
+   /**
+    * Get per-target timeout.
+    *
+    * @return per-target timeout in milliseconds (0 if not set)
+    */
+   public synchronized int getTimeout()
+   {
+      return timeout;
+   }
+
+   /**
+    * Set maximum number of characters of tool output kept for each target. Output beyond that limit is discarded.
+    *
+    * @param outputLimit output limit in characters
+    */
+   public synchronized void setOutputLimit(int outputLimit)
+   {
+      this.outputLimit = Math.max(0, outputLimit);
+   }
+
+   /**
+    * Add execution listener.
+    *
+    * @param listener listener to add
+    */
+   public void addListener(BulkExecutionListener listener)
+   {
+      listeners.add(listener);
+   }
+
+   /**
+    * Remove execution listener.
+    *
+    * @param listener listener to remove
+    */
+   public void removeListener(BulkExecutionListener listener)
+   {
+      listeners.remove(listener);
+   }
+
+   /**
+    * Get executed object tool.
+    *
+    * @return executed object tool
+    */
+   public ObjectTool getTool()
+   {
+      return tool;
+   }
+
+   /**
+    * Get results for all targets. Returned list is not modified by execution, but result objects are updated as execution
+    * progresses.
+    *
+    * @return results for all targets
+    */
+   public List<BulkExecutionResult> getResults()
+   {
+      return Collections.unmodifiableList(results);
+   }
+
+   /**
+    * Get number of targets with given status.
+    *
+    * @param status execution status
+    * @return number of targets with given status
+    */
+   public synchronized int getCount(BulkExecutionResult.Status status)
+   {
+      int count = 0;
+      for(BulkExecutionResult r : results)
+      {
+         if (r.status == status)
+            count++;
+      }
+      return count;
+   }
+
+   /**
+    * Start execution.
+    *
+    * @throws IllegalStateException if execution is already started
+    */
+   public void start()
+   {
+      synchronized(this)
+      {
+         if (executor != null)
+            throw new IllegalStateException("Bulk execution already started");
+
+         final int id = executionId.incrementAndGet();
+         executor = new ThreadPoolExecutor(parallelism, parallelism, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+            private int count = 0;
+
+            @Override
+            public Thread newThread(Runnable r)
+            {
+               Thread t = new Thread(r, "Bulk Tool Execution " + id + "/" + (++count));
+               t.setDaemon(true);
+               return t;
+            }
+         });
+         executor.allowCoreThreadTimeOut(true);
+         activeCount = results.size();
+         logger.debug("Starting bulk execution of object tool " + tool.getId() + " on " + results.size() + " targets (parallelism=" + parallelism +
+               ", timeout=" + timeout + ")");
+      }
+
+      if (results.isEmpty())
+      {
+         fireExecutionCompleted();
+         return;
+      }
+
+      for(BulkExecutionResult r : results)
+         schedule(r);
+   }
+
+   /**
+    * Schedule execution on given target.
+    *
+    * @param result result object for target
+    */
+   private void schedule(final BulkExecutionResult result)
+   {
+      executor.execute(new Runnable() {
+         @Override
+         public void run()
+         {
+            processTarget(result);
+         }
+      });
+   }
+
+   /**
+    * Process single target on worker thread.
+    *
+    * @param result result object for target
+    */
+   private void processTarget(final BulkExecutionResult result)
+   {
+      final int attempt;
+      int timeout;
+      synchronized(this)
+      {
+         if (result.status != BulkExecutionResult.Status.PENDING)
+            return; // Cancelled while waiting in queue
+         attempt = ++result.attempts;
+         result.status = BulkExecutionResult.Status.RUNNING;
+         result.startTime = System.currentTimeMillis();
+         result.endTime = 0;
+         result.output = null;
+         result.table = null;
+         result.errorMessage = null;
+         timeout = this.timeout;
+      }
+      fireResultUpdated(result);
+
+      ScheduledFuture<?> timeoutTask = null;
+      if (timeout > 0)
+      {
+         timeoutTask = watchdog.schedule(new Runnable() {
+            @Override
+            public void run()
+            {
+               complete(result, attempt, BulkExecutionResult.Status.TIMEOUT, null, new NXCException(RCC.TIMEOUT).getMessage());
+            }
+         }, timeout, TimeUnit.MILLISECONDS);
+      }
+
+      try
+      {
+         Object output = executeOnTarget(result.getTarget());
+         complete(result, attempt, BulkExecutionResult.Status.SUCCESS, output, null);
+      }
+      catch(Exception e)
+      {
+         logger.debug("Object tool execution on object " + result.getObjectId() + " failed", e);
+         String message = e.getLocalizedMessage();
+         complete(result, attempt, BulkExecutionResult.Status.FAILED, null, (message != null) ? message : e.getClass().getSimpleName());
+      }
+      finally
+      {
+         if (timeoutTask != null)
+            timeoutTask.cancel(false);
+      }
+   }
+
+   /**
+    * Set final status for given execution attempt. Does nothing if attempt is already completed (for example, by timeout).
+    *
+    * @param result result object for target
+    * @param attempt attempt number
+    * @param status final status
+    * @param output tool output (String or Table) or null
+    * @param errorMessage error message or null
+    */
+   private void complete(BulkExecutionResult result, int attempt, BulkExecutionResult.Status status, Object output, String errorMessage)
+   {
+      boolean completed;
+      synchronized(this)
+      {
+         if ((result.attempts != attempt) || (result.status != BulkExecutionResult.Status.RUNNING))
+            return;
+         if (output instanceof Table)
+            result.table = (Table)output;
+         else if (output != null)
+            result.output = output.toString();
+         result.errorMessage = errorMessage;
+         result.endTime = System.currentTimeMillis();
+         result.status = status;
+         completed = (--activeCount == 0);
+         if (completed)
+            notifyAll();
+      }
+      fireResultUpdated(result);
+      if (completed)
+         fireExecutionCompleted();
+   }
+
+   /**
+    * Execute tool on single target. Called on worker thread.
+    *
+    * @param target execution target
+    * @return tool output (String for text output, Table for table tools, null if tool does not produce output)
+    * @throws Exception on execution failure
+    */
+   protected Object executeOnTarget(ObjectContextBase target) throws Exception
+   {
+      long objectId = target.object.getObjectId();
+      long alarmId = (target.alarm != null) ? target.alarm.getId() : 0;
+      boolean receiveOutput = (tool.getFlags() & ObjectTool.GENERATES_OUTPUT) != 0;
+      OutputBuffer output = receiveOutput ? new OutputBuffer(outputLimit) : null;
+      switch(tool.getToolType())
+      {
+         case ObjectTool.TYPE_ACTION:
+            session.executeActionWithExpansion(objectId, alarmId, tool.getData(), receiveOutput, inputValues, maskedFields, null, output);
+            break;
+         case ObjectTool.TYPE_AGENT_LIST:
+         case ObjectTool.TYPE_AGENT_TABLE:
+         case ObjectTool.TYPE_SNMP_TABLE:
+            return session.executeTableTool(tool.getId(), objectId);
+         case ObjectTool.TYPE_SERVER_COMMAND:
+            session.executeServerCommand(objectId, alarmId, tool.getData(), inputValues, maskedFields, receiveOutput, null, output);
+            break;
+         case ObjectTool.TYPE_SERVER_SCRIPT:
+            session.executeLibraryScript(objectId, alarmId, tool.getData(), inputValues, maskedFields, output);
+            break;
+         case ObjectTool.TYPE_SSH_COMMAND:
+            session.executeSshCommand(objectId, alarmId, tool.getData(), inputValues, maskedFields, receiveOutput, null, output);
+            break;
+         default:
+            throw new NXCException(RCC.NOT_IMPLEMENTED);
+      }
+      return (output != null) ? output.toString() : null;
+   }
+
+   /**
+    * Cancel execution. Targets waiting for execution are marked as cancelled. Targets being processed are not interrupted.
+    */
+   public void cancel()
+   {
+      List<BulkExecutionResult> cancelled = new ArrayList<BulkExecutionResult>();
+      boolean completed;
+      synchronized(this)
+      {
+         for(BulkExecutionResult r : results)
+         {
+            if (r.status == BulkExecutionResult.Status.PENDING)
+            {
+               r.status = BulkExecutionResult.Status.CANCELLED;
+               cancelled.add(r);
+            }
+         }
+         activeCount -= cancelled.size();
+         completed = !cancelled.isEmpty() && (activeCount == 0);
+         if (completed)
+            notifyAll();
+      }
+      for(BulkExecutionResult r : cancelled)
+         fireResultUpdated(r);
+      if (completed)
+         fireExecutionCompleted();
+   }
+
+   /**
+    * Retry execution on all targets where it has failed or timed out.
+    *
+    * @return number of targets scheduled for retry
+    * @throws IllegalStateException if execution was not started
+    */
+   public int retryFailed()
+   {
+      List<BulkExecutionResult> retries = new ArrayList<BulkExecutionResult>();
+      synchronized(this)
+      {
+         if (executor == null)
+            throw new IllegalStateException("Bulk execution not started");
+         for(BulkExecutionResult r : results)
+         {
+            if ((r.status == BulkExecutionResult.Status.FAILED) || (r.status == BulkExecutionResult.Status.TIMEOUT))
+            {
+               r.status = BulkExecutionResult.Status.PENDING;
+               retries.add(r);
+            }
+         }
+         activeCount += retries.size();
+      }
+      for(BulkExecutionResult r : retries)
+      {
+         fireResultUpdated(r);
+         schedule(r);
+      }
+      return retries.size();
+   }
+
+   /**
+    * Check if execution is completed (all targets have final status).
+    *
+    * @return true if execution is completed
+    */
+   public synchronized boolean isCompleted()
+   {
+      return (executor != null) && (activeCount == 0);
+   }
+
+   /**
+    * Wait for execution completion.
+    *
+    * @param timeout maximum wait time in milliseconds (0 to wait indefinitely)
+    * @return true if execution is completed
+    * @throws InterruptedException if waiting thread was interrupted
+    */
+   public synchronized boolean waitForCompletion(long timeout) throws InterruptedException
+   {
+      long deadline = System.currentTimeMillis() + timeout;
+      while((executor == null) || (activeCount > 0))
+      {
+         if (timeout > 0)
+         {
+            long waitTime = deadline - System.currentTimeMillis();
+            if (waitTime <= 0)
+               return false;
+            wait(waitTime);
+         }
+         else
+         {
+            wait();
+         }
+      }
+      return true;
+   }
+
+   /**
+    * Notify listeners about result update.
+    *
+    * @param result updated result
+    */
+   private void fireResultUpdated(BulkExecutionResult result)
+   {
+      for(BulkExecutionListener l : listeners)
+      {
+         try
+         {
+            l.resultUpdated(this, result);
+         }
+         catch(Exception e)
+         {
+            logger.error("Exception in bulk execution listener", e);
+         }
+      }
+   }
+
+   /**
+    * Notify listeners about execution completion.
+    */
+   private void fireExecutionCompleted()
+   {
+      logger.debug("Bulk execution of object tool " + tool.getId() + " completed");
+      for(BulkExecutionListener l : listeners)
+      {
+         try
+         {
+            l.executionCompleted(this);
+         }
+         catch(Exception e)
+         {
+            logger.error("Exception in bulk execution listener", e);
+         }
+      }
+   }
+
+   /**
+    * Buffer for tool output with size limit
+    */
+   private static class OutputBuffer extends Writer implements TextOutputListener
+   {
+      private final StringBuilder buffer = new StringBuilder();
+      private final int limit;
+      private boolean truncated = false;
+
+      /**
+       * Create buffer.
+       *
+       * @param limit maximum number of characters to keep
+       */
+      OutputBuffer(int limit)
+      {
+         this.limit = limit;
+      }
+
+      /**
+       * @see java.io.Writer#write(char[], int, int)
+       */
+      @Override
+      public synchronized void write(char[] cbuf, int off, int len)
+      {
+         int size = Math.min(len, limit - buffer.length());
+         if (size > 0)
+            buffer.append(cbuf, off, size);
+         if (size < len)
+            truncated = true;
+      }
+
+      /**
+       * @see java.io.Writer#write(java.lang.String)
+       */
+      @Override
+      public synchronized void write(String str)
+      {
+         int size = Math.min(str.length(), limit - buffer.length());
+         if (size > 0)
+            buffer.append(str, 0, size);
+         if (size < str.length())
+            truncated = true;
+      }
+
+      /**
+       * @see java.io.Writer#flush()
+       */
+      @Override
+      public void flush()
+      {
+      }
+
+      /**
+       * @see java.io.Writer#close()
+       */
+      @Override
+      public void close()
+      {
+      }
+
+      /**
+       * @see org.netxms.client.TextOutputListener#messageReceived(java.lang.String)
+       */
+      @Override
+      public void messageReceived(String text)
+      {
+         write(text);
+      }
+
+      /**
+       * @see org.netxms.client.TextOutputListener#setStreamId(long)
+       */
+      @Override
+      public void setStreamId(long streamId)
+      {
+      }
+
+      /**
+       * @see org.netxms.client.TextOutputListener#onSuccess()
+       */
+      @Override
+      public void onSuccess()
+      {
+      }
+
+      /**
+       * @see org.netxms.client.TextOutputListener#onFailure(java.lang.Exception)
+       */
+      @Override
+      public void onFailure(Exception exception)
+      {
+      }
+
+      /**
+       * @see java.lang.Object#toString()
+       */
+      @Override
+      public synchronized String toString()
+      {
+         return truncated ? buffer.toString() + "\n[output truncated]" : buffer.toString();
+      }
+   }
+}
@@ -61,7 +61,7 @@
     */
    public static ReportResult loadFromFile(final File xmlFile) throws Exception
    {
-      Serializer serializer = XMLTools.createSerializer();
+      Serializer serializer = XMLTools.getSerializer();
       return serializer.read(ReportResult.class, xmlFile, false);
    }
 
@@ -133,7 +133,7 @@ public void fillMessage(NXCPMessage msg, long baseId)
     */
    public String createXml() throws Exception
    {
-      Serializer serializer = XMLTools.createSerializer();
+      Serializer serializer = XMLTools.getSerializer();
       Writer writer = new StringWriter();
       serializer.write(this, writer);
       return writer.toString();
@@ -147,7 +147,7 @@ public String createXml() throws Exception
     */
    public void saveAsXml(File file) throws Exception
    {
-      Serializer serializer = XMLTools.createSerializer();
+      Serializer serializer = XMLTools.getSerializer();
       Writer writer = new FileWriter(file);
       serializer.write(this, writer);
       writer.close();
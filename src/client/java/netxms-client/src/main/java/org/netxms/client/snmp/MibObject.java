@@ -1,6 +1,6 @@
 /**
  * NetXMS - open source network management system
- * Copyright (C) 2003-2022 Victor Kirhenshtein
+ * Copyright (C) 2003-2023 Raden Solutions
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -18,16 +18,9 @@
  */
 package org.netxms.client.snmp;
 
-import java.io.IOException;
-import java.util.HashMap;
-import java.util.Map;
-
-import org.netxms.base.NXCPDataInputStream;
-import org.netxms.client.NXCException;
-import org.netxms.client.constants.RCC;
-
 /**
- * This class represents single MIB tree object.
+ * This class represents single MIB tree object. Objects are lightweight views on MIB tree data and are created on demand, so
+ * same MIB object can be represented by different MibObject instances (which are equal to each other).
  */
 public class MibObject
 {
@@ -92,140 +85,28 @@
 	protected static final int MIB_TAG_TEXTUAL_CONVENTION = 0x0A;
 	protected static final int MIB_END_OF_TAG             = 0x80;
 
-	private long id;
-	private String name;
-	private String description;
-	private String textualConvention;
-	private int type;
-	private int status;
-	private int access;
-	private Map<Long, MibObject> childObjects = new HashMap<Long, MibObject>();
-	private MibObject parent;
-	private SnmpObjectId objectId;
+	private final MibTree tree;
+	private final int index;
 
 	/**
 	 * Default constructor - create empty "[root]" object.
 	 */
 	public MibObject()
 	{
-		id = 0;
-		name = "[root]";
-		description = "";
-		textualConvention = null;
-		type = -1;
-		status = -1;
-		access = -1;
-		parent = null;
-		objectId = null;
+		tree = new MibTree();
+		index = 0;
 	}
 
 	/**
-	 * Read MIB object from compiled MIB file.
+	 * Create view for MIB object stored in given tree.
 	 *
-	 * @param in Input stream attached to MIB file
-	 * @param parent parent MIB object
-	 * @throws IOException if MIB file cannot be read 
-	 * @throws NXCException f MIB file cannot be parsed
-	 */
-	protected MibObject(NXCPDataInputStream in, MibObject parent) throws IOException, NXCException
-	{
-		this.parent = parent;
-		name = null;
-		description = "";
-
-		boolean stop = false;
-		while(!stop)
-		{
-			int tag = in.readUnsignedByte();
-			switch(tag)
-			{
-				case (MIB_TAG_OBJECT | MIB_END_OF_TAG):
-					stop = true;
-					break;
-	         case MIB_TAG_BYTE_OID:
-	         	id = in.readUnsignedByte();
-	         	break;
-	         case MIB_TAG_WORD_OID:
-	         	id = in.readUnsignedShort();
-	         	break;
-	         case MIB_TAG_DWORD_OID:
-	         	id = in.readUnsignedInt();
-	         	break;
-	         case MIB_TAG_NAME:
-	         	name = readStringFromStream(in);
-	         	break;
-	         case MIB_TAG_DESCRIPTION:
-	         	description = readStringFromStream(in);
-	         	break;
-	         case MIB_TAG_TEXTUAL_CONVENTION:
-	         	textualConvention = readStringFromStream(in);
-	         	break;
-	         case MIB_TAG_TYPE:
-	         	type = in.readUnsignedByte();
-	         	break;
-	         case MIB_TAG_STATUS:
-	         	status = in.readUnsignedByte();
-	         	break;
-	         case MIB_TAG_ACCESS:
-	         	access = in.readUnsignedByte();
-	         	break;
-	         case MIB_TAG_OBJECT:
-	         	MibObject object = new MibObject(in, this);
-	         	childObjects.put(object.getId(), object);
-	         	break;
-	         default:
-	         	throw new NXCException(RCC.BAD_MIB_FILE_DATA);
-			}
-
-			// Check closing tag for all tags except OBJECT tags (both opening and closing)
-			if ((tag & ~MIB_END_OF_TAG) != MIB_TAG_OBJECT)
-			{
-				int closeTag = in.readUnsignedByte();
-				if (((closeTag & MIB_END_OF_TAG) == 0) || ((closeTag & ~MIB_END_OF_TAG) != tag))
-	         	throw new NXCException(RCC.BAD_MIB_FILE_DATA);
-			}
-		}
-
-		if (parent == null)
-		{
-			name = "[root]";
-
-			// Set correct full OIDs for all objects in the tree 
-			for(MibObject o : childObjects.values())
-				o.setObjectIdFromParent(null);
-		}
-		else if ((name == null) || name.isEmpty())
-		{
-			name = "#" + Long.toString(id);
-		}
-	}
-
-	/**
-	 * Read string in format <length><value> from input stream
-	 * @param in Input stream
-	 * @return String read
-	 * @throws IOException if I/O error occurs
-	 */
-	private String readStringFromStream(NXCPDataInputStream in) throws IOException
-	{
-		int len = in.readUnsignedShort();
-		if (len == 0)
-			return "";
-
-		byte[] buffer = new byte[len];
-		in.read(buffer);
-		return new String(buffer);
-	}
-
-	/**
-	 * Set OID based on parent's OID
-	 * @param oid Parent's OID
+	 * @param tree MIB tree
+	 * @param index object index within tree
 	 */
-	private void setObjectIdFromParent(SnmpObjectId oid)
+	protected MibObject(MibTree tree, int index)
 	{
-		objectId = new SnmpObjectId(oid, id);
-		for(MibObject o : childObjects.values())
-			o.setObjectIdFromParent(objectId);
+		this.tree = tree;
+		this.index = index;
 	}
 
 	/**
@@ -233,7 +114,7 @@ private void setObjectIdFromParent(SnmpObjectId oid)
 	 */
 	public long getId()
 	{
-		return id;
+		return tree.getId(index);
 	}
 
 	/**
@@ -241,7 +122,7 @@ public long getId()
 	 */
 	public String getName()
 	{
-		return name;
+		return tree.getName(index);
 	}
 
 	/**
@@ -251,15 +132,18 @@ public String getName()
 	 */
 	public String getFullName()
 	{
-		return (parent == null) ? "" : (parent.getFullName() + "." + name);
+		return tree.getFullName(index);
 	}
 
 	/**
+	 * Get object's description. Description may be read from MIB file on each call, so callers should not call this method
+	 * unless description is actually needed.
+	 *
 	 * @return the description
 	 */
 	public String getDescription()
 	{
-		return description;
+		return tree.getDescription(index);
 	}
 
 	/**
@@ -267,7 +151,7 @@ public String getDescription()
 	 */
 	public int getType()
 	{
-		return type;
+		return tree.getType(index);
 	}
 
 	/**
@@ -275,7 +159,7 @@ public int getType()
 	 */
 	public int getStatus()
 	{
-		return status;
+		return tree.getStatus(index);
 	}
 
 	/**
@@ -283,7 +167,7 @@ public int getStatus()
 	 */
 	public int getAccess()
 	{
-		return access;
+		return tree.getAccess(index);
 	}
 	
 	/**
@@ -293,7 +177,10 @@ public int getAccess()
 	 */
 	public MibObject[] getChildObjects()
 	{
-		return childObjects.values().toArray(new MibObject[childObjects.size()]);
+		MibObject[] result = new MibObject[tree.getChildCount(index)];
+		for(int i = 0; i < result.length; i++)
+			result[i] = new MibObject(tree, tree.getChild(index, i));
+		return result;
 	}
 
 	/**
@@ -301,7 +188,8 @@ public MibObject[] getChildObjects()
 	 */
 	public MibObject getParent()
 	{
-		return parent;
+		int parent = tree.getParent(index);
+		return (parent != -1) ? new MibObject(tree, parent) : null;
 	}
 
 	/**
@@ -309,7 +197,7 @@ public MibObject getParent()
 	 */
 	public SnmpObjectId getObjectId()
 	{
-		return objectId;
+		return tree.getObjectId(index);
 	}
 
 	/**
@@ -319,7 +207,7 @@ public SnmpObjectId getObjectId()
 	 */
 	public boolean hasChildren()
 	{
-		return childObjects.size() > 0;
+		return tree.getChildCount(index) > 0;
 	}
 	
 	/**
@@ -330,16 +218,8 @@ public boolean hasChildren()
 	 */
 	protected MibObject findChildObject(SnmpObjectId oid)
 	{
-		long nextId = oid.getIdFromPos((objectId != null) ? objectId.getLength() : 0); 
-		for(MibObject o : childObjects.values())
-		{
-			if (o.getId() == nextId)
-			{
-				MibObject result = o.findChildObject(oid);
-				return (result != null) ? result : o;
-			}
-		}
-		return null;
+		int result = tree.findDescendant(index, oid, tree.getDepth(index));
+		return (result != index) ? new MibObject(tree, result) : null;
 	}
 
 	/**
@@ -347,6 +227,29 @@ protected MibObject findChildObject(SnmpObjectId oid)
 	 */
 	public final String getTextualConvention()
 	{
+		String textualConvention = tree.getTextualConvention(index);
 		return (textualConvention != null) ? textualConvention : "";
 	}
+
+	/**
+	 * @see java.lang.Object#hashCode()
+	 */
+	@Override
+	public int hashCode()
+	{
+		return System.identityHashCode(tree) * 31 + index;
+	}
+
+	/**
+	 * @see java.lang.Object#equals(java.lang.Object)
+	 */
+	@Override
+	public boolean equals(Object obj)
+	{
+		if (this == obj)
+			return true;
+		if (!(obj instanceof MibObject))
+			return false;
+		return (tree == ((MibObject)obj).tree) && (index == ((MibObject)obj).index);
+	}
 }
@@ -1,6 +1,6 @@
 /**
  * NetXMS - open source network management system
- * Copyright (C) 2003-2010 Victor Kirhenshtein
+ * Copyright (C) 2003-2023 Raden Solutions
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -21,126 +21,765 @@
 import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
 import java.util.Arrays;
-
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import org.netxms.base.NXCPDataInputStream;
 import org.netxms.client.NXCException;
 import org.netxms.client.constants.RCC;
 import com.jcraft.jzlib.InflaterInputStream;
 
 /**
- * This class represents MIB tree.
- *
+ * This class represents MIB tree. Tree is stored in compact form - all object attributes are kept in primitive arrays indexed
+ * by object number, and child objects of each object are kept sorted by ID so child lookup is a binary search. MibObject
+ * instances are lightweight views created on demand. Descriptions of objects from uncompressed MIB files are not loaded into
+ * memory but read from file when requested.
  */
 public class MibTree
 {
-	private static final byte[] MIB_FILE_MAGIC_NUMBER = { 0x4E, 0x58, 0x4D, 0x49, 0x42, 0x20 };
-		
-	// MIB file flags
-	protected static final int SMT_COMPRESS_DATA     = 0x0001;
-	protected static final int SMT_SKIP_DESCRIPTIONS = 0x0002;
-	
-	private MibObject root;
-	
-	/**
-	 * Create empty MIB tree
-	 */
-	public MibTree()
-	{
-		root = new MibObject();
-	}
-	
-	/**
-	 * Create MIB tree from compiled MIB file.
-	 * 
-	 * @param file compiled MIB file
-	 * @throws IOException if I/O error occurs
-	 * @throws NXCException if MIB file format errors detected
-	 */
-	public MibTree(File file) throws IOException, NXCException
-	{
-		NXCPDataInputStream in = new NXCPDataInputStream(new BufferedInputStream(new FileInputStream(file)));
-		
-		try
-		{
-			// Read header
-			byte[] magic = new byte[6];
-			int bytes = in.read(magic);
-			if ((bytes != 6) || !Arrays.equals(magic, MIB_FILE_MAGIC_NUMBER))
-				throw new NXCException(RCC.BAD_MIB_FILE_HEADER);
-			int headerSize = in.readUnsignedByte();
-			in.skipBytes(1);	// Skip version field
-			int flags = in.readUnsignedShort();
-			
-			if ((flags & SMT_COMPRESS_DATA) != 0)
-			{
-				in.close();
-				in = null;
-				BufferedInputStream bufferedInput = new BufferedInputStream(new FileInputStream(file));
-				if (bufferedInput.skip(headerSize) != headerSize)
-				{
-				   try
-				   {
-				      bufferedInput.close();
-				   }
-				   catch(IOException e)
-				   {
-				   }
-	            throw new NXCException(RCC.BAD_MIB_FILE_DATA);
-				}
-				in = new NXCPDataInputStream(new InflaterInputStream(bufferedInput));
-			}
-			else
-			{
-				in.skipBytes(headerSize - 10);
-			}
-			
-			int tag = in.readUnsignedByte();
-			if (tag == MibObject.MIB_TAG_OBJECT)
-			{
-				root = new MibObject(in, null);
-			}
-			else
-			{
-				throw new NXCException(RCC.BAD_MIB_FILE_DATA);
-			}
-		}
-		finally
-		{
-			if (in != null)
-				in.close();
-		}
-	}
-
-	/**
-	 * Get root object for MIB tree
-	 * 
-	 * @return the root object
-	 */
-	public MibObject getRootObject()
-	{
-		return root;
-	}
-	
-	/**
-	 * Find matching object in tree. If exactMatch set to true, method will search for object with
-	 * ID equal to given. If exactMatch set to false, and object with given id cannot be found, closest upper level
-	 * object will be returned (i.e., if object .1.3.6.1.5 does not exist in the tree, but .1.3.6.1 does, .1.3.6.1 will
-	 * be returned in search for .1.3.6.1.5).
-	 * 
-	 * @param oid object id to find
-	 * @param exactMatch set to true if exact match required
-	 * @return MIB object or null if matching object not found
-	 */
-	public MibObject findObject(SnmpObjectId oid, boolean exactMatch)
-	{
-		MibObject result = root.findChildObject(oid);
-		if ((result != null) && exactMatch)
-		{
-			if (!oid.equals(result.getObjectId()))
-				return null;
-		}
-		return result;
-	}
+   private static final byte[] MIB_FILE_MAGIC_NUMBER = { 0x4E, 0x58, 0x4D, 0x49, 0x42, 0x20 };
+
+   // MIB file flags
+   protected static final int SMT_COMPRESS_DATA     = 0x0001;
+   protected static final int SMT_SKIP_DESCRIPTIONS = 0x0002;
+
+   private static final int CACHE_SIZE = 8192;
+
+   private int size;
+   private long[] ids;
+   private int[] parents;
+   private int[] firstChild;
+   private int[] childCount;
+   private int[] children;        // child objects grouped by parent and sorted by ID within group
+   private long[] childIds;       // IDs of objects in children array
+   private String[] names;
+   private byte[] types;
+   private byte[] statuses;
+   private byte[] accesses;
+   private long[] descriptions;   // (offset << 16) | length, 0 if there is no description
+   private byte[] descriptionData = null;
+   private Map<Integer, String> textualConventions = new HashMap<Integer, String>(0);
+   private int[] nameIndex = null;
+
+   private File file = null;
+   private long fileSize;
+   private long fileTimestamp;
+
+   private final Map<SnmpObjectId, Integer> oidCache = new LruCache<SnmpObjectId, Integer>(CACHE_SIZE);
+   private final Map<String, Integer> nameCache = new LruCache<String, Integer>(CACHE_SIZE);
+
+   /**
+    * Create empty MIB tree
+    */
+   public MibTree()
+   {
+      allocate(1);
+      addObject(-1);
+      names[0] = "[root]";
+      types[0] = -1;
+      statuses[0] = -1;
+      accesses[0] = -1;
+      buildIndex();
+   }
+
+   /**
+    * Create MIB tree from compiled MIB file.
+    *
+    * @param file compiled MIB file
+    * @throws IOException if I/O error occurs
+    * @throws NXCException if MIB file format errors detected
+    */
+   public MibTree(File file) throws IOException, NXCException
+   {
+      CountingInputStream counter = new CountingInputStream(new BufferedInputStream(new FileInputStream(file)));
+      NXCPDataInputStream in = new NXCPDataInputStream(counter);
+      try
+      {
+         // Read header
+         byte[] magic = new byte[6];
+         int bytes = in.read(magic);
+         if ((bytes != 6) || !Arrays.equals(magic, MIB_FILE_MAGIC_NUMBER))
+            throw new NXCException(RCC.BAD_MIB_FILE_HEADER);
+         int headerSize = in.readUnsignedByte();
+         in.skipBytes(1);  // Skip version field
+         int flags = in.readUnsignedShort();
+
+         if ((flags & SMT_COMPRESS_DATA) != 0)
+         {
+            in.close();
+            in = null;
+            BufferedInputStream bufferedInput = new BufferedInputStream(new FileInputStream(file));
+            if (bufferedInput.skip(headerSize) != headerSize)
+            {
+               try
+               {
+                  bufferedInput.close();
+               }
+               catch(IOException e)
+               {
+               }
+               throw new NXCException(RCC.BAD_MIB_FILE_DATA);
+            }
+            in = new NXCPDataInputStream(new InflaterInputStream(bufferedInput));
+            counter = null;   // Descriptions will be kept in memory
+            descriptionData = new byte[65536];
+         }
+         else
+         {
+            in.skipBytes(headerSize - 10);
+            this.file = file;
+            fileSize = file.length();
+            fileTimestamp = file.lastModified();
+         }
+
+         int tag = in.readUnsignedByte();
+         if (tag != MibObject.MIB_TAG_OBJECT)
+            throw new NXCException(RCC.BAD_MIB_FILE_DATA);
+
+         allocate(4096);
+         load(in, counter);
+      }
+      finally
+      {
+         if (in != null)
+            in.close();
+      }
+      buildIndex();
+   }
+
+   /**
+    * Allocate storage for given number of objects.
+    *
+    * @param capacity new capacity
+    */
+   private void allocate(int capacity)
+   {
+      if (ids == null)
+      {
+         ids = new long[capacity];
+         parents = new int[capacity];
+         names = new String[capacity];
+         types = new byte[capacity];
+         statuses = new byte[capacity];
+         accesses = new byte[capacity];
+         descriptions = new long[capacity];
+      }
+      else
+      {
+         ids = Arrays.copyOf(ids, capacity);
+         parents = Arrays.copyOf(parents, capacity);
+         names = Arrays.copyOf(names, capacity);
+         types = Arrays.copyOf(types, capacity);
+         statuses = Arrays.copyOf(statuses, capacity);
+         accesses = Arrays.copyOf(accesses, capacity);
+         descriptions = Arrays.copyOf(descriptions, capacity);
+      }
+   }
+
+   /**
+    * Add new object.
+    *
+    * @param parent parent object index
+    * @return index of new object
+    */
+   private int addObject(int parent)
+   {
+      if (size == ids.length)
+         allocate(size * 2);
+      int index = size++;
+      parents[index] = parent;
+      return index;
+   }
+
+   /**
+    * Load objects from MIB file. Opening tag of root object should be already read.
+    *
+    * @param in input stream
+    * @param counter counting stream if descriptions should be read lazily from file
+    * @throws IOException if I/O error occurs
+    * @throws NXCException if MIB file cannot be parsed
+    */
+   private void load(NXCPDataInputStream in, CountingInputStream counter) throws IOException, NXCException
+   {
+      Map<String, String> namePool = new HashMap<String, String>();
+      int descriptionDataSize = 0;
+      int current = addObject(-1);
+      while(current != -1)
+      {
+         int tag = in.readUnsignedByte();
+         switch(tag)
+         {
+            case (MibObject.MIB_TAG_OBJECT | MibObject.MIB_END_OF_TAG):
+               if (parents[current] == -1)
+                  names[current] = "[root]";
+               else if ((names[current] == null) || names[current].isEmpty())
+                  names[current] = "#" + Long.toString(ids[current]);
+               current = parents[current];
+               continue;
+            case MibObject.MIB_TAG_OBJECT:
+               current = addObject(current);
+               continue;
+            case MibObject.MIB_TAG_BYTE_OID:
+               ids[current] = in.readUnsignedByte();
+               break;
+            case MibObject.MIB_TAG_WORD_OID:
+               ids[current] = in.readUnsignedShort();
+               break;
+            case MibObject.MIB_TAG_DWORD_OID:
+               ids[current] = in.readUnsignedInt();
+               break;
+            case MibObject.MIB_TAG_NAME:
+               String name = readString(in);
+               String pooled = namePool.putIfAbsent(name, name);
+               names[current] = (pooled != null) ? pooled : name;
+               break;
+            case MibObject.MIB_TAG_DESCRIPTION:
+               int len = in.readUnsignedShort();
+               if (len > 0)
+               {
+                  if (counter != null)
+                  {
+                     descriptions[current] = (counter.getPosition() << 16) | len;
+                     int skipped = 0;
+                     while(skipped < len)
+                     {
+                        int n = in.skipBytes(len - skipped);
+                        if (n <= 0)
+                           throw new NXCException(RCC.BAD_MIB_FILE_DATA);
+                        skipped += n;
+                     }
+                  }
+                  else
+                  {
+                     if (descriptionDataSize + len > descriptionData.length)
+                        descriptionData = Arrays.copyOf(descriptionData, Math.max(descriptionData.length * 2, descriptionDataSize + len));
+                     in.readFully(descriptionData, descriptionDataSize, len);
+                     descriptions[current] = ((long)descriptionDataSize << 16) | len;
+                     descriptionDataSize += len;
+                  }
+               }
+               break;
+            case MibObject.MIB_TAG_TEXTUAL_CONVENTION:
+               textualConventions.put(current, readString(in));
+               break;
+            case MibObject.MIB_TAG_TYPE:
+               types[current] = (byte)in.readUnsignedByte();
+               break;
+            case MibObject.MIB_TAG_STATUS:
+               statuses[current] = (byte)in.readUnsignedByte();
+               break;
+            case MibObject.MIB_TAG_ACCESS:
+               accesses[current] = (byte)in.readUnsignedByte();
+               break;
+            default:
+               throw new NXCException(RCC.BAD_MIB_FILE_DATA);
+         }
+
+         // Check closing tag
+         int closeTag = in.readUnsignedByte();
+         if (((closeTag & MibObject.MIB_END_OF_TAG) == 0) || ((closeTag & ~MibObject.MIB_END_OF_TAG) != tag))
+            throw new NXCException(RCC.BAD_MIB_FILE_DATA);
+      }
+
+      allocate(size);
+      if (descriptionData != null)
+         descriptionData = Arrays.copyOf(descriptionData, descriptionDataSize);
+   }
+
+   /**
+    * Read string in format &lt;length&gt;&lt;value&gt; from input stream
+    *
+    * @param in Input stream
+    * @return String read
+    * @throws IOException if I/O error occurs
+    */
+   private static String readString(NXCPDataInputStream in) throws IOException
+   {
+      int len = in.readUnsignedShort();
+      if (len == 0)
+         return "";
+
+      byte[] buffer = new byte[len];
+      in.readFully(buffer);
+      return new String(buffer);
+   }
+
+   /**
+    * Build child and name indexes.
+    */
+   private void buildIndex()
+   {
+      firstChild = new int[size];
+      childCount = new int[size];
+      for(int i = 1; i < size; i++)
+         childCount[parents[i]]++;
+      for(int i = 1; i < size; i++)
+         firstChild[i] = firstChild[i - 1] + childCount[i - 1];
+
+      children = new int[Math.max(size - 1, 0)];
+      int[] fill = new int[size];
+      for(int i = 1; i < size; i++)
+      {
+         int p = parents[i];
+         children[firstChild[p] + fill[p]++] = i;
+      }
+
+      childIds = new long[children.length];
+      for(int p = 0; p < size; p++)
+      {
+         int start = firstChild[p], end = start + childCount[p];
+         // Insertion sort - number of children is usually small and objects in MIB file are mostly ordered
+         for(int i = start + 1; i < end; i++)
+         {
+            int c = children[i];
+            int j = i - 1;
+            while((j >= start) && (ids[children[j]] > ids[c]))
+            {
+               children[j + 1] = children[j];
+               j--;
+            }
+            children[j + 1] = c;
+         }
+         for(int i = start; i < end; i++)
+            childIds[i] = ids[children[i]];
+      }
+   }
+
+   /**
+    * Build index of objects sorted by name.
+    */
+   private synchronized int[] getNameIndex()
+   {
+      if (nameIndex == null)
+      {
+         Integer[] index = new Integer[size - 1];
+         for(int i = 0; i < index.length; i++)
+            index[i] = i + 1;
+         Arrays.sort(index, (a, b) -> names[a].compareTo(names[b]));
+         nameIndex = new int[index.length];
+         for(int i = 0; i < index.length; i++)
+            nameIndex[i] = index[i];
+      }
+      return nameIndex;
+   }
+
+   /**
+    * Get root object for MIB tree
+    *
+    * @return the root object
+    */
+   public MibObject getRootObject()
+   {
+      return new MibObject(this, 0);
+   }
+
+   /**
+    * Get number of objects in tree (including root object).
+    *
+    * @return number of objects in tree
+    */
+   public int getObjectCount()
+   {
+      return size;
+   }
+
+   /**
+    * Find matching object in tree. If exactMatch set to true, method will search for object with
+    * ID equal to given. If exactMatch set to false, and object with given id cannot be found, closest upper level
+    * object will be returned (i.e., if object .1.3.6.1.5 does not exist in the tree, but .1.3.6.1 does, .1.3.6.1 will
+    * be returned in search for .1.3.6.1.5).
+    *
+    * @param oid object id to find
+    * @param exactMatch set to true if exact match required
+    * @return MIB object or null if matching object not found
+    */
+   public MibObject findObject(SnmpObjectId oid, boolean exactMatch)
+   {
+      Integer cachedIndex;
+      synchronized(oidCache)
+      {
+         cachedIndex = oidCache.get(oid);
+      }
+
+      int index;
+      if (cachedIndex != null)
+      {
+         index = cachedIndex;
+      }
+      else
+      {
+         index = findDescendant(0, oid, 0);
+         if (index == 0)
+            index = -1;
+         synchronized(oidCache)
+         {
+            oidCache.put(oid, index);
+         }
+      }
+
+      if ((index == -1) || (exactMatch && (getDepth(index) != oid.getLength())))
+         return null;
+      return new MibObject(this, index);
+   }
+
+   /**
+    * Find object by name. Name can be either full name as returned by MibObject.getFullName() (starting with dot), or name of
+    * single object. If there are multiple objects with same name, one of them is returned.
+    *
+    * @param name object name
+    * @return MIB object or null if matching object not found
+    */
+   public MibObject findObjectByName(String name)
+   {
+      Integer cachedIndex;
+      synchronized(nameCache)
+      {
+         cachedIndex = nameCache.get(name);
+      }
+
+      int index;
+      if (cachedIndex != null)
+      {
+         index = cachedIndex;
+      }
+      else
+      {
+         index = name.startsWith(".") ? findByFullName(name) : findByName(name);
+         synchronized(nameCache)
+         {
+            nameCache.put(name, index);
+         }
+      }
+      return (index != -1) ? new MibObject(this, index) : null;
+   }
+
+   /**
+    * Find object by full name.
+    *
+    * @param name full name
+    * @return object index or -1
+    */
+   private int findByFullName(String name)
+   {
+      int current = 0;
+      int pos = 1;
+      while(pos <= name.length())
+      {
+         int next = name.indexOf('.', pos);
+         if (next == -1)
+            next = name.length();
+         String element = name.substring(pos, next);
+         int found = -1;
+         for(int i = firstChild[current], end = i + childCount[current]; i < end; i++)
+         {
+            if (names[children[i]].equals(element))
+            {
+               found = children[i];
+               break;
+            }
+         }
+         if (found == -1)
+            return -1;
+         current = found;
+         pos = next + 1;
+      }
+      return (current != 0) ? current : -1;
+   }
+
+   /**
+    * Find object by name.
+    *
+    * @param name object name
+    * @return object index or -1
+    */
+   private int findByName(String name)
+   {
+      int[] index = getNameIndex();
+      int low = 0, high = index.length - 1;
+      while(low <= high)
+      {
+         int mid = (low + high) >>> 1;
+         int rc = names[index[mid]].compareTo(name);
+         if (rc < 0)
+            low = mid + 1;
+         else if (rc > 0)
+            high = mid - 1;
+         else
+            return index[mid];
+      }
+      return -1;
+   }
+
+   /**
+    * Find deepest descendant of given object matching given OID.
+    *
+    * @param index object index
+    * @param oid OID to match
+    * @param pos position in OID matching first level below given object
+    * @return index of deepest matching object or given object index if there are no matching descendants
+    */
+   int findDescendant(int index, SnmpObjectId oid, int pos)
+   {
+      int len = oid.getLength();
+      for(; pos < len; pos++)
+      {
+         int child = findChild(index, oid.getIdFromPos(pos));
+         if (child == -1)
+            break;
+         index = child;
+      }
+      return index;
+   }
+
+   /**
+    * Find direct child of given object with given ID.
+    *
+    * @param index object index
+    * @param id child ID
+    * @return child object index or -1
+    */
+   private int findChild(int index, long id)
+   {
+      int low = firstChild[index], high = low + childCount[index] - 1;
+      while(low <= high)
+      {
+         int mid = (low + high) >>> 1;
+         long midId = childIds[mid];
+         if (midId < id)
+            low = mid + 1;
+         else if (midId > id)
+            high = mid - 1;
+         else
+            return children[mid];
+      }
+      return -1;
+   }
+
+   /**
+    * Get depth of given object (0 for root object).
+    *
+    * @param index object index
+    * @return object depth
+    */
+   int getDepth(int index)
+   {
+      int depth = 0;
+      for(int p = parents[index]; p != -1; p = parents[p])
+         depth++;
+      return depth;
+   }
+
+   /**
+    * Get object ID (last element of OID).
+    */
+   long getId(int index)
+   {
+      return ids[index];
+   }
+
+   /**
+    * Get full OID of given object.
+    */
+   SnmpObjectId getObjectId(int index)
+   {
+      if (index == 0)
+         return null;
+      long[] value = new long[getDepth(index)];
+      for(int i = index, pos = value.length - 1; i > 0; i = parents[i], pos--)
+         value[pos] = ids[i];
+      return new SnmpObjectId(value);
+   }
+
+   /**
+    * Get object name.
+    */
+   String getName(int index)
+   {
+      return names[index];
+   }
+
+   /**
+    * Get full object name.
+    */
+   String getFullName(int index)
+   {
+      if (index == 0)
+         return "";
+      List<String> elements = new ArrayList<String>();
+      for(int i = index; i > 0; i = parents[i])
+         elements.add(names[i]);
+      StringBuilder sb = new StringBuilder();
+      for(int i = elements.size() - 1; i >= 0; i--)
+      {
+         sb.append('.');
+         sb.append(elements.get(i));
+      }
+      return sb.toString();
+   }
+
+   /**
+    * Get object description. Description is read from MIB file if it was not loaded into memory.
+    */
+   String getDescription(int index)
+   {
+      long d = descriptions[index];
+      if (d == 0)
+         return "";
+
+      long offset = d >>> 16;
+      int length = (int)(d & 0xFFFF);
+      if (descriptionData != null)
+         return new String(descriptionData, (int)offset, length);
+
+      // MIB file could be replaced after tree was loaded
+      if ((file.length() != fileSize) || (file.lastModified() != fileTimestamp))
+         return "";
+
+      try (RandomAccessFile raf = new RandomAccessFile(file, "r"))
+      {
+         byte[] buffer = new byte[length];
+         raf.seek(offset);
+         raf.readFully(buffer);
+         return new String(buffer);
+      }
+      catch(IOException e)
+      {
+         return "";
+      }
+   }
+
+   /**
+    * Get textual convention for object.
+    */
+   String getTextualConvention(int index)
+   {
+      return textualConventions.get(index);
+   }
+
+   /**
+    * Get object type.
+    */
+   int getType(int index)
+   {
+      return types[index];
+   }
+
+   /**
+    * Get object status.
+    */
+   int getStatus(int index)
+   {
+      return statuses[index];
+   }
+
+   /**
+    * Get object access.
+    */
+   int getAccess(int index)
+   {
+      return accesses[index];
+   }
+
+   /**
+    * Get parent object index (-1 for root object).
+    */
+   int getParent(int index)
+   {
+      return parents[index];
+   }
+
+   /**
+    * Get number of child objects.
+    */
+   int getChildCount(int index)
+   {
+      return childCount[index];
+   }
+
+   /**
+    * Get child object with given position in list of child objects (objects are sorted by ID).
+    */
+   int getChild(int index, int position)
+   {
+      return children[firstChild[index] + position];
+   }
+
+   /**
+    * Input stream which counts bytes read
+    */
+   private static class CountingInputStream extends FilterInputStream
+   {
+      private long position = 0;
+
+      CountingInputStream(InputStream in)
+      {
+         super(in);
+      }
+
+      long getPosition()
+      {
+         return position;
+      }
+
+      @Override
+      public int read() throws IOException
+      {
+         int b = super.read();
+         if (b != -1)
+            position++;
+         return b;
+      }
+
+      @Override
+      public int read(byte[] b, int off, int len) throws IOException
+      {
+         int bytes = super.read(b, off, len);
+         if (bytes > 0)
+            position += bytes;
+         return bytes;
+      }
+
+      @Override
+      public long skip(long n) throws IOException
+      {
+         long bytes = super.skip(n);
+         position += bytes;
+         return bytes;
+      }
+
+      @Override
+      public boolean markSupported()
+      {
+         return false;
+      }
+   }
+
+   /**
+    * Simple LRU cache
+    */
+   private static class LruCache<K, V> extends LinkedHashMap<K, V>
+   {
+      private static final long serialVersionUID = 1L;
+
+      private final int capacity;
+
+      LruCache(int capacity)
+      {
+         super(capacity * 4 / 3 + 1, 0.75f, true);
+         this.capacity = capacity;
+      }
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<K, V> eldest)
+      {
+         return size() > capacity;
+      }
+   }
 }
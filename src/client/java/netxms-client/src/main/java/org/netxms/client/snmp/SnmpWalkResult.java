@@ -0,0 +1,664 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2023 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.client.snmp;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+/**
+ * Compact storage for SNMP walk results. Varbinds are stored in columnar form: OIDs are packed into shared int array, types
+ * into byte array, and values (UTF-8 encoded) into shared byte arena which can be spilled to temporary file when it grows
+ * beyond configured threshold. Records are accessible in OID order while walk is still running.
+ *
+ * Progress of the walk is reported via bounded queue of cumulative updates (see takeUpdate()). Thread adding records is never
+ * blocked by slow consumer: when queue is full, updates are coalesced, so no data is lost and memory used by queue stays
+ * constant.
+ */
+public class SnmpWalkResult
+{
+   public static final long DEFAULT_SPILL_THRESHOLD = 64L * 1024L * 1024L;
+
+   private static final int UPDATE_QUEUE_SIZE = 16;
+   private static final int SPILL_BUFFER_SIZE = 1024 * 1024;
+   private static final int TYPE_HEX_STRING = 0xFFFF;
+
+   private final long nodeId;
+   private final long spillThreshold;
+   private int count = 0;
+   private int[] oidOffsets = new int[1024];
+   private int[] oidData = new int[8192];
+   private int oidDataSize = 0;
+   private byte[] types = new byte[1024];
+   private long[] valueOffsets = new long[1024];
+   private long valueSize = 0;
+   private byte[] arena = new byte[65536];
+   private int arenaSize = 0;
+   private long arenaStart = 0;  // offset of first byte in arena (non-zero after spill)
+   private File spillFile = null;
+   private FileChannel spillChannel = null;
+   private int[] order = null;   // positions of records in OID order, null if records were added in OID order
+   private volatile boolean complete = false;
+   private final ArrayBlockingQueue<Update> updates = new ArrayBlockingQueue<Update>(UPDATE_QUEUE_SIZE);
+   private boolean pendingReorder = false;
+
+   /**
+    * Update notification
+    */
+   public static final class Update
+   {
+      private final int size;
+      private final boolean reordered;
+      private final boolean last;
+
+      private Update(int size, boolean reordered, boolean last)
+      {
+         this.size = size;
+         this.reordered = reordered;
+         this.last = last;
+      }
+
+      /**
+       * Get number of records in result at the moment of update.
+       *
+       * @return number of records
+       */
+      public int getSize()
+      {
+         return size;
+      }
+
+      /**
+       * Check if some records were inserted before records reported by previous updates (i.e. positions of already reported
+       * records have changed).
+       *
+       * @return true if existing records were re-ordered
+       */
+      public boolean isReordered()
+      {
+         return reordered;
+      }
+
+      /**
+       * Check if this is last update (walk completed).
+       *
+       * @return true if this is last update
+       */
+      public boolean isLast()
+      {
+         return last;
+      }
+   }
+
+   /**
+    * Create new walk result storage with default spill threshold.
+    *
+    * @param nodeId ID of node where walk is performed
+    */
+   public SnmpWalkResult(long nodeId)
+   {
+      this(nodeId, DEFAULT_SPILL_THRESHOLD);
+   }
+
+   /**
+    * Create new walk result storage.
+    *
+    * @param nodeId ID of node where walk is performed
+    * @param spillThreshold size of value data (in bytes) kept in memory before spilling to temporary file (0 to disable spill)
+    */
+   public SnmpWalkResult(long nodeId, long spillThreshold)
+   {
+      this.nodeId = nodeId;
+      this.spillThreshold = spillThreshold;
+   }
+
+   /**
+    * Get ID of node where walk is performed.
+    *
+    * @return node ID
+    */
+   public long getNodeId()
+   {
+      return nodeId;
+   }
+
+   /**
+    * Add record.
+    *
+    * @param oid object ID in text form
+    * @param type ASN.1 type of value
+    * @param value value in text form
+    * @throws IOException if spill file cannot be written
+    */
+   public void add(String oid, int type, String value) throws IOException
+   {
+      byte[] bytes = (value != null) ? value.getBytes(StandardCharsets.UTF_8) : new byte[0];
+      synchronized(this)
+      {
+         if (count + 1 >= oidOffsets.length)
+         {
+            int capacity = oidOffsets.length * 2;
+            oidOffsets = Arrays.copyOf(oidOffsets, capacity);
+            types = Arrays.copyOf(types, capacity);
+            valueOffsets = Arrays.copyOf(valueOffsets, capacity);
+            if (order != null)
+               order = Arrays.copyOf(order, capacity);
+         }
+
+         oidOffsets[count] = oidDataSize;
+         parseOid(oid);
+         oidOffsets[count + 1] = oidDataSize;
+         types[count] = (byte)((type == TYPE_HEX_STRING) ? 0xFF : type);
+         valueOffsets[count] = valueSize;
+         appendValue(bytes);
+         valueOffsets[count + 1] = valueSize;
+
+         insertIntoOrder(count);
+         count++;
+      }
+   }
+
+   /**
+    * Parse OID in text form and append it to OID data.
+    *
+    * @param oid OID in text form
+    */
+   private void parseOid(String oid)
+   {
+      long element = -1;
+      for(int i = 0; i < oid.length(); i++)
+      {
+         char ch = oid.charAt(i);
+         if (ch == '.')
+         {
+            if (element != -1)
+               appendOidElement((int)element);
+            element = -1;
+         }
+         else if ((ch >= '0') && (ch <= '9'))
+         {
+            element = ((element == -1) ? 0 : element * 10) + (ch - '0');
+         }
+         else
+         {
+            return;  // Invalid OID, keep elements parsed so far
+         }
+      }
+      if (element != -1)
+         appendOidElement((int)element);
+   }
+
+   /**
+    * Append OID element.
+    *
+    * @param element OID element
+    */
+   private void appendOidElement(int element)
+   {
+      if (oidDataSize == oidData.length)
+         oidData = Arrays.copyOf(oidData, oidData.length * 2);
+      oidData[oidDataSize++] = element;
+   }
+
+   /**
+    * Append value bytes to value storage, spilling to file if needed.
+    *
+    * @param bytes value bytes
+    * @throws IOException on spill file I/O error
+    */
+   private void appendValue(byte[] bytes) throws IOException
+   {
+      if ((spillChannel == null) && (spillThreshold > 0) && (valueSize + bytes.length > spillThreshold))
+      {
+         spillFile = File.createTempFile("nxwalk", ".tmp");
+         spillFile.deleteOnExit();
+         spillChannel = FileChannel.open(spillFile.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+         flushArena();
+         arena = new byte[SPILL_BUFFER_SIZE];
+      }
+      else if ((spillChannel != null) && (arenaSize + bytes.length > arena.length))
+      {
+         flushArena();
+      }
+
+      if (arenaSize + bytes.length > arena.length)
+         arena = Arrays.copyOf(arena, Math.max(arena.length * 2, arenaSize + bytes.length));
+      System.arraycopy(bytes, 0, arena, arenaSize, bytes.length);
+      arenaSize += bytes.length;
+      valueSize += bytes.length;
+   }
+
+   /**
+    * Write arena content to spill file.
+    *
+    * @throws IOException on I/O error
+    */
+   private void flushArena() throws IOException
+   {
+      ByteBuffer buffer = ByteBuffer.wrap(arena, 0, arenaSize);
+      long position = arenaStart;
+      while(buffer.hasRemaining())
+         position += spillChannel.write(buffer, position);
+      arenaStart += arenaSize;
+      arenaSize = 0;
+   }
+
+   /**
+    * Insert record into OID order.
+    *
+    * @param record record position
+    */
+   private void insertIntoOrder(int record)
+   {
+      if (record == 0)
+         return;
+
+      int last = (order != null) ? order[record - 1] : record - 1;
+      if (compareOid(last, record) < 0)
+      {
+         if (order != null)
+            order[record] = record;
+         return;
+      }
+
+      if (order == null)
+      {
+         order = new int[oidOffsets.length];
+         for(int i = 0; i < record; i++)
+            order[i] = i;
+      }
+
+      int low = 0, high = record - 1;
+      while(low <= high)
+      {
+         int mid = (low + high) >>> 1;
+         if (compareOid(order[mid], record) < 0)
+            low = mid + 1;
+         else
+            high = mid - 1;
+      }
+      System.arraycopy(order, low, order, low + 1, record - low);
+      order[low] = record;
+      pendingReorder = true;
+   }
+
+   /**
+    * Compare OIDs of two records.
+    *
+    * @param r1 first record
+    * @param r2 second record
+    * @return negative, zero, or positive value as first OID is less than, equal to, or greater than second
+    */
+   private int compareOid(int r1, int r2)
+   {
+      int s1 = oidOffsets[r1], e1 = oidOffsets[r1 + 1];
+      int s2 = oidOffsets[r2], e2 = oidOffsets[r2 + 1];
+      for(; (s1 < e1) && (s2 < e2); s1++, s2++)
+      {
+         int rc = Integer.compareUnsigned(oidData[s1], oidData[s2]);
+         if (rc != 0)
+            return rc;
+      }
+      return Integer.compare(e1 - oidOffsets[r1], e2 - oidOffsets[r2]);
+   }
+
+   /**
+    * Get record position for given index in OID order.
+    *
+    * @param index index in OID order
+    * @return record position
+    */
+   private int record(int index)
+   {
+      if ((index < 0) || (index >= count))
+         throw new IndexOutOfBoundsException("Index " + index + " is out of range (size " + count + ")");
+      return (order != null) ? order[index] : index;
+   }
+
+   /**
+    * Get number of records.
+    *
+    * @return number of records
+    */
+   public synchronized int size()
+   {
+      return count;
+   }
+
+   /**
+    * Get total size of value data in bytes.
+    *
+    * @return total size of value data
+    */
+   public synchronized long getValueDataSize()
+   {
+      return valueSize;
+   }
+
+   /**
+    * Check if value data was spilled to disk.
+    *
+    * @return true if value data was spilled to disk
+    */
+   public synchronized boolean isSpilled()
+   {
+      return spillChannel != null;
+   }
+
+   /**
+    * Get object ID of record at given index (records are ordered by OID).
+    *
+    * @param index record index
+    * @return object ID
+    */
+   public synchronized SnmpObjectId getObjectId(int index)
+   {
+      int r = record(index);
+      long[] value = new long[oidOffsets[r + 1] - oidOffsets[r]];
+      for(int i = 0; i < value.length; i++)
+         value[i] = Integer.toUnsignedLong(oidData[oidOffsets[r] + i]);
+      return new SnmpObjectId(value);
+   }
+
+   /**
+    * Get object ID in text form of record at given index.
+    *
+    * @param index record index
+    * @return object ID in text form
+    */
+   public synchronized String getName(int index)
+   {
+      int r = record(index);
+      StringBuilder sb = new StringBuilder();
+      appendName(sb, r);
+      return sb.toString();
+   }
+
+   /**
+    * Append OID of given record to string builder.
+    */
+   private void appendName(StringBuilder sb, int r)
+   {
+      for(int i = oidOffsets[r]; i < oidOffsets[r + 1]; i++)
+      {
+         sb.append('.');
+         sb.append(Integer.toUnsignedString(oidData[i]));
+      }
+   }
+
+   /**
+    * Get ASN.1 type of record at given index.
+    *
+    * @param index record index
+    * @return ASN.1 type
+    */
+   public synchronized int getType(int index)
+   {
+      return decodeType(types[record(index)]);
+   }
+
+   /**
+    * Decode stored type.
+    */
+   private static int decodeType(byte b)
+   {
+      int type = b & 0xFF;
+      return (type == 0xFF) ? TYPE_HEX_STRING : type;
+   }
+
+   /**
+    * Get value of record at given index.
+    *
+    * @param index record index
+    * @return value in text form
+    * @throws IOException if value cannot be read from spill file
+    */
+   public synchronized String getValue(int index) throws IOException
+   {
+      return new String(readValue(record(index)), StandardCharsets.UTF_8);
+   }
+
+   /**
+    * Read value bytes of given record.
+    */
+   private byte[] readValue(int r) throws IOException
+   {
+      long start = valueOffsets[r];
+      byte[] bytes = new byte[(int)(valueOffsets[r + 1] - start)];
+      if (start >= arenaStart)
+      {
+         System.arraycopy(arena, (int)(start - arenaStart), bytes, 0, bytes.length);
+      }
+      else
+      {
+         ByteBuffer buffer = ByteBuffer.wrap(bytes);
+         long position = start;
+         while(buffer.hasRemaining())
+         {
+            int n = spillChannel.read(buffer, position);
+            if (n < 0)
+               throw new IOException("Unexpected end of SNMP walk spill file");
+            position += n;
+         }
+      }
+      return bytes;
+   }
+
+   /**
+    * Create SnmpValue object for record at given index.
+    *
+    * @param index record index
+    * @return SNMP value object
+    * @throws IOException if value cannot be read from spill file
+    */
+   public synchronized SnmpValue getSnmpValue(int index) throws IOException
+   {
+      int r = record(index);
+      StringBuilder sb = new StringBuilder();
+      appendName(sb, r);
+      return new SnmpValue(sb.toString(), decodeType(types[r]), new String(readValue(r), StandardCharsets.UTF_8), nodeId);
+   }
+
+   /**
+    * Get SnmpValue objects for given range of records.
+    *
+    * @param start start index
+    * @param end end index (exclusive)
+    * @return list of SNMP value objects
+    * @throws IOException if value cannot be read from spill file
+    */
+   public synchronized List<SnmpValue> getSnmpValues(int start, int end) throws IOException
+   {
+      List<SnmpValue> values = new ArrayList<SnmpValue>(Math.max(end - start, 0));
+      for(int i = start; i < end; i++)
+         values.add(getSnmpValue(i));
+      return values;
+   }
+
+   /**
+    * Find record with given object ID.
+    *
+    * @param oid object ID
+    * @return index of record or -(insertion point) - 1 if there is no such record
+    */
+   public synchronized int find(SnmpObjectId oid)
+   {
+      int low = 0, high = count - 1;
+      while(low <= high)
+      {
+         int mid = (low + high) >>> 1;
+         int r = record(mid);
+         int rc = 0;
+         int len = oidOffsets[r + 1] - oidOffsets[r];
+         for(int i = 0; (i < len) && (i < oid.getLength()) && (rc == 0); i++)
+            rc = Long.compare(Integer.toUnsignedLong(oidData[oidOffsets[r] + i]), oid.getIdFromPos(i));
+         if (rc == 0)
+            rc = Integer.compare(len, oid.getLength());
+         if (rc < 0)
+            low = mid + 1;
+         else if (rc > 0)
+            high = mid - 1;
+         else
+            return mid;
+      }
+      return -(low + 1);
+   }
+
+   /**
+    * Export records in OID order as CSV (OID, type, value) encoded in UTF-8. Records are written directly from internal
+    * storage.
+    *
+    * @param out output stream
+    * @param typeNameProvider provider for type names (if null, numeric type will be written)
+    * @throws IOException on I/O error
+    */
+   public synchronized void export(OutputStream out, IntFunction<String> typeNameProvider) throws IOException
+   {
+      StringBuilder sb = new StringBuilder();
+      for(int i = 0; i < count; i++)
+      {
+         int r = record(i);
+         sb.setLength(0);
+         sb.append('"');
+         appendName(sb, r);
+         sb.append("\",\"");
+         int type = decodeType(types[r]);
+         sb.append((typeNameProvider != null) ? typeNameProvider.apply(type).replace("\"", "\"\"") : Integer.toString(type));
+         sb.append("\",\"");
+         out.write(sb.toString().getBytes(StandardCharsets.UTF_8));
+
+         byte[] value = readValue(r);
+         int start = 0;
+         for(int j = 0; j < value.length; j++)
+         {
+            if (value[j] == '"')
+            {
+               out.write(value, start, j - start + 1);
+               out.write('"');
+               start = j + 1;
+            }
+         }
+         out.write(value, start, value.length - start);
+         out.write('"');
+         out.write('\n');
+      }
+      out.flush();
+   }
+
+   /**
+    * Mark result as complete and publish last update. Called by walk operation when it ends (successfully or not).
+    */
+   public void complete()
+   {
+      Update update;
+      synchronized(this)
+      {
+         if (complete)
+            return;
+         complete = true;
+         update = new Update(count, pendingReorder, true);
+         pendingReorder = false;
+      }
+
+      // Last update should never be lost - replace pending updates with cumulative one if queue is full
+      while(!updates.offer(update))
+      {
+         Update u = updates.poll();
+         if ((u != null) && u.isReordered())
+            update = new Update(update.size, true, true);
+      }
+   }
+
+   /**
+    * Check if result is complete.
+    *
+    * @return true if walk is completed
+    */
+   public boolean isComplete()
+   {
+      return complete;
+   }
+
+   /**
+    * Publish update for records added since last update. Called by walk operation after each received batch. Never blocks:
+    * if update queue is full, update is coalesced with next one.
+    */
+   public void publishUpdate()
+   {
+      synchronized(this)
+      {
+         if (updates.offer(new Update(count, pendingReorder, false)))
+            pendingReorder = false;
+      }
+   }
+
+   /**
+    * Take next update, waiting up to given timeout if none is available.
+    *
+    * @param timeout timeout in milliseconds
+    * @return update or null if there were no updates within timeout
+    * @throws InterruptedException if calling thread was interrupted while waiting
+    */
+   public Update takeUpdate(long timeout) throws InterruptedException
+   {
+      return updates.poll(timeout, TimeUnit.MILLISECONDS);
+   }
+
+   /**
+    * Release resources (delete spill file).
+    */
+   public synchronized void dispose()
+   {
+      if (spillChannel != null)
+      {
+         try
+         {
+            spillChannel.close();
+         }
+         catch(IOException e)
+         {
+         }
+         spillChannel = null;
+         try
+         {
+            Files.deleteIfExists(spillFile.toPath());
+         }
+         catch(IOException e)
+         {
+         }
+      }
+      count = 0;
+      oidDataSize = 0;
+      valueSize = 0;
+      arenaSize = 0;
+      arenaStart = 0;
+      order = null;
+   }
+}
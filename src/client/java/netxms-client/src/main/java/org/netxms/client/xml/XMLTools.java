@@ -45,6 +45,12 @@
       }
    }
 
+   /**
+    * Shared serializer. Persister caches class schemas it has scanned, so using single instance avoids repeated introspection
+    * of same classes. Persister is thread-safe, so same instance can be used by multiple threads concurrently.
+    */
+   private static volatile Serializer sharedSerializer = null;
+
    /**
     * Dummy filter to prevent expansion of ${name} in XML data
     */
@@ -64,7 +70,11 @@ public String replace(String text)
     */
    public static void registerTransform(Class<?> type, Transform<?> transform)
    {
-      matcher.bind(type, transform);
+      synchronized(XMLTools.class)
+      {
+         matcher.bind(type, transform);
+         sharedSerializer = null; // Persister caches transform lookups, so new instance is needed
+      }
    }
 
    /**
@@ -78,6 +88,31 @@ public static Serializer createSerializer() throws Exception
       return new Persister(new AnnotationStrategy(), filter, matcher);
    }
 
+   /**
+    * Get shared serializer with registered transforms. Returned serializer is thread-safe and caches class schemas, so it is
+    * preferred over creating new serializer for each conversion.
+    *
+    * @return shared serializer with registered transforms
+    * @throws Exception on XML library failures
+    */
+   public static Serializer getSerializer() throws Exception
+   {
+      Serializer serializer = sharedSerializer;
+      if (serializer == null)
+      {
+         synchronized(XMLTools.class)
+         {
+            serializer = sharedSerializer;
+            if (serializer == null)
+            {
+               serializer = createSerializer();
+               sharedSerializer = serializer;
+            }
+         }
+      }
+      return serializer;
+   }
+
    /**
     * Create object from XML document.
     *
@@ -89,8 +124,7 @@ public static Serializer createSerializer() throws Exception
     */
    public static <T> T createFromXml(Class<T> c, String xml) throws Exception
    {
-      Serializer serializer = createSerializer();
-      return serializer.read(c, xml, false);
+      return getSerializer().read(c, xml, false);
    }
 
    /**
@@ -102,9 +136,8 @@ public static <T> T createFromXml(Class<T> c, String xml) throws Exception
     */
    public static String serialize(Object object) throws Exception
    {
-      Serializer serializer = createSerializer();
       Writer writer = new StringWriter();
-      serializer.write(object, writer);
+      getSerializer().write(object, writer);
       return writer.toString();
    }
 }
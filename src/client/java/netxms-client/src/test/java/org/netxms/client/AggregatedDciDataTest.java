@@ -0,0 +1,121 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2023 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.client;
+
+import java.nio.ByteBuffer;
+import java.util.Date;
+import java.util.EnumSet;
+import org.netxms.client.constants.AggregationFunction;
+import org.netxms.client.constants.DataType;
+import org.netxms.client.datacollection.AggregatedDciData;
+import org.netxms.client.datacollection.DciData;
+import org.netxms.client.datacollection.DciDataRow;
+import junit.framework.TestCase;
+
+/**
+ * Tests for aggregated DCI data
+ */
+public class AggregatedDciDataTest extends TestCase
+{
+   public void testParse() throws Exception
+   {
+      // Header and two buckets in format sent by server (descending order, MIN and AVERAGE requested)
+      ByteBuffer buffer = ByteBuffer.allocate(16 + 2 * 24);
+      buffer.putInt(10).putInt(2).putInt(DataType.FLOAT.getValue()).putInt(0x0A);
+      buffer.putInt(1200).putInt(3).putDouble(1.5).putDouble(2.0);
+      buffer.putInt(1140).putInt(2).putDouble(0.5).putDouble(1.0);
+
+      AggregatedDciData data = new AggregatedDciData(1, 10, 60, EnumSet.of(AggregationFunction.AVERAGE, AggregationFunction.MIN), buffer.array());
+      assertEquals(2, data.size());
+      assertEquals(DataType.FLOAT, data.getDataType());
+      assertEquals(1140000L, data.getTimestamps()[0]);
+      assertEquals(1200000L, data.getTimestamps()[1]);
+      assertEquals(2, data.getCounts()[0]);
+      assertEquals(0.5, data.getValues(AggregationFunction.MIN)[0]);
+      assertEquals(2.0, data.getValues(AggregationFunction.AVERAGE)[1]);
+      assertNull(data.getValues(AggregationFunction.MAX));
+
+      DciData series = data.toDciData(AggregationFunction.AVERAGE);
+      DciDataRow[] rows = series.getValues();
+      assertEquals(2, rows.length);
+      assertEquals(1200000L, rows[0].getTimestamp().getTime());
+      assertEquals(1.0, rows[1].getValueAsDouble());
+   }
+
+   public void testLocalAggregation() throws Exception
+   {
+      DciData raw = new DciData(1, 10);
+      raw.addDataRow(new DciDataRow(new Date(130000), Long.valueOf(7)));
+      raw.addDataRow(new DciDataRow(new Date(70000), Long.valueOf(4)));
+      raw.addDataRow(new DciDataRow(new Date(65000), Long.valueOf(2)));
+      raw.addDataRow(new DciDataRow(new Date(60000), Long.valueOf(6)));
+      raw.addDataRow(new DciDataRow(new Date(10000), Long.valueOf(1)));
+
+      AggregatedDciData data = new AggregatedDciData(raw, 60, EnumSet.allOf(AggregationFunction.class), false);
+      assertEquals(3, data.size());
+      assertEquals(0L, data.getTimestamps()[0]);
+      assertEquals(60000L, data.getTimestamps()[1]);
+      assertEquals(120000L, data.getTimestamps()[2]);
+      assertEquals(3, data.getCounts()[1]);
+      assertEquals(2.0, data.getValues(AggregationFunction.MIN)[1]);
+      assertEquals(6.0, data.getValues(AggregationFunction.MAX)[1]);
+      assertEquals(4.0, data.getValues(AggregationFunction.AVERAGE)[1]);
+      assertEquals(12.0, data.getValues(AggregationFunction.SUM)[1]);
+      assertEquals(4.0, data.getValues(AggregationFunction.LAST)[1]);
+      assertEquals(7.0, data.getValues(AggregationFunction.LAST)[2]);
+   }
+
+   public void testChartData() throws Exception
+   {
+      DciData raw = new DciData(1, 10);
+      raw.addDataRow(new DciDataRow(new Date(190000), Long.valueOf(3)));
+      raw.addDataRow(new DciDataRow(new Date(130000), Long.valueOf(9)));
+      raw.addDataRow(new DciDataRow(new Date(125000), Long.valueOf(1)));
+      raw.addDataRow(new DciDataRow(new Date(70000), Long.valueOf(4)));
+      raw.addDataRow(new DciDataRow(new Date(65000), Long.valueOf(2)));
+      raw.addDataRow(new DciDataRow(new Date(10000), Long.valueOf(5)));
+
+      AggregatedDciData data = new AggregatedDciData(raw, 60, EnumSet.of(AggregationFunction.MIN, AggregationFunction.MAX), false);
+      try
+      {
+         data.toChartDciData();
+         fail("Conversion without AVERAGE should fail");
+      }
+      catch(IllegalArgumentException e)
+      {
+      }
+
+      data = new AggregatedDciData(raw, 60, EnumSet.of(AggregationFunction.MIN, AggregationFunction.MAX, AggregationFunction.AVERAGE), false);
+      DciDataRow[] rows = data.toChartDciData().getValues();
+      double[] expected = { 3, 9, 5, 1, 2, 3, 4, 5 }; // newest to oldest
+      long[] expectedTimestamps = { 180000, 160000, 140000, 120000, 100000, 80000, 60000, 0 };
+      assertEquals(expected.length, rows.length);
+      for(int i = 0; i < rows.length; i++)
+      {
+         assertEquals(expectedTimestamps[i], rows[i].getTimestamp().getTime());
+         assertEquals(expected[i], rows[i].getValueAsDouble());
+      }
+   }
+
+   public void testCalculateInterval()
+   {
+      assertEquals(1, AggregatedDciData.calculateInterval(new Date(0), new Date(600000), 2000));
+      assertEquals(3942, AggregatedDciData.calculateInterval(new Date(0), new Date(365L * 86400000L), 8000));
+   }
+}
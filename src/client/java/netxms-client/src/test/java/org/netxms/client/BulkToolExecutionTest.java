@@ -0,0 +1,196 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2023 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.client;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.netxms.base.NXCPMessage;
+import org.netxms.client.constants.RCC;
+import org.netxms.client.objects.Container;
+import org.netxms.client.objecttools.BulkExecutionListener;
+import org.netxms.client.objecttools.BulkExecutionResult;
+import org.netxms.client.objecttools.BulkToolExecution;
+import org.netxms.client.objecttools.ObjectContextBase;
+import org.netxms.client.objecttools.ObjectTool;
+import junit.framework.TestCase;
+
+/**
+ * Tests for bulk object tool execution (without server connection)
+ */
+public class BulkToolExecutionTest extends TestCase
+{
+   private NXCSession session = new NXCSession("127.0.0.1");
+
+   /**
+    * Create list of execution targets.
+    */
+   private List<ObjectContextBase> createTargets(int count)
+   {
+      List<ObjectContextBase> targets = new ArrayList<ObjectContextBase>(count);
+      for(int i = 1; i <= count; i++)
+      {
+         NXCPMessage msg = TestSession.createObjectMessage(i, new long[0], new long[0]);
+         targets.add(new ObjectContextBase(new Container(msg, session), null));
+      }
+      return targets;
+   }
+
+   /**
+    * Create server script tool.
+    */
+   private static ObjectTool createTool()
+   {
+      return new ObjectTool() {
+         {
+            type = TYPE_SERVER_SCRIPT;
+            data = "test";
+         }
+      };
+   }
+
+   public void testUnsupportedTool() throws Exception
+   {
+      ObjectTool tool = new ObjectTool() {
+         {
+            type = TYPE_LOCAL_COMMAND;
+         }
+      };
+      assertFalse(BulkToolExecution.isSupported(tool));
+      try
+      {
+         new BulkToolExecution(session, tool, createTargets(1), null, null);
+         fail("IllegalArgumentException expected");
+      }
+      catch(IllegalArgumentException e)
+      {
+      }
+   }
+
+   public void testParallelismAndRetry() throws Exception
+   {
+      final AtomicInteger running = new AtomicInteger(0);
+      final AtomicInteger maxRunning = new AtomicInteger(0);
+      final AtomicInteger updates = new AtomicInteger(0);
+      final CountDownLatch completed = new CountDownLatch(2);
+      final CountDownLatch firstRunCompleted = new CountDownLatch(1);
+      final boolean[] failEnabled = new boolean[] { true };
+
+      BulkToolExecution execution = new BulkToolExecution(session, createTool(), createTargets(50), null, null) {
+         @Override
+         protected Object executeOnTarget(ObjectContextBase target) throws Exception
+         {
+            int n = running.incrementAndGet();
+            maxRunning.accumulateAndGet(n, Math::max);
+            try
+            {
+               Thread.sleep(5);
+               if (failEnabled[0] && (target.object.getObjectId() % 5 == 0))
+                  throw new NXCException(RCC.ACCESS_DENIED);
+               return "output " + target.object.getObjectId();
+            }
+            finally
+            {
+               running.decrementAndGet();
+            }
+         }
+      };
+      execution.setParallelism(4);
+      execution.addListener(new BulkExecutionListener() {
+         @Override
+         public void resultUpdated(BulkToolExecution execution, BulkExecutionResult result)
+         {
+            updates.incrementAndGet();
+         }
+
+         @Override
+         public void executionCompleted(BulkToolExecution execution)
+         {
+            completed.countDown();
+            firstRunCompleted.countDown();
+         }
+      });
+      execution.start();
+      assertTrue(execution.waitForCompletion(10000));
+      assertTrue(firstRunCompleted.await(1, TimeUnit.SECONDS)); // last result update is delivered before completion notification
+      assertTrue(maxRunning.get() <= 4);
+      assertEquals(40, execution.getCount(BulkExecutionResult.Status.SUCCESS));
+      assertEquals(10, execution.getCount(BulkExecutionResult.Status.FAILED));
+      assertEquals(100, updates.get());
+      for(BulkExecutionResult r : execution.getResults())
+      {
+         if (r.getStatus() == BulkExecutionResult.Status.SUCCESS)
+            assertEquals("output " + r.getObjectId(), r.getOutput());
+         else
+            assertNotNull(r.getErrorMessage());
+      }
+
+      failEnabled[0] = false;
+      assertEquals(10, execution.retryFailed());
+      assertTrue(execution.waitForCompletion(10000));
+      assertTrue(completed.await(1, TimeUnit.SECONDS));
+      assertEquals(50, execution.getCount(BulkExecutionResult.Status.SUCCESS));
+      for(BulkExecutionResult r : execution.getResults())
+         assertEquals((r.getObjectId() % 5 == 0) ? 2 : 1, r.getAttempts());
+   }
+
+   public void testTimeout() throws Exception
+   {
+      BulkToolExecution execution = new BulkToolExecution(session, createTool(), createTargets(6), null, null) {
+         @Override
+         protected Object executeOnTarget(ObjectContextBase target) throws Exception
+         {
+            Thread.sleep((target.object.getObjectId() % 2 == 0) ? 500 : 1);
+            return null;
+         }
+      };
+      execution.setParallelism(6);
+      execution.setTimeout(100);
+      execution.start();
+      assertTrue(execution.waitForCompletion(400));
+      assertEquals(3, execution.getCount(BulkExecutionResult.Status.SUCCESS));
+      assertEquals(3, execution.getCount(BulkExecutionResult.Status.TIMEOUT));
+   }
+
+   public void testCancel() throws Exception
+   {
+      final CountDownLatch started = new CountDownLatch(1);
+      final CountDownLatch release = new CountDownLatch(1);
+      BulkToolExecution execution = new BulkToolExecution(session, createTool(), createTargets(20), null, null) {
+         @Override
+         protected Object executeOnTarget(ObjectContextBase target) throws Exception
+         {
+            started.countDown();
+            release.await();
+            return null;
+         }
+      };
+      execution.setParallelism(1);
+      execution.start();
+      assertTrue(started.await(5, TimeUnit.SECONDS));
+      execution.cancel();
+      assertFalse(execution.isCompleted());
+      release.countDown();
+      assertTrue(execution.waitForCompletion(5000));
+      assertEquals(1, execution.getCount(BulkExecutionResult.Status.SUCCESS));
+      assertEquals(19, execution.getCount(BulkExecutionResult.Status.CANCELLED));
+   }
+}
@@ -0,0 +1,122 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2023 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.client;
+
+import org.netxms.base.NXCPCodes;
+import org.netxms.base.NXCPMessage;
+import org.netxms.client.constants.DataType;
+import org.netxms.client.datacollection.DataCollectionObject;
+import org.netxms.client.datacollection.DciValue;
+import org.netxms.client.datacollection.LastValuesChangeSet;
+import org.netxms.client.datacollection.LastValuesMerger;
+import junit.framework.TestCase;
+
+/**
+ * Tests for incremental last values merging
+ */
+public class LastValuesMergerTest extends TestCase
+{
+   /**
+    * Create response message in format used by server for CMD_GET_LAST_VALUES.
+    *
+    * @param timestamp change cursor
+    * @param dciList list of all DCI IDs (null for full update)
+    * @param values values as array of (DCI ID, value, timestamp) triplets
+    */
+   private static NXCPMessage createResponse(long timestamp, long[] dciList, Object... values)
+   {
+      NXCPMessage msg = new NXCPMessage(NXCPCodes.CMD_REQUEST_COMPLETED, 1);
+      long base = NXCPCodes.VID_DCI_VALUES_BASE;
+      for(int i = 0; i < values.length; i += 3, base += 50)
+      {
+         long fieldId = base;
+         msg.setFieldInt32(fieldId++, 100);
+         msg.setFieldInt32(fieldId++, (Integer)values[i]);
+         msg.setField(fieldId++, "Metric" + values[i]);
+         msg.setFieldInt32(fieldId++, 0);
+         msg.setField(fieldId++, "DCI " + values[i]);
+         msg.setFieldInt16(fieldId++, 1);
+         msg.setFieldInt16(fieldId++, DataType.INT32.getValue());
+         msg.setField(fieldId++, (String)values[i + 1]);
+         msg.setFieldInt64(fieldId++, (Long)values[i + 2]);
+         msg.setFieldInt16(fieldId++, DataCollectionObject.ACTIVE);
+         msg.setFieldInt16(fieldId++, DataCollectionObject.DCO_TYPE_ITEM);
+         msg.setFieldInt32(fieldId++, 0);
+         msg.setFieldInt32(fieldId++, 0);
+         msg.setField(fieldId++, "");
+         msg.setFieldInt32(fieldId++, 0);
+         msg.setFieldInt32(fieldId++, 0);
+         msg.setField(fieldId++, false);
+         msg.setField(fieldId++, "");
+         msg.setField(fieldId++, false);
+      }
+      msg.setFieldInt32(NXCPCodes.VID_NUM_ITEMS, values.length / 3);
+      if (dciList != null)
+         msg.setField(NXCPCodes.VID_DCI_LIST, dciList);
+      msg.setFieldInt64(NXCPCodes.VID_TIMESTAMP, timestamp);
+      return msg;
+   }
+
+   public void testMerge() throws Exception
+   {
+      LastValuesMerger merger = new LastValuesMerger(100);
+      assertNull(merger.getCursor());
+
+      LastValuesMerger.Changes changes = merger.merge(new LastValuesChangeSet(createResponse(1000, null, 1, "10", 990L, 2, "20", 990L, 3, "30", 990L), false));
+      assertTrue(changes.isFullUpdate());
+      assertEquals(3, changes.getAddedValues().size());
+      assertTrue(changes.isStructureChanged());
+      assertEquals(1000000L, merger.getCursor().getTime());
+      DciValue v1 = merger.getValue(1);
+      DciValue v3 = merger.getValue(3);
+
+      // DCI 2 changed, DCI 3 resent unchanged
+      changes = merger.merge(new LastValuesChangeSet(createResponse(1030, new long[] { 1, 2, 3 }, 2, "21", 1020L, 3, "30", 990L), true));
+      assertFalse(changes.isFullUpdate());
+      assertFalse(changes.isStructureChanged());
+      assertEquals(1, changes.getUpdatedValues().size());
+      assertEquals("21", changes.getUpdatedValues().get(0).getValue());
+      assertSame(v1, merger.getValue(1));
+      assertSame(v3, merger.getValue(3));
+      assertEquals(1030000L, merger.getCursor().getTime());
+
+      // DCI 1 deleted, DCI 4 added
+      changes = merger.merge(new LastValuesChangeSet(createResponse(1060, new long[] { 2, 3, 4 }, 4, "40", 1050L), true));
+      assertTrue(changes.isStructureChanged());
+      assertEquals(1, changes.getAddedValues().size());
+      assertEquals(1, changes.getRemovedValues().size());
+      assertSame(v1, changes.getRemovedValues().get(0));
+      assertNull(merger.getValue(1));
+      assertEquals(3, merger.getValues().length);
+
+      // No changes
+      changes = merger.merge(new LastValuesChangeSet(createResponse(1090, new long[] { 2, 3, 4 }), true));
+      assertTrue(changes.isEmpty());
+
+      // Full update from server without incremental request support replaces value set
+      changes = merger.merge(new LastValuesChangeSet(createResponse(1120, null, 3, "31", 1110L), false));
+      assertEquals(2, changes.getRemovedValues().size());
+      assertEquals(1, changes.getUpdatedValues().size());
+      assertEquals(1, merger.getValues().length);
+
+      merger.reset();
+      assertNull(merger.getCursor());
+      assertEquals(0, merger.getValues().length);
+   }
+}
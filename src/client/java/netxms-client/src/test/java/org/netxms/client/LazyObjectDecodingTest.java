@@ -0,0 +1,103 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2023 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.client;
+
+import org.netxms.base.NXCPCodes;
+import org.netxms.base.NXCPMessage;
+import org.netxms.client.objects.AbstractObject;
+import org.netxms.client.objects.Container;
+import junit.framework.TestCase;
+
+/**
+ * Tests for lazy object decoding. Decoding time is measured by LazyObjectDecodingBenchmark in benchmarks module.
+ */
+public class LazyObjectDecodingTest extends TestCase
+{
+   public void testLazyDecoding() throws Exception
+   {
+      NXCSession session = new NXCSession("127.0.0.1");
+      AbstractObject eager = new Container(TestSession.createDetailedObjectMessage(42), session);
+      assertTrue(eager.isFullyDecoded());
+
+      session.setLazyObjectDecoding(true);
+      AbstractObject lazy = new Container(TestSession.createDetailedObjectMessage(42), session);
+      assertFalse(lazy.isFullyDecoded());
+      assertEquals("container42", lazy.getObjectName());
+      assertFalse(lazy.isInheritAccessRights());
+      assertFalse(lazy.isDecoded(AbstractObject.DEFERRED_CUSTOM_ATTRIBUTES));
+
+      // Only requested group should be decoded
+      assertEquals(eager.getCustomAttributes().size(), lazy.getCustomAttributes().size());
+      assertTrue(lazy.isDecoded(AbstractObject.DEFERRED_CUSTOM_ATTRIBUTES));
+      assertFalse(lazy.isDecoded(AbstractObject.DEFERRED_URLS));
+      assertFalse(lazy.isDecoded(AbstractObject.DEFERRED_ACCESS_LIST));
+      assertFalse(lazy.isFullyDecoded());
+      assertEquals(eager.getCustomAttributeValue("attribute3"), lazy.getCustomAttributeValue("attribute3"));
+
+      assertEquals(eager.getAccessList().length, lazy.getAccessList().length);
+      assertTrue(lazy.isDecoded(AbstractObject.DEFERRED_ACCESS_LIST));
+      assertFalse(lazy.isDecoded(AbstractObject.DEFERRED_URLS));
+
+      assertEquals(eager.getUrls().get(0).getUrl().toString(), lazy.getUrls().get(0).getUrl().toString());
+      assertEquals(eager.getResponsibleUsers().get(0).tag, lazy.getResponsibleUsers().get(0).tag);
+      assertEquals(eager.getGeolocation().getType(), lazy.getGeolocation().getType());
+      assertEquals(eager.getGeolocation().getLatitude(), lazy.getGeolocation().getLatitude());
+      assertEquals(eager.getPostalAddress().getAddressLine(), lazy.getPostalAddress().getAddressLine());
+      assertFalse(lazy.isFullyDecoded());
+
+      PollState[] eagerPollStates = ((Container)eager).getPollStates();
+      PollState[] lazyPollStates = ((Container)lazy).getPollStates();
+      assertEquals(3, lazyPollStates.length);
+      for(int i = 0; i < 3; i++)
+      {
+         assertEquals(eagerPollStates[i].getPollType(), lazyPollStates[i].getPollType());
+         assertEquals(eagerPollStates[i].getLastCompleted(), lazyPollStates[i].getLastCompleted());
+         assertEquals(eagerPollStates[i].isPending(), lazyPollStates[i].isPending());
+         assertEquals(eagerPollStates[i].getLastRunTime(), lazyPollStates[i].getLastRunTime());
+      }
+      assertEquals(eager.getStrings(), lazy.getStrings());
+      assertNull(lazy.getModuleData("test"));
+      assertTrue(lazy.isFullyDecoded());
+   }
+
+   public void testEmptyGroups() throws Exception
+   {
+      NXCSession session = new NXCSession("127.0.0.1");
+      session.setLazyObjectDecoding(true);
+
+      NXCPMessage msg = TestSession.createObjectMessage(NXCPCodes.CMD_OBJECT, 10, AbstractObject.OBJECT_CONTAINER, "empty", new long[0], new long[0]);
+      msg.setFieldInt32(NXCPCodes.VID_NUM_CUSTOM_ATTRIBUTES, 1);
+      msg.setField(NXCPCodes.VID_CUSTOM_ATTRIBUTES_BASE, "attribute");
+      msg.setField(NXCPCodes.VID_CUSTOM_ATTRIBUTES_BASE + 1, "value");
+
+      // Groups without fields are decoded immediately
+      AbstractObject object = new Container(msg, session);
+      assertFalse(object.isFullyDecoded());
+      assertTrue(object.isDecoded(AbstractObject.DEFERRED_URLS));
+      assertTrue(object.isDecoded(AbstractObject.DEFERRED_GEOLOCATION));
+      assertTrue(object.getUrls().isEmpty());
+      assertEquals(0, object.getAccessList().length);
+      assertNotNull(object.getGeolocation());
+      assertNotNull(object.getPostalAddress());
+      assertNull(((Container)object).getPollStates());
+      assertFalse(object.isFullyDecoded());
+      assertEquals("value", object.getCustomAttributeValue("attribute"));
+      assertTrue(object.isFullyDecoded());
+   }
+}
@@ -0,0 +1,234 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2023 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.client;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.DeflaterOutputStream;
+import org.netxms.client.snmp.MibObject;
+import org.netxms.client.snmp.MibTree;
+import org.netxms.client.snmp.SnmpObjectId;
+import junit.framework.TestCase;
+
+/**
+ * Tests for MibTree class. Compiled MIB files are generated by test itself.
+ */
+public class MibTreeTest extends TestCase
+{
+   private static final int TAG_OBJECT = 0x01;
+   private static final int TAG_NAME = 0x02;
+   private static final int TAG_DESCRIPTION = 0x03;
+   private static final int TAG_TYPE = 0x06;
+   private static final int TAG_BYTE_OID = 0x07;
+   private static final int TAG_WORD_OID = 0x08;
+   private static final int TAG_DWORD_OID = 0x09;
+   private static final int END_OF_TAG = 0x80;
+
+   private List<SnmpObjectId> generatedOids = new ArrayList<SnmpObjectId>();
+
+   /**
+    * Write object with given ID and random number of children.
+    */
+   private void writeObject(DataOutputStream out, List<Long> path, long id, int depth, Random random) throws IOException
+   {
+      out.writeByte(TAG_OBJECT);
+      if (id < 256)
+      {
+         out.writeByte(TAG_BYTE_OID);
+         out.writeByte((int)id);
+         out.writeByte(TAG_BYTE_OID | END_OF_TAG);
+      }
+      else if (id < 65536)
+      {
+         out.writeByte(TAG_WORD_OID);
+         out.writeShort((int)id);
+         out.writeByte(TAG_WORD_OID | END_OF_TAG);
+      }
+      else
+      {
+         out.writeByte(TAG_DWORD_OID);
+         out.writeInt((int)id);
+         out.writeByte(TAG_DWORD_OID | END_OF_TAG);
+      }
+      writeString(out, TAG_NAME, "obj" + id + "d" + depth);
+      writeString(out, TAG_DESCRIPTION, "Description of " + path + "." + id);
+      out.writeByte(TAG_TYPE);
+      out.writeByte(depth);
+      out.writeByte(TAG_TYPE | END_OF_TAG);
+
+      path.add(id);
+      long[] oid = new long[path.size()];
+      for(int i = 0; i < oid.length; i++)
+         oid[i] = path.get(i);
+      generatedOids.add(new SnmpObjectId(oid));
+
+      int childCount = (depth < 3) ? 10 + random.nextInt(10) : ((depth < 5) ? random.nextInt(8) : 0);
+      for(int i = 0; i < childCount; i++)
+         writeObject(out, path, (i == 0) ? 100000 + random.nextInt(100000) : i * 50 + random.nextInt(50), depth + 1, random);
+
+      path.remove(path.size() - 1);
+      out.writeByte(TAG_OBJECT | END_OF_TAG);
+   }
+
+   /**
+    * Write string tag.
+    */
+   private static void writeString(DataOutputStream out, int tag, String s) throws IOException
+   {
+      byte[] bytes = s.getBytes();
+      out.writeByte(tag);
+      out.writeShort(bytes.length);
+      out.write(bytes);
+      out.writeByte(tag | END_OF_TAG);
+   }
+
+   /**
+    * Generate compiled MIB file.
+    */
+   private File generateMibFile(boolean compress) throws IOException
+   {
+      generatedOids.clear();
+
+      ByteArrayOutputStream data = new ByteArrayOutputStream();
+      DataOutputStream out = new DataOutputStream(data);
+      out.writeByte(TAG_OBJECT);
+      writeString(out, TAG_NAME, "root");
+      Random random = new Random(1);
+      List<Long> path = new ArrayList<Long>();
+      for(int i = 1; i <= 3; i++)
+         writeObject(out, path, i, 1, random);
+      out.writeByte(TAG_OBJECT | END_OF_TAG);
+      out.flush();
+
+      File file = File.createTempFile("mibtree", ".mib");
+      file.deleteOnExit();
+      try (FileOutputStream fout = new FileOutputStream(file))
+      {
+         DataOutputStream header = new DataOutputStream(fout);
+         header.write(new byte[] { 0x4E, 0x58, 0x4D, 0x49, 0x42, 0x20 });
+         header.writeByte(16); // header size
+         header.writeByte(2);  // version
+         header.writeShort(compress ? 1 : 0);
+         header.write(new byte[6]);
+         header.flush();
+         OutputStream body = compress ? new DeflaterOutputStream(fout) : fout;
+         body.write(data.toByteArray());
+         body.flush();
+         if (compress)
+            ((DeflaterOutputStream)body).finish();
+      }
+      return file;
+   }
+
+   /**
+    * Check tree loaded from generated file.
+    */
+   private void checkTree(MibTree tree)
+   {
+      assertEquals(generatedOids.size() + 1, tree.getObjectCount());
+      assertEquals("[root]", tree.getRootObject().getName());
+      assertNull(tree.getRootObject().getObjectId());
+
+      for(SnmpObjectId oid : generatedOids)
+      {
+         MibObject object = tree.findObject(oid, true);
+         assertNotNull(object);
+         assertEquals(oid, object.getObjectId());
+         assertEquals(object, tree.findObject(oid, false));
+         assertEquals(object, tree.findObjectByName(object.getFullName()));
+      }
+
+      MibObject object = tree.findObject(generatedOids.get(generatedOids.size() / 2), true);
+      String description = object.getDescription();
+      assertTrue(description.startsWith("Description of "));
+      assertTrue(description.endsWith("." + object.getId()));
+      assertEquals(object.getObjectId().getLength(), object.getType());
+      assertTrue(Arrays.asList(object.getParent().getChildObjects()).contains(object));
+
+      // Instance OIDs resolve to closest object
+      SnmpObjectId instance = new SnmpObjectId(object.getObjectId(), 999999);
+      assertNull(tree.findObject(instance, true));
+      assertEquals(object, tree.findObject(instance, false));
+      assertNull(tree.findObject(new SnmpObjectId(new long[] { 42, 1 }), false));
+
+      MibObject byName = tree.findObjectByName(object.getName());
+      assertNotNull(byName);
+      assertEquals(object.getName(), byName.getName());
+      assertNull(tree.findObjectByName("no-such-object"));
+
+      MibObject[] children = tree.getRootObject().getChildObjects();
+      assertEquals(3, children.length);
+      for(int i = 1; i < children.length; i++)
+         assertTrue(children[i - 1].getId() < children[i].getId());
+   }
+
+   public void testUncompressedFile() throws Exception
+   {
+      File file = generateMibFile(false);
+      checkTree(new MibTree(file));
+      file.delete();
+   }
+
+   public void testCompressedFile() throws Exception
+   {
+      File file = generateMibFile(true);
+      checkTree(new MibTree(file));
+      file.delete();
+   }
+
+   public void testEmptyTree() throws Exception
+   {
+      MibTree tree = new MibTree();
+      assertEquals(1, tree.getObjectCount());
+      assertFalse(tree.getRootObject().hasChildren());
+      assertNull(tree.findObject(new SnmpObjectId(new long[] { 1, 3, 6 }), false));
+      assertEquals(-1, new MibObject().getType());
+   }
+
+   /**
+    * Resolve random OIDs (existing objects with random instance suffixes) and check that each one resolves to closest object.
+    * Instance suffix may match existing child object.
+    */
+   public void testResolveInstances() throws Exception
+   {
+      File file = generateMibFile(false);
+      MibTree tree = new MibTree(file);
+      Random random = new Random(2);
+      for(int i = 0; i < 10000; i++)
+      {
+         SnmpObjectId oid = generatedOids.get(random.nextInt(generatedOids.size()));
+         SnmpObjectId query = random.nextBoolean() ? new SnmpObjectId(oid, random.nextInt(64)) : oid;
+         MibObject object = tree.findObject(query, false);
+         assertNotNull(object);
+         assertTrue(object.getObjectId().startsWith(oid));
+         assertTrue(query.startsWith(object.getObjectId()));
+         assertEquals(object.getObjectId().equals(query), tree.findObject(query, true) != null);
+         assertNotNull(object.getName());
+      }
+      file.delete();
+   }
+}
@@ -0,0 +1,148 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2023 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.client;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.netxms.base.NXCPCodes;
+import org.netxms.base.NXCPMessage;
+import org.netxms.client.maps.NetworkMapLink;
+import org.netxms.client.maps.configs.LinkConfig;
+import org.netxms.client.xml.XMLTools;
+import junit.framework.TestCase;
+
+/**
+ * Tests for network map link decoding
+ */
+public class NetworkMapLinkTest extends TestCase
+{
+   private static final long BASE_ID = NXCPCodes.VID_LINK_LIST_BASE;
+
+   /**
+    * Create message with link data in format sent by server.
+    */
+   private static NXCPMessage createLinkMessage(int count, String configXml)
+   {
+      NXCPMessage msg = new NXCPMessage(NXCPCodes.CMD_OBJECT);
+      long fieldId = BASE_ID;
+      for(int i = 0; i < count; i++, fieldId += 20)
+      {
+         msg.setFieldInt32(fieldId, i + 1);
+         msg.setField(fieldId + 1, "link" + i);
+         msg.setFieldInt16(fieldId + 2, NetworkMapLink.NORMAL);
+         msg.setFieldInt32(fieldId + 3, 100 + i);
+         msg.setFieldInt32(fieldId + 4, 200 + i);
+         msg.setField(fieldId + 5, "eth0");
+         msg.setField(fieldId + 6, "eth1");
+         msg.setFieldInt32(fieldId + 7, 0);
+         msg.setFieldInt16(fieldId + 8, NetworkMapLink.COLOR_SOURCE_DEFAULT);
+         msg.setFieldInt32(fieldId + 9, 0);
+         msg.setField(fieldId + 10, "");
+         msg.setField(fieldId + 11, configXml);
+      }
+      return msg;
+   }
+
+   /**
+    * Create link configuration XML.
+    */
+   private static String createConfigXml() throws Exception
+   {
+      List<Long> statusObjects = new ArrayList<Long>(Arrays.asList(10L, 20L, 30L));
+      LinkConfig config = new LinkConfig(null, statusObjects, NetworkMapLink.ROUTING_BENDPOINTS, new long[] { 1, 2, 3, 4 }, true, false);
+      return config.createXml();
+   }
+
+   public void testLazyConfigDecoding() throws Exception
+   {
+      String xml = createConfigXml();
+      NetworkMapLink link = new NetworkMapLink(createLinkMessage(1, xml), BASE_ID);
+      assertEquals(1, link.getId());
+      assertEquals(100, link.getElement1());
+      assertEquals(NetworkMapLink.ROUTING_BENDPOINTS, link.getRouting());
+      assertEquals(Arrays.asList(10L, 20L, 30L), link.getStatusObjects());
+      assertEquals(4, link.getBendPoints().length);
+   }
+
+   public void testUnchangedConfigPassthrough() throws Exception
+   {
+      String xml = createConfigXml();
+      NetworkMapLink link = new NetworkMapLink(createLinkMessage(1, xml), BASE_ID);
+      NXCPMessage msg = new NXCPMessage(NXCPCodes.CMD_MODIFY_OBJECT);
+      link.fillMessage(msg, BASE_ID);
+      assertEquals(xml, msg.getFieldAsString(BASE_ID + 11));
+
+      link.setRouting(NetworkMapLink.ROUTING_DIRECT);
+      msg = new NXCPMessage(NXCPCodes.CMD_MODIFY_OBJECT);
+      link.fillMessage(msg, BASE_ID);
+      LinkConfig config = XMLTools.createFromXml(LinkConfig.class, msg.getFieldAsString(BASE_ID + 11));
+      assertEquals(NetworkMapLink.ROUTING_DIRECT, config.getRouting());
+      assertEquals(Arrays.asList(10L, 20L, 30L), config.getObjectStatusList());
+   }
+
+   public void testInvalidConfig() throws Exception
+   {
+      NetworkMapLink link = new NetworkMapLink(createLinkMessage(1, "<invalid"), BASE_ID);
+      assertEquals(NetworkMapLink.ROUTING_DEFAULT, link.getRouting());
+      assertNotNull(link.getConfig());
+   }
+
+   public void testConfigNotParsedUntilAccessed() throws Exception
+   {
+      // Invalid configuration is passed back unchanged as long as it was not parsed
+      NXCPMessage source = createLinkMessage(100, "<invalid");
+      List<NetworkMapLink> links = new ArrayList<NetworkMapLink>();
+      long fieldId = BASE_ID;
+      for(int i = 0; i < 100; i++, fieldId += 20)
+         links.add(new NetworkMapLink(source, fieldId));
+      for(NetworkMapLink link : links)
+      {
+         NXCPMessage msg = new NXCPMessage(NXCPCodes.CMD_MODIFY_OBJECT);
+         link.fillMessage(msg, BASE_ID);
+         assertEquals("<invalid", msg.getFieldAsString(BASE_ID + 11));
+      }
+
+      // After access configuration is replaced by parsed (default) one
+      NetworkMapLink link = links.get(0);
+      assertEquals(NetworkMapLink.ROUTING_DEFAULT, link.getRouting());
+      NXCPMessage msg = new NXCPMessage(NXCPCodes.CMD_MODIFY_OBJECT);
+      link.fillMessage(msg, BASE_ID);
+      LinkConfig config = XMLTools.createFromXml(LinkConfig.class, msg.getFieldAsString(BASE_ID + 11));
+      assertEquals(NetworkMapLink.ROUTING_DEFAULT, config.getRouting());
+   }
+
+   public void testParsedConfigRoundTrip() throws Exception
+   {
+      String xml = createConfigXml();
+      NetworkMapLink link = new NetworkMapLink(createLinkMessage(1, xml), BASE_ID);
+      assertEquals(4, link.getBendPoints().length);
+
+      NXCPMessage msg = new NXCPMessage(NXCPCodes.CMD_MODIFY_OBJECT);
+      link.fillMessage(msg, BASE_ID);
+      assertEquals(1, msg.getFieldAsInt64(BASE_ID));
+      assertEquals("link0", msg.getFieldAsString(BASE_ID + 1));
+      assertEquals(100, msg.getFieldAsInt64(BASE_ID + 5));
+      assertEquals(200, msg.getFieldAsInt64(BASE_ID + 6));
+      LinkConfig config = XMLTools.createFromXml(LinkConfig.class, msg.getFieldAsString(BASE_ID + 11));
+      assertEquals(NetworkMapLink.ROUTING_BENDPOINTS, config.getRouting());
+      assertEquals(Arrays.asList(10L, 20L, 30L), config.getObjectStatusList());
+      assertTrue(Arrays.equals(new long[] { 1, 2, 3, 4 }, config.getBendPoints()));
+   }
+}
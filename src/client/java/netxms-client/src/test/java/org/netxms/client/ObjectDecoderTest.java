@@ -0,0 +1,166 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2023 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.client;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import org.netxms.base.NXCPCodes;
+import org.netxms.base.NXCPMessage;
+import org.netxms.client.objects.AbstractObject;
+import junit.framework.TestCase;
+
+/**
+ * Tests for object decoding pipeline
+ */
+public class ObjectDecoderTest extends TestCase
+{
+   private static final int OBJECTS = 1000;
+   private static final int UPDATES = 20;
+
+   /**
+    * Create object message in format sent by server.
+    */
+   private static NXCPMessage createObjectMessage(long id, int version, boolean deleted)
+   {
+      return createObjectMessage(NXCPCodes.CMD_OBJECT, id, version, deleted);
+   }
+
+   /**
+    * Create object message with given code in format sent by server.
+    */
+   private static NXCPMessage createObjectMessage(int code, long id, int version, boolean deleted)
+   {
+      NXCPMessage msg = TestSession.createObjectMessage(code, id, AbstractObject.OBJECT_CONTAINER, "object" + id + "." + version, new long[0], new long[0]);
+      msg.setField(NXCPCodes.VID_IS_DELETED, deleted);
+      return msg;
+   }
+
+   /**
+    * Submit several versions of each object and check that last one is committed.
+    */
+   private static void runOrderingTest(int threads) throws Exception
+   {
+      NXCSession session = new NXCSession("127.0.0.1");
+      ObjectDecoder decoder = new ObjectDecoder(session);
+      decoder.setThreadCount(threads);
+      try
+      {
+         decoder.syncStarted();
+         for(int version = 0; version < UPDATES; version++)
+            for(long id = 1; id <= OBJECTS; id++)
+               decoder.submit(createObjectMessage(id, version, false));
+         for(long id = 1; id <= OBJECTS; id += 10)
+            decoder.submit(createObjectMessage(id, UPDATES, true));
+         decoder.flush();
+         decoder.syncCompleted();
+
+         for(long id = 1; id <= OBJECTS; id++)
+         {
+            AbstractObject object = session.findObjectById(id);
+            if (id % 10 == 1)
+            {
+               assertNull(object);
+            }
+            else
+            {
+               assertNotNull(object);
+               assertEquals("object" + id + "." + (UPDATES - 1), object.getObjectName());
+               assertSame(object, session.findObjectByGUID(new UUID(0, id)));
+            }
+         }
+
+         ObjectSyncStatistics stats = decoder.getStatistics();
+         assertEquals(threads, stats.getDecoderThreads());
+         assertEquals(OBJECTS * UPDATES, stats.getObjectsDecoded());
+         assertEquals(OBJECTS * UPDATES, stats.getLastSyncObjects());
+         assertEquals(0, stats.getPendingUpdates());
+         ObjectSyncStatistics.ClassStatistics cs = stats.getClassStatistics().get(AbstractObject.OBJECT_CONTAINER);
+         assertNotNull(cs);
+         assertEquals(OBJECTS * UPDATES, cs.getCount());
+      }
+      finally
+      {
+         decoder.shutdown();
+      }
+   }
+
+   public void testInlineDecoding() throws Exception
+   {
+      runOrderingTest(0);
+   }
+
+   public void testParallelDecoding() throws Exception
+   {
+      runOrderingTest(4);
+   }
+
+   public void testDefaultThreadCount() throws Exception
+   {
+      assertEquals(0, new ObjectDecoder(new NXCSession("127.0.0.1")).getThreadCount());
+   }
+
+   public void testNotificationOrder() throws Exception
+   {
+      TestSession session = new TestSession();
+      ObjectDecoder decoder = new ObjectDecoder(session);
+      decoder.setThreadCount(4);
+      List<Long> expected = new ArrayList<Long>();
+      try
+      {
+         for(int version = 0; version < UPDATES; version++)
+            for(long id = 1; id <= OBJECTS; id++)
+            {
+               decoder.submit(createObjectMessage(NXCPCodes.CMD_OBJECT_UPDATE, id, version, false));
+               expected.add(id);
+            }
+         for(long id = 1; id <= OBJECTS; id += 10)
+         {
+            decoder.submit(createObjectMessage(NXCPCodes.CMD_OBJECT_UPDATE, id, UPDATES, true));
+            expected.add(-id);
+         }
+      }
+      finally
+      {
+         // Shutdown should commit all pending updates without explicit flush
+         decoder.shutdown();
+      }
+
+      assertEquals(0, decoder.getStatistics().getPendingUpdates());
+      List<SessionNotification> notifications = session.getNotifications();
+      assertEquals(expected.size(), notifications.size());
+      for(int i = 0; i < expected.size(); i++)
+      {
+         SessionNotification n = notifications.get(i);
+         long id = expected.get(i);
+         if (id < 0)
+         {
+            assertEquals(SessionNotification.OBJECT_DELETED, n.getCode());
+            assertEquals(-id, n.getSubCode());
+         }
+         else
+         {
+            assertEquals(SessionNotification.OBJECT_CHANGED, n.getCode());
+            assertEquals(id, n.getSubCode());
+         }
+      }
+      assertNull(session.findObjectById(1));
+      assertEquals("object2." + (UPDATES - 1), session.findObjectById(2).getObjectName());
+   }
+}
@@ -0,0 +1,136 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2023 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.client;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.netxms.base.NXCPCodes;
+import org.netxms.base.NXCPMessage;
+import org.netxms.client.constants.RCC;
+import junit.framework.TestCase;
+
+/**
+ * Tests for session metrics collection
+ */
+public class SessionMetricsTest extends TestCase
+{
+   private static NXCPMessage createResponse(long id, int rcc)
+   {
+      NXCPMessage msg = new NXCPMessage(NXCPCodes.CMD_REQUEST_COMPLETED, id);
+      msg.setFieldInt32(NXCPCodes.VID_RCC, rcc);
+      return msg;
+   }
+
+   public void testRequestStatistics() throws Exception
+   {
+      SessionMetricsCollector collector = new SessionMetricsCollector();
+      final List<RequestTrace> traces = new ArrayList<RequestTrace>();
+      collector.addTraceListener((t) -> traces.add(t));
+
+      NXCPMessage request = new NXCPMessage(NXCPCodes.CMD_GET_OBJECTS, 1);
+      request.setField(NXCPCodes.VID_OBJECT_NAME, "test");
+      collector.messageSent(request, 100);
+      Thread.sleep(5);
+      collector.responseReceived(1, createResponse(1, RCC.SUCCESS));
+      collector.responseReceived(1, createResponse(1, RCC.SUCCESS)); // second response for same request should be ignored
+
+      collector.messageSent(new NXCPMessage(NXCPCodes.CMD_GET_OBJECTS, 2), 16);
+      collector.responseReceived(2, createResponse(2, RCC.ACCESS_DENIED));
+
+      collector.messageSent(new NXCPMessage(NXCPCodes.CMD_KEEPALIVE, 3), 16);
+      collector.requestFailed(3, false);
+
+      collector.messageSent(new NXCPMessage(NXCPCodes.CMD_REQUEST_COMPLETED, 4), 16); // response to server, not tracked
+
+      SessionMetrics metrics = collector.createSnapshot(null, 0, null);
+      assertEquals(4, metrics.getMessagesSent());
+      assertEquals(148, metrics.getBytesSent());
+      assertEquals(request.getEncodedSize() + 48, metrics.getBytesSentUncompressed());
+      assertEquals(0, metrics.getPendingRequests());
+      assertEquals(2, metrics.getRequestCount());
+      assertEquals(1, metrics.getRequestErrors());
+      assertEquals(1, metrics.getRequestTimeouts());
+
+      SessionMetrics.CommandStatistics s = metrics.getCommandStatistics().get(NXCPCodes.CMD_GET_OBJECTS);
+      assertNotNull(s);
+      assertEquals("CMD_GET_OBJECTS", s.getCommandName());
+      assertEquals(2, s.getCount());
+      assertEquals(1, s.getErrors());
+      assertTrue(s.getMaxTime() >= 5);
+      long total = 0;
+      for(long c : s.getHistogram())
+         total += c;
+      assertEquals(2, total);
+      assertTrue(s.getPercentile(100) >= 5);
+      assertEquals(1, metrics.getCommandStatistics().get(NXCPCodes.CMD_KEEPALIVE).getTimeouts());
+
+      assertEquals(3, traces.size());
+      assertEquals(RequestTrace.Status.SUCCESS, traces.get(0).getStatus());
+      assertEquals(100, traces.get(0).getBytesSent());
+      assertEquals(RequestTrace.Status.ERROR, traces.get(1).getStatus());
+      assertEquals(RCC.ACCESS_DENIED, traces.get(1).getRCC());
+      assertEquals(RequestTrace.Status.TIMEOUT, traces.get(2).getStatus());
+      assertEquals("CMD_KEEPALIVE", traces.get(2).getCommandName());
+
+      assertEquals(2L, metrics.toMap().get("requests.CMD_GET_OBJECTS.count"));
+   }
+
+   public void testTraceThreshold() throws Exception
+   {
+      SessionMetricsCollector collector = new SessionMetricsCollector();
+      final List<RequestTrace> traces = new ArrayList<RequestTrace>();
+      collector.addTraceListener((t) -> traces.add(t));
+      collector.setTraceThreshold(20);
+
+      collector.messageSent(new NXCPMessage(NXCPCodes.CMD_GET_ALARM, 1), 16);
+      collector.responseReceived(1, createResponse(1, RCC.SUCCESS));
+      collector.messageSent(new NXCPMessage(NXCPCodes.CMD_GET_ALARM, 2), 16);
+      Thread.sleep(30);
+      collector.responseReceived(2, createResponse(2, RCC.SUCCESS));
+
+      assertEquals(1, traces.size());
+      assertEquals(2, traces.get(0).getRequestId());
+      assertTrue(traces.get(0).getDurationMillis() >= 20);
+   }
+
+   public void testNotificationStatistics()
+   {
+      SessionMetricsCollector collector = new SessionMetricsCollector();
+      collector.notificationProcessed(1000000);
+      collector.notificationProcessed(3000000);
+      collector.notificationDropped();
+
+      SessionMetrics metrics = collector.createSnapshot(null, 5, null);
+      assertEquals(5, metrics.getNotificationQueueSize());
+      assertEquals(2, metrics.getNotificationsProcessed());
+      assertEquals(1, metrics.getNotificationsDropped());
+      assertEquals(2.0, metrics.getAverageListenerTime(), 0.001);
+      assertEquals(3.0, metrics.getMaxListenerTime(), 0.001);
+   }
+
+   public void testSessionMetrics()
+   {
+      NXCSession session = new NXCSession("127.0.0.1");
+      SessionMetrics metrics = session.getMetrics();
+      assertEquals(0, metrics.getRequestCount());
+      assertEquals(0, metrics.getWaitQueueSize());
+      assertNotNull(metrics.getObjectSyncStatistics());
+      assertEquals("0xFFFE", SessionMetrics.getCommandName(0xFFFE));
+   }
+}
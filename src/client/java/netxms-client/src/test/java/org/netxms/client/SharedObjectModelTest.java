@@ -0,0 +1,282 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2023 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.client;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.netxms.base.NXCPCodes;
+import org.netxms.base.NXCPMessage;
+import org.netxms.client.constants.UserAccessRights;
+import org.netxms.client.objects.AbstractObject;
+import org.netxms.client.objects.Container;
+import junit.framework.TestCase;
+
+/**
+ * Tests for shared object model access control (without server connection). Object hierarchy is 1 (hidden root) -&gt; 2
+ * (visible container) -&gt; 3 (hidden child).
+ */
+public class SharedObjectModelTest extends TestCase
+{
+   private static final int READ = UserAccessRights.OBJECT_ACCESS_READ;
+   private static final int ALL = UserAccessRights.OBJECT_ACCESS_READ | UserAccessRights.OBJECT_ACCESS_MODIFY;
+
+   private TestSession backend;
+   private SharedObjectModel model;
+   private UserSession restricted;
+   private UserSession privileged;
+   private ExecutorService worker;
+
+   /**
+    * User session with effective rights provided by simulated server.
+    */
+   private class UserSession extends TestSession
+   {
+      final Map<Long, Integer> serverRights = new HashMap<Long, Integer>();
+      volatile int rightsRequests = 0;
+
+      @Override
+      public int getEffectiveRights(long objectId)
+      {
+         Integer rights = serverRights.get(objectId);
+         return (rights != null) ? rights : 0;
+      }
+
+      @Override
+      public synchronized int[] getEffectiveRights(long[] objects)
+      {
+         assertFalse("Model lock held during rights request", Thread.holdsLock(model));
+         rightsRequests++;
+         int[] rights = new int[objects.length];
+         for(int i = 0; i < objects.length; i++)
+            rights[i] = getEffectiveRights(objects[i]);
+         return rights;
+      }
+   }
+
+   /**
+    * Create object message with at most one parent and one child.
+    */
+   private static NXCPMessage createObjectMessage(long id, long parentId, long childId)
+   {
+      return TestSession.createObjectMessage(id, (parentId != 0) ? new long[] { parentId } : new long[0], (childId != 0) ? new long[] { childId } : new long[0]);
+   }
+
+   /**
+    * @see junit.framework.TestCase#setUp()
+    */
+   @Override
+   protected void setUp() throws Exception
+   {
+      backend = new TestSession();
+      backend.loadObjects(createObjectMessage(1, 0, 2), createObjectMessage(2, 1, 3), createObjectMessage(3, 2, 0));
+
+      model = new SharedObjectModel(backend);
+      model.initialize();
+
+      restricted = new UserSession();
+      restricted.serverRights.put(2L, READ);
+      model.attach(restricted);
+
+      privileged = new UserSession();
+      for(long id = 1; id <= 3; id++)
+         privileged.serverRights.put(id, ALL);
+      model.attach(privileged);
+
+      worker = Executors.newSingleThreadExecutor();
+   }
+
+   /**
+    * @see junit.framework.TestCase#tearDown()
+    */
+   @Override
+   protected void tearDown() throws Exception
+   {
+      worker.shutdownNow();
+      model.stop();
+   }
+
+   /**
+    * Run given task on worker thread.
+    */
+   private <T> T runOnWorker(Callable<T> task) throws Exception
+   {
+      return worker.submit(task).get();
+   }
+
+   public void testViewContent() throws Exception
+   {
+      assertNull(restricted.findObjectById(1));
+      assertSame(backend.findLocalObjectById(2), restricted.findObjectById(2));
+      assertNull(restricted.findObjectById(3));
+      assertEquals(3, privileged.getAllObjects().size());
+   }
+
+   public void testLookupWithoutBoundView() throws Exception
+   {
+      final AbstractObject object = restricted.findObjectById(2);
+      assertEquals(0, (int)runOnWorker(() -> object.getParentsAsArray().length));
+      assertEquals(0, (int)runOnWorker(() -> object.getChildrenAsArray().length));
+      assertEquals(0, (int)runOnWorker(() -> object.getEffectiveRights()));
+      assertNull(runOnWorker(() -> backend.findObjectById(3)));
+      assertEquals(0, (int)runOnWorker(() -> backend.findMultipleObjects(new long[] { 1, 2, 3 }, false).size()));
+
+      // Same applies to any thread, including the one which attached sessions
+      assertEquals(0, object.getChildrenAsArray().length);
+      assertEquals(0, backend.getEffectiveRights(2));
+   }
+
+   public void testRestrictedViewOnWorkerThread() throws Exception
+   {
+      final AbstractObject object = restricted.findObjectById(2);
+      Callable<int[]> task = () -> {
+         try (SharedObjectModel.ViewBinding binding = model.bindView(restricted))
+         {
+            return new int[] { object.getParentsAsArray().length, object.getChildrenAsArray().length, object.getEffectiveRights(),
+                  (backend.findObjectById(1) != null) ? 1 : 0, backend.getEffectiveRights(3) };
+         }
+      };
+      int[] result = runOnWorker(task);
+      assertEquals(0, result[0]); // hidden parent
+      assertEquals(0, result[1]); // hidden child
+      assertEquals(READ, result[2]); // rights as reported by server for restricted user
+      assertEquals(0, result[3]);
+      assertEquals(0, result[4]);
+
+      // Binding is removed when closed
+      assertNull(runOnWorker(() -> backend.findObjectById(2)));
+   }
+
+   public void testPrivilegedViewOnWorkerThread() throws Exception
+   {
+      final AbstractObject object = privileged.findObjectById(2);
+      Callable<int[]> task = () -> {
+         try (SharedObjectModel.ViewBinding binding = model.bindView(privileged))
+         {
+            return new int[] { object.getParentsAsArray().length, object.getChildrenAsArray().length, object.getEffectiveRights() };
+         }
+      };
+      int[] result = runOnWorker(task);
+      assertEquals(1, result[0]);
+      assertEquals(1, result[1]);
+      assertEquals(ALL, result[2]);
+   }
+
+   public void testNestedBinding() throws Exception
+   {
+      try (SharedObjectModel.ViewBinding outer = model.bindView(privileged))
+      {
+         assertNotNull(backend.findObjectById(3));
+         try (SharedObjectModel.ViewBinding inner = model.bindView(restricted))
+         {
+            assertNull(backend.findObjectById(3));
+         }
+         assertNotNull(backend.findObjectById(3));
+      }
+      assertNull(backend.findObjectById(3));
+   }
+
+   public void testDetachedSession() throws Exception
+   {
+      try (SharedObjectModel.ViewBinding binding = model.bindView(restricted))
+      {
+         model.detach(restricted);
+         assertNull(backend.findObjectById(2));
+      }
+      try
+      {
+         model.bindView(restricted);
+         fail("IllegalArgumentException expected");
+      }
+      catch(IllegalArgumentException e)
+      {
+      }
+   }
+
+   public void testRightsChangeOnServer() throws Exception
+   {
+      // Rights are not re-evaluated locally: object becomes visible only after server reports access
+      int requests = restricted.rightsRequests;
+      AbstractObject child = backend.findLocalObjectById(3);
+      model.onObjectChange(child);
+      assertEquals(requests, restricted.rightsRequests);
+      assertNull(restricted.findObjectById(3));
+
+      restricted.serverRights.put(3L, READ);
+      NXCPMessage msg = createObjectMessage(3, 2, 0);
+      msg.setField(NXCPCodes.VID_INHERIT_RIGHTS, true); // changed access attributes trigger rights request
+      AbstractObject updated = new Container(msg, backend);
+      model.onObjectChange(updated);
+      assertNull(restricted.findObjectById(3)); // published only after server responds
+
+      model.flushPendingRefresh();
+      assertEquals(requests + 1, restricted.rightsRequests);
+      assertSame(updated, restricted.findObjectById(3));
+   }
+
+   public void testDebouncedRightsRefresh() throws Exception
+   {
+      // Burst of changes results in single background request per view
+      int requests = restricted.rightsRequests;
+      restricted.serverRights.put(3L, READ);
+      AbstractObject updated = null;
+      for(int i = 0; i < 10; i++)
+      {
+         NXCPMessage msg = createObjectMessage(3, 2, 0);
+         msg.setField(NXCPCodes.VID_INHERIT_RIGHTS, (i % 2) == 0);
+         updated = new Container(msg, backend);
+         model.onObjectChange(updated);
+      }
+
+      long deadline = System.currentTimeMillis() + 5000;
+      while((restricted.findObjectById(3) != updated) && (System.currentTimeMillis() < deadline))
+         Thread.sleep(20);
+      assertSame(updated, restricted.findObjectById(3));
+      assertEquals(requests + 1, restricted.rightsRequests);
+   }
+
+   public void testListenerCallback() throws Exception
+   {
+      // Listener callbacks of attached session see that session's view
+      final List<int[]> results = new ArrayList<int[]>();
+      restricted.addListener((n) -> {
+         if (n.getCode() != SessionNotification.OBJECT_CHANGED)
+            return;
+         AbstractObject object = (AbstractObject)n.getObject();
+         results.add(new int[] { object.getParentsAsArray().length, object.getChildrenAsArray().length, object.getEffectiveRights(),
+               (backend.findObjectById(2) != null) ? 1 : 0, (backend.findObjectById(3) != null) ? 1 : 0 });
+      });
+      model.onObjectChange(backend.findLocalObjectById(2));
+
+      assertEquals(1, results.size());
+      int[] result = results.get(0);
+      assertEquals(0, result[0]); // hidden parent
+      assertEquals(0, result[1]); // hidden child
+      assertEquals(READ, result[2]);
+      assertEquals(1, result[3]);
+      assertEquals(0, result[4]);
+
+      // Binding is removed after callback
+      assertNull(backend.findObjectById(2));
+   }
+}
@@ -0,0 +1,119 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2023 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.client;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import org.netxms.client.snmp.SnmpObjectId;
+import org.netxms.client.snmp.SnmpValue;
+import org.netxms.client.snmp.SnmpWalkResult;
+import junit.framework.TestCase;
+
+/**
+ * Tests for SnmpWalkResult class
+ */
+public class SnmpWalkResultTest extends TestCase
+{
+   public void testOrdering() throws Exception
+   {
+      SnmpWalkResult result = new SnmpWalkResult(42);
+      result.add(".1.3.6.1.2.1.1.1.0", 0x04, "Linux");
+      result.add(".1.3.6.1.2.1.1.3.0", 0x43, "12345");
+      result.add(".1.3.6.1.2.1.1.2.0", 0x06, ".1.3.6.1.4.1.8072");
+      result.add(".1.3.6.1.2.1.1.10", 0x02, "10");
+      result.add(".1.3.6.1.2.1.1.4294967295", 0xFFFF, "00 01");
+      result.add(".1.3.6.1.2.1.1", 0x05, "");
+
+      assertEquals(6, result.size());
+      assertEquals(".1.3.6.1.2.1.1", result.getName(0));
+      assertEquals(".1.3.6.1.2.1.1.1.0", result.getName(1));
+      assertEquals(".1.3.6.1.2.1.1.2.0", result.getName(2));
+      assertEquals(".1.3.6.1.2.1.1.3.0", result.getName(3));
+      assertEquals(".1.3.6.1.2.1.1.10", result.getName(4));
+      assertEquals(".1.3.6.1.2.1.1.4294967295", result.getName(5));
+      assertEquals(0xFFFF, result.getType(5));
+      assertEquals("12345", result.getValue(3));
+
+      SnmpValue v = result.getSnmpValue(2);
+      assertEquals(".1.3.6.1.2.1.1.2.0", v.getName());
+      assertEquals(0x06, v.getType());
+      assertEquals(".1.3.6.1.4.1.8072", v.getValue());
+      assertEquals(42, v.getNodeId());
+
+      assertEquals(3, result.find(SnmpObjectId.parseSnmpObjectId(".1.3.6.1.2.1.1.3.0")));
+      assertEquals(-2, result.find(SnmpObjectId.parseSnmpObjectId(".1.3.6.1.2.1.1.0")));
+      assertEquals(SnmpObjectId.parseSnmpObjectId(".1.3.6.1.2.1.1.10"), result.getObjectId(4));
+   }
+
+   public void testSpill() throws Exception
+   {
+      SnmpWalkResult result = new SnmpWalkResult(1, 4096);
+      for(int i = 0; i < 5000; i++)
+         result.add(".1.3.6.1.4.1." + (i % 2 == 0 ? i : 10000 - i), 0x04, "value é " + i);
+      assertTrue(result.isSpilled());
+      assertEquals(5000, result.size());
+      for(int i = 1; i < result.size(); i++)
+         assertTrue(result.getObjectId(i - 1).compareTo(result.getObjectId(i)) < 0);
+      int index = result.find(SnmpObjectId.parseSnmpObjectId(".1.3.6.1.4.1.9999"));
+      assertEquals("value é 1", result.getValue(index));
+      result.dispose();
+      assertEquals(0, result.size());
+   }
+
+   public void testExport() throws Exception
+   {
+      SnmpWalkResult result = new SnmpWalkResult(1);
+      result.add(".1.3.6.1.2", 0x04, "say \"hello\"");
+      result.add(".1.3.6.1.1", 0x02, "1");
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      result.export(out, (t) -> (t == 0x02) ? "INTEGER" : "STRING");
+      assertEquals("\".1.3.6.1.1\",\"INTEGER\",\"1\"\n\".1.3.6.1.2\",\"STRING\",\"say \"\"hello\"\"\"\n",
+            new String(out.toByteArray(), StandardCharsets.UTF_8));
+   }
+
+   public void testUpdates() throws Exception
+   {
+      SnmpWalkResult result = new SnmpWalkResult(1);
+      for(int batch = 0; batch < 40; batch++)
+      {
+         for(int i = 0; i < 10; i++)
+            result.add(".1.3.6." + (batch * 10 + i), 0x02, "0");
+         if (batch == 30)
+            result.add(".1.3.5", 0x02, "0");
+         if (batch < 17)
+            result.publishUpdate();
+      }
+      result.complete();
+
+      // Queue is bounded, last update is always delivered and reordering is not lost
+      SnmpWalkResult.Update update, last = null;
+      int updates = 0;
+      while((update = result.takeUpdate(0)) != null)
+      {
+         last = update;
+         updates++;
+      }
+      assertTrue(updates <= 16);
+      assertNotNull(last);
+      assertTrue(last.isLast());
+      assertTrue(last.isReordered());
+      assertEquals(401, last.getSize());
+      assertTrue(result.isComplete());
+   }
+}
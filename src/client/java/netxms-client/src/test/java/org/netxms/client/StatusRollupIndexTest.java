@@ -0,0 +1,173 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2023 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.client;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.netxms.base.NXCPCodes;
+import org.netxms.base.NXCPMessage;
+import org.netxms.client.constants.ObjectStatus;
+import org.netxms.client.objects.AbstractObject;
+import org.netxms.client.objects.StatusRollup;
+import org.netxms.client.objects.StatusRollupIndex;
+import junit.framework.TestCase;
+
+/**
+ * Tests for incremental status roll-up index (without server connection). Initial hierarchy is 1 -&gt; (2, 3), 3 -&gt; 4.
+ */
+public class StatusRollupIndexTest extends TestCase
+{
+   private TestSession session;
+   private StatusRollupIndex index;
+   private List<Long> changedContainers = new ArrayList<Long>();
+
+   /**
+    * Create object message with given status in format sent by server.
+    */
+   private static NXCPMessage createObjectMessage(int code, long id, ObjectStatus status, long[] parents, long[] children)
+   {
+      NXCPMessage msg = TestSession.createObjectMessage(code, id, AbstractObject.OBJECT_CONTAINER, "object" + id, parents, children);
+      msg.setFieldInt16(NXCPCodes.VID_OBJECT_STATUS, status.getValue());
+      return msg;
+   }
+
+   /**
+    * Apply object update to session (listeners are notified by session).
+    */
+   private void update(long id, ObjectStatus status, long[] parents, long[] children)
+   {
+      session.updateObjects(createObjectMessage(NXCPCodes.CMD_OBJECT_UPDATE, id, status, parents, children));
+   }
+
+   /**
+    * @see junit.framework.TestCase#setUp()
+    */
+   @Override
+   protected void setUp() throws Exception
+   {
+      session = new TestSession();
+      session.loadObjects(createObjectMessage(NXCPCodes.CMD_OBJECT, 1, ObjectStatus.NORMAL, new long[0], new long[] { 2, 3 }),
+            createObjectMessage(NXCPCodes.CMD_OBJECT, 2, ObjectStatus.NORMAL, new long[] { 1 }, new long[0]),
+            createObjectMessage(NXCPCodes.CMD_OBJECT, 3, ObjectStatus.WARNING, new long[] { 1 }, new long[] { 4 }),
+            createObjectMessage(NXCPCodes.CMD_OBJECT, 4, ObjectStatus.CRITICAL, new long[] { 3 }, new long[0]));
+      index = new StatusRollupIndex(session);
+      index.addListener((containerId, previous, current) -> changedContainers.add(containerId));
+   }
+
+   /**
+    * @see junit.framework.TestCase#tearDown()
+    */
+   @Override
+   protected void tearDown() throws Exception
+   {
+      index.dispose();
+   }
+
+   public void testInitialRollup()
+   {
+      StatusRollup rollup = index.track(1);
+      assertEquals(3, rollup.getDescendantCount());
+      assertEquals(1, rollup.getCount(ObjectStatus.NORMAL));
+      assertEquals(1, rollup.getCount(ObjectStatus.WARNING));
+      assertEquals(1, rollup.getCount(ObjectStatus.CRITICAL));
+      assertEquals(ObjectStatus.CRITICAL, rollup.getWorstStatus());
+      assertNull(index.track(100));
+   }
+
+   public void testStatusChange()
+   {
+      index.track(1);
+      index.track(3);
+      update(4, ObjectStatus.MINOR, new long[] { 3 }, new long[0]);
+
+      StatusRollup rollup = index.getRollup(1);
+      assertEquals(0, rollup.getCount(ObjectStatus.CRITICAL));
+      assertEquals(1, rollup.getCount(ObjectStatus.MINOR));
+      assertEquals(ObjectStatus.MINOR, index.getRollup(3).getWorstStatus());
+      assertEquals(2, changedContainers.size());
+
+      // Same status again should not produce notifications
+      changedContainers.clear();
+      update(4, ObjectStatus.MINOR, new long[] { 3 }, new long[0]);
+      assertTrue(changedContainers.isEmpty());
+   }
+
+   public void testAddAndRemove()
+   {
+      StatusRollup initial = index.track(1);
+
+      update(5, ObjectStatus.MAJOR, new long[] { 2 }, new long[0]);
+      update(2, ObjectStatus.NORMAL, new long[] { 1 }, new long[] { 5 });
+      StatusRollup rollup = index.getRollup(1);
+      assertEquals(4, rollup.getDescendantCount());
+      assertEquals(1, rollup.getCount(ObjectStatus.MAJOR));
+      assertFalse(rollup.isSameStructure(initial));
+
+      update(2, ObjectStatus.NORMAL, new long[] { 1 }, new long[0]);
+      session.fire(new SessionNotification(SessionNotification.OBJECT_DELETED, 5));
+      rollup = index.getRollup(1);
+      assertEquals(3, rollup.getDescendantCount());
+      assertEquals(0, rollup.getCount(ObjectStatus.MAJOR));
+      assertEquals(initial, rollup);
+   }
+
+   public void testMove()
+   {
+      index.track(2);
+      index.track(3);
+      update(4, ObjectStatus.CRITICAL, new long[] { 2 }, new long[0]);
+      update(3, ObjectStatus.WARNING, new long[] { 1 }, new long[0]);
+      update(2, ObjectStatus.NORMAL, new long[] { 1 }, new long[] { 4 });
+      assertEquals(1, index.getRollup(2).getCount(ObjectStatus.CRITICAL));
+      assertEquals(0, index.getRollup(3).getDescendantCount());
+   }
+
+   public void testRetrack()
+   {
+      index.track(1);
+      index.release(1);
+      assertFalse(index.isTracked(1));
+
+      // Changes while nothing is tracked must be visible after tracking again
+      update(4, ObjectStatus.NORMAL, new long[] { 3 }, new long[0]);
+      update(2, ObjectStatus.MAJOR, new long[] { 1 }, new long[0]);
+      StatusRollup rollup = index.track(1);
+      assertEquals(0, rollup.getCount(ObjectStatus.CRITICAL));
+      assertEquals(1, rollup.getCount(ObjectStatus.NORMAL));
+      assertEquals(1, rollup.getCount(ObjectStatus.MAJOR));
+
+      // Status changes after re-tracking are applied incrementally to correct counts
+      update(2, ObjectStatus.NORMAL, new long[] { 1 }, new long[0]);
+      rollup = index.getRollup(1);
+      assertEquals(2, rollup.getCount(ObjectStatus.NORMAL));
+      assertEquals(0, rollup.getCount(ObjectStatus.MAJOR));
+   }
+
+   public void testReferenceCounting()
+   {
+      index.track(1);
+      index.track(1);
+      index.release(1);
+      assertTrue(index.isTracked(1));
+      index.release(1);
+      assertFalse(index.isTracked(1));
+      index.release(1); // releasing untracked container is no-op
+      assertFalse(index.isTracked(1));
+   }
+}
@@ -0,0 +1,263 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2023 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.client;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import org.netxms.base.NXCPCodes;
+import org.netxms.base.NXCPMessage;
+import org.netxms.client.objects.AbstractObject;
+
+/**
+ * Session without server connection for tests and benchmarks. Object list is populated from messages in format sent by server
+ * via regular object decoder. Notifications are recorded and delivered to listeners synchronously on calling thread.
+ */
+public class TestSession extends NXCSession
+{
+   private final List<SessionListener> listeners = new ArrayList<SessionListener>();
+   private final List<SessionNotification> notifications = new ArrayList<SessionNotification>();
+
+   /**
+    * Create new session.
+    */
+   public TestSession()
+   {
+      super("127.0.0.1");
+   }
+
+   /**
+    * Create object message in format sent by server.
+    *
+    * @param code message code (CMD_OBJECT or CMD_OBJECT_UPDATE)
+    * @param id object ID
+    * @param objectClass object class
+    * @param name object name
+    * @param parents parent object IDs
+    * @param children child object IDs
+    * @return object message
+    */
+   public static NXCPMessage createObjectMessage(int code, long id, int objectClass, String name, long[] parents, long[] children)
+   {
+      NXCPMessage msg = new NXCPMessage(code);
+      msg.setFieldInt32(NXCPCodes.VID_OBJECT_ID, (int)id);
+      msg.setFieldInt16(NXCPCodes.VID_OBJECT_CLASS, objectClass);
+      msg.setField(NXCPCodes.VID_GUID, new UUID(0, id));
+      msg.setField(NXCPCodes.VID_OBJECT_NAME, name);
+      msg.setField(NXCPCodes.VID_IS_DELETED, false);
+      msg.setFieldInt32(NXCPCodes.VID_PARENT_CNT, parents.length);
+      for(int i = 0; i < parents.length; i++)
+         msg.setFieldInt32(NXCPCodes.VID_PARENT_ID_BASE + i, (int)parents[i]);
+      msg.setFieldInt32(NXCPCodes.VID_CHILD_CNT, children.length);
+      for(int i = 0; i < children.length; i++)
+         msg.setFieldInt32(NXCPCodes.VID_CHILD_ID_BASE + i, (int)children[i]);
+      return msg;
+   }
+
+   /**
+    * Create CMD_OBJECT message for container named "object&lt;id&gt;".
+    *
+    * @param id object ID
+    * @param parents parent object IDs
+    * @param children child object IDs
+    * @return object message
+    */
+   public static NXCPMessage createObjectMessage(long id, long[] parents, long[] children)
+   {
+      return createObjectMessage(NXCPCodes.CMD_OBJECT, id, AbstractObject.OBJECT_CONTAINER, "object" + id, parents, children);
+   }
+
+   /**
+    * Create CMD_OBJECT message for container named "container&lt;id&gt;" under object 2, with all deferred field groups set
+    * (geolocation, postal address, custom attributes, URLs, access list, responsible users, and poll states).
+    *
+    * @param id object ID
+    * @return object message
+    */
+   public static NXCPMessage createDetailedObjectMessage(long id)
+   {
+      NXCPMessage msg = createObjectMessage(NXCPCodes.CMD_OBJECT, id, AbstractObject.OBJECT_CONTAINER, "container" + id, new long[] { 2 }, new long[0]);
+      msg.setField(NXCPCodes.VID_COMMENTS, "");
+
+      msg.setFieldInt16(NXCPCodes.VID_GEOLOCATION_TYPE, 1);
+      msg.setField(NXCPCodes.VID_LATITUDE, 56.95);
+      msg.setField(NXCPCodes.VID_LONGITUDE, 24.1);
+      msg.setField(NXCPCodes.VID_COUNTRY, "Latvia");
+      msg.setField(NXCPCodes.VID_CITY, "Riga");
+      msg.setField(NXCPCodes.VID_STREET_ADDRESS, "Street " + id);
+
+      msg.setFieldInt32(NXCPCodes.VID_NUM_CUSTOM_ATTRIBUTES, 5);
+      long fieldId = NXCPCodes.VID_CUSTOM_ATTRIBUTES_BASE;
+      for(int i = 0; i < 5; i++, fieldId += 4)
+      {
+         msg.setField(fieldId, "attribute" + i);
+         msg.setField(fieldId + 1, "value " + i + " for object " + id);
+         msg.setFieldInt32(fieldId + 2, 0);
+         msg.setFieldInt32(fieldId + 3, 0);
+      }
+
+      msg.setFieldInt32(NXCPCodes.VID_NUM_URLS, 1);
+      msg.setFieldInt32(NXCPCodes.VID_URL_LIST_BASE, 1);
+      msg.setField(NXCPCodes.VID_URL_LIST_BASE + 1, "https://www.netxms.org/objects/" + id);
+      msg.setField(NXCPCodes.VID_URL_LIST_BASE + 2, "Object page");
+
+      msg.setField(NXCPCodes.VID_INHERIT_RIGHTS, false);
+      msg.setFieldInt32(NXCPCodes.VID_ACL_SIZE, 3);
+      for(int i = 0; i < 3; i++)
+      {
+         msg.setFieldInt32(NXCPCodes.VID_ACL_USER_BASE + i, i + 1);
+         msg.setFieldInt32(NXCPCodes.VID_ACL_RIGHTS_BASE + i, 0x0F);
+      }
+
+      msg.setFieldInt32(NXCPCodes.VID_RESPONSIBLE_USERS_COUNT, 1);
+      msg.setFieldInt32(NXCPCodes.VID_RESPONSIBLE_USERS_BASE, 1);
+      msg.setField(NXCPCodes.VID_RESPONSIBLE_USERS_BASE + 1, "L1");
+
+      msg.setFieldInt32(NXCPCodes.VID_NUM_POLL_STATES, 3);
+      fieldId = NXCPCodes.VID_POLL_STATE_LIST_BASE;
+      for(int i = 0; i < 3; i++, fieldId += 10)
+      {
+         msg.setField(fieldId, "poll" + i);
+         msg.setField(fieldId + 1, false);
+         msg.setField(fieldId + 2, new Date());
+         msg.setFieldInt32(fieldId + 3, 100);
+      }
+      return msg;
+   }
+
+   /**
+    * Load objects as if they were received from server during object synchronization.
+    *
+    * @param messages CMD_OBJECT messages
+    */
+   public void loadObjects(List<NXCPMessage> messages)
+   {
+      ObjectDecoder decoder = new ObjectDecoder(this);
+      try
+      {
+         decoder.syncStarted();
+         for(NXCPMessage msg : messages)
+            decoder.submit(msg);
+         decoder.flush();
+         decoder.syncCompleted();
+      }
+      finally
+      {
+         decoder.shutdown();
+      }
+   }
+
+   /**
+    * Load objects as if they were received from server during object synchronization.
+    *
+    * @param messages CMD_OBJECT messages
+    */
+   public void loadObjects(NXCPMessage... messages)
+   {
+      loadObjects(Arrays.asList(messages));
+   }
+
+   /**
+    * Apply object updates as if they were received from server after synchronization. Change notifications are delivered to
+    * listeners before this method returns.
+    *
+    * @param messages CMD_OBJECT_UPDATE messages
+    */
+   public void updateObjects(NXCPMessage... messages)
+   {
+      ObjectDecoder decoder = new ObjectDecoder(this);
+      try
+      {
+         for(NXCPMessage msg : messages)
+            decoder.submit(msg);
+         decoder.flush();
+      }
+      finally
+      {
+         decoder.shutdown();
+      }
+   }
+
+   /**
+    * Send notification to listeners (as if it was received from server).
+    *
+    * @param n notification
+    */
+   public void fire(SessionNotification n)
+   {
+      sendNotification(n);
+   }
+
+   /**
+    * Get all notifications sent by this session so far.
+    *
+    * @return copy of notification list
+    */
+   public List<SessionNotification> getNotifications()
+   {
+      synchronized(notifications)
+      {
+         return new ArrayList<SessionNotification>(notifications);
+      }
+   }
+
+   /**
+    * @see org.netxms.client.NXCSession#addListener(org.netxms.client.SessionListener)
+    */
+   @Override
+   public void addListener(SessionListener listener)
+   {
+      synchronized(listeners)
+      {
+         listeners.add(listener);
+      }
+   }
+
+   /**
+    * @see org.netxms.client.NXCSession#removeListener(org.netxms.client.SessionListener)
+    */
+   @Override
+   public void removeListener(SessionListener listener)
+   {
+      synchronized(listeners)
+      {
+         listeners.remove(listener);
+      }
+   }
+
+   /**
+    * @see org.netxms.client.NXCSession#sendNotification(org.netxms.client.SessionNotification)
+    */
+   @Override
+   protected void sendNotification(SessionNotification n)
+   {
+      synchronized(notifications)
+      {
+         notifications.add(n);
+      }
+      SessionListener[] recipients;
+      synchronized(listeners)
+      {
+         recipients = listeners.toArray(new SessionListener[listeners.size()]);
+      }
+      dispatchNotification(n, recipients);
+   }
+}
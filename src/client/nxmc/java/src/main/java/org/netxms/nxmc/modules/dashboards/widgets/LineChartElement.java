@@ -65,6 +65,8 @@
  */
 public class LineChartElement extends ElementWidget implements HistoricalChartOwner
 {
+   private static final int MIN_CHART_WIDTH = 400; // Used to decide on data aggregation if chart is not yet laid out
+
    private final I18n i18n = LocalizationHelper.getI18n(LineChartElement.class);
 
    private Chart chart;
@@ -315,6 +317,9 @@ private void refreshData()
 		
 		updateInProgress = true;
 		
+      // Data will be aggregated by server only if there are more values than horizontal pixels
+      final int width = Math.max(chart.getSize().x, MIN_CHART_WIDTH);
+
       Job job = new Job(i18n.tr("Reading DCI data for line chart"), view, this) {
 			private ChartDciConfig currentDci;
 
@@ -330,12 +335,12 @@ protected void run(IProgressMonitor monitor) throws Exception
                currentDci = runtimeDciList.get(i);
                if (currentDci.type == ChartDciConfig.ITEM)
                {
-                  data[i] = session.getCollectedData(currentDci.nodeId, currentDci.dciId, from, to, 0, HistoricalDataType.PROCESSED);
+                  data[i] = session.getChartData(currentDci.nodeId, currentDci.dciId, from, to, width, HistoricalDataType.PROCESSED);
                   thresholds[i] = session.getThresholds(currentDci.nodeId, currentDci.dciId);
                }
                else
                {
-                  data[i] = session.getCollectedTableData(currentDci.nodeId, currentDci.dciId, currentDci.instance, currentDci.column, from, to, 0);
+                  data[i] = session.getChartTableData(currentDci.nodeId, currentDci.dciId, currentDci.instance, currentDci.column, from, to, width);
                   thresholds[i] = null;
                }
             }
@@ -18,14 +18,16 @@
  */
 package org.netxms.nxmc.modules.dashboards.widgets;
 
-import java.util.Arrays;
 import org.eclipse.swt.SWT;
+import org.eclipse.swt.events.DisposeEvent;
+import org.eclipse.swt.events.DisposeListener;
 import org.netxms.client.constants.ObjectStatus;
 import org.netxms.client.dashboards.DashboardElement;
 import org.netxms.client.datacollection.ChartConfiguration;
 import org.netxms.client.datacollection.ChartDciConfig;
 import org.netxms.client.datacollection.GraphItem;
-import org.netxms.client.objects.AbstractObject;
+import org.netxms.client.objects.StatusRollup;
+import org.netxms.client.objects.StatusRollupIndex;
 import org.netxms.client.xml.XMLTools;
 import org.netxms.nxmc.modules.charts.api.ChartColor;
 import org.netxms.nxmc.modules.charts.api.ChartType;
@@ -44,6 +46,8 @@ public class ObjectStatusChartElement extends ComparisonChartElement
    private static final Logger logger = LoggerFactory.getLogger(ObjectStatusChartElement.class);
 
 	private ObjectStatusChartConfig elementConfig;
+   private StatusRollup lastRollup = null;
+   private long trackedObjectId = 0;
 
 	/**
 	 * @param parent
@@ -82,6 +86,15 @@ public ObjectStatusChartElement(DashboardControl parent, DashboardElement elemen
 		}
       chart.rebuild();
 
+      addDisposeListener(new DisposeListener() {
+         @Override
+         public void widgetDisposed(DisposeEvent e)
+         {
+            if (trackedObjectId != 0)
+               session.getStatusRollupIndex().release(trackedObjectId);
+         }
+      });
+
 		startRefreshTimer();
 	}
 
@@ -100,41 +113,28 @@ protected ChartDciConfig[] getDciList()
 	@Override
    protected void refreshData()
 	{
-		int[] objectCount = new int[6];
-		Arrays.fill(objectCount, 0);
-
-      AbstractObject root = session.findObjectById(getEffectiveObjectId(elementConfig.getRootObject()));
-		if (root != null)
-			collectData(objectCount, root);
-
-		for(int i = 0; i < objectCount.length; i++)
-			chart.updateParameter(i, objectCount[i], false);
+      StatusRollupIndex index = session.getStatusRollupIndex();
+      long objectId = getEffectiveObjectId(elementConfig.getRootObject());
+      StatusRollup rollup;
+      if (objectId != trackedObjectId)
+      {
+         // Effective object can change with dashboard context
+         if (trackedObjectId != 0)
+            index.release(trackedObjectId);
+         rollup = index.track(objectId);
+         trackedObjectId = (rollup != null) ? objectId : 0;
+      }
+      else
+      {
+         rollup = index.getRollup(objectId);
+      }
+      if ((rollup != null) && rollup.equals(lastRollup))
+         return;
+      lastRollup = rollup;
+
+      int[] classFilter = elementConfig.getClassFilter();
+      for(int i = 0; i <= ObjectStatus.UNKNOWN.getValue(); i++)
+         chart.updateParameter(i, (rollup != null) ? rollup.getCount(classFilter, ObjectStatus.getByValue(i)) : 0, false);
 		chart.refresh();
 	}
-
-	/**
-	 * @param objectCount
-	 * @param root
-	 */
-	private void collectData(int[] objectCount, AbstractObject root)
-	{
-		for(AbstractObject o : root.getAllChildren(-1))
-		{
-         if ((o.getStatus().compareTo(ObjectStatus.UNKNOWN) <= 0) && filterObject(o))
-				objectCount[o.getStatus().getValue()]++;
-		}
-	}
-
-	/**
-	 * @param o
-	 * @return
-	 */
-	private boolean filterObject(AbstractObject o)
-	{
-		int[] cf = elementConfig.getClassFilter();
-		for(int i = 0; i < cf.length; i++)
-			if (o.getObjectClass() == cf[i])
-				return true;
-		return false;
-	}
 }
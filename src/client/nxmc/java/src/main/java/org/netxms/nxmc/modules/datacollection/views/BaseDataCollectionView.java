@@ -49,6 +49,7 @@
 import org.netxms.client.datacollection.DataCollectionObject;
 import org.netxms.client.datacollection.DataCollectionTable;
 import org.netxms.client.datacollection.DciValue;
+import org.netxms.client.datacollection.LastValuesMerger;
 import org.netxms.client.objects.AbstractObject;
 import org.netxms.client.objects.Cluster;
 import org.netxms.client.objects.DataCollectionTarget;
@@ -82,6 +83,7 @@
 import org.netxms.nxmc.modules.datacollection.views.helpers.LastValuesComparator;
 import org.netxms.nxmc.modules.datacollection.views.helpers.LastValuesFilter;
 import org.netxms.nxmc.modules.datacollection.views.helpers.LastValuesLabelProvider;
+import org.netxms.nxmc.modules.datacollection.views.helpers.LastValuesViewerUpdater;
 import org.netxms.nxmc.modules.objects.views.ObjectView;
 import org.netxms.nxmc.resources.ResourceManager;
 import org.netxms.nxmc.resources.SharedIcons;
@@ -117,6 +119,7 @@ public abstract class BaseDataCollectionView extends ObjectView implements Viewe
    private boolean autoRefreshEnabled = false;
    private int autoRefreshInterval = 30;  // in seconds
    private ViewRefreshController refreshController;
+   private LastValuesMerger lastValues = null;
 
    protected Action actionUseMultipliers;
    protected Action actionShowErrors;
@@ -178,6 +181,7 @@ protected void createLastValuesViewer(Composite parent, VisibilityValidator vali
       viewer.setContentProvider(new ArrayContentProvider());
       viewer.setComparator(comparator);
       viewer.addFilter(lvFilter);
+      LastValuesViewerUpdater.install(viewer);
       setFilterClient(viewer, lvFilter); 
       if (isHideOwner())
          viewer.removeColumnById(LV_COLUMN_OWNER);
@@ -535,16 +539,20 @@ protected void getDataFromServer(Runnable callback)
    {
       if (getObject() == null)
       {
+         lastValues = null;
          viewer.setInput(new DciValue[0]);
          return;
       }
 
       final DataCollectionTarget jobTarget = (DataCollectionTarget)getObject();
+      if ((lastValues == null) || (lastValues.getNodeId() != jobTarget.getObjectId()))
+         lastValues = new LastValuesMerger(jobTarget.getObjectId());
+      final LastValuesMerger merger = lastValues;
       Job job = new Job(String.format(i18n.tr("Get DCI values for node %s"), jobTarget.getObjectName()), this) {
          @Override
          protected void run(IProgressMonitor monitor) throws Exception
          {
-            final DciValue[] data = session.getLastValues(jobTarget.getObjectId());
+            final LastValuesMerger.Changes changes = merger.update(session);
             runInUIThread(new Runnable() {
                @Override
                public void run()
@@ -552,13 +560,13 @@ public void run()
                   if (!viewer.getTable().isDisposed() && (getObject() != null) && (getObject().getObjectId() == jobTarget.getObjectId()))
                   {
                      final IStructuredSelection selection = viewer.getStructuredSelection();
-                     viewer.setInput(data);
+                     boolean inputReplaced = LastValuesViewerUpdater.apply(viewer, merger, changes);
                      clearMessages();
                      if (callback != null)
                      {
                         callback.run();
                      }
-                     else 
+                     else if (inputReplaced)
                      {
                         List<DciValue> selected = new ArrayList<DciValue>(selection.size());
                         Iterator<?> it = selection.iterator();
@@ -86,6 +86,7 @@ public class HistoricalGraphView extends ViewWithContext implements ChartConfigu
    private static final TimeUnit[] presetUnits = { TimeUnit.MINUTE, TimeUnit.MINUTE, TimeUnit.HOUR, TimeUnit.HOUR, TimeUnit.HOUR,
          TimeUnit.HOUR, TimeUnit.DAY, TimeUnit.DAY, TimeUnit.DAY, TimeUnit.DAY, TimeUnit.DAY, TimeUnit.DAY };
    private static final int[] presetRanges = { 10, 30, 1, 2, 4, 12, 1, 2, 5, 7, 31, 365 };
+   private static final int MIN_CHART_WIDTH = 400; // Used to decide on data aggregation if chart is not yet laid out
    private static final String[] presetNames = 
       { 
          LocalizationHelper.getI18n(HistoricalGraphView.class).tr("Last 10 minutes"),
@@ -466,6 +467,9 @@ private void getDataFromServer()
          return;
       }
 
+      // Data will be aggregated by server only if there are more values than horizontal pixels
+      final int width = Math.max(chart.getSize().x, MIN_CHART_WIDTH);
+
       // Request data from server
       Job job = new Job(i18n.tr("Get DCI values for history graph"), this) {
          private ChartDciConfig currentItem;
@@ -481,15 +485,14 @@ protected void run(IProgressMonitor monitor) throws Exception
                currentItem = dciList[i];
                if (currentItem.type == ChartDciConfig.ITEM)
                {
-                  data[i] = session.getCollectedData(currentItem.nodeId, currentItem.dciId, configuration.getTimeFrom(),
-                        configuration.getTimeTo(), 0,
-                        currentItem.useRawValues ? HistoricalDataType.RAW : HistoricalDataType.PROCESSED);
+                  data[i] = session.getChartData(currentItem.nodeId, currentItem.dciId, configuration.getTimeFrom(),
+                        configuration.getTimeTo(), width, currentItem.useRawValues ? HistoricalDataType.RAW : HistoricalDataType.PROCESSED);
                   thresholds[i] = session.getThresholds(currentItem.nodeId, currentItem.dciId);
                }
                else
                {
-                  data[i] = session.getCollectedTableData(currentItem.nodeId, currentItem.dciId, currentItem.instance,
-                        currentItem.column, configuration.getTimeFrom(), configuration.getTimeTo(), 0);
+                  data[i] = session.getChartTableData(currentItem.nodeId, currentItem.dciId, currentItem.instance,
+                        currentItem.column, configuration.getTimeFrom(), configuration.getTimeTo(), width);
                   thresholds[i] = null;
                }
                monitor.worked(1);
@@ -0,0 +1,110 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2023 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.nxmc.modules.datacollection.views.helpers;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.eclipse.jface.viewers.IElementComparer;
+import org.eclipse.jface.viewers.StructuredViewer;
+import org.netxms.client.datacollection.DciValue;
+import org.netxms.client.datacollection.LastValuesMerger;
+
+/**
+ * Helper for applying incremental last values updates to viewers with DCI value array as input
+ */
+public final class LastValuesViewerUpdater
+{
+   /**
+    * Comparer that matches DCI values by node and DCI ID, so new value object for same DCI replaces old one in viewer
+    */
+   private static final IElementComparer COMPARER = new IElementComparer() {
+      @Override
+      public boolean equals(Object a, Object b)
+      {
+         if ((a instanceof DciValue) && (b instanceof DciValue))
+            return (((DciValue)a).getId() == ((DciValue)b).getId()) && (((DciValue)a).getNodeId() == ((DciValue)b).getNodeId());
+         return (a != null) ? a.equals(b) : (b == null);
+      }
+
+      @Override
+      public int hashCode(Object element)
+      {
+         return (element instanceof DciValue) ? Long.hashCode(((DciValue)element).getId()) : element.hashCode();
+      }
+   };
+
+   /**
+    * Private constructor to prevent instantiation
+    */
+   private LastValuesViewerUpdater()
+   {
+   }
+
+   /**
+    * Install element comparer required for in-place updates. Should be called once after viewer creation.
+    *
+    * @param viewer viewer
+    */
+   public static void install(StructuredViewer viewer)
+   {
+      viewer.setComparer(COMPARER);
+   }
+
+   /**
+    * Apply changes to viewer. If set of DCIs was changed or viewer does not have DCI value array as input, input is replaced
+    * with current value set from merger. Otherwise only changed elements are replaced in viewer input and updated in viewer.
+    *
+    * @param viewer viewer
+    * @param merger last values merger
+    * @param changes changes from last merger update
+    * @return true if viewer input was replaced
+    */
+   public static boolean apply(StructuredViewer viewer, LastValuesMerger merger, LastValuesMerger.Changes changes)
+   {
+      Object input = viewer.getInput();
+      if (changes.isStructureChanged() || !(input instanceof DciValue[]))
+      {
+         viewer.setInput(merger.getValues());
+         return true;
+      }
+
+      List<DciValue> updatedValues = changes.getUpdatedValues();
+      if (updatedValues.isEmpty())
+         return false;
+
+      DciValue[] elements = (DciValue[])input;
+      Map<Long, Integer> index = new HashMap<Long, Integer>(elements.length);
+      for(int i = 0; i < elements.length; i++)
+         index.put(elements[i].getId(), i);
+      for(DciValue v : updatedValues)
+      {
+         Integer i = index.get(v.getId());
+         if (i == null)
+         {
+            // Viewer input is out of sync with merger
+            viewer.setInput(merger.getValues());
+            return true;
+         }
+         elements[i] = v;
+      }
+      viewer.update(updatedValues.toArray(), null);
+      return false;
+   }
+}
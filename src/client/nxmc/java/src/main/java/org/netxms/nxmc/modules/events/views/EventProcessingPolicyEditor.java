@@ -36,16 +36,17 @@
 import org.eclipse.swt.custom.ScrolledComposite;
 import org.eclipse.swt.events.ControlAdapter;
 import org.eclipse.swt.events.ControlEvent;
+import org.eclipse.swt.events.SelectionAdapter;
+import org.eclipse.swt.events.SelectionEvent;
 import org.eclipse.swt.graphics.Font;
 import org.eclipse.swt.graphics.Image;
 import org.eclipse.swt.graphics.Rectangle;
-import org.eclipse.swt.layout.GridData;
-import org.eclipse.swt.layout.GridLayout;
 import org.eclipse.swt.widgets.Composite;
 import org.netxms.client.NXCSession;
 import org.netxms.client.ServerAction;
 import org.netxms.client.SessionListener;
 import org.netxms.client.SessionNotification;
+import org.netxms.client.events.ActionExecutionConfiguration;
 import org.netxms.client.events.EventProcessingPolicy;
 import org.netxms.client.events.EventProcessingPolicyRule;
 import org.netxms.client.events.EventTemplate;
@@ -64,10 +65,14 @@
 import org.xnap.commons.i18n.I18n;
 
 /**
- * Event processing policy editor
+ * Event processing policy editor. Only rules within or near visible part of editor area are rendered by rule editor widgets,
+ * which are reused as user scrolls through policy. Other rules are represented by empty space of last known or estimated height.
  */
 public class EventProcessingPolicyEditor extends ConfigurationView
 {
+   private static final int VIEWPORT_MARGIN = 400;
+   private static final int ESTIMATED_COLLAPSED_HEIGHT = 28;
+
    private final I18n i18n = LocalizationHelper.getI18n(EventProcessingPolicyEditor.class);
 
    private NXCSession session;
@@ -78,10 +83,19 @@ public class EventProcessingPolicyEditor extends ConfigurationView
    private String filterText = null;
    private ScrolledComposite scroller;
    private Composite dataArea;
-   private List<RuleEditor> ruleEditors = new ArrayList<RuleEditor>();
+   private List<RuleSlot> slots = new ArrayList<RuleSlot>();
+   private List<RuleSlot> visibleSlots = new ArrayList<RuleSlot>();
+   private int[] slotOffsets = new int[1];
+   private List<RuleSlot> boundSlots = new ArrayList<RuleSlot>();
+   private List<RuleEditor> editorPool = new ArrayList<RuleEditor>();
+   private int collapsedHeight = ESTIMATED_COLLAPSED_HEIGHT;
+   private long expandedHeightTotal = 0;
+   private int expandedHeightCount = 0;
+   private boolean updatingViewport = false;
+   private volatile int filterIndexGeneration = 0;
    private boolean verticalLayout = false;
    private boolean modified = false;
-   private Set<RuleEditor> selection;
+   private Set<RuleSlot> selection;
    private int lastSelectedRule = -1;
    private RuleClipboard clipboard = new RuleClipboard();
 
@@ -113,6 +127,34 @@ public class EventProcessingPolicyEditor extends ConfigurationView
    private Action actionDisableRule;
    private Action actionAddRule;
 
+   /**
+    * Position of single rule within policy. Holds rule's presentation state while rule is not rendered, and rule editor widget
+    * while it is.
+    */
+   private static class RuleSlot
+   {
+      EventProcessingPolicyRule rule;
+      RuleEditor editor = null;
+      boolean visible = true;
+      boolean collapsed = true;
+      boolean selected = false;
+      int index = -1; // Index in list of visible slots
+      int height = -1;
+      int measuredWidth = -1;
+      String searchText = null;
+      int searchTextGeneration = -1;
+
+      /**
+       * Create slot for given rule.
+       *
+       * @param rule policy rule
+       */
+      RuleSlot(EventProcessingPolicyRule rule)
+      {
+         this.rule = rule;
+      }
+   }
+
    /**
     * Create event processing policy editor view
     */
@@ -140,13 +182,16 @@ public void createContent(Composite parent)
 
       scroller = new ScrolledComposite(parent, SWT.V_SCROLL);
 
+      // Rule editors are positioned by updateViewport(), so data area has no layout
       dataArea = new Composite(scroller, SWT.NONE);
-      GridLayout layout = new GridLayout();
-      layout.marginHeight = 0;
-      layout.marginWidth = 0;
-      layout.verticalSpacing = 0;
-      dataArea.setLayout(layout);
       dataArea.setBackground(ThemeEngine.getBackgroundColor("RuleEditor"));
+      dataArea.addControlListener(new ControlAdapter() {
+         @Override
+         public void controlMoved(ControlEvent e)
+         {
+            updateViewport();
+         }
+      });
 
       scroller.setContent(dataArea);
       scroller.setExpandVertical(true);
@@ -155,8 +200,14 @@ public void createContent(Composite parent)
       scroller.addControlListener(new ControlAdapter() {
          public void controlResized(ControlEvent e)
          {
-            Rectangle r = scroller.getClientArea();
-            scroller.setMinSize(dataArea.computeSize(r.width, SWT.DEFAULT));
+            updateViewport();
+         }
+      });
+      scroller.getVerticalBar().addSelectionListener(new SelectionAdapter() {
+         @Override
+         public void widgetSelected(SelectionEvent e)
+         {
+            updateViewport();
          }
       });
 
@@ -172,11 +223,11 @@ public void notificationHandler(SessionNotification n)
       };
       session.addListener(sessionListener);
 
-      selection = new TreeSet<RuleEditor>(new Comparator<RuleEditor>() {
+      selection = new TreeSet<RuleSlot>(new Comparator<RuleSlot>() {
          @Override
-         public int compare(RuleEditor arg0, RuleEditor arg1)
+         public int compare(RuleSlot arg0, RuleSlot arg1)
          {
-            return arg0.getRuleNumber() - arg1.getRuleNumber();
+            return arg0.rule.getRuleNumber() - arg1.rule.getRuleNumber();
          }
       });
       
@@ -310,7 +361,7 @@ public void run()
          @Override
          public void run()
          {
-            insertRule(ruleEditors.size());
+            insertRule(slots.size());
          }
       };
    }
@@ -399,20 +450,11 @@ private void initPolicyEditor()
    {
       for(EventProcessingPolicyRule rule : policy.getRules())
       {
-         if (isRuleVisible(rule))
-         {
-            RuleEditor editor = new RuleEditor(dataArea, rule, this);
-            ruleEditors.add(editor);
-            GridData gd = new GridData();
-            gd.horizontalAlignment = SWT.FILL;
-            gd.grabExcessHorizontalSpace = true;
-            editor.setLayoutData(gd);
-         }
+         RuleSlot slot = new RuleSlot(rule);
+         slot.visible = isRuleVisible(slot);
+         slots.add(slot);
       }
-      dataArea.layout();
-
-      Rectangle r = scroller.getClientArea();
-      scroller.setMinSize(dataArea.computeSize(r.width, SWT.DEFAULT));
+      refreshSlots();
    }
 
    /**
@@ -420,14 +462,257 @@ private void initPolicyEditor()
     */
    private void updateLayout()
    {
-      for(RuleEditor editor : ruleEditors)
+      for(RuleSlot s : boundSlots)
+         s.editor.setVerticalLayout(verticalLayout, false);
+      for(RuleEditor e : editorPool)
+         e.setVerticalLayout(verticalLayout, false);
+
+      // Heights of expanded rules are different in new layout
+      for(RuleSlot s : slots)
       {
-         if (!editor.isDisposed())
-            editor.setVerticalLayout(verticalLayout, false);
+         if (!s.collapsed)
+            s.height = -1;
       }
+      expandedHeightTotal = 0;
+      expandedHeightCount = 0;
+      updateSlotOffsets();
       updateEditorAreaLayout();
    }
 
+   /**
+    * Rebuild list of visible slots after change in rule list or filter, and update editor area.
+    */
+   private void refreshSlots()
+   {
+      visibleSlots.clear();
+      for(RuleSlot s : slots)
+      {
+         if (s.visible)
+         {
+            s.index = visibleSlots.size();
+            visibleSlots.add(s);
+         }
+         else
+         {
+            s.index = -1;
+         }
+      }
+      updateSlotOffsets();
+      updateViewport();
+   }
+
+   /**
+    * Get known or estimated height of given slot.
+    *
+    * @param slot rule slot
+    * @return slot height in pixels
+    */
+   private int getSlotHeight(RuleSlot slot)
+   {
+      if (slot.height >= 0)
+         return slot.height;
+      if (slot.collapsed)
+         return collapsedHeight;
+      return (expandedHeightCount > 0) ? (int)(expandedHeightTotal / expandedHeightCount) : collapsedHeight * 5;
+   }
+
+   /**
+    * Recalculate vertical offsets of visible slots and update scrollable area size.
+    */
+   private void updateSlotOffsets()
+   {
+      if (slotOffsets.length != visibleSlots.size() + 1)
+         slotOffsets = new int[visibleSlots.size() + 1];
+      int offset = 0;
+      for(int i = 0; i < visibleSlots.size(); i++)
+      {
+         slotOffsets[i] = offset;
+         offset += getSlotHeight(visibleSlots.get(i));
+      }
+      slotOffsets[visibleSlots.size()] = offset;
+      scroller.setMinSize(0, offset);
+   }
+
+   /**
+    * Find visible slot at given vertical position.
+    *
+    * @param y vertical position within editor area
+    * @return index of visible slot (first or last slot if position is outside of editor area)
+    */
+   private int findSlotAt(int y)
+   {
+      int low = 0;
+      int high = visibleSlots.size() - 1;
+      while(low < high)
+      {
+         int mid = (low + high + 1) / 2;
+         if (slotOffsets[mid] <= y)
+            low = mid;
+         else
+            high = mid - 1;
+      }
+      return low;
+   }
+
+   /**
+    * Render rules within and near visible part of editor area, and release editors of rules scrolled out of view. Rendered
+    * rules are measured, and if measured height differs from estimated one, slot offsets are recalculated and scroll position
+    * is adjusted so that rule at the top of visible area stays in place.
+    */
+   private void updateViewport()
+   {
+      if (updatingViewport || scroller.isDisposed())
+         return;
+
+      updatingViewport = true;
+      try
+      {
+         Rectangle clientArea = scroller.getClientArea();
+         int width = clientArea.width;
+         int wHint = (width > 0) ? width : SWT.DEFAULT;
+
+         if (visibleSlots.isEmpty())
+         {
+            while(!boundSlots.isEmpty())
+               releaseEditor(boundSlots.get(boundSlots.size() - 1));
+            return;
+         }
+
+         for(int pass = 0; pass < 8; pass++)
+         {
+            int origin = scroller.getOrigin().y;
+            int first = findSlotAt(origin - VIEWPORT_MARGIN);
+            int last = findSlotAt(origin + clientArea.height + VIEWPORT_MARGIN);
+
+            for(int i = boundSlots.size() - 1; i >= 0; i--)
+            {
+               RuleSlot s = boundSlots.get(i);
+               if ((s.index < first) || (s.index > last))
+                  releaseEditor(s);
+            }
+
+            int anchor = findSlotAt(origin);
+            int anchorOffset = origin - slotOffsets[anchor];
+            boolean heightChanged = false;
+            for(int i = first; i <= last; i++)
+            {
+               RuleSlot s = visibleSlots.get(i);
+               if (s.editor == null)
+                  bindEditor(s);
+               if (s.measuredWidth != width)
+               {
+                  s.collapsed = s.editor.isCollapsed();
+                  int h = s.editor.computeSize(wHint, SWT.DEFAULT, true).y;
+                  if (s.collapsed)
+                  {
+                     collapsedHeight = h;
+                  }
+                  else
+                  {
+                     expandedHeightTotal += h;
+                     expandedHeightCount++;
+                  }
+                  if (h != s.height)
+                  {
+                     s.height = h;
+                     heightChanged = true;
+                  }
+                  s.measuredWidth = width;
+               }
+            }
+            if (!heightChanged)
+               break;
+
+            updateSlotOffsets();
+            int newOrigin = slotOffsets[anchor] + anchorOffset;
+            if (newOrigin != origin)
+               scroller.setOrigin(scroller.getOrigin().x, newOrigin);
+         }
+
+         for(RuleSlot s : boundSlots)
+            s.editor.setBounds(0, slotOffsets[s.index], width, s.height);
+      }
+      finally
+      {
+         updatingViewport = false;
+      }
+   }
+
+   /**
+    * Attach rule editor to given slot, reusing released editor if possible.
+    *
+    * @param slot rule slot
+    */
+   private void bindEditor(RuleSlot slot)
+   {
+      RuleEditor editor;
+      if (editorPool.isEmpty())
+      {
+         editor = new RuleEditor(dataArea, slot.rule, this);
+         editor.setVerticalLayout(verticalLayout, false);
+         if (!slot.collapsed)
+            editor.setCollapsed(false, false);
+         if (slot.selected)
+            editor.setSelected(true);
+      }
+      else
+      {
+         editor = editorPool.remove(editorPool.size() - 1);
+         editor.setRule(slot.rule, slot.collapsed, slot.selected);
+         editor.setVisible(true);
+      }
+      slot.editor = editor;
+      slot.measuredWidth = -1;
+      boundSlots.add(slot);
+   }
+
+   /**
+    * Detach rule editor from given slot and return it to the pool.
+    *
+    * @param slot rule slot
+    */
+   private void releaseEditor(RuleSlot slot)
+   {
+      if (slot.editor == null)
+         return;
+      slot.collapsed = slot.editor.isCollapsed();
+      slot.editor.setVisible(false);
+      editorPool.add(slot.editor);
+      slot.editor = null;
+      boundSlots.remove(slot);
+   }
+
+   /**
+    * Find slot for given rule editor.
+    *
+    * @param editor rule editor
+    * @return slot currently bound to given editor or null
+    */
+   private RuleSlot findSlot(RuleEditor editor)
+   {
+      for(RuleSlot s : boundSlots)
+      {
+         if (s.editor == editor)
+            return s;
+      }
+      return null;
+   }
+
+   /**
+    * Update rule numbers after change in rule order.
+    */
+   private void renumberRules()
+   {
+      for(int i = 0; i < slots.size(); i++)
+      {
+         RuleSlot s = slots.get(i);
+         if (s.editor != null)
+            s.editor.setRuleNumber(i + 1);
+         else
+            s.rule.setRuleNumber(i + 1);
+      }
+   }
+
    /**
     * Process session notifications
     * 
@@ -455,7 +740,10 @@ private void processSessionNotification(SessionNotification n)
                actions.remove(n.getSubCode());
             }
             break;
+         default:
+            return;
       }
+      filterIndexGeneration++; // Action names are part of filter index
    }
 
    /**
@@ -465,12 +753,18 @@ private void processSessionNotification(SessionNotification n)
     */
    private void setAllRulesCollapsed(boolean collapsed)
    {
-      for(RuleEditor editor : ruleEditors)
+      for(RuleSlot s : slots)
       {
-         if (!editor.isDisposed())
-            editor.setCollapsed(collapsed, false);
+         s.collapsed = collapsed;
+         s.height = -1;
+         if (s.editor != null)
+         {
+            s.editor.setCollapsed(collapsed, false);
+            s.measuredWidth = -1;
+         }
       }
-      updateEditorAreaLayout();
+      updateSlotOffsets();
+      updateViewport();
    }
 
    /**
@@ -565,9 +859,22 @@ protected String getErrorMessage()
     */
    public void updateEditorAreaLayout()
    {
-      dataArea.layout();
-      Rectangle r = scroller.getClientArea();
-      scroller.setMinSize(dataArea.computeSize(r.width, SWT.DEFAULT));
+      for(RuleSlot s : boundSlots)
+         s.measuredWidth = -1;
+      updateViewport();
+   }
+
+   /**
+    * Handle modification of rule via rule editor.
+    *
+    * @param editor rule editor
+    */
+   public void onRuleModified(RuleEditor editor)
+   {
+      RuleSlot s = findSlot(editor);
+      if (s != null)
+         s.searchText = null;
+      updateEditorAreaLayout();
    }
 
    /**
@@ -714,12 +1021,25 @@ public void setModified(boolean modified)
     */
    private void clearSelection()
    {
-      for(RuleEditor e : selection)
-         e.setSelected(false);
+      for(RuleSlot s : selection)
+         setSlotSelected(s, false);
       selection.clear();
       lastSelectedRule = -1;
    }
 
+   /**
+    * Set selection status of given slot and its editor (if any).
+    *
+    * @param slot rule slot
+    * @param selected new selection status
+    */
+   private static void setSlotSelected(RuleSlot slot, boolean selected)
+   {
+      slot.selected = selected;
+      if (slot.editor != null)
+         slot.editor.setSelected(selected);
+   }
+
    /**
     * Set selection to given rule
     * 
@@ -738,7 +1058,8 @@ public void setSelection(RuleEditor e)
     */
    public void onDragDetect(RuleEditor e)
    {
-      if (!selection.contains(e))
+      RuleSlot slot = findSlot(e);
+      if ((slot != null) && !selection.contains(slot))
          setSelection(e);
    }
 
@@ -749,19 +1070,27 @@ public void onDragDetect(RuleEditor e)
     */
    public void addToSelection(RuleEditor e, boolean allFromPrevSelection)
    {
+      RuleSlot slot = findSlot(e);
+      if (slot == null)
+         return;
+
+      int ruleNumber = slot.rule.getRuleNumber();
       if (allFromPrevSelection && (lastSelectedRule != -1))
       {
-         int direction = Integer.signum(e.getRuleNumber() - lastSelectedRule);
-         for(int i = lastSelectedRule + direction; i != e.getRuleNumber(); i += direction)
+         int direction = Integer.signum(ruleNumber - lastSelectedRule);
+         for(int i = lastSelectedRule + direction; i != ruleNumber; i += direction)
          {
-            RuleEditor r = ruleEditors.get(i - 1);
-            selection.add(r);
-            r.setSelected(true);
+            RuleSlot s = slots.get(i - 1);
+            if (s.visible)
+            {
+               selection.add(s);
+               setSlotSelected(s, true);
+            }
          }
       }
-      selection.add(e);
-      e.setSelected(true);
-      lastSelectedRule = e.getRuleNumber();
+      selection.add(slot);
+      setSlotSelected(slot, true);
+      lastSelectedRule = ruleNumber;
       
       onSelectionChange();
    }
@@ -773,8 +1102,12 @@ public void addToSelection(RuleEditor e, boolean allFromPrevSelection)
     */
    public void removeFromSelection(RuleEditor e)
    {
-      selection.remove(e);
-      e.setSelected(false);
+      RuleSlot slot = findSlot(e);
+      if (slot == null)
+         return;
+
+      selection.remove(slot);
+      setSlotSelected(slot, false);
       lastSelectedRule = -1;
       
       onSelectionChange();
@@ -798,22 +1131,20 @@ private void onSelectionChange()
     */
    private void deleteSelectedRules()
    {
-      for(RuleEditor e : selection)
+      for(RuleSlot s : selection)
       {
-         policy.deleteRule(e.getRule());
-         ruleEditors.remove(e);
-         e.dispose();
+         policy.deleteRule(s.rule);
+         releaseEditor(s);
+         slots.remove(s);
       }
 
-      // Renumber rules
-      for(int i = 0; i < ruleEditors.size(); i++)
-         ruleEditors.get(i).setRuleNumber(i + 1);
+      renumberRules();
 
       selection.clear();
       lastSelectedRule = -1;
       onSelectionChange();
 
-      updateEditorAreaLayout();
+      refreshSlots();
       setModified(true);
    }
 
@@ -827,30 +1158,10 @@ private void insertRule(int position)
       EventProcessingPolicyRule rule = new EventProcessingPolicyRule();
       rule.setRuleNumber(position + 1);
       policy.insertRule(rule, position);
+      slots.add(position, new RuleSlot(rule));
 
-      RuleEditor editor = new RuleEditor(dataArea, rule, this);
-      ruleEditors.add(position, editor);
-      GridData gd = new GridData();
-      gd.horizontalAlignment = SWT.FILL;
-      gd.grabExcessHorizontalSpace = true;
-      editor.setLayoutData(gd);
-
-      for(int i = position + 1; i < ruleEditors.size(); i++)
-         ruleEditors.get(i).setRuleNumber(i + 1);
-
-      if (position < ruleEditors.size() - 1)
-      {
-         RuleEditor anchor = null;
-         for(int i = position + 1; i < ruleEditors.size(); i++)
-            if (!ruleEditors.get(i).isDisposed())
-            {
-               anchor = ruleEditors.get(i);
-               break;
-            }
-         if (anchor != null)
-            editor.moveAbove(anchor);
-      }
-      updateEditorAreaLayout();
+      renumberRules();
+      refreshSlots();
 
       setModified(true);
    }
@@ -863,23 +1174,21 @@ private void cutRules()
       clipboard.clear();
       actionPaste.setEnabled(true);
 
-      for(RuleEditor e : selection)
+      for(RuleSlot s : selection)
       {
-         clipboard.add(e.getRule());
-         policy.deleteRule(e.getRule());
-         ruleEditors.remove(e);
-         e.dispose();
+         clipboard.add(s.rule);
+         policy.deleteRule(s.rule);
+         releaseEditor(s);
+         slots.remove(s);
       }
 
-      // Renumber rules
-      for(int i = 0; i < ruleEditors.size(); i++)
-         ruleEditors.get(i).setRuleNumber(i + 1);
+      renumberRules();
 
       selection.clear();
       lastSelectedRule = -1;
       onSelectionChange();
 
-      updateEditorAreaLayout();
+      refreshSlots();
       setModified(true);
    }
 
@@ -891,8 +1200,8 @@ private void copyRules()
       clipboard.clear();
       actionPaste.setEnabled(true);
 
-      for(RuleEditor e : selection)
-         clipboard.add(new EventProcessingPolicyRule(e.getRule()));
+      for(RuleSlot s : selection)
+         clipboard.add(new EventProcessingPolicyRule(s.rule));
    }
 
    /**
@@ -901,40 +1210,16 @@ private void copyRules()
    private void pasteRules()
    {
       int position = lastSelectedRule;
-
-      RuleEditor anchor = null;
-      if (position < ruleEditors.size() - 1)
-      {
-         for(int i = position; i < ruleEditors.size(); i++)
-            if (!ruleEditors.get(i).isDisposed())
-            {
-               anchor = ruleEditors.get(i);
-               break;
-            }
-      }
-
       for(EventProcessingPolicyRule rule : clipboard.paste())
       {
          rule.setRuleNumber(position + 1);
          policy.insertRule(rule, position);
-
-         RuleEditor editor = new RuleEditor(dataArea, rule, this);
-         ruleEditors.add(position, editor);
-         GridData gd = new GridData();
-         gd.horizontalAlignment = SWT.FILL;
-         gd.grabExcessHorizontalSpace = true;
-         editor.setLayoutData(gd);
-
-         if (anchor != null)
-            editor.moveAbove(anchor);
-
+         slots.add(position, new RuleSlot(rule));
          position++;
       }
 
-      for(int i = position; i < ruleEditors.size(); i++)
-         ruleEditors.get(i).setRuleNumber(i + 1);
-
-      updateEditorAreaLayout();
+      renumberRules();
+      refreshSlots();
       setModified(true);
    }
    
@@ -945,39 +1230,29 @@ private void pasteRules()
     */
    public void moveSelection(RuleEditor anchor)
    {
-      if (selection.contains(anchor))
+      RuleSlot anchorSlot = findSlot(anchor);
+      if ((anchorSlot == null) || selection.contains(anchorSlot))
          return;
       
-      List<RuleEditor> movedRuleEditors = new ArrayList<RuleEditor>();
-      for(RuleEditor e : ruleEditors)
+      List<RuleSlot> movedSlots = new ArrayList<RuleSlot>(slots.size());
+      for(RuleSlot s : slots)
       {
-         if (!selection.contains(e))
+         if (!selection.contains(s))
          {
-            movedRuleEditors.add(e);
-            if (e.equals(anchor))
-            {
-               RuleEditor curr = anchor;
-               for(RuleEditor s : selection)
-               {
-                  movedRuleEditors.add(s);
-                  s.moveBelow(curr);
-                  curr = s;
-               }
-            }
+            movedSlots.add(s);
+            if (s == anchorSlot)
+               movedSlots.addAll(selection);
          }
       }
 
-      policy = new EventProcessingPolicy(movedRuleEditors.size());
-      int i = 0;
-      for(RuleEditor e : movedRuleEditors)
-      {
-         policy.addRule(e.getRule());
-         e.setRuleNumber(++i);
-      }
+      policy = new EventProcessingPolicy(movedSlots.size());
+      for(RuleSlot s : movedSlots)
+         policy.addRule(s.rule);
 
-      ruleEditors = movedRuleEditors;
+      slots = movedSlots;
+      renumberRules();
 
-      updateEditorAreaLayout();
+      refreshSlots();
       setModified(true);
    }
 
@@ -986,8 +1261,21 @@ public void moveSelection(RuleEditor anchor)
     */
    private void enableRules(boolean enabled)
    {
-      for(RuleEditor e : selection)
-         e.enableRule(enabled);
+      for(RuleSlot s : selection)
+      {
+         if (s.editor != null)
+         {
+            s.editor.enableRule(enabled);
+         }
+         else if (enabled == s.rule.isDisabled())
+         {
+            if (enabled)
+               s.rule.setFlags(s.rule.getFlags() & ~EventProcessingPolicyRule.DISABLED);
+            else
+               s.rule.setFlags(s.rule.getFlags() | EventProcessingPolicyRule.DISABLED);
+            setModified(true);
+         }
+      }
    }
 
    /**
@@ -1016,76 +1304,92 @@ public void fillRuleContextMenu(IMenuManager manager)
    @Override
    protected void onFilterModify()
    {
+      // Rebuild filter index when new filter is started, so renamed objects and events are picked up
+      if ((filterText == null) || filterText.isEmpty())
+         filterIndexGeneration++;
       filterText = getFilterText().trim().toLowerCase();
 
-      // change editors visibility
-      RuleEditor prev = null;
-      for(int i = 0; i < ruleEditors.size(); i++)
+      boolean changed = false;
+      for(RuleSlot s : slots)
       {
-         RuleEditor e = ruleEditors.get(i);
-         boolean visible = isRuleVisible(e.getRule());
-         if (!e.isDisposed() && !visible)
-         {
-            e.dispose();
-            selection.remove(e);
-         }
-         else if (e.isDisposed() && visible)
-         {
-            e = new RuleEditor(dataArea, e.getRule(), this);
-            GridData gd = new GridData();
-            gd.horizontalAlignment = SWT.FILL;
-            gd.grabExcessHorizontalSpace = true;
-            e.setLayoutData(gd);
-            if (prev != null)
-               e.moveBelow(prev);
-            else
-               e.moveAbove(null);
-            ruleEditors.set(i, e);
-         }
-         if (!e.isDisposed())
-            prev = e;
+         boolean visible = isRuleVisible(s);
+         if (visible == s.visible)
+            continue;
+
+         s.visible = visible;
+         if (!visible && selection.remove(s))
+            setSlotSelected(s, false);
+         changed = true;
       }
 
-      updateEditorAreaLayout();
+      if (changed)
+      {
+         onSelectionChange();
+         refreshSlots();
+      }
    }
 
    /**
     * Check if given rule should be visible
     * 
-    * @param rule
-    * @return
+    * @param slot rule slot
+    * @return true if rule matches current filter
     */
-   private boolean isRuleVisible(EventProcessingPolicyRule rule)
+   private boolean isRuleVisible(RuleSlot slot)
    {
       if ((filterText == null) || filterText.isEmpty())
          return true;
 
-      if (rule.getComments().toLowerCase().contains(filterText))
-         return true;
+      if ((slot.searchText == null) || (slot.searchTextGeneration != filterIndexGeneration))
+      {
+         slot.searchTextGeneration = filterIndexGeneration;
+         slot.searchText = buildSearchText(slot.rule);
+      }
+      return slot.searchText.contains(filterText);
+   }
+
+   /**
+    * Build filter index entry for given rule. Entry contains rule comments, names of events, source objects, excluded source
+    * objects, and server actions, converted to lower case and separated by new line characters.
+    *
+    * @param rule policy rule
+    * @return filter index entry
+    */
+   private String buildSearchText(EventProcessingPolicyRule rule)
+   {
+      StringBuilder sb = new StringBuilder(rule.getComments());
 
-      // check event names
       for(Long code : rule.getEvents())
       {
          EventTemplate evt = session.findEventTemplateByCode(code);
-         if ((evt != null) && evt.getName().toLowerCase().contains(filterText))
-            return true;
+         if (evt != null)
+            sb.append('\n').append(evt.getName());
       }
 
-      // check object names
       for(Long id : rule.getSources())
       {
          String name = session.getObjectName(id);
-         if ((name != null) && name.toLowerCase().contains(filterText))
-            return true;
+         if (name != null)
+            sb.append('\n').append(name);
       }
       for(Long id : rule.getSourceExclusions())
       {
          String name = session.getObjectName(id);
-         if ((name != null) && name.toLowerCase().contains(filterText))
-            return true;
+         if (name != null)
+            sb.append('\n').append(name);
+      }
+
+      synchronized(actions)
+      {
+         for(ActionExecutionConfiguration a : rule.getActions())
+         {
+            ServerAction action = actions.get(a.getActionId());
+            if (action != null)
+               sb.append('\n').append(action.getName());
+         }
       }
 
-      return false;
+      return sb.toString().toLowerCase();
    }
 
    /**
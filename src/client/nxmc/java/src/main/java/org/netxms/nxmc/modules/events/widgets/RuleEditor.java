@@ -117,6 +117,7 @@ public class RuleEditor extends Composite
    private Label editButton;
    private boolean modified = false;
    private boolean selected = false;
+   private boolean contentValid = true;
    private MouseListener ruleMouseListener;
 
    /**
@@ -220,6 +221,33 @@ public void run()
       dropEnable();
    }
 
+   /**
+    * Bind this editor to another rule. Policy editor uses this to reuse existing editor widgets for rules scrolled into view.
+    * Condition and action summaries for collapsed rule are not rebuilt until rule is expanded.
+    *
+    * @param rule new rule
+    * @param collapsed true if editor should be collapsed
+    * @param selected true if editor should be selected
+    */
+   public void setRule(EventProcessingPolicyRule rule, boolean collapsed, boolean selected)
+   {
+      this.rule = rule;
+      this.ruleNumber = rule.getRuleNumber();
+      this.selected = selected;
+      modified = false;
+
+      ruleNumberLabel.setText(Integer.toString(ruleNumber));
+      if (rule.isDisabled())
+         headerLabel.setText(rule.getComments() + i18n.tr(" (disabled)"));
+      else
+         headerLabel.setText(rule.getComments());
+      updateBackground();
+
+      contentValid = false;
+      setCollapsed(collapsed, false);
+      layout(true, true);
+   }
+
    /**
     * Enables drag functionality of the rule
     */
@@ -1000,6 +1028,12 @@ public boolean isCollapsed()
    public void setCollapsed(boolean collapsed, boolean doLayout)
    {
       this.collapsed = collapsed;
+      if (!collapsed && !contentValid)
+      {
+         condition.replaceClientArea();
+         action.replaceClientArea();
+         contentValid = true;
+      }
       expandButton.setImage(collapsed ? SharedIcons.IMG_EXPAND : SharedIcons.IMG_COLLAPSE);
       expandButton.setToolTipText(collapsed ? i18n.tr("Expand rule") : i18n.tr("Collapse rule"));
       mainArea.setVisible(!collapsed);
@@ -1055,7 +1089,8 @@ protected TreeViewer createTreeViewer(Composite parent)
 
          condition.replaceClientArea();
          action.replaceClientArea();
-         editor.updateEditorAreaLayout();
+         contentValid = true;
+         editor.onRuleModified(this);
          editor.setModified(true);
       }
    }
@@ -18,6 +18,7 @@
  */
 package org.netxms.nxmc.modules.filemanager.widgets;
 
+import java.io.IOException;
 import java.util.UUID;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.swt.events.DisposeEvent;
@@ -159,10 +160,10 @@ private void restartTracking()
       if (restartJob != null)
          restartJob.cancel();
 
-      text.append("\n\n" + //$NON-NLS-1$
-                  "----------------------------------------------------------------------\n" + //$NON-NLS-1$
-                  i18n.tr("Connection with the agent has been lost. Attempting to reconnect...") +
-                  "\n----------------------------------------------------------------------\n"); //$NON-NLS-1$
+      appendText("\n\n" + //$NON-NLS-1$
+                 "----------------------------------------------------------------------\n" + //$NON-NLS-1$
+                 i18n.tr("Connection with the agent has been lost. Attempting to reconnect...") +
+                 "\n----------------------------------------------------------------------\n"); //$NON-NLS-1$
 
       restartJob = new JobCallingServerJob(i18n.tr("Restart file tracking"), view) {
          private boolean running = true;
@@ -206,10 +207,17 @@ public void run()
                            return;
                         }
                         
-                        text.append("-------------------------------------------------------------------------------\n" + //$NON-NLS-1$
-                                    i18n.tr("Connection with the agent restored.") +
-                                    "\n-------------------------------------------------------------------------------\n\n"); //$NON-NLS-1$
-                        append(loadFile(file.getFile()));
+                        appendText("-------------------------------------------------------------------------------\n" + //$NON-NLS-1$
+                                   i18n.tr("Connection with the agent restored.") +
+                                   "\n-------------------------------------------------------------------------------\n\n"); //$NON-NLS-1$
+                        try
+                        {
+                           appendFile(file.getFile());
+                        }
+                        catch(IOException e)
+                        {
+                           logger.error("Cannot read file " + file.getFile().getAbsolutePath(), e);
+                        }
                         startTracking(file.getMonitorId(), nodeId, remoteFileName);
                      }
                   });
@@ -3,6 +3,9 @@
  */
 package org.netxms.nxmc.modules.networkmaps.widgets.helpers;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 import org.eclipse.draw2d.Figure;
 import org.eclipse.draw2d.GridLayout;
 import org.eclipse.draw2d.Label;
@@ -16,6 +19,8 @@
  */
 public class NodeLastValuesFigure extends Figure
 {
+   private Map<Long, Label> valueLabels = new HashMap<Long, Label>();
+
 	/**
 	 * @param values
 	 */
@@ -36,6 +41,22 @@ public NodeLastValuesFigure(DciValue[] values)
          Label value = new Label(v.getFormattedValue(true, DateFormatFactory.getTimeFormatter()));
 			value.setForegroundColor(color);
 			add(value);
+         valueLabels.put(v.getId(), value);
 		}
 	}
+
+   /**
+    * Update displayed values. Values for DCIs not shown by this figure are ignored.
+    *
+    * @param values new DCI values
+    */
+   public void updateValues(Collection<DciValue> values)
+   {
+      for(DciValue v : values)
+      {
+         Label label = valueLabels.get(v.getId());
+         if (label != null)
+            label.setText(v.getFormattedValue(true, DateFormatFactory.getTimeFormatter()));
+      }
+   }
 }
@@ -31,6 +31,7 @@
 import org.netxms.base.MacAddress;
 import org.netxms.client.NXCSession;
 import org.netxms.client.datacollection.DciValue;
+import org.netxms.client.datacollection.LastValuesMerger;
 import org.netxms.client.maps.MapObjectDisplayMode;
 import org.netxms.client.maps.elements.NetworkMapObject;
 import org.netxms.client.objects.AbstractNode;
@@ -65,6 +66,7 @@ public class ObjectTooltip extends Figure
    private AbstractObject object;
    private MapLabelProvider labelProvider;
    private long refreshTimestamp = 0;
+   private LastValuesMerger lastValues = null;
 
 	/**
 	 * @param object
@@ -210,29 +212,45 @@ public void refresh()
 	   if (labelProvider.getObjectFigureType() == MapObjectDisplayMode.LARGE_LABEL || !(object instanceof DataCollectionTarget))
 	      return;
 	   
-      final long nodeId = object.getObjectId();
+      if (lastValues == null)
+         lastValues = new LastValuesMerger(object.getObjectId(), true, false, false);
+      final LastValuesMerger merger = lastValues;
       Job job = new Job("Get DCI data for object tooltip", null) {
          @Override
          protected void run(IProgressMonitor monitor) throws Exception
          {
             try
             {
-               final DciValue[] values = session.getLastValues(nodeId, true, false, false);
+               final LastValuesMerger.Changes changes = merger.update(session);
                runInUIThread(new Runnable() {
                   @Override
                   public void run()
                   {
-                     if ((object instanceof Node) && (values != null) && (values.length > 0))
+                     if (!(object instanceof Node) || changes.isEmpty())
+                        return;
+
+                     if ((lastValuesFigure != null) && !changes.isStructureChanged())
+                     {
+                        lastValuesFigure.updateValues(changes.getUpdatedValues());
+                     }
+                     else
                      {
                         if (lastValuesFigure != null)
+                        {
                            remove(lastValuesFigure);
-                        lastValuesFigure = new NodeLastValuesFigure(values);
-                        GridData gd = new GridData();
-                        gd.horizontalSpan = 2;
-                        add(lastValuesFigure, gd, index);
-                        layout();
-                        labelProvider.getViewer().resizeToolTipShell();
+                           lastValuesFigure = null;
+                        }
+                        DciValue[] values = merger.getValues();
+                        if (values.length > 0)
+                        {
+                           lastValuesFigure = new NodeLastValuesFigure(values);
+                           GridData gd = new GridData();
+                           gd.horizontalSpan = 2;
+                           add(lastValuesFigure, gd, index);
+                        }
                      }
+                     layout();
+                     labelProvider.getViewer().resizeToolTipShell();
                   }
                });
             }
@@ -33,11 +33,13 @@
 import org.eclipse.swt.widgets.TableColumn;
 import org.netxms.client.NXCSession;
 import org.netxms.client.datacollection.DciValue;
+import org.netxms.client.datacollection.LastValuesMerger;
 import org.netxms.client.objects.AbstractObject;
 import org.netxms.client.objects.DataCollectionTarget;
 import org.netxms.nxmc.Registry;
 import org.netxms.nxmc.base.jobs.Job;
 import org.netxms.nxmc.localization.LocalizationHelper;
+import org.netxms.nxmc.modules.datacollection.views.helpers.LastValuesViewerUpdater;
 import org.netxms.nxmc.modules.objects.views.ObjectView;
 import org.netxms.nxmc.modules.objects.views.helpers.OverviewDciLabelProvider;
 import org.netxms.nxmc.tools.ViewRefreshController;
@@ -56,6 +58,7 @@ public class LastValues extends OverviewPageElement
 
    private TableViewer viewer;
    private ViewRefreshController refreshController;
+   private LastValuesMerger lastValues = null;
 
    /**
     * @param parent
@@ -105,6 +108,7 @@ protected Control createClientArea(Composite parent)
       
       viewer.setContentProvider(new ArrayContentProvider());
       viewer.setLabelProvider(new OverviewDciLabelProvider());
+      LastValuesViewerUpdater.install(viewer);
       viewer.setComparator(new ViewerComparator() {
          @Override
          public int compare(Viewer viewer, Object e1, Object e2)
@@ -202,21 +206,24 @@ private void refresh()
    {
       final NXCSession session = Registry.getSession();
       final long nodeId = getObject().getObjectId();
+      if ((lastValues == null) || (lastValues.getNodeId() != nodeId))
+         lastValues = new LastValuesMerger(nodeId, false, true, false);
+      final LastValuesMerger merger = lastValues;
       Job job = new Job(i18n.tr("Read last DCI values"), getObjectView()) {
          @Override
          protected void run(IProgressMonitor monitor) throws Exception
          {
             try
             {
-               final DciValue[] list = session.getLastValues(nodeId, false, true, false);
+               final LastValuesMerger.Changes changes = merger.update(session);
                runInUIThread(new Runnable() {
                   @Override
                   public void run()
                   {
                      if (viewer.getControl().isDisposed() || (getObject().getObjectId() != nodeId))
                         return;
-                     viewer.setInput(list);
-                     adjustCollumns();
+                     if (LastValuesViewerUpdater.apply(viewer, merger, changes) || !changes.isEmpty())
+                        adjustCollumns();
                   }
                });
             }
@@ -49,6 +49,9 @@
 import org.netxms.client.objects.Node;
 import org.netxms.client.objects.Rack;
 import org.netxms.client.objects.Sensor;
+import org.netxms.client.objects.StatusRollup;
+import org.netxms.client.objects.StatusRollupIndex;
+import org.netxms.client.objects.StatusRollupListener;
 import org.netxms.nxmc.Registry;
 import org.netxms.nxmc.modules.alarms.views.AdHocAlarmsView;
 import org.netxms.nxmc.modules.objects.ObjectContextMenuManager;
@@ -64,6 +67,8 @@ public abstract class AbstractObjectStatusMap extends Composite implements ISele
    protected ObjectView view;
    protected long rootObjectId = 0;
    protected NXCSession session;
+   protected StatusRollupIndex rollupIndex;
+   private boolean rootTracked = false;
    protected ISelection selection = null;
    protected Set<ISelectionChangedListener> selectionListeners = new HashSet<ISelectionChangedListener>();
    protected MenuManager menuManager;
@@ -101,11 +106,24 @@ else if (n.getCode() == SessionNotification.OBJECT_DELETED)
          }
       };
       session.addListener(sessionListener);
+      rollupIndex = session.getStatusRollupIndex();
+      final StatusRollupListener rollupListener = new StatusRollupListener() {
+         @Override
+         public void onStatusRollupChange(long containerId, StatusRollup previous, StatusRollup current)
+         {
+            if (containerId == rootObjectId)
+               onRollupChange(previous, current);
+         }
+      };
+      rollupIndex.addListener(rollupListener);
       addDisposeListener(new DisposeListener() {
          @Override
          public void widgetDisposed(DisposeEvent e)
          {
             session.removeListener(sessionListener);
+            rollupIndex.removeListener(rollupListener);
+            if (rootTracked)
+               rollupIndex.release(rootObjectId);
          }
       });
       
@@ -266,7 +284,10 @@ public long getRootObjectId()
     */
    public void setRootObjectId(long rootObjectId)
    {
+      if (rootTracked)
+         rollupIndex.release(this.rootObjectId);
       this.rootObjectId = rootObjectId;
+      rootTracked = (rollupIndex.track(rootObjectId) != null); // start tracking structure changes under new root
    }
 
    /**
@@ -350,6 +371,19 @@ public void removeRefreshListener(Runnable listener)
     */
    abstract protected void onObjectDelete(final long objectId);
 
+   /**
+    * Called when status roll-up for root object changes. Default implementation schedules refresh if set of descendants has
+    * changed, so subclasses do not need to walk subtree on each object change to detect added or moved objects.
+    *
+    * @param previous previous roll-up
+    * @param current current roll-up (null if root object was deleted)
+    */
+   protected void onRollupChange(StatusRollup previous, StatusRollup current)
+   {
+      if ((current == null) || !current.isSameStructure(previous))
+         refreshTimer.execute();
+   }
+
    /**
     * Handler for widget size calculation
     * @return widget size as a Point
@@ -24,6 +24,7 @@
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import org.eclipse.jface.resource.JFaceResources;
 import org.eclipse.jface.viewers.StructuredSelection;
 import org.eclipse.swt.SWT;
@@ -54,6 +55,7 @@ public class FlatObjectStatusMap extends AbstractObjectStatusMap
 {
 	private List<Composite> sections = new ArrayList<Composite>();
 	private Map<Long, ObjectStatusWidget> statusWidgets = new HashMap<Long, ObjectStatusWidget>();
+	private Map<Long, SectionSource> sectionSources = new ConcurrentHashMap<Long, SectionSource>();
 	private Font titleFont;
 	private boolean groupObjects = true;
    protected Composite dataArea;
@@ -99,6 +101,7 @@ public void refresh()
 		{
 			statusWidgets.clear();
 		}
+		sectionSources.clear();
 
 		if (groupObjects)
          buildSection(rootObjectId, "");
@@ -159,6 +162,7 @@ private void buildSection(long rootId, String namePrefix)
       if ((root == null) || !((root instanceof Container) || (root instanceof ServiceRoot) || (root instanceof Cluster) || (root instanceof Rack) || (root instanceof Chassis)))
 			return;
 
+		sectionSources.put(rootId, new SectionSource(root));
 		List<AbstractObject> objects = new ArrayList<AbstractObject>(Arrays.asList(root.getChildrenAsArray()));
       Collections.sort(objects, (o1, o2) -> o1.getNameWithAlias().compareToIgnoreCase(o2.getNameWithAlias()));
 
@@ -313,10 +317,18 @@ protected void onObjectChange(final AbstractObject object)
                }
 				});
 			}
-         else if ((object.getObjectId() == rootObjectId) || (object.isChildOf(rootObjectId) && (isContainerObject(object) || isAcceptedByFilter(object))))
-			{
-				refreshTimer.execute();
-			}
+         else if ((object.getObjectId() == rootObjectId) || isContainerObject(object))
+         {
+            // Status changes of containers are not shown and additions below not yet shown containers are reported by status
+            // roll-up index, so only changes of already shown sections require refresh
+            SectionSource source = sectionSources.get(object.getObjectId());
+            if ((source != null) && source.isChanged(object))
+               refreshTimer.execute();
+         }
+         else if (object.isChildOf(rootObjectId) && isAcceptedByFilter(object))
+         {
+            refreshTimer.execute();
+         }
 		}
 	}
 
@@ -356,4 +368,24 @@ protected Point computeSize()
       Rectangle r = getClientArea();
       return dataArea.computeSize(r.width, SWT.DEFAULT);
    }
+
+   /**
+    * Container data used to build section
+    */
+   private static class SectionSource
+   {
+      private String name;
+      private long[] children;
+
+      public SectionSource(AbstractObject object)
+      {
+         name = object.getNameWithAlias();
+         children = object.getChildIdList();
+      }
+
+      public boolean isChanged(AbstractObject object)
+      {
+         return !name.equals(object.getNameWithAlias()) || !Arrays.equals(children, object.getChildIdList());
+      }
+   }
 }
@@ -182,7 +182,7 @@ public void refresh()
    @Override
    protected void onObjectChange(AbstractObject object)
    {
-      if (widget.containsChangedObject(object) || (object.isChildOf(rootObjectId) && isAcceptedByFilter(object)))
+      if (widget.containsChangedObject(object) || (!widget.containsObject(object.getObjectId()) && object.isChildOf(rootObjectId) && isAcceptedByFilter(object)))
          refreshTimer.execute();
    }
 
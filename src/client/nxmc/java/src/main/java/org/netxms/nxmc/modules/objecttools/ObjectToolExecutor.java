@@ -35,7 +35,9 @@
 import org.netxms.client.ProgressListener;
 import org.netxms.client.constants.InputFieldType;
 import org.netxms.client.objects.AbstractNode;
+import org.netxms.client.objecttools.BulkToolExecution;
 import org.netxms.client.objecttools.ObjectTool;
+import org.netxms.nxmc.PreferenceStore;
 import org.netxms.nxmc.Registry;
 import org.netxms.nxmc.base.jobs.Job;
 import org.netxms.nxmc.base.jobs.JobCallingServerJob;
@@ -47,6 +49,7 @@
 import org.netxms.nxmc.modules.objects.dialogs.InputFieldEntryDialog;
 import org.netxms.nxmc.modules.objects.views.SSHCommandResults;
 import org.netxms.nxmc.modules.objecttools.views.AgentActionResults;
+import org.netxms.nxmc.modules.objecttools.views.BulkToolExecutionResults;
 import org.netxms.nxmc.modules.objecttools.views.LocalCommandResults;
 import org.netxms.nxmc.modules.objecttools.views.MultiNodeCommandExecutor;
 import org.netxms.nxmc.modules.objecttools.views.ServerCommandResults;
@@ -250,6 +253,22 @@ public void run()
                }
             }
 
+            final PreferenceStore settings = PreferenceStore.getInstance();
+            if ((objects.size() >= settings.getAsInteger("ObjectTools.BulkExecution.Threshold", 10)) && BulkToolExecution.isSupported(tool))
+            {
+               final BulkToolExecution execution = new BulkToolExecution(session, tool, objects, inputValues, maskedFields);
+               execution.setParallelism(settings.getAsInteger("ObjectTools.BulkExecution.Parallelism", BulkToolExecution.DEFAULT_PARALLELISM));
+               execution.setTimeout(settings.getAsInteger("ObjectTools.BulkExecution.Timeout", 0) * 1000);
+               getDisplay().syncExec(new Runnable() {
+                  @Override
+                  public void run()
+                  {
+                     viewPlacement.openView(new BulkToolExecutionResults(execution, allObjects));
+                  }
+               });
+               return;
+            }
+
             int i = 0;
             if ((objects.size() > 1) &&
                   (tool.getToolType() == ObjectTool.TYPE_LOCAL_COMMAND || tool.getToolType() == ObjectTool.TYPE_SERVER_COMMAND || tool.getToolType() == ObjectTool.TYPE_SSH_COMMAND ||
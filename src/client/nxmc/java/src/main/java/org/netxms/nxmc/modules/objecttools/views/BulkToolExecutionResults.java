@@ -0,0 +1,444 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2023 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.nxmc.modules.objecttools.views;
+
+import java.util.HashSet;
+import java.util.Set;
+import org.eclipse.jface.action.Action;
+import org.eclipse.jface.action.IMenuManager;
+import org.eclipse.jface.action.IToolBarManager;
+import org.eclipse.jface.action.Separator;
+import org.eclipse.jface.resource.JFaceResources;
+import org.eclipse.jface.viewers.ArrayContentProvider;
+import org.eclipse.jface.viewers.ISelectionChangedListener;
+import org.eclipse.jface.viewers.IStructuredSelection;
+import org.eclipse.jface.viewers.SelectionChangedEvent;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.custom.SashForm;
+import org.eclipse.swt.layout.FillLayout;
+import org.eclipse.swt.layout.GridData;
+import org.eclipse.swt.layout.GridLayout;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.Text;
+import org.netxms.client.Table;
+import org.netxms.client.objects.AbstractObject;
+import org.netxms.client.objecttools.BulkExecutionListener;
+import org.netxms.client.objecttools.BulkExecutionResult;
+import org.netxms.client.objecttools.BulkToolExecution;
+import org.netxms.nxmc.base.widgets.SortableTableViewer;
+import org.netxms.nxmc.localization.LocalizationHelper;
+import org.netxms.nxmc.modules.objects.ObjectContext;
+import org.netxms.nxmc.modules.objects.views.ObjectView;
+import org.netxms.nxmc.modules.objecttools.views.helpers.BulkExecutionResultComparator;
+import org.netxms.nxmc.modules.objecttools.views.helpers.BulkExecutionResultLabelProvider;
+import org.netxms.nxmc.resources.ResourceManager;
+import org.netxms.nxmc.resources.SharedIcons;
+import org.netxms.nxmc.tools.WidgetHelper;
+import org.xnap.commons.i18n.I18n;
+
+/**
+ * View to display progress and results of object tool execution on large number of objects. Execution is done with bounded
+ * concurrency by {@link BulkToolExecution}; table rows are updated in batches to keep UI responsive.
+ */
+public class BulkToolExecutionResults extends ObjectView
+{
+   private static I18n i18n = LocalizationHelper.getI18n(BulkToolExecutionResults.class);
+
+   public static final int COLUMN_OBJECT = 0;
+   public static final int COLUMN_STATUS = 1;
+   public static final int COLUMN_ATTEMPTS = 2;
+   public static final int COLUMN_TIME = 3;
+   public static final int COLUMN_RESULT = 4;
+
+   private static final int UPDATE_INTERVAL = 300;
+
+   private BulkToolExecution execution;
+   private Set<ObjectContext> sourceObjects;
+   private BulkExecutionListener listener;
+   private Set<BulkExecutionResult> pendingUpdates = new HashSet<BulkExecutionResult>();
+   private boolean updateScheduled = false;
+   private SortableTableViewer viewer;
+   private Label summary;
+   private Text output;
+   private Action actionCancel;
+   private Action actionRetry;
+   private Action actionCopy;
+
+   /**
+    * Create view.
+    *
+    * @param execution bulk execution (should not be started yet)
+    * @param sourceObjects objects selected by user
+    */
+   public BulkToolExecutionResults(BulkToolExecution execution, Set<ObjectContext> sourceObjects)
+   {
+      super(execution.getTool().getDisplayName(), ResourceManager.getImageDescriptor("icons/object-tools/terminal.png"),
+            "BulkToolExecutionResults." + execution.getTool().getId() + "." + sourceObjects.toString(), false);
+      this.execution = execution;
+      this.sourceObjects = sourceObjects;
+   }
+
+   /**
+    * @see org.netxms.nxmc.base.views.View#createContent(org.eclipse.swt.widgets.Composite)
+    */
+   @Override
+   protected void createContent(Composite parent)
+   {
+      parent.setLayout(new FillLayout());
+
+      SashForm splitter = new SashForm(parent, SWT.VERTICAL);
+
+      Composite topPart = new Composite(splitter, SWT.NONE);
+      GridLayout layout = new GridLayout();
+      layout.marginHeight = 0;
+      layout.marginWidth = 0;
+      layout.verticalSpacing = 0;
+      topPart.setLayout(layout);
+
+      summary = new Label(topPart, SWT.NONE);
+      GridData gd = new GridData(SWT.FILL, SWT.CENTER, true, false);
+      gd.horizontalIndent = 4;
+      gd.verticalIndent = 2;
+      summary.setLayoutData(gd);
+
+      final String[] names = { i18n.tr("Object"), i18n.tr("Status"), i18n.tr("Attempts"), i18n.tr("Time"), i18n.tr("Result") };
+      final int[] widths = { 250, 100, 70, 70, 500 };
+      viewer = new SortableTableViewer(topPart, names, widths, COLUMN_OBJECT, SWT.UP, SWT.FULL_SELECTION | SWT.MULTI);
+      viewer.setContentProvider(new ArrayContentProvider());
+      viewer.setLabelProvider(new BulkExecutionResultLabelProvider());
+      viewer.setComparator(new BulkExecutionResultComparator());
+      viewer.addSelectionChangedListener(new ISelectionChangedListener() {
+         @Override
+         public void selectionChanged(SelectionChangedEvent event)
+         {
+            updateOutput();
+         }
+      });
+      viewer.getControl().setLayoutData(new GridData(SWT.FILL, SWT.FILL, true, true));
+
+      output = new Text(splitter, SWT.MULTI | SWT.READ_ONLY | SWT.H_SCROLL | SWT.V_SCROLL);
+      output.setFont(JFaceResources.getTextFont());
+
+      splitter.setWeights(new int[] { 70, 30 });
+
+      createActions();
+
+      listener = new BulkExecutionListener() {
+         @Override
+         public void resultUpdated(BulkToolExecution execution, BulkExecutionResult result)
+         {
+            scheduleUpdate(result);
+         }
+
+         @Override
+         public void executionCompleted(BulkToolExecution execution)
+         {
+            scheduleUpdate(null);
+         }
+      };
+   }
+
+   /**
+    * @see org.netxms.nxmc.base.views.View#postContentCreate()
+    */
+   @Override
+   protected void postContentCreate()
+   {
+      super.postContentCreate();
+      viewer.setInput(execution.getResults());
+      updateSummary();
+      execution.addListener(listener);
+      execution.start();
+   }
+
+   /**
+    * Create actions
+    */
+   private void createActions()
+   {
+      actionCancel = new Action(i18n.tr("&Cancel"), SharedIcons.TERMINATE) {
+         @Override
+         public void run()
+         {
+            execution.cancel();
+         }
+      };
+
+      actionRetry = new Action(i18n.tr("&Retry failed"), SharedIcons.RESTART) {
+         @Override
+         public void run()
+         {
+            execution.retryFailed();
+            updateActions();
+         }
+      };
+      actionRetry.setEnabled(false);
+
+      actionCopy = new Action(i18n.tr("&Copy to clipboard"), SharedIcons.COPY) {
+         @Override
+         public void run()
+         {
+            copyToClipboard();
+         }
+      };
+   }
+
+   /**
+    * @see org.netxms.nxmc.base.views.View#fillLocalToolBar(org.eclipse.jface.action.IToolBarManager)
+    */
+   @Override
+   protected void fillLocalToolBar(IToolBarManager manager)
+   {
+      manager.add(actionCancel);
+      manager.add(actionRetry);
+   }
+
+   /**
+    * @see org.netxms.nxmc.base.views.View#fillLocalMenu(org.eclipse.jface.action.IMenuManager)
+    */
+   @Override
+   protected void fillLocalMenu(IMenuManager manager)
+   {
+      manager.add(actionCancel);
+      manager.add(actionRetry);
+      manager.add(new Separator());
+      manager.add(actionCopy);
+   }
+
+   /**
+    * Schedule update of given result in the table. Called from execution worker threads; updates are collected and applied
+    * to the table not more often than once per UPDATE_INTERVAL milliseconds.
+    *
+    * @param result updated result or null if only summary should be updated
+    */
+   private void scheduleUpdate(BulkExecutionResult result)
+   {
+      synchronized(pendingUpdates)
+      {
+         if (result != null)
+            pendingUpdates.add(result);
+         if (updateScheduled)
+            return;
+         updateScheduled = true;
+      }
+      getDisplay().asyncExec(new Runnable() {
+         @Override
+         public void run()
+         {
+            if (viewer.getControl().isDisposed())
+               return;
+            getDisplay().timerExec(UPDATE_INTERVAL, new Runnable() {
+               @Override
+               public void run()
+               {
+                  applyUpdates();
+               }
+            });
+         }
+      });
+   }
+
+   /**
+    * Apply collected updates to the table (must be called from UI thread).
+    */
+   private void applyUpdates()
+   {
+      BulkExecutionResult[] updates;
+      synchronized(pendingUpdates)
+      {
+         updates = pendingUpdates.toArray(new BulkExecutionResult[pendingUpdates.size()]);
+         pendingUpdates.clear();
+         updateScheduled = false;
+      }
+
+      if (viewer.getControl().isDisposed())
+         return;
+
+      if (updates.length > 0)
+         viewer.update(updates, null);
+      updateSummary();
+      updateActions();
+
+      IStructuredSelection selection = viewer.getStructuredSelection();
+      if (selection.size() == 1)
+      {
+         for(BulkExecutionResult r : updates)
+            if (r == selection.getFirstElement())
+            {
+               updateOutput();
+               break;
+            }
+      }
+   }
+
+   /**
+    * Update summary line
+    */
+   private void updateSummary()
+   {
+      int total = execution.getResults().size();
+      int success = execution.getCount(BulkExecutionResult.Status.SUCCESS);
+      int failed = execution.getCount(BulkExecutionResult.Status.FAILED);
+      int timeout = execution.getCount(BulkExecutionResult.Status.TIMEOUT);
+      int cancelled = execution.getCount(BulkExecutionResult.Status.CANCELLED);
+      int running = execution.getCount(BulkExecutionResult.Status.RUNNING);
+      summary.setText(String.format(i18n.tr("Completed %d of %d (success: %d, failed: %d, timeout: %d, cancelled: %d, running: %d)"),
+            success + failed + timeout + cancelled, total, success, failed, timeout, cancelled, running));
+   }
+
+   /**
+    * Update enabled state of actions
+    */
+   private void updateActions()
+   {
+      boolean completed = execution.isCompleted();
+      actionCancel.setEnabled(!completed);
+      actionRetry.setEnabled(completed && (execution.getCount(BulkExecutionResult.Status.FAILED) + execution.getCount(BulkExecutionResult.Status.TIMEOUT) > 0));
+   }
+
+   /**
+    * Show full output for selected result
+    */
+   private void updateOutput()
+   {
+      IStructuredSelection selection = viewer.getStructuredSelection();
+      if (selection.size() != 1)
+      {
+         output.setText("");
+         return;
+      }
+      output.setText(formatResult((BulkExecutionResult)selection.getFirstElement()));
+   }
+
+   /**
+    * Format full text of execution result.
+    *
+    * @param r execution result
+    * @return formatted result
+    */
+   private static String formatResult(BulkExecutionResult r)
+   {
+      StringBuilder sb = new StringBuilder();
+      if (r.getErrorMessage() != null)
+      {
+         sb.append(r.getErrorMessage());
+         sb.append('\n');
+      }
+      if (r.getOutput() != null)
+      {
+         sb.append(r.getOutput());
+      }
+      Table table = r.getTable();
+      if (table != null)
+      {
+         for(int i = 0; i < table.getColumnCount(); i++)
+         {
+            if (i > 0)
+               sb.append('\t');
+            sb.append(table.getColumnDisplayName(i));
+         }
+         sb.append('\n');
+         for(int row = 0; row < table.getRowCount(); row++)
+         {
+            for(int i = 0; i < table.getColumnCount(); i++)
+            {
+               if (i > 0)
+                  sb.append('\t');
+               sb.append(table.getCellValue(row, i));
+            }
+            sb.append('\n');
+         }
+      }
+      return sb.toString();
+   }
+
+   /**
+    * Copy selected results (or all results if nothing is selected) to clipboard
+    */
+   private void copyToClipboard()
+   {
+      IStructuredSelection selection = viewer.getStructuredSelection();
+      Object[] elements = selection.isEmpty() ? execution.getResults().toArray() : selection.toArray();
+      StringBuilder sb = new StringBuilder();
+      for(Object o : elements)
+      {
+         BulkExecutionResult r = (BulkExecutionResult)o;
+         sb.append(r.getTarget().object.getObjectName());
+         sb.append('\t');
+         sb.append(BulkExecutionResultLabelProvider.getStatusText(r.getStatus()));
+         sb.append('\n');
+         String text = formatResult(r).trim();
+         if (!text.isEmpty())
+         {
+            sb.append(text);
+            sb.append('\n');
+         }
+      }
+      WidgetHelper.copyToClipboard(sb.toString());
+   }
+
+   /**
+    * @see org.netxms.nxmc.base.views.View#setFocus()
+    */
+   @Override
+   public void setFocus()
+   {
+      viewer.getTable().setFocus();
+   }
+
+   /**
+    * @see org.netxms.nxmc.modules.objects.views.ObjectView#isValidForContext(java.lang.Object)
+    */
+   @Override
+   public boolean isValidForContext(Object context)
+   {
+      if ((context != null) && (context instanceof AbstractObject) && !sourceObjects.isEmpty())
+      {
+         for(ObjectContext object : sourceObjects)
+         {
+            if (((AbstractObject)context).getObjectId() == object.object.getObjectId())
+               return true;
+         }
+         if (((AbstractObject)context).getObjectId() == sourceObjects.iterator().next().contextId)
+            return true;
+      }
+      return false;
+   }
+
+   /**
+    * @see org.netxms.nxmc.base.views.View#isCloseable()
+    */
+   @Override
+   public boolean isCloseable()
+   {
+      return true;
+   }
+
+   /**
+    * @see org.netxms.nxmc.base.views.View#dispose()
+    */
+   @Override
+   public void dispose()
+   {
+      execution.removeListener(listener);
+      execution.cancel();
+      super.dispose();
+   }
+}
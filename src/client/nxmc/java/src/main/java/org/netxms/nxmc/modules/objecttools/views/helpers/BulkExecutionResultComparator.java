@@ -0,0 +1,66 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2023 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.nxmc.modules.objecttools.views.helpers;
+
+import org.eclipse.jface.viewers.Viewer;
+import org.eclipse.jface.viewers.ViewerComparator;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.widgets.TableColumn;
+import org.netxms.client.objecttools.BulkExecutionResult;
+import org.netxms.nxmc.base.widgets.SortableTableViewer;
+import org.netxms.nxmc.modules.objecttools.views.BulkToolExecutionResults;
+
+/**
+ * Comparator for bulk object tool execution results
+ */
+public class BulkExecutionResultComparator extends ViewerComparator
+{
+   /**
+    * @see org.eclipse.jface.viewers.ViewerComparator#compare(org.eclipse.jface.viewers.Viewer, java.lang.Object, java.lang.Object)
+    */
+   @Override
+   public int compare(Viewer viewer, Object e1, Object e2)
+   {
+      BulkExecutionResult r1 = (BulkExecutionResult)e1;
+      BulkExecutionResult r2 = (BulkExecutionResult)e2;
+
+      TableColumn sortColumn = ((SortableTableViewer)viewer).getTable().getSortColumn();
+      int column = (sortColumn != null) ? (Integer)sortColumn.getData("ID") : BulkToolExecutionResults.COLUMN_OBJECT;
+
+      int result;
+      switch(column)
+      {
+         case BulkToolExecutionResults.COLUMN_STATUS:
+            result = r1.getStatus().compareTo(r2.getStatus());
+            break;
+         case BulkToolExecutionResults.COLUMN_ATTEMPTS:
+            result = Integer.compare(r1.getAttempts(), r2.getAttempts());
+            break;
+         case BulkToolExecutionResults.COLUMN_TIME:
+            result = Long.compare(r1.getElapsedTime(), r2.getElapsedTime());
+            break;
+         default:
+            result = 0;
+            break;
+      }
+      if (result == 0)
+         result = r1.getTarget().object.getObjectName().compareToIgnoreCase(r2.getTarget().object.getObjectName());
+      return (((SortableTableViewer)viewer).getTable().getSortDirection() == SWT.UP) ? result : -result;
+   }
+}
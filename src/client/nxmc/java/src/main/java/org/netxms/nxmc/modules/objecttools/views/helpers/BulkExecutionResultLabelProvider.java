@@ -0,0 +1,166 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2023 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.nxmc.modules.objecttools.views.helpers;
+
+import org.eclipse.jface.viewers.ITableLabelProvider;
+import org.eclipse.jface.viewers.LabelProvider;
+import org.eclipse.swt.graphics.Image;
+import org.netxms.client.Table;
+import org.netxms.client.constants.Severity;
+import org.netxms.client.objecttools.BulkExecutionResult;
+import org.netxms.nxmc.localization.LocalizationHelper;
+import org.netxms.nxmc.modules.objects.widgets.helpers.BaseObjectLabelProvider;
+import org.netxms.nxmc.modules.objecttools.views.BulkToolExecutionResults;
+import org.netxms.nxmc.resources.SharedIcons;
+import org.netxms.nxmc.resources.StatusDisplayInfo;
+import org.xnap.commons.i18n.I18n;
+
+/**
+ * Label provider for bulk object tool execution results
+ */
+public class BulkExecutionResultLabelProvider extends LabelProvider implements ITableLabelProvider
+{
+   private static I18n i18n = LocalizationHelper.getI18n(BulkExecutionResultLabelProvider.class);
+
+   private BaseObjectLabelProvider objectLabelProvider;
+
+   /**
+    * Create label provider.
+    */
+   public BulkExecutionResultLabelProvider()
+   {
+      objectLabelProvider = new BaseObjectLabelProvider();
+   }
+
+   /**
+    * @see org.eclipse.jface.viewers.ITableLabelProvider#getColumnImage(java.lang.Object, int)
+    */
+   @Override
+   public Image getColumnImage(Object element, int columnIndex)
+   {
+      BulkExecutionResult r = (BulkExecutionResult)element;
+      switch(columnIndex)
+      {
+         case BulkToolExecutionResults.COLUMN_OBJECT:
+            return objectLabelProvider.getImage(r.getTarget().object);
+         case BulkToolExecutionResults.COLUMN_STATUS:
+            switch(r.getStatus())
+            {
+               case RUNNING:
+                  return SharedIcons.IMG_EXECUTE;
+               case SUCCESS:
+                  return StatusDisplayInfo.getStatusImage(Severity.NORMAL);
+               case FAILED:
+                  return StatusDisplayInfo.getStatusImage(Severity.CRITICAL);
+               case TIMEOUT:
+                  return StatusDisplayInfo.getStatusImage(Severity.MAJOR);
+               default:
+                  return StatusDisplayInfo.getStatusImage(Severity.UNKNOWN);
+            }
+      }
+      return null;
+   }
+
+   /**
+    * @see org.eclipse.jface.viewers.ITableLabelProvider#getColumnText(java.lang.Object, int)
+    */
+   @Override
+   public String getColumnText(Object element, int columnIndex)
+   {
+      BulkExecutionResult r = (BulkExecutionResult)element;
+      switch(columnIndex)
+      {
+         case BulkToolExecutionResults.COLUMN_OBJECT:
+            return r.getTarget().object.getObjectName();
+         case BulkToolExecutionResults.COLUMN_STATUS:
+            return getStatusText(r.getStatus());
+         case BulkToolExecutionResults.COLUMN_ATTEMPTS:
+            return Integer.toString(r.getAttempts());
+         case BulkToolExecutionResults.COLUMN_TIME:
+            return (r.getStartTime() != 0) ? String.format("%.1f s", r.getElapsedTime() / 1000.0) : "";
+         case BulkToolExecutionResults.COLUMN_RESULT:
+            return getResultSummary(r);
+      }
+      return null;
+   }
+
+   /**
+    * Get display text for execution status.
+    *
+    * @param status execution status
+    * @return display text
+    */
+   public static String getStatusText(BulkExecutionResult.Status status)
+   {
+      switch(status)
+      {
+         case CANCELLED:
+            return i18n.tr("Cancelled");
+         case FAILED:
+            return i18n.tr("Failed");
+         case PENDING:
+            return i18n.tr("Pending");
+         case RUNNING:
+            return i18n.tr("Running");
+         case SUCCESS:
+            return i18n.tr("Success");
+         case TIMEOUT:
+            return i18n.tr("Timeout");
+      }
+      return "";
+   }
+
+   /**
+    * Get one line summary of execution result.
+    *
+    * @param r execution result
+    * @return one line summary
+    */
+   private static String getResultSummary(BulkExecutionResult r)
+   {
+      switch(r.getStatus())
+      {
+         case FAILED:
+         case TIMEOUT:
+            return (r.getErrorMessage() != null) ? r.getErrorMessage() : "";
+         case SUCCESS:
+            Table table = r.getTable();
+            if (table != null)
+               return String.format(i18n.tr("%d rows"), table.getRowCount());
+            String output = r.getOutput();
+            if (output == null)
+               return "";
+            output = output.trim();
+            int index = output.indexOf('\n');
+            return (index == -1) ? output : output.substring(0, index).trim();
+         default:
+            return "";
+      }
+   }
+
+   /**
+    * @see org.eclipse.jface.viewers.BaseLabelProvider#dispose()
+    */
+   @Override
+   public void dispose()
+   {
+      objectLabelProvider.dispose();
+      super.dispose();
+   }
+}
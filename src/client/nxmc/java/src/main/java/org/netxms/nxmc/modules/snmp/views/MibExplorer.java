@@ -18,9 +18,7 @@
  */
 package org.netxms.nxmc.modules.snmp.views;
 
-import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.jface.action.Action;
@@ -29,7 +27,6 @@
 import org.eclipse.jface.action.IToolBarManager;
 import org.eclipse.jface.action.MenuManager;
 import org.eclipse.jface.action.Separator;
-import org.eclipse.jface.viewers.ArrayContentProvider;
 import org.eclipse.jface.viewers.DoubleClickEvent;
 import org.eclipse.jface.viewers.IDoubleClickListener;
 import org.eclipse.jface.viewers.ISelectionChangedListener;
@@ -52,8 +49,7 @@
 import org.netxms.client.objects.AbstractObject;
 import org.netxms.client.objects.Node;
 import org.netxms.client.snmp.MibObject;
-import org.netxms.client.snmp.SnmpValue;
-import org.netxms.client.snmp.SnmpWalkListener;
+import org.netxms.client.snmp.SnmpWalkResult;
 import org.netxms.nxmc.PreferenceStore;
 import org.netxms.nxmc.Registry;
 import org.netxms.nxmc.base.actions.ExportToCsvAction;
@@ -63,9 +59,11 @@
 import org.netxms.nxmc.localization.LocalizationHelper;
 import org.netxms.nxmc.modules.datacollection.actions.CreateSnmpDci;
 import org.netxms.nxmc.modules.objects.views.ObjectView;
+import org.netxms.nxmc.modules.snmp.actions.ExportWalkResultAction;
 import org.netxms.nxmc.modules.snmp.helpers.SnmpValueLabelProvider;
 import org.netxms.nxmc.modules.snmp.shared.MibCache;
 import org.netxms.nxmc.modules.snmp.views.helpers.SnmpWalkFilter;
+import org.netxms.nxmc.modules.snmp.views.helpers.SnmpWalkResultContentProvider;
 import org.netxms.nxmc.modules.snmp.widgets.MibBrowser;
 import org.netxms.nxmc.modules.snmp.widgets.MibObjectDetails;
 import org.netxms.nxmc.resources.ResourceManager;
@@ -76,7 +74,7 @@
 /**
  * SNMP MIB explorer
  */
-public class MibExplorer extends ObjectView implements SnmpWalkListener
+public class MibExplorer extends ObjectView
 {
    private static I18n i18n = LocalizationHelper.getI18n(MibExplorer.class);
    private static final String ID = "MibExplorer";
@@ -91,8 +89,8 @@ public class MibExplorer extends ObjectView implements SnmpWalkListener
    private FilterText filterText;
    private SortableTableViewer viewer;
 	private boolean walkActive = false;
-   private long walkObjectId = 0;
-	private List<SnmpValue> walkData = new ArrayList<SnmpValue>();
+   private SnmpWalkResult walkResult = null;
+   private SnmpWalkResultContentProvider contentProvider;
 	private Action actionWalk;
 	private Action actionCopyObjectName;
 	private Action actionCopy;
@@ -102,6 +100,7 @@ public class MibExplorer extends ObjectView implements SnmpWalkListener
 	private Action actionCopyValue;
 	private Action actionSelect;
 	private Action actionExportToCsv;
+   private Action actionExportAllToCsv;
    private Action actionShowResultFilter;
 	private CreateSnmpDci actionCreateSnmpDci;
 
@@ -183,7 +182,7 @@ public void selectionChanged(SelectionChangedEvent event)
          public void modifyText(ModifyEvent e)
          {
             filter.setFilterString(filterText.getText());
-            viewer.refresh();
+            contentProvider.refresh();
          }
       });
       filterText.setCloseCallback(new Runnable() {
@@ -195,12 +194,13 @@ public void run()
       });
 
       // walk results
-      viewer = new SortableTableViewer(resultArea, SWT.FULL_SELECTION | SWT.MULTI);
+      viewer = new SortableTableViewer(resultArea, SWT.FULL_SELECTION | SWT.MULTI | SWT.VIRTUAL);
+      viewer.setUseHashlookup(true);
 		setupViewerColumns();
-		viewer.setContentProvider(new ArrayContentProvider());
-		viewer.setLabelProvider(new SnmpValueLabelProvider());
 		filter = new SnmpWalkFilter();
-		viewer.addFilter(filter);
+      contentProvider = new SnmpWalkResultContentProvider(filter);
+      viewer.setContentProvider(contentProvider);
+		viewer.setLabelProvider(new SnmpValueLabelProvider());
 		viewer.addSelectionChangedListener(new ISelectionChangedListener() {
 			@Override
 			public void selectionChanged(SelectionChangedEvent event)
@@ -217,7 +217,7 @@ public void doubleClick(DoubleClickEvent event)
 				selectInTree();
 			}
 		});
-      viewer.setInput(walkData);
+      setWalkResult(null);
 
       splitter.setWeights(new int[] { 70, 30 });
 
@@ -360,6 +360,7 @@ public void run()
 		actionSelect.setEnabled(false);
 
 		actionExportToCsv = new ExportToCsvAction(this, viewer, true);
+      actionExportAllToCsv = new ExportWalkResultAction(this, () -> walkResult);
 		
 		actionCreateSnmpDci = new CreateSnmpDci(this);
 
@@ -488,6 +489,8 @@ protected void fillResultsContextMenu(final IMenuManager manager)
 	{
       manager.add(actionShowResultFilter);
       manager.add(new Separator());
+      if (walkResult != null)
+         manager.add(actionExportAllToCsv);
 
 		if (viewer.getSelection().isEmpty())
 			return;
@@ -533,28 +536,21 @@ private void setupViewerColumns()
    protected void onObjectChange(AbstractObject object)
    {
       actionWalk.setEnabled((object != null) && !walkActive);
-      WalkResultCache cache = Registry.getSingleton(WalkResultCache.class);
-      if (walkObjectId != 0)
-      {
-         cache.set(walkObjectId, walkData);
-         walkData = new ArrayList<>();
-      }
-      else
-      {
-         walkData.clear();
-      }
-      List<SnmpValue> cachedWalkData = cache.get(object.getObjectId());
-      if (cachedWalkData != null)
-      {
-         walkData.addAll(cachedWalkData);
-         walkObjectId = object.getObjectId();
-      }
-      else
-      {
-         walkObjectId = 0;
-      }
-      viewer.setInput(walkData);
-      viewer.packColumns();
+      setWalkResult((object != null) ? Registry.getSingleton(WalkResultCache.class).get(object.getObjectId()) : null);
+   }
+
+   /**
+    * Set walk result to display.
+    *
+    * @param result walk result (can be null)
+    */
+   private void setWalkResult(SnmpWalkResult result)
+   {
+      walkResult = result;
+      viewer.setInput(result);
+      viewer.setItemCount(contentProvider.getRowCount());
+      if (contentProvider.getRowCount() > 0)
+         viewer.packColumns();
    }
 
 	/**
@@ -571,17 +567,17 @@ private void doWalk()
 
 		walkActive = true;
 		actionWalk.setEnabled(false);
-      walkData.clear();
-      viewer.refresh();
 
       final long nodeId = getObjectId();
-      walkObjectId = nodeId;
+      final SnmpWalkResult result = new SnmpWalkResult(nodeId);
+      Registry.getSingleton(WalkResultCache.class).set(nodeId, result);
+      setWalkResult(result);
 
       Job job = new Job(i18n.tr("Walking MIB tree"), this) {
 			@Override
 			protected void run(IProgressMonitor monitor) throws Exception
 			{
-            session.snmpWalk(nodeId, mibObject.getObjectId().toString(), MibExplorer.this);
+            session.snmpWalk(nodeId, mibObject.getObjectId().toString(), result);
 			}
 
 			@Override
@@ -605,48 +601,78 @@ public void run()
 		};
 		job.setUser(false);
 		job.start();
-	}
 
-   /**
-    * @see org.netxms.client.snmp.SnmpWalkListener#onSnmpWalkData(long, java.util.List)
-    */
-	@Override
-   public void onSnmpWalkData(long nodeId, final List<SnmpValue> data)
-	{
-		viewer.getControl().getDisplay().asyncExec(new Runnable() {
-			@Override
-			public void run()
-			{
-            if (nodeId != walkObjectId)
-               return; // Ignore data from incorrect node
+      // Updates are applied synchronously, so walk is slowed down if UI cannot keep up with incoming data
+      Job updateJob = new Job(i18n.tr("Updating MIB walk results"), this) {
+         @Override
+         protected void run(IProgressMonitor monitor) throws Exception
+         {
+            while(true)
+            {
+               final SnmpWalkResult.Update update = result.takeUpdate(1000);
+               if (update == null)
+               {
+                  if (result.isComplete())
+                     break;
+                  continue;
+               }
+               getDisplay().syncExec(new Runnable() {
+                  @Override
+                  public void run()
+                  {
+                     if ((walkResult != result) || viewer.getControl().isDisposed())
+                        return; // Result is not displayed anymore
+
+                     boolean firstRows = (viewer.getTable().getItemCount() == 0);
+                     contentProvider.update(update.isReordered());
+                     int count = viewer.getTable().getItemCount();
+                     if (count > 0)
+                     {
+                        if (firstRows)
+                           viewer.packColumns();
+                        try
+                        {
+                           viewer.getTable().showItem(viewer.getTable().getItem(count - 1));
+                        }
+                        catch(Exception e)
+                        {
+                           // silently ignore any possible problem with table scrolling
+                        }
+                     }
+                  }
+               });
+               if (update.isLast())
+                  break;
+            }
+         }
 
-				walkData.addAll(data);
-            viewer.refresh();
-            viewer.packColumns();
-				try
-				{
-					viewer.getTable().showItem(viewer.getTable().getItem(viewer.getTable().getItemCount() - 1));
-				}
-				catch(Exception e)
-				{
-					// silently ignore any possible problem with table scrolling
-				}
-			}
-		});
+         @Override
+         protected String getErrorMessage()
+         {
+            return i18n.tr("Cannot update MIB walk results");
+         }
+      };
+      updateJob.setUser(false);
+      updateJob.start();
 	}
 
+   /**
+    * Cache for walk results. Result is replaced (and previous one disposed) when new walk is started for same node.
+    */
    private static class WalkResultCache
    {
-      private Map<Long, List<SnmpValue>> cache = new HashMap<>();
+      private Map<Long, SnmpWalkResult> cache = new HashMap<>();
 
-      List<SnmpValue> get(long id)
+      synchronized SnmpWalkResult get(long id)
       {
          return cache.get(id);
       }
 
-      void set(long id, List<SnmpValue> data)
+      synchronized void set(long id, SnmpWalkResult result)
       {
-         cache.put(id, data);
+         SnmpWalkResult prev = cache.put(id, result);
+         if ((prev != null) && (prev != result))
+            prev.dispose();
       }
    }
 }
@@ -0,0 +1,174 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2023 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.nxmc.modules.snmp.views.helpers;
+
+import java.io.IOException;
+import java.util.Arrays;
+import org.eclipse.jface.viewers.ILazyContentProvider;
+import org.eclipse.jface.viewers.TableViewer;
+import org.eclipse.jface.viewers.Viewer;
+import org.netxms.client.snmp.SnmpWalkResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Lazy content provider for virtual table showing SNMP walk result. SnmpValue objects are created only for rows which are
+ * actually displayed. Filter is applied by building index of matching rows.
+ */
+public class SnmpWalkResultContentProvider implements ILazyContentProvider
+{
+   private static Logger logger = LoggerFactory.getLogger(SnmpWalkResultContentProvider.class);
+
+   private SnmpWalkFilter filter;
+   private TableViewer viewer = null;
+   private SnmpWalkResult result = null;
+   private int[] rows = null; // indexes of matching records, null if filter is not set
+   private int rowCount = 0;
+   private int checkedCount = 0; // number of records already checked against filter
+
+   /**
+    * Create content provider.
+    *
+    * @param filter filter to apply to records
+    */
+   public SnmpWalkResultContentProvider(SnmpWalkFilter filter)
+   {
+      this.filter = filter;
+   }
+
+   /**
+    * @see org.eclipse.jface.viewers.IContentProvider#inputChanged(org.eclipse.jface.viewers.Viewer, java.lang.Object, java.lang.Object)
+    */
+   @Override
+   public void inputChanged(Viewer viewer, Object oldInput, Object newInput)
+   {
+      this.viewer = (TableViewer)viewer;
+      result = (SnmpWalkResult)newInput;
+      rebuildIndex();
+   }
+
+   /**
+    * @see org.eclipse.jface.viewers.ILazyContentProvider#updateElement(int)
+    */
+   @Override
+   public void updateElement(int index)
+   {
+      if ((result == null) || (index >= rowCount))
+         return;
+      int record = (rows != null) ? rows[index] : index;
+      if (record >= result.size())
+         return; // Result was disposed
+      try
+      {
+         viewer.replace(result.getSnmpValue(record), index);
+      }
+      catch(IOException e)
+      {
+         logger.error("Cannot read SNMP walk result record", e);
+      }
+   }
+
+   /**
+    * Update viewer after new records were added to result.
+    *
+    * @param reordered true if records were inserted before already displayed ones
+    */
+   public void update(boolean reordered)
+   {
+      if (reordered)
+      {
+         rebuildIndex();
+         viewer.getTable().clearAll();
+      }
+      else
+      {
+         checkRecords();
+      }
+      viewer.setItemCount(rowCount);
+   }
+
+   /**
+    * Re-apply filter and refresh viewer.
+    */
+   public void refresh()
+   {
+      rebuildIndex();
+      viewer.setItemCount(rowCount);
+      viewer.getTable().clearAll();
+   }
+
+   /**
+    * Get number of displayed rows.
+    *
+    * @return number of displayed rows
+    */
+   public int getRowCount()
+   {
+      return rowCount;
+   }
+
+   /**
+    * Rebuild row index from scratch.
+    */
+   private void rebuildIndex()
+   {
+      rows = null;
+      rowCount = 0;
+      checkedCount = 0;
+      checkRecords();
+   }
+
+   /**
+    * Check records added since last check against filter.
+    */
+   private void checkRecords()
+   {
+      if (result == null)
+         return;
+
+      int size = result.size();
+      String filterString = filter.getFilterString();
+      if ((filterString == null) || filterString.isEmpty())
+      {
+         rows = null;
+         rowCount = size;
+         checkedCount = size;
+         return;
+      }
+
+      if (rows == null)
+         rows = new int[Math.max(size, 16)];
+      try
+      {
+         for(int i = checkedCount; i < size; i++)
+         {
+            if (!filter.select(viewer, null, result.getSnmpValue(i)))
+               continue;
+            if (rowCount == rows.length)
+               rows = Arrays.copyOf(rows, rows.length * 2);
+            rows[rowCount++] = i;
+         }
+      }
+      catch(IOException e)
+      {
+         logger.error("Cannot read SNMP walk result record", e);
+      }
+      checkedCount = size;
+   }
+}
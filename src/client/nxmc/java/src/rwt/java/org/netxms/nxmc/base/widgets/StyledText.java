@@ -438,6 +438,26 @@ public void scrollToBottom()
       }
    }
 
+   /**
+    * Scroll content to top
+    */
+   public void scrollToTop()
+   {
+      if (refreshInProgress)
+         return;
+
+      refreshInProgress = true;
+      try
+      {
+         textArea.execute("window.scrollTo(0, 0);");
+      }
+      catch(Exception e)
+      {
+         logger.error("Exception during StyledText forced scroll", e);
+      }
+      refreshInProgress = false;
+   }
+
    /**
     * @param listener
     */
@@ -19,14 +19,17 @@
 package org.netxms.nxmc.modules.filemanager.widgets;
 
 import java.io.File;
-import java.io.FileReader;
+import java.io.FileInputStream;
 import java.io.IOException;
-import java.util.Arrays;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.jface.resource.JFaceResources;
 import org.eclipse.swt.SWT;
+import org.eclipse.swt.events.DisposeEvent;
+import org.eclipse.swt.events.DisposeListener;
 import org.eclipse.swt.events.ModifyEvent;
 import org.eclipse.swt.events.ModifyListener;
 import org.eclipse.swt.events.MouseEvent;
@@ -35,6 +38,7 @@
 import org.eclipse.swt.events.SelectionEvent;
 import org.eclipse.swt.events.SelectionListener;
 import org.eclipse.swt.graphics.Color;
+import org.eclipse.swt.graphics.RGB;
 import org.eclipse.swt.layout.FormAttachment;
 import org.eclipse.swt.layout.FormData;
 import org.eclipse.swt.layout.FormLayout;
@@ -43,6 +47,7 @@
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Control;
 import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.Slider;
 import org.eclipse.swt.widgets.Text;
 import org.eclipse.swt.widgets.ToolBar;
 import org.eclipse.swt.widgets.ToolItem;
@@ -50,14 +55,19 @@
 import org.netxms.nxmc.base.views.View;
 import org.netxms.nxmc.base.widgets.StyledText;
 import org.netxms.nxmc.base.widgets.helpers.LineStyler;
+import org.netxms.nxmc.base.widgets.helpers.StyleRange;
 import org.netxms.nxmc.localization.LocalizationHelper;
+import org.netxms.nxmc.modules.filemanager.widgets.helpers.PagedTextDocument;
 import org.netxms.nxmc.resources.SharedIcons;
+import org.netxms.nxmc.resources.ThemeEngine;
+import org.netxms.nxmc.tools.ColorCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.xnap.commons.i18n.I18n;
 
 /**
- * Base file viewer widget
+ * Base file viewer widget. File content is kept in paged document backed by temporary file, and only window of
+ * <code>WINDOW_SIZE</code> lines around current position is materialized in text widget.
  */
 public class BaseFileViewer extends Composite
 {
@@ -68,22 +78,31 @@ public class BaseFileViewer extends Composite
    public static final int WARNING = 1;
    public static final int ERROR = 2;
 
-   public static final long MAX_FILE_SIZE = 67108864; // 64MB
+   public static final long MAX_FILE_SIZE = 1073741824; // 1GB, also limits content kept while following file
+   public static final int WINDOW_SIZE = 2000; // lines
+
+   private static final int SEARCH_CONTEXT_LINES = 5;
 
    protected View view;
    protected StyledText text;
+   protected Slider scroller;
+   protected PagedTextDocument document;
    protected Composite searchBar;
    protected Text searchBarText;
    protected Label searchCloseButton;
    protected boolean scrollLock = false;
    private int lineCountLimit = 0;
-   protected StringBuilder content = new StringBuilder();
    protected Pattern appendFilter = null;
    protected String lineRemainder = null;
+   private int windowStart = 0;
+   private int windowEnd = 0;
+   private long matchOffset = -1;
+   private Job searchJob = null;
+   private ColorCache colors;
 
    /**
     * Create file viewer
-    * 
+    *
     * @param parent
     * @param style
     */
@@ -91,19 +110,38 @@ public BaseFileViewer(Composite parent, int style, View view)
    {
       super(parent, style);
       this.view = view;
+      document = createDocument();
+      colors = new ColorCache(this);
 
       setLayout(new FormLayout());
 
       /*** Text area ***/
+      scroller = new Slider(this, SWT.VERTICAL);
+      scroller.setEnabled(false);
+      scroller.addSelectionListener(new SelectionAdapter() {
+         @Override
+         public void widgetSelected(SelectionEvent e)
+         {
+            if (scroller.getSelection() != windowStart)
+               showWindow(scroller.getSelection());
+         }
+      });
+
       text = new StyledText(this, SWT.H_SCROLL | SWT.V_SCROLL);
       text.setFont(JFaceResources.getTextFont());
       FormData fd = new FormData();
       fd.top = new FormAttachment(0, 0);
       fd.left = new FormAttachment(0, 0);
-      fd.right = new FormAttachment(100, 0);
+      fd.right = new FormAttachment(scroller, 0, SWT.LEFT);
       fd.bottom = new FormAttachment(100, 0);
       text.setLayoutData(fd);
 
+      fd = new FormData();
+      fd.top = new FormAttachment(text, 0, SWT.TOP);
+      fd.right = new FormAttachment(100, 0);
+      fd.bottom = new FormAttachment(text, 0, SWT.BOTTOM);
+      scroller.setLayoutData(fd);
+
       /*** Search bar ***/
       searchBar = new Composite(this, SWT.NONE);
       GridLayout layout = new GridLayout();
@@ -156,7 +194,7 @@ public BaseFileViewer(Composite parent, int style, View view)
          @Override
          public void modifyText(ModifyEvent e)
          {
-            doSearch(true);
+            doSearch(true, false);
          }
       });
       searchBarText.addSelectionListener(new SelectionListener() {
@@ -164,11 +202,11 @@ public void modifyText(ModifyEvent e)
          public void widgetSelected(SelectionEvent e)
          {
          }
-         
+
          @Override
          public void widgetDefaultSelected(SelectionEvent e)
          {
-            doSearch(false);
+            doSearch(false, false);
          }
       });
 
@@ -186,7 +224,7 @@ public void widgetDefaultSelected(SelectionEvent e)
          @Override
          public void widgetSelected(SelectionEvent e)
          {
-            doReverseSearch();
+            doSearch(false, true);
          }
       });
 
@@ -196,7 +234,7 @@ public void widgetSelected(SelectionEvent e)
          @Override
          public void widgetSelected(SelectionEvent e)
          {
-            doSearch(false);
+            doSearch(false, false);
          }
       });
 
@@ -240,6 +278,33 @@ public void mouseUp(MouseEvent e)
       fd.left = new FormAttachment(0, 0);
       fd.right = new FormAttachment(100, 0);
       searchBar.setLayoutData(fd);
+
+      addDisposeListener(new DisposeListener() {
+         @Override
+         public void widgetDisposed(DisposeEvent e)
+         {
+            if (searchJob != null)
+               searchJob.cancel();
+            document.dispose();
+         }
+      });
+   }
+
+   /**
+    * Create new empty document.
+    *
+    * @return new document
+    */
+   private static PagedTextDocument createDocument()
+   {
+      try
+      {
+         return new PagedTextDocument();
+      }
+      catch(IOException e)
+      {
+         throw new IllegalStateException("Cannot create temporary file for file viewer", e);
+      }
    }
 
    /**
@@ -250,25 +315,45 @@ public void mouseUp(MouseEvent e)
     */
    public void showFile(final File file, final boolean scrollToEnd)
    {
+      final Pattern filter = appendFilter;
+      final int limit = lineCountLimit;
       Job job = new Job(i18n.tr("Load file into viewer"), view) {
          @Override
          protected void run(IProgressMonitor monitor) throws Exception
          {
-            final String content = loadFile(file);
+            final PagedTextDocument newDocument = createDocument();
+            final String remainder;
+            try
+            {
+               remainder = loadFile(file, newDocument, filter);
+               if ((limit > 0) && (newDocument.getLineCount() > limit))
+                  newDocument.removeLeadingLines(newDocument.getLineCount() - limit);
+               newDocument.trimToSize(MAX_FILE_SIZE);
+            }
+            catch(Exception e)
+            {
+               newDocument.dispose();
+               throw e;
+            }
             runInUIThread(new Runnable() {
                @Override
                public void run()
                {
+                  if (BaseFileViewer.this.isDisposed())
+                  {
+                     newDocument.dispose();
+                     return;
+                  }
                   boolean scrollOnAppend = text.isScrollOnAppend();
                   if (scrollToEnd)
                      text.setScrollOnAppend(true);
-                  setContent(content);
+                  setDocument(newDocument, remainder, scrollToEnd);
                   if (scrollToEnd && !scrollOnAppend)
                      text.setScrollOnAppend(false);
                }
             });
          }
-         
+
          @Override
          protected String getErrorMessage()
          {
@@ -306,10 +391,23 @@ public void hideSearchBar()
     */
    public void clear()
    {
-      content = new StringBuilder();
-      text.setText(""); //$NON-NLS-1$
+      if (searchJob != null)
+         searchJob.cancel();
+      try
+      {
+         document.clear();
+      }
+      catch(IOException e)
+      {
+         logger.error("Cannot clear file viewer document", e);
+         document.dispose();
+         document = createDocument();
+      }
+      lineRemainder = null;
+      matchOffset = -1;
+      showWindow(0);
    }
-   
+
    /**
     * Select all
     */
@@ -326,7 +424,7 @@ public void copy()
 
    /**
     * Check if copy can be performed
-    * 
+    *
     * @return
     */
    public boolean canCopy()
@@ -406,7 +504,7 @@ public Control getTextControl()
 
    /**
     * Add text selection listener
-    * 
+    *
     * @param listener
     */
    public void addSelectionListener(SelectionListener listener)
@@ -415,7 +513,7 @@ public void addSelectionListener(SelectionListener listener)
 
    /**
     * Remove selection listener
-    * 
+    *
     * @param listener
     */
    public void removeSelectionListener(SelectionListener listener)
@@ -443,9 +541,9 @@ public void setForeground(Color color)
    }
 
    /**
-    * Get viewer content.
+    * Get content of currently shown window.
     *
-    * @return viewer content
+    * @return content of currently shown window
     */
    public String getContent()
    {
@@ -459,7 +557,26 @@ public String getContent()
     */
    public void replaceContent(BaseFileViewer source)
    {
+      PagedTextDocument newDocument;
+      try
+      {
+         newDocument = source.document.copy();
+      }
+      catch(IOException e)
+      {
+         logger.error("Cannot copy file viewer document", e);
+         return;
+      }
+      if (searchJob != null)
+         searchJob.cancel();
+      document.dispose();
+      document = newDocument;
+      lineRemainder = source.lineRemainder;
+      matchOffset = -1;
+      windowStart = source.windowStart;
+      windowEnd = source.windowEnd;
       text.replaceContent(source.text);
+      updateScroller();
    }
 
    /**
@@ -469,49 +586,137 @@ public void replaceContent(BaseFileViewer source)
     */
    public void setContent(String s)
    {
-      lineRemainder = null;
-      String ps = filterText(removeEscapeSequences(s));
-      text.setText(ps);
-      content = new StringBuilder();
-      content.append(ps.toLowerCase());
-      if (lineCountLimit > 0)
-      {
-         int lineCount = text.getLineCount();
-         if ((lineCountLimit > 0) && (lineCount > lineCountLimit))
-         {
-            int length = text.getOffsetAtLine(lineCount - lineCountLimit);
-            text.replaceTextRange(0, length, "");
-            content.replace(0, length, "");
-         }
-      }
+      clear();
+      append(s);
    }
 
    /**
-    * Append to existing content.
+    * Replace viewer document with new one.
+    *
+    * @param newDocument new document
+    * @param remainder incomplete last line not passed through append filter yet (null if there is none)
+    * @param scrollToEnd if true, show end of document
+    */
+   private void setDocument(PagedTextDocument newDocument, String remainder, boolean scrollToEnd)
+   {
+      if (searchJob != null)
+         searchJob.cancel();
+      document.dispose();
+      document = newDocument;
+      lineRemainder = remainder;
+      matchOffset = -1;
+      showWindow(scrollToEnd ? document.getLineCount() - WINDOW_SIZE : 0);
+   }
+
+   /**
+    * Append to existing content, applying append filter.
     *
     * @param s addition for viewer content as a string
     */
    protected void append(String s)
    {
-      String ps = filterText(removeEscapeSequences(s));
-      content.append(ps.toLowerCase());
-      text.append(ps);
+      appendText(filterText(removeEscapeSequences(s)));
+   }
+
+   /**
+    * Append text to viewer as is. If currently shown window is at the end of the document, new text is appended to text widget,
+    * otherwise only document is updated.
+    *
+    * @param s text to append
+    */
+   protected void appendText(String s)
+   {
+      if (s.isEmpty())
+         return;
 
-      if (lineCountLimit > 0)
+      boolean atEnd = (windowEnd >= document.getLineCount());
+      try
+      {
+         document.append(s);
+      }
+      catch(IOException e)
       {
-         int lineCount = text.getLineCount();
-         if ((lineCountLimit > 0) && (lineCount > lineCountLimit))
+         logger.error("Cannot append text to file viewer document", e);
+         return;
+      }
+
+      int removed = 0;
+      try
+      {
+         if ((lineCountLimit > 0) && (document.getLineCount() > lineCountLimit))
+         {
+            removed = document.getLineCount() - lineCountLimit;
+            document.removeLeadingLines(removed);
+         }
+         removed += document.trimToSize(MAX_FILE_SIZE);
+      }
+      catch(IOException e)
+      {
+         logger.error("Cannot remove leading lines from file viewer document", e);
+      }
+      windowStart -= removed;
+      windowEnd -= removed;
+      int lineCount = document.getLineCount();
+
+      if (atEnd)
+      {
+         if ((windowStart < 0) || (lineCount - windowStart > WINDOW_SIZE * 2))
          {
-            int length = text.getOffsetAtLine(lineCount - lineCountLimit);
-            text.replaceTextRange(0, length, "");
-            content.replace(0, length, "");
+            showWindow(lineCount - WINDOW_SIZE);
          }
+         else
+         {
+            text.append(s);
+            windowEnd = lineCount;
+            updateScroller();
+         }
+      }
+      else if (windowStart < 0)
+      {
+         showWindow(0);
+      }
+      else
+      {
+         updateScroller();
       }
    }
 
+   /**
+    * Show window of document lines starting at given line.
+    *
+    * @param startLine first line to show
+    */
+   protected void showWindow(int startLine)
+   {
+      int lineCount = document.getLineCount();
+      windowStart = Math.max(0, Math.min(startLine, lineCount - WINDOW_SIZE));
+      windowEnd = Math.min(windowStart + WINDOW_SIZE, lineCount);
+      try
+      {
+         text.setText(document.getLines(windowStart, windowEnd - windowStart));
+      }
+      catch(IOException e)
+      {
+         logger.error("Cannot read file viewer document", e);
+         text.setText(""); //$NON-NLS-1$
+      }
+      updateScroller();
+   }
+
+   /**
+    * Update scroller position and range
+    */
+   private void updateScroller()
+   {
+      int lineCount = document.getLineCount();
+      int visible = Math.max(windowEnd - windowStart, 1);
+      scroller.setValues(windowStart, 0, Math.max(lineCount, visible), visible, Math.max(visible / 10, 1), visible);
+      scroller.setEnabled(lineCount > visible);
+   }
+
    /**
     * Filter text using append filter
-    * 
+    *
     * @param text text to filter
     * @return filtered text
     */
@@ -563,22 +768,100 @@ public void setLineStyler(LineStyler lineStyler)
    }
 
    /**
-    * Do search
+    * Start search in background.
+    *
+    * @param typing true if search is started by editing search string
+    * @param backward true to search backward
     */
-   private void doSearch(boolean typing)
+   private void doSearch(boolean typing, final boolean backward)
    {
+      if (searchJob != null)
+      {
+         searchJob.cancel();
+         searchJob = null;
+      }
+
+      final String searchString = searchBarText.getText();
+      if (searchString.isEmpty())
+      {
+         searchBarText.setBackground(null);
+         return;
+      }
+
+      final long startOffset;
+      if (matchOffset >= 0)
+         startOffset = backward ? matchOffset - 1 : (typing ? matchOffset : matchOffset + 1);
+      else
+         startOffset = document.getLineOffset(backward ? windowEnd : windowStart);
+
+      final PagedTextDocument searchDocument = document;
+      searchJob = new Job(i18n.tr("Search in file"), view) {
+         @Override
+         protected void run(final IProgressMonitor monitor) throws Exception
+         {
+            final long offset = searchDocument.find(searchString, startOffset, backward, () -> monitor.isCanceled());
+            if (monitor.isCanceled())
+               return;
+            runInUIThread(new Runnable() {
+               @Override
+               public void run()
+               {
+                  if (!BaseFileViewer.this.isDisposed() && (searchDocument == document))
+                     showSearchResult(offset, searchString);
+               }
+            });
+         }
+
+         @Override
+         protected String getErrorMessage()
+         {
+            return i18n.tr("Cannot search file content");
+         }
+      };
+      searchJob.setUser(false);
+      searchJob.setSystem(true);
+      searchJob.start();
    }
-   
+
    /**
-    * Do search backwards
+    * Show search result, moving window if needed and highlighting found text.
+    *
+    * @param offset offset of found text or -1 if text was not found
+    * @param searchString search string
     */
-   private void doReverseSearch()
+   private void showSearchResult(long offset, String searchString)
    {
+      if (offset < 0)
+      {
+         searchBarText.setBackground(ThemeEngine.getBackgroundColor("TextInput.Error"));
+         return;
+      }
+      searchBarText.setBackground(null);
+      matchOffset = offset;
+
+      int line = document.getLineAtOffset(offset);
+      boolean moveWindow = (line < windowStart) || (line >= windowEnd);
+      showWindow(moveWindow ? line - SEARCH_CONTEXT_LINES : windowStart); // also clears previous highlight
+      if (moveWindow)
+         text.scrollToTop();
+
+      try
+      {
+         StyleRange range = new StyleRange();
+         range.start = document.getText(document.getLineOffset(windowStart), offset).length();
+         range.length = searchString.length();
+         range.background = colors.create(new RGB(255, 255, 0));
+         text.setStyleRange(range);
+      }
+      catch(IOException e)
+      {
+         logger.error("Cannot highlight search result in file viewer", e);
+      }
    }
-   
+
    /**
     * Remove escape sequences from input string
-    * 
+    *
     * @param s
     * @return
     */
@@ -618,62 +901,106 @@ else if ((ch >= 32) || (ch == '\r') || (ch == '\n') || (ch == '\t'))
    }
 
    /**
-    * Load file content into string
-    * 
-    * @param file
-    * @return
+    * Load file content into document. File is read in chunks, so only small part of it is held in memory at any time. Up to
+    * <code>MAX_FILE_SIZE</code> characters are loaded.
+    *
+    * @param file file to load
+    * @param document document to load file into
+    * @param filter append filter (can be null)
+    * @return incomplete last line if filter is set (null otherwise)
+    * @throws IOException on I/O error
     */
-   protected static String loadFile(final File file)
+   protected static String loadFile(final File file, PagedTextDocument document, Pattern filter) throws IOException
    {
-      StringBuilder content = new StringBuilder();
-      FileReader reader = null;
-      char[] buffer = new char[32768];
-      try
+      try (Reader reader = new InputStreamReader(new FileInputStream(file)))
       {
-         reader = new FileReader(file);
-         int size = 0;
+         char[] buffer = new char[32768];
+         StringBuilder pending = new StringBuilder();
+         long size = 0;
          while(size < MAX_FILE_SIZE)
          {
             int count = reader.read(buffer);
             if (count == -1)
                break;
-            if (count == buffer.length)
-            {
-               content.append(buffer);
-            }
-            else
+            pending.append(buffer, 0, count);
+            size += count;
+
+            // Process only complete lines so escape sequences and filtered lines are not split between chunks
+            int lineEnd = pending.lastIndexOf("\n");
+            if (lineEnd == -1)
             {
-               content.append(Arrays.copyOf(buffer, count));
+               if (pending.length() < 1048576)
+                  continue;
+               lineEnd = pending.length() - 1; // very long line, process as is
             }
-            size += count;
+            document.append(filterLines(removeEscapeSequences(pending.substring(0, lineEnd + 1)), filter));
+            pending.delete(0, lineEnd + 1);
          }
+
+         String remainder = removeEscapeSequences(pending.toString());
+         if (filter != null)
+            return remainder.isEmpty() ? null : remainder;
+         document.append(remainder);
+         return null;
       }
-      catch(IOException e)
-      {
-         e.printStackTrace();
-      }
-      finally
+   }
+
+   /**
+    * Append content of given local file, applying append filter.
+    *
+    * @param file file to append
+    * @throws IOException on I/O error
+    */
+   protected void appendFile(final File file) throws IOException
+   {
+      try (Reader reader = new InputStreamReader(new FileInputStream(file)))
       {
-         if (reader != null)
+         char[] buffer = new char[32768];
+         long size = 0;
+         while(size < MAX_FILE_SIZE)
          {
-            try
-            {
-               reader.close();
-            }
-            catch(IOException e)
-            {
-            }
+            int count = reader.read(buffer);
+            if (count == -1)
+               break;
+            append(new String(buffer, 0, count));
+            size += count;
          }
       }
-      return content.toString();
+   }
+
+   /**
+    * Filter complete lines using given filter.
+    *
+    * @param text text consisting of complete lines
+    * @param filter filter (can be null)
+    * @return lines matching filter
+    */
+   private static String filterLines(String text, Pattern filter)
+   {
+      if (filter == null)
+         return text;
+
+      StringBuilder output = new StringBuilder();
+      int offset = 0;
+      while(offset < text.length())
+      {
+         int nextOffset = text.indexOf('\n', offset);
+         if (nextOffset == -1)
+            nextOffset = text.length() - 1;
+         String line = text.substring(offset, nextOffset + 1);
+         if (filter.matcher(line).find())
+            output.append(line);
+         offset = nextOffset + 1;
+      }
+      return output.toString();
    }
 
    /**
     * Set test top index (compatibility layer for RAP)
     */
    protected void setTextTopIndex()
-   {      
-   }   
+   {
+   }
 
    /**
     * Set scroll behavior on append (compatibility layer for RAP)
@@ -73,6 +73,9 @@ public class ObjectStatusSunburstDiagram extends Canvas implements PaintListener
    private static final int SHIFT = 3;
    private boolean fitToScreen = true;
 	private List<ObjectPosition> objectMap = new ArrayList<ObjectPosition>();
+   private ObjectData rootObjectData = null;
+   private boolean layoutValid = false;
+   private Rectangle layoutRect = null;
 
 	/**
 	 * @param parent
@@ -432,6 +435,40 @@ public void recalculateData(GC gc)
          calculateLayerSize(rootObject, 1, gc);
    }
 
+   /**
+    * Calculate layout (diameter, center and font sizes). Layout depends only on displayed objects, their names and widget size,
+    * so it is retained between repaints caused by status changes.
+    *
+    * @param gc graphics context
+    * @param rect client area
+    */
+   private void calculateLayout(GC gc, Rectangle rect)
+   {
+      recalculateData(gc);
+
+      int rectSide = Math.min(rect.width, rect.height);
+      diameter = Math.max(diameter, rectSide / (maxLvl + 1));
+      centerX = rect.x+(rectSide/2);
+      centerY = rect.y+(rectSide/2);
+
+      // calculate optimal font size
+      fontSize = new ArrayList<Integer>(Collections.nCopies(maxLvl + 1, Integer.valueOf(100)));
+      // font calculation for general container
+      final int squareSide = (int)(diameter / Math.sqrt(2));
+      fontSize.set(0, Integer.valueOf(WidgetHelper.getBestFittingFontMultiline(gc, valueFonts, rootObject.getNameWithAlias(), squareSide, squareSide, 3)));
+      // font calculation for sectors
+      calculateLayerFontSize(rootObject, 1, gc);
+      Integer prevLVL = 100;
+      for(int i = 0; i < fontSize.size(); i++)
+      {
+         if (prevLVL < fontSize.get(i))
+         {
+            fontSize.set(i, prevLVL);
+         }
+         prevLVL = fontSize.get(i);
+      }
+   }
+
 	/**
 	 * @see org.eclipse.swt.events.PaintListener#paintControl(org.eclipse.swt.events.PaintEvent)
 	 */
@@ -455,33 +492,17 @@ public void paintControl(PaintEvent e)
       gc.setLineWidth(1);
 
 	   objectMap.clear();
-	   recalculateData(gc);
 
 		Rectangle rect = getClientArea();
 		rect.width--;
 		rect.height--;
-		//calculate values
-      int rectSide = Math.min(rect.width, rect.height);
-      diameter = Math.max(diameter, rectSide / (maxLvl + 1));
-      centerX = rect.x+(rectSide/2);
-      centerY = rect.y+(rectSide/2);
-
-      // calculate optimal font size
-      fontSize = new ArrayList<Integer>(Collections.nCopies(maxLvl + 1, Integer.valueOf(100)));
-      // font calculation for general container
-      final int squareSide = (int)(diameter / Math.sqrt(2));
-      fontSize.set(0, Integer.valueOf(WidgetHelper.getBestFittingFontMultiline(gc, valueFonts, rootObject.getNameWithAlias(), squareSide, squareSide, 3)));
-      // font calculation for sectors
-      calculateLayerFontSize(rootObject, 1, gc);
-      Integer prevLVL = 100;
-      for(int i = 0; i < fontSize.size(); i++)
+      if (!layoutValid || !rect.equals(layoutRect))
       {
-         if (prevLVL < fontSize.get(i))
-         {
-            fontSize.set(i, prevLVL);
-         }
-         prevLVL = fontSize.get(i);
+         calculateLayout(gc, rect);
+         layoutValid = true;
+         layoutRect = rect;
       }
+      final int squareSide = (int)(diameter / Math.sqrt(2));
 
       // draw objects
       drawParts(gc, rootObject, 2, 0);
@@ -530,6 +551,7 @@ public Point computeSize(int wHint, int hHint, boolean changed)
       fitToScreen = !(wHint == SWT.DEFAULT && hHint == SWT.DEFAULT);
       recalculateData(gc);
       gc.dispose();
+      layoutValid = false;
 
       return fitToScreen ? new Point(Math.max(wHint, 240 * maxLvl), Math.max(hHint, 240 * maxLvl)) : new Point(diameter * (maxLvl + 1), diameter * (maxLvl + 1));
    }
@@ -540,10 +562,26 @@ public Point computeSize(int wHint, int hHint, boolean changed)
     */
    protected void updateObjects(AbstractObject rootObject, Collection<AbstractObject> objects)
    {
-      this.rootObject = rootObject;
-      this.objects.clear();
+      ObjectData newRootData = new ObjectData(rootObject);
+      boolean sameLayout = (rootObjectData != null) && (this.rootObject.getObjectId() == rootObject.getObjectId()) &&
+            rootObjectData.isSameLayout(newRootData) && (this.objects.size() == objects.size());
+      Map<Long, ObjectData> newObjects = new HashMap<Long, ObjectData>();
       for(AbstractObject o : objects)
-         this.objects.put(o.getObjectId(), new ObjectData(o));
+      {
+         ObjectData d = new ObjectData(o);
+         if (sameLayout)
+         {
+            ObjectData prev = this.objects.get(o.getObjectId());
+            sameLayout = (prev != null) && prev.isSameLayout(d);
+         }
+         newObjects.put(o.getObjectId(), d);
+      }
+
+      this.rootObject = rootObject;
+      this.objects = newObjects;
+      rootObjectData = newRootData;
+      if (!sameLayout)
+         layoutValid = false;
       redraw();
    }
 
@@ -676,5 +714,10 @@ public boolean isChanged(AbstractObject object)
          return (status != object.getStatus()) || !name.equals(object.getNameWithAlias()) ||
                (AbstractObjectStatusMap.isContainerObject(object) && !Arrays.equals(children, object.getChildIdList()));
       }
+
+      public boolean isSameLayout(ObjectData other)
+      {
+         return name.equals(other.name) && Arrays.equals(children, other.children);
+      }
    }
 }
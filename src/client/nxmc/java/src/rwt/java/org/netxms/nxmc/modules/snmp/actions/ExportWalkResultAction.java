@@ -0,0 +1,99 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2023 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.nxmc.modules.snmp.actions;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.function.Supplier;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.jface.action.Action;
+import org.netxms.client.snmp.SnmpWalkResult;
+import org.netxms.nxmc.DownloadServiceHandler;
+import org.netxms.nxmc.base.jobs.Job;
+import org.netxms.nxmc.base.views.View;
+import org.netxms.nxmc.localization.LocalizationHelper;
+import org.netxms.nxmc.modules.snmp.SnmpConstants;
+import org.netxms.nxmc.resources.SharedIcons;
+import org.xnap.commons.i18n.I18n;
+
+/**
+ * Action for exporting complete SNMP walk result to CSV file. Records are written directly from walk result storage.
+ */
+public class ExportWalkResultAction extends Action
+{
+   private I18n i18n = LocalizationHelper.getI18n(ExportWalkResultAction.class);
+
+   private View view;
+   private Supplier<SnmpWalkResult> resultSupplier;
+
+   /**
+    * Create action.
+    *
+    * @param view owning view
+    * @param resultSupplier supplier for walk result to export
+    */
+   public ExportWalkResultAction(View view, Supplier<SnmpWalkResult> resultSupplier)
+   {
+      super(LocalizationHelper.getI18n(ExportWalkResultAction.class).tr("Export all to CSV..."), SharedIcons.CSV);
+      this.view = view;
+      this.resultSupplier = resultSupplier;
+   }
+
+   /**
+    * @see org.eclipse.jface.action.Action#run()
+    */
+   @Override
+   public void run()
+   {
+      final SnmpWalkResult result = resultSupplier.get();
+      if (result == null)
+         return;
+
+      final String title = view.getName();
+      new Job(i18n.tr("Export data as CSV file"), view) {
+         @Override
+         protected void run(IProgressMonitor monitor) throws Exception
+         {
+            final File tmpFile = File.createTempFile("ExportCSV_" + view.hashCode(), "_" + System.currentTimeMillis());
+            try (OutputStream out = new BufferedOutputStream(new FileOutputStream(tmpFile)))
+            {
+               out.write(new byte[] { (byte)0xEF, (byte)0xBB, (byte)0xBF }); // write BOM
+               result.export(out, (type) -> (type == 0xFFFF) ? "Hex-STRING" : SnmpConstants.getAsnTypeName(type));
+            }
+
+            DownloadServiceHandler.addDownload(tmpFile.getName(), title + ".csv", tmpFile, "text/csv");
+            runInUIThread(new Runnable() {
+               @Override
+               public void run()
+               {
+                  DownloadServiceHandler.startDownload(tmpFile.getName());
+               }
+            });
+         }
+
+         @Override
+         protected String getErrorMessage()
+         {
+            return i18n.tr("Cannot export table data");
+         }
+      }.start();
+   }
+}
@@ -26,6 +26,7 @@
 import java.security.KeyFactory;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.security.PrivateKey;
 import java.security.PublicKey;
 import java.security.SecureRandom;
 import java.security.spec.X509EncodedKeySpec;
@@ -35,6 +36,7 @@
 import javax.crypto.KeyGenerator;
 import javax.crypto.SecretKey;
 import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
 
 /**
  * Encryption context for NXCP communication session
@@ -228,6 +230,54 @@ protected EncryptionContext(int cipher, NXCPMessage request) throws GeneralSecur
       }
 	}	
 
+   /**
+    * Create server side encryption context from session key message sent by client in response to session key request.
+    * Session key and initialization vector in the message should be encrypted with public key matching given private key.
+    *
+    * @param msg session key message (CMD_SESSION_KEY)
+    * @param privateKey server private key
+    * @return encryption context
+    * @throws NXCPException if encryption context cannot be created
+    */
+   public static EncryptionContext createServerInstance(NXCPMessage msg, PrivateKey privateKey) throws NXCPException
+   {
+      int cipher = msg.getFieldAsInt32(NXCPCodes.VID_CIPHER);
+      if ((cipher < 0) || (cipher >= CIPHERS.length) || (CIPHERS[cipher] == null))
+         throw new NXCPException(NXCPException.NO_CIPHER);
+
+      try
+      {
+         Cipher rsa = Cipher.getInstance("RSA/ECB/OAEPWithSHA1AndMGF1Padding");
+         rsa.init(Cipher.DECRYPT_MODE, privateKey);
+         byte[] key = rsa.doFinal(msg.getFieldAsBinary(NXCPCodes.VID_SESSION_KEY));
+         rsa.init(Cipher.DECRYPT_MODE, privateKey);
+         byte[] iv = rsa.doFinal(msg.getFieldAsBinary(NXCPCodes.VID_SESSION_IV));
+         return new EncryptionContext(cipher, key, iv);
+      }
+      catch(Exception e)
+      {
+         throw new NXCPException(NXCPException.NO_CIPHER, e);
+      }
+   }
+
+   /**
+    * Internal constructor for context with known session key
+    *
+    * @param cipher cipher to use
+    * @param key session key
+    * @param iv initialization vector
+    * @throws GeneralSecurityException if any of underlying crypto functions fails
+    */
+   private EncryptionContext(int cipher, byte[] key, byte[] iv) throws GeneralSecurityException
+   {
+      this.cipher = cipher;
+      keyLength = key.length * 8;
+      this.key = new SecretKeySpec(key, CIPHERS[cipher]);
+      this.iv = new IvParameterSpec(iv);
+      encryptor = Cipher.getInstance(CIPHERS[cipher] + CIPHER_MODE);
+      decryptor = Cipher.getInstance(CIPHERS[cipher] + CIPHER_MODE);
+   }
+
 	/**
 	 * Encrypt session key with public key from encryption setup message.
 	 * 
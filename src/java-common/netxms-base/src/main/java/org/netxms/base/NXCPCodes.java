@@ -1329,6 +1329,9 @@
    public static final long VID_NETWMAP_DEFAULT_HEIGHT = 843;
    public static final long VID_WIDTH = 844;
    public static final long VID_ENABLE_TWO_PHASE_SETUP = 845;
+   public static final long VID_AGGREGATION_INTERVAL = 846;
+   public static final long VID_AGGREGATION_FUNCTIONS = 847;
+   public static final long VID_EFFECTIVE_RIGHTS_LIST = 848;
 
    public static final long VID_ACL_USER_BASE = 0x00001000L;
    public static final long VID_ACL_USER_LAST = 0x00001FFFL;
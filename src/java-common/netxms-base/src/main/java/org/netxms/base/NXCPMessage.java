@@ -334,6 +334,34 @@ public void setField(final NXCPMessageField src)
 		fields.put(src.getId(), src);
 	}
 
+	/**
+	 * Find all fields with IDs within given range (inclusive).
+	 *
+	 * @param firstId first field ID in range
+	 * @param lastId last field ID in range
+	 * @param result collection to add found fields to
+	 */
+	public void findFields(final long firstId, final long lastId, final Collection<NXCPMessageField> result)
+	{
+	   if (lastId - firstId < fields.size())
+	   {
+	      for(long id = firstId; id <= lastId; id++)
+	      {
+	         NXCPMessageField f = fields.get(id);
+	         if (f != null)
+	            result.add(f);
+	      }
+	   }
+	   else
+	   {
+	      for(NXCPMessageField f : fields.values())
+	      {
+	         if ((f.getId() >= firstId) && (f.getId() <= lastId))
+	            result.add(f);
+	      }
+	   }
+	}
+
 	/**
     * Set binary field from given byte array
     * 
@@ -707,6 +735,23 @@ public Date getFieldAsDate(final long fieldId)
 		return (var != null) ? new Date(var.getAsInteger() * 1000) : null;
 	}
 
+   /**
+    * Get size of this message in encoded form without compression and encryption.
+    *
+    * @return size of encoded message in bytes
+    */
+   public int getEncodedSize()
+   {
+      if ((messageFlags & MF_CONTROL) == MF_CONTROL)
+         return HEADER_SIZE;
+      if ((messageFlags & MF_BINARY) == MF_BINARY)
+         return (HEADER_SIZE + ((binaryData != null) ? binaryData.length : 0) + 7) & ~7;
+      int size = HEADER_SIZE;
+      for(final NXCPMessageField f : fields.values())
+         size += f.getEncodedSize();
+      return size;
+   }
+
 	/**
     * Create binary NXCP message
     * 
@@ -722,6 +722,16 @@ private int calculateBinarySize()
 		return size;
 	}
 
+	/**
+	 * Get size of encoded NXCP DF structure (including padding to 8 bytes boundary).
+	 *
+	 * @return size of encoded field in bytes
+	 */
+	int getEncodedSize()
+	{
+		return (calculateBinarySize() + 7) & ~7;
+	}
+
 	/**
     * Create NXCP DF structure
     * 
@@ -31,6 +31,7 @@
    private int maxBufferSize;
 	private byte[] recvBuffer;
 	private int bufferPos = 0;
+	private long bytesReceived = 0;
 
    /**
     * @see java.lang.Object#toString()
@@ -95,6 +96,7 @@ private NXCPMessage getMessageFromBuffer(EncryptionContext ectx) throws IOExcept
 				{
 					System.arraycopy(recvBuffer, (int)size, recvBuffer, 0, bufferPos - (int)size);
 					bufferPos -= size;
+					bytesReceived += size;
 
 					// Shrink buffer if possible
 					if ((recvBuffer.length > defaultBufferSize) && (bufferPos < defaultBufferSize))
@@ -145,4 +147,15 @@ public NXCPMessage receiveMessage(final InputStream in, EncryptionContext ectx)
 
 		return msg;
 	}
+
+   /**
+    * Get total number of bytes in messages received so far (as they were sent over the network, i.e. possibly compressed
+    * and encrypted).
+    *
+    * @return total number of bytes in received messages
+    */
+   public long getBytesReceived()
+   {
+      return bytesReceived;
+   }
 }
@@ -31,6 +31,8 @@
 	private int defaultTimeout;
 	private int messageLifeTime;
 	private boolean isActive = true;
+	private long timeoutCount = 0;
+	private long expiredMessageCount = 0;
 	private HousekeeperThread housekeeperThread = null;
 
    /**
@@ -67,6 +69,7 @@ public void run()
 						{
 							// Message expired, remove it
 							it.remove();
+							expiredMessageCount++;
 						}
 					}
 				}
@@ -156,6 +159,13 @@ public NXCPMessage waitForMessage(final int code, final long id, final int timeo
 				actualTimeout -= System.currentTimeMillis() - startTime;
 			}
 		}
+		if ((msg == null) && isActive)
+		{
+		   synchronized(messageList)
+		   {
+		      timeoutCount++;
+		   }
+		}
 		return msg;
 	}
 
@@ -208,6 +218,45 @@ public int getDefaultTimeout()
 		return defaultTimeout;
 	}
 
+   /**
+    * Get number of messages currently waiting in queue.
+    *
+    * @return number of messages in queue
+    */
+   public int size()
+   {
+      synchronized(messageList)
+      {
+         return messageList.size();
+      }
+   }
+
+   /**
+    * Get number of wait operations that ended with timeout.
+    *
+    * @return number of timed out waits
+    */
+   public long getTimeoutCount()
+   {
+      synchronized(messageList)
+      {
+         return timeoutCount;
+      }
+   }
+
+   /**
+    * Get number of messages that were removed from queue because nobody claimed them within message lifetime.
+    *
+    * @return number of expired messages
+    */
+   public long getExpiredMessageCount()
+   {
+      synchronized(messageList)
+      {
+         return expiredMessageCount;
+      }
+   }
+
    /**
     * @see java.lang.Object#toString()
     */
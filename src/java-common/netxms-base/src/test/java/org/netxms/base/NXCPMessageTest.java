@@ -18,7 +18,9 @@
  */
 package org.netxms.base;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import junit.framework.TestCase;
 
 /**
@@ -73,6 +75,29 @@ public void testMessageEncodingAndDecoding() throws Exception
       assertEquals("string value - UCS2", msg2.findField(6).getAsString());
 	}
 	
+   public void testFindFields()
+   {
+      final NXCPMessage msg = new NXCPMessage(1, 2);
+      for(int i = 1; i <= 100; i++)
+         msg.setFieldInt32(i, i);
+      msg.setFieldInt32(0x10000000L, 1000);
+
+      final List<NXCPMessageField> fields = new ArrayList<NXCPMessageField>();
+      msg.findFields(10, 12, fields);
+      assertEquals(3, fields.size());
+      assertEquals(10, fields.get(0).getAsInteger().intValue());
+      assertEquals(12, fields.get(2).getAsInteger().intValue());
+
+      fields.clear();
+      msg.findFields(0x0FFFFFFFL, 0x1FFFFFFFL, fields);
+      assertEquals(1, fields.size());
+      assertEquals(0x10000000L, fields.get(0).getId());
+
+      fields.clear();
+      msg.findFields(101, 200, fields);
+      assertTrue(fields.isEmpty());
+   }
+
    public void testCompressedMessageEncodingAndDecoding() throws Exception
    {
       final byte[] byteTest = Arrays.copyOf(new byte[] { 0x10, 0x20, 0x30, 0x40, 0x50 }, 500);
@@ -162,4 +187,21 @@ public void testEncryptionBlowfish128() throws Exception
    {
       doEncryptionTest(5);
    }
+
+   public void testEncodedSize() throws Exception
+   {
+      final NXCPMessage msg = new NXCPMessage(1, 2);
+      msg.setField(1, "string value");
+      msg.setFieldInt16(2, 10);
+      msg.setFieldInt64(3, 123456789L);
+      for(int i = 0; i < 100; i++)
+         msg.setField(100 + i, "repeated string value");
+      assertEquals(msg.createNXCPMessage(false).length, msg.getEncodedSize());
+      assertTrue(msg.createNXCPMessage(true).length < msg.getEncodedSize());
+
+      final NXCPMessage binMsg = new NXCPMessage(1, 3);
+      binMsg.setBinaryMessage(true);
+      binMsg.setBinaryData(new byte[1001]);
+      assertEquals(binMsg.createNXCPMessage(false).length, binMsg.getEncodedSize());
+   }
 }
@@ -60,6 +60,9 @@ public void testHousekeeper()
 		
 		final NXCPMessage msg = mwq.waitForMessage(10, 2L);
 		assertEquals(true, msg == null);
+		assertEquals(0, mwq.size());
+		assertEquals(3, mwq.getExpiredMessageCount());
+		assertEquals(1, mwq.getTimeoutCount());
 		
 		mwq.shutdown();
 	}
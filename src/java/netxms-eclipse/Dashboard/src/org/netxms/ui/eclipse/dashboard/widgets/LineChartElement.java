@@ -68,6 +68,8 @@
  */
 public class LineChartElement extends ElementWidget implements HistoricalChartOwner
 {
+   private static final int MIN_CHART_WIDTH = 400; // Used to decide on data aggregation if chart is not yet laid out
+
    private Chart chart;
 	private LineChartConfig config;
 	private ViewRefreshController refreshController;
@@ -319,6 +321,9 @@ private void refreshData()
 		
 		updateInProgress = true;
 		
+      // Data will be aggregated by server only if there are more values than horizontal pixels
+      final int width = Math.max(chart.getSize().x, MIN_CHART_WIDTH);
+
 		ConsoleJob job = new ConsoleJob(Messages.get().LineChartElement_JobTitle, viewPart, Activator.PLUGIN_ID) {
 			private ChartDciConfig currentDci;
 
@@ -334,12 +339,12 @@ protected void runInternal(IProgressMonitor monitor) throws Exception
                currentDci = runtimeDciList.get(i);
                if (currentDci.type == ChartDciConfig.ITEM)
                {
-                  data[i] = session.getCollectedData(currentDci.nodeId, currentDci.dciId, from, to, 0, HistoricalDataType.PROCESSED);
+                  data[i] = session.getChartData(currentDci.nodeId, currentDci.dciId, from, to, width, HistoricalDataType.PROCESSED);
                   thresholds[i] = session.getThresholds(currentDci.nodeId, currentDci.dciId);
                }
                else
                {
-                  data[i] = session.getCollectedTableData(currentDci.nodeId, currentDci.dciId, currentDci.instance, currentDci.column, from, to, 0);
+                  data[i] = session.getChartTableData(currentDci.nodeId, currentDci.dciId, currentDci.instance, currentDci.column, from, to, width);
                   thresholds[i] = null;
                }
             }
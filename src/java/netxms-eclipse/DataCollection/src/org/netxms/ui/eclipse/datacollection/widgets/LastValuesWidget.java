@@ -54,6 +54,7 @@
 import org.netxms.client.SessionListener;
 import org.netxms.client.SessionNotification;
 import org.netxms.client.datacollection.DciValue;
+import org.netxms.client.datacollection.LastValuesMerger;
 import org.netxms.client.objects.AbstractObject;
 import org.netxms.client.objects.DataCollectionTarget;
 import org.netxms.ui.eclipse.actions.ExportToCsvAction;
@@ -65,6 +66,7 @@
 import org.netxms.ui.eclipse.datacollection.widgets.internal.LastValuesComparator;
 import org.netxms.ui.eclipse.datacollection.widgets.internal.LastValuesFilter;
 import org.netxms.ui.eclipse.datacollection.widgets.internal.LastValuesLabelProvider;
+import org.netxms.ui.eclipse.datacollection.widgets.internal.LastValuesViewerUpdater;
 import org.netxms.ui.eclipse.jobs.ConsoleJob;
 import org.netxms.ui.eclipse.shared.ConsoleSharedData;
 import org.netxms.ui.eclipse.tools.ViewRefreshController;
@@ -102,6 +104,7 @@ public class LastValuesWidget extends CompositeWithMessageBar
 	private boolean autoRefreshEnabled = false;
 	private int autoRefreshInterval = 30;	// in seconds
 	private ViewRefreshController refreshController;
+	private LastValuesMerger lastValues = null;
 	private Action actionUseMultipliers;
 	private Action actionShowErrors;
 	private Action actionShowDisabled;
@@ -181,6 +184,7 @@ public void run()
 		dataViewer.setContentProvider(new ArrayContentProvider());
 		dataViewer.setComparator(comparator);
 		dataViewer.addFilter(filter);
+		LastValuesViewerUpdater.install(dataViewer);
 		WidgetHelper.restoreTableViewerSettings(dataViewer, ds, configPrefix);
 
 		dataViewer.addDoubleClickListener(new IDoubleClickListener() {
@@ -405,11 +409,15 @@ private void getDataFromServer()
 	{
 		if (dcTarget == null)
 		{
+			lastValues = null;
 			dataViewer.setInput(new DciValue[0]);
 			return;
 		}
 
 		final DataCollectionTarget jobTarget = dcTarget;
+		if ((lastValues == null) || (lastValues.getNodeId() != jobTarget.getObjectId()))
+			lastValues = new LastValuesMerger(jobTarget.getObjectId());
+		final LastValuesMerger merger = lastValues;
 		ConsoleJob job = new ConsoleJob(Messages.get().LastValuesWidget_JobTitle + jobTarget.getObjectName(), viewPart, Activator.PLUGIN_ID, this) {
 			@Override
 			protected String getErrorMessage()
@@ -420,14 +428,14 @@ protected String getErrorMessage()
 			@Override
 			protected void runInternal(IProgressMonitor monitor) throws Exception
 			{
-				final DciValue[] data = session.getLastValues(jobTarget.getObjectId());
+				final LastValuesMerger.Changes changes = merger.update(session);
 				runInUIThread(new Runnable() {
 					@Override
 					public void run()
 					{
 						if (!isDisposed() && (dcTarget != null) && (dcTarget.getObjectId() == jobTarget.getObjectId()))
 						{
-							dataViewer.setInput(data);
+							LastValuesViewerUpdater.apply(dataViewer, merger, changes);
 							hideMessage();
 						}
 					}
@@ -50,6 +50,8 @@ public class Messages extends NLS
    public static String BaseFileViewer_HideMessage;
    public static String BaseFileViewer_LoadJobError;
    public static String BaseFileViewer_LoadJobName;
+   public static String BaseFileViewer_SearchJobError;
+   public static String BaseFileViewer_SearchJobName;
    public static String CreateFolderDialog_Label;
    public static String CreateFolderDialog_Title;
    public static String DynamicFileViewer_CannotRestartFileTracking;
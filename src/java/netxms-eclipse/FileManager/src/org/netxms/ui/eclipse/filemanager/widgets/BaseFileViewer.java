@@ -19,9 +19,10 @@
 package org.netxms.ui.eclipse.filemanager.widgets;
 
 import java.io.File;
-import java.io.FileReader;
+import java.io.FileInputStream;
 import java.io.IOException;
-import java.util.Arrays;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 import org.eclipse.core.runtime.IProgressMonitor;
@@ -41,7 +42,6 @@
 import org.eclipse.swt.events.SelectionAdapter;
 import org.eclipse.swt.events.SelectionEvent;
 import org.eclipse.swt.events.SelectionListener;
-import org.eclipse.swt.graphics.Point;
 import org.eclipse.swt.layout.FormAttachment;
 import org.eclipse.swt.layout.FormData;
 import org.eclipse.swt.layout.FormLayout;
@@ -51,6 +51,7 @@
 import org.eclipse.swt.widgets.Control;
 import org.eclipse.swt.widgets.Event;
 import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.Slider;
 import org.eclipse.swt.widgets.Text;
 import org.eclipse.swt.widgets.ToolBar;
 import org.eclipse.swt.widgets.ToolItem;
@@ -61,10 +62,12 @@
 import org.netxms.ui.eclipse.console.resources.ThemeEngine;
 import org.netxms.ui.eclipse.filemanager.Activator;
 import org.netxms.ui.eclipse.filemanager.Messages;
+import org.netxms.ui.eclipse.filemanager.widgets.helpers.PagedTextDocument;
 import org.netxms.ui.eclipse.jobs.ConsoleJob;
 
 /**
- * Base file viewer widget
+ * Base file viewer widget. File content is kept in paged document backed by temporary file, and only window of
+ * <code>WINDOW_SIZE</code> lines around current position is materialized in text widget.
  */
 public class BaseFileViewer extends Composite
 {
@@ -72,10 +75,15 @@ public class BaseFileViewer extends Composite
    public static final int WARNING = 1;
    public static final int ERROR = 2;
 
-   public static final long MAX_FILE_SIZE = 67108864; // 64MB
+   public static final long MAX_FILE_SIZE = 1073741824; // 1GB, also limits content kept while following file
+   public static final int WINDOW_SIZE = 2000; // lines
+
+   private static final int SEARCH_CONTEXT_LINES = 5;
 
    protected IViewPart viewPart;
    protected StyledText text;
+   protected Slider scroller;
+   protected PagedTextDocument document;
    protected Composite messageBar;
    protected CLabel messageBarLabel;
    protected Label messageCloseButton;
@@ -84,10 +92,13 @@ public class BaseFileViewer extends Composite
    protected Label searchCloseButton;
    protected boolean scrollLock = false;
    private int lineCountLimit = 0;
-   protected StringBuilder content = new StringBuilder();
    protected LineStyler lineStyler = null;
    protected Pattern appendFilter = null;
    protected String lineRemainder = null;
+   private int windowStart = 0;
+   private int windowEnd = 0;
+   private long matchOffset = -1;
+   private ConsoleJob searchJob = null;
 
    /**
     * Create file viewer
@@ -99,6 +110,7 @@ public BaseFileViewer(Composite parent, int style, IViewPart viewPart)
    {
       super(parent, style);
       this.viewPart = viewPart;
+      document = createDocument();
 
       setLayout(new FormLayout());
       
@@ -169,16 +181,33 @@ public void mouseUp(MouseEvent e)
       messageBar.setLayoutData(fd);
 
       /*** Text area ***/
+      scroller = new Slider(this, SWT.VERTICAL);
+      scroller.setEnabled(false);
+      scroller.addSelectionListener(new SelectionAdapter() {
+         @Override
+         public void widgetSelected(SelectionEvent e)
+         {
+            if (scroller.getSelection() != windowStart)
+               showWindow(scroller.getSelection());
+         }
+      });
+
       text = new StyledText(this, SWT.H_SCROLL | SWT.V_SCROLL);
       text.setEditable(false);
       text.setFont(JFaceResources.getTextFont());
       fd = new FormData();
       fd.top = new FormAttachment(0, 0);
       fd.left = new FormAttachment(0, 0);
-      fd.right = new FormAttachment(100, 0);
+      fd.right = new FormAttachment(scroller, 0, SWT.LEFT);
       fd.bottom = new FormAttachment(100, 0);
       text.setLayoutData(fd);
 
+      fd = new FormData();
+      fd.top = new FormAttachment(text, 0, SWT.TOP);
+      fd.right = new FormAttachment(100, 0);
+      fd.bottom = new FormAttachment(text, 0, SWT.BOTTOM);
+      scroller.setLayoutData(fd);
+
       text.addLineStyleListener(new LineStyleListener() {
          @Override
          public void lineGetStyle(LineStyleEvent event)
@@ -251,7 +280,7 @@ public void lineGetStyle(LineStyleEvent event)
          @Override
          public void modifyText(ModifyEvent e)
          {
-            doSearch(true);
+            doSearch(true, false);
          }
       });
       searchBarText.addSelectionListener(new SelectionListener() {
@@ -263,7 +292,7 @@ public void widgetSelected(SelectionEvent e)
          @Override
          public void widgetDefaultSelected(SelectionEvent e)
          {
-            doSearch(false);
+            doSearch(false, false);
          }
       });
 
@@ -281,7 +310,7 @@ public void widgetDefaultSelected(SelectionEvent e)
          @Override
          public void widgetSelected(SelectionEvent e)
          {
-            doReverseSearch();
+            doSearch(false, true);
          }
       });
 
@@ -291,7 +320,7 @@ public void widgetSelected(SelectionEvent e)
          @Override
          public void widgetSelected(SelectionEvent e)
          {
-            doSearch(false);
+            doSearch(false, false);
          }
       });
 
@@ -342,10 +371,30 @@ public void widgetDisposed(DisposeEvent e)
          {
             if (lineStyler != null)
                lineStyler.dispose();
+            if (searchJob != null)
+               searchJob.cancel();
+            document.dispose();
          }
       });
    }
 
+   /**
+    * Create new empty document.
+    *
+    * @return new document
+    */
+   private static PagedTextDocument createDocument()
+   {
+      try
+      {
+         return new PagedTextDocument();
+      }
+      catch(IOException e)
+      {
+         throw new IllegalStateException("Cannot create temporary file for file viewer", e);
+      }
+   }
+
    /**
     * Show local file in viewer
     *
@@ -354,16 +403,36 @@ public void widgetDisposed(DisposeEvent e)
     */
    public void showFile(final File file, final boolean scrollToEnd)
    {
+      final Pattern filter = appendFilter;
+      final int limit = lineCountLimit;
       ConsoleJob job = new ConsoleJob(Messages.get().BaseFileViewer_LoadJobName, viewPart, Activator.PLUGIN_ID, null) {
          @Override
          protected void runInternal(IProgressMonitor monitor) throws Exception
          {
-            final String content = loadFile(file);
+            final PagedTextDocument newDocument = createDocument();
+            final String remainder;
+            try
+            {
+               remainder = loadFile(file, newDocument, filter);
+               if ((limit > 0) && (newDocument.getLineCount() > limit))
+                  newDocument.removeLeadingLines(newDocument.getLineCount() - limit);
+               newDocument.trimToSize(MAX_FILE_SIZE);
+            }
+            catch(Exception e)
+            {
+               newDocument.dispose();
+               throw e;
+            }
             runInUIThread(new Runnable() {
                @Override
                public void run()
                {
-                  setContent(content);
+                  if (BaseFileViewer.this.isDisposed())
+                  {
+                     newDocument.dispose();
+                     return;
+                  }
+                  setDocument(newDocument, remainder, scrollToEnd);
                   if (scrollToEnd)
                      text.setTopIndex(text.getLineCount() - 1);
                }
@@ -443,8 +512,21 @@ public void hideSearchBar()
     */
    public void clear()
    {
-      content = new StringBuilder();
-      text.setText(""); //$NON-NLS-1$
+      if (searchJob != null)
+         searchJob.cancel();
+      try
+      {
+         document.clear();
+      }
+      catch(IOException e)
+      {
+         Activator.logError("Cannot clear file viewer document", e);
+         document.dispose();
+         document = createDocument();
+      }
+      lineRemainder = null;
+      matchOffset = -1;
+      showWindow(0);
    }
    
    /**
@@ -564,51 +646,140 @@ public void removeSelectionListener(SelectionListener listener)
    }
 
    /**
-    * @param s
+    * Replace viewer content with given string.
+    *
+    * @param s new content
     */
    protected void setContent(String s)
    {
-      lineRemainder = null;
-      String ps = filterText(removeEscapeSequences(s));
-      text.setText(ps);
-      content = new StringBuilder();
-      content.append(ps.toLowerCase());
-      if (lineCountLimit > 0)
-      {
-         int lineCount = text.getLineCount();
-         if ((lineCountLimit > 0) && (lineCount > lineCountLimit))
-         {
-            int length = text.getOffsetAtLine(lineCount - lineCountLimit);
-            text.replaceTextRange(0, length, "");
-            content.replace(0, length, "");
-         }
-      }
+      clear();
+      append(s);
    }
 
    /**
-    * @param s
+    * Replace viewer document with new one.
+    *
+    * @param newDocument new document
+    * @param remainder incomplete last line not passed through append filter yet (null if there is none)
+    * @param scrollToEnd if true, show end of document
+    */
+   private void setDocument(PagedTextDocument newDocument, String remainder, boolean scrollToEnd)
+   {
+      if (searchJob != null)
+         searchJob.cancel();
+      document.dispose();
+      document = newDocument;
+      lineRemainder = remainder;
+      matchOffset = -1;
+      showWindow(scrollToEnd ? document.getLineCount() - WINDOW_SIZE : 0);
+   }
+
+   /**
+    * Append text to viewer, applying append filter.
+    *
+    * @param s text to append
     */
    protected void append(String s)
    {
-      String ps = filterText(removeEscapeSequences(s));
-      content.append(ps.toLowerCase());
-      text.append(ps);
+      appendText(filterText(removeEscapeSequences(s)));
+   }
+
+   /**
+    * Append text to viewer as is. If currently shown window is at the end of the document, new text is appended to text widget,
+    * otherwise only document is updated.
+    *
+    * @param s text to append
+    */
+   protected void appendText(String s)
+   {
+      if (s.isEmpty())
+         return;
+
+      boolean atEnd = (windowEnd >= document.getLineCount());
+      try
+      {
+         document.append(s);
+      }
+      catch(IOException e)
+      {
+         Activator.logError("Cannot append text to file viewer document", e);
+         return;
+      }
+
+      int removed = 0;
+      try
+      {
+         if ((lineCountLimit > 0) && (document.getLineCount() > lineCountLimit))
+         {
+            removed = document.getLineCount() - lineCountLimit;
+            document.removeLeadingLines(removed);
+         }
+         removed += document.trimToSize(MAX_FILE_SIZE);
+      }
+      catch(IOException e)
+      {
+         Activator.logError("Cannot remove leading lines from file viewer document", e);
+      }
+      windowStart -= removed;
+      windowEnd -= removed;
+      int lineCount = document.getLineCount();
 
-      if (lineCountLimit > 0)
+      if (atEnd)
       {
-         int lineCount = text.getLineCount();
-         if ((lineCountLimit > 0) && (lineCount > lineCountLimit))
+         if ((windowStart < 0) || (lineCount - windowStart > WINDOW_SIZE * 2))
+         {
+            showWindow(lineCount - WINDOW_SIZE);
+         }
+         else
          {
-            int length = text.getOffsetAtLine(lineCount - lineCountLimit);
-            text.replaceTextRange(0, length, "");
-            content.replace(0, length, "");
+            text.append(s);
+            windowEnd = lineCount;
+            updateScroller();
          }
+         if (!scrollLock)
+            text.setTopIndex(text.getLineCount() - 1);
+      }
+      else if (windowStart < 0)
+      {
+         showWindow(0);
+      }
+      else
+      {
+         updateScroller();
       }
+   }
 
-      if (!scrollLock)
+   /**
+    * Show window of document lines starting at given line.
+    *
+    * @param startLine first line to show
+    */
+   protected void showWindow(int startLine)
+   {
+      int lineCount = document.getLineCount();
+      windowStart = Math.max(0, Math.min(startLine, lineCount - WINDOW_SIZE));
+      windowEnd = Math.min(windowStart + WINDOW_SIZE, lineCount);
+      try
       {
-         text.setTopIndex(text.getLineCount() - 1);
+         text.setText(document.getLines(windowStart, windowEnd - windowStart));
       }
+      catch(IOException e)
+      {
+         Activator.logError("Cannot read file viewer document", e);
+         text.setText(""); //$NON-NLS-1$
+      }
+      updateScroller();
+   }
+
+   /**
+    * Update scroller position and range
+    */
+   private void updateScroller()
+   {
+      int lineCount = document.getLineCount();
+      int visible = Math.max(windowEnd - windowStart, 1);
+      scroller.setValues(windowStart, 0, Math.max(lineCount, visible), visible, Math.max(visible / 10, 1), visible);
+      scroller.setEnabled(lineCount > visible);
    }
 
    /**
@@ -682,67 +853,92 @@ public void setLineStyler(LineStyler lineStyler)
    }
 
    /**
-    * Do search
+    * Start search in background.
+    *
+    * @param typing true if search is started by editing search string
+    * @param backward true to search backward
     */
-   private void doSearch(boolean typing)
+   private void doSearch(boolean typing, final boolean backward)
    {
-      String searchString = searchBarText.getText().toLowerCase();
-      if (searchString.length() == 0)
-         return;
-      
-      int searchPosition = text.getCaretOffset();
-      if (typing && (text.getSelectionCount() > 0))
+      if (searchJob != null)
       {
-         Point p = text.getSelectionRange();
-         searchPosition = p.x;
+         searchJob.cancel();
+         searchJob = null;
       }
-      
-      if (content.length() - searchPosition < searchString.length())
-         return;
-      
-      int index = content.indexOf(searchString, searchPosition);
-      if (index > -1)
+
+      final String searchString = searchBarText.getText();
+      if (searchString.isEmpty())
       {
-         text.setSelection(index, index + searchString.length());
          searchBarText.setBackground(null);
+         return;
       }
+
+      final long startOffset;
+      if (matchOffset >= 0)
+         startOffset = backward ? matchOffset - 1 : (typing ? matchOffset : matchOffset + 1);
       else
-      {
-         searchBarText.setBackground(ThemeEngine.getBackgroundColor("TextInput.Error"));
-      }
+         startOffset = document.getLineOffset(backward ? windowEnd : windowStart);
+
+      final PagedTextDocument searchDocument = document;
+      searchJob = new ConsoleJob(Messages.get().BaseFileViewer_SearchJobName, viewPart, Activator.PLUGIN_ID, null) {
+         @Override
+         protected void runInternal(final IProgressMonitor monitor) throws Exception
+         {
+            final long offset = searchDocument.find(searchString, startOffset, backward, () -> monitor.isCanceled());
+            if (monitor.isCanceled())
+               return;
+            runInUIThread(new Runnable() {
+               @Override
+               public void run()
+               {
+                  if (!BaseFileViewer.this.isDisposed() && (searchDocument == document))
+                     showSearchResult(offset, searchString);
+               }
+            });
+         }
+
+         @Override
+         protected String getErrorMessage()
+         {
+            return Messages.get().BaseFileViewer_SearchJobError;
+         }
+      };
+      searchJob.setUser(false);
+      searchJob.setSystem(true);
+      searchJob.start();
    }
-   
+
    /**
-    * Do search backwards
+    * Show search result, moving window if needed and selecting found text.
+    *
+    * @param offset byte offset of found text or -1 if text was not found
+    * @param searchString search string
     */
-   private void doReverseSearch()
+   private void showSearchResult(long offset, String searchString)
    {
-      String searchString = searchBarText.getText().toLowerCase();
-      if (searchString.length() == 0)
-         return;
-      
-      int searchPosition = text.getCaretOffset();
-      if ((text.getSelectionCount() > 0) && text.getSelectionText().toLowerCase().equals(searchString))
+      if (offset < 0)
       {
-         Point p = text.getSelectionRange();
-         searchPosition = p.x - 1;
+         searchBarText.setBackground(ThemeEngine.getBackgroundColor("TextInput.Error"));
+         return;
       }
+      searchBarText.setBackground(null);
+      matchOffset = offset;
 
-      if (searchPosition < searchString.length())
-         return;
-      
-      int index = content.lastIndexOf(searchString, searchPosition);
-      if (index > -1)
+      int line = document.getLineAtOffset(offset);
+      if ((line < windowStart) || (line >= windowEnd))
+         showWindow(line - SEARCH_CONTEXT_LINES);
+
+      try
       {
-         text.setSelection(index, index + searchString.length());
-         searchBarText.setBackground(null);
+         int start = document.getText(document.getLineOffset(windowStart), offset).length();
+         text.setSelection(start, start + searchString.length());
       }
-      else
+      catch(IOException e)
       {
-         searchBarText.setBackground(ThemeEngine.getBackgroundColor("TextInput.Error"));
+         Activator.logError("Cannot select search result in file viewer", e);
       }
    }
-   
+
    /**
     * Remove escape sequences from input string
     * 
@@ -782,54 +978,98 @@ else if ((ch >= 32) || (ch == '\r') || (ch == '\n') || (ch == '\t'))
    }
 
    /**
-    * Load file content into string
-    * 
-    * @param file
-    * @return
+    * Load file content into document. File is read in chunks, so only small part of it is held in memory at any time. Up to
+    * <code>MAX_FILE_SIZE</code> characters are loaded.
+    *
+    * @param file file to load
+    * @param document document to load file into
+    * @param filter append filter (can be null)
+    * @return incomplete last line if filter is set (null otherwise)
+    * @throws IOException on I/O error
     */
-   protected static String loadFile(final File file)
+   protected static String loadFile(final File file, PagedTextDocument document, Pattern filter) throws IOException
    {
-      StringBuilder content = new StringBuilder();
-      FileReader reader = null;
-      char[] buffer = new char[32768];
-      try
+      try (Reader reader = new InputStreamReader(new FileInputStream(file)))
       {
-         reader = new FileReader(file);
-         int size = 0;
+         char[] buffer = new char[32768];
+         StringBuilder pending = new StringBuilder();
+         long size = 0;
          while(size < MAX_FILE_SIZE)
          {
             int count = reader.read(buffer);
             if (count == -1)
                break;
-            if (count == buffer.length)
-            {
-               content.append(buffer);
-            }
-            else
+            pending.append(buffer, 0, count);
+            size += count;
+
+            // Process only complete lines so escape sequences and filtered lines are not split between chunks
+            int lineEnd = pending.lastIndexOf("\n");
+            if (lineEnd == -1)
             {
-               content.append(Arrays.copyOf(buffer, count));
+               if (pending.length() < 1048576)
+                  continue;
+               lineEnd = pending.length() - 1; // very long line, process as is
             }
-            size += count;
+            document.append(filterLines(removeEscapeSequences(pending.substring(0, lineEnd + 1)), filter));
+            pending.delete(0, lineEnd + 1);
          }
+
+         String remainder = removeEscapeSequences(pending.toString());
+         if (filter != null)
+            return remainder.isEmpty() ? null : remainder;
+         document.append(remainder);
+         return null;
       }
-      catch(IOException e)
-      {
-         e.printStackTrace();
-      }
-      finally
+   }
+
+   /**
+    * Append content of given local file, applying append filter.
+    *
+    * @param file file to append
+    * @throws IOException on I/O error
+    */
+   protected void appendFile(final File file) throws IOException
+   {
+      try (Reader reader = new InputStreamReader(new FileInputStream(file)))
       {
-         if (reader != null)
+         char[] buffer = new char[32768];
+         long size = 0;
+         while(size < MAX_FILE_SIZE)
          {
-            try
-            {
-               reader.close();
-            }
-            catch(IOException e)
-            {
-            }
+            int count = reader.read(buffer);
+            if (count == -1)
+               break;
+            append(new String(buffer, 0, count));
+            size += count;
          }
       }
-      return content.toString();
+   }
+
+   /**
+    * Filter complete lines using given filter.
+    *
+    * @param text text consisting of complete lines
+    * @param filter filter (can be null)
+    * @return lines matching filter
+    */
+   private static String filterLines(String text, Pattern filter)
+   {
+      if (filter == null)
+         return text;
+
+      StringBuilder output = new StringBuilder();
+      int offset = 0;
+      while(offset < text.length())
+      {
+         int nextOffset = text.indexOf('\n', offset);
+         if (nextOffset == -1)
+            nextOffset = text.length() - 1;
+         String line = text.substring(offset, nextOffset + 1);
+         if (filter.matcher(line).find())
+            output.append(line);
+         offset = nextOffset + 1;
+      }
+      return output.toString();
    }
 
    /**
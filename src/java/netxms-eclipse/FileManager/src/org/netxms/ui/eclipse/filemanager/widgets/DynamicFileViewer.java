@@ -18,6 +18,7 @@
  */
 package org.netxms.ui.eclipse.filemanager.widgets;
 
+import java.io.IOException;
 import java.util.UUID;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.swt.events.DisposeEvent;
@@ -156,10 +157,10 @@ private void restartTracking()
       if (restartJob != null)
          restartJob.cancel();
 
-      text.append("\n\n" + //$NON-NLS-1$
-                  "----------------------------------------------------------------------\n" + //$NON-NLS-1$
-                  Messages.get().FileViewer_NotifyFollowConnectionLost +
-                  "\n----------------------------------------------------------------------\n"); //$NON-NLS-1$
+      appendText("\n\n" + //$NON-NLS-1$
+                 "----------------------------------------------------------------------\n" + //$NON-NLS-1$
+                 Messages.get().FileViewer_NotifyFollowConnectionLost +
+                 "\n----------------------------------------------------------------------\n"); //$NON-NLS-1$
       showMessage(ERROR, Messages.get().FileViewer_NotifyFollowConnectionLost);
 
       restartJob = new ConsoleJobCallingServerJob(Messages.get().DynamicFileViewer_RestartFileTracking, null, Activator.PLUGIN_ID) {
@@ -205,10 +206,17 @@ public void run()
                         }
                         
                         hideMessage();
-                        text.append("-------------------------------------------------------------------------------\n" + //$NON-NLS-1$
-                                    Messages.get().FileViewer_NotifyFollowConnectionEnabed +
-                                    "\n-------------------------------------------------------------------------------\n\n"); //$NON-NLS-1$
-                        append(loadFile(file.getFile()));
+                        appendText("-------------------------------------------------------------------------------\n" + //$NON-NLS-1$
+                                   Messages.get().FileViewer_NotifyFollowConnectionEnabed +
+                                   "\n-------------------------------------------------------------------------------\n\n"); //$NON-NLS-1$
+                        try
+                        {
+                           appendFile(file.getFile());
+                        }
+                        catch(IOException e)
+                        {
+                           logger.error("Cannot read file " + file.getFile().getAbsolutePath(), e);
+                        }
                         startTracking(file.getMonitorId(), nodeId, remoteFileName);
                      }
                   });
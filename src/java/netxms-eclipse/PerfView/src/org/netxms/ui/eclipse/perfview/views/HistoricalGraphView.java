@@ -87,6 +87,7 @@ public class HistoricalGraphView extends ViewPart implements ChartConfigurationC
    private static final TimeUnit[] presetUnits = { TimeUnit.MINUTE, TimeUnit.MINUTE, TimeUnit.HOUR, TimeUnit.HOUR, TimeUnit.HOUR,
          TimeUnit.HOUR, TimeUnit.DAY, TimeUnit.DAY, TimeUnit.DAY, TimeUnit.DAY, TimeUnit.DAY, TimeUnit.DAY };
    private static final int[] presetRanges = { 10, 30, 1, 2, 4, 12, 1, 2, 5, 7, 31, 365 };
+   private static final int MIN_CHART_WIDTH = 400; // Used to decide on data aggregation if chart is not yet laid out
    private static final String[] presetNames = 
       { Messages.get().HistoricalGraphView_Preset10min, Messages.get().HistoricalGraphView_Preset30min, Messages.get().HistoricalGraphView_Preset1hour, Messages.get().HistoricalGraphView_Preset2hours, Messages.get().HistoricalGraphView_Preset4hours, Messages.get().HistoricalGraphView_Preset12hours, Messages.get().HistoricalGraphView_Preset1day,
         Messages.get().HistoricalGraphView_Preset2days, Messages.get().HistoricalGraphView_Preset5days, Messages.get().HistoricalGraphView_PresetWeek, Messages.get().HistoricalGraphView_PresetMonth, Messages.get().HistoricalGraphView_PresetYear };
@@ -462,6 +463,9 @@ private void getDataFromServer()
          return;
       }
 
+      // Data will be aggregated by server only if there are more values than horizontal pixels
+      final int width = Math.max(chart.getSize().x, MIN_CHART_WIDTH);
+
       // Request data from server
       ConsoleJob job = new ConsoleJob(Messages.get().HistoricalGraphView_JobName, this, Activator.PLUGIN_ID) {
          private ChartDciConfig currentItem;
@@ -477,14 +481,14 @@ protected void runInternal(IProgressMonitor monitor) throws Exception
                currentItem = dciList[i];
                if (currentItem.type == ChartDciConfig.ITEM)
                {
-                  data[i] = session.getCollectedData(currentItem.nodeId, currentItem.dciId, configuration.getTimeFrom(),
-                        configuration.getTimeTo(), 0, currentItem.useRawValues ? HistoricalDataType.RAW : HistoricalDataType.PROCESSED);
+                  data[i] = session.getChartData(currentItem.nodeId, currentItem.dciId, configuration.getTimeFrom(),
+                        configuration.getTimeTo(), width, currentItem.useRawValues ? HistoricalDataType.RAW : HistoricalDataType.PROCESSED);
                   thresholds[i] = session.getThresholds(currentItem.nodeId, currentItem.dciId);
                }
                else
                {
-                  data[i] = session.getCollectedTableData(currentItem.nodeId, currentItem.dciId, currentItem.instance,
-                        currentItem.column, configuration.getTimeFrom(), configuration.getTimeTo(), 0);
+                  data[i] = session.getChartTableData(currentItem.nodeId, currentItem.dciId, currentItem.instance,
+                        currentItem.column, configuration.getTimeFrom(), configuration.getTimeTo(), width);
                   thresholds[i] = null;
                }
                monitor.worked(1);
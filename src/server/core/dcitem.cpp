@@ -143,6 +143,7 @@ DCItem::DCItem(DB_HANDLE hdb, DB_RESULT hResult, int row, const shared_ptr<DataC
          m_prevRawValue = DBGetField(hTempResult, 0, 0, szBuffer, MAX_DB_STRING);
          m_tPrevValueTimeStamp = DBGetFieldULong(hTempResult, 0, 1);
          m_lastPoll = m_lastValueTimestamp = m_tPrevValueTimeStamp;
+         m_lastValueChange = time(nullptr);
       }
       DBFreeResult(hTempResult);
    }
@@ -810,6 +811,7 @@ bool DCItem::processNewValue(time_t tmTimeStamp, const TCHAR *originalValue, boo
       memmove(&m_ppValueCache[1], m_ppValueCache, sizeof(ItemValue *) * (m_cacheSize - 1));
       m_ppValueCache[0] = pValue;
       m_lastValueTimestamp = tmTimeStamp;
+      m_lastValueChange = time(nullptr);
    }
    else if (!m_bCacheLoaded && (m_requiredCacheSize == 1))
    {
@@ -827,6 +829,7 @@ bool DCItem::processNewValue(time_t tmTimeStamp, const TCHAR *originalValue, boo
       m_ppValueCache[0] = pValue;
       m_bCacheLoaded = true;
       m_lastValueTimestamp = tmTimeStamp;
+      m_lastValueChange = time(nullptr);
    }
    else
    {
@@ -846,6 +849,7 @@ void DCItem::processNewError(bool noInstance, time_t now)
    lock();
 
    m_errorCount++;
+   m_lastSummaryChange = now;
 
 	for(int i = 0; i < getThresholdCount(); i++)
    {
@@ -1465,6 +1469,7 @@ void DCItem::reloadCache(bool forceReload)
 
       m_cacheSize = m_requiredCacheSize;
       m_bCacheLoaded = true;
+      m_lastValueChange = time(nullptr);
    }
    else if (hResult != nullptr)
    {
@@ -1848,6 +1853,7 @@ bool DCItem::deleteAllData()
 	bool success = DBQuery(hdb, query);
 	clearCache();
 	updateCacheSizeInternal(true);
+   m_lastSummaryChange = time(nullptr);
    unlock();
 
    DBConnectionPoolReleaseConnection(hdb);
@@ -1897,6 +1903,7 @@ bool DCItem::deleteEntry(time_t timestamp)
          memmove(&m_ppValueCache[i], &m_ppValueCache[i + 1], sizeof(ItemValue *) * (m_cacheSize - (i + 1)));
          m_cacheSize--;
          updateCacheSizeInternal(true);
+         m_lastSummaryChange = time(nullptr);
          break;
       }
    }
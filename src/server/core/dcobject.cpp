@@ -84,6 +84,8 @@ DCObject::DCObject(const shared_ptr<DataCollectionOwner>& owner) : m_owner(owner
    m_status = ITEM_STATUS_NOT_SUPPORTED;
    m_lastPoll = 0;
    m_lastValueTimestamp = 0;
+   m_lastValueChange = 0;
+   m_lastSummaryChange = time(nullptr);
    m_schedules = nullptr;
    m_tLastCheck = 0;
 	m_flags = 0;
@@ -133,6 +135,8 @@ DCObject::DCObject(const DCObject *src, bool shadowCopy) :
    m_status = src->m_status;
    m_lastPoll = shadowCopy ? src->m_lastPoll : 0;
    m_lastValueTimestamp = shadowCopy ? src->m_lastValueTimestamp : 0;
+   m_lastValueChange = shadowCopy ? src->m_lastValueChange : 0;
+   m_lastSummaryChange = shadowCopy ? src->m_lastSummaryChange : time(nullptr);
    m_tLastCheck = shadowCopy ? src->m_tLastCheck : 0;
    m_errorCount = shadowCopy ? src->m_errorCount : 0;
 	m_flags = src->m_flags;
@@ -187,6 +191,8 @@ DCObject::DCObject(uint32_t id, const TCHAR *name, int source, BYTE scheduleType
    m_scheduledForDeletion = 0;
    m_lastPoll = 0;
    m_lastValueTimestamp = 0;
+   m_lastValueChange = 0;
+   m_lastSummaryChange = time(nullptr);
    m_flags = 0;
    m_stateFlags = 0;
    m_schedules = nullptr;
@@ -260,6 +266,8 @@ DCObject::DCObject(ConfigEntry *config, const shared_ptr<DataCollectionOwner>& o
    m_scheduledForDeletion = 0;
    m_lastPoll = 0;
    m_lastValueTimestamp = 0;
+   m_lastValueChange = 0;
+   m_lastSummaryChange = time(nullptr);
    m_tLastCheck = 0;
    m_errorCount = 0;
    m_resourceId = 0;
@@ -523,6 +531,7 @@ void DCObject::changeBinding(uint32_t newId, shared_ptr<DataCollectionOwner> new
 	}
 
    updateTimeIntervalsInternal();
+   m_lastSummaryChange = time(nullptr);
 
    unlock();
 }
@@ -568,6 +577,7 @@ void DCObject::setStatus(int status, bool generateEvent, bool userChange)
       }
 
       m_status = static_cast<BYTE>(status);
+      m_lastSummaryChange = time(nullptr);
    }
 }
 
@@ -856,6 +866,8 @@ void DCObject::updateFromMessage(const NXCPMessage& msg)
 {
    lock();
 
+   m_lastSummaryChange = time(nullptr);
+
    m_name = msg.getFieldAsSharedString(VID_NAME, MAX_ITEM_NAME);
    m_description = msg.getFieldAsSharedString(VID_DESCRIPTION, MAX_DB_STRING);
    m_systemTag = msg.getFieldAsSharedString(VID_SYSTEM_TAG, MAX_DB_STRING);
@@ -1038,6 +1050,8 @@ void DCObject::updateFromTemplate(DCObject *src)
 {
 	lock();
 
+   m_lastSummaryChange = time(nullptr);
+
 	m_name = expandMacros(src->m_name, MAX_ITEM_NAME);
 	m_description = expandMacros(src->m_description, MAX_DB_STRING);
 	m_systemTag = expandMacros(src->m_systemTag, MAX_DB_STRING);
@@ -1197,6 +1211,8 @@ void DCObject::updateFromImport(ConfigEntry *config)
 {
    lock();
 
+   m_lastSummaryChange = time(nullptr);
+
    m_name = config->getSubEntryValue(_T("name"), 0, _T("unnamed"));
    m_description = config->getSubEntryValue(_T("description"), 0, m_name);
    m_systemTag = config->getSubEntryValue(_T("systemTag"), 0, nullptr);
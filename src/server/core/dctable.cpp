@@ -270,6 +270,7 @@ bool DCTable::processNewValue(time_t timestamp, const shared_ptr<Table>& value,
 	m_lastValue->setTitle(m_description);
    m_lastValue->setSource(m_source);
    m_lastValueTimestamp = timestamp;
+   m_lastValueChange = time(nullptr);
 
 	// Copy required fields into local variables
 	uint32_t tableId = m_id;
@@ -452,6 +453,7 @@ void DCTable::checkThresholds(Table *value)
 void DCTable::processNewError(bool noInstance, time_t now)
 {
 	m_errorCount++;
+	m_lastSummaryChange = now;
 }
 
 /**
@@ -1300,6 +1302,7 @@ void DCTable::loadCache()
    {
       m_lastValue = shared_ptr<Table>(Table::createFromPackedXML(encodedTable));
       m_lastValueTimestamp = timestamp;
+      m_lastValueChange = time(nullptr);
    }
    unlock();
    MemFree(encodedTable);
@@ -2630,10 +2630,14 @@ bool DataCollectionTarget::updateInstances(DCObject *root, StringObjectMap<Insta
 }
 
 /**
- * Get last (current) DCI values.
+ * Get last (current) DCI values. If changedSince is non-zero, only DCIs with value received or status changed at or after
+ * given server time will be included, and list of IDs of all matching DCIs will be sent in VID_DCI_LIST field so client
+ * can detect deleted DCIs.
  */
-uint32_t DataCollectionTarget::getLastValues(NXCPMessage *msg, bool objectTooltipOnly, bool overviewOnly, bool includeNoValueObjects, uint32_t userId)
+uint32_t DataCollectionTarget::getLastValues(NXCPMessage *msg, bool objectTooltipOnly, bool overviewOnly, bool includeNoValueObjects, uint32_t userId, time_t changedSince)
 {
+   IntegerArray<uint32_t> dciList(0, 256);
+
    readLockDciAccess();
 
    uint32_t fieldId = VID_DCI_VALUES_BASE, dwCount = 0;
@@ -2645,6 +2649,12 @@ uint32_t DataCollectionTarget::getLastValues(NXCPMessage *msg, bool objectToolti
           (!overviewOnly || object->isShowInObjectOverview()) &&
           object->hasAccess(userId))
       {
+         if (changedSince != 0)
+         {
+            dciList.add(object->getId());
+            if (!object->isSummaryChangedSince(changedSince))
+               continue;
+         }
          static_cast<DCItem*>(object)->fillLastValueSummaryMessage(msg, fieldId);
          fieldId += 50;
          dwCount++;
@@ -2653,6 +2663,9 @@ uint32_t DataCollectionTarget::getLastValues(NXCPMessage *msg, bool objectToolti
    msg->setField(VID_NUM_ITEMS, dwCount);
 
    unlockDciAccess();
+
+   if (changedSince != 0)
+      msg->setFieldFromInt32Array(VID_DCI_LIST, dciList);
    return RCC_SUCCESS;
 }
 
@@ -4976,6 +4976,162 @@ static void ProcessTableDataSelectResults(DB_UNBUFFERED_RESULT hResult, ClientSe
    session->sendMessage(msg);
 }
 
+/**
+ * Aggregation state for single time bucket
+ */
+struct AggregationBucket
+{
+   uint32_t timestamp;
+   uint32_t count;
+   double last;
+   double min;
+   double max;
+   double sum;
+};
+
+/**
+ * Write aggregated bucket to data stream. Values are written in ascending order of aggregation function code.
+ */
+static void WriteAggregationBucket(ByteStream *data, const AggregationBucket& bucket, uint32_t functions)
+{
+   data->writeB(bucket.timestamp);
+   data->writeB(bucket.count);
+   if (functions & DCI_AGG_FUNCTION_BIT(DCI_AGG_LAST))
+      data->writeB(bucket.last);
+   if (functions & DCI_AGG_FUNCTION_BIT(DCI_AGG_MIN))
+      data->writeB(bucket.min);
+   if (functions & DCI_AGG_FUNCTION_BIT(DCI_AGG_MAX))
+      data->writeB(bucket.max);
+   if (functions & DCI_AGG_FUNCTION_BIT(DCI_AGG_AVG))
+      data->writeB(bucket.sum / bucket.count);
+   if (functions & DCI_AGG_FUNCTION_BIT(DCI_AGG_SUM))
+      data->writeB(bucket.sum);
+}
+
+/**
+ * Maximum number of rows read from database by single query when aggregating DCI data
+ */
+#define AGGREGATION_CHUNK_SIZE   10000
+
+/**
+ * Process results from SELECT statement for DCI data with aggregation into fixed width time buckets. Statement should
+ * select rows in descending timestamp order, limited to AGGREGATION_CHUNK_SIZE rows, with upper bound for timestamp
+ * bound at position timeToPos. Rows are read in chunks: when chunk is exhausted, statement is executed again with upper
+ * bound set right before last row read (timestamps are unique within DCI), so no single query has to produce whole
+ * time range. Given result (first chunk) and all subsequent results are freed by this function.
+ *
+ * Buckets are aligned to multiples of interval since epoch and sent in descending order. Each row consists of bucket
+ * start time, number of aggregated values, and one value for each requested aggregation function.
+ */
+static void ProcessAggregatedDataSelectResults(DB_UNBUFFERED_RESULT hResult, DB_STATEMENT hStmt, int timeToPos, ClientSession *session,
+         uint32_t requestId, const shared_ptr<DCObject>& dci, const TCHAR *dataColumn, const TCHAR *instance, uint32_t interval,
+         uint32_t functions, uint32_t maxRows)
+{
+   int dataType = (dci->getType() == DCO_TYPE_ITEM) ? static_cast<DCItem&>(*dci).getDataType() : static_cast<DCTable&>(*dci).getColumnDataType(dataColumn);
+
+   ByteStream data(65536);
+   data.setAllocationStep(65536);
+   data.writeB(dci->getId());
+   data.writeB(static_cast<uint32_t>(0));  // Number of rows, will be updated later
+   data.writeB(static_cast<uint32_t>(dataType));
+   data.writeB(functions);  // Aggregation functions in place of padding
+
+   uint32_t rows = 0;
+   AggregationBucket bucket;
+   bucket.count = 0;
+   bool completed = false;
+   while(!completed)
+   {
+      uint32_t chunkRows = 0;
+      uint32_t timestamp = 0;
+      while(DBFetch(hResult))
+      {
+         timestamp = DBGetFieldULong(hResult, 0);
+         chunkRows++;
+
+         double value;
+         if (dci->getType() == DCO_TYPE_ITEM)
+         {
+            value = DBGetFieldDouble(hResult, 1);
+         }
+         else
+         {
+            value = 0;
+            char *encodedTable = DBGetFieldUTF8(hResult, 1, nullptr, 0);
+            if (encodedTable != nullptr)
+            {
+               Table *table = Table::createFromPackedXML(encodedTable);
+               if (table != nullptr)
+               {
+                  value = table->getAsDouble(table->findRowByInstance(instance), table->getColumnIndex(dataColumn));
+                  delete table;
+               }
+               MemFree(encodedTable);
+            }
+         }
+
+         uint32_t bucketStart = timestamp - timestamp % interval;
+         if ((bucket.count > 0) && (bucket.timestamp != bucketStart))
+         {
+            WriteAggregationBucket(&data, bucket, functions);
+            bucket.count = 0;
+            if (++rows == maxRows)
+            {
+               completed = true;
+               break;
+            }
+         }
+
+         if (bucket.count == 0)
+         {
+            // Rows are in descending order, so first value in bucket is the last one collected
+            bucket.timestamp = bucketStart;
+            bucket.last = value;
+            bucket.min = value;
+            bucket.max = value;
+            bucket.sum = value;
+         }
+         else
+         {
+            if (value < bucket.min)
+               bucket.min = value;
+            if (value > bucket.max)
+               bucket.max = value;
+            bucket.sum += value;
+         }
+         bucket.count++;
+      }
+      DBFreeResult(hResult);
+
+      if (completed || (chunkRows < AGGREGATION_CHUNK_SIZE) || (timestamp == 0))
+         break;
+
+      // Read next chunk (rows older than last one read)
+      DBBind(hStmt, timeToPos, DB_SQLTYPE_INTEGER, timestamp - 1);
+      hResult = DBSelectPreparedUnbuffered(hStmt);
+      if (hResult == nullptr)
+      {
+         nxlog_debug_tag(DEBUG_TAG, 4, _T("ProcessAggregatedDataSelectResults: cannot read next chunk for DCI [%u], sending partial data"), dci->getId());
+         break;
+      }
+   }
+   if (!completed && (bucket.count > 0))
+   {
+      WriteAggregationBucket(&data, bucket, functions);
+      rows++;
+   }
+
+   size_t size = data.size();
+   BYTE *buffer = data.takeBuffer();
+   reinterpret_cast<DCI_DATA_HEADER*>(buffer)->numRows = htonl(rows);
+
+   // Prepare and send raw message with aggregated data
+   NXCP_MESSAGE *msg = CreateRawNXCPMessage(CMD_DCI_DATA, requestId, 0, buffer, size, nullptr, session->isCompressionEnabled());
+   MemFree(buffer);
+   session->sendRawMessage(msg);
+   MemFree(msg);
+}
+
 /**
  * Get collected data for table or simple DCI
  */
@@ -5020,8 +5176,43 @@ bool ClientSession::getCollectedDataFromDB(const NXCPMessage& request, NXCPMessa
 	if ((maxRows == 0) || (maxRows > MAX_DCI_DATA_RECORDS))
 		maxRows = MAX_DCI_DATA_RECORDS;
 
+   // Aggregation into time buckets (maxRows is limit for number of buckets in that case)
+   uint32_t aggregationInterval = request.getFieldAsUInt32(VID_AGGREGATION_INTERVAL);
+   uint32_t aggregationFunctions = request.getFieldAsUInt32(VID_AGGREGATION_FUNCTIONS) & DCI_AGG_FUNCTION_MASK;
+   if (aggregationInterval > 0)
+   {
+      if (aggregationFunctions == 0)
+      {
+         response->setField(VID_RCC, RCC_INVALID_ARGUMENT);
+         return false;
+      }
+      if ((historicalDataType == HDT_RAW_AND_PROCESSED) || (historicalDataType == HDT_FULL_TABLE))
+      {
+         response->setField(VID_RCC, RCC_INCOMPATIBLE_OPERATION);
+         return false;
+      }
+
+      // Only numeric values can be aggregated
+      int dataType;
+      if (dciType == DCO_TYPE_ITEM)
+      {
+         dataType = static_cast<DCItem&>(*dci).getDataType();
+      }
+      else
+      {
+         TCHAR dataColumn[MAX_COLUMN_NAME];
+         request.getFieldAsString(VID_DATA_COLUMN, dataColumn, MAX_COLUMN_NAME);
+         dataType = static_cast<DCTable&>(*dci).getColumnDataType(dataColumn);
+      }
+      if ((dataType == DCI_DT_STRING) || (dataType == DCI_DT_NULL))
+      {
+         response->setField(VID_RCC, RCC_INCOMPATIBLE_OPERATION);
+         return false;
+      }
+   }
+
 	// If only last value requested, try to get it from cache first
-	if ((maxRows == 1) && (timeTo == 0) && (historicalDataType == HDT_PROCESSED))
+	if ((maxRows == 1) && (timeTo == 0) && (historicalDataType == HDT_PROCESSED) && (aggregationInterval == 0))
 	{
 	   debugPrintf(7, _T("getCollectedDataFromDB: maxRows set to 1, will try to read cached value"));
 
@@ -5147,7 +5338,11 @@ bool ClientSession::getCollectedDataFromDB(const NXCPMessage& request, NXCPMessa
 	}
 
 read_from_db:
-   debugPrintf(7, _T("getCollectedDataFromDB: will read from database (maxRows = %d)"), maxRows);
+   debugPrintf(7, _T("getCollectedDataFromDB: will read from database (maxRows = %d, aggregationInterval = %u)"), maxRows, aggregationInterval);
+
+   // Aggregated data is read in chunks, with upper time bound moved after each chunk
+   if ((aggregationInterval > 0) && (timeTo == 0))
+      timeTo = 0x7FFFFFFF;
 
 	TCHAR condition[256] = _T("");
 	if ((g_dbSyntax == DB_SYNTAX_TSDB) && (g_flags & AF_SINGLE_TABLE_PERF_DATA))
@@ -5167,7 +5362,8 @@ bool ClientSession::getCollectedDataFromDB(const NXCPMessage& request, NXCPMessa
 
 	bool success = false;
 	DB_HANDLE hdb = DBConnectionPoolAcquireConnection();
-	DB_STATEMENT hStmt = PrepareDataSelect(hdb, dcTarget.getId(), dciType, dci->getStorageClass(), maxRows, historicalDataType, condition);
+	DB_STATEMENT hStmt = PrepareDataSelect(hdb, dcTarget.getId(), dciType, dci->getStorageClass(),
+	         (aggregationInterval > 0) ? AGGREGATION_CHUNK_SIZE : maxRows, historicalDataType, condition);
 	if (hStmt != nullptr)
 	{
 		TCHAR dataColumn[MAX_COLUMN_NAME] = _T("");
@@ -5192,14 +5388,30 @@ bool ClientSession::getCollectedDataFromDB(const NXCPMessage& request, NXCPMessa
 			response->setField(VID_RCC, RCC_SUCCESS);
 			if (dciType == DCO_TYPE_ITEM)
 			   static_cast<DCItem*>(dci.get())->fillMessageWithThresholds(response, false);
+			if (aggregationInterval > 0)
+			{
+			   // Confirm to client that data will be sent aggregated
+			   response->setField(VID_AGGREGATION_INTERVAL, aggregationInterval);
+			   response->setField(VID_AGGREGATION_FUNCTIONS, aggregationFunctions);
+			}
 			sendMessage(response);
 
 			if (historicalDataType == HDT_FULL_TABLE)
+			{
             ProcessTableDataSelectResults(hResult, this, request.getId());
+            DBFreeResult(hResult);
+			}
+			else if (aggregationInterval > 0)
+			{
+			   // Upper time bound is always last parameter; result is freed by aggregation function
+			   ProcessAggregatedDataSelectResults(hResult, hStmt, pos - 1, this, request.getId(), dci, dataColumn, instance,
+			            aggregationInterval, aggregationFunctions, maxRows);
+			}
 			else
+			{
 			   ProcessDataSelectResults(hResult, this, request.getId(), dci, historicalDataType, dataColumn, instance);
-
-		   DBFreeResult(hResult);
+			   DBFreeResult(hResult);
+			}
 		}
 		else
 		{
@@ -5319,12 +5531,16 @@ void ClientSession::getLastValues(const NXCPMessage& request)
       {
          if (object->isDataCollectionTarget())
          {
+            // Change cursor is taken before collecting values so changes made during processing will be sent again on next request
+            time_t now = time(nullptr);
             response.setField(VID_RCC,
                static_cast<DataCollectionTarget&>(*object).getLastValues(&response,
                   request.getFieldAsBoolean(VID_OBJECT_TOOLTIP_ONLY),
                   request.getFieldAsBoolean(VID_OVERVIEW_ONLY),
                   request.getFieldAsBoolean(VID_INCLUDE_NOVALUE_OBJECTS),
-                  m_userId));
+                  m_userId,
+                  request.getFieldAsTime(VID_TIMESTAMP)));
+            response.setFieldFromTime(VID_TIMESTAMP, now);
          }
          else
          {
@@ -13369,6 +13585,23 @@ void ClientSession::getEffectiveRights(const NXCPMessage& request)
 {
    NXCPMessage response(CMD_REQUEST_COMPLETED, request.getId());
 
+   if (request.isFieldExist(VID_OBJECT_LIST))
+   {
+      // Bulk request - rights are returned in same order as objects in request, with 0 for unknown objects
+      IntegerArray<uint32_t> objects;
+      request.getFieldAsInt32Array(VID_OBJECT_LIST, &objects);
+      IntegerArray<uint32_t> rights(objects.size(), 1024);
+      for(int i = 0; i < objects.size(); i++)
+      {
+         shared_ptr<NetObj> object = FindObjectById(objects.get(i));
+         rights.add((object != nullptr) ? object->getUserRights(m_userId) : 0);
+      }
+      response.setFieldFromInt32Array(VID_EFFECTIVE_RIGHTS_LIST, rights);
+      response.setField(VID_RCC, RCC_SUCCESS);
+      sendMessage(response);
+      return;
+   }
+
    // Get node id and check object class and access rights
    shared_ptr<NetObj> object = FindObjectById(request.getFieldAsUInt32(VID_OBJECT_ID));
    if (object != nullptr)
@@ -284,6 +284,8 @@ class NXCORE_EXPORTABLE DCObject : public enable_shared_from_this<DCObject>, pub
    SharedString m_systemTag;
    time_t m_lastPoll;           // Last poll time
    time_t m_lastValueTimestamp; // Timestamp of last obtained value
+   time_t m_lastValueChange;    // Server time when last value was received or loaded from database
+   time_t m_lastSummaryChange;  // Last change of non-value data included into last value summary (status, error count, configuration)
    int m_pollingInterval;       // Polling interval in seconds
    int m_retentionTime;         // Retention time in days
    TCHAR *m_pollingIntervalSrc;
@@ -392,6 +394,7 @@ class NXCORE_EXPORTABLE DCObject : public enable_shared_from_this<DCObject>, pub
    uint32_t getSourceNode() const { return m_sourceNode; }
 	time_t getLastPollTime() const { return m_lastPoll; }
    time_t getLastValueTimestamp() const { return m_lastValueTimestamp; }
+   bool isSummaryChangedSince(time_t since) const { return (m_lastValueChange >= since) || (m_lastSummaryChange >= since); }
    uint32_t getErrorCount() const { return m_errorCount; }
 	uint16_t getSnmpPort() const { return m_snmpPort; }
    SNMP_Version getSnmpVersion() const { return m_snmpVersion; }
@@ -2503,7 +2503,7 @@ class NXCORE_EXPORTABLE DataCollectionTarget : public DataCollectionOwner, publi
    uint32_t getThresholdSummary(NXCPMessage *msg, uint32_t baseId, uint32_t userId);
    uint32_t getPerfTabDCIList(NXCPMessage *msg, uint32_t userId);
    void getDciValuesSummary(SummaryTable *tableDefinition, Table *tableData, uint32_t userId);
-   uint32_t getLastValues(NXCPMessage *msg, bool objectTooltipOnly, bool overviewOnly, bool includeNoValueObjects, uint32_t userId);
+   uint32_t getLastValues(NXCPMessage *msg, bool objectTooltipOnly, bool overviewOnly, bool includeNoValueObjects, uint32_t userId, time_t changedSince = 0);
    void getTooltipLastValues(NXCPMessage *msg, uint32_t userId, uint32_t *index);
    double getProxyLoadFactor() const { return m_proxyLoadFactor.load(); }
    int getDciThreshold(uint32_t dciId);
@@ -34,8 +34,12 @@
 import org.apache.commons.daemon.Daemon;
 import org.apache.commons.daemon.DaemonContext;
 import org.apache.commons.daemon.DaemonInitException;
+import org.netxms.reporting.services.ClientSessionPool;
 import org.netxms.reporting.services.CommunicationManager;
+import org.netxms.reporting.services.DatabaseConnectionPool;
 import org.netxms.reporting.services.FileMonitor;
+import org.netxms.reporting.services.RenderCache;
+import org.netxms.reporting.services.ReportJobScheduler;
 import org.netxms.reporting.services.ReportManager;
 import org.netxms.reporting.tools.SmtpSender;
 import org.slf4j.Logger;
@@ -54,6 +58,10 @@ public final class Server implements Daemon
    private Thread listenerThread;
    private CommunicationManager communicationManager;
    private ReportManager reportManager;
+   private ReportJobScheduler jobScheduler;
+   private DatabaseConnectionPool dataSource;
+   private ClientSessionPool sessionPool;
+   private RenderCache renderCache;
    private FileMonitor fileMonitor;
    private Properties configuration = new Properties();
    private ThreadPoolExecutor threadPool;
@@ -98,6 +106,10 @@ else if (bindAddressName.isEmpty() || bindAddressName.equals("*") || bindAddress
 
       communicationManager = new CommunicationManager(this);
       reportManager = new ReportManager(this);
+      jobScheduler = new ReportJobScheduler(this);
+      dataSource = new DatabaseConnectionPool(this);
+      sessionPool = new ClientSessionPool(this);
+      renderCache = new RenderCache(this, reportManager.getRenderCacheDirectory());
       smtpSender = new SmtpSender(this);
 
       File definitionsDirectory = reportManager.getDefinitionsDirectory();
@@ -188,7 +200,11 @@ public void stop() throws Exception
    @Override
    public void destroy()
    {
+      jobScheduler.cancelAll();
       threadPool.shutdownNow();
+      renderCache.shutdown();
+      dataSource.close();
+      sessionPool.close();
       try
       {
          serverSocket.close();
@@ -198,6 +214,8 @@ public void destroy()
          logger.warn("Exception while closing listening socket", e);
       }
       reportManager = null;
+      jobScheduler = null;
+      renderCache = null;
       communicationManager = null;
       smtpSender = null;
       threadPool = null;
@@ -250,6 +268,10 @@ private static Properties loadProperties(String name)
    public void updateConfiguration(Properties update)
    {
       configuration.putAll(update);
+      if (dataSource != null)
+         dataSource.reset(); // database connection settings may have changed
+      if (sessionPool != null)
+         sessionPool.reset();
       logger.info("Server configuration updated");
    }
 
@@ -304,7 +326,47 @@ public ReportManager getReportManager()
    }
 
    /**
-    * Get database connection
+    * @return the job scheduler
+    */
+   public ReportJobScheduler getJobScheduler()
+   {
+      return jobScheduler;
+   }
+
+   /**
+    * Get pooled data source for NetXMS database. Connections obtained from data source should be closed after use to return
+    * them to the pool.
+    *
+    * @return pooled data source
+    */
+   public DatabaseConnectionPool getDataSource()
+   {
+      return dataSource;
+   }
+
+   /**
+    * Get cache for rendered report results.
+    *
+    * @return render cache
+    */
+   public RenderCache getRenderCache()
+   {
+      return renderCache;
+   }
+
+   /**
+    * Get pool of client sessions to NetXMS server.
+    *
+    * @return client session pool
+    */
+   public ClientSessionPool getSessionPool()
+   {
+      return sessionPool;
+   }
+
+   /**
+    * Create new (non-pooled) database connection. Normally connections should be obtained from data source (see
+    * getDataSource()).
     *
     * @return database connection
     * @throws Exception if connection cannot be created
@@ -22,7 +22,9 @@
 import org.netxms.client.NXCException;
 import org.netxms.client.NXCSession;
 import org.netxms.client.ProtocolVersion;
+import org.netxms.client.SharedObjectModel;
 import org.netxms.reporting.ServerException;
+import org.netxms.reporting.services.ClientSessionPool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -34,7 +36,8 @@
    private static final Logger logger = LoggerFactory.getLogger(GenericExtension.class);
    private static final int[] PROTOCOL_COMPONENTS = { ProtocolVersion.INDEX_FULL };
 
-   protected NXCSession session = null;
+   protected volatile NXCSession session = null;
+   private ClientSessionPool sessionPool = null;
 
    /**
     * Connect to NetXMS server using login and password authentication.
@@ -82,7 +85,8 @@ private void connect(String server, String token, String login, String password)
             session.login(token);
          else
             session.login(login, password);
-         session.syncObjects();
+         if (isObjectSyncRequired())
+            session.syncObjects();
          onConnect(session);
       }
       catch(Exception e)
@@ -99,6 +103,64 @@ private void connect(String server, String token, String login, String password)
       }
    }
 
+   /**
+    * Connect to NetXMS server using session leased from session pool. Session will be returned to the pool on disconnect.
+    *
+    * @param pool client session pool
+    * @param token authentication token or null to use configured server credentials
+    * @param userId ID of user the token was issued for
+    * @throws ServerException on failure
+    */
+   public void connect(ClientSessionPool pool, String token, int userId) throws ServerException
+   {
+      session = pool.lease(token, userId, isObjectSyncRequired());
+      sessionPool = pool;
+      try (SharedObjectModel.ViewBinding binding = pool.bindView(session))
+      {
+         onConnect(session);
+      }
+      catch(Exception e)
+      {
+         NXCSession s = session;
+         session = null;
+         sessionPool = null;
+         pool.release(s, false);
+         throw new ServerException("Cannot load data from NetXMS server", e);
+      }
+   }
+
+   /**
+    * Bind object view of session leased from session pool to current thread until returned binding is closed. Objects of
+    * pooled sessions can be shared between users, and their parents and children are only visible on threads with bound view.
+    * Framework binds view while calling onConnect() and ExecutionHook.run(); extension code accessing objects at other times
+    * (for example, data source's next() called from report fill thread) should bind view itself:
+    * <pre>
+    * try (SharedObjectModel.ViewBinding binding = bindView())
+    * {
+    *    ...
+    * }
+    * </pre>
+    *
+    * @return view binding or null if binding is not needed
+    */
+   public SharedObjectModel.ViewBinding bindView()
+   {
+      ClientSessionPool pool = sessionPool;
+      NXCSession s = session;
+      return ((pool != null) && (s != null)) ? pool.bindView(s) : null;
+   }
+
+   /**
+    * Check if this extension requires full object list from server. Extensions which only use API calls not depending on
+    * local object cache can override this method to return false and avoid object synchronization on connect.
+    *
+    * @return true if full object list is required (default)
+    */
+   protected boolean isObjectSyncRequired()
+   {
+      return true;
+   }
+
    /**
     * Hook method called after successful connection to NetXMS server. Default implementation does nothing.
     *
@@ -111,14 +173,36 @@ protected void onConnect(NXCSession session) throws IOException, NXCException
    }
 
    /**
-    * Disconnect from server
+    * Abort communication with server. Intended to be called from another thread to cancel running data load - current session
+    * is disconnected, so any pending request will fail.
+    */
+   public void abort()
+   {
+      NXCSession currentSession = session;
+      if (currentSession != null)
+      {
+         logger.debug("Aborting NetXMS server session");
+         currentSession.disconnect();
+      }
+   }
+
+   /**
+    * Disconnect from server. Session leased from session pool is returned to the pool.
     */
    public void disconnect()
    {
-      if (session != null)
+      NXCSession s = session;
+      if (s == null)
+         return;
+      session = null;
+      if (sessionPool != null)
       {
-         session.disconnect();
-         session = null;
+         sessionPool.release(s, true);
+         sessionPool = null;
+      }
+      else
+      {
+         s.disconnect();
       }
    }
 }
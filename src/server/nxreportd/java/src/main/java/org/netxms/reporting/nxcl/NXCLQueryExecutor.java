@@ -45,6 +45,9 @@ public class NXCLQueryExecutor implements JRQueryExecuter
 
    private JRDataset dataset;
    private Map<String, ? extends JRValueParameter> parametersMap;
+   private volatile NXCLDataSource dataSource = null;
+   private NXCLDataSource connectedDataSource = null;
+   private volatile boolean cancelled = false;
 
    protected NXCLQueryExecutor(JasperReportsContext jasperReportsContext, JRDataset dataset,
          Map<String, ? extends JRValueParameter> parametersMap)
@@ -74,21 +77,29 @@ public JRDataSource createDatasource() throws JRException
          JRQueryChunk chunk = dataset.getQuery().getChunks()[0];
          dataSource.setQuery(chunk.getText().trim());
 
+         this.dataSource = dataSource;
+         if (cancelled)
+            throw new JRException("Query cancelled");
+
          Server server = ThreadLocalReportInfo.getServer();
-         String authToken = getAuthToken();
-         if (authToken != null)
-            dataSource.connect(server.getConfigurationProperty("netxms.server.hostname", "localhost"), authToken);
-         else
-            dataSource.connect(server.getConfigurationProperty("netxms.server.hostname", "localhost"),
-                  server.getConfigurationProperty("netxms.server.login", "admin"),
-                  server.getConfigurationProperty("netxms.server.password", ""));
+         dataSource.connect(server.getSessionPool(), getAuthToken(), getUserId());
+         connectedDataSource = dataSource;
 
+         if (cancelled)
+            throw new JRException("Query cancelled");
          return dataSource;
       }
       catch(Exception e)
       {
+         close();
+         if (cancelled)
+            throw new JRException("Query cancelled", e);
          log.error("Cannot load report data source", e);
       }
+      finally
+      {
+         this.dataSource = null;
+      }
       return null;
    }
 
@@ -106,12 +117,31 @@ private String getAuthToken()
       return (v instanceof String) ? (String)v : null;
    }
 
+   /**
+    * Get user ID from report parameters.
+    *
+    * @return user ID or -1 if not set
+    */
+   private int getUserId()
+   {
+      JRValueParameter p = parametersMap.get(ReportManager.USER_ID_KEY);
+      if (p == null)
+         return -1;
+      Object v = p.getValue();
+      return (v instanceof Integer) ? (Integer)v : -1;
+   }
+
    /**
     * @see net.sf.jasperreports.engine.query.JRQueryExecuter#close()
     */
    @Override
    public void close()
    {
+      if (connectedDataSource != null)
+      {
+         connectedDataSource.disconnect(); // Return client session to the pool
+         connectedDataSource = null;
+      }
    }
 
    /**
@@ -120,7 +150,11 @@ public void close()
    @Override
    public boolean cancelQuery() throws JRException
    {
-      log.warn("Query cancellation requested");
-      return false;
+      log.debug("Query cancellation requested");
+      cancelled = true;
+      NXCLDataSource currentDataSource = dataSource;
+      if (currentDataSource != null)
+         currentDataSource.abort(); // Data is loaded synchronously on connect, so disconnect will interrupt loading
+      return true;
    }
 }
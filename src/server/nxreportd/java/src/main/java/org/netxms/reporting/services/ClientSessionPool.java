@@ -0,0 +1,510 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2023 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.reporting.services;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import org.netxms.client.NXCSession;
+import org.netxms.client.ProtocolVersion;
+import org.netxms.client.SharedObjectModel;
+import org.netxms.reporting.Server;
+import org.netxms.reporting.ServerException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Pool of authenticated client sessions to NetXMS server used by report data sources and execution hooks. Sessions are leased
+ * for single fill and returned to the pool afterwards. Sessions authenticated with token are pooled per user, so session
+ * created for one job can be reused by subsequent jobs of same user.
+ * <p>
+ * Object cache is shared between pooled sessions: single backend session (logged in with configured server credentials)
+ * synchronizes objects once and keeps them up to date via notifications, and leased sessions are attached to shared object
+ * model, which filters objects by session user's access rights. Object view of leased session is bound to the lease, not to
+ * the thread which obtained it: code working with leased session on any thread (for example, Jasper fill threads) should
+ * hold binding returned by {@link #bindView(NXCSession)} while accessing objects.
+ */
+public class ClientSessionPool
+{
+   private static final Logger logger = LoggerFactory.getLogger(ClientSessionPool.class);
+   private static final int[] PROTOCOL_COMPONENTS = { ProtocolVersion.INDEX_FULL };
+   private static final String SYSTEM_KEY = "system";
+
+   private Server server;
+   private int maxIdleSessions;
+   private long maxIdleTime;
+   private long validationInterval;
+   private boolean sharedObjects;
+   private Map<String, Deque<PooledSession>> idleSessions = new HashMap<String, Deque<PooledSession>>();
+   private Map<NXCSession, PooledSession> leasedSessions = new HashMap<NXCSession, PooledSession>();
+   private int idleCount = 0;
+   private int generation = 0;
+   private SharedObjectModel objectModel = null;
+   private long objectModelLastCheck = 0;
+   private Object objectModelLock = new Object();
+   private long leaseCount = 0;
+   private long reuseCount = 0;
+   private long createCount = 0;
+   private long objectSyncCount = 0;
+   private boolean closed = false;
+
+   /**
+    * Pooled session
+    */
+   private static class PooledSession
+   {
+      final NXCSession session;
+      final String key;
+      final int generation;
+      long lastUsed;
+
+      PooledSession(NXCSession session, String key, int generation)
+      {
+         this.session = session;
+         this.key = key;
+         this.generation = generation;
+         this.lastUsed = System.currentTimeMillis();
+      }
+
+      void disconnect()
+      {
+         try
+         {
+            session.disconnect();
+         }
+         catch(Throwable t)
+         {
+            logger.debug("Unexpected error while disconnecting pooled session", t);
+         }
+      }
+   }
+
+   /**
+    * Create session pool. Pool settings are taken from server configuration.
+    *
+    * @param server owning server
+    */
+   public ClientSessionPool(Server server)
+   {
+      this.server = server;
+      maxIdleSessions = Integer.parseInt(server.getConfigurationProperty("nxreportd.session.pool.size", "4"));
+      maxIdleTime = Long.parseLong(server.getConfigurationProperty("nxreportd.session.pool.maxIdleTime", "900")) * 1000L;
+      validationInterval = Long.parseLong(server.getConfigurationProperty("nxreportd.session.pool.validationInterval", "60")) * 1000L;
+      sharedObjects = Boolean.parseBoolean(server.getConfigurationProperty("nxreportd.session.sharedObjects", "true"));
+      logger.info("Client session pool created (size=" + maxIdleSessions + ", sharedObjects=" + sharedObjects + ")");
+   }
+
+   /**
+    * Lease session from pool. If authentication token is given, session will be authenticated with that token, otherwise
+    * configured server credentials will be used. Leased session should be returned to the pool with release().
+    *
+    * @param token authentication token or null
+    * @param userId ID of user the token was issued for (used for matching pooled sessions, ignored if token is null)
+    * @param syncObjects true if session should have full object list
+    * @return leased session
+    * @throws ServerException if session cannot be created
+    */
+   public NXCSession lease(String token, int userId, boolean syncObjects) throws ServerException
+   {
+      String key = (token != null) ? ((userId >= 0) ? "user:" + userId : null) : SYSTEM_KEY;
+      PooledSession ps = (key != null) ? takeIdleSession(key) : null;
+      boolean reused = (ps != null);
+      if (ps == null)
+      {
+         int currentGeneration;
+         synchronized(this)
+         {
+            if (closed)
+               throw new ServerException("Client session pool is closed");
+            currentGeneration = generation;
+         }
+         ps = new PooledSession(createSession(token), key, currentGeneration);
+      }
+
+      try
+      {
+         if (syncObjects && (!ps.session.areObjectsSynchronized() || isStaleView(ps.session)))
+            synchronizeObjects(ps.session);
+      }
+      catch(Exception e)
+      {
+         ps.disconnect();
+         throw new ServerException("Cannot synchronize objects", e);
+      }
+
+      synchronized(this)
+      {
+         leasedSessions.put(ps.session, ps);
+         leaseCount++;
+         if (reused)
+            reuseCount++;
+         else
+            createCount++;
+      }
+
+      logger.debug("Client session leased (key=" + key + ", reused=" + reused + ")");
+      return ps.session;
+   }
+
+   /**
+    * Take idle session with given key from the pool. Sessions which were idle longer than validation interval are checked
+    * before being returned.
+    *
+    * @param key session key
+    * @return idle session or null
+    */
+   private PooledSession takeIdleSession(String key)
+   {
+      while(true)
+      {
+         PooledSession ps;
+         synchronized(this)
+         {
+            Deque<PooledSession> sessions = idleSessions.get(key);
+            if ((sessions == null) || sessions.isEmpty())
+               return null;
+            ps = sessions.pollFirst();
+            idleCount--;
+         }
+
+         if (ps.session.isConnected() && ((System.currentTimeMillis() - ps.lastUsed < validationInterval) || ps.session.checkConnection()))
+            return ps;
+
+         logger.debug("Pooled client session failed validation (key=" + key + ")");
+         ps.disconnect();
+      }
+   }
+
+   /**
+    * Create new session.
+    *
+    * @param token authentication token or null
+    * @return new session
+    * @throws ServerException on failure
+    */
+   private NXCSession createSession(String token) throws ServerException
+   {
+      String hostname = server.getConfigurationProperty("netxms.server.hostname", "localhost");
+      NXCSession session = new NXCSession(hostname);
+      try
+      {
+         session.connect(PROTOCOL_COMPONENTS);
+         if (token != null)
+         {
+            logger.debug("Connecting to NetXMS server " + hostname + " using authentication token");
+            session.login(token);
+         }
+         else
+         {
+            String login = server.getConfigurationProperty("netxms.server.login", "admin");
+            logger.debug("Connecting to NetXMS server " + hostname + " as " + login);
+            session.login(login, server.getConfigurationProperty("netxms.server.password", ""));
+         }
+         return session;
+      }
+      catch(Exception e)
+      {
+         try
+         {
+            session.disconnect();
+         }
+         catch(Throwable t)
+         {
+            logger.debug("Unexpected error during connect failure cleanup", t);
+         }
+         throw new ServerException("Cannot connect to NetXMS server", e);
+      }
+   }
+
+   /**
+    * Synchronize objects for given session, either by attaching it to shared object model or by requesting full object list
+    * from server.
+    *
+    * @param session client session
+    * @throws Exception on failure
+    */
+   private void synchronizeObjects(NXCSession session) throws Exception
+   {
+      SharedObjectModel model = sharedObjects ? getObjectModel() : null;
+      if (model != null)
+      {
+         model.attach(session);
+      }
+      else
+      {
+         session.syncObjects();
+         synchronized(this)
+         {
+            objectSyncCount++;
+         }
+      }
+   }
+
+   /**
+    * Check if session is attached to shared object model which was stopped since.
+    *
+    * @param session client session
+    * @return true if session is attached to stopped object model
+    */
+   private boolean isStaleView(NXCSession session)
+   {
+      SharedObjectModel model = session.getAttachedObjectModel();
+      if (model == null)
+         return false;
+      synchronized(objectModelLock)
+      {
+         return model != objectModel;
+      }
+   }
+
+   /**
+    * Get shared object model, starting it if necessary.
+    *
+    * @return shared object model or null if it cannot be started
+    */
+   private SharedObjectModel getObjectModel()
+   {
+      synchronized(objectModelLock)
+      {
+         if (objectModel != null)
+         {
+            NXCSession backend = objectModel.getBackendSession();
+            long now = System.currentTimeMillis();
+            if (now - objectModelLastCheck < validationInterval)
+               return objectModel;
+            objectModelLastCheck = now;
+            if (backend.isConnected() && backend.checkConnection())
+               return objectModel;
+            logger.warn("Backend session for shared object model lost, restarting object model");
+            stopObjectModel();
+         }
+
+         NXCSession backend = null;
+         try
+         {
+            backend = createSession(null);
+            SharedObjectModel model = new SharedObjectModel(backend);
+            model.start();
+            synchronized(this)
+            {
+               objectSyncCount++;
+            }
+            objectModel = model;
+            objectModelLastCheck = System.currentTimeMillis();
+            return model;
+         }
+         catch(Exception e)
+         {
+            logger.error("Cannot start shared object model, falling back to per-session object synchronization", e);
+            if (backend != null)
+               backend.disconnect();
+            return null;
+         }
+      }
+   }
+
+   /**
+    * Stop shared object model and disconnect backend session. Must be called with object model lock held.
+    */
+   private void stopObjectModel()
+   {
+      if (objectModel == null)
+         return;
+      objectModel.stop();
+      objectModel.getBackendSession().disconnect();
+      objectModel = null;
+   }
+
+   /**
+    * Bind object view of leased session to current thread until returned binding is closed. Lookups made by shared objects on
+    * current thread will be filtered by that session's view. Binding is only needed for sessions attached to shared object
+    * model; for other sessions, or if session is not leased from this pool, this method returns null (try-with-resources
+    * accepts null resources) and lookups by shared objects are denied.
+    *
+    * @param session leased session
+    * @return view binding or null
+    */
+   public SharedObjectModel.ViewBinding bindView(NXCSession session)
+   {
+      synchronized(this)
+      {
+         if (!leasedSessions.containsKey(session))
+         {
+            logger.debug("Attempt to bind view of client session not leased from pool");
+            return null;
+         }
+      }
+      SharedObjectModel model = session.getAttachedObjectModel();
+      if (model == null)
+         return null;
+      try
+      {
+         return model.bindView(session);
+      }
+      catch(IllegalArgumentException e)
+      {
+         logger.debug("Leased client session is not attached to shared object model anymore");
+         return null;
+      }
+   }
+
+   /**
+    * Return leased session to the pool. Session is disconnected if it is broken, pool already has enough idle sessions, or pool
+    * was reset while session was leased.
+    *
+    * @param session leased session
+    * @param reusable false if session should not be reused (for example, after communication error)
+    */
+   public void release(NXCSession session, boolean reusable)
+   {
+      PooledSession ps;
+      boolean keep;
+      synchronized(this)
+      {
+         ps = leasedSessions.remove(session);
+         if (ps == null)
+         {
+            logger.warn("Attempt to release client session not leased from pool");
+            keep = false;
+         }
+         else
+         {
+            keep = reusable && !closed && (ps.key != null) && (ps.generation == generation) && (idleCount < maxIdleSessions) && session.isConnected();
+            if (keep)
+            {
+               ps.lastUsed = System.currentTimeMillis();
+               Deque<PooledSession> queue = idleSessions.get(ps.key);
+               if (queue == null)
+               {
+                  queue = new ArrayDeque<PooledSession>();
+                  idleSessions.put(ps.key, queue);
+               }
+               queue.addFirst(ps);
+               idleCount++;
+            }
+         }
+      }
+
+      if (keep)
+      {
+         evictIdleSessions();
+      }
+      else
+      {
+         try
+         {
+            session.disconnect();
+         }
+         catch(Throwable t)
+         {
+            logger.debug("Unexpected error while disconnecting client session", t);
+         }
+      }
+   }
+
+   /**
+    * Disconnect idle sessions which exceed maximum idle time.
+    */
+   public void evictIdleSessions()
+   {
+      long now = System.currentTimeMillis();
+      List<PooledSession> evicted = new ArrayList<PooledSession>();
+      synchronized(this)
+      {
+         Iterator<Deque<PooledSession>> qit = idleSessions.values().iterator();
+         while(qit.hasNext())
+         {
+            Deque<PooledSession> queue = qit.next();
+            Iterator<PooledSession> it = queue.iterator();
+            while(it.hasNext())
+            {
+               PooledSession ps = it.next();
+               if (now - ps.lastUsed > maxIdleTime)
+               {
+                  it.remove();
+                  idleCount--;
+                  evicted.add(ps);
+               }
+            }
+            if (queue.isEmpty())
+               qit.remove();
+         }
+      }
+      for(PooledSession ps : evicted)
+         ps.disconnect();
+      if (!evicted.isEmpty())
+         logger.debug(evicted.size() + " idle client sessions evicted");
+   }
+
+   /**
+    * Disconnect all idle sessions and stop shared object model. Sessions currently leased will be disconnected when returned.
+    * Should be called when server connection configuration changes.
+    */
+   public void reset()
+   {
+      List<PooledSession> sessions = new ArrayList<PooledSession>();
+      synchronized(this)
+      {
+         generation++;
+         for(Deque<PooledSession> queue : idleSessions.values())
+            sessions.addAll(queue);
+         idleSessions.clear();
+         idleCount = 0;
+      }
+      for(PooledSession ps : sessions)
+         ps.disconnect();
+      synchronized(objectModelLock)
+      {
+         stopObjectModel();
+      }
+      logger.debug("Client session pool reset");
+   }
+
+   /**
+    * Close pool.
+    */
+   public void close()
+   {
+      synchronized(this)
+      {
+         closed = true;
+      }
+      reset();
+   }
+
+   /**
+    * Add pool statistics to given map.
+    *
+    * @param statistics map to fill
+    */
+   public synchronized void fillStatistics(Map<String, String> statistics)
+   {
+      statistics.put("session.pool.size", Integer.toString(maxIdleSessions));
+      statistics.put("session.pool.leased", Integer.toString(leasedSessions.size()));
+      statistics.put("session.pool.idle", Integer.toString(idleCount));
+      statistics.put("session.pool.leases", Long.toString(leaseCount));
+      statistics.put("session.pool.reused", Long.toString(reuseCount));
+      statistics.put("session.pool.created", Long.toString(createCount));
+      statistics.put("session.pool.objectSyncs", Long.toString(objectSyncCount));
+   }
+}
@@ -19,13 +19,19 @@
 package org.netxms.reporting.services;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Properties;
 import java.util.UUID;
 import org.netxms.base.NXCPCodes;
@@ -209,6 +215,60 @@ public void sendFileStream(final long requestId, final InputStream inputStream)
       }
    }
 
+   /**
+    * Send file to core server. File content is transferred from file channel directly to the socket, with each chunk framed
+    * as separate NXCP binary message.
+    *
+    * @param requestId request ID
+    * @param file file to send
+    * @throws IOException on I/O error
+    */
+   public void sendFile(final long requestId, final File file) throws IOException
+   {
+      try (FileChannel fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ))
+      {
+         final long size = fileChannel.size();
+         final byte[] headerBytes = new byte[NXCPMessage.HEADER_SIZE];
+         final byte[] paddingBytes = new byte[8];
+         long position = 0;
+         do
+         {
+            final int chunkSize = (int)Math.min(FILE_BUFFER_SIZE, size - position);
+            final boolean last = (position + chunkSize >= size);
+            final int paddingSize = (8 - ((chunkSize + NXCPMessage.HEADER_SIZE) % 8)) & 7;
+
+            ByteBuffer.wrap(headerBytes)
+               .putShort((short)NXCPCodes.CMD_FILE_DATA)
+               .putShort((short)(last ? (NXCPMessage.MF_BINARY | NXCPMessage.MF_END_OF_FILE) : NXCPMessage.MF_BINARY))
+               .putInt(NXCPMessage.HEADER_SIZE + chunkSize + paddingSize)
+               .putInt((int)requestId)
+               .putInt(chunkSize);
+            final ByteBuffer header = ByteBuffer.wrap(headerBytes);
+            final ByteBuffer padding = ByteBuffer.wrap(paddingBytes, 0, paddingSize);
+
+            synchronized(mutex)
+            {
+               if (socket == null)
+                  throw new IOException("Communication session closed");
+               WritableByteChannel channel = (socket.getChannel() != null) ? socket.getChannel() : Channels.newChannel(socket.getOutputStream());
+               while(header.hasRemaining())
+                  channel.write(header);
+               long transferred = 0;
+               while(transferred < chunkSize)
+               {
+                  long bytes = fileChannel.transferTo(position + transferred, chunkSize - transferred, channel);
+                  if (bytes <= 0)
+                     throw new IOException("Unexpected end of file " + file.getName());
+                  transferred += bytes;
+               }
+               while(padding.hasRemaining())
+                  channel.write(padding);
+            }
+            position += chunkSize;
+         } while(position < size);
+      }
+   }
+
    /**
     * Receiver thread for communication session
     */
@@ -241,22 +301,21 @@ private void receiverThread()
                      logger.debug("SEND: " + result.response.toString());
                   }
                   sendMessage(result.response);
-                  if (result.file != null)
+                  if (result.renderedDocument != null)
                   {
                      logger.debug("File data found, sending");
-                     FileInputStream in = null;
                      try
                      {
-                        in = new FileInputStream(result.file);
-                        sendFileStream(message.getMessageId(), in);
+                        sendFile(message.getMessageId(), result.renderedDocument.getFile());
                      }
                      catch(IOException e)
                      {
-                        logger.error("Unexpected I/O exception while sending rendered file");
+                        logger.error("Unexpected I/O exception while sending rendered file", e);
+                     }
+                     finally
+                     {
+                        server.getRenderCache().release(result.renderedDocument);
                      }
-                     if (in != null)
-                        in.close();
-                     result.file.delete();
                   }
                }
             }
@@ -284,7 +343,7 @@ private void receiverThread()
    public MessageProcessingResult processMessage(NXCPMessage request)
    {
       NXCPMessage reply = new NXCPMessage(NXCPCodes.CMD_REQUEST_COMPLETED, request.getMessageId());
-      File file = null;
+      RenderCache.Entry renderedDocument = null;
       switch(request.getMessageCode())
       {
          case NXCPCodes.CMD_ISC_CONNECT_TO_SERVICE: // ignore and reply "Ok"
@@ -313,16 +372,22 @@ public MessageProcessingResult processMessage(NXCPMessage request)
             getResults(request, reply);
             break;
          case NXCPCodes.CMD_RS_RENDER_RESULT:
-            file = renderResult(request, reply);
+            renderedDocument = renderResult(request, reply);
             break;
          case NXCPCodes.CMD_RS_DELETE_RESULT:
             deleteResult(request, reply);
             break;
+         case NXCPCodes.CMD_CANCEL_JOB:
+            cancelJob(request, reply);
+            break;
+         case NXCPCodes.CMD_GET_SERVER_STATS:
+            getServerStatistics(reply);
+            break;
          default:
             reply.setFieldInt32(NXCPCodes.VID_RCC, RCC.NOT_IMPLEMENTED);
             break;
       }
-      return new MessageProcessingResult(reply, file);
+      return new MessageProcessingResult(reply, renderedDocument);
    }
 
    /**
@@ -439,14 +504,10 @@ private void executeReport(NXCPMessage request, NXCPMessage response)
       final int userId = request.getFieldAsInt32(NXCPCodes.VID_USER_ID);
       final String idataView = request.getFieldAsString(NXCPCodes.VID_VIEW_NAME);
       final String authToken = request.getFieldAsString(NXCPCodes.VID_AUTH_TOKEN);
+      // Requests forwarded from client sessions contain report ID, requests from core server's scheduler do not
+      final boolean interactive = request.isFieldPresent(NXCPCodes.VID_REPORT_DEFINITION);
       requestObjectAccessSnapshotUpdate(userId);
-      server.executeBackgroundTask(new Runnable() {
-         @Override
-         public void run()
-         {
-            server.getReportManager().execute(userId, authToken, jobId, jobConfiguration, idataView, Locale.US);
-         }
-      });
+      server.getJobScheduler().submit(new ReportJob(jobId, userId, authToken, jobConfiguration, idataView, Locale.US, interactive));
       response.setField(NXCPCodes.VID_JOB_ID, jobId);
       response.setFieldInt32(NXCPCodes.VID_RCC, RCC.SUCCESS);
    }
@@ -468,17 +529,17 @@ private static UUID getOrCreateJobId(NXCPMessage request)
     *
     * @param request request message
     * @param response response message
-    * @return rendered document or null on failure
+    * @return rendered document (locked in render cache) or null on failure
     */
-   private File renderResult(NXCPMessage request, NXCPMessage response)
+   private RenderCache.Entry renderResult(NXCPMessage request, NXCPMessage response)
    {
       final UUID reportId = request.getFieldAsUUID(NXCPCodes.VID_REPORT_DEFINITION);
       final UUID jobId = request.getFieldAsUUID(NXCPCodes.VID_JOB_ID);
       final int formatCode = request.getFieldAsInt32(NXCPCodes.VID_RENDER_FORMAT);
       final ReportRenderFormat format = ReportRenderFormat.valueOf(formatCode);
-      File file = server.getReportManager().renderResult(reportId, jobId, format);
-      response.setFieldInt32(NXCPCodes.VID_RCC, (file != null) ? RCC.SUCCESS : RCC.IO_ERROR);
-      return file;
+      RenderCache.Entry document = server.getRenderCache().acquire(reportId, jobId, format);
+      response.setFieldInt32(NXCPCodes.VID_RCC, (document != null) ? RCC.SUCCESS : RCC.IO_ERROR);
+      return document;
    }
 
    /**
@@ -496,6 +557,34 @@ private void deleteResult(NXCPMessage request, NXCPMessage reply)
       sendNotification(SessionNotification.RS_RESULTS_MODIFIED, 0);
    }
 
+   /**
+    * Cancel queued or running reporting job.
+    *
+    * @param request request message
+    * @param reply response message
+    */
+   private void cancelJob(NXCPMessage request, NXCPMessage reply)
+   {
+      final UUID jobId = request.getFieldAsUUID(NXCPCodes.VID_JOB_ID);
+      reply.setFieldInt32(NXCPCodes.VID_RCC, ((jobId != null) && server.getJobScheduler().cancel(jobId)) ? RCC.SUCCESS : RCC.INVALID_JOB_ID);
+   }
+
+   /**
+    * Get reporting server statistics (job queue depth, report fill times, database connection pool state).
+    *
+    * @param reply response message
+    */
+   private void getServerStatistics(NXCPMessage reply)
+   {
+      final Map<String, String> statistics = new HashMap<String, String>();
+      server.getJobScheduler().fillStatistics(statistics);
+      server.getDataSource().fillStatistics(statistics);
+      server.getSessionPool().fillStatistics(statistics);
+      server.getRenderCache().fillStatistics(statistics);
+      reply.setFieldsFromStringMap(statistics, NXCPCodes.VID_ELEMENT_LIST_BASE, NXCPCodes.VID_NUM_ELEMENTS);
+      reply.setFieldInt32(NXCPCodes.VID_RCC, RCC.SUCCESS);
+   }
+
    /**
     * Send notification message
     */
@@ -528,16 +617,16 @@ public void requestObjectAccessSnapshotUpdate(int userId)
    private static class MessageProcessingResult
    {
       public NXCPMessage response;
-      public File file;
+      public RenderCache.Entry renderedDocument;
 
       /**
        * @param response
-       * @param file
+       * @param renderedDocument
        */
-      public MessageProcessingResult(NXCPMessage response, File file)
+      public MessageProcessingResult(NXCPMessage response, RenderCache.Entry renderedDocument)
       {
          this.response = response;
-         this.file = file;
+         this.renderedDocument = renderedDocument;
       }
    }
 }
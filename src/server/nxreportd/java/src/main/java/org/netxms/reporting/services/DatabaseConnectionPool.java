@@ -0,0 +1,597 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2023 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.reporting.services;
+
+import java.io.PrintWriter;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Logger;
+import javax.sql.DataSource;
+import org.netxms.reporting.Server;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Pool of database connections to NetXMS database. Number of connections (both idle and in use) is limited by configured pool
+ * size. Connections idle for longer than validation interval are checked before being handed out, and connections idle for
+ * longer than maximum idle time are closed. Closing connection obtained from pool returns it to the pool.
+ * <p>
+ * Connections handed out are tracked as leases. Leases held longer than leak threshold are logged, and connections whose
+ * handles were garbage collected without being closed are reclaimed.
+ */
+public class DatabaseConnectionPool implements DataSource
+{
+   private static final org.slf4j.Logger logger = LoggerFactory.getLogger(DatabaseConnectionPool.class);
+
+   private Server server;
+   private int size;
+   private long acquireTimeout;
+   private long validationInterval;
+   private int validationTimeout;
+   private long maxIdleTime;
+   private long leakThreshold;
+   private Semaphore permits;
+   private Deque<PooledConnection> idleConnections = new ArrayDeque<PooledConnection>();
+   private Set<Lease> leases = new HashSet<Lease>();
+   private ReferenceQueue<Connection> abandonedHandles = new ReferenceQueue<Connection>();
+   private int activeCount = 0;
+   private int generation = 0;
+   private long acquireCount = 0;
+   private long acquireWaitTime = 0;
+   private long acquireTimeoutCount = 0;
+   private long createCount = 0;
+   private long validationFailureCount = 0;
+   private long reclaimCount = 0;
+   private boolean closed = false;
+
+   /**
+    * Create connection pool. Pool settings are taken from server configuration.
+    *
+    * @param server owning server
+    */
+   public DatabaseConnectionPool(Server server)
+   {
+      this.server = server;
+      size = Integer.parseInt(server.getConfigurationProperty("nxreportd.db.pool.size", "8"));
+      acquireTimeout = Long.parseLong(server.getConfigurationProperty("nxreportd.db.pool.acquireTimeout", "120")) * 1000L;
+      validationInterval = Long.parseLong(server.getConfigurationProperty("nxreportd.db.pool.validationInterval", "30")) * 1000L;
+      validationTimeout = Integer.parseInt(server.getConfigurationProperty("nxreportd.db.pool.validationTimeout", "5"));
+      maxIdleTime = Long.parseLong(server.getConfigurationProperty("nxreportd.db.pool.maxIdleTime", "600")) * 1000L;
+      leakThreshold = Long.parseLong(server.getConfigurationProperty("nxreportd.db.pool.leakThreshold", "1800")) * 1000L;
+      permits = new Semaphore(size, true);
+      logger.info("Database connection pool created (size=" + size + ")");
+   }
+
+   /**
+    * @see javax.sql.DataSource#getConnection()
+    */
+   @Override
+   public Connection getConnection() throws SQLException
+   {
+      synchronized(this)
+      {
+         if (closed)
+            throw new SQLException("Database connection pool is closed");
+      }
+
+      reclaimAbandonedConnections();
+      checkLeases();
+
+      long startTime = System.currentTimeMillis();
+      try
+      {
+         if (!permits.tryAcquire(acquireTimeout, TimeUnit.MILLISECONDS))
+         {
+            synchronized(this)
+            {
+               acquireTimeoutCount++;
+            }
+            logLeases();
+            throw new SQLException("Timeout waiting for database connection from pool");
+         }
+      }
+      catch(InterruptedException e)
+      {
+         Thread.currentThread().interrupt();
+         throw new SQLException("Interrupted while waiting for database connection from pool", e);
+      }
+
+      try
+      {
+         PooledConnection pc = takeIdleConnection();
+         if (pc == null)
+            pc = createConnection();
+         Connection handle = pc.createHandle();
+         synchronized(this)
+         {
+            activeCount++;
+            acquireCount++;
+            acquireWaitTime += System.currentTimeMillis() - startTime;
+         }
+         return handle;
+      }
+      catch(SQLException | RuntimeException e)
+      {
+         permits.release();
+         throw e;
+      }
+   }
+
+   /**
+    * Take valid connection from idle list.
+    *
+    * @return valid idle connection or null if there are no valid idle connections
+    */
+   private PooledConnection takeIdleConnection()
+   {
+      while(true)
+      {
+         PooledConnection pc;
+         synchronized(this)
+         {
+            if (closed)
+               return null;
+            pc = idleConnections.pollFirst();
+         }
+         if (pc == null)
+            return null;
+
+         long idleTime = System.currentTimeMillis() - pc.lastUsed;
+         if (idleTime > maxIdleTime)
+         {
+            pc.closeQuietly();
+            continue;
+         }
+         if (idleTime > validationInterval)
+         {
+            boolean valid;
+            try
+            {
+               valid = pc.connection.isValid(validationTimeout);
+            }
+            catch(SQLException e)
+            {
+               valid = false;
+            }
+            if (!valid)
+            {
+               logger.debug("Pooled database connection failed validation and will be replaced");
+               synchronized(this)
+               {
+                  validationFailureCount++;
+               }
+               pc.closeQuietly();
+               continue;
+            }
+         }
+         return pc;
+      }
+   }
+
+   /**
+    * Create new physical connection.
+    *
+    * @return new pooled connection
+    * @throws SQLException if connection cannot be created
+    */
+   private PooledConnection createConnection() throws SQLException
+   {
+      Connection connection;
+      try
+      {
+         connection = server.createDatabaseConnection();
+      }
+      catch(Exception e)
+      {
+         throw new SQLException("Cannot create database connection", e);
+      }
+      synchronized(this)
+      {
+         createCount++;
+         return new PooledConnection(connection, generation);
+      }
+   }
+
+   /**
+    * Return connection to the pool.
+    *
+    * @param lease lease of pooled connection
+    */
+   private void release(Lease lease)
+   {
+      PooledConnection pc = lease.pooledConnection;
+      boolean reuse;
+      try
+      {
+         reuse = !pc.connection.isClosed();
+         if (reuse && !pc.connection.getAutoCommit())
+         {
+            pc.connection.rollback();
+            pc.connection.setAutoCommit(true);
+         }
+         if (reuse)
+            pc.connection.clearWarnings();
+      }
+      catch(SQLException e)
+      {
+         logger.debug("Database connection cannot be reset and will not be reused", e);
+         reuse = false;
+      }
+
+      synchronized(this)
+      {
+         leases.remove(lease);
+         activeCount--;
+         reuse = reuse && !closed && (pc.generation == generation);
+         if (reuse)
+         {
+            pc.lastUsed = System.currentTimeMillis();
+            idleConnections.addFirst(pc);
+         }
+      }
+      if (reuse)
+         evictIdleConnections();
+      else
+         pc.closeQuietly();
+      permits.release();
+   }
+
+   /**
+    * Reclaim connections whose handles were garbage collected without being closed.
+    */
+   private void reclaimAbandonedConnections()
+   {
+      Lease lease;
+      while((lease = (Lease)abandonedHandles.poll()) != null)
+      {
+         if (!lease.handleClosed.compareAndSet(false, true))
+            continue;
+         logger.warn("Database connection obtained by thread " + lease.threadName + " was not closed and is reclaimed by pool", lease.origin);
+         synchronized(this)
+         {
+            reclaimCount++;
+         }
+         release(lease);
+      }
+   }
+
+   /**
+    * Log leases held longer than leak threshold. Each lease is reported only once.
+    */
+   private void checkLeases()
+   {
+      if (leakThreshold <= 0)
+         return;
+
+      long now = System.currentTimeMillis();
+      List<Lease> suspected = new ArrayList<Lease>();
+      synchronized(this)
+      {
+         for(Lease lease : leases)
+         {
+            if (!lease.reported && (now - lease.leaseTime > leakThreshold))
+            {
+               lease.reported = true;
+               suspected.add(lease);
+            }
+         }
+      }
+      for(Lease lease : suspected)
+         logger.warn("Database connection obtained by thread " + lease.threadName + " is in use for " + (now - lease.leaseTime) / 1000 + " seconds (possible connection leak)", lease.origin);
+   }
+
+   /**
+    * Log all current leases.
+    */
+   private void logLeases()
+   {
+      long now = System.currentTimeMillis();
+      List<Lease> current;
+      synchronized(this)
+      {
+         current = new ArrayList<Lease>(leases);
+      }
+      logger.warn("Database connection pool exhausted, " + current.size() + " connections in use");
+      for(Lease lease : current)
+         logger.warn("Database connection obtained by thread " + lease.threadName + " is in use for " + (now - lease.leaseTime) / 1000 + " seconds", lease.origin);
+   }
+
+   /**
+    * Close all idle connections and mark connections currently in use for closing when returned. Should be called when
+    * database connection configuration changes.
+    */
+   public void reset()
+   {
+      Deque<PooledConnection> connections;
+      synchronized(this)
+      {
+         generation++;
+         connections = idleConnections;
+         idleConnections = new ArrayDeque<PooledConnection>();
+      }
+      for(PooledConnection pc : connections)
+         pc.closeQuietly();
+      logger.debug("Database connection pool reset");
+   }
+
+   /**
+    * Close pool and all idle connections. Connections currently in use will be closed when returned.
+    */
+   public void close()
+   {
+      synchronized(this)
+      {
+         closed = true;
+      }
+      reset();
+   }
+
+   /**
+    * Close idle connections which exceed maximum idle time.
+    */
+   public void evictIdleConnections()
+   {
+      long now = System.currentTimeMillis();
+      Deque<PooledConnection> evicted = new ArrayDeque<PooledConnection>();
+      synchronized(this)
+      {
+         Iterator<PooledConnection> it = idleConnections.iterator();
+         while(it.hasNext())
+         {
+            PooledConnection pc = it.next();
+            if (now - pc.lastUsed > maxIdleTime)
+            {
+               it.remove();
+               evicted.add(pc);
+            }
+         }
+      }
+      for(PooledConnection pc : evicted)
+         pc.closeQuietly();
+   }
+
+   /**
+    * Add pool statistics to given map.
+    *
+    * @param statistics map to fill
+    */
+   public synchronized void fillStatistics(Map<String, String> statistics)
+   {
+      statistics.put("db.pool.size", Integer.toString(size));
+      statistics.put("db.pool.active", Integer.toString(activeCount));
+      statistics.put("db.pool.idle", Integer.toString(idleConnections.size()));
+      statistics.put("db.pool.waiting", Integer.toString(permits.getQueueLength()));
+      statistics.put("db.pool.acquired", Long.toString(acquireCount));
+      statistics.put("db.pool.acquireTimeouts", Long.toString(acquireTimeoutCount));
+      statistics.put("db.pool.averageWaitTime", Long.toString((acquireCount > 0) ? acquireWaitTime / acquireCount : 0));
+      statistics.put("db.pool.created", Long.toString(createCount));
+      statistics.put("db.pool.validationFailures", Long.toString(validationFailureCount));
+      statistics.put("db.pool.reclaimed", Long.toString(reclaimCount));
+   }
+
+   /**
+    * @see javax.sql.DataSource#getConnection(java.lang.String, java.lang.String)
+    */
+   @Override
+   public Connection getConnection(String username, String password) throws SQLException
+   {
+      throw new SQLFeatureNotSupportedException("Connection pool does not support explicit credentials");
+   }
+
+   /**
+    * @see javax.sql.CommonDataSource#getLogWriter()
+    */
+   @Override
+   public PrintWriter getLogWriter() throws SQLException
+   {
+      return null;
+   }
+
+   /**
+    * @see javax.sql.CommonDataSource#setLogWriter(java.io.PrintWriter)
+    */
+   @Override
+   public void setLogWriter(PrintWriter out) throws SQLException
+   {
+   }
+
+   /**
+    * @see javax.sql.CommonDataSource#setLoginTimeout(int)
+    */
+   @Override
+   public void setLoginTimeout(int seconds) throws SQLException
+   {
+      acquireTimeout = seconds * 1000L;
+   }
+
+   /**
+    * @see javax.sql.CommonDataSource#getLoginTimeout()
+    */
+   @Override
+   public int getLoginTimeout() throws SQLException
+   {
+      return (int)(acquireTimeout / 1000L);
+   }
+
+   /**
+    * @see javax.sql.CommonDataSource#getParentLogger()
+    */
+   @Override
+   public Logger getParentLogger() throws SQLFeatureNotSupportedException
+   {
+      throw new SQLFeatureNotSupportedException();
+   }
+
+   /**
+    * @see java.sql.Wrapper#unwrap(java.lang.Class)
+    */
+   @Override
+   public <T> T unwrap(Class<T> iface) throws SQLException
+   {
+      if (iface.isInstance(this))
+         return iface.cast(this);
+      throw new SQLException("Not a wrapper for " + iface.getName());
+   }
+
+   /**
+    * @see java.sql.Wrapper#isWrapperFor(java.lang.Class)
+    */
+   @Override
+   public boolean isWrapperFor(Class<?> iface) throws SQLException
+   {
+      return iface.isInstance(this);
+   }
+
+   /**
+    * Physical connection managed by pool
+    */
+   private class PooledConnection
+   {
+      final Connection connection;
+      final int generation;
+      long lastUsed;
+
+      PooledConnection(Connection connection, int generation)
+      {
+         this.connection = connection;
+         this.generation = generation;
+         lastUsed = System.currentTimeMillis();
+      }
+
+      /**
+       * Create connection handle for pool client and register lease for it. Closing handle returns connection to the pool.
+       */
+      Connection createHandle()
+      {
+         HandleInvocationHandler handler = new HandleInvocationHandler(this);
+         Connection handle = (Connection)Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] { Connection.class }, handler);
+         handler.lease = new Lease(handle, this, handler.handleClosed);
+         synchronized(DatabaseConnectionPool.this)
+         {
+            leases.add(handler.lease);
+         }
+         return handle;
+      }
+
+      /**
+       * Close physical connection ignoring errors.
+       */
+      void closeQuietly()
+      {
+         try
+         {
+            connection.close();
+         }
+         catch(SQLException e)
+         {
+            logger.debug("Error closing database connection", e);
+         }
+      }
+   }
+
+   /**
+    * Invocation handler for connection handles given to pool clients
+    */
+   private class HandleInvocationHandler implements InvocationHandler
+   {
+      final PooledConnection pooledConnection;
+      final AtomicBoolean handleClosed = new AtomicBoolean(false);
+      Lease lease;
+
+      HandleInvocationHandler(PooledConnection pooledConnection)
+      {
+         this.pooledConnection = pooledConnection;
+      }
+
+      /**
+       * @see java.lang.reflect.InvocationHandler#invoke(java.lang.Object, java.lang.reflect.Method, java.lang.Object[])
+       */
+      @Override
+      public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+      {
+         Connection connection = pooledConnection.connection;
+         String name = method.getName();
+         if (name.equals("close"))
+         {
+            if (handleClosed.compareAndSet(false, true))
+               release(lease);
+            return null;
+         }
+         if (name.equals("isClosed"))
+            return handleClosed.get() || connection.isClosed();
+         if (name.equals("equals"))
+            return proxy == args[0];
+         if (name.equals("hashCode"))
+            return System.identityHashCode(proxy);
+         if (name.equals("toString"))
+            return "PooledConnection[" + connection + "]";
+         if (handleClosed.get())
+            throw new SQLException("Connection is closed");
+         try
+         {
+            return method.invoke(connection, args);
+         }
+         catch(InvocationTargetException e)
+         {
+            throw e.getCause();
+         }
+      }
+   }
+
+   /**
+    * Lease of pooled connection. Refers to connection handle weakly, so it is enqueued for reclaiming when handle is garbage
+    * collected without being closed.
+    */
+   private class Lease extends WeakReference<Connection>
+   {
+      final PooledConnection pooledConnection;
+      final AtomicBoolean handleClosed;
+      final long leaseTime;
+      final String threadName;
+      final Throwable origin;
+      boolean reported = false;
+
+      Lease(Connection handle, PooledConnection pooledConnection, AtomicBoolean handleClosed)
+      {
+         super(handle, abandonedHandles);
+         this.pooledConnection = pooledConnection;
+         this.handleClosed = handleClosed;
+         leaseTime = System.currentTimeMillis();
+         threadName = Thread.currentThread().getName();
+         origin = logger.isDebugEnabled() ? new Throwable("Connection obtained here") : null;
+      }
+   }
+}
@@ -0,0 +1,539 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2023 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.reporting.services;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.netxms.client.reporting.ReportRenderFormat;
+import org.netxms.reporting.Server;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Cache for rendered report results. Rendered documents are kept on disk in cache directory and identified by job ID and render
+ * format. Each document is rendered only once - concurrent requests for same document wait for single rendering. Cache size
+ * and age of cached documents are limited, least recently used documents are evicted first. Documents currently in use are
+ * never deleted.
+ */
+public class RenderCache
+{
+   private static final Logger logger = LoggerFactory.getLogger(RenderCache.class);
+   private static final String TEMP_FILE_SUFFIX = ".tmp";
+
+   private Server server;
+   private File directory;
+   private long maxSize;
+   private long maxAge;
+   private Set<ReportRenderFormat> prerenderFormats = EnumSet.noneOf(ReportRenderFormat.class);
+   private ThreadPoolExecutor executor;
+   private LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(64, 0.75f, true);
+   private Map<String, FutureTask<Entry>> pendingRenders = new HashMap<String, FutureTask<Entry>>();
+   private long totalSize = 0;
+   private long hits = 0;
+   private long misses = 0;
+   private long renders = 0;
+   private long renderFailures = 0;
+   private long totalRenderTime = 0;
+   private long evictions = 0;
+
+   /**
+    * Cached rendered document. Entry obtained from cache should be released after use.
+    */
+   public static class Entry
+   {
+      private final String key;
+      private final UUID jobId;
+      private final ReportRenderFormat format;
+      private final File file;
+      private final long size;
+      private final long createTime;
+      private int refCount = 0;
+      private boolean removed = false;
+
+      /**
+       * Create new entry.
+       */
+      private Entry(String key, UUID jobId, ReportRenderFormat format, File file, long createTime)
+      {
+         this.key = key;
+         this.jobId = jobId;
+         this.format = format;
+         this.file = file;
+         this.size = file.length();
+         this.createTime = createTime;
+      }
+
+      /**
+       * Get file with rendered document.
+       *
+       * @return file with rendered document
+       */
+      public File getFile()
+      {
+         return file;
+      }
+
+      /**
+       * Get render format.
+       *
+       * @return render format
+       */
+      public ReportRenderFormat getFormat()
+      {
+         return format;
+      }
+
+      /**
+       * Get size of rendered document.
+       *
+       * @return size of rendered document in bytes
+       */
+      public long getSize()
+      {
+         return size;
+      }
+   }
+
+   /**
+    * Create render cache. Cache settings are taken from server configuration. Documents left in cache directory from previous
+    * run are re-used.
+    *
+    * @param server owning server
+    * @param directory cache directory
+    */
+   public RenderCache(Server server, File directory)
+   {
+      this.server = server;
+      this.directory = directory;
+      maxSize = Long.parseLong(server.getConfigurationProperty("nxreportd.renderCache.maxSize", "1024")) * 1024L * 1024L;
+      maxAge = Long.parseLong(server.getConfigurationProperty("nxreportd.renderCache.maxAge", "604800")) * 1000L;
+      for(String name : server.getConfigurationProperty("nxreportd.renderCache.prerenderFormats", "").split(","))
+      {
+         name = name.trim();
+         if (name.isEmpty())
+            continue;
+         ReportRenderFormat format = formatFromExtension(name);
+         if ((format != null) && (format != ReportRenderFormat.NONE))
+            prerenderFormats.add(format);
+         else
+            logger.warn("Invalid render format \"" + name + "\" in pre-render format list");
+      }
+
+      int threads = Math.max(1, Integer.parseInt(server.getConfigurationProperty("nxreportd.renderCache.threads", "2")));
+      executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(64), new ThreadFactory() {
+         private AtomicInteger count = new AtomicInteger(0);
+
+         @Override
+         public Thread newThread(Runnable r)
+         {
+            Thread t = new Thread(r, "Render Worker " + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+         }
+      });
+      executor.allowCoreThreadTimeOut(true);
+
+      if (!directory.isDirectory() && !directory.mkdirs())
+         logger.error("Cannot create render cache directory " + directory.getAbsolutePath());
+      loadExistingEntries();
+      evict();
+      logger.info("Render cache created (" + entries.size() + " documents, " + totalSize + " bytes, maxSize=" + maxSize + ", threads=" + threads + ")");
+   }
+
+   /**
+    * Find render format by file extension.
+    *
+    * @param extension file extension
+    * @return render format or null
+    */
+   private static ReportRenderFormat formatFromExtension(String extension)
+   {
+      for(ReportRenderFormat f : ReportRenderFormat.values())
+         if (f.getExtension().equalsIgnoreCase(extension))
+            return f;
+      return null;
+   }
+
+   /**
+    * Build cache key.
+    *
+    * @param jobId job ID
+    * @param format render format
+    * @return cache key (also used as file name)
+    */
+   private static String buildKey(UUID jobId, ReportRenderFormat format)
+   {
+      return jobId.toString() + "." + format.getExtension();
+   }
+
+   /**
+    * Load entries for documents left in cache directory. Temporary files from incomplete renders are deleted.
+    */
+   private void loadExistingEntries()
+   {
+      File[] files = directory.listFiles();
+      if (files == null)
+         return;
+      for(File f : files)
+      {
+         String name = f.getName();
+         int index = name.indexOf('.');
+         ReportRenderFormat format = (index > 0) && !name.endsWith(TEMP_FILE_SUFFIX) ? formatFromExtension(name.substring(index + 1)) : null;
+         UUID jobId = null;
+         if (format != null)
+         {
+            try
+            {
+               jobId = UUID.fromString(name.substring(0, index));
+            }
+            catch(IllegalArgumentException e)
+            {
+            }
+         }
+         if (jobId == null)
+         {
+            f.delete();
+            continue;
+         }
+         Entry e = new Entry(name, jobId, format, f, f.lastModified());
+         entries.put(name, e);
+         totalSize += e.size;
+      }
+   }
+
+   /**
+    * Get rendered document, rendering it if it is not in cache yet. Rendering is done on calling thread, unless it is already
+    * in progress on another thread (in that case calling thread will wait for it to complete). Returned entry is locked in cache
+    * and should be released by calling release() when caller no longer needs it.
+    *
+    * @param reportId report ID
+    * @param jobId job ID
+    * @param format render format
+    * @return cache entry or null if document cannot be rendered
+    */
+   public Entry acquire(UUID reportId, UUID jobId, ReportRenderFormat format)
+   {
+      final String key = buildKey(jobId, format);
+      for(int attempt = 0; attempt < 3; attempt++)
+      {
+         FutureTask<Entry> task;
+         boolean owner = false;
+         synchronized(this)
+         {
+            Entry e = entries.get(key);
+            if (e != null)
+            {
+               e.refCount++;
+               hits++;
+               return e;
+            }
+            task = pendingRenders.get(key);
+            if (task == null)
+            {
+               task = createRenderTask(key, reportId, jobId, format);
+               pendingRenders.put(key, task);
+               owner = true;
+               misses++;
+            }
+         }
+
+         if (owner)
+            task.run();
+
+         Entry e;
+         try
+         {
+            e = task.get();
+         }
+         catch(InterruptedException ex)
+         {
+            Thread.currentThread().interrupt();
+            return null;
+         }
+         catch(ExecutionException ex)
+         {
+            logger.error("Unexpected exception while rendering report", ex.getCause());
+            return null;
+         }
+         if (e == null)
+            return null; // rendering failed
+
+         synchronized(this)
+         {
+            if (!e.removed)
+            {
+               e.refCount++;
+               return e;
+            }
+         }
+         // Entry was evicted before it could be locked, try again
+      }
+      return null;
+   }
+
+   /**
+    * Release cache entry obtained by acquire().
+    *
+    * @param entry cache entry
+    */
+   public void release(Entry entry)
+   {
+      boolean delete;
+      synchronized(this)
+      {
+         entry.refCount--;
+         delete = entry.removed && (entry.refCount == 0) && !entries.containsKey(entry.key); // file could be re-used by newer entry
+      }
+      if (delete)
+         entry.file.delete();
+      evict();
+   }
+
+   /**
+    * Schedule background rendering of given job's result. Job's own render format and formats configured for pre-rendering are
+    * rendered concurrently on render cache executor.
+    *
+    * @param reportId report ID
+    * @param jobId job ID
+    * @param requestedFormat render format requested by job (can be NONE)
+    */
+   public void prerender(UUID reportId, UUID jobId, ReportRenderFormat requestedFormat)
+   {
+      Set<ReportRenderFormat> formats = EnumSet.noneOf(ReportRenderFormat.class);
+      formats.addAll(prerenderFormats);
+      if (requestedFormat != ReportRenderFormat.NONE)
+         formats.add(requestedFormat);
+
+      for(ReportRenderFormat format : formats)
+      {
+         String key = buildKey(jobId, format);
+         FutureTask<Entry> task;
+         synchronized(this)
+         {
+            if (entries.containsKey(key) || pendingRenders.containsKey(key))
+               continue;
+            task = createRenderTask(key, reportId, jobId, format);
+            pendingRenders.put(key, task);
+         }
+         try
+         {
+            executor.execute(task);
+            logger.debug("Background rendering of " + key + " scheduled");
+         }
+         catch(RejectedExecutionException e)
+         {
+            logger.warn("Background rendering of " + key + " rejected (render queue is full)");
+            synchronized(this)
+            {
+               pendingRenders.remove(key);
+            }
+            task.cancel(false);
+         }
+      }
+   }
+
+   /**
+    * Create render task.
+    *
+    * @param key cache key
+    * @param reportId report ID
+    * @param jobId job ID
+    * @param format render format
+    * @return render task
+    */
+   private FutureTask<Entry> createRenderTask(final String key, final UUID reportId, final UUID jobId, final ReportRenderFormat format)
+   {
+      return new FutureTask<Entry>(new Callable<Entry>() {
+         @Override
+         public Entry call() throws Exception
+         {
+            return render(key, reportId, jobId, format);
+         }
+      });
+   }
+
+   /**
+    * Render document and add it to the cache.
+    *
+    * @param key cache key
+    * @param reportId report ID
+    * @param jobId job ID
+    * @param format render format
+    * @return new cache entry or null on failure
+    */
+   private Entry render(String key, UUID reportId, UUID jobId, ReportRenderFormat format)
+   {
+      File tempFile = new File(directory, key + "." + Thread.currentThread().getId() + TEMP_FILE_SUFFIX);
+      File file = new File(directory, key);
+      long startTime = System.currentTimeMillis();
+      Entry entry = null;
+      try
+      {
+         if (server.getReportManager().renderResult(reportId, jobId, format, tempFile))
+         {
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            entry = new Entry(key, jobId, format, file, System.currentTimeMillis());
+         }
+      }
+      catch(Exception e)
+      {
+         logger.error("Cannot store rendered document " + key + " in cache", e);
+      }
+      finally
+      {
+         if (entry == null)
+            tempFile.delete();
+      }
+
+      long elapsed = System.currentTimeMillis() - startTime;
+      synchronized(this)
+      {
+         pendingRenders.remove(key);
+         if (entry != null)
+         {
+            entries.put(key, entry);
+            totalSize += entry.size;
+            renders++;
+            totalRenderTime += elapsed;
+         }
+         else
+         {
+            renderFailures++;
+         }
+      }
+      if (entry != null)
+      {
+         logger.debug("Rendered document " + key + " added to cache (" + entry.size + " bytes, " + elapsed + " ms)");
+         evict();
+      }
+      return entry;
+   }
+
+   /**
+    * Remove all cached documents for given job.
+    *
+    * @param jobId job ID
+    */
+   public void invalidate(UUID jobId)
+   {
+      List<File> deleteList = new ArrayList<File>();
+      synchronized(this)
+      {
+         Iterator<Entry> it = entries.values().iterator();
+         while(it.hasNext())
+         {
+            Entry e = it.next();
+            if (e.jobId.equals(jobId))
+            {
+               it.remove();
+               removeEntry(e, deleteList);
+            }
+         }
+      }
+      for(File f : deleteList)
+         f.delete();
+   }
+
+   /**
+    * Mark entry as removed and update cache size. Must be called with cache lock held after entry is removed from map.
+    *
+    * @param e removed entry
+    * @param deleteList list of files to be deleted
+    */
+   private void removeEntry(Entry e, List<File> deleteList)
+   {
+      e.removed = true;
+      totalSize -= e.size;
+      if (e.refCount == 0)
+         deleteList.add(e.file);
+   }
+
+   /**
+    * Evict expired documents and least recently used documents exceeding cache size limit.
+    */
+   public void evict()
+   {
+      List<File> deleteList = new ArrayList<File>();
+      synchronized(this)
+      {
+         long now = System.currentTimeMillis();
+         Iterator<Entry> it = entries.values().iterator();
+         while(it.hasNext())
+         {
+            Entry e = it.next();
+            if ((e.refCount == 0) && ((totalSize > maxSize) || (now - e.createTime > maxAge)))
+            {
+               it.remove();
+               removeEntry(e, deleteList);
+               evictions++;
+            }
+         }
+      }
+      for(File f : deleteList)
+         f.delete();
+      if (!deleteList.isEmpty())
+         logger.debug(deleteList.size() + " documents evicted from render cache");
+   }
+
+   /**
+    * Shutdown cache. Pending background renders are cancelled.
+    */
+   public void shutdown()
+   {
+      executor.shutdownNow();
+   }
+
+   /**
+    * Add cache statistics to given map.
+    *
+    * @param statistics map to fill
+    */
+   public synchronized void fillStatistics(Map<String, String> statistics)
+   {
+      statistics.put("render.cache.documents", Integer.toString(entries.size()));
+      statistics.put("render.cache.size", Long.toString(totalSize));
+      statistics.put("render.cache.maxSize", Long.toString(maxSize));
+      statistics.put("render.cache.hits", Long.toString(hits));
+      statistics.put("render.cache.misses", Long.toString(misses));
+      statistics.put("render.cache.evictions", Long.toString(evictions));
+      statistics.put("render.pending", Integer.toString(pendingRenders.size()));
+      statistics.put("render.count", Long.toString(renders));
+      statistics.put("render.failures", Long.toString(renderFailures));
+      statistics.put("render.averageTime", Long.toString((renders > 0) ? totalRenderTime / renders : 0));
+   }
+}
@@ -0,0 +1,259 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2023 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.reporting.services;
+
+import java.util.Locale;
+import java.util.UUID;
+import org.netxms.client.reporting.ReportingJobConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.fill.ReportFiller;
+
+/**
+ * Report execution job
+ */
+public class ReportJob
+{
+   private static final Logger logger = LoggerFactory.getLogger(ReportJob.class);
+
+   private final UUID jobId;
+   private final int userId;
+   private final String authToken;
+   private final ReportingJobConfiguration configuration;
+   private final String idataView;
+   private final Locale locale;
+   private final boolean interactive;
+   private final long submitTime;
+   private volatile boolean cancelled = false;
+   private ReportFiller filler = null;
+   private long fillTime = -1;
+   private long peakHeapUsage = -1;
+   private long allocatedBytes = -1;
+
+   /**
+    * Create new report job.
+    *
+    * @param jobId job GUID
+    * @param userId user ID
+    * @param authToken authentication token for NetXMS server or null
+    * @param configuration reporting job configuration
+    * @param idataView name of database view for idata tables access or null if not provided
+    * @param locale locale for translation
+    * @param interactive true if job was requested by user (false for scheduled jobs)
+    */
+   public ReportJob(UUID jobId, int userId, String authToken, ReportingJobConfiguration configuration, String idataView, Locale locale, boolean interactive)
+   {
+      this.jobId = jobId;
+      this.userId = userId;
+      this.authToken = authToken;
+      this.configuration = configuration;
+      this.idataView = idataView;
+      this.locale = locale;
+      this.interactive = interactive;
+      this.submitTime = System.currentTimeMillis();
+   }
+
+   /**
+    * Request job cancellation. Queued job will not be started, and report fill for running job will be cancelled (which in
+    * turn cancels running queries).
+    */
+   public void cancel()
+   {
+      ReportFiller currentFiller;
+      synchronized(this)
+      {
+         cancelled = true;
+         currentFiller = filler;
+      }
+      if (currentFiller != null)
+         cancelFill(currentFiller);
+   }
+
+   /**
+    * Cancel report fill.
+    *
+    * @param f report filler
+    */
+   private void cancelFill(ReportFiller f)
+   {
+      try
+      {
+         f.cancelFill();
+         logger.info("Report fill cancelled (jobId=" + jobId + ")");
+      }
+      catch(JRException e)
+      {
+         logger.warn("Cannot cancel report fill (jobId=" + jobId + ")", e);
+      }
+   }
+
+   /**
+    * Set report filler for running job (null when fill is complete). If job is already cancelled, fill will be cancelled
+    * immediately.
+    *
+    * @param filler report filler or null
+    */
+   void setFiller(ReportFiller filler)
+   {
+      boolean cancelNow;
+      synchronized(this)
+      {
+         this.filler = filler;
+         cancelNow = cancelled && (filler != null);
+      }
+      if (cancelNow)
+         cancelFill(filler);
+   }
+
+   /**
+    * Check if job was cancelled.
+    *
+    * @return true if job was cancelled
+    */
+   public boolean isCancelled()
+   {
+      return cancelled;
+   }
+
+   /**
+    * @return the jobId
+    */
+   public UUID getJobId()
+   {
+      return jobId;
+   }
+
+   /**
+    * @return the userId
+    */
+   public int getUserId()
+   {
+      return userId;
+   }
+
+   /**
+    * @return the authToken
+    */
+   public String getAuthToken()
+   {
+      return authToken;
+   }
+
+   /**
+    * @return the configuration
+    */
+   public ReportingJobConfiguration getConfiguration()
+   {
+      return configuration;
+   }
+
+   /**
+    * @return the idataView
+    */
+   public String getIdataView()
+   {
+      return idataView;
+   }
+
+   /**
+    * @return the locale
+    */
+   public Locale getLocale()
+   {
+      return locale;
+   }
+
+   /**
+    * @return true if job was requested by user
+    */
+   public boolean isInteractive()
+   {
+      return interactive;
+   }
+
+   /**
+    * @return job submission time (milliseconds since epoch)
+    */
+   public long getSubmitTime()
+   {
+      return submitTime;
+   }
+
+   /**
+    * Get report fill time.
+    *
+    * @return report fill time in milliseconds or -1 if report was not filled
+    */
+   public synchronized long getFillTime()
+   {
+      return fillTime;
+   }
+
+   /**
+    * Set report fill time.
+    *
+    * @param fillTime report fill time in milliseconds
+    */
+   synchronized void setFillTime(long fillTime)
+   {
+      this.fillTime = fillTime;
+   }
+
+   /**
+    * Get peak heap usage observed while report was filled and saved. Heap usage is measured for whole process.
+    *
+    * @return peak heap usage in bytes or -1 if not measured
+    */
+   public synchronized long getPeakHeapUsage()
+   {
+      return peakHeapUsage;
+   }
+
+   /**
+    * Get number of bytes allocated by job thread while report was filled and saved.
+    *
+    * @return number of allocated bytes or -1 if not available
+    */
+   public synchronized long getAllocatedBytes()
+   {
+      return allocatedBytes;
+   }
+
+   /**
+    * Set memory usage information.
+    *
+    * @param peakHeapUsage peak heap usage in bytes
+    * @param allocatedBytes number of bytes allocated by job thread or -1 if not available
+    */
+   synchronized void setMemoryUsage(long peakHeapUsage, long allocatedBytes)
+   {
+      this.peakHeapUsage = peakHeapUsage;
+      this.allocatedBytes = allocatedBytes;
+   }
+
+   /**
+    * @see java.lang.Object#toString()
+    */
+   @Override
+   public String toString()
+   {
+      return "ReportJob [jobId=" + jobId + ", reportId=" + configuration.reportId + ", userId=" + userId + ", interactive=" + interactive + "]";
+   }
+}
@@ -0,0 +1,324 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2023 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.reporting.services;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
+import org.netxms.client.SessionNotification;
+import org.netxms.client.reporting.ReportResult;
+import org.netxms.reporting.Server;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Scheduler for report execution jobs. Jobs are queued and executed on server's background thread pool with separate
+ * concurrency limits for interactive (requested by user) and scheduled jobs. Interactive jobs are always dispatched before
+ * scheduled ones.
+ */
+public class ReportJobScheduler
+{
+   private static final Logger logger = LoggerFactory.getLogger(ReportJobScheduler.class);
+
+   private Server server;
+   private int maxInteractiveJobs;
+   private int maxScheduledJobs;
+   private Deque<ReportJob> interactiveQueue = new ArrayDeque<ReportJob>();
+   private Deque<ReportJob> scheduledQueue = new ArrayDeque<ReportJob>();
+   private Map<UUID, ReportJob> runningJobs = new HashMap<UUID, ReportJob>();
+   private int runningInteractiveJobs = 0;
+   private int runningScheduledJobs = 0;
+   private long completedJobs = 0;
+   private long cancelledJobs = 0;
+   private long failedJobs = 0;
+   private long filledReports = 0;
+   private long totalFillTime = 0;
+   private long maxFillTime = 0;
+   private long lastFillTime = 0;
+   private long maxPeakHeapUsage = 0;
+   private long lastPeakHeapUsage = 0;
+   private long startedJobs = 0;
+   private long totalQueueTime = 0;
+
+   /**
+    * Create job scheduler. Concurrency limits are taken from server configuration.
+    *
+    * @param server owning server
+    */
+   public ReportJobScheduler(Server server)
+   {
+      this.server = server;
+      maxInteractiveJobs = Math.max(1, Integer.parseInt(server.getConfigurationProperty("nxreportd.jobs.maxInteractive", "4")));
+      maxScheduledJobs = Math.max(1, Integer.parseInt(server.getConfigurationProperty("nxreportd.jobs.maxScheduled", "2")));
+      logger.info("Report job scheduler created (maxInteractive=" + maxInteractiveJobs + ", maxScheduled=" + maxScheduledJobs + ")");
+   }
+
+   /**
+    * Submit job for execution.
+    *
+    * @param job job to execute
+    */
+   public void submit(ReportJob job)
+   {
+      synchronized(this)
+      {
+         if (job.isInteractive())
+            interactiveQueue.addLast(job);
+         else
+            scheduledQueue.addLast(job);
+         logger.debug("Job queued: " + job + " (queue depth: interactive=" + interactiveQueue.size() + ", scheduled=" + scheduledQueue.size() + ")");
+      }
+      dispatch();
+   }
+
+   /**
+    * Cancel job. Queued job is removed from queue, running job is cancelled cooperatively.
+    *
+    * @param jobId job ID
+    * @return true if job was found
+    */
+   public boolean cancel(UUID jobId)
+   {
+      ReportJob job = null;
+      boolean queued = false;
+      synchronized(this)
+      {
+         job = removeFromQueue(interactiveQueue, jobId);
+         if (job == null)
+            job = removeFromQueue(scheduledQueue, jobId);
+         if (job != null)
+         {
+            queued = true;
+            cancelledJobs++;
+         }
+         else
+         {
+            job = runningJobs.get(jobId);
+         }
+      }
+      if (job == null)
+         return false;
+
+      logger.info("Cancelling " + (queued ? "queued" : "running") + " job " + job);
+      job.cancel();
+      if (queued)
+      {
+         server.getReportManager().saveResult(new ReportResult(jobId, job.getConfiguration().reportId, new Date(), job.getUserId(), false));
+         server.getCommunicationManager().sendNotification(SessionNotification.RS_RESULTS_MODIFIED, 0);
+      }
+      return true;
+   }
+
+   /**
+    * Cancel all queued and running jobs (used on shutdown). Results are not saved for jobs which were not started.
+    */
+   public void cancelAll()
+   {
+      List<ReportJob> jobs;
+      synchronized(this)
+      {
+         cancelledJobs += interactiveQueue.size() + scheduledQueue.size();
+         interactiveQueue.clear();
+         scheduledQueue.clear();
+         jobs = new ArrayList<ReportJob>(runningJobs.values());
+      }
+      for(ReportJob job : jobs)
+         job.cancel();
+   }
+
+   /**
+    * Remove job with given ID from queue.
+    *
+    * @param queue queue
+    * @param jobId job ID
+    * @return removed job or null
+    */
+   private static ReportJob removeFromQueue(Deque<ReportJob> queue, UUID jobId)
+   {
+      Iterator<ReportJob> it = queue.iterator();
+      while(it.hasNext())
+      {
+         ReportJob job = it.next();
+         if (job.getJobId().equals(jobId))
+         {
+            it.remove();
+            return job;
+         }
+      }
+      return null;
+   }
+
+   /**
+    * Start queued jobs while there are free execution slots.
+    */
+   private void dispatch()
+   {
+      while(true)
+      {
+         final ReportJob job;
+         synchronized(this)
+         {
+            if (!interactiveQueue.isEmpty() && (runningInteractiveJobs < maxInteractiveJobs))
+            {
+               job = interactiveQueue.pollFirst();
+               runningInteractiveJobs++;
+            }
+            else if (!scheduledQueue.isEmpty() && (runningScheduledJobs < maxScheduledJobs))
+            {
+               job = scheduledQueue.pollFirst();
+               runningScheduledJobs++;
+            }
+            else
+            {
+               return;
+            }
+            runningJobs.put(job.getJobId(), job);
+            startedJobs++;
+            totalQueueTime += System.currentTimeMillis() - job.getSubmitTime();
+         }
+
+         try
+         {
+            server.executeBackgroundTask(new Runnable() {
+               @Override
+               public void run()
+               {
+                  runJob(job);
+               }
+            });
+         }
+         catch(RejectedExecutionException e)
+         {
+            // Thread pool is saturated or shutting down, remaining jobs will be dispatched when running job completes
+            logger.error("Cannot start job " + job + " (background task rejected)", e);
+            onJobRejected(job);
+            server.getReportManager().saveResult(new ReportResult(job.getJobId(), job.getConfiguration().reportId, new Date(), job.getUserId(), false));
+            server.getCommunicationManager().sendNotification(SessionNotification.RS_RESULTS_MODIFIED, 0);
+            return;
+         }
+      }
+   }
+
+   /**
+    * Update scheduler state after job was rejected by background thread pool.
+    *
+    * @param job rejected job
+    */
+   private synchronized void onJobRejected(ReportJob job)
+   {
+      runningJobs.remove(job.getJobId());
+      if (job.isInteractive())
+         runningInteractiveJobs--;
+      else
+         runningScheduledJobs--;
+      failedJobs++;
+   }
+
+   /**
+    * Run job on background thread.
+    *
+    * @param job job to run
+    */
+   private void runJob(ReportJob job)
+   {
+      try
+      {
+         if (!job.isCancelled())
+            server.getReportManager().execute(job);
+      }
+      catch(Throwable t)
+      {
+         logger.error("Unhandled exception in report job " + job, t);
+      }
+      finally
+      {
+         onJobCompleted(job);
+         dispatch();
+      }
+   }
+
+   /**
+    * Update scheduler state after job completion.
+    *
+    * @param job completed job
+    */
+   private synchronized void onJobCompleted(ReportJob job)
+   {
+      runningJobs.remove(job.getJobId());
+      if (job.isInteractive())
+         runningInteractiveJobs--;
+      else
+         runningScheduledJobs--;
+
+      if (job.isCancelled())
+         cancelledJobs++;
+      else
+         completedJobs++;
+
+      long fillTime = job.getFillTime();
+      if (fillTime >= 0)
+      {
+         filledReports++;
+         totalFillTime += fillTime;
+         lastFillTime = fillTime;
+         if (fillTime > maxFillTime)
+            maxFillTime = fillTime;
+      }
+
+      long peakHeapUsage = job.getPeakHeapUsage();
+      if (peakHeapUsage >= 0)
+      {
+         lastPeakHeapUsage = peakHeapUsage;
+         if (peakHeapUsage > maxPeakHeapUsage)
+            maxPeakHeapUsage = peakHeapUsage;
+      }
+   }
+
+   /**
+    * Add scheduler statistics to given map.
+    *
+    * @param statistics map to fill
+    */
+   public synchronized void fillStatistics(Map<String, String> statistics)
+   {
+      statistics.put("jobs.interactive.queued", Integer.toString(interactiveQueue.size()));
+      statistics.put("jobs.interactive.running", Integer.toString(runningInteractiveJobs));
+      statistics.put("jobs.interactive.limit", Integer.toString(maxInteractiveJobs));
+      statistics.put("jobs.scheduled.queued", Integer.toString(scheduledQueue.size()));
+      statistics.put("jobs.scheduled.running", Integer.toString(runningScheduledJobs));
+      statistics.put("jobs.scheduled.limit", Integer.toString(maxScheduledJobs));
+      statistics.put("jobs.completed", Long.toString(completedJobs));
+      statistics.put("jobs.cancelled", Long.toString(cancelledJobs));
+      statistics.put("jobs.failed", Long.toString(failedJobs));
+      statistics.put("jobs.averageQueueTime", Long.toString((startedJobs > 0) ? totalQueueTime / startedJobs : 0));
+      statistics.put("fill.count", Long.toString(filledReports));
+      statistics.put("fill.averageTime", Long.toString((filledReports > 0) ? totalFillTime / filledReports : 0));
+      statistics.put("fill.maxTime", Long.toString(maxFillTime));
+      statistics.put("fill.lastTime", Long.toString(lastFillTime));
+      statistics.put("fill.maxPeakHeap", Long.toString(maxPeakHeapUsage));
+      statistics.put("fill.lastPeakHeap", Long.toString(lastPeakHeapUsage));
+   }
+}
@@ -50,6 +50,7 @@
 import java.util.jar.Manifest;
 import org.apache.commons.io.FileUtils;
 import org.netxms.client.SessionNotification;
+import org.netxms.client.SharedObjectModel;
 import org.netxms.client.reporting.ReportRenderFormat;
 import org.netxms.client.reporting.ReportResult;
 import org.netxms.client.reporting.ReportingJobConfiguration;
@@ -62,19 +63,25 @@
 import org.netxms.reporting.model.ReportDefinition;
 import org.netxms.reporting.tools.DatabaseTools;
 import org.netxms.reporting.tools.DateParameterParser;
+import org.netxms.reporting.tools.MemoryUsageMonitor;
 import org.netxms.reporting.tools.ThreadLocalReportInfo;
+import org.netxms.reporting.tools.VirtualizerFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import net.sf.jasperreports.engine.DefaultJasperReportsContext;
 import net.sf.jasperreports.engine.JRException;
 import net.sf.jasperreports.engine.JRParameter;
 import net.sf.jasperreports.engine.JasperCompileManager;
-import net.sf.jasperreports.engine.JasperFillManager;
+import net.sf.jasperreports.engine.JasperPrint;
 import net.sf.jasperreports.engine.JasperReport;
 import net.sf.jasperreports.engine.export.JRPdfExporter;
 import net.sf.jasperreports.engine.export.ooxml.JRXlsxExporter;
+import net.sf.jasperreports.engine.fill.JRAbstractLRUVirtualizer;
+import net.sf.jasperreports.engine.fill.JRFiller;
+import net.sf.jasperreports.engine.fill.ReportFiller;
 import net.sf.jasperreports.engine.query.QueryExecuterFactory;
 import net.sf.jasperreports.engine.util.JRLoader;
+import net.sf.jasperreports.engine.util.JRSaver;
 import net.sf.jasperreports.export.SimpleExporterInput;
 import net.sf.jasperreports.export.SimpleOutputStreamExporterOutput;
 import net.sf.jasperreports.export.SimpleXlsxReportConfiguration;
@@ -90,6 +97,7 @@
    public static final String USER_ID_KEY = "SYS_USER_ID";
 
    private static final String DEFINITIONS_DIRECTORY = "definitions";
+   private static final String RENDER_CACHE_DIRECTORY = "render-cache";
    private static final String FILE_SUFFIX_DEFINITION = ".jrxml";
    private static final String FILE_SUFFIX_COMPILED = ".jasper";
    private static final String FILE_SUFFIX_FILLED = ".jrprint";
@@ -101,6 +109,8 @@
 
    private Server server;
    private String workspace;
+   private String virtualizerMode;
+   private int virtualizerMaxPages;
    private Map<UUID, String> reportMap;
    private Map<UUID, AbstractBackgroundWorker> backgroundWorkers;
 
@@ -113,6 +123,8 @@ public ReportManager(Server server)
    {
       this.server = server;
       workspace = server.getConfigurationProperty("nxreportd.workspace", "");
+      virtualizerMode = server.getConfigurationProperty("nxreportd.fill.virtualizer", VirtualizerFactory.MODE_SWAP);
+      virtualizerMaxPages = Math.max(2, Integer.parseInt(server.getConfigurationProperty("nxreportd.fill.virtualizer.maxPages", "100")));
       reportMap = new HashMap<>();
       backgroundWorkers = new HashMap<>();
    }
@@ -446,7 +458,7 @@ public boolean accept(File dir, String name)
       if (list.length > 0)
       {
          Arrays.sort(list);
-         try (Connection dbConnection = server.createDatabaseConnection())
+         try (Connection dbConnection = server.getDataSource().getConnection())
          {
             for(String fileName : list)
             {
@@ -479,6 +491,16 @@ public File getDefinitionsDirectory()
       return new File(workspace, DEFINITIONS_DIRECTORY);
    }
 
+   /**
+    * Get directory for render cache
+    *
+    * @return directory for render cache
+    */
+   public File getRenderCacheDirectory()
+   {
+      return new File(workspace, RENDER_CACHE_DIRECTORY);
+   }
+
    /**
     * Get directory for report with given GUID.
     *
@@ -517,16 +539,19 @@ private File getOutputDirectory(UUID reportId)
    }
 
    /**
-    * Execute report.
+    * Execute report. Called by job scheduler on background thread.
     *
-    * @param userId user ID
-    * @param jobId job GUID
-    * @param jobConfiguration reporting job configuration
-    * @param idataView name of database view for idata tables access or null if not provided
-    * @param locale locale for translation
+    * @param job report execution job
     */
-   public void execute(int userId, String authToken, UUID jobId, ReportingJobConfiguration jobConfiguration, String idataView, Locale locale)
+   public void execute(ReportJob job)
    {
+      final int userId = job.getUserId();
+      final String authToken = job.getAuthToken();
+      final UUID jobId = job.getJobId();
+      final ReportingJobConfiguration jobConfiguration = job.getConfiguration();
+      final String idataView = job.getIdataView();
+      final Locale locale = job.getLocale();
+
       final JasperReport report = loadReport(jobConfiguration.reportId);
       if (report == null)
       {
@@ -563,10 +588,11 @@ public void execute(int userId, String authToken, UUID jobId, ReportingJobConfig
       ThreadLocalReportInfo.setServer(server);
 
       Connection dbConnection = null;
+      JRAbstractLRUVirtualizer virtualizer = null;
       final String outputFile = new File(getOutputDirectory(jobConfiguration.reportId), jobId.toString() + FILE_SUFFIX_FILLED).getPath();
       try
       {
-         dbConnection = server.createDatabaseConnection();
+         dbConnection = server.getDataSource().getConnection();
 
          if (reportDefinition.isResponsibleUsersViewRequired())
          {
@@ -582,17 +608,51 @@ public void execute(int userId, String authToken, UUID jobId, ReportingJobConfig
 
          DefaultJasperReportsContext reportsContext = DefaultJasperReportsContext.getInstance();
          reportsContext.setProperty(QueryExecuterFactory.QUERY_EXECUTER_FACTORY_PREFIX + "nxcl", "org.netxms.reporting.nxcl.NXCLQueryExecutorFactory");
-         final JasperFillManager manager = JasperFillManager.getInstance(reportsContext);
-         manager.fillToFile(report, outputFile, localParameters, dbConnection);
+         virtualizer = createVirtualizer();
+         if (virtualizer != null)
+            localParameters.put(JRParameter.REPORT_VIRTUALIZER, virtualizer);
+         final ReportFiller filler = JRFiller.createReportFiller(reportsContext, report);
+         final MemoryUsageMonitor memoryMonitor = MemoryUsageMonitor.start();
+         try
+         {
+            final JasperPrint print;
+            long fillStartTime = System.currentTimeMillis();
+            job.setFiller(filler);
+            try
+            {
+               print = filler.fill(localParameters, dbConnection);
+            }
+            finally
+            {
+               job.setFiller(null);
+            }
+            job.setFillTime(System.currentTimeMillis() - fillStartTime);
+            if (job.isCancelled())
+               throw new ServerException("Report execution cancelled");
+            if (virtualizer != null)
+               virtualizer.setReadOnly(true);
+            JRSaver.saveObject(print, outputFile);
+            logger.debug("Report " + jobConfiguration.reportId + " filled (jobId=" + jobId + ", pages=" + print.getPages().size() + ", fillTime=" + job.getFillTime() + " ms)");
+         }
+         finally
+         {
+            memoryMonitor.close();
+            job.setMemoryUsage(memoryMonitor.getPeakHeapUsage(), memoryMonitor.getAllocatedBytes());
+         }
 
          saveResult(new ReportResult(jobId, jobConfiguration.reportId, new Date(), userId, true));
+         if (!job.isInteractive())
+            server.getRenderCache().prerender(jobConfiguration.reportId, jobId, jobConfiguration.renderFormat);
          sendMailNotifications(jobConfiguration.reportId, report.getName(), jobId, jobConfiguration.renderFormat, jobConfiguration.emailRecipients);
 
          executeHook("CleanupHook", subrepoDirectory, localParameters, dbConnection, authToken);
       }
       catch(Throwable e)
       {
-         logger.error("Error executing report " + jobConfiguration.reportId + " " + report.getName(), e);
+         if (job.isCancelled())
+            logger.info("Execution of report " + jobConfiguration.reportId + " " + report.getName() + " cancelled (jobId=" + jobId + ")");
+         else
+            logger.error("Error executing report " + jobConfiguration.reportId + " " + report.getName(), e);
          try
          {
             saveResult(new ReportResult(jobId, jobConfiguration.reportId, new Date(), userId, false));
@@ -604,6 +664,8 @@ public void execute(int userId, String authToken, UUID jobId, ReportingJobConfig
       }
       finally
       {
+         if (virtualizer != null)
+            virtualizer.cleanup();
          if (dbConnection != null)
          {
             dropDataView(dbConnection, idataView);
@@ -619,7 +681,19 @@ public void execute(int userId, String authToken, UUID jobId, ReportingJobConfig
          }
       }
       server.getCommunicationManager().sendNotification(SessionNotification.RS_RESULTS_MODIFIED, 0);
-      logger.info("Report execution completed (reportId=" + jobConfiguration.reportId + ", jobId=" + jobId + ")");
+      logger.info("Report execution completed (reportId=" + jobConfiguration.reportId + ", jobId=" + jobId + ", peakHeapUsage=" + job.getPeakHeapUsage() +
+            ", allocatedBytes=" + job.getAllocatedBytes() + ")");
+   }
+
+   /**
+    * Create report virtualizer according to server configuration.
+    *
+    * @return new virtualizer or null if virtualization is disabled
+    * @throws IOException if swap directory cannot be created
+    */
+   private JRAbstractLRUVirtualizer createVirtualizer() throws IOException
+   {
+      return VirtualizerFactory.create(virtualizerMode, virtualizerMaxPages, new File(workspace, "swap"));
    }
 
    /**
@@ -678,15 +752,18 @@ private void executeHook(Class<? extends ExecutionHook> hookClass, String report
       if (hook.isServerAccessRequired())
       {
          logger.info("Execution hook " + hookClass.getTypeName() + " requires server access");
-         if (authToken != null)
-            hook.connect(server.getConfigurationProperty("netxms.server.hostname", "localhost"), authToken);
-         else
-            hook.connect(server.getConfigurationProperty("netxms.server.hostname", "localhost"), server.getConfigurationProperty("netxms.server.login", "admin"),
-                  server.getConfigurationProperty("netxms.server.password", ""));
+         Object userId = parameters.get(USER_ID_KEY);
+         hook.connect(server.getSessionPool(), authToken, (userId instanceof Integer) ? (Integer)userId : -1);
       }
       logger.info("Running report execution hook " + hookClass.getTypeName());
-      hook.run(parameters, dbConnection);
-      hook.disconnect();
+      try (SharedObjectModel.ViewBinding binding = hook.bindView())
+      {
+         hook.run(parameters, dbConnection);
+      }
+      finally
+      {
+         hook.disconnect();
+      }
    }
    
    /**
@@ -1049,6 +1126,8 @@ public boolean accept(File dir, String name)
     */
    public boolean deleteResult(UUID reportId, UUID jobId)
    {
+      server.getRenderCache().invalidate(jobId);
+
       File reportDirectory = getOutputDirectory(reportId);
       boolean success = true;
 
@@ -1098,67 +1177,75 @@ public boolean accept(File dir, String name)
    }
 
    /**
-    * Render report result
+    * Render report result into given file. Normally rendered results should be obtained from render cache (see
+    * Server.getRenderCache()) instead of calling this method directly.
     *
     * @param reportId report ID
     * @param jobId job ID
     * @param format rendering format
-    * @return file with rendered results on success and null on failure
+    * @param outputFile output file
+    * @return true on success
     */
-   public File renderResult(UUID reportId, UUID jobId, ReportRenderFormat format)
+   public boolean renderResult(UUID reportId, UUID jobId, ReportRenderFormat format, File outputFile)
    {
-      final File outputDirectory = getOutputDirectory(reportId);
-      final File dataFile = new File(outputDirectory, jobId.toString() + FILE_SUFFIX_FILLED);
-      final File outputFile = new File(outputDirectory, jobId.toString() + "." + System.currentTimeMillis() + ".render");
+      final File dataFile = new File(getOutputDirectory(reportId), jobId.toString() + FILE_SUFFIX_FILLED);
 
+      JRAbstractLRUVirtualizer virtualizer = null;
       try
       {
+         virtualizer = createVirtualizer();
+         JasperPrint print = VirtualizerFactory.loadReport(dataFile, virtualizer);
          switch(format)
          {
             case PDF:
-               renderPDF(dataFile, outputFile);
+               renderPDF(print, outputFile);
                break;
             case XLSX:
-               renderXLSX(dataFile, outputFile, loadReport(reportId));
+               renderXLSX(print, outputFile, loadReport(reportId));
                break;
             default:
                logger.error("Unsupported rendering format " + format);
-               return null;
+               return false;
          }
-         return outputFile;
+         return true;
       }
       catch(Throwable e)
       {
          logger.error("Failed to render report", e);
          outputFile.delete();
-         return null;
+         return false;
+      }
+      finally
+      {
+         if (virtualizer != null)
+            virtualizer.cleanup();
       }
    }
 
    /**
     * Render report to PDF format.
     *
-    * @param inputFile input file
+    * @param print filled report
     * @param outputFile output file
     * @throws Exception on error
     */
-   private static void renderPDF(File inputFile, File outputFile) throws Exception
+   private static void renderPDF(JasperPrint print, File outputFile) throws Exception
    {
       JRPdfExporter exporter = new JRPdfExporter();
-      exporter.setExporterInput(new SimpleExporterInput(inputFile));
-      exporter.setExporterOutput(new SimpleOutputStreamExporterOutput(new FileOutputStream(outputFile)));
+      exporter.setExporterInput(new SimpleExporterInput(print));
+      exporter.setExporterOutput(new SimpleOutputStreamExporterOutput(outputFile));
       exporter.exportReport();
    }
 
    /**
     * Render report to XLSX format.
     *
-    * @param inputFile input file
+    * @param print filled report
     * @param outputFile output file
     * @param report report object
     * @throws Exception on error
     */
-   private static void renderXLSX(File inputFile, File outputFile, JasperReport report) throws Exception
+   private static void renderXLSX(JasperPrint print, File outputFile, JasperReport report) throws Exception
    {
       SimpleXlsxReportConfiguration configuration = new SimpleXlsxReportConfiguration();
       if (report != null)
@@ -1178,8 +1265,8 @@ private static void renderXLSX(File inputFile, File outputFile, JasperReport rep
 
       JRXlsxExporter exporter = new JRXlsxExporter();
       exporter.setConfiguration(configuration);
-      exporter.setExporterInput(new SimpleExporterInput(inputFile));
-      exporter.setExporterOutput(new SimpleOutputStreamExporterOutput(new FileOutputStream(outputFile)));
+      exporter.setExporterInput(new SimpleExporterInput(print));
+      exporter.setExporterOutput(new SimpleOutputStreamExporterOutput(outputFile));
       exporter.exportReport();
    }
 
@@ -1272,20 +1359,26 @@ private void sendMailNotifications(UUID reportId, String reportName, UUID jobId,
       String text = String.format("Report \"%s\" successfully generated on %s and can be accessed using management console.", reportName, reportDate);
 
       String fileName = null;
-      File renderResult = null;
+      RenderCache.Entry renderResult = null;
       if (renderFormat != ReportRenderFormat.NONE)
       {
-         renderResult = renderResult(reportId, jobId, renderFormat);
+         renderResult = server.getRenderCache().acquire(reportId, jobId, renderFormat);
          String time = new SimpleDateFormat("dd-MM-yyyy").format(new Date());
          fileName = String.format("%s %s.%s", reportName, time, renderFormat == ReportRenderFormat.PDF ? "pdf" : "xls");
          text += "\n\nPlease find attached copy of the report.";
       }
       text += "\n\nThis message is generated automatically by NetXMS.";
 
-      for(String r : recipients)
-         server.getSmtpSender().sendMail(r, "New report is available", text, fileName, renderResult);
-      if (renderResult != null)
-         renderResult.delete();
+      try
+      {
+         for(String r : recipients)
+            server.getSmtpSender().sendMail(r, "New report is available", text, fileName, (renderResult != null) ? renderResult.getFile() : null);
+      }
+      finally
+      {
+         if (renderResult != null)
+            server.getRenderCache().release(renderResult);
+      }
    }
 
    /**
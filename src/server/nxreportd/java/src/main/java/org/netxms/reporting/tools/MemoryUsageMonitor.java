@@ -0,0 +1,168 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2023 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.reporting.tools;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Memory usage monitor for report jobs. Tracks peak heap usage observed while monitor is active (heap is sampled by single
+ * background thread, so value includes memory used by concurrently running jobs) and number of bytes allocated by monitored
+ * thread (if supported by JVM).
+ */
+public final class MemoryUsageMonitor implements AutoCloseable
+{
+   private static final long SAMPLING_INTERVAL = 100;
+
+   private static final MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
+   private static final Set<MemoryUsageMonitor> activeMonitors = ConcurrentHashMap.newKeySet();
+   private static Thread samplerThread = null;
+
+   private final long threadId;
+   private final long startAllocatedBytes;
+   private volatile long peakHeapUsage;
+   private long allocatedBytes = -1;
+
+   /**
+    * Start monitoring memory usage for current thread.
+    *
+    * @return new monitor
+    */
+   public static MemoryUsageMonitor start()
+   {
+      MemoryUsageMonitor monitor = new MemoryUsageMonitor();
+      activeMonitors.add(monitor);
+      startSampler();
+      return monitor;
+   }
+
+   /**
+    * Start sampler thread if not started yet.
+    */
+   private static synchronized void startSampler()
+   {
+      if (samplerThread != null)
+         return;
+      samplerThread = new Thread(new Runnable() {
+         @Override
+         public void run()
+         {
+            while(true)
+            {
+               try
+               {
+                  Thread.sleep(SAMPLING_INTERVAL);
+               }
+               catch(InterruptedException e)
+               {
+                  break;
+               }
+               if (activeMonitors.isEmpty())
+                  continue;
+               long used = memoryBean.getHeapMemoryUsage().getUsed();
+               for(MemoryUsageMonitor m : activeMonitors)
+                  m.update(used);
+            }
+         }
+      }, "Memory Usage Monitor");
+      samplerThread.setDaemon(true);
+      samplerThread.start();
+   }
+
+   /**
+    * Create monitor for current thread.
+    */
+   private MemoryUsageMonitor()
+   {
+      threadId = Thread.currentThread().getId();
+      startAllocatedBytes = getThreadAllocatedBytes(threadId);
+      peakHeapUsage = memoryBean.getHeapMemoryUsage().getUsed();
+   }
+
+   /**
+    * Update peak heap usage.
+    *
+    * @param used current heap usage
+    */
+   private void update(long used)
+   {
+      if (used > peakHeapUsage)
+         peakHeapUsage = used;
+   }
+
+   /**
+    * Get number of bytes allocated by given thread.
+    *
+    * @param threadId thread ID
+    * @return number of allocated bytes or -1 if not supported
+    */
+   private static long getThreadAllocatedBytes(long threadId)
+   {
+      ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+      if (bean instanceof com.sun.management.ThreadMXBean)
+      {
+         try
+         {
+            return ((com.sun.management.ThreadMXBean)bean).getThreadAllocatedBytes(threadId);
+         }
+         catch(UnsupportedOperationException e)
+         {
+         }
+      }
+      return -1;
+   }
+
+   /**
+    * Stop monitoring. Must be called on same thread as start().
+    *
+    * @see java.lang.AutoCloseable#close()
+    */
+   @Override
+   public void close()
+   {
+      if (!activeMonitors.remove(this))
+         return;
+      update(memoryBean.getHeapMemoryUsage().getUsed());
+      long current = getThreadAllocatedBytes(threadId);
+      allocatedBytes = ((current >= 0) && (startAllocatedBytes >= 0)) ? current - startAllocatedBytes : -1;
+   }
+
+   /**
+    * Get peak heap usage observed while monitor was active.
+    *
+    * @return peak heap usage in bytes
+    */
+   public long getPeakHeapUsage()
+   {
+      return peakHeapUsage;
+   }
+
+   /**
+    * Get number of bytes allocated by monitored thread while monitor was active. Valid only after monitor is closed.
+    *
+    * @return number of allocated bytes or -1 if not available
+    */
+   public long getAllocatedBytes()
+   {
+      return allocatedBytes;
+   }
+}
@@ -0,0 +1,96 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2023 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.reporting.tools;
+
+import java.io.File;
+import java.io.IOException;
+import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.fill.JRAbstractLRUVirtualizer;
+import net.sf.jasperreports.engine.fill.JRGzipVirtualizer;
+import net.sf.jasperreports.engine.fill.JRSwapFileVirtualizer;
+import net.sf.jasperreports.engine.fill.JRVirtualizationHelper;
+import net.sf.jasperreports.engine.util.JRLoader;
+import net.sf.jasperreports.engine.util.JRSwapFile;
+
+/**
+ * Factory for report virtualizers. Virtualizer keeps only given number of report pages in memory, other pages are either
+ * written to swap file or kept in memory in compressed form.
+ */
+public final class VirtualizerFactory
+{
+   public static final String MODE_NONE = "none";
+   public static final String MODE_SWAP = "swap";
+   public static final String MODE_GZIP = "gzip";
+
+   private static final int SWAP_BLOCK_SIZE = 4096;
+   private static final int SWAP_MIN_GROW_COUNT = 256;
+
+   /**
+    * Create virtualizer.
+    *
+    * @param mode virtualization mode (none, swap, or gzip)
+    * @param maxPages maximum number of pages kept in memory in uncompressed form
+    * @param swapDirectory directory for swap files (used only in swap mode)
+    * @return new virtualizer or null if virtualization is disabled
+    * @throws IOException if swap directory cannot be created
+    */
+   public static JRAbstractLRUVirtualizer create(String mode, int maxPages, File swapDirectory) throws IOException
+   {
+      if ((mode == null) || mode.equalsIgnoreCase(MODE_NONE))
+         return null;
+      if (mode.equalsIgnoreCase(MODE_GZIP))
+         return new JRGzipVirtualizer(maxPages);
+      if (mode.equalsIgnoreCase(MODE_SWAP))
+      {
+         if (!swapDirectory.isDirectory() && !swapDirectory.mkdirs())
+            throw new IOException("Cannot create swap directory " + swapDirectory.getAbsolutePath());
+         JRSwapFile swapFile = new JRSwapFile(swapDirectory.getAbsolutePath(), SWAP_BLOCK_SIZE, SWAP_MIN_GROW_COUNT);
+         return new JRSwapFileVirtualizer(maxPages, swapFile, true);
+      }
+      throw new IllegalArgumentException("Unknown virtualization mode " + mode);
+   }
+
+   /**
+    * Load filled report from file. If virtualizer is provided, pages are virtualized while being read, so only limited
+    * number of pages is held in memory at any time.
+    *
+    * @param file file with filled report
+    * @param virtualizer virtualizer to use (can be null)
+    * @return loaded report
+    * @throws JRException on load error
+    */
+   public static JasperPrint loadReport(File file, JRAbstractLRUVirtualizer virtualizer) throws JRException
+   {
+      if (virtualizer == null)
+         return (JasperPrint)JRLoader.loadObject(file);
+
+      JRVirtualizationHelper.setThreadVirtualizer(virtualizer);
+      try
+      {
+         JasperPrint print = (JasperPrint)JRLoader.loadObject(file);
+         virtualizer.setReadOnly(true);
+         return print;
+      }
+      finally
+      {
+         JRVirtualizationHelper.clearThreadVirtualizer();
+      }
+   }
+}
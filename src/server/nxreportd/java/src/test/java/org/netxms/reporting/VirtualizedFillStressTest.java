@@ -0,0 +1,194 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2023 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.reporting;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.commons.io.FileUtils;
+import org.junit.Test;
+import org.netxms.reporting.tools.MemoryUsageMonitor;
+import org.netxms.reporting.tools.VirtualizerFactory;
+import net.sf.jasperreports.engine.JRDataSource;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRField;
+import net.sf.jasperreports.engine.JRParameter;
+import net.sf.jasperreports.engine.JasperCompileManager;
+import net.sf.jasperreports.engine.JasperFillManager;
+import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.design.JRDesignBand;
+import net.sf.jasperreports.engine.design.JRDesignExpression;
+import net.sf.jasperreports.engine.design.JRDesignField;
+import net.sf.jasperreports.engine.design.JRDesignSection;
+import net.sf.jasperreports.engine.design.JRDesignTextField;
+import net.sf.jasperreports.engine.design.JasperDesign;
+import net.sf.jasperreports.engine.export.JRPdfExporter;
+import net.sf.jasperreports.engine.fill.JRAbstractLRUVirtualizer;
+import net.sf.jasperreports.engine.util.JRSaver;
+import net.sf.jasperreports.export.SimpleExporterInput;
+import net.sf.jasperreports.export.SimpleOutputStreamExporterOutput;
+
+/**
+ * Stress test for virtualized report fill. Fills synthetic report with large number of rows using swap file virtualizer,
+ * then reloads and exports it to PDF. Test is disabled by default, run it on memory limited JVM with
+ *
+ * <pre>
+ * mvn test -Dtest=VirtualizedFillStressTest -DargLine="-Xmx256m -Dnxreportd.stressTest=true"
+ * </pre>
+ *
+ * Number of rows can be changed with system property nxreportd.stressTest.rows (default is 1000000).
+ */
+public class VirtualizedFillStressTest
+{
+   private static final int ROWS_PER_PAGE = 50;
+
+   /**
+    * Create synthetic report with one text line per data row.
+    */
+   private static JasperReport createReport() throws JRException
+   {
+      JasperDesign design = new JasperDesign();
+      design.setName("VirtualizedFillStressTest");
+      design.setPageWidth(595);
+      design.setPageHeight(20 + ROWS_PER_PAGE * 15);
+      design.setColumnWidth(555);
+      design.setLeftMargin(20);
+      design.setRightMargin(20);
+      design.setTopMargin(10);
+      design.setBottomMargin(10);
+
+      JRDesignField field = new JRDesignField();
+      field.setName("id");
+      field.setValueClass(Long.class);
+      design.addField(field);
+
+      field = new JRDesignField();
+      field.setName("name");
+      field.setValueClass(String.class);
+      design.addField(field);
+
+      JRDesignBand band = new JRDesignBand();
+      band.setHeight(15);
+      JRDesignTextField textField = new JRDesignTextField();
+      textField.setX(0);
+      textField.setY(0);
+      textField.setWidth(555);
+      textField.setHeight(15);
+      textField.setExpression(new JRDesignExpression("String.valueOf($F{id}) + \" \" + $F{name}"));
+      band.addElement(textField);
+      ((JRDesignSection)design.getDetailSection()).addBand(band);
+
+      return JasperCompileManager.compileReport(design);
+   }
+
+   /**
+    * Synthetic data source
+    */
+   private static class SyntheticDataSource implements JRDataSource
+   {
+      private final long rows;
+      private long current = -1;
+
+      SyntheticDataSource(long rows)
+      {
+         this.rows = rows;
+      }
+
+      @Override
+      public boolean next() throws JRException
+      {
+         return ++current < rows;
+      }
+
+      @Override
+      public Object getFieldValue(JRField field) throws JRException
+      {
+         if (field.getName().equals("id"))
+            return current;
+         return "Synthetic row " + Long.toHexString(current * 2654435761L);
+      }
+   }
+
+   @Test
+   public void testVirtualizedFill() throws Exception
+   {
+      assumeTrue(Boolean.getBoolean("nxreportd.stressTest"));
+      final long rows = Long.getLong("nxreportd.stressTest.rows", 1000000L);
+
+      File workDirectory = Files.createTempDirectory("nxreportd-stress").toFile();
+      try
+      {
+         JasperReport report = createReport();
+         File dataFile = new File(workDirectory, "report.jrprint");
+         File pdfFile = new File(workDirectory, "report.pdf");
+
+         int pages;
+         JRAbstractLRUVirtualizer virtualizer = VirtualizerFactory.create(VirtualizerFactory.MODE_SWAP, 100, new File(workDirectory, "swap"));
+         MemoryUsageMonitor fillMonitor = MemoryUsageMonitor.start();
+         try
+         {
+            Map<String, Object> parameters = new HashMap<String, Object>();
+            parameters.put(JRParameter.REPORT_VIRTUALIZER, virtualizer);
+            long startTime = System.currentTimeMillis();
+            JasperPrint print = JasperFillManager.fillReport(report, parameters, new SyntheticDataSource(rows));
+            virtualizer.setReadOnly(true);
+            pages = print.getPages().size();
+            JRSaver.saveObject(print, dataFile);
+            System.out.println("Fill: rows=" + rows + " pages=" + pages + " time=" + (System.currentTimeMillis() - startTime) + " ms");
+         }
+         finally
+         {
+            fillMonitor.close();
+            virtualizer.cleanup();
+         }
+         System.out.println("Fill: peakHeapUsage=" + fillMonitor.getPeakHeapUsage() + " allocatedBytes=" + fillMonitor.getAllocatedBytes());
+         assertEquals((rows + ROWS_PER_PAGE - 1) / ROWS_PER_PAGE, pages);
+
+         virtualizer = VirtualizerFactory.create(VirtualizerFactory.MODE_SWAP, 100, new File(workDirectory, "swap"));
+         MemoryUsageMonitor exportMonitor = MemoryUsageMonitor.start();
+         try
+         {
+            long startTime = System.currentTimeMillis();
+            JasperPrint print = VirtualizerFactory.loadReport(dataFile, virtualizer);
+            assertEquals(pages, print.getPages().size());
+            JRPdfExporter exporter = new JRPdfExporter();
+            exporter.setExporterInput(new SimpleExporterInput(print));
+            exporter.setExporterOutput(new SimpleOutputStreamExporterOutput(pdfFile));
+            exporter.exportReport();
+            System.out.println("Export: size=" + pdfFile.length() + " time=" + (System.currentTimeMillis() - startTime) + " ms");
+         }
+         finally
+         {
+            exportMonitor.close();
+            virtualizer.cleanup();
+         }
+         System.out.println("Export: peakHeapUsage=" + exportMonitor.getPeakHeapUsage() + " allocatedBytes=" + exportMonitor.getAllocatedBytes());
+         assertTrue(pdfFile.length() > 0);
+      }
+      finally
+      {
+         FileUtils.deleteQuietly(workDirectory);
+      }
+   }
+}
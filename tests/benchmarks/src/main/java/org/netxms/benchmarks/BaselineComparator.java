@@ -0,0 +1,254 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2023 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.benchmarks;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+/**
+ * Compares JMH results in JSON format (produced with "-rf json") against stored baseline and reports regressions.
+ * <p>
+ * Usage:
+ * <pre>
+ * java -jar target/benchmarks.jar -rf json -rff results.json
+ * java -cp target/benchmarks.jar org.netxms.benchmarks.BaselineComparator results.json baseline.json [-threshold percent]
+ * java -cp target/benchmarks.jar org.netxms.benchmarks.BaselineComparator results.json baseline.json -update
+ * </pre>
+ * Benchmark is considered regressed if its score is worse than baseline by more than given threshold (10% by default)
+ * and the difference exceeds combined error margin of both measurements. Exit code is 1 if any regression was detected,
+ * 2 on usage or I/O error, and 0 otherwise. With -update, results file replaces baseline (host specific JVM path is removed
+ * from stored results). Baseline should be recorded on otherwise idle machine with more forks and iterations than used by
+ * default, for example:
+ * <pre>
+ * java -jar target/benchmarks.jar -f 3 -wi 5 -i 10 -rf json -rff results.json
+ * </pre>
+ * <p>
+ * Maven profile "compare" runs benchmarks and compares results with baseline.json stored in module directory (build fails
+ * on regression):
+ * <pre>
+ * mvn verify -Pcompare [-Dbenchmarks.filter=regexp] [-Dbenchmarks.threshold=percent]
+ * </pre>
+ * Stored baseline is only meaningful on the machine it was recorded on; when running on different hardware, record new
+ * baseline with -update first.
+ */
+public class BaselineComparator
+{
+   /**
+    * Single benchmark result
+    */
+   private static class Result
+   {
+      String mode;
+      double score;
+      double error;
+      String unit;
+
+      /**
+       * Check if higher score is better for this result.
+       */
+      boolean isThroughput()
+      {
+         return "thrpt".equals(mode);
+      }
+   }
+
+   /**
+    * Replace baseline with given results. Host specific JVM path is removed from each result.
+    *
+    * @param resultsFile results file
+    * @param baselineFile baseline file
+    * @throws IOException on I/O error
+    */
+   private static void updateBaseline(File resultsFile, File baselineFile) throws IOException
+   {
+      JsonArray array;
+      try (Reader reader = new FileReader(resultsFile))
+      {
+         array = JsonParser.parseReader(reader).getAsJsonArray();
+      }
+      for(JsonElement e : array)
+         e.getAsJsonObject().remove("jvm");
+      try (Writer writer = new FileWriter(baselineFile))
+      {
+         new GsonBuilder().setPrettyPrinting().create().toJson(array, writer);
+         writer.write('\n');
+      }
+   }
+
+   /**
+    * Load results from JMH JSON file.
+    *
+    * @param file results file
+    * @return results indexed by benchmark name and parameters
+    * @throws IOException on I/O error
+    */
+   private static Map<String, Result> load(File file) throws IOException
+   {
+      Map<String, Result> results = new TreeMap<String, Result>();
+      try (Reader reader = new FileReader(file))
+      {
+         JsonArray array = JsonParser.parseReader(reader).getAsJsonArray();
+         for(JsonElement e : array)
+         {
+            JsonObject o = e.getAsJsonObject();
+            StringBuilder key = new StringBuilder(o.get("benchmark").getAsString());
+            JsonObject params = o.getAsJsonObject("params");
+            if (params != null)
+            {
+               Map<String, String> sortedParams = new TreeMap<String, String>();
+               for(Entry<String, JsonElement> p : params.entrySet())
+                  sortedParams.put(p.getKey(), p.getValue().getAsString());
+               key.append(sortedParams);
+            }
+
+            JsonObject metric = o.getAsJsonObject("primaryMetric");
+            Result r = new Result();
+            r.mode = o.get("mode").getAsString();
+            r.score = metric.get("score").getAsDouble();
+            JsonElement error = metric.get("scoreError");
+            r.error = ((error != null) && error.isJsonPrimitive() && error.getAsJsonPrimitive().isNumber()) ? error.getAsDouble() : 0;
+            if (Double.isNaN(r.error))
+               r.error = 0;
+            r.unit = metric.get("scoreUnit").getAsString();
+            results.put(key.toString(), r);
+         }
+      }
+      return results;
+   }
+
+   /**
+    * Compare results with baseline and print report.
+    *
+    * @param results current results
+    * @param baseline baseline results
+    * @param threshold regression threshold in percents
+    * @return number of detected regressions
+    */
+   private static int compare(Map<String, Result> results, Map<String, Result> baseline, double threshold)
+   {
+      int regressions = 0;
+      System.out.printf("%-100s %14s %14s %9s  %s%n", "Benchmark", "Baseline", "Current", "Change", "Status");
+      for(Entry<String, Result> e : results.entrySet())
+      {
+         Result current = e.getValue();
+         Result base = baseline.get(e.getKey());
+         if ((base == null) || !base.unit.equals(current.unit) || !base.mode.equals(current.mode))
+         {
+            System.out.printf("%-100s %14s %14.3f %9s  %s%n", e.getKey(), "-", current.score, "-", "NEW");
+            continue;
+         }
+
+         double change = (base.score != 0) ? (current.score - base.score) / base.score * 100.0 : 0;
+         double degradation = current.isThroughput() ? -change : change;
+         String status;
+         if ((degradation > threshold) && (Math.abs(current.score - base.score) > current.error + base.error))
+         {
+            status = "REGRESSION";
+            regressions++;
+         }
+         else if ((degradation < -threshold) && (Math.abs(current.score - base.score) > current.error + base.error))
+         {
+            status = "IMPROVED";
+         }
+         else
+         {
+            status = "OK";
+         }
+         System.out.printf("%-100s %14.3f %14.3f %+8.1f%%  %s%n", e.getKey(), base.score, current.score, change, status);
+      }
+      for(String key : baseline.keySet())
+      {
+         if (!results.containsKey(key))
+            System.out.printf("%-100s %14.3f %14s %9s  %s%n", key, baseline.get(key).score, "-", "-", "MISSING");
+      }
+      return regressions;
+   }
+
+   /**
+    * Entry point.
+    *
+    * @param args command line arguments
+    */
+   public static void main(String[] args)
+   {
+      if (args.length < 2)
+      {
+         System.err.println("Usage: BaselineComparator results.json baseline.json [-threshold percent] [-update]");
+         System.exit(2);
+      }
+
+      File resultsFile = new File(args[0]);
+      File baselineFile = new File(args[1]);
+      double threshold = 10;
+      boolean update = false;
+      for(int i = 2; i < args.length; i++)
+      {
+         if (args[i].equals("-update"))
+            update = true;
+         else if (args[i].equals("-threshold") && (i + 1 < args.length))
+            threshold = Double.parseDouble(args[++i]);
+         else
+         {
+            System.err.println("Invalid argument " + args[i]);
+            System.exit(2);
+         }
+      }
+
+      try
+      {
+         if (update)
+         {
+            load(resultsFile); // validate format
+            updateBaseline(resultsFile, baselineFile);
+            System.out.println("Baseline " + baselineFile + " updated");
+            return;
+         }
+
+         if (!baselineFile.exists())
+         {
+            System.out.println("Baseline " + baselineFile + " does not exist, use -update to create it");
+            return;
+         }
+
+         int regressions = compare(load(resultsFile), load(baselineFile), threshold);
+         if (regressions > 0)
+         {
+            System.out.println(regressions + " regression(s) detected");
+            System.exit(1);
+         }
+      }
+      catch(Exception e)
+      {
+         System.err.println("Error: " + e.getMessage());
+         System.exit(2);
+      }
+   }
+}
@@ -0,0 +1,71 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2023 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.netxms.client.NXCSession;
+import org.netxms.client.constants.DataType;
+import org.netxms.client.datacollection.DciData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parsing of DCI history data (NXCSession.parseDataRows)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DciDataBenchmark
+{
+   @Param({ "1000", "100000" })
+   public int rows;
+
+   @Param({ "INT32", "INT64", "FLOAT", "STRING" })
+   public DataType dataType;
+
+   private NXCSession session;
+   private byte[] data;
+
+   @Setup
+   public void setup() throws Exception
+   {
+      session = new NXCSession("127.0.0.1");
+      data = TestData.createDciData(rows, dataType);
+   }
+
+   @Benchmark
+   public DciData parseDataRows()
+   {
+      DciData result = new DciData(1, 1);
+      session.parseDataRows(data, result);
+      return result;
+   }
+}
@@ -0,0 +1,113 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2023 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.netxms.ui.eclipse.networkmaps.algorithms.ForceDirectedLayoutEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Force-directed network map layout engine (compiled from web UI NetworkMaps bundle sources) on generated L2-like topologies:
+ * tree of switches with attached hosts plus some redundant links. Cold start lays out graph from scratch, warm start reuses
+ * positions from previous layout with 1% of nodes being new.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ForceDirectedLayoutBenchmark
+{
+   @Param({ "1000", "5000" })
+   public int nodes;
+
+   private int[] source;
+   private int[] target;
+   private double[] x;
+   private double[] y;
+   private boolean[] known;
+
+   @Setup(Level.Trial)
+   public void setup()
+   {
+      Random random = new Random(nodes);
+      int extraLinks = nodes / 20;
+      source = new int[nodes - 1 + extraLinks];
+      target = new int[source.length];
+
+      // Every 10th node is a switch connected to random previous switch, other nodes are hosts connected to random switch
+      int switchCount = 1;
+      int[] switches = new int[nodes];
+      int e = 0;
+      for(int i = 1; i < nodes; i++)
+      {
+         source[e] = switches[random.nextInt(switchCount)];
+         target[e++] = i;
+         if (i % 10 == 0)
+            switches[switchCount++] = i;
+      }
+      for(int i = 0; i < extraLinks; i++)
+      {
+         source[e] = switches[random.nextInt(switchCount)];
+         target[e++] = switches[random.nextInt(switchCount)];
+      }
+
+      ForceDirectedLayoutEngine engine = new ForceDirectedLayoutEngine(nodes, source, target);
+      engine.run(null, 0, null);
+      x = engine.getX();
+      y = engine.getY();
+      known = new boolean[nodes];
+      for(int i = 0; i < nodes; i++)
+         known[i] = (random.nextInt(100) != 0);
+   }
+
+   @Benchmark
+   public double[] coldStart()
+   {
+      ForceDirectedLayoutEngine engine = new ForceDirectedLayoutEngine(nodes, source, target);
+      engine.run(null, 0, null);
+      return engine.getX();
+   }
+
+   @Benchmark
+   public double[] warmStart()
+   {
+      ForceDirectedLayoutEngine engine = new ForceDirectedLayoutEngine(nodes, source, target);
+      for(int i = 0; i < nodes; i++)
+      {
+         if (known[i])
+            engine.setPosition(i, x[i], y[i]);
+      }
+      engine.run(null, 0, null);
+      return engine.getX();
+   }
+}
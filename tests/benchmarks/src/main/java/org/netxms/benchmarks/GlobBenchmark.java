@@ -0,0 +1,83 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2023 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.netxms.base.Glob;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Glob matching of typical object name filters against set of object names. Score is time per single match.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GlobBenchmark
+{
+   private static final int NAMES = 1000;
+
+   @Param({ "node-510.example.com", "node-5*", "*.example.com", "*-?2*.ex*.com", "*a*b*c*d*e*" })
+   public String pattern;
+
+   private String[] names;
+
+   @Setup
+   public void setup()
+   {
+      names = new String[NAMES];
+      for(int i = 0; i < NAMES; i++)
+         names[i] = "node-" + i + ((i % 3 == 0) ? ".example.com" : ".example.org");
+   }
+
+   @Benchmark
+   @OperationsPerInvocation(NAMES)
+   public int match()
+   {
+      int count = 0;
+      for(String n : names)
+         if (Glob.match(pattern, n))
+            count++;
+      return count;
+   }
+
+   @Benchmark
+   @OperationsPerInvocation(NAMES)
+   public int matchIgnoreCase()
+   {
+      int count = 0;
+      for(String n : names)
+         if (Glob.matchIgnoreCase(pattern, n))
+            count++;
+      return count;
+   }
+}
@@ -0,0 +1,102 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2023 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.netxms.base.NXCPMessage;
+import org.netxms.client.NXCSession;
+import org.netxms.client.TestSession;
+import org.netxms.client.objects.Container;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Object construction from CMD_OBJECT messages in eager and lazy decoding modes. Each synthetic container has custom
+ * attributes, URL, access list, responsible user, poll states, geolocation and postal address set. Score is time per object;
+ * run with "-prof gc" to see allocated bytes per object.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LazyObjectDecodingBenchmark
+{
+   private static final int OBJECTS = 10000;
+
+   @Param({ "false", "true" })
+   public boolean lazy;
+
+   private NXCSession session;
+   private NXCPMessage[] messages;
+
+   @Setup(Level.Trial)
+   public void setup()
+   {
+      session = new NXCSession("127.0.0.1");
+      session.setLazyObjectDecoding(lazy);
+      messages = new NXCPMessage[OBJECTS];
+      for(int i = 0; i < OBJECTS; i++)
+         messages[i] = TestSession.createDetailedObjectMessage(i + 1);
+   }
+
+   @Benchmark
+   @OperationsPerInvocation(OBJECTS)
+   public void decode(Blackhole bh)
+   {
+      for(NXCPMessage msg : messages)
+         bh.consume(new Container(msg, session));
+   }
+
+   @Benchmark
+   @OperationsPerInvocation(OBJECTS)
+   public void decodeAndReadCustomAttribute(Blackhole bh)
+   {
+      for(NXCPMessage msg : messages)
+         bh.consume(new Container(msg, session).getCustomAttributeValue("attribute3"));
+   }
+
+   @Benchmark
+   @OperationsPerInvocation(OBJECTS)
+   public void decodeAndReadAll(Blackhole bh)
+   {
+      for(NXCPMessage msg : messages)
+      {
+         Container object = new Container(msg, session);
+         bh.consume(object.getStrings());
+         bh.consume(object.getAccessList());
+         bh.consume(object.getResponsibleUsers());
+         bh.consume(object.getGeolocation());
+         bh.consume(object.getPollStates());
+      }
+   }
+}
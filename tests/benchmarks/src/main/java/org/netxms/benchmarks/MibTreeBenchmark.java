@@ -0,0 +1,266 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2023 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.DeflaterOutputStream;
+import org.netxms.client.snmp.MibObject;
+import org.netxms.client.snmp.MibTree;
+import org.netxms.client.snmp.SnmpObjectId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * MIB tree loading and lookups. Exact, instance and name lookup benchmarks use more distinct keys than lookup cache can hold,
+ * so they measure uncached search. Mixed lookup benchmark resolves random objects with small set of instance suffixes, as
+ * when resolving SNMP walk results. Score for lookups is time per single lookup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MibTreeBenchmark
+{
+   private static final int LOOKUPS = 20000;
+
+   private static final int TAG_OBJECT = 0x01;
+   private static final int TAG_NAME = 0x02;
+   private static final int TAG_DESCRIPTION = 0x03;
+   private static final int TAG_TYPE = 0x06;
+   private static final int TAG_BYTE_OID = 0x07;
+   private static final int TAG_DWORD_OID = 0x09;
+   private static final int END_OF_TAG = 0x80;
+
+   private File file;
+   private File compressedFile;
+   private MibTree tree;
+   private SnmpObjectId[] oids;
+   private SnmpObjectId[] instanceOids;
+   private SnmpObjectId[] mixedOids;
+   private String[] names;
+
+   @Setup(Level.Trial)
+   public void setup() throws Exception
+   {
+      List<SnmpObjectId> generatedOids = new ArrayList<SnmpObjectId>();
+      byte[] data = generateTree(generatedOids);
+      file = writeFile(data, false);
+      compressedFile = writeFile(data, true);
+      tree = new MibTree(file);
+
+      Random random = new Random(1);
+      oids = new SnmpObjectId[LOOKUPS];
+      instanceOids = new SnmpObjectId[LOOKUPS];
+      mixedOids = new SnmpObjectId[LOOKUPS];
+      names = new String[LOOKUPS];
+      for(int i = 0; i < LOOKUPS; i++)
+      {
+         oids[i] = generatedOids.get(random.nextInt(generatedOids.size()));
+         instanceOids[i] = new SnmpObjectId(oids[i], i);
+         MibObject object = tree.findObject(oids[i], true);
+         names[i] = (i % 2 == 0) ? object.getFullName() : object.getName();
+         mixedOids[i] = random.nextBoolean() ? new SnmpObjectId(oids[i], random.nextInt(64)) : oids[i];
+      }
+   }
+
+   @TearDown(Level.Trial)
+   public void tearDown()
+   {
+      file.delete();
+      compressedFile.delete();
+   }
+
+   @Benchmark
+   public MibTree load() throws Exception
+   {
+      return new MibTree(file);
+   }
+
+   @Benchmark
+   public MibTree loadCompressed() throws Exception
+   {
+      return new MibTree(compressedFile);
+   }
+
+   @Benchmark
+   @OperationsPerInvocation(LOOKUPS)
+   public int findObjectExact()
+   {
+      int found = 0;
+      for(SnmpObjectId oid : oids)
+         if (tree.findObject(oid, true) != null)
+            found++;
+      return found;
+   }
+
+   @Benchmark
+   @OperationsPerInvocation(LOOKUPS)
+   public int findObjectByInstance()
+   {
+      int found = 0;
+      for(SnmpObjectId oid : instanceOids)
+         if (tree.findObject(oid, false) != null)
+            found++;
+      return found;
+   }
+
+   @Benchmark
+   @OperationsPerInvocation(LOOKUPS)
+   public int findObjectMixed()
+   {
+      int found = 0;
+      for(SnmpObjectId oid : mixedOids)
+      {
+         MibObject object = tree.findObject(oid, false);
+         if ((object != null) && (object.getName() != null))
+            found++;
+      }
+      return found;
+   }
+
+   @Benchmark
+   @OperationsPerInvocation(LOOKUPS)
+   public int findObjectByName()
+   {
+      int found = 0;
+      for(String name : names)
+         if (tree.findObjectByName(name) != null)
+            found++;
+      return found;
+   }
+
+   /**
+    * Generate compiled MIB tree data (without file header).
+    */
+   private static byte[] generateTree(List<SnmpObjectId> generatedOids) throws IOException
+   {
+      ByteArrayOutputStream data = new ByteArrayOutputStream();
+      DataOutputStream out = new DataOutputStream(data);
+      out.writeByte(TAG_OBJECT);
+      writeString(out, TAG_NAME, "root");
+      Random random = new Random(1);
+      List<Long> path = new ArrayList<Long>();
+      for(int i = 1; i <= 3; i++)
+         writeObject(out, path, i, 1, random, generatedOids);
+      out.writeByte(TAG_OBJECT | END_OF_TAG);
+      out.flush();
+      return data.toByteArray();
+   }
+
+   /**
+    * Write object with given ID and random number of children.
+    */
+   private static void writeObject(DataOutputStream out, List<Long> path, long id, int depth, Random random, List<SnmpObjectId> generatedOids) throws IOException
+   {
+      out.writeByte(TAG_OBJECT);
+      if (id < 256)
+      {
+         out.writeByte(TAG_BYTE_OID);
+         out.writeByte((int)id);
+         out.writeByte(TAG_BYTE_OID | END_OF_TAG);
+      }
+      else
+      {
+         out.writeByte(TAG_DWORD_OID);
+         out.writeInt((int)id);
+         out.writeByte(TAG_DWORD_OID | END_OF_TAG);
+      }
+      writeString(out, TAG_NAME, "obj" + id + "d" + depth);
+      writeString(out, TAG_DESCRIPTION, "Description of object " + id + " at level " + depth);
+      out.writeByte(TAG_TYPE);
+      out.writeByte(depth);
+      out.writeByte(TAG_TYPE | END_OF_TAG);
+
+      path.add(id);
+      long[] oid = new long[path.size()];
+      for(int i = 0; i < oid.length; i++)
+         oid[i] = path.get(i);
+      generatedOids.add(new SnmpObjectId(oid));
+
+      int childCount = (depth < 3) ? 15 + random.nextInt(10) : ((depth < 5) ? random.nextInt(8) : 0);
+      for(int i = 0; i < childCount; i++)
+         writeObject(out, path, i * 50 + random.nextInt(50), depth + 1, random, generatedOids);
+
+      path.remove(path.size() - 1);
+      out.writeByte(TAG_OBJECT | END_OF_TAG);
+   }
+
+   /**
+    * Write string tag.
+    */
+   private static void writeString(DataOutputStream out, int tag, String s) throws IOException
+   {
+      byte[] bytes = s.getBytes();
+      out.writeByte(tag);
+      out.writeShort(bytes.length);
+      out.write(bytes);
+      out.writeByte(tag | END_OF_TAG);
+   }
+
+   /**
+    * Write compiled MIB file.
+    */
+   private static File writeFile(byte[] data, boolean compress) throws IOException
+   {
+      File file = File.createTempFile("benchmark", ".mib");
+      file.deleteOnExit();
+      try (FileOutputStream fout = new FileOutputStream(file))
+      {
+         DataOutputStream header = new DataOutputStream(fout);
+         header.write(new byte[] { 0x4E, 0x58, 0x4D, 0x49, 0x42, 0x20 });
+         header.writeByte(16); // header size
+         header.writeByte(2);  // version
+         header.writeShort(compress ? 1 : 0);
+         header.write(new byte[6]);
+         header.flush();
+         if (compress)
+         {
+            DeflaterOutputStream body = new DeflaterOutputStream(fout);
+            body.write(data);
+            body.finish();
+         }
+         else
+         {
+            fout.write(data);
+         }
+      }
+      return file;
+   }
+}
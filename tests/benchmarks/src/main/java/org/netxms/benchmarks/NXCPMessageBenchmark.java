@@ -0,0 +1,79 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2023 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.netxms.base.EncryptionContext;
+import org.netxms.base.NXCPMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * NXCP message encoding and decoding
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NXCPMessageBenchmark
+{
+   @Param({ "10", "1000" })
+   public int fields;
+
+   @Param({ "false", "true" })
+   public boolean compression;
+
+   @Param({ "false", "true" })
+   public boolean encryption;
+
+   private NXCPMessage message;
+   private EncryptionContext encryptionContext;
+   private byte[] encodedMessage;
+
+   @Setup
+   public void setup() throws Exception
+   {
+      message = TestData.createMessage(fields);
+      encryptionContext = encryption ? TestData.createEncryptionContext() : null;
+      encodedMessage = encode();
+   }
+
+   @Benchmark
+   public byte[] encode() throws Exception
+   {
+      return (encryptionContext != null) ? encryptionContext.encryptMessage(message, compression) : message.createNXCPMessage(compression);
+   }
+
+   @Benchmark
+   public NXCPMessage decode() throws Exception
+   {
+      return new NXCPMessage(encodedMessage, encryptionContext);
+   }
+}
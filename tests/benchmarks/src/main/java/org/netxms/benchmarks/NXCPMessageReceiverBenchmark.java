@@ -0,0 +1,103 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2023 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+import org.netxms.base.NXCPMessage;
+import org.netxms.base.NXCPMessageReceiver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Message framing in NXCPMessageReceiver. Input stream delivers data in chunks of given size to emulate TCP segmentation.
+ * Score is time per received message.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NXCPMessageReceiverBenchmark
+{
+   private static final int MESSAGES = 1000;
+
+   @Param({ "20", "500" })
+   public int fields;
+
+   @Param({ "1460", "65536" })
+   public int chunkSize;
+
+   @Param({ "false", "true" })
+   public boolean compression;
+
+   private byte[] stream;
+
+   /**
+    * Input stream that returns at most given number of bytes on each read
+    */
+   private static class ChunkedInputStream extends ByteArrayInputStream
+   {
+      private final int chunkSize;
+
+      ChunkedInputStream(byte[] data, int chunkSize)
+      {
+         super(data);
+         this.chunkSize = chunkSize;
+      }
+
+      @Override
+      public synchronized int read(byte[] b, int off, int len)
+      {
+         return super.read(b, off, Math.min(len, chunkSize));
+      }
+   }
+
+   @Setup
+   public void setup() throws Exception
+   {
+      stream = TestData.createMessageStream(MESSAGES, fields, compression);
+   }
+
+   @Benchmark
+   @OperationsPerInvocation(MESSAGES)
+   public void receive(Blackhole blackhole) throws Exception
+   {
+      NXCPMessageReceiver receiver = new NXCPMessageReceiver(65536, 16777216);
+      InputStream in = new ChunkedInputStream(stream, chunkSize);
+      for(int i = 0; i < MESSAGES; i++)
+      {
+         NXCPMessage msg = receiver.receiveMessage(in, null);
+         blackhole.consume(msg);
+      }
+   }
+}
@@ -0,0 +1,126 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2023 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.benchmarks;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.netxms.base.NXCPCodes;
+import org.netxms.base.NXCPMessage;
+import org.netxms.client.NXCSession;
+import org.netxms.client.TestSession;
+import org.netxms.client.maps.NetworkMapLink;
+import org.netxms.client.maps.configs.LinkConfig;
+import org.netxms.client.objects.AbstractObject;
+import org.netxms.client.objects.NetworkMap;
+import org.netxms.client.xml.XMLTools;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Decoding of network map object with many links. Each link has configuration XML with status objects and bend points.
+ * Configurations are either left unparsed (as during object sync), parsed through shared XML serializer (as done by
+ * NetworkMapLink on first access), or parsed through serializer created for each link (as before serializer was shared).
+ * Links are decoded from message directly, as map page construction has its own cost growing with link count. Score is
+ * time per map.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NetworkMapDecodingBenchmark
+{
+   @Param({ "100", "1000" })
+   public int links;
+
+   private NXCSession session;
+   private NXCPMessage msg;
+   private String[] configs;
+
+   @Setup(Level.Trial)
+   public void setup() throws Exception
+   {
+      session = new NXCSession("127.0.0.1");
+      msg = TestSession.createObjectMessage(NXCPCodes.CMD_OBJECT, 1, AbstractObject.OBJECT_NETWORKMAP, "map", new long[] { 2 }, new long[0]);
+      msg.setField(NXCPCodes.VID_SEED_OBJECTS, new long[0]);
+      msg.setFieldInt32(NXCPCodes.VID_NUM_ELEMENTS, 0);
+      msg.setFieldInt32(NXCPCodes.VID_NUM_LINKS, links);
+
+      configs = new String[links];
+      long fieldId = NXCPCodes.VID_LINK_LIST_BASE;
+      for(int i = 0; i < links; i++, fieldId += 20)
+      {
+         LinkConfig config = new LinkConfig(null, Arrays.asList(100L + i, 200L + i), NetworkMapLink.ROUTING_BENDPOINTS,
+               new long[] { i, i + 10, i + 20, i + 30 }, true, false);
+         configs[i] = config.createXml();
+
+         msg.setFieldInt32(fieldId, i + 1);
+         msg.setField(fieldId + 1, "link" + i);
+         msg.setFieldInt16(fieldId + 2, NetworkMapLink.NORMAL);
+         msg.setFieldInt32(fieldId + 3, i + 1);
+         msg.setFieldInt32(fieldId + 4, i + 2);
+         msg.setField(fieldId + 5, "eth0");
+         msg.setField(fieldId + 6, "eth1");
+         msg.setFieldInt32(fieldId + 7, 0);
+         msg.setFieldInt16(fieldId + 8, NetworkMapLink.COLOR_SOURCE_DEFAULT);
+         msg.setFieldInt32(fieldId + 9, 0);
+         msg.setField(fieldId + 10, "");
+         msg.setField(fieldId + 11, configs[i]);
+      }
+   }
+
+   @Benchmark
+   public NetworkMap decode()
+   {
+      return new NetworkMap(msg, session);
+   }
+
+   @Benchmark
+   public void decodeWithSharedSerializer(Blackhole bh)
+   {
+      bh.consume(new NetworkMap(msg, session));
+      long fieldId = NXCPCodes.VID_LINK_LIST_BASE;
+      for(int i = 0; i < links; i++, fieldId += 20)
+         bh.consume(new NetworkMapLink(msg, fieldId).getConfig());
+   }
+
+   @Benchmark
+   public void decodeWithSerializerPerCall(Blackhole bh) throws Exception
+   {
+      bh.consume(new NetworkMap(msg, session));
+      long fieldId = NXCPCodes.VID_LINK_LIST_BASE;
+      for(int i = 0; i < links; i++, fieldId += 20)
+      {
+         bh.consume(new NetworkMapLink(msg, fieldId));
+         bh.consume(XMLTools.createSerializer().read(LinkConfig.class, configs[i], false));
+      }
+   }
+}
@@ -0,0 +1,86 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2023 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.benchmarks;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.netxms.client.NXCSession;
+import org.netxms.client.SyntheticObjects;
+import org.netxms.client.objects.AbstractObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Recursive child object retrieval (AbstractObject.getAllChildren) on synthetic object trees
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ObjectTreeBenchmark
+{
+   @Param({ "10", "100" })
+   public int containers;
+
+   @Param({ "100" })
+   public int nodesPerContainer;
+
+   @Param({ "4" })
+   public int interfacesPerNode;
+
+   private AbstractObject entireNetwork;
+   private AbstractObject serviceRoot;
+
+   @Setup
+   public void setup() throws Exception
+   {
+      NXCSession session = SyntheticObjects.createSession(containers, nodesPerContainer, interfacesPerNode);
+      entireNetwork = session.findObjectById(1);
+      serviceRoot = session.findObjectById(2);
+   }
+
+   @Benchmark
+   public Set<AbstractObject> allChildren()
+   {
+      return serviceRoot.getAllChildren(-1);
+   }
+
+   @Benchmark
+   public Set<AbstractObject> nodesOnly()
+   {
+      return serviceRoot.getAllChildren(AbstractObject.OBJECT_NODE);
+   }
+
+   @Benchmark
+   public Set<AbstractObject> interfacesFromNetwork()
+   {
+      return entireNetwork.getAllChildren(new int[] { AbstractObject.OBJECT_INTERFACE });
+   }
+}
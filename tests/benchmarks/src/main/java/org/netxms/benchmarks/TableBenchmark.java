@@ -0,0 +1,87 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2023 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.netxms.base.NXCPMessage;
+import org.netxms.client.Table;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Construction of Table objects from NXCP messages and programmatically
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TableBenchmark
+{
+   @Param({ "100", "5000" })
+   public int rows;
+
+   @Param({ "10" })
+   public int columns;
+
+   @Param({ "false", "true" })
+   public boolean extendedFormat;
+
+   private NXCPMessage message;
+   private Table table;
+
+   @Setup
+   public void setup()
+   {
+      message = TestData.createTableMessage(rows, columns, extendedFormat);
+      table = new Table(message);
+   }
+
+   @Benchmark
+   public Table createFromMessage()
+   {
+      return new Table(message);
+   }
+
+   @Benchmark
+   public NXCPMessage fillMessage()
+   {
+      NXCPMessage msg = new NXCPMessage(0);
+      table.fillMessage(msg);
+      return msg;
+   }
+
+   @Benchmark
+   public Table copy()
+   {
+      Table t = table.getFirstRows(0);
+      t.addAll(table);
+      return t;
+   }
+}
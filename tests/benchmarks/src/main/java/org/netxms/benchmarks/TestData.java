@@ -0,0 +1,212 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2023 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.Random;
+import java.util.UUID;
+import org.netxms.base.EncryptionContext;
+import org.netxms.base.NXCPCodes;
+import org.netxms.base.NXCPMessage;
+import org.netxms.client.constants.DataType;
+
+/**
+ * Generators for synthetic benchmark input. All generators are deterministic so results of different runs are comparable.
+ */
+final class TestData
+{
+   private TestData()
+   {
+   }
+
+   /**
+    * Create message with given number of fields of mixed types, similar to object or DCI list messages sent by server.
+    *
+    * @param fields number of fields
+    * @return new message
+    */
+   static NXCPMessage createMessage(int fields)
+   {
+      NXCPMessage msg = new NXCPMessage(NXCPCodes.CMD_OBJECT, 1);
+      long fieldId = NXCPCodes.VID_OBJECT_ID;
+      for(int i = 0; i < fields; i++, fieldId++)
+      {
+         switch(i % 5)
+         {
+            case 0:
+               msg.setFieldInt32(fieldId, i);
+               break;
+            case 1:
+               msg.setFieldInt64(fieldId, 1000000000000L + i);
+               break;
+            case 2:
+               msg.setField(fieldId, "Value of field " + i);
+               break;
+            case 3:
+               msg.setField(fieldId, new UUID(i, fieldId));
+               break;
+            case 4:
+               msg.setField(fieldId, (double)i / 3.0);
+               break;
+         }
+      }
+      return msg;
+   }
+
+   /**
+    * Create encryption context with random session key.
+    *
+    * @return new encryption context
+    * @throws Exception on error
+    */
+   static EncryptionContext createEncryptionContext() throws Exception
+   {
+      KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+      generator.initialize(2048);
+      KeyPair keyPair = generator.generateKeyPair();
+
+      NXCPMessage request = new NXCPMessage(NXCPCodes.CMD_REQUEST_SESSION_KEY);
+      request.setFieldInt32(NXCPCodes.VID_SUPPORTED_ENCRYPTION, 0xFFFF);
+      request.setField(NXCPCodes.VID_PUBLIC_KEY, keyPair.getPublic().getEncoded());
+      return EncryptionContext.createInstance(request);
+   }
+
+   /**
+    * Create encoded stream of messages as it would be received from network.
+    *
+    * @param count number of messages
+    * @param fields number of fields in each message
+    * @param compression true to allow compression
+    * @return encoded message stream
+    * @throws IOException on encoding error
+    */
+   static byte[] createMessageStream(int count, int fields, boolean compression) throws IOException
+   {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      for(int i = 0; i < count; i++)
+      {
+         NXCPMessage msg = createMessage(fields + i % 7);
+         msg.setMessageId(i);
+         out.write(msg.createNXCPMessage(compression));
+      }
+      return out.toByteArray();
+   }
+
+   /**
+    * Create payload of CMD_DCI_DATA message in format produced by server.
+    *
+    * @param rows number of rows
+    * @param dataType data type
+    * @return message payload
+    * @throws IOException on encoding error
+    */
+   static byte[] createDciData(int rows, DataType dataType) throws IOException
+   {
+      ByteArrayOutputStream data = new ByteArrayOutputStream(16 + rows * 16);
+      DataOutputStream out = new DataOutputStream(data);
+      out.writeInt(1);
+      out.writeInt(rows);
+      out.writeInt(dataType.getValue());
+      out.writeInt(0);
+      Random random = new Random(1);
+      long timestamp = 1700000000L;
+      for(int i = 0; i < rows; i++, timestamp -= 60)
+      {
+         out.writeInt((int)timestamp);
+         switch(dataType)
+         {
+            case INT32:
+            case UINT32:
+            case COUNTER32:
+               out.writeInt(random.nextInt(1000000));
+               break;
+            case INT64:
+            case UINT64:
+            case COUNTER64:
+               out.writeInt(0);
+               out.writeLong(random.nextLong());
+               break;
+            case FLOAT:
+               out.writeInt(0);
+               out.writeDouble(random.nextDouble() * 100.0);
+               break;
+            case STRING:
+               byte[] value = new byte[512]; // 256 UCS-2 characters
+               byte[] s = Integer.toString(random.nextInt()).getBytes("UTF-16BE");
+               System.arraycopy(s, 0, value, 0, s.length);
+               out.write(value);
+               break;
+            default:
+               throw new IllegalArgumentException("Unsupported data type " + dataType);
+         }
+      }
+      out.flush();
+      return data.toByteArray();
+   }
+
+   /**
+    * Create message with table data in format used by server for CMD_GET_TABLE response.
+    *
+    * @param rows number of rows
+    * @param columns number of columns
+    * @param extendedFormat true to use extended format (cell status and object ID)
+    * @return new message
+    */
+   static NXCPMessage createTableMessage(int rows, int columns, boolean extendedFormat)
+   {
+      NXCPMessage msg = new NXCPMessage(NXCPCodes.CMD_REQUEST_COMPLETED, 1);
+      msg.setField(NXCPCodes.VID_TABLE_TITLE, "Benchmark table");
+      msg.setFieldInt16(NXCPCodes.VID_TABLE_EXTENDED_FORMAT, extendedFormat ? 1 : 0);
+      msg.setFieldInt32(NXCPCodes.VID_TABLE_NUM_COLS, columns);
+      long fieldId = NXCPCodes.VID_TABLE_COLUMN_INFO_BASE;
+      for(int i = 0; i < columns; i++, fieldId += 10)
+      {
+         msg.setField(fieldId, "COLUMN_" + i);
+         msg.setFieldInt32(fieldId + 1, (i == 0) ? DataType.STRING.getValue() : DataType.INT64.getValue());
+         msg.setField(fieldId + 2, "Column " + i);
+         msg.setFieldInt16(fieldId + 3, (i == 0) ? 1 : 0);
+      }
+      msg.setFieldInt32(NXCPCodes.VID_TABLE_NUM_ROWS, rows);
+      msg.setFieldInt32(NXCPCodes.VID_NUM_ROWS, rows);
+      fieldId = NXCPCodes.VID_TABLE_DATA_BASE;
+      for(int i = 0; i < rows; i++)
+      {
+         if (extendedFormat)
+         {
+            msg.setFieldInt32(fieldId, 1000 + i);
+            fieldId += 10;
+         }
+         for(int j = 0; j < columns; j++)
+         {
+            msg.setField(fieldId++, (j == 0) ? "instance" + i : Long.toString((long)i * j));
+            if (extendedFormat)
+            {
+               msg.setFieldInt16(fieldId++, 0);
+               msg.setFieldInt32(fieldId++, 0);
+               fieldId += 7;
+            }
+         }
+      }
+      return msg;
+   }
+}
@@ -0,0 +1,90 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2023 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.client;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.netxms.base.NXCPCodes;
+import org.netxms.base.NXCPMessage;
+import org.netxms.client.objects.AbstractObject;
+
+/**
+ * Populates object cache of unconnected session with synthetic object tree.
+ */
+public final class SyntheticObjects
+{
+   private SyntheticObjects()
+   {
+   }
+
+   /**
+    * Create session with object tree consisting of given number of containers under "Infrastructure Services", each with
+    * given number of nodes, and each node with given number of interfaces. Nodes are also children of "Entire Network".
+    *
+    * @param containers number of containers
+    * @param nodesPerContainer number of nodes in each container
+    * @param interfacesPerNode number of interfaces on each node
+    * @return session with populated object cache
+    * @throws Exception on error
+    */
+   public static NXCSession createSession(int containers, int nodesPerContainer, int interfacesPerNode) throws Exception
+   {
+      long[] containerIds = new long[containers];
+      long[] nodeIds = new long[containers * nodesPerContainer];
+      long nextId = 100;
+      for(int i = 0; i < containers; i++)
+         containerIds[i] = nextId++;
+      for(int i = 0; i < nodeIds.length; i++)
+      {
+         nodeIds[i] = nextId;
+         nextId += interfacesPerNode + 1;
+      }
+
+      List<NXCPMessage> messages = new ArrayList<NXCPMessage>();
+      messages.add(createMessage(1, AbstractObject.OBJECT_NETWORK, "Entire Network", new long[0], nodeIds));
+      messages.add(createMessage(2, AbstractObject.OBJECT_SERVICEROOT, "Infrastructure Services", new long[0], containerIds));
+      for(int i = 0; i < containers; i++)
+      {
+         long[] children = new long[nodesPerContainer];
+         System.arraycopy(nodeIds, i * nodesPerContainer, children, 0, nodesPerContainer);
+         messages.add(createMessage(containerIds[i], AbstractObject.OBJECT_CONTAINER, "container-" + i, new long[] { 2 }, children));
+         for(long nodeId : children)
+         {
+            long[] interfaces = new long[interfacesPerNode];
+            for(int j = 0; j < interfacesPerNode; j++)
+               interfaces[j] = nodeId + j + 1;
+            messages.add(createMessage(nodeId, AbstractObject.OBJECT_NODE, "node-" + nodeId, new long[] { 1, containerIds[i] }, interfaces));
+            for(long interfaceId : interfaces)
+               messages.add(createMessage(interfaceId, AbstractObject.OBJECT_INTERFACE, "eth" + (interfaceId - nodeId - 1), new long[] { nodeId }, new long[0]));
+         }
+      }
+
+      TestSession session = new TestSession();
+      session.loadObjects(messages);
+      return session;
+   }
+
+   /**
+    * Create CMD_OBJECT message in format sent by server.
+    */
+   private static NXCPMessage createMessage(long id, int objectClass, String name, long[] parents, long[] children)
+   {
+      return TestSession.createObjectMessage(NXCPCodes.CMD_OBJECT, id, objectClass, name, parents, children);
+   }
+}
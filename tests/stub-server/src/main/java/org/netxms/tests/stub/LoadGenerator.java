@@ -0,0 +1,467 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2023 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.tests.stub;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import org.netxms.client.NXCSession;
+import org.netxms.client.constants.HistoricalDataType;
+import org.netxms.client.objects.AbstractObject;
+import org.netxms.client.objects.Node;
+
+/**
+ * Load generator for NetXMS client library. Drives given number of concurrent client sessions against NetXMS server (real
+ * one or embedded {@link StubServer}) and collects latency statistics for each operation. Each session connects, logs in,
+ * synchronizes objects, subscribes to alarm and object notifications and then repeatedly requests alarm list and DCI
+ * history for random node.
+ * <p>
+ * Command line usage:
+ * <pre>
+ * java -jar netxms-stub-server.jar [-host address] [-port port] [-sessions N] [-iterations N] [-encryption]
+ *      [-login name] [-password password] [-rows N] [-period seconds] [-csv file]
+ *      [-containers N] [-nodes N] [-interfaces N] [-alarms N] [-dci N] [-latency ms] [-bandwidth bytes/sec] [-notifications N]
+ * </pre>
+ * If host is not specified, embedded stub server is started and options from second line are used to configure it.
+ */
+public class LoadGenerator
+{
+   /**
+    * Latency statistics for single operation
+    */
+   public static class OperationStatistics
+   {
+      private final String name;
+      private long[] samples = new long[1024];
+      private int count = 0;
+      private int errors = 0;
+
+      OperationStatistics(String name)
+      {
+         this.name = name;
+      }
+
+      synchronized void addSample(long nanos)
+      {
+         if (count == samples.length)
+            samples = Arrays.copyOf(samples, count * 2);
+         samples[count++] = nanos;
+      }
+
+      synchronized void addError()
+      {
+         errors++;
+      }
+
+      /**
+       * @return operation name
+       */
+      public String getName()
+      {
+         return name;
+      }
+
+      /**
+       * @return number of successful calls
+       */
+      public synchronized int getCount()
+      {
+         return count;
+      }
+
+      /**
+       * @return number of failed calls
+       */
+      public synchronized int getErrors()
+      {
+         return errors;
+      }
+
+      /**
+       * @return average latency of successful calls in milliseconds
+       */
+      public synchronized double getAverage()
+      {
+         if (count == 0)
+            return 0;
+         long sum = 0;
+         for(int i = 0; i < count; i++)
+            sum += samples[i];
+         return sum / (double)count / 1000000.0;
+      }
+
+      /**
+       * Get latency percentile.
+       *
+       * @param p percentile (0 .. 100)
+       * @return latency in milliseconds
+       */
+      public synchronized double getPercentile(double p)
+      {
+         if (count == 0)
+            return 0;
+         long[] sorted = Arrays.copyOf(samples, count);
+         Arrays.sort(sorted);
+         int index = (int)Math.ceil(p / 100.0 * count) - 1;
+         return sorted[Math.max(0, Math.min(count - 1, index))] / 1000000.0;
+      }
+   }
+
+   private String host = null;
+   private int port = NXCSession.DEFAULT_CONN_PORT;
+   private int sessions = 10;
+   private int iterations = 10;
+   private boolean encryption = false;
+   private String login = "admin";
+   private String password = "";
+   private int dciPerNode = 10;
+   private int rows = 1440;
+   private int period = 86400;
+   private final Map<String, OperationStatistics> statistics = new LinkedHashMap<String, OperationStatistics>();
+   private final AtomicLong notifications = new AtomicLong(0);
+   private long elapsedTime = 0;
+
+   /**
+    * Create load generator for given server.
+    *
+    * @param host server address
+    * @param port server port
+    */
+   public LoadGenerator(String host, int port)
+   {
+      this.host = host;
+      this.port = port;
+      for(String op : new String[] { "connect", "login", "syncObjects", "subscribe", "getAlarms", "getCollectedData", "disconnect" })
+         statistics.put(op, new OperationStatistics(op));
+   }
+
+   /**
+    * Set number of concurrent sessions.
+    *
+    * @param sessions number of concurrent sessions
+    */
+   public void setSessions(int sessions)
+   {
+      this.sessions = sessions;
+   }
+
+   /**
+    * Set number of request iterations in each session.
+    *
+    * @param iterations number of iterations
+    */
+   public void setIterations(int iterations)
+   {
+      this.iterations = iterations;
+   }
+
+   /**
+    * Enable or disable encryption.
+    *
+    * @param encryption true to use encrypted sessions
+    */
+   public void setEncryption(boolean encryption)
+   {
+      this.encryption = encryption;
+   }
+
+   /**
+    * Set login credentials.
+    *
+    * @param login login name
+    * @param password password
+    */
+   public void setCredentials(String login, String password)
+   {
+      this.login = login;
+      this.password = password;
+   }
+
+   /**
+    * Set parameters of DCI history requests.
+    *
+    * @param dciPerNode number of DCIs on each node (requests are made for random DCI ID between 1 and this number)
+    * @param rows maximum number of rows per request
+    * @param period requested time period in seconds
+    */
+   public void setHistoryRequest(int dciPerNode, int rows, int period)
+   {
+      this.dciPerNode = dciPerNode;
+      this.rows = rows;
+      this.period = period;
+   }
+
+   /**
+    * Run load test.
+    *
+    * @throws InterruptedException if waiting thread was interrupted
+    */
+   public void run() throws InterruptedException
+   {
+      final CountDownLatch startSignal = new CountDownLatch(1);
+      final CountDownLatch completion = new CountDownLatch(sessions);
+      for(int i = 0; i < sessions; i++)
+      {
+         final int index = i;
+         Thread t = new Thread(() -> {
+            try
+            {
+               startSignal.await();
+               runSession(index);
+            }
+            catch(InterruptedException e)
+            {
+            }
+            finally
+            {
+               completion.countDown();
+            }
+         }, "LoadGenerator-" + i);
+         t.setDaemon(true);
+         t.start();
+      }
+      long startTime = System.nanoTime();
+      startSignal.countDown();
+      completion.await();
+      elapsedTime = System.nanoTime() - startTime;
+   }
+
+   /**
+    * Run single session scenario.
+    *
+    * @param index session index
+    */
+   private void runSession(int index)
+   {
+      Random random = new Random(index);
+      NXCSession session = new NXCSession(host, port, encryption);
+      session.setRecvBufferSize(65536, 33554432);
+      session.addListener((n) -> notifications.incrementAndGet());
+      try
+      {
+         if (!measure("connect", () -> session.connect()) || !measure("login", () -> session.login(login, password)) ||
+             !measure("syncObjects", () -> session.syncObjects()))
+            return;
+         measure("subscribe", () -> session.subscribe(NXCSession.CHANNEL_ALARMS));
+
+         List<Long> nodes = new ArrayList<Long>();
+         for(AbstractObject o : session.getAllObjects())
+            if (o instanceof Node)
+               nodes.add(o.getObjectId());
+
+         for(int i = 0; i < iterations; i++)
+         {
+            measure("getAlarms", () -> session.getAlarms());
+            if (!nodes.isEmpty())
+            {
+               final long nodeId = nodes.get(random.nextInt(nodes.size()));
+               final long dciId = 1 + random.nextInt(dciPerNode);
+               measure("getCollectedData", () -> session.getCollectedData(nodeId, dciId,
+                     new Date(System.currentTimeMillis() - period * 1000L), null, rows, HistoricalDataType.PROCESSED));
+            }
+         }
+      }
+      finally
+      {
+         measure("disconnect", () -> session.disconnect());
+      }
+   }
+
+   /**
+    * Operation to measure
+    */
+   private interface Operation
+   {
+      void run() throws Exception;
+   }
+
+   /**
+    * Measure single operation.
+    *
+    * @param name operation name
+    * @param op operation
+    * @return true if operation was successful
+    */
+   private boolean measure(String name, Operation op)
+   {
+      OperationStatistics s = statistics.get(name);
+      long startTime = System.nanoTime();
+      try
+      {
+         op.run();
+         s.addSample(System.nanoTime() - startTime);
+         return true;
+      }
+      catch(Exception e)
+      {
+         s.addError();
+         return false;
+      }
+   }
+
+   /**
+    * Get collected statistics.
+    *
+    * @return collected statistics by operation name
+    */
+   public Map<String, OperationStatistics> getStatistics()
+   {
+      return statistics;
+   }
+
+   /**
+    * Get total number of notifications received by all sessions.
+    *
+    * @return total number of notifications received
+    */
+   public long getNotificationCount()
+   {
+      return notifications.get();
+   }
+
+   /**
+    * Get total number of failed operations.
+    *
+    * @return total number of failed operations
+    */
+   public int getErrorCount()
+   {
+      int errors = 0;
+      for(OperationStatistics s : statistics.values())
+         errors += s.getErrors();
+      return errors;
+   }
+
+   /**
+    * Print report in human readable form.
+    *
+    * @param out output stream
+    */
+   public void printReport(PrintStream out)
+   {
+      out.printf("%d sessions, %d iterations, completed in %.1f ms, %d notifications received%n", sessions, iterations,
+            elapsedTime / 1000000.0, notifications.get());
+      out.printf("%-18s %8s %8s %10s %10s %10s %10s %10s%n", "Operation", "Count", "Errors", "Avg (ms)", "P50", "P95", "P99", "Max");
+      for(OperationStatistics s : statistics.values())
+      {
+         out.printf("%-18s %8d %8d %10.2f %10.2f %10.2f %10.2f %10.2f%n", s.getName(), s.getCount(), s.getErrors(), s.getAverage(),
+               s.getPercentile(50), s.getPercentile(95), s.getPercentile(99), s.getPercentile(100));
+      }
+   }
+
+   /**
+    * Write report in CSV format.
+    *
+    * @param fileName output file name
+    * @throws IOException if file cannot be written
+    */
+   public void writeCSV(String fileName) throws IOException
+   {
+      try (PrintWriter out = new PrintWriter(new FileWriter(fileName)))
+      {
+         out.println("operation,count,errors,avg_ms,p50_ms,p95_ms,p99_ms,max_ms");
+         for(OperationStatistics s : statistics.values())
+         {
+            out.printf("%s,%d,%d,%.3f,%.3f,%.3f,%.3f,%.3f%n", s.getName(), s.getCount(), s.getErrors(), s.getAverage(),
+                  s.getPercentile(50), s.getPercentile(95), s.getPercentile(99), s.getPercentile(100));
+         }
+      }
+   }
+
+   /**
+    * Entry point.
+    *
+    * @param args command line arguments
+    * @throws Exception on error
+    */
+   public static void main(String[] args) throws Exception
+   {
+      Map<String, String> options = new LinkedHashMap<String, String>();
+      for(int i = 0; i < args.length; i++)
+      {
+         if (!args[i].startsWith("-"))
+            throw new IllegalArgumentException("Invalid argument " + args[i]);
+         String name = args[i].substring(1);
+         if (name.equals("encryption"))
+            options.put(name, "true");
+         else if (i + 1 < args.length)
+            options.put(name, args[++i]);
+         else
+            throw new IllegalArgumentException("Missing value for option " + args[i]);
+      }
+
+      StubServer server = null;
+      String host = options.get("host");
+      int port = Integer.parseInt(getOption(options, "port", Integer.toString(NXCSession.DEFAULT_CONN_PORT)));
+      int dciPerNode = Integer.parseInt(getOption(options, "dci", "10"));
+      if (host == null)
+      {
+         server = new StubServer();
+         server.setObjectTree(Integer.parseInt(getOption(options, "containers", "10")), Integer.parseInt(getOption(options, "nodes", "100")),
+               Integer.parseInt(getOption(options, "interfaces", "4")));
+         server.setAlarmCount(Integer.parseInt(getOption(options, "alarms", "100")));
+         server.setDciPerNode(dciPerNode);
+         server.setLatency(Integer.parseInt(getOption(options, "latency", "0")));
+         server.setBandwidth(Long.parseLong(getOption(options, "bandwidth", "0")));
+         server.setNotificationRate(Integer.parseInt(getOption(options, "notifications", "0")));
+         server.start();
+         host = "127.0.0.1";
+         port = server.getPort();
+      }
+
+      try
+      {
+         LoadGenerator generator = new LoadGenerator(host, port);
+         generator.setSessions(Integer.parseInt(getOption(options, "sessions", "10")));
+         generator.setIterations(Integer.parseInt(getOption(options, "iterations", "10")));
+         generator.setEncryption(options.containsKey("encryption"));
+         generator.setCredentials(getOption(options, "login", "admin"), getOption(options, "password", ""));
+         generator.setHistoryRequest(dciPerNode, Integer.parseInt(getOption(options, "rows", "1440")),
+               Integer.parseInt(getOption(options, "period", "86400")));
+         generator.run();
+         generator.printReport(System.out);
+         if (options.containsKey("csv"))
+            generator.writeCSV(options.get("csv"));
+      }
+      finally
+      {
+         if (server != null)
+            server.stop();
+      }
+   }
+
+   /**
+    * Get option value or default.
+    */
+   private static String getOption(Map<String, String> options, String name, String defaultValue)
+   {
+      String value = options.get(name);
+      return (value != null) ? value : defaultValue;
+   }
+}
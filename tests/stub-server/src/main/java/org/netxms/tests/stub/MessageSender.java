@@ -0,0 +1,154 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2023 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.tests.stub;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Outbound message queue for stub server session. Emulates network latency (each message is delivered not earlier than
+ * given delay after it was queued) and limited bandwidth (delivery rate does not exceed given number of bytes per second).
+ * Messages are always delivered in the order they were queued.
+ */
+class MessageSender extends Thread
+{
+   private static final Logger logger = LoggerFactory.getLogger(MessageSender.class);
+   private static final Packet EOF = new Packet(0, null);
+
+   /**
+    * Queued packet
+    */
+   private static class Packet
+   {
+      final long dueTime;
+      final byte[] data;
+
+      Packet(long dueTime, byte[] data)
+      {
+         this.dueTime = dueTime;
+         this.data = data;
+      }
+   }
+
+   private final OutputStream out;
+   private final long latency;
+   private final long bandwidth;
+   private final LinkedBlockingQueue<Packet> queue = new LinkedBlockingQueue<Packet>();
+   private long bytesSent = 0;
+
+   /**
+    * Create sender.
+    *
+    * @param name thread name
+    * @param out output stream
+    * @param latency added latency in milliseconds (0 to disable)
+    * @param bandwidth bandwidth limit in bytes per second (0 to disable)
+    */
+   MessageSender(String name, OutputStream out, int latency, long bandwidth)
+   {
+      super(name);
+      setDaemon(true);
+      this.out = out;
+      this.latency = TimeUnit.MILLISECONDS.toNanos(latency);
+      this.bandwidth = bandwidth;
+      start();
+   }
+
+   /**
+    * Queue encoded message for sending.
+    *
+    * @param data encoded message
+    */
+   void send(byte[] data)
+   {
+      queue.add(new Packet(System.nanoTime() + latency, data));
+   }
+
+   /**
+    * Stop sender after all queued messages are delivered.
+    */
+   void shutdown()
+   {
+      queue.add(EOF);
+   }
+
+   /**
+    * Get number of bytes sent so far.
+    *
+    * @return number of bytes sent
+    */
+   synchronized long getBytesSent()
+   {
+      return bytesSent;
+   }
+
+   /**
+    * @see java.lang.Thread#run()
+    */
+   @Override
+   public void run()
+   {
+      long channelFreeTime = System.nanoTime();
+      try
+      {
+         while(true)
+         {
+            Packet p = queue.take();
+            if (p == EOF)
+               break;
+
+            long startTime = ((bandwidth > 0) && (channelFreeTime - p.dueTime > 0)) ? channelFreeTime : p.dueTime;
+            sleepUntil(startTime);
+            out.write(p.data);
+            if (queue.isEmpty())
+               out.flush();
+            synchronized(this)
+            {
+               bytesSent += p.data.length;
+            }
+            if (bandwidth > 0)
+               channelFreeTime = startTime + p.data.length * 1000000000L / bandwidth;
+         }
+      }
+      catch(InterruptedException e)
+      {
+      }
+      catch(IOException e)
+      {
+         logger.debug("Message sender stopped on I/O error", e);
+      }
+   }
+
+   /**
+    * Sleep until given point in time.
+    *
+    * @param time time as returned by System.nanoTime()
+    * @throws InterruptedException if thread was interrupted
+    */
+   private static void sleepUntil(long time) throws InterruptedException
+   {
+      long delay = time - System.nanoTime();
+      if (delay > 0)
+         TimeUnit.NANOSECONDS.sleep(delay);
+   }
+}
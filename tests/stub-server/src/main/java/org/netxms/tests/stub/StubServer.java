@@ -0,0 +1,534 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2023 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.tests.stub;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.netxms.base.NXCPCodes;
+import org.netxms.base.NXCPMessage;
+import org.netxms.client.NXCSession;
+import org.netxms.client.SessionNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Embeddable NXCP server stub for client library testing and benchmarking without real NetXMS server. Server supports
+ * connection setup (including encryption and compression), login, full object synchronization of synthetic object tree,
+ * alarm list, historical DCI data and object/alarm change notifications. Outbound traffic can be delayed and throttled to
+ * emulate slow networks.
+ * <p>
+ * All configuration methods should be called before {@link #start()}.
+ */
+public class StubServer
+{
+   private static final Logger logger = LoggerFactory.getLogger(StubServer.class);
+
+   private int containers = 10;
+   private int nodesPerContainer = 100;
+   private int interfacesPerNode = 4;
+   private int alarmCount = 100;
+   private int dciPerNode = 10;
+   private int historyRows = 10080;
+   private int historyInterval = 60;
+   private int latency = 0;
+   private long bandwidth = 0;
+   private boolean compressionEnabled = true;
+   private boolean encryptionEnabled = true;
+   private String login = null;
+   private String password = null;
+   private int notificationRate = 0;
+
+   private SyntheticObjectTree objectTree;
+   private final ConcurrentSkipListMap<Long, SyntheticAlarm> alarms = new ConcurrentSkipListMap<Long, SyntheticAlarm>();
+   private final AtomicLong alarmId = new AtomicLong(1);
+   private final Random random = new Random(1);
+   private KeyPair keyPair;
+   private ServerSocket serverSocket;
+   private Thread listenerThread;
+   private ScheduledExecutorService notificationScheduler;
+   private final Set<StubSession> sessions = ConcurrentHashMap.newKeySet();
+   private final AtomicInteger sessionId = new AtomicInteger(1);
+   private final AtomicLong requestCount = new AtomicLong(0);
+   private volatile boolean running = false;
+
+   /**
+    * Set size of synthetic object tree.
+    *
+    * @param containers number of containers
+    * @param nodesPerContainer number of nodes in each container
+    * @param interfacesPerNode number of interfaces on each node
+    */
+   public void setObjectTree(int containers, int nodesPerContainer, int interfacesPerNode)
+   {
+      this.containers = containers;
+      this.nodesPerContainer = nodesPerContainer;
+      this.interfacesPerNode = interfacesPerNode;
+   }
+
+   /**
+    * Set number of active alarms generated at startup.
+    *
+    * @param alarmCount number of active alarms
+    */
+   public void setAlarmCount(int alarmCount)
+   {
+      this.alarmCount = alarmCount;
+   }
+
+   /**
+    * Set number of DCIs on each node. DCIs have IDs from 1 to given number.
+    *
+    * @param dciPerNode number of DCIs on each node
+    */
+   public void setDciPerNode(int dciPerNode)
+   {
+      this.dciPerNode = dciPerNode;
+   }
+
+   /**
+    * Set depth of DCI history.
+    *
+    * @param rows number of values available for each DCI
+    * @param interval interval between values in seconds
+    */
+   public void setHistory(int rows, int interval)
+   {
+      this.historyRows = rows;
+      this.historyInterval = interval;
+   }
+
+   /**
+    * Set latency added to every message sent to client.
+    *
+    * @param latency latency in milliseconds (0 to disable)
+    */
+   public void setLatency(int latency)
+   {
+      this.latency = latency;
+   }
+
+   /**
+    * Set outbound bandwidth limit for each session.
+    *
+    * @param bandwidth bandwidth limit in bytes per second (0 to disable)
+    */
+   public void setBandwidth(long bandwidth)
+   {
+      this.bandwidth = bandwidth;
+   }
+
+   /**
+    * Enable or disable message compression (compression is used only if requested by client).
+    *
+    * @param enabled true to enable compression
+    */
+   public void setCompressionEnabled(boolean enabled)
+   {
+      this.compressionEnabled = enabled;
+   }
+
+   /**
+    * Enable or disable encryption support.
+    *
+    * @param enabled true to enable encryption support
+    */
+   public void setEncryptionEnabled(boolean enabled)
+   {
+      this.encryptionEnabled = enabled;
+   }
+
+   /**
+    * Set accepted credentials. If login is not set any credentials are accepted.
+    *
+    * @param login login name
+    * @param password password
+    */
+   public void setCredentials(String login, String password)
+   {
+      this.login = login;
+      this.password = password;
+   }
+
+   /**
+    * Set rate of generated notifications (object status changes and new alarms, sent only to sessions subscribed to
+    * appropriate channels).
+    *
+    * @param rate number of notifications per second (0 to disable)
+    */
+   public void setNotificationRate(int rate)
+   {
+      this.notificationRate = rate;
+   }
+
+   /**
+    * Start server on ephemeral port on loopback interface.
+    *
+    * @throws IOException if server socket cannot be created
+    * @throws GeneralSecurityException if server key cannot be generated
+    */
+   public void start() throws IOException, GeneralSecurityException
+   {
+      start(InetAddress.getLoopbackAddress(), 0);
+   }
+
+   /**
+    * Start server.
+    *
+    * @param address address to listen on
+    * @param port TCP port to listen on (0 to select ephemeral port)
+    * @throws IOException if server socket cannot be created
+    * @throws GeneralSecurityException if server key cannot be generated
+    */
+   public synchronized void start(InetAddress address, int port) throws IOException, GeneralSecurityException
+   {
+      if (running)
+         throw new IllegalStateException("Server already started");
+
+      long startTime = System.currentTimeMillis();
+      objectTree = new SyntheticObjectTree(containers, nodesPerContainer, interfacesPerNode);
+      SyntheticObjectTree.Entry[] nodes = objectTree.getNodes();
+      for(int i = 0; (i < alarmCount) && (nodes.length > 0); i++)
+         createAlarm(nodes[random.nextInt(nodes.length)].id);
+
+      if (encryptionEnabled)
+      {
+         KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+         generator.initialize(2048);
+         keyPair = generator.generateKeyPair();
+      }
+
+      serverSocket = new ServerSocket(port, 256, address);
+      running = true;
+      listenerThread = new Thread("StubServer-Listener") {
+         @Override
+         public void run()
+         {
+            listen();
+         }
+      };
+      listenerThread.setDaemon(true);
+      listenerThread.start();
+
+      if (notificationRate > 0)
+      {
+         notificationScheduler = Executors.newSingleThreadScheduledExecutor((r) -> {
+            Thread t = new Thread(r, "StubServer-Notifications");
+            t.setDaemon(true);
+            return t;
+         });
+         final int perTick = Math.max(1, notificationRate / 10);
+         final long period = 100L * perTick * 10 / notificationRate;
+         notificationScheduler.scheduleAtFixedRate(() -> generateNotifications(perTick), period, period, TimeUnit.MILLISECONDS);
+      }
+
+      logger.info("Stub server started on port {} in {} ms ({} objects, {} alarms)", serverSocket.getLocalPort(),
+            System.currentTimeMillis() - startTime, objectTree.size(), alarms.size());
+   }
+
+   /**
+    * Stop server and close all sessions.
+    */
+   public synchronized void stop()
+   {
+      if (!running)
+         return;
+      running = false;
+      if (notificationScheduler != null)
+         notificationScheduler.shutdownNow();
+      try
+      {
+         serverSocket.close();
+      }
+      catch(IOException e)
+      {
+      }
+      for(StubSession s : new ArrayList<StubSession>(sessions))
+         s.close();
+      try
+      {
+         listenerThread.join(1000);
+      }
+      catch(InterruptedException e)
+      {
+      }
+      logger.info("Stub server stopped ({} requests processed)", requestCount.get());
+   }
+
+   /**
+    * Connection listener
+    */
+   private void listen()
+   {
+      while(running)
+      {
+         try
+         {
+            Socket socket = serverSocket.accept();
+            socket.setTcpNoDelay(true);
+            StubSession session = new StubSession(this, socket, sessionId.getAndIncrement());
+            sessions.add(session);
+            Thread t = new Thread(session, "StubSession-" + session.getId());
+            t.setDaemon(true);
+            t.start();
+         }
+         catch(IOException e)
+         {
+            if (running)
+               logger.error("Error accepting connection", e);
+         }
+      }
+   }
+
+   /**
+    * Create new alarm.
+    *
+    * @param objectId source object ID
+    * @return new alarm
+    */
+   private SyntheticAlarm createAlarm(long objectId)
+   {
+      long id = alarmId.getAndIncrement();
+      SyntheticAlarm alarm = new SyntheticAlarm(id, objectId, 1 + (int)(id % 4), "Synthetic alarm " + id + " on object " + objectId);
+      alarms.put(id, alarm);
+      return alarm;
+   }
+
+   /**
+    * Generate given number of notifications. Even notifications are object status changes, odd ones are new alarms.
+    *
+    * @param count number of notifications to generate
+    */
+   public void generateNotifications(int count)
+   {
+      SyntheticObjectTree.Entry[] nodes = objectTree.getNodes();
+      if (nodes.length == 0)
+         return;
+
+      for(int i = 0; i < count; i++)
+      {
+         SyntheticObjectTree.Entry node;
+         synchronized(random)
+         {
+            node = nodes[random.nextInt(nodes.length)];
+         }
+         if ((i % 2) == 0)
+         {
+            node.setStatus((node.status + 1) % 5);
+            NXCPMessage msg = node.createMessage(NXCPCodes.CMD_OBJECT_UPDATE);
+            for(StubSession s : sessions)
+               s.sendNotification(msg, NXCSession.CHANNEL_OBJECTS);
+         }
+         else
+         {
+            SyntheticAlarm alarm = createAlarm(node.id);
+            NXCPMessage msg = new NXCPMessage(NXCPCodes.CMD_ALARM_UPDATE);
+            msg.setFieldInt32(NXCPCodes.VID_NOTIFICATION_CODE, SessionNotification.NEW_ALARM - SessionNotification.NOTIFY_BASE);
+            alarm.fillMessage(msg);
+            for(StubSession s : sessions)
+               s.sendNotification(msg, NXCSession.CHANNEL_ALARMS);
+         }
+      }
+   }
+
+   /**
+    * Called by session when it is closed.
+    *
+    * @param session closed session
+    */
+   void sessionClosed(StubSession session)
+   {
+      sessions.remove(session);
+   }
+
+   /**
+    * Called by session on each received request.
+    */
+   void requestReceived()
+   {
+      requestCount.incrementAndGet();
+   }
+
+   /**
+    * Validate login credentials.
+    *
+    * @param login login name
+    * @param password password
+    * @return true if credentials are valid
+    */
+   boolean validateCredentials(String login, String password)
+   {
+      if (this.login == null)
+         return true;
+      return this.login.equals(login) && ((this.password == null) || this.password.equals(password));
+   }
+
+   /**
+    * Get TCP port server is listening on.
+    *
+    * @return TCP port
+    */
+   public int getPort()
+   {
+      return serverSocket.getLocalPort();
+   }
+
+   /**
+    * Get total number of objects in synthetic object tree.
+    *
+    * @return number of objects
+    */
+   public int getObjectCount()
+   {
+      return objectTree.size();
+   }
+
+   /**
+    * Get IDs of all node objects.
+    *
+    * @return IDs of node objects
+    */
+   public long[] getNodeIds()
+   {
+      SyntheticObjectTree.Entry[] nodes = objectTree.getNodes();
+      long[] ids = new long[nodes.length];
+      for(int i = 0; i < nodes.length; i++)
+         ids[i] = nodes[i].id;
+      return ids;
+   }
+
+   /**
+    * Get number of active alarms.
+    *
+    * @return number of active alarms
+    */
+   public int getAlarmCount()
+   {
+      return alarms.size();
+   }
+
+   /**
+    * Get number of currently connected sessions.
+    *
+    * @return number of connected sessions
+    */
+   public int getSessionCount()
+   {
+      return sessions.size();
+   }
+
+   /**
+    * Get total number of requests processed since server start.
+    *
+    * @return total number of requests processed
+    */
+   public long getRequestCount()
+   {
+      return requestCount.get();
+   }
+
+   /**
+    * Get all active alarms.
+    *
+    * @return all active alarms
+    */
+   List<SyntheticAlarm> getAlarms()
+   {
+      return new ArrayList<SyntheticAlarm>(alarms.values());
+   }
+
+   /**
+    * @return object tree
+    */
+   SyntheticObjectTree getObjectTree()
+   {
+      return objectTree;
+   }
+
+   /**
+    * @return server key pair or null if encryption is disabled
+    */
+   KeyPair getKeyPair()
+   {
+      return keyPair;
+   }
+
+   /**
+    * @return number of DCIs on each node
+    */
+   public int getDciPerNode()
+   {
+      return dciPerNode;
+   }
+
+   /**
+    * @return number of history values available for each DCI
+    */
+   public int getHistoryRows()
+   {
+      return historyRows;
+   }
+
+   /**
+    * @return interval between history values in seconds
+    */
+   public int getHistoryInterval()
+   {
+      return historyInterval;
+   }
+
+   /**
+    * @return added latency in milliseconds
+    */
+   public int getLatency()
+   {
+      return latency;
+   }
+
+   /**
+    * @return bandwidth limit in bytes per second
+    */
+   public long getBandwidth()
+   {
+      return bandwidth;
+   }
+
+   /**
+    * @return true if compression is enabled
+    */
+   public boolean isCompressionEnabled()
+   {
+      return compressionEnabled;
+   }
+}
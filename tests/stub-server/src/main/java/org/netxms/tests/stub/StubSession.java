@@ -0,0 +1,560 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2023 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.tests.stub;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.Socket;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.netxms.base.EncryptionContext;
+import org.netxms.base.NXCPCodes;
+import org.netxms.base.NXCPException;
+import org.netxms.base.NXCPMessage;
+import org.netxms.base.NXCPMessageReceiver;
+import org.netxms.client.ProtocolVersion;
+import org.netxms.client.constants.AggregationFunction;
+import org.netxms.client.constants.DataType;
+import org.netxms.client.constants.HistoricalDataType;
+import org.netxms.client.constants.RCC;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Client session on stub server
+ */
+class StubSession implements Runnable
+{
+   private static final Logger logger = LoggerFactory.getLogger(StubSession.class);
+
+   private static final int MAX_DCI_DATA_ROWS = 200000;
+   private static final int CIPHER_AES_256 = 0;
+   private static final int CIPHER_AES_128 = 4;
+
+   private final StubServer server;
+   private final Socket socket;
+   private final int id;
+   private final MessageSender sender;
+   private final Set<String> channels = ConcurrentHashMap.newKeySet();
+   private final AtomicLong messageId = new AtomicLong(1);
+   private volatile EncryptionContext encryptionContext = null;
+   private volatile boolean compression = false;
+   private boolean authenticated = false;
+   private long encryptionRequestId = 0;
+
+   /**
+    * Create session for accepted connection.
+    *
+    * @param server owning server
+    * @param socket client socket
+    * @param id session ID
+    * @throws IOException if socket output stream cannot be obtained
+    */
+   StubSession(StubServer server, Socket socket, int id) throws IOException
+   {
+      this.server = server;
+      this.socket = socket;
+      this.id = id;
+      sender = new MessageSender("StubSession-" + id + "-Sender", new BufferedOutputStream(socket.getOutputStream(), 65536),
+            server.getLatency(), server.getBandwidth());
+   }
+
+   /**
+    * Get session ID.
+    *
+    * @return session ID
+    */
+   int getId()
+   {
+      return id;
+   }
+
+   /**
+    * Get number of bytes sent to client.
+    *
+    * @return number of bytes sent to client
+    */
+   long getBytesSent()
+   {
+      return sender.getBytesSent();
+   }
+
+   /**
+    * @see java.lang.Runnable#run()
+    */
+   @Override
+   public void run()
+   {
+      logger.debug("Session {} started", id);
+      NXCPMessageReceiver receiver = new NXCPMessageReceiver(65536, 16777216);
+      try
+      {
+         InputStream in = socket.getInputStream();
+         while(true)
+         {
+            NXCPMessage request = receiver.receiveMessage(in, encryptionContext);
+            processRequest(request);
+         }
+      }
+      catch(IOException | NXCPException e)
+      {
+         logger.debug("Session {} closed ({})", id, e.getMessage());
+      }
+      catch(Exception e)
+      {
+         logger.error("Unexpected exception in session " + id, e);
+      }
+      finally
+      {
+         close();
+      }
+   }
+
+   /**
+    * Close session.
+    */
+   void close()
+   {
+      server.sessionClosed(this);
+      sender.shutdown();
+      try
+      {
+         socket.close();
+      }
+      catch(IOException e)
+      {
+      }
+   }
+
+   /**
+    * Send message to client.
+    *
+    * @param msg message to send
+    */
+   void sendMessage(NXCPMessage msg)
+   {
+      try
+      {
+         EncryptionContext ctx = encryptionContext;
+         if ((ctx != null) && !msg.isEncryptionDisabled())
+            sender.send(ctx.encryptMessage(msg, compression));
+         else
+            sender.send(msg.createNXCPMessage(compression));
+      }
+      catch(IOException | GeneralSecurityException e)
+      {
+         logger.error("Cannot encode message in session " + id, e);
+      }
+   }
+
+   /**
+    * Send notification message to client if client is subscribed to given channel.
+    *
+    * @param msg notification message
+    * @param channel notification channel
+    */
+   void sendNotification(NXCPMessage msg, String channel)
+   {
+      if (channels.contains(channel))
+         sendMessage(msg);
+   }
+
+   /**
+    * Send request completion message.
+    *
+    * @param requestId request ID
+    * @param rcc request completion code
+    */
+   private void sendRCC(long requestId, int rcc)
+   {
+      NXCPMessage msg = new NXCPMessage(NXCPCodes.CMD_REQUEST_COMPLETED, requestId);
+      msg.setFieldInt32(NXCPCodes.VID_RCC, rcc);
+      sendMessage(msg);
+   }
+
+   /**
+    * Process request from client.
+    *
+    * @param request request message
+    * @throws Exception on processing error
+    */
+   private void processRequest(NXCPMessage request) throws Exception
+   {
+      server.requestReceived();
+      switch(request.getMessageCode())
+      {
+         case NXCPCodes.CMD_GET_SERVER_INFO:
+            sendServerInfo(request);
+            return;
+         case NXCPCodes.CMD_REQUEST_ENCRYPTION:
+            requestEncryption(request);
+            return;
+         case NXCPCodes.CMD_SESSION_KEY:
+            setupEncryption(request);
+            return;
+         case NXCPCodes.CMD_LOGIN:
+            login(request);
+            return;
+         case NXCPCodes.CMD_KEEPALIVE:
+            sendRCC(request.getMessageId(), RCC.SUCCESS);
+            return;
+      }
+
+      if (!authenticated)
+      {
+         sendRCC(request.getMessageId(), RCC.ACCESS_DENIED);
+         return;
+      }
+
+      switch(request.getMessageCode())
+      {
+         case NXCPCodes.CMD_GET_OBJECT_CATEGORIES:
+            NXCPMessage response = new NXCPMessage(NXCPCodes.CMD_REQUEST_COMPLETED, request.getMessageId());
+            response.setFieldInt32(NXCPCodes.VID_RCC, RCC.SUCCESS);
+            response.setFieldInt32(NXCPCodes.VID_NUM_ELEMENTS, 0);
+            sendMessage(response);
+            break;
+         case NXCPCodes.CMD_GET_OBJECTS:
+            sendObjects(request);
+            break;
+         case NXCPCodes.CMD_CHANGE_SUBSCRIPTION:
+            String channel = request.getFieldAsString(NXCPCodes.VID_NAME);
+            if (request.getFieldAsInt32(NXCPCodes.VID_OPERATION) != 0)
+               channels.add(channel);
+            else
+               channels.remove(channel);
+            sendRCC(request.getMessageId(), RCC.SUCCESS);
+            break;
+         case NXCPCodes.CMD_GET_ALL_ALARMS:
+            sendAlarms(request);
+            break;
+         case NXCPCodes.CMD_GET_DCI_DATA:
+            sendDciData(request);
+            break;
+         default:
+            sendRCC(request.getMessageId(), RCC.NOT_IMPLEMENTED);
+            break;
+      }
+   }
+
+   /**
+    * Send server information.
+    *
+    * @param request request message
+    */
+   private void sendServerInfo(NXCPMessage request)
+   {
+      NXCPMessage response = new NXCPMessage(NXCPCodes.CMD_REQUEST_COMPLETED, request.getMessageId());
+      response.setFieldInt32(NXCPCodes.VID_RCC, RCC.SUCCESS);
+      response.setField(NXCPCodes.VID_PROTOCOL_VERSION_EX, new long[] { ProtocolVersion.BASE, ProtocolVersion.ALARMS, ProtocolVersion.PUSH,
+            ProtocolVersion.TRAP, ProtocolVersion.MOBILE, ProtocolVersion.FULL, ProtocolVersion.TCPPROXY, ProtocolVersion.SCHEDULER });
+      response.setField(NXCPCodes.VID_SERVER_VERSION, "stub");
+      response.setField(NXCPCodes.VID_SERVER_BUILD, "0");
+      response.setFieldInt64(NXCPCodes.VID_SERVER_ID, 0x4E584D53L);
+      response.setField(NXCPCodes.VID_TIMEZONE, "UTC");
+      response.setFieldInt64(NXCPCodes.VID_TIMESTAMP, System.currentTimeMillis() / 1000);
+      byte[] challenge = new byte[64];
+      new SecureRandom().nextBytes(challenge);
+      response.setField(NXCPCodes.VID_CHALLENGE, challenge);
+      sendMessage(response);
+   }
+
+   /**
+    * Handle encryption request. Session key request is sent to client and request completion is reported after client
+    * responds with session key.
+    *
+    * @param request request message
+    */
+   private void requestEncryption(NXCPMessage request)
+   {
+      if (server.getKeyPair() == null)
+      {
+         sendRCC(request.getMessageId(), RCC.NO_ENCRYPTION_SUPPORT);
+         return;
+      }
+
+      encryptionRequestId = request.getMessageId();
+      NXCPMessage msg = new NXCPMessage(NXCPCodes.CMD_REQUEST_SESSION_KEY, messageId.getAndIncrement());
+      msg.setFieldInt32(NXCPCodes.VID_SUPPORTED_ENCRYPTION, (1 << CIPHER_AES_256) | (1 << CIPHER_AES_128));
+      msg.setField(NXCPCodes.VID_PUBLIC_KEY, server.getKeyPair().getPublic().getEncoded());
+      sendMessage(msg);
+   }
+
+   /**
+    * Setup encryption using session key sent by client.
+    *
+    * @param msg session key message
+    */
+   private void setupEncryption(NXCPMessage msg)
+   {
+      int rcc = msg.getFieldAsInt32(NXCPCodes.VID_RCC);
+      if (rcc == RCC.SUCCESS)
+      {
+         try
+         {
+            encryptionContext = EncryptionContext.createServerInstance(msg, server.getKeyPair().getPrivate());
+         }
+         catch(NXCPException e)
+         {
+            logger.error("Cannot setup encryption in session " + id, e);
+            rcc = RCC.ENCRYPTION_ERROR;
+         }
+      }
+      sendRCC(encryptionRequestId, rcc);
+   }
+
+   /**
+    * Process login request.
+    *
+    * @param request request message
+    */
+   private void login(NXCPMessage request)
+   {
+      NXCPMessage response = new NXCPMessage(NXCPCodes.CMD_REQUEST_COMPLETED, request.getMessageId());
+      String login = request.getFieldAsString(NXCPCodes.VID_LOGIN_NAME);
+      if (!server.validateCredentials(login, request.getFieldAsString(NXCPCodes.VID_PASSWORD)))
+      {
+         response.setFieldInt32(NXCPCodes.VID_RCC, RCC.ACCESS_DENIED);
+         sendMessage(response);
+         return;
+      }
+
+      authenticated = true;
+      boolean enableCompression = server.isCompressionEnabled() && request.getFieldAsBoolean(NXCPCodes.VID_ENABLE_COMPRESSION);
+      response.setFieldInt32(NXCPCodes.VID_RCC, RCC.SUCCESS);
+      response.setFieldInt32(NXCPCodes.VID_USER_ID, 1);
+      response.setField(NXCPCodes.VID_USER_NAME, login);
+      response.setFieldInt32(NXCPCodes.VID_SESSION_ID, id);
+      response.setFieldInt64(NXCPCodes.VID_USER_SYS_RIGHTS, 0x7FFFFFFFFFFFFFFFL);
+      response.setField(NXCPCodes.VID_ENABLE_COMPRESSION, enableCompression);
+      sendMessage(response);
+      compression = enableCompression;
+   }
+
+   /**
+    * Send all objects.
+    *
+    * @param request request message
+    * @throws IOException if message encoding fails
+    */
+   private void sendObjects(NXCPMessage request) throws IOException
+   {
+      sendRCC(request.getMessageId(), RCC.SUCCESS);
+      for(SyntheticObjectTree.Entry e : server.getObjectTree().getObjects())
+      {
+         if (encryptionContext != null)
+            sendMessage(e.createMessage(NXCPCodes.CMD_OBJECT));
+         else
+            sender.send(e.getEncodedMessage(compression));
+      }
+      sendMessage(new NXCPMessage(NXCPCodes.CMD_OBJECT_LIST_END, request.getMessageId()));
+   }
+
+   /**
+    * Send all active alarms.
+    *
+    * @param request request message
+    */
+   private void sendAlarms(NXCPMessage request)
+   {
+      for(SyntheticAlarm alarm : server.getAlarms())
+      {
+         NXCPMessage msg = new NXCPMessage(NXCPCodes.CMD_ALARM_DATA, request.getMessageId());
+         alarm.fillMessage(msg);
+         sendMessage(msg);
+      }
+      NXCPMessage msg = new NXCPMessage(NXCPCodes.CMD_ALARM_DATA, request.getMessageId());
+      msg.setFieldInt32(NXCPCodes.VID_ALARM_ID, 0);
+      sendMessage(msg);
+   }
+
+   /**
+    * Send collected DCI data. Data is generated on the fly: each DCI has value every history interval seconds, back to
+    * configured history depth.
+    *
+    * @param request request message
+    * @throws IOException if message encoding fails
+    */
+   private void sendDciData(NXCPMessage request) throws IOException
+   {
+      long nodeId = request.getFieldAsInt64(NXCPCodes.VID_OBJECT_ID);
+      int dciId = request.getFieldAsInt32(NXCPCodes.VID_DCI_ID);
+      if (server.getObjectTree().findNode(nodeId) == null)
+      {
+         sendRCC(request.getMessageId(), RCC.INVALID_OBJECT_ID);
+         return;
+      }
+      if ((dciId < 1) || (dciId > server.getDciPerNode()))
+      {
+         sendRCC(request.getMessageId(), RCC.INVALID_DCI_ID);
+         return;
+      }
+
+      boolean withRawValues = (request.getFieldAsInt32(NXCPCodes.VID_HISTORICAL_DATA_TYPE) == HistoricalDataType.RAW_AND_PROCESSED.getValue());
+      int maxRows = request.getFieldAsInt32(NXCPCodes.VID_MAX_ROWS);
+      long timeFrom = request.getFieldAsInt64(NXCPCodes.VID_TIME_FROM);
+      long timeTo = request.getFieldAsInt64(NXCPCodes.VID_TIME_TO);
+
+      int interval = server.getHistoryInterval();
+      long newest = (System.currentTimeMillis() / 1000) / interval * interval;
+      long oldest = newest - (long)(server.getHistoryRows() - 1) * interval;
+      long start = ((timeTo > 0) && (timeTo < newest)) ? timeTo / interval * interval : newest;
+      long end = Math.max(oldest, timeFrom);
+      int limit = ((maxRows > 0) && (maxRows < MAX_DCI_DATA_ROWS)) ? maxRows : MAX_DCI_DATA_ROWS;
+
+      int aggregationInterval = request.getFieldAsInt32(NXCPCodes.VID_AGGREGATION_INTERVAL);
+      if (aggregationInterval > 0)
+      {
+         sendAggregatedDciData(request, nodeId, dciId, start, end, aggregationInterval, limit);
+         return;
+      }
+
+      int rows = (start >= end) ? (int)Math.min((start - end) / interval + 1, limit) : 0;
+
+      ByteArrayOutputStream byteStream = new ByteArrayOutputStream(16 + rows * (withRawValues ? 32 : 16));
+      DataOutputStream out = new DataOutputStream(byteStream);
+      out.writeInt(dciId);
+      out.writeInt(withRawValues ? rows * 2 : rows); // raw values are sent as separate entries with zero timestamp
+      out.writeInt(DataType.FLOAT.getValue());
+      out.writeInt(0);  // padding
+      long timestamp = start;
+      for(int i = 0; i < rows; i++, timestamp -= interval)
+      {
+         double value = generateValue(nodeId, dciId, timestamp);
+         out.writeInt((int)timestamp);
+         out.writeInt(0);  // padding
+         out.writeDouble(value);
+         if (withRawValues)
+         {
+            out.writeInt(0);
+            out.writeInt(0);  // padding
+            out.writeDouble(value * 8);
+         }
+      }
+
+      sendRCC(request.getMessageId(), RCC.SUCCESS);
+
+      NXCPMessage msg = new NXCPMessage(NXCPCodes.CMD_DCI_DATA, request.getMessageId());
+      msg.setBinaryMessage(true);
+      msg.setBinaryData(byteStream.toByteArray());
+      sendMessage(msg);
+   }
+
+   /**
+    * Send collected DCI data aggregated into buckets of given width, in the same format as server does.
+    *
+    * @param request request message
+    * @param nodeId node ID
+    * @param dciId DCI ID
+    * @param start timestamp of newest value
+    * @param end lower limit for value timestamps
+    * @param bucketWidth bucket width in seconds
+    * @param limit maximum number of buckets
+    * @throws IOException if message encoding fails
+    */
+   private void sendAggregatedDciData(NXCPMessage request, long nodeId, int dciId, long start, long end, int bucketWidth, int limit) throws IOException
+   {
+      int functions = request.getFieldAsInt32(NXCPCodes.VID_AGGREGATION_FUNCTIONS) & 0x1F;
+      if ((functions == 0) || (request.getFieldAsInt32(NXCPCodes.VID_HISTORICAL_DATA_TYPE) == HistoricalDataType.RAW_AND_PROCESSED.getValue()))
+      {
+         sendRCC(request.getMessageId(), RCC.INVALID_ARGUMENT);
+         return;
+      }
+
+      int interval = server.getHistoryInterval();
+      ByteArrayOutputStream byteStream = new ByteArrayOutputStream(8192);
+      DataOutputStream out = new DataOutputStream(byteStream);
+      int buckets = 0;
+      long timestamp = start;
+      while((timestamp >= end) && (buckets < limit))
+      {
+         long bucketStart = timestamp - timestamp % bucketWidth;
+         int count = 0;
+         double last = 0, min = 0, max = 0, sum = 0;
+         for(; (timestamp >= end) && (timestamp >= bucketStart); timestamp -= interval, count++)
+         {
+            double value = generateValue(nodeId, dciId, timestamp);
+            if (count == 0)
+            {
+               last = value;
+               min = value;
+               max = value;
+            }
+            else
+            {
+               min = Math.min(min, value);
+               max = Math.max(max, value);
+            }
+            sum += value;
+         }
+
+         out.writeInt((int)bucketStart);
+         out.writeInt(count);
+         if ((functions & (1 << AggregationFunction.LAST.getValue())) != 0)
+            out.writeDouble(last);
+         if ((functions & (1 << AggregationFunction.MIN.getValue())) != 0)
+            out.writeDouble(min);
+         if ((functions & (1 << AggregationFunction.MAX.getValue())) != 0)
+            out.writeDouble(max);
+         if ((functions & (1 << AggregationFunction.AVERAGE.getValue())) != 0)
+            out.writeDouble(sum / count);
+         if ((functions & (1 << AggregationFunction.SUM.getValue())) != 0)
+            out.writeDouble(sum);
+         buckets++;
+      }
+
+      NXCPMessage response = new NXCPMessage(NXCPCodes.CMD_REQUEST_COMPLETED, request.getMessageId());
+      response.setFieldInt32(NXCPCodes.VID_RCC, RCC.SUCCESS);
+      response.setFieldInt32(NXCPCodes.VID_AGGREGATION_INTERVAL, bucketWidth);
+      response.setFieldInt32(NXCPCodes.VID_AGGREGATION_FUNCTIONS, functions);
+      sendMessage(response);
+
+      ByteArrayOutputStream messageData = new ByteArrayOutputStream(16 + byteStream.size());
+      DataOutputStream header = new DataOutputStream(messageData);
+      header.writeInt(dciId);
+      header.writeInt(buckets);
+      header.writeInt(DataType.FLOAT.getValue());
+      header.writeInt(functions);
+      byteStream.writeTo(messageData);
+
+      NXCPMessage msg = new NXCPMessage(NXCPCodes.CMD_DCI_DATA, request.getMessageId());
+      msg.setBinaryMessage(true);
+      msg.setBinaryData(messageData.toByteArray());
+      sendMessage(msg);
+   }
+
+   /**
+    * Generate synthetic DCI value for given time.
+    *
+    * @param nodeId node ID
+    * @param dciId DCI ID
+    * @param timestamp timestamp (seconds since epoch)
+    * @return generated value
+    */
+   private static double generateValue(long nodeId, int dciId, long timestamp)
+   {
+      return 50 + 40 * Math.sin(timestamp / 3600.0 + nodeId + dciId);
+   }
+}
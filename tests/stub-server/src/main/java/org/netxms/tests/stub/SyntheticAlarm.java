@@ -0,0 +1,72 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2023 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.tests.stub;
+
+import org.netxms.base.NXCPCodes;
+import org.netxms.base.NXCPMessage;
+
+/**
+ * Alarm served by stub server
+ */
+class SyntheticAlarm
+{
+   final long id;
+   final long objectId;
+   final int severity;
+   final String message;
+   final String key;
+   final long creationTime;
+
+   /**
+    * Create alarm.
+    *
+    * @param id alarm ID
+    * @param objectId source object ID
+    * @param severity alarm severity
+    * @param message alarm message
+    */
+   SyntheticAlarm(long id, long objectId, int severity, String message)
+   {
+      this.id = id;
+      this.objectId = objectId;
+      this.severity = severity;
+      this.message = message;
+      this.key = "STUB_ALARM_" + id;
+      this.creationTime = System.currentTimeMillis() / 1000;
+   }
+
+   /**
+    * Fill NXCP message with alarm data.
+    *
+    * @param msg message to fill
+    */
+   void fillMessage(NXCPMessage msg)
+   {
+      msg.setFieldInt32(NXCPCodes.VID_ALARM_ID, (int)id);
+      msg.setFieldInt32(NXCPCodes.VID_OBJECT_ID, (int)objectId);
+      msg.setFieldInt16(NXCPCodes.VID_CURRENT_SEVERITY, severity);
+      msg.setFieldInt16(NXCPCodes.VID_ORIGINAL_SEVERITY, severity);
+      msg.setFieldInt32(NXCPCodes.VID_REPEAT_COUNT, 1);
+      msg.setFieldInt16(NXCPCodes.VID_STATE, 0);
+      msg.setFieldInt32(NXCPCodes.VID_CREATION_TIME, (int)creationTime);
+      msg.setFieldInt32(NXCPCodes.VID_LAST_CHANGE_TIME, (int)creationTime);
+      msg.setField(NXCPCodes.VID_ALARM_MESSAGE, message);
+      msg.setField(NXCPCodes.VID_ALARM_KEY, key);
+   }
+}
@@ -0,0 +1,245 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2023 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.tests.stub;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import org.netxms.base.NXCPCodes;
+import org.netxms.base.NXCPMessage;
+import org.netxms.client.objects.AbstractObject;
+
+/**
+ * Synthetic object tree served by stub server. Tree consists of two root objects ("Entire Network" and "Infrastructure
+ * Services"), configurable number of containers under infrastructure services root, nodes in each container (also linked
+ * to entire network root) and interfaces under each node.
+ */
+class SyntheticObjectTree
+{
+   static final long ENTIRE_NETWORK_ID = 1;
+   static final long SERVICE_ROOT_ID = 2;
+
+   private static final long FIRST_OBJECT_ID = 100;
+
+   /**
+    * Single object in the tree
+    */
+   static class Entry
+   {
+      final long id;
+      final int objectClass;
+      final String name;
+      final long[] parents;
+      final long[] children;
+      final InetAddress address;
+      volatile int status;
+      private byte[] encoded;
+      private byte[] encodedCompressed;
+
+      Entry(long id, int objectClass, String name, long[] parents, long[] children, InetAddress address)
+      {
+         this.id = id;
+         this.objectClass = objectClass;
+         this.name = name;
+         this.parents = parents;
+         this.children = children;
+         this.address = address;
+         this.status = 0;
+      }
+
+      /**
+       * Create object message.
+       *
+       * @param code message code (CMD_OBJECT or CMD_OBJECT_UPDATE)
+       * @return object message
+       */
+      NXCPMessage createMessage(int code)
+      {
+         NXCPMessage msg = new NXCPMessage(code);
+         msg.setFieldInt32(NXCPCodes.VID_OBJECT_ID, (int)id);
+         msg.setFieldInt16(NXCPCodes.VID_OBJECT_CLASS, objectClass);
+         msg.setField(NXCPCodes.VID_GUID, new UUID(0x4E584D53L, id));
+         msg.setField(NXCPCodes.VID_OBJECT_NAME, name);
+         msg.setFieldInt16(NXCPCodes.VID_OBJECT_STATUS, status);
+         msg.setField(NXCPCodes.VID_IS_DELETED, false);
+         msg.setFieldInt32(NXCPCodes.VID_PARENT_CNT, parents.length);
+         for(int i = 0; i < parents.length; i++)
+            msg.setFieldInt32(NXCPCodes.VID_PARENT_ID_BASE + i, (int)parents[i]);
+         msg.setFieldInt32(NXCPCodes.VID_CHILD_CNT, children.length);
+         for(int i = 0; i < children.length; i++)
+            msg.setFieldInt32(NXCPCodes.VID_CHILD_ID_BASE + i, (int)children[i]);
+         if (address != null)
+            msg.setField(NXCPCodes.VID_IP_ADDRESS, address);
+         return msg;
+      }
+
+      /**
+       * Get encoded object message for full synchronization. Encoded form is cached until object is changed.
+       *
+       * @param compressed true if compressed form is requested
+       * @return encoded message
+       * @throws IOException if message encoding fails
+       */
+      synchronized byte[] getEncodedMessage(boolean compressed) throws IOException
+      {
+         if (compressed)
+         {
+            if (encodedCompressed == null)
+               encodedCompressed = createMessage(NXCPCodes.CMD_OBJECT).createNXCPMessage(true);
+            return encodedCompressed;
+         }
+         if (encoded == null)
+            encoded = createMessage(NXCPCodes.CMD_OBJECT).createNXCPMessage(false);
+         return encoded;
+      }
+
+      /**
+       * Set new object status.
+       *
+       * @param status new status
+       */
+      synchronized void setStatus(int status)
+      {
+         this.status = status;
+         encoded = null;
+         encodedCompressed = null;
+      }
+   }
+
+   private final List<Entry> objects = new ArrayList<Entry>();
+   private final Entry[] nodes;
+
+   /**
+    * Generate object tree.
+    *
+    * @param containers number of containers
+    * @param nodesPerContainer number of nodes in each container
+    * @param interfacesPerNode number of interfaces under each node
+    */
+   SyntheticObjectTree(int containers, int nodesPerContainer, int interfacesPerNode)
+   {
+      nodes = new Entry[containers * nodesPerContainer];
+
+      long[] containerIds = new long[containers];
+      long[] allNodeIds = new long[nodes.length];
+      long nextId = FIRST_OBJECT_ID;
+      for(int i = 0; i < containers; i++)
+         containerIds[i] = nextId++;
+      for(int i = 0; i < nodes.length; i++)
+      {
+         allNodeIds[i] = nextId;
+         nextId += 1 + interfacesPerNode;
+      }
+
+      objects.add(new Entry(ENTIRE_NETWORK_ID, AbstractObject.OBJECT_NETWORK, "Entire Network", new long[0], allNodeIds, null));
+      objects.add(new Entry(SERVICE_ROOT_ID, AbstractObject.OBJECT_SERVICEROOT, "Infrastructure Services", new long[0], containerIds, null));
+      for(int i = 0; i < containers; i++)
+      {
+         long[] children = new long[nodesPerContainer];
+         System.arraycopy(allNodeIds, i * nodesPerContainer, children, 0, nodesPerContainer);
+         objects.add(new Entry(containerIds[i], AbstractObject.OBJECT_CONTAINER, "Container " + (i + 1), new long[] { SERVICE_ROOT_ID }, children, null));
+      }
+      for(int i = 0; i < nodes.length; i++)
+      {
+         long nodeId = allNodeIds[i];
+         long[] interfaces = new long[interfacesPerNode];
+         for(int j = 0; j < interfacesPerNode; j++)
+            interfaces[j] = nodeId + j + 1;
+         nodes[i] = new Entry(nodeId, AbstractObject.OBJECT_NODE, "node-" + (i + 1),
+               new long[] { ENTIRE_NETWORK_ID, containerIds[i / nodesPerContainer] }, interfaces, nodeAddress(i));
+         nodes[i].status = i % 5;
+         objects.add(nodes[i]);
+         for(int j = 0; j < interfacesPerNode; j++)
+            objects.add(new Entry(interfaces[j], AbstractObject.OBJECT_INTERFACE, "eth" + j, new long[] { nodeId }, new long[0], null));
+      }
+   }
+
+   /**
+    * Build IP address for node with given index.
+    *
+    * @param index node index
+    * @return IP address in 10.0.0.0/8 range
+    */
+   private static InetAddress nodeAddress(int index)
+   {
+      int n = index + 1;
+      try
+      {
+         return InetAddress.getByAddress(new byte[] { 10, (byte)(n >> 16), (byte)(n >> 8), (byte)n });
+      }
+      catch(UnknownHostException e)
+      {
+         return null;
+      }
+   }
+
+   /**
+    * Get all objects in the tree. Parents always precede children.
+    *
+    * @return all objects
+    */
+   List<Entry> getObjects()
+   {
+      return objects;
+   }
+
+   /**
+    * Get number of objects in the tree.
+    *
+    * @return number of objects
+    */
+   int size()
+   {
+      return objects.size();
+   }
+
+   /**
+    * Get node objects.
+    *
+    * @return node objects
+    */
+   Entry[] getNodes()
+   {
+      return nodes;
+   }
+
+   /**
+    * Find node by ID.
+    *
+    * @param id object ID
+    * @return node entry or null if node with given ID does not exist
+    */
+   Entry findNode(long id)
+   {
+      for(int l = 0, h = nodes.length - 1; l <= h;)
+      {
+         int m = (l + h) >>> 1;
+         if (nodes[m].id < id)
+            l = m + 1;
+         else if (nodes[m].id > id)
+            h = m - 1;
+         else
+            return nodes[m];
+      }
+      return null;
+   }
+}
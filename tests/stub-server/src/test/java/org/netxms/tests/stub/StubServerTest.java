@@ -0,0 +1,208 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2023 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.tests.stub;
+
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.netxms.client.NXCSession;
+import org.netxms.client.ProtocolVersion;
+import org.netxms.client.SessionNotification;
+import org.netxms.client.constants.AggregationFunction;
+import org.netxms.client.constants.HistoricalDataType;
+import org.netxms.client.datacollection.AggregatedDciData;
+import org.netxms.client.datacollection.DciData;
+import org.netxms.client.datacollection.DciDataRow;
+import junit.framework.TestCase;
+
+/**
+ * Tests for stub server and load generator
+ */
+public class StubServerTest extends TestCase
+{
+   private StubServer server;
+
+   /**
+    * @see junit.framework.TestCase#setUp()
+    */
+   @Override
+   protected void setUp() throws Exception
+   {
+      server = new StubServer();
+      server.setObjectTree(5, 20, 2);
+      server.setAlarmCount(50);
+      server.setHistory(1440, 60);
+   }
+
+   /**
+    * @see junit.framework.TestCase#tearDown()
+    */
+   @Override
+   protected void tearDown() throws Exception
+   {
+      server.stop();
+   }
+
+   private NXCSession connect(boolean useEncryption) throws Exception
+   {
+      NXCSession session = new NXCSession("127.0.0.1", server.getPort(), useEncryption);
+      session.setRecvBufferSize(65536, 33554432);
+      session.connect(new int[] { ProtocolVersion.INDEX_FULL });
+      session.login("admin", "");
+      return session;
+   }
+
+   private void runSessionWorkflow(boolean useEncryption) throws Exception
+   {
+      server.start();
+      NXCSession session = connect(useEncryption);
+      try
+      {
+         session.syncObjects();
+         assertEquals(server.getObjectCount(), session.getAllObjects().size());
+
+         assertEquals(server.getAlarmCount(), session.getAlarms().size());
+
+         long nodeId = server.getNodeIds()[0];
+         DciData data = session.getCollectedData(nodeId, 1, new Date(System.currentTimeMillis() - 3600000L), null, 0, HistoricalDataType.PROCESSED);
+         assertTrue(data.getValues().length > 0);
+         assertTrue(data.getValues().length <= 61);
+
+         // Use fixed time range in the past so both requests cover same values
+         Date to = new Date(System.currentTimeMillis() - 600000L);
+         Date from = new Date(to.getTime() - 3600000L);
+         data = session.getCollectedData(nodeId, 1, from, to, 0, HistoricalDataType.PROCESSED);
+         AggregatedDciData aggregatedData = session.getAggregatedData(nodeId, 1, from, to, 600,
+               EnumSet.of(AggregationFunction.MIN, AggregationFunction.MAX, AggregationFunction.AVERAGE), HistoricalDataType.PROCESSED);
+         assertTrue(aggregatedData.size() > 0);
+         assertTrue(aggregatedData.size() <= 7);
+         int count = 0;
+         for(int i = 0; i < aggregatedData.size(); i++)
+         {
+            count += aggregatedData.getCounts()[i];
+            assertTrue(aggregatedData.getValues(AggregationFunction.MIN)[i] <= aggregatedData.getValues(AggregationFunction.AVERAGE)[i]);
+            assertTrue(aggregatedData.getValues(AggregationFunction.AVERAGE)[i] <= aggregatedData.getValues(AggregationFunction.MAX)[i]);
+         }
+         assertEquals(data.getValues().length, count);
+         assertNull(aggregatedData.getValues(AggregationFunction.LAST));
+
+         // Chart data is aggregated only if there are more values than pixels, extremes are preserved
+         DciData chartData = session.getChartData(nodeId, 1, from, to, 100, HistoricalDataType.PROCESSED);
+         assertEquals(data.getValues().length, chartData.getValues().length);
+         chartData = session.getChartData(nodeId, 1, from, to, 10, HistoricalDataType.PROCESSED);
+         assertTrue(chartData.getValues().length > 0);
+         assertTrue(chartData.getValues().length <= 33);
+         assertEquals(getMaxValue(data), getMaxValue(chartData));
+
+         // Open time range is never aggregated, only latest values are returned
+         chartData = session.getChartData(nodeId, 1, null, to, 10, HistoricalDataType.PROCESSED);
+         assertEquals(10, chartData.getValues().length);
+         assertEquals(data.getValues()[0].getTimestamp(), chartData.getValues()[0].getTimestamp());
+
+         final CountDownLatch latch = new CountDownLatch(1);
+         session.addListener((n) -> {
+            if (n.getCode() == SessionNotification.NEW_ALARM)
+               latch.countDown();
+         });
+         session.subscribe(NXCSession.CHANNEL_ALARMS);
+         server.generateNotifications(2);
+         assertTrue(latch.await(5, TimeUnit.SECONDS));
+      }
+      finally
+      {
+         session.disconnect();
+      }
+   }
+
+   /**
+    * Get maximum value in DCI data set.
+    */
+   private static double getMaxValue(DciData data)
+   {
+      double max = Double.NEGATIVE_INFINITY;
+      for(DciDataRow r : data.getValues())
+         max = Math.max(max, r.getValueAsDouble());
+      return max;
+   }
+
+   public void testSessionWorkflow() throws Exception
+   {
+      runSessionWorkflow(false);
+   }
+
+   public void testEncryptedSessionWorkflow() throws Exception
+   {
+      server.setEncryptionEnabled(true);
+      runSessionWorkflow(true);
+   }
+
+   public void testCredentials() throws Exception
+   {
+      server.setCredentials("admin", "secret");
+      server.start();
+      NXCSession session = new NXCSession("127.0.0.1", server.getPort());
+      session.connect();
+      try
+      {
+         session.login("admin", "wrong");
+         fail("Login with invalid password should fail");
+      }
+      catch(Exception e)
+      {
+      }
+      finally
+      {
+         session.disconnect();
+      }
+   }
+
+   public void testLatency() throws Exception
+   {
+      server.setLatency(50);
+      server.start();
+      NXCSession session = connect(false);
+      try
+      {
+         long startTime = System.nanoTime();
+         assertTrue(session.checkConnection());
+         assertTrue(System.nanoTime() - startTime >= TimeUnit.MILLISECONDS.toNanos(50));
+      }
+      finally
+      {
+         session.disconnect();
+      }
+   }
+
+   public void testLoadGenerator() throws Exception
+   {
+      server.setDciPerNode(5);
+      server.start();
+      LoadGenerator generator = new LoadGenerator("127.0.0.1", server.getPort());
+      generator.setSessions(4);
+      generator.setIterations(5);
+      generator.setHistoryRequest(5, 100, 3600);
+      generator.run();
+      generator.printReport(System.out);
+      assertEquals(0, generator.getErrorCount());
+      assertEquals(4, generator.getStatistics().get("syncObjects").getCount());
+      assertEquals(20, generator.getStatistics().get("getAlarms").getCount());
+      assertEquals(20, generator.getStatistics().get("getCollectedData").getCount());
+   }
+}
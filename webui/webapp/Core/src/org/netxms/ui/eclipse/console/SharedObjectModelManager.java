@@ -0,0 +1,175 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2023 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.ui.eclipse.console;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+import org.eclipse.rap.rwt.RWT;
+import org.eclipse.rap.rwt.service.UISession;
+import org.eclipse.swt.widgets.Display;
+import org.netxms.base.VersionInfo;
+import org.netxms.client.NXCSession;
+import org.netxms.client.ProtocolVersion;
+import org.netxms.client.SessionNotification;
+import org.netxms.client.SharedObjectModel;
+import org.netxms.client.constants.AuthenticationType;
+import org.netxms.ui.eclipse.shared.ConsoleSharedData;
+
+/**
+ * Manager for object models shared between web UI sessions. When enabled by application property
+ * <code>sharedObjectModel.enabled</code>, one privileged backend session is opened per server using credentials from properties
+ * <code>sharedObjectModel.login</code> and <code>sharedObjectModel.password</code>, and user sessions get filtered views of its
+ * object model instead of synchronizing objects by themselves.
+ * <p>
+ * Shared objects show only objects visible to user session bound to current thread. UI thread of each UI session is bound at
+ * login, and console jobs bind session of UI session they were created in for their run time. Object lookups on any other
+ * thread do not see shared objects.
+ */
+public final class SharedObjectModelManager
+{
+   private static final Map<String, SharedObjectModel> models = new HashMap<String, SharedObjectModel>();
+   private static AppPropertiesLoader properties = null;
+
+   /**
+    * Private constructor to prevent instantiation
+    */
+   private SharedObjectModelManager()
+   {
+   }
+
+   /**
+    * Get application properties.
+    *
+    * @return application properties
+    */
+   private static synchronized AppPropertiesLoader getProperties()
+   {
+      if (properties == null)
+         properties = new AppPropertiesLoader();
+      return properties;
+   }
+
+   /**
+    * Check if shared object model is enabled.
+    *
+    * @return true if shared object model is enabled
+    */
+   public static boolean isEnabled()
+   {
+      return getProperties().getPropertyAsBoolean("sharedObjectModel.enabled", false);
+   }
+
+   /**
+    * Get shared object model for given server, creating backend session if needed.
+    *
+    * @param hostName server host name
+    * @param port server port
+    * @param sessionFactory factory for backend session (should create session of same class as user sessions)
+    * @return shared object model
+    * @throws Exception if backend session cannot be established
+    */
+   public static synchronized SharedObjectModel getModel(String hostName, int port, Supplier<NXCSession> sessionFactory) throws Exception
+   {
+      final String key = hostName + ":" + port;
+      SharedObjectModel model = models.get(key);
+      if ((model != null) && model.getBackendSession().isConnected())
+         return model;
+
+      Activator.logInfo("Creating shared object model for server " + key);
+      final NXCSession backend = sessionFactory.get();
+      try
+      {
+         backend.setClientInfo("nxmc-webui/" + VersionInfo.version() + " (shared object model)"); //$NON-NLS-1$
+         backend.setClientType(NXCSession.WEB_CLIENT);
+         backend.connect(new int[] { ProtocolVersion.INDEX_FULL });
+         backend.login(AuthenticationType.PASSWORD, getProperties().getProperty("sharedObjectModel.login", "admin"),
+               getProperties().getProperty("sharedObjectModel.password", ""), null, null, null);
+
+         final SharedObjectModel newModel = new SharedObjectModel(backend);
+         newModel.start();
+         backend.addListener((n) -> {
+            if ((n.getCode() == SessionNotification.CONNECTION_BROKEN) || (n.getCode() == SessionNotification.SERVER_SHUTDOWN) ||
+                (n.getCode() == SessionNotification.SESSION_KILLED))
+            {
+               Activator.logInfo("Backend session for shared object model for server " + key + " closed");
+               discardModel(key, newModel);
+            }
+         });
+         new KeepAliveTimer(backend).start();
+
+         models.put(key, newModel);
+         return newModel;
+      }
+      catch(Exception e)
+      {
+         backend.disconnect();
+         throw e;
+      }
+   }
+
+   /**
+    * Remove model from registry.
+    *
+    * @param key server key
+    * @param model model to remove
+    */
+   private static synchronized void discardModel(String key, SharedObjectModel model)
+   {
+      if (models.get(key) == model)
+         models.remove(key);
+      model.stop();
+   }
+
+   /**
+    * Get user session of UI session given display belongs to.
+    *
+    * @param display display
+    * @return user session or null if UI session has no logged in user session yet
+    */
+   public static NXCSession getSession(Display display)
+   {
+      if (display == null)
+         return null;
+      UISession uiSession = RWT.getUISession(display);
+      return (uiSession != null) ? (NXCSession)uiSession.getAttribute(ConsoleSharedData.ATTRIBUTE_SESSION) : null;
+   }
+
+   /**
+    * Bind view of given user session to current thread if that session is attached to shared object model.
+    *
+    * @param session user session (can be null)
+    * @return view binding which should be closed when work on behalf of given session is completed, or null if session is not
+    *         attached to shared object model
+    */
+   public static SharedObjectModel.ViewBinding bindView(NXCSession session)
+   {
+      SharedObjectModel model = (session != null) ? session.getAttachedObjectModel() : null;
+      if (model == null)
+         return null;
+      try
+      {
+         return model.bindView(session);
+      }
+      catch(IllegalArgumentException e)
+      {
+         return null; // Session was detached from model
+      }
+   }
+}
@@ -31,8 +31,11 @@
 import org.eclipse.ui.progress.IProgressService;
 import org.eclipse.ui.progress.IWorkbenchSiteProgressService;
 import org.netxms.client.NXCException;
+import org.netxms.client.NXCSession;
+import org.netxms.client.SharedObjectModel;
 import org.netxms.ui.eclipse.console.Activator;
 import org.netxms.ui.eclipse.console.Messages;
+import org.netxms.ui.eclipse.console.SharedObjectModelManager;
 import org.netxms.ui.eclipse.widgets.MessageBar;
 
 /**
@@ -45,6 +48,7 @@ public abstract class ConsoleJob extends Job
    private MessageBar messageBar;
    private boolean passException = true;
    private Display display;
+   private NXCSession viewSession;
 
    /**
     * Constructor for console job object
@@ -77,6 +81,7 @@ public ConsoleJob(String name, IWorkbenchPart wbPart, String pluginId, MessageBa
       display = Display.getCurrent();
       if (display == null)
          throw new IllegalThreadStateException("ConsoleJob constructor called from non-UI thread");
+      viewSession = SharedObjectModelManager.getSession(display);
    }
 
 	/**
@@ -96,6 +101,7 @@ public ConsoleJob(String name, IWorkbenchPart wbPart, String pluginId, MessageBa
 					(IWorkbenchSiteProgressService)wbPart.getSite().getService(IWorkbenchSiteProgressService.class) : null;
 		setUser(true);
 		this.display = display;
+		viewSession = SharedObjectModelManager.getSession(display);
 	}
 
    /**
@@ -105,6 +111,7 @@ public ConsoleJob(String name, IWorkbenchPart wbPart, String pluginId, MessageBa
    protected IStatus run(IProgressMonitor monitor)
    {
       IStatus status;
+      SharedObjectModel.ViewBinding viewBinding = SharedObjectModelManager.bindView(viewSession);
       try
       {
          runInternal(monitor);
@@ -143,6 +150,8 @@ public void run()
       finally
       {
          jobFinalize();
+         if (viewBinding != null)
+            viewBinding.close();
       }
       return status;
    }
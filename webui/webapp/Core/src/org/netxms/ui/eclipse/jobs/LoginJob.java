@@ -42,12 +42,14 @@
 import org.netxms.client.ProtocolVersion;
 import org.netxms.client.SessionListener;
 import org.netxms.client.SessionNotification;
+import org.netxms.client.SharedObjectModel;
 import org.netxms.client.TwoFactorAuthenticationCallback;
 import org.netxms.client.constants.AuthenticationType;
 import org.netxms.client.constants.RCC;
 import org.netxms.ui.eclipse.console.Activator;
 import org.netxms.ui.eclipse.console.KeepAliveTimer;
 import org.netxms.ui.eclipse.console.Messages;
+import org.netxms.ui.eclipse.console.SharedObjectModelManager;
 import org.netxms.ui.eclipse.console.SourceProvider;
 import org.netxms.ui.eclipse.console.api.ConsoleLoginListener;
 import org.netxms.ui.eclipse.console.api.SessionProvider;
@@ -306,7 +308,41 @@ protected String getErrorMessage()
             });
             objectsFullSync.wait();
          }
-         session.syncObjects(objectsFullSync[0]);
+         SharedObjectModel sharedObjectModel = null;
+         if (SharedObjectModelManager.isEnabled())
+         {
+            final int serverPort = port;
+            try
+            {
+               sharedObjectModel = SharedObjectModelManager.getModel(hostName, serverPort, () -> createSession(hostName, serverPort));
+            }
+            catch(Exception e)
+            {
+               Activator.logError("Cannot use shared object model, falling back to object synchronization by user session", e);
+            }
+         }
+         if (sharedObjectModel != null)
+         {
+            try
+            {
+               sharedObjectModel.attach(session);
+            }
+            catch(Exception e)
+            {
+               Activator.logError("Cannot attach session to shared object model, falling back to object synchronization by user session", e);
+               sharedObjectModel = null;
+            }
+         }
+         if (sharedObjectModel != null)
+         {
+            // UI thread is owned by this UI session for its whole lifetime, so its view binding is never released
+            display.syncExec(() -> SharedObjectModelManager.bindView(session));
+            session.syncObjectCategories();
+         }
+         else
+         {
+            session.syncObjects(objectsFullSync[0]);
+         }
          session.syncAssetManagementSchema();
          monitor.worked(25);
 
@@ -53,6 +53,8 @@ public class Messages extends NLS
    public String BaseFileViewer_HideMessage;
    public String BaseFileViewer_LoadJobError;
    public String BaseFileViewer_LoadJobName;
+   public String BaseFileViewer_SearchJobError;
+   public String BaseFileViewer_SearchJobName;
    public String CreateFolderDialog_Label;
    public String CreateFolderDialog_Title;
    public String DynamicFileViewer_CannotRestartFileTracking;
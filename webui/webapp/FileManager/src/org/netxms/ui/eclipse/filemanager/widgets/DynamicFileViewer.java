@@ -18,6 +18,7 @@
  */
 package org.netxms.ui.eclipse.filemanager.widgets;
 
+import java.io.IOException;
 import java.util.UUID;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.swt.events.DisposeEvent;
@@ -157,7 +158,7 @@ private void restartTracking()
       if (restartJob != null)
          restartJob.cancel();
 
-      text.append("\n\n" + //$NON-NLS-1$
+      appendText("\n\n" + //$NON-NLS-1$
                   "----------------------------------------------------------------------\n" + //$NON-NLS-1$
                   Messages.get().FileViewer_NotifyFollowConnectionLost +
                   "\n----------------------------------------------------------------------\n"); //$NON-NLS-1$
@@ -206,10 +207,17 @@ public void run()
                         }
                         
                         hideMessage();
-                        text.append("-------------------------------------------------------------------------------\n" + //$NON-NLS-1$
+                        appendText("-------------------------------------------------------------------------------\n" + //$NON-NLS-1$
                                     Messages.get().FileViewer_NotifyFollowConnectionEnabed +
                                     "\n-------------------------------------------------------------------------------\n\n"); //$NON-NLS-1$
-                        append(loadFile(file.getFile()));
+                        try
+                        {
+                           appendFile(file.getFile());
+                        }
+                        catch(IOException e)
+                        {
+                           logger.error("Cannot read file " + file.getFile().getAbsolutePath(), e);
+                        }
                         startTracking(file.getMonitorId(), nodeId, remoteFileName);
                      }
                   });
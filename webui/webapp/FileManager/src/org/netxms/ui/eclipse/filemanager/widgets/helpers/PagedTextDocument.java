@@ -0,0 +1,738 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2023 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.ui.eclipse.filemanager.widgets.helpers;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Text document stored in temporary file. Content is accessed via memory-mapped pages, so only requested range of lines is
+ * ever materialized as string. Text is stored in UTF-8.
+ * <p>
+ * Line index is sparse: start offset is recorded only for every <code>CHECKPOINT_LINES</code> lines (or more often for long
+ * lines), and exact line positions are found by scanning from nearest checkpoint. Offsets used by document methods are
+ * logical offsets counted from the beginning of everything ever appended, so they stay valid when leading lines are removed
+ * and temporary file is compacted.
+ */
+public class PagedTextDocument
+{
+   private static final int PAGE_SIZE = 8 * 1024 * 1024;
+   private static final int CHECKPOINT_LINES = 64;
+   private static final int CHECKPOINT_BYTES = 65536;
+   private static final int SEARCH_CHUNK_SIZE = 1024 * 1024;
+
+   private File file;
+   private FileChannel channel;
+   private final List<MappedByteBuffer> pages = new ArrayList<MappedByteBuffer>();
+   private long fileBase = 0;
+   private long size = 0;
+   private int lineCount = 1;
+   private int firstLine = 0;
+   private long firstOffset = 0;
+   private int[] checkpointLines = new int[256];
+   private long[] checkpointOffsets = new long[256];
+   private int checkpointStart = 0;
+   private int checkpointEnd = 1;
+
+   /**
+    * Create new empty document.
+    *
+    * @throws IOException if temporary file cannot be created
+    */
+   public PagedTextDocument() throws IOException
+   {
+      file = createFile();
+      channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+   }
+
+   /**
+    * Create temporary file for document content.
+    *
+    * @return new temporary file
+    * @throws IOException if temporary file cannot be created
+    */
+   private static File createFile() throws IOException
+   {
+      File f = File.createTempFile("nxmc-viewer", ".txt");
+      f.deleteOnExit();
+      return f;
+   }
+
+   /**
+    * Close document and delete temporary file.
+    */
+   public synchronized void dispose()
+   {
+      pages.clear();
+      closeFile(channel, file);
+   }
+
+   /**
+    * Close channel and delete file.
+    *
+    * @param channel file channel
+    * @param file file
+    */
+   private static void closeFile(FileChannel channel, File file)
+   {
+      try
+      {
+         channel.close();
+      }
+      catch(IOException e)
+      {
+      }
+      try
+      {
+         Files.deleteIfExists(file.toPath());
+      }
+      catch(IOException e)
+      {
+         // on some platforms file cannot be deleted while mapped, it will be deleted on exit
+      }
+   }
+
+   /**
+    * Remove all content.
+    *
+    * @throws IOException on I/O error
+    */
+   public synchronized void clear() throws IOException
+   {
+      // Content is moved to new file instead of truncating existing one, because pages of existing file may still be used by
+      // running search
+      replaceFile(size, size);
+      size = 0;
+      fileBase = 0;
+      firstOffset = 0;
+      lineCount = 1;
+      firstLine = 0;
+      checkpointStart = 0;
+      checkpointEnd = 1;
+      checkpointLines[0] = 0;
+      checkpointOffsets[0] = 0;
+   }
+
+   /**
+    * Create copy of this document. Only lines that are not removed are copied.
+    *
+    * @return copy of this document
+    * @throws IOException on I/O error
+    */
+   public synchronized PagedTextDocument copy() throws IOException
+   {
+      PagedTextDocument document = new PagedTextDocument();
+      try
+      {
+         mapPages(size);
+         for(long offset = firstOffset; offset < size; offset += PAGE_SIZE)
+            document.append(read(offset, Math.min(offset + PAGE_SIZE, size)));
+      }
+      catch(IOException e)
+      {
+         document.dispose();
+         throw e;
+      }
+      return document;
+   }
+
+   /**
+    * Append text to document.
+    *
+    * @param text text to append
+    * @throws IOException on I/O error
+    */
+   public void append(String text) throws IOException
+   {
+      if (!text.isEmpty())
+         append(text.getBytes(StandardCharsets.UTF_8));
+   }
+
+   /**
+    * Append UTF-8 encoded text to document and update line index.
+    *
+    * @param bytes text to append
+    * @throws IOException on I/O error
+    */
+   private synchronized void append(byte[] bytes) throws IOException
+   {
+      ByteBuffer buffer = ByteBuffer.wrap(bytes);
+      long position = size - fileBase;
+      while(buffer.hasRemaining())
+         position += channel.write(buffer, position);
+
+      for(int i = 0; i < bytes.length; i++)
+      {
+         if (bytes[i] != '\n')
+            continue;
+
+         int line = lineCount++;
+         long offset = size + i + 1;
+         if ((line - checkpointLines[checkpointEnd - 1] >= CHECKPOINT_LINES) || (offset - checkpointOffsets[checkpointEnd - 1] >= CHECKPOINT_BYTES))
+            addCheckpoint(line, offset);
+      }
+      size += bytes.length;
+   }
+
+   /**
+    * Add line index checkpoint.
+    *
+    * @param line line number
+    * @param offset line start offset
+    */
+   private void addCheckpoint(int line, long offset)
+   {
+      if (checkpointEnd == checkpointLines.length)
+      {
+         if (checkpointStart > checkpointEnd / 2)
+         {
+            compactCheckpoints();
+         }
+         else
+         {
+            checkpointLines = Arrays.copyOf(checkpointLines, checkpointLines.length * 2);
+            checkpointOffsets = Arrays.copyOf(checkpointOffsets, checkpointOffsets.length * 2);
+         }
+      }
+      checkpointLines[checkpointEnd] = line;
+      checkpointOffsets[checkpointEnd] = offset;
+      checkpointEnd++;
+   }
+
+   /**
+    * Move checkpoints of remaining lines to the beginning of index arrays.
+    */
+   private void compactCheckpoints()
+   {
+      int count = checkpointEnd - checkpointStart;
+      System.arraycopy(checkpointLines, checkpointStart, checkpointLines, 0, count);
+      System.arraycopy(checkpointOffsets, checkpointStart, checkpointOffsets, 0, count);
+      checkpointStart = 0;
+      checkpointEnd = count;
+   }
+
+   /**
+    * Drop given number of lines from the beginning of document. Temporary file is compacted when removed lines take more space
+    * than remaining ones.
+    *
+    * @param count number of lines to drop
+    * @throws IOException on I/O error
+    */
+   public synchronized void removeLeadingLines(int count) throws IOException
+   {
+      int line = Math.min(firstLine + count, lineCount - 1);
+      if (line <= firstLine)
+         return;
+
+      firstOffset = getAbsoluteLineOffset(line);
+      firstLine = line;
+      while((checkpointStart + 1 < checkpointEnd) && (checkpointLines[checkpointStart + 1] <= firstLine))
+         checkpointStart++;
+      checkpointLines[checkpointStart] = firstLine;
+      checkpointOffsets[checkpointStart] = firstOffset;
+
+      long removed = firstOffset - fileBase;
+      if ((removed >= PAGE_SIZE) && (removed >= size - firstOffset))
+         compact();
+   }
+
+   /**
+    * Drop lines from the beginning of document so that size of remaining content does not exceed given limit.
+    *
+    * @param maxSize maximum content size in bytes
+    * @return number of dropped lines
+    * @throws IOException on I/O error
+    */
+   public synchronized int trimToSize(long maxSize) throws IOException
+   {
+      if (size - firstOffset <= maxSize)
+         return 0;
+
+      long offset = size - maxSize;
+      int line = getAbsoluteLineAtOffset(offset);
+      if (getAbsoluteLineOffset(line) < offset)
+         line++;
+      int count = Math.min(line, lineCount - 1) - firstLine;
+      removeLeadingLines(count);
+      return count;
+   }
+
+   /**
+    * Move remaining content to new temporary file and re-base line numbers.
+    *
+    * @throws IOException on I/O error
+    */
+   private void compact() throws IOException
+   {
+      replaceFile(firstOffset, size);
+      fileBase = firstOffset;
+
+      compactCheckpoints();
+      for(int i = 0; i < checkpointEnd; i++)
+         checkpointLines[i] -= firstLine;
+      lineCount -= firstLine;
+      firstLine = 0;
+   }
+
+   /**
+    * Replace temporary file with new one containing given range of content. Pages of old file are not unmapped and remain
+    * valid for readers that obtained them earlier.
+    *
+    * @param start start offset of content to keep
+    * @param end end offset of content to keep
+    * @throws IOException on I/O error
+    */
+   private void replaceFile(long start, long end) throws IOException
+   {
+      File newFile = createFile();
+      FileChannel newChannel = FileChannel.open(newFile.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+      try
+      {
+         long position = start - fileBase;
+         long limit = end - fileBase;
+         while(position < limit)
+            position += channel.transferTo(position, limit - position, newChannel);
+      }
+      catch(IOException e)
+      {
+         closeFile(newChannel, newFile);
+         throw e;
+      }
+      closeFile(channel, file);
+      pages.clear();
+      file = newFile;
+      channel = newChannel;
+   }
+
+   /**
+    * Get number of lines. Text after last line feed is counted as separate line, even if it is empty.
+    *
+    * @return number of lines
+    */
+   public synchronized int getLineCount()
+   {
+      return lineCount - firstLine;
+   }
+
+   /**
+    * Get size of document content in bytes.
+    *
+    * @return document content size in bytes
+    */
+   public synchronized long getSize()
+   {
+      return size - firstOffset;
+   }
+
+   /**
+    * Get offset of given line.
+    *
+    * @param line line number
+    * @return offset of line start
+    */
+   public synchronized long getLineOffset(int line)
+   {
+      try
+      {
+         return getAbsoluteLineOffset(firstLine + Math.max(line, 0));
+      }
+      catch(IOException e)
+      {
+         return firstOffset;
+      }
+   }
+
+   /**
+    * Get number of line containing given offset.
+    *
+    * @param offset offset
+    * @return line number
+    */
+   public synchronized int getLineAtOffset(long offset)
+   {
+      try
+      {
+         return getAbsoluteLineAtOffset(offset) - firstLine;
+      }
+      catch(IOException e)
+      {
+         return 0;
+      }
+   }
+
+   /**
+    * Get offset of line with given absolute number.
+    *
+    * @param line absolute line number
+    * @return offset of line start
+    * @throws IOException on I/O error
+    */
+   private long getAbsoluteLineOffset(int line) throws IOException
+   {
+      if (line <= firstLine)
+         return firstOffset;
+      if (line >= lineCount)
+         return size;
+
+      int index = findCheckpoint(checkpointLines, line);
+      long offset = checkpointOffsets[index];
+      int skip = line - checkpointLines[index];
+      if (skip == 0)
+         return offset;
+
+      mapPages(size);
+      while(true)
+      {
+         if (byteAt(offset++) == '\n')
+         {
+            if (--skip == 0)
+               return offset;
+         }
+      }
+   }
+
+   /**
+    * Get absolute number of line containing given offset.
+    *
+    * @param offset offset
+    * @return absolute line number
+    * @throws IOException on I/O error
+    */
+   private int getAbsoluteLineAtOffset(long offset) throws IOException
+   {
+      offset = Math.max(Math.min(offset, size), firstOffset);
+      int index = Arrays.binarySearch(checkpointOffsets, checkpointStart, checkpointEnd, offset);
+      if (index < 0)
+         index = -index - 2;
+      int line = checkpointLines[index];
+      mapPages(size);
+      for(long position = checkpointOffsets[index]; position < offset; position++)
+      {
+         if (byteAt(position) == '\n')
+            line++;
+      }
+      return line;
+   }
+
+   /**
+    * Find last checkpoint for line not greater than given line.
+    *
+    * @param lines checkpoint lines
+    * @param line line number
+    * @return checkpoint index
+    */
+   private int findCheckpoint(int[] lines, int line)
+   {
+      int index = Arrays.binarySearch(lines, checkpointStart, checkpointEnd, line);
+      return (index < 0) ? -index - 2 : index;
+   }
+
+   /**
+    * Get text of given range of lines.
+    *
+    * @param startLine first line
+    * @param count number of lines
+    * @return text of requested lines
+    * @throws IOException on I/O error
+    */
+   public synchronized String getLines(int startLine, int count) throws IOException
+   {
+      return getText(getLineOffset(startLine), getLineOffset(startLine + count));
+   }
+
+   /**
+    * Get text between given offsets.
+    *
+    * @param start start offset (inclusive)
+    * @param end end offset (exclusive)
+    * @return text between given offsets
+    * @throws IOException on I/O error
+    */
+   public synchronized String getText(long start, long end) throws IOException
+   {
+      start = Math.max(start, firstOffset);
+      end = Math.min(end, size);
+      if (end <= start)
+         return "";
+      mapPages(end);
+      return new String(read(start, end), StandardCharsets.UTF_8);
+   }
+
+   /**
+    * Read bytes between given offsets. All pages containing requested range should be mapped.
+    *
+    * @param start start offset (inclusive)
+    * @param end end offset (exclusive)
+    * @return bytes between given offsets
+    */
+   private byte[] read(long start, long end)
+   {
+      return new Content(pages.toArray(new MappedByteBuffer[pages.size()]), fileBase, firstOffset, size).read(start, end);
+   }
+
+   /**
+    * Find given text. Search is case-insensitive and uses same case conversion rules as {@link String#toLowerCase()}. Found text
+    * never spans removed lines. This method can be called from background thread while document is being appended to; content
+    * appended after search start is not searched.
+    *
+    * @param pattern text to find
+    * @param startOffset offset to start search from
+    * @param backward true to search backward from start offset
+    * @param cancelled cancellation check (called periodically)
+    * @return offset of found text or -1 if text not found or search was cancelled
+    * @throws IOException on I/O error
+    */
+   public long find(String pattern, long startOffset, boolean backward, BooleanSupplier cancelled) throws IOException
+   {
+      if (pattern.isEmpty())
+         return -1;
+
+      Content content;
+      synchronized(this)
+      {
+         mapPages(size);
+         content = new Content(pages.toArray(new MappedByteBuffer[pages.size()]), fileBase, firstOffset, size);
+      }
+      if (content.end <= content.start)
+         return -1;
+
+      Matcher matcher = new Matcher(pattern);
+      int overlap = pattern.length() * 4; // each character of a match takes at most 4 bytes in UTF-8
+      int chunkSize = Math.max(SEARCH_CHUNK_SIZE, overlap * 2);
+      if (backward)
+      {
+         long maxStart = Math.max(Math.min(startOffset, content.end - 1), content.start);
+         while(!cancelled.getAsBoolean())
+         {
+            long chunkStart = content.alignForward(Math.max(maxStart - chunkSize, content.start));
+            long chunkEnd = content.alignBackward(Math.min(maxStart + overlap + 1, content.end));
+            String chunk = new String(content.read(chunkStart, chunkEnd), StandardCharsets.UTF_8);
+            int index = matcher.lastIndexIn(chunk, content.charCount(chunkStart, content.alignBackward(maxStart)));
+            if (index >= 0)
+               return chunkStart + utf8Length(chunk, index);
+            if (chunkStart <= content.start)
+               return -1;
+            maxStart = chunkStart - 1;
+         }
+      }
+      else
+      {
+         long position = content.alignForward(Math.max(Math.min(startOffset, content.end), content.start));
+         while((position < content.end) && !cancelled.getAsBoolean())
+         {
+            long chunkEnd = content.alignBackward(Math.min(position + chunkSize, content.end));
+            String chunk = new String(content.read(position, chunkEnd), StandardCharsets.UTF_8);
+            int index = matcher.indexIn(chunk);
+            if (index >= 0)
+               return position + utf8Length(chunk, index);
+            if (chunkEnd == content.end)
+               return -1;
+            position = content.alignBackward(chunkEnd - overlap); // text can span chunk boundary
+         }
+      }
+      return -1;
+   }
+
+   /**
+    * Get length in UTF-8 of given string prefix.
+    *
+    * @param s string
+    * @param length prefix length
+    * @return length of prefix in bytes
+    */
+   private static int utf8Length(String s, int length)
+   {
+      return s.substring(0, length).getBytes(StandardCharsets.UTF_8).length;
+   }
+
+   /**
+    * Make sure that all pages up to given offset are mapped. Last page is re-mapped if document has grown since it was mapped.
+    *
+    * @param end end offset
+    * @throws IOException on I/O error
+    */
+   private void mapPages(long end) throws IOException
+   {
+      long fileSize = size - fileBase;
+      end -= fileBase;
+      if (end <= 0)
+         return;
+      int lastPage = (int)((end - 1) / PAGE_SIZE);
+      for(int i = 0; i <= lastPage; i++)
+      {
+         long pageStart = (long)i * PAGE_SIZE;
+         int length = (int)Math.min(PAGE_SIZE, fileSize - pageStart);
+         if ((i < pages.size()) && (pages.get(i).capacity() >= length))
+            continue;
+         MappedByteBuffer page = channel.map(FileChannel.MapMode.READ_ONLY, pageStart, length);
+         if (i < pages.size())
+            pages.set(i, page);
+         else
+            pages.add(page);
+      }
+   }
+
+   /**
+    * Get byte at given offset. Page containing given offset should be mapped.
+    *
+    * @param offset offset
+    * @return byte at given offset
+    */
+   private byte byteAt(long offset)
+   {
+      long position = offset - fileBase;
+      return pages.get((int)(position / PAGE_SIZE)).get((int)(position % PAGE_SIZE));
+   }
+
+   /**
+    * Snapshot of document content for reading without holding document lock.
+    */
+   private static class Content
+   {
+      final MappedByteBuffer[] pages;
+      final long base;
+      final long start;
+      final long end;
+
+      Content(MappedByteBuffer[] pages, long base, long start, long end)
+      {
+         this.pages = pages;
+         this.base = base;
+         this.start = start;
+         this.end = end;
+      }
+
+      byte byteAt(long offset)
+      {
+         long position = offset - base;
+         return pages[(int)(position / PAGE_SIZE)].get((int)(position % PAGE_SIZE));
+      }
+
+      byte[] read(long from, long to)
+      {
+         byte[] bytes = new byte[(int)(to - from)];
+         int copied = 0;
+         while(copied < bytes.length)
+         {
+            long position = from - base + copied;
+            ByteBuffer page = pages[(int)(position / PAGE_SIZE)].duplicate();
+            page.position((int)(position % PAGE_SIZE));
+            int count = Math.min(page.remaining(), bytes.length - copied);
+            page.get(bytes, copied, count);
+            copied += count;
+         }
+         return bytes;
+      }
+
+      /**
+       * Move offset forward to the nearest character start.
+       */
+      long alignForward(long offset)
+      {
+         while((offset < end) && isContinuationByte(byteAt(offset)))
+            offset++;
+         return offset;
+      }
+
+      /**
+       * Move offset backward to the nearest character start.
+       */
+      long alignBackward(long offset)
+      {
+         while((offset > start) && (offset < end) && isContinuationByte(byteAt(offset)))
+            offset--;
+         return offset;
+      }
+
+      /**
+       * Count UTF-16 characters encoded between given offsets (both should be at character start).
+       */
+      int charCount(long from, long to)
+      {
+         int count = 0;
+         for(long offset = from; offset < to; offset++)
+         {
+            byte b = byteAt(offset);
+            if (!isContinuationByte(b))
+               count += ((b & 0xF8) == 0xF0) ? 2 : 1; // 4 byte sequence is decoded into surrogate pair
+         }
+         return count;
+      }
+
+      static boolean isContinuationByte(byte b)
+      {
+         return (b & 0xC0) == 0x80;
+      }
+   }
+
+   /**
+    * Case-insensitive matcher for search pattern
+    */
+   private static class Matcher
+   {
+      final String pattern;
+      final String charPattern;
+
+      Matcher(String pattern)
+      {
+         this.pattern = pattern.toLowerCase();
+         this.charPattern = toLowerCaseByChar(pattern);
+      }
+
+      /**
+       * Find first occurrence of pattern in given text.
+       */
+      int indexIn(String text)
+      {
+         String s = text.toLowerCase();
+         return (s.length() == text.length()) ? s.indexOf(pattern) : toLowerCaseByChar(text).indexOf(charPattern);
+      }
+
+      /**
+       * Find last occurrence of pattern in given text starting at or before given index.
+       */
+      int lastIndexIn(String text, int fromIndex)
+      {
+         String s = text.toLowerCase();
+         return (s.length() == text.length()) ? s.lastIndexOf(pattern, fromIndex) : toLowerCaseByChar(text).lastIndexOf(charPattern, fromIndex);
+      }
+
+      /**
+       * Convert string to lower case character by character. Unlike {@link String#toLowerCase()} this conversion never
+       * changes string length, so it is used when indexes in converted string should match indexes in original one.
+       */
+      static String toLowerCaseByChar(String s)
+      {
+         char[] chars = s.toCharArray();
+         for(int i = 0; i < chars.length; i++)
+            chars[i] = Character.toLowerCase(chars[i]);
+         return new String(chars);
+      }
+   }
+}
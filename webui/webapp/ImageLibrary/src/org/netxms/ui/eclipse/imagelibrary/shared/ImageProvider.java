@@ -18,9 +18,9 @@
  */
 package org.netxms.ui.eclipse.imagelibrary.shared;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -33,7 +33,6 @@
 import org.eclipse.core.runtime.Status;
 import org.eclipse.jface.resource.ImageDescriptor;
 import org.eclipse.rap.rwt.RWT;
-import org.eclipse.swt.SWTException;
 import org.eclipse.swt.graphics.Image;
 import org.eclipse.swt.graphics.ImageData;
 import org.eclipse.swt.widgets.Display;
@@ -83,6 +82,7 @@ public static ImageProvider getInstance()
 
    private final NXCSession session;
    private final Display display;
+   private final SharedImageCache sharedCache;
    private final Image missingImage;
    private final Map<UUID, Image> imageCache = Collections.synchronizedMap(new HashMap<UUID, Image>());
    private final Map<UUID, Image> objectIconCache = Collections.synchronizedMap(new HashMap<UUID, Image>());
@@ -99,6 +99,7 @@ private ImageProvider(Display display, NXCSession session)
 	{
 		this.display = display;
 		this.session = session;
+		sharedCache = SharedImageCache.getInstance();
 		final ImageDescriptor imageDescriptor = AbstractUIPlugin.imageDescriptorFromPlugin(Activator.PLUGIN_ID, "icons/missing.png"); //$NON-NLS-1$
 		missingImage = imageDescriptor.createImage(display);
 	}
@@ -182,15 +183,20 @@ public Image getImage(final UUID guid)
 	   if (guid == null)
 	      return missingImage;
 
-		final Image image;
-		if (imageCache.containsKey(guid))
+		Image image = imageCache.get(guid);
+		if (image == null)
 		{
-			image = imageCache.get(guid);
-		}
-		else
-		{
-			image = missingImage;
-         loadImageFromServer(guid);
+         ImageData imageData = libraryIndex.containsKey(guid) ? sharedCache.getCachedImageData(guid) : null;
+         if (imageData != null)
+         {
+            image = new Image(display, imageData);
+            imageCache.put(guid, image);
+         }
+         else
+         {
+            image = missingImage;
+            loadImageFromServer(guid);
+         }
 		}
 		return image;
 	}
@@ -207,30 +213,18 @@ public Image getObjectIcon(final UUID guid)
       if (guid == null)
          return missingImage;
 
-      Image image;
-      if (objectIconCache.containsKey(guid))
-      {
-         image = objectIconCache.get(guid);
-      }
-      else if (imageCache.containsKey(guid))
-      {
-         image = imageCache.get(guid);
-         ImageData imageData = image.getImageData();
-         if ((imageData.width == 16) && (imageData.height == 16))
-         {
-            objectIconCache.put(guid, image);
-         }
-         else
-         {
-            image = new Image(display, imageData.scaledTo(16, 16));
-            objectIconCache.put(guid, image);
-         }
-      }
-      else
-      {
-         image = missingImage;
-         loadImageFromServer(guid);
-      }
+      Image image = objectIconCache.get(guid);
+      if (image != null)
+         return image;
+
+      image = getImage(guid);
+      if (image == missingImage)
+         return missingImage;
+
+      ImageData imageData = image.getImageData();
+      if ((imageData.width != 16) || (imageData.height != 16))
+         image = new Image(display, imageData.scaledTo(16, 16));
+      objectIconCache.put(guid, image);
       return image;
    }
 
@@ -241,51 +235,85 @@ else if (imageCache.containsKey(guid))
     */
 	private void loadImageFromServer(final UUID guid)
 	{
-      imageCache.put(guid, missingImage);
-      if (!libraryIndex.containsKey(guid))
+      prefetchImages(Collections.singletonList(guid));
+	}
+
+   /**
+    * Prefetch images (for example, all images referenced by network map or dashboard). All missing images are loaded by single
+    * background job from shared image cache or from server, and listeners are notified once images are available.
+    *
+    * @param guids GUIDs of images to prefetch
+    */
+   public void prefetchImages(Collection<UUID> guids)
+   {
+      final List<UUID> missingImages = new ArrayList<UUID>(guids.size());
+      for(UUID guid : guids)
+      {
+         if ((guid == null) || !libraryIndex.containsKey(guid))
+            continue;
+         synchronized(imageCache)
+         {
+            if (imageCache.containsKey(guid))
+               continue;
+            imageCache.put(guid, missingImage);
+         }
+         missingImages.add(guid);
+      }
+      if (missingImages.isEmpty())
          return;
 
-      ConsoleJob job = new ConsoleJob("Loading image from server", null, Activator.PLUGIN_ID) {
+      ConsoleJob job = new ConsoleJob("Loading images from server", null, Activator.PLUGIN_ID) {
          @Override
          protected void runInternal(IProgressMonitor monitor) throws Exception
          {
-            LibraryImage libraryImage;
-            try
+            final Map<UUID, ImageData> loadedImages = new HashMap<UUID, ImageData>(missingImages.size());
+            for(UUID guid : missingImages)
             {
-               libraryImage = session.getImage(guid);
-               final ByteArrayInputStream stream = new ByteArrayInputStream(libraryImage.getBinaryData());
-               runInUIThread(new Runnable() {
-                  @Override
-                  public void run()
+               try
+               {
+                  loadedImages.put(guid, sharedCache.getImageData(guid, (id) -> session.getImage(id).getBinaryData()));
+               }
+               catch(Exception e)
+               {
+                  Activator.logError("Cannot retrive image from server", e);
+               }
+            }
+            if (loadedImages.isEmpty())
+               return;
+
+            runInUIThread(new Runnable() {
+               @Override
+               public void run()
+               {
+                  for(Map.Entry<UUID, ImageData> e : loadedImages.entrySet())
                   {
+                     // Image could be updated or deleted while loading
+                     if (imageCache.get(e.getKey()) != missingImage)
+                        continue;
                      try
                      {
-                        imageCache.put(guid, new Image(display, stream));
-                        notifyListeners(guid);
+                        imageCache.put(e.getKey(), new Image(display, e.getValue()));
                      }
-                     catch(SWTException e)
+                     catch(Exception ex)
                      {
-                        Activator.logError("Cannot decode image", e);
-                        imageCache.put(guid, missingImage);
+                        Activator.logError("Cannot create image", ex);
+                        continue;
                      }
+                     notifyListeners(e.getKey());
                   }
-               });
-            }
-            catch(Exception e)
-            {
-               Activator.logError("Cannot retrive image from server", e);
-            }
+               }
+            });
          }
 
          @Override
          protected String getErrorMessage()
          {
-            return "Cannot load image from server";
+            return "Cannot load images from server";
          }
       };
       job.setUser(false);
       job.start();
-	}
+   }
 
 	/**
 	 * Get image library object
@@ -326,6 +354,15 @@ public void updateImage(final UUID guid)
          protected void runInternal(IProgressMonitor monitor) throws Exception
          {
             LibraryImage imageHandle = session.getImage(guid);
+            try
+            {
+               sharedCache.update(guid, imageHandle.getBinaryData());
+            }
+            catch(Exception e)
+            {
+               Activator.logError("Cannot decode image", e);
+               sharedCache.remove(guid);
+            }
             libraryIndex.put(guid, imageHandle);
             runInUIThread(new Runnable() {
                @Override
@@ -369,6 +406,7 @@ public void deleteImage(UUID guid)
          image.dispose();
 
       libraryIndex.remove(guid);
+      sharedCache.remove(guid);
 
       display.asyncExec(new Runnable() {
          @Override
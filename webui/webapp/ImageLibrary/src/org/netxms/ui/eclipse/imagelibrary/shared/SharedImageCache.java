@@ -0,0 +1,438 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2023 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.ui.eclipse.imagelibrary.shared;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import org.eclipse.swt.graphics.ImageData;
+import org.netxms.ui.eclipse.console.AppPropertiesLoader;
+import org.netxms.ui.eclipse.imagelibrary.Activator;
+
+/**
+ * JVM-wide cache of library images shared by all web sessions. Decoded image data is kept in memory with size-bounded LRU
+ * eviction. Encoded image data is also kept in on-disk tier, so image evicted from memory can be decoded again without
+ * requesting it from server. Each cache entry is identified by image GUID and hash of image content. Sessions create their own
+ * display-bound images from shared image data.
+ */
+public final class SharedImageCache
+{
+   private static SharedImageCache instance = null;
+
+   /**
+    * Get shared cache instance. Cache limits are read from application properties <code>imageCache.memoryLimit</code> and
+    * <code>imageCache.diskLimit</code> (both in megabytes, setting disk limit to 0 disables on-disk tier).
+    *
+    * @return shared cache instance
+    */
+   public static synchronized SharedImageCache getInstance()
+   {
+      if (instance == null)
+      {
+         AppPropertiesLoader properties = new AppPropertiesLoader();
+         instance = new SharedImageCache(properties.getPropertyAsInteger("imageCache.memoryLimit", 64) * 1048576L,
+               properties.getPropertyAsInteger("imageCache.diskLimit", 256) * 1048576L);
+      }
+      return instance;
+   }
+
+   /**
+    * Image loader
+    */
+   public interface Loader
+   {
+      /**
+       * Load encoded image data.
+       *
+       * @param guid image GUID
+       * @return encoded image data
+       * @throws Exception on any error
+       */
+      public byte[] load(UUID guid) throws Exception;
+   }
+
+   private final long memoryLimit;
+   private final long diskLimit;
+   private final LinkedHashMap<UUID, MemoryEntry> memoryCache = new LinkedHashMap<UUID, MemoryEntry>(256, 0.75f, true);
+   private final LinkedHashMap<UUID, DiskEntry> diskCache = new LinkedHashMap<UUID, DiskEntry>(256, 0.75f, true);
+   private final Map<UUID, CompletableFuture<ImageData>> pendingLoads = new ConcurrentHashMap<UUID, CompletableFuture<ImageData>>();
+   private long memoryUsage = 0;
+   private long diskUsage = 0;
+   private File diskCacheDirectory = null;
+
+   /**
+    * Create new cache.
+    *
+    * @param memoryLimit memory tier size limit in bytes
+    * @param diskLimit disk tier size limit in bytes (0 to disable disk tier)
+    */
+   private SharedImageCache(long memoryLimit, long diskLimit)
+   {
+      this.memoryLimit = memoryLimit;
+      this.diskLimit = diskLimit;
+      if (diskLimit > 0)
+      {
+         try
+         {
+            diskCacheDirectory = Files.createTempDirectory("nxmc-images").toFile();
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> deleteDiskCache(), "ImageCacheCleanup"));
+         }
+         catch(IOException e)
+         {
+            Activator.logError("Cannot create directory for image cache", e);
+         }
+      }
+   }
+
+   /**
+    * Get image data from memory tier. This method never does any I/O and can be safely called from UI thread.
+    *
+    * @param guid image GUID
+    * @return decoded image data or null if image is not in memory tier
+    */
+   public ImageData getCachedImageData(UUID guid)
+   {
+      synchronized(memoryCache)
+      {
+         MemoryEntry e = memoryCache.get(guid);
+         return (e != null) ? e.imageData : null;
+      }
+   }
+
+   /**
+    * Get image data, loading it from disk tier or using given loader if necessary. Concurrent requests for same image from
+    * different sessions are served by single load.
+    *
+    * @param guid image GUID
+    * @param loader loader for image data
+    * @return decoded image data
+    * @throws Exception if image cannot be loaded or decoded
+    */
+   public ImageData getImageData(UUID guid, Loader loader) throws Exception
+   {
+      ImageData imageData = getCachedImageData(guid);
+      if (imageData != null)
+         return imageData;
+
+      CompletableFuture<ImageData> future = new CompletableFuture<ImageData>();
+      CompletableFuture<ImageData> pending = pendingLoads.putIfAbsent(guid, future);
+      if (pending != null)
+      {
+         try
+         {
+            return pending.get();
+         }
+         catch(ExecutionException e)
+         {
+            throw (e.getCause() instanceof Exception) ? (Exception)e.getCause() : e;
+         }
+      }
+
+      try
+      {
+         imageData = getCachedImageData(guid); // could be loaded while this thread was registering pending load
+         if (imageData == null)
+         {
+            imageData = loadFromDisk(guid);
+            if (imageData == null)
+               imageData = update(guid, loader.load(guid));
+         }
+         future.complete(imageData);
+         return imageData;
+      }
+      catch(Exception e)
+      {
+         future.completeExceptionally(e);
+         throw e;
+      }
+      finally
+      {
+         pendingLoads.remove(guid);
+      }
+   }
+
+   /**
+    * Update cached image with new content. If content hash matches already cached version, existing decoded data is retained.
+    *
+    * @param guid image GUID
+    * @param data encoded image data
+    * @return decoded image data
+    * @throws Exception if image data cannot be decoded
+    */
+   public ImageData update(UUID guid, byte[] data) throws Exception
+   {
+      String hash = calculateHash(data);
+      synchronized(memoryCache)
+      {
+         MemoryEntry e = memoryCache.get(guid);
+         if ((e != null) && e.hash.equals(hash))
+            return e.imageData;
+      }
+
+      ImageData imageData = new ImageData(new ByteArrayInputStream(data));
+      putToMemory(guid, new MemoryEntry(hash, imageData));
+      putToDisk(guid, hash, data);
+      return imageData;
+   }
+
+   /**
+    * Remove image from cache.
+    *
+    * @param guid image GUID
+    */
+   public void remove(UUID guid)
+   {
+      synchronized(memoryCache)
+      {
+         MemoryEntry e = memoryCache.remove(guid);
+         if (e != null)
+            memoryUsage -= e.size;
+      }
+      synchronized(diskCache)
+      {
+         DiskEntry e = diskCache.remove(guid);
+         if (e != null)
+         {
+            diskUsage -= e.size;
+            e.file.delete();
+         }
+      }
+   }
+
+   /**
+    * Get number of images in memory tier.
+    *
+    * @return number of images in memory tier
+    */
+   public int getMemoryEntryCount()
+   {
+      synchronized(memoryCache)
+      {
+         return memoryCache.size();
+      }
+   }
+
+   /**
+    * Get estimated size of decoded images in memory tier.
+    *
+    * @return estimated memory tier size in bytes
+    */
+   public long getMemoryUsage()
+   {
+      synchronized(memoryCache)
+      {
+         return memoryUsage;
+      }
+   }
+
+   /**
+    * Put decoded image into memory tier, evicting least recently used images if memory limit is exceeded.
+    *
+    * @param guid image GUID
+    * @param entry new entry
+    */
+   private void putToMemory(UUID guid, MemoryEntry entry)
+   {
+      synchronized(memoryCache)
+      {
+         MemoryEntry prev = memoryCache.put(guid, entry);
+         if (prev != null)
+            memoryUsage -= prev.size;
+         memoryUsage += entry.size;
+
+         Iterator<MemoryEntry> it = memoryCache.values().iterator();
+         while((memoryUsage > memoryLimit) && (memoryCache.size() > 1) && it.hasNext())
+         {
+            MemoryEntry e = it.next();
+            if (e == entry)
+               continue;
+            memoryUsage -= e.size;
+            it.remove();
+         }
+      }
+   }
+
+   /**
+    * Load image from disk tier and put it back into memory tier.
+    *
+    * @param guid image GUID
+    * @return decoded image data or null if image is not in disk tier
+    */
+   private ImageData loadFromDisk(UUID guid)
+   {
+      DiskEntry e;
+      synchronized(diskCache)
+      {
+         e = diskCache.get(guid);
+      }
+      if (e == null)
+         return null;
+
+      try
+      {
+         byte[] data = Files.readAllBytes(e.file.toPath());
+         ImageData imageData = new ImageData(new ByteArrayInputStream(data));
+         putToMemory(guid, new MemoryEntry(e.hash, imageData));
+         return imageData;
+      }
+      catch(Exception ex)
+      {
+         Activator.logError("Cannot read image " + guid + " from disk cache", ex);
+         synchronized(diskCache)
+         {
+            if (diskCache.remove(guid, e))
+               diskUsage -= e.size;
+         }
+         return null;
+      }
+   }
+
+   /**
+    * Put encoded image data into disk tier, evicting least recently used images if disk limit is exceeded.
+    *
+    * @param guid image GUID
+    * @param hash content hash
+    * @param data encoded image data
+    */
+   private void putToDisk(UUID guid, String hash, byte[] data)
+   {
+      if ((diskCacheDirectory == null) || (data.length > diskLimit))
+         return;
+
+      File file = new File(diskCacheDirectory, guid.toString() + "." + hash);
+      try
+      {
+         Files.write(file.toPath(), data);
+      }
+      catch(IOException e)
+      {
+         Activator.logError("Cannot write image " + guid + " to disk cache", e);
+         return;
+      }
+
+      synchronized(diskCache)
+      {
+         DiskEntry prev = diskCache.put(guid, new DiskEntry(hash, file, data.length));
+         if (prev != null)
+         {
+            diskUsage -= prev.size;
+            if (!prev.file.equals(file))
+               prev.file.delete();
+         }
+         diskUsage += data.length;
+
+         Iterator<Map.Entry<UUID, DiskEntry>> it = diskCache.entrySet().iterator();
+         while((diskUsage > diskLimit) && it.hasNext())
+         {
+            Map.Entry<UUID, DiskEntry> e = it.next();
+            if (e.getKey().equals(guid))
+               continue;
+            diskUsage -= e.getValue().size;
+            e.getValue().file.delete();
+            it.remove();
+         }
+      }
+   }
+
+   /**
+    * Delete disk tier files.
+    */
+   private void deleteDiskCache()
+   {
+      File[] files = diskCacheDirectory.listFiles();
+      if (files != null)
+      {
+         for(File f : files)
+            f.delete();
+      }
+      diskCacheDirectory.delete();
+   }
+
+   /**
+    * Calculate hash of image content.
+    *
+    * @param data encoded image data
+    * @return hash as hex string
+    */
+   private static String calculateHash(byte[] data)
+   {
+      try
+      {
+         byte[] digest = MessageDigest.getInstance("SHA-1").digest(data);
+         StringBuilder sb = new StringBuilder(digest.length * 2);
+         for(byte b : digest)
+            sb.append(String.format("%02x", b & 0xFF));
+         return sb.toString();
+      }
+      catch(NoSuchAlgorithmException e)
+      {
+         return Integer.toHexString(data.length) + Integer.toHexString(Arrays.hashCode(data));
+      }
+   }
+
+   /**
+    * Memory tier entry
+    */
+   private static class MemoryEntry
+   {
+      final String hash;
+      final ImageData imageData;
+      final long size;
+
+      MemoryEntry(String hash, ImageData imageData)
+      {
+         this.hash = hash;
+         this.imageData = imageData;
+         long s = (imageData.data != null) ? imageData.data.length : 0;
+         if (imageData.alphaData != null)
+            s += imageData.alphaData.length;
+         if (imageData.maskData != null)
+            s += imageData.maskData.length;
+         size = s;
+      }
+   }
+
+   /**
+    * Disk tier entry
+    */
+   private static class DiskEntry
+   {
+      final String hash;
+      final File file;
+      final long size;
+
+      DiskEntry(String hash, File file, long size)
+      {
+         this.hash = hash;
+         this.file = file;
+         this.size = size;
+      }
+   }
+}
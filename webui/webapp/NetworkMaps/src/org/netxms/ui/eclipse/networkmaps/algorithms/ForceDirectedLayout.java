@@ -0,0 +1,276 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2023 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.ui.eclipse.networkmaps.algorithms;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import org.eclipse.gef4.zest.layouts.LayoutAlgorithm;
+import org.eclipse.gef4.zest.layouts.dataStructures.DisplayIndependentDimension;
+import org.eclipse.gef4.zest.layouts.dataStructures.DisplayIndependentRectangle;
+import org.eclipse.gef4.zest.layouts.interfaces.ConnectionLayout;
+import org.eclipse.gef4.zest.layouts.interfaces.EntityLayout;
+import org.eclipse.gef4.zest.layouts.interfaces.LayoutContext;
+import org.eclipse.rap.rwt.service.ServerPushSession;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Item;
+import org.netxms.client.maps.elements.NetworkMapElement;
+import org.netxms.ui.eclipse.networkmaps.Activator;
+
+/**
+ * Force-directed layout which is calculated on background thread. Call to applyLayout() only collects graph structure and
+ * starts calculation, intermediate and final positions are applied to graph on UI thread not more often than once per frame
+ * interval. Positions from previous run (or positions stored in map elements) are used as starting point, so re-layout after
+ * small change of map converges quickly.
+ */
+public class ForceDirectedLayout implements LayoutAlgorithm
+{
+   private static final long FRAME_INTERVAL = 250;
+
+   private LayoutContext context;
+   private boolean fitToBounds;
+   private Map<Long, double[]> lastPositions = new HashMap<Long, double[]>();
+   private Worker worker = null;
+
+   /**
+    * Create new layout.
+    *
+    * @param fitToBounds true to scale layout to fit into visible area
+    */
+   public ForceDirectedLayout(boolean fitToBounds)
+   {
+      this.fitToBounds = fitToBounds;
+   }
+
+   /**
+    * @see org.eclipse.gef4.zest.layouts.LayoutAlgorithm#setLayoutContext(org.eclipse.gef4.zest.layouts.interfaces.LayoutContext)
+    */
+   @Override
+   public void setLayoutContext(LayoutContext context)
+   {
+      cancel();
+      this.context = context;
+   }
+
+   /**
+    * @see org.eclipse.gef4.zest.layouts.LayoutAlgorithm#applyLayout(boolean)
+    */
+   @Override
+   public void applyLayout(boolean clean)
+   {
+      if (!clean)
+         return;
+
+      cancel();
+
+      EntityLayout[] entities = context.getEntities();
+      if (entities.length == 0)
+         return;
+
+      Map<EntityLayout, Integer> index = new IdentityHashMap<EntityLayout, Integer>(entities.length);
+      for(int i = 0; i < entities.length; i++)
+         index.put(entities[i], i);
+
+      ConnectionLayout[] connections = context.getConnections();
+      int[] source = new int[connections.length];
+      int[] target = new int[connections.length];
+      int edgeCount = 0;
+      for(ConnectionLayout c : connections)
+      {
+         Integer s = index.get(c.getSource());
+         Integer t = index.get(c.getTarget());
+         if ((s == null) || (t == null) || s.equals(t))
+            continue;
+         source[edgeCount] = s;
+         target[edgeCount++] = t;
+      }
+      if (edgeCount < connections.length)
+      {
+         int[] tmp = new int[edgeCount];
+         System.arraycopy(source, 0, tmp, 0, edgeCount);
+         source = tmp;
+         tmp = new int[edgeCount];
+         System.arraycopy(target, 0, tmp, 0, edgeCount);
+         target = tmp;
+      }
+
+      ForceDirectedLayoutEngine engine = new ForceDirectedLayoutEngine(entities.length, source, target);
+      long[] elementIds = new long[entities.length];
+      boolean useStoredPositions = lastPositions.isEmpty(); // do not mix stored positions with positions from previous run
+      double maxSize = 0;
+      for(int i = 0; i < entities.length; i++)
+      {
+         DisplayIndependentDimension size = entities[i].getSize();
+         maxSize = Math.max(maxSize, Math.max(size.width, size.height));
+
+         NetworkMapElement element = getMapElement(entities[i]);
+         elementIds[i] = (element != null) ? element.getId() : -1;
+         if (element == null)
+            continue;
+         double[] p = lastPositions.get(element.getId());
+         if (p != null)
+            engine.setPosition(i, p[0], p[1]);
+         else if (useStoredPositions && ((element.getX() != 0) || (element.getY() != 0)))
+            engine.setPosition(i, element.getX(), element.getY());
+      }
+      engine.setIdealEdgeLength(Math.max(maxSize * 1.5, 60));
+
+      worker = new Worker(engine, entities, elementIds, Display.getCurrent());
+      worker.start();
+   }
+
+   /**
+    * Cancel running layout calculation. Positions already applied to graph are kept.
+    */
+   public void cancel()
+   {
+      if (worker != null)
+      {
+         worker.cancelled = true;
+         worker = null;
+      }
+   }
+
+   /**
+    * Get map element for given entity.
+    *
+    * @param entity layout entity
+    * @return map element or null
+    */
+   private static NetworkMapElement getMapElement(EntityLayout entity)
+   {
+      Item[] items = entity.getItems();
+      return ((items.length > 0) && (items[0].getData() instanceof NetworkMapElement)) ? (NetworkMapElement)items[0].getData() : null;
+   }
+
+   /**
+    * Layout calculation thread
+    */
+   private class Worker extends Thread implements ForceDirectedLayoutEngine.FrameListener
+   {
+      private final ForceDirectedLayoutEngine engine;
+      private final EntityLayout[] entities;
+      private final long[] elementIds;
+      private final Display display;
+      private final ServerPushSession pushSession;
+      private volatile boolean cancelled = false;
+
+      Worker(ForceDirectedLayoutEngine engine, EntityLayout[] entities, long[] elementIds, Display display)
+      {
+         super("Network map layout");
+         setDaemon(true);
+         this.engine = engine;
+         this.entities = entities;
+         this.elementIds = elementIds;
+         this.display = display;
+         pushSession = new ServerPushSession();
+         pushSession.start();
+      }
+
+      /**
+       * @see java.lang.Thread#run()
+       */
+      @Override
+      public void run()
+      {
+         try
+         {
+            engine.run(this, FRAME_INTERVAL, () -> cancelled || display.isDisposed());
+         }
+         catch(Exception e)
+         {
+            Activator.logError("Exception in network map layout thread", e);
+         }
+         finally
+         {
+            if (!display.isDisposed())
+            {
+               display.asyncExec(new Runnable() {
+                  @Override
+                  public void run()
+                  {
+                     pushSession.stop();
+                  }
+               });
+            }
+         }
+      }
+
+      /**
+       * @see org.netxms.ui.eclipse.networkmaps.algorithms.ForceDirectedLayoutEngine.FrameListener#onFrame(double[], double[], boolean)
+       */
+      @Override
+      public void onFrame(final double[] x, final double[] y, final boolean finished)
+      {
+         if (cancelled || display.isDisposed())
+            return;
+         display.asyncExec(new Runnable() {
+            @Override
+            public void run()
+            {
+               if (cancelled)
+                  return;
+               if (finished)
+               {
+                  for(int i = 0; i < elementIds.length; i++)
+                     if (elementIds[i] != -1)
+                        lastPositions.put(elementIds[i], new double[] { x[i], y[i] });
+               }
+               applyPositions(x, y);
+            }
+         });
+      }
+
+      /**
+       * Apply calculated positions to graph. Must be called on UI thread.
+       */
+      private void applyPositions(double[] x, double[] y)
+      {
+         double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE, maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+         for(int i = 0; i < x.length; i++)
+         {
+            minX = Math.min(minX, x[i]);
+            maxX = Math.max(maxX, x[i]);
+            minY = Math.min(minY, y[i]);
+            maxY = Math.max(maxY, y[i]);
+         }
+
+         // Shift layout to positive coordinates with margin, or scale it to visible area
+         double scaleX = 1, scaleY = 1;
+         double offsetX = entities[0].getSize().width, offsetY = entities[0].getSize().height;
+         if (fitToBounds)
+         {
+            DisplayIndependentRectangle bounds = context.getBounds();
+            if ((bounds.width > offsetX * 2) && (maxX > minX))
+               scaleX = (bounds.width - offsetX * 2) / (maxX - minX);
+            if ((bounds.height > offsetY * 2) && (maxY > minY))
+               scaleY = (bounds.height - offsetY * 2) / (maxY - minY);
+            offsetX += bounds.x;
+            offsetY += bounds.y;
+         }
+
+         for(int i = 0; i < entities.length; i++)
+         {
+            if (entities[i].isMovable())
+               entities[i].setLocation((x[i] - minX) * scaleX + offsetX, (y[i] - minY) * scaleY + offsetY);
+         }
+         context.flushChanges(false);
+      }
+   }
+}
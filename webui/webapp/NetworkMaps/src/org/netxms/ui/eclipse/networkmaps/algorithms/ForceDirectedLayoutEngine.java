@@ -0,0 +1,604 @@
+/**
+ * NetXMS - open source network management system
+ * Copyright (C) 2003-2023 Raden Solutions
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.netxms.ui.eclipse.networkmaps.algorithms;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Force-directed (spring-electrical) layout engine. Works on primitive coordinate arrays and does not depend on UI toolkit,
+ * so it can be run on any thread. Repulsive forces are approximated with Barnes-Hut quadtree, which gives O(n log n) cost per
+ * iteration instead of O(n^2).
+ */
+public class ForceDirectedLayoutEngine
+{
+   /**
+    * Listener for intermediate and final layout results
+    */
+   public interface FrameListener
+   {
+      /**
+       * Called when new frame is available. Arrays are copies owned by listener.
+       *
+       * @param x X coordinates of node centers
+       * @param y Y coordinates of node centers
+       * @param finished true if this is final frame
+       */
+      public void onFrame(double[] x, double[] y, boolean finished);
+   }
+
+   private static final double MIN_DISTANCE = 0.01;
+   private static final double STEP_RATIO = 0.9;
+   private static final double TOLERANCE = 0.01;
+
+   private final int nodeCount;
+   private final int[] edgeSource;
+   private final int[] edgeTarget;
+   private final double[] x;
+   private final double[] y;
+   private final double[] dx;
+   private final double[] dy;
+   private final boolean[] placed;
+   private final QuadTree tree;
+   private double idealEdgeLength = 120;
+   private double theta = 0.8;
+   private double gravity = 0.02;
+   private int maxIterations = 300;
+   private int warmStartIterations = 60;
+   private long seed = 0;
+   private double averageShift;
+
+   /**
+    * Create new layout engine.
+    *
+    * @param nodeCount number of nodes
+    * @param edgeSource source node index for each edge
+    * @param edgeTarget target node index for each edge
+    */
+   public ForceDirectedLayoutEngine(int nodeCount, int[] edgeSource, int[] edgeTarget)
+   {
+      if (edgeSource.length != edgeTarget.length)
+         throw new IllegalArgumentException("Edge source and target arrays must have same length");
+      this.nodeCount = nodeCount;
+      this.edgeSource = edgeSource;
+      this.edgeTarget = edgeTarget;
+      x = new double[nodeCount];
+      y = new double[nodeCount];
+      dx = new double[nodeCount];
+      dy = new double[nodeCount];
+      placed = new boolean[nodeCount];
+      tree = new QuadTree(nodeCount);
+   }
+
+   /**
+    * Set initial position of node (for warm start). Nodes without initial position are placed near already placed neighbors
+    * or randomly.
+    *
+    * @param node node index
+    * @param px X coordinate of node center
+    * @param py Y coordinate of node center
+    */
+   public void setPosition(int node, double px, double py)
+   {
+      x[node] = px;
+      y[node] = py;
+      placed[node] = true;
+   }
+
+   /**
+    * @param idealEdgeLength ideal distance between connected nodes
+    */
+   public void setIdealEdgeLength(double idealEdgeLength)
+   {
+      this.idealEdgeLength = idealEdgeLength;
+   }
+
+   /**
+    * @param theta Barnes-Hut accuracy parameter (0 means exact calculation, larger values mean faster but less accurate)
+    */
+   public void setTheta(double theta)
+   {
+      this.theta = theta;
+   }
+
+   /**
+    * @param gravity strength of attraction to the center of mass (keeps disconnected components together)
+    */
+   public void setGravity(double gravity)
+   {
+      this.gravity = gravity;
+   }
+
+   /**
+    * @param maxIterations number of iterations for cold start
+    */
+   public void setMaxIterations(int maxIterations)
+   {
+      this.maxIterations = maxIterations;
+   }
+
+   /**
+    * @param warmStartIterations number of iterations when most nodes have initial position
+    */
+   public void setWarmStartIterations(int warmStartIterations)
+   {
+      this.warmStartIterations = warmStartIterations;
+   }
+
+   /**
+    * @param seed seed for random placement of nodes without initial position
+    */
+   public void setSeed(long seed)
+   {
+      this.seed = seed;
+   }
+
+   /**
+    * Get number of nodes.
+    *
+    * @return number of nodes
+    */
+   public int getNodeCount()
+   {
+      return nodeCount;
+   }
+
+   /**
+    * Get calculated X coordinates (live array, should not be accessed while engine is running).
+    *
+    * @return X coordinates of node centers
+    */
+   public double[] getX()
+   {
+      return x;
+   }
+
+   /**
+    * Get calculated Y coordinates (live array, should not be accessed while engine is running).
+    *
+    * @return Y coordinates of node centers
+    */
+   public double[] getY()
+   {
+      return y;
+   }
+
+   /**
+    * Run layout calculation on calling thread.
+    *
+    * @param listener frame listener (can be null)
+    * @param frameInterval minimal interval between intermediate frames in milliseconds (0 to disable intermediate frames)
+    * @param cancelled cancellation check (called once per iteration, can be null)
+    * @return true if layout was completed and false if it was cancelled
+    */
+   public boolean run(FrameListener listener, long frameInterval, BooleanSupplier cancelled)
+   {
+      if (nodeCount == 0)
+      {
+         if (listener != null)
+            listener.onFrame(x.clone(), y.clone(), true);
+         return true;
+      }
+
+      int placedCount = placeNodes();
+      boolean warmStart = placedCount * 10 >= nodeCount * 9;
+      int iterations = warmStart ? warmStartIterations : maxIterations;
+
+      // Step length is adapted as in Yifan Hu's method: it grows while system energy keeps decreasing and shrinks otherwise
+      double step = warmStart ? idealEdgeLength / 2 : idealEdgeLength * 2;
+      double energy = Double.MAX_VALUE;
+      int progress = 0;
+
+      long nextFrame = System.currentTimeMillis() + frameInterval;
+      for(int i = 0; i < iterations; i++)
+      {
+         if ((cancelled != null) && cancelled.getAsBoolean())
+            return false;
+
+         double prevEnergy = energy;
+         energy = iterate(step);
+         if (averageShift < idealEdgeLength * TOLERANCE)
+            break;
+
+         if (energy < prevEnergy)
+         {
+            if (++progress >= 5)
+            {
+               progress = 0;
+               step /= STEP_RATIO;
+            }
+         }
+         else
+         {
+            progress = 0;
+            step *= STEP_RATIO;
+         }
+
+         if ((listener != null) && (frameInterval > 0))
+         {
+            long now = System.currentTimeMillis();
+            if (now >= nextFrame)
+            {
+               listener.onFrame(x.clone(), y.clone(), false);
+               nextFrame = now + frameInterval;
+            }
+         }
+      }
+
+      if ((cancelled != null) && cancelled.getAsBoolean())
+         return false;
+      if (listener != null)
+         listener.onFrame(x.clone(), y.clone(), true);
+      return true;
+   }
+
+   /**
+    * Assign positions to nodes without initial position.
+    *
+    * @return number of nodes with initial position
+    */
+   private int placeNodes()
+   {
+      int placedCount = 0;
+      for(int i = 0; i < nodeCount; i++)
+         if (placed[i])
+            placedCount++;
+      if (placedCount == nodeCount)
+         return placedCount;
+
+      Random random = new Random(seed);
+      if (placedCount > 0)
+      {
+         // Place new nodes near already placed neighbors, repeat to handle chains of new nodes
+         boolean changed = true;
+         boolean[] wasPlaced = placed.clone();
+         while(changed)
+         {
+            changed = false;
+            for(int e = 0; e < edgeSource.length; e++)
+            {
+               int s = edgeSource[e], t = edgeTarget[e];
+               if (wasPlaced[s] == wasPlaced[t])
+                  continue;
+               int from = wasPlaced[s] ? s : t;
+               int to = wasPlaced[s] ? t : s;
+               double angle = random.nextDouble() * 2 * Math.PI;
+               x[to] = x[from] + Math.cos(angle) * idealEdgeLength;
+               y[to] = y[from] + Math.sin(angle) * idealEdgeLength;
+               wasPlaced[to] = true;
+               changed = true;
+            }
+         }
+         for(int i = 0; i < nodeCount; i++)
+            placed[i] = wasPlaced[i];
+      }
+
+      double side = Math.sqrt(nodeCount) * idealEdgeLength;
+      double cx = 0, cy = 0;
+      if (placedCount > 0)
+      {
+         for(int i = 0; i < nodeCount; i++)
+         {
+            if (placed[i])
+            {
+               cx += x[i];
+               cy += y[i];
+            }
+         }
+         int count = 0;
+         for(boolean p : placed)
+            if (p)
+               count++;
+         cx = cx / count - side / 2;
+         cy = cy / count - side / 2;
+      }
+      for(int i = 0; i < nodeCount; i++)
+      {
+         if (!placed[i])
+         {
+            x[i] = cx + random.nextDouble() * side;
+            y[i] = cy + random.nextDouble() * side;
+            placed[i] = true;
+         }
+      }
+      return placedCount;
+   }
+
+   /**
+    * Perform single iteration. Average node displacement is stored in averageShift.
+    *
+    * @param step maximum displacement for this iteration
+    * @return system energy (sum of squared forces)
+    */
+   private double iterate(double step)
+   {
+      double k3 = idealEdgeLength * idealEdgeLength * idealEdgeLength;
+      Arrays.fill(dx, 0);
+      Arrays.fill(dy, 0);
+
+      // Repulsion
+      tree.build(x, y, nodeCount);
+      double cx = tree.getCenterX(), cy = tree.getCenterY();
+      for(int i = 0; i < nodeCount; i++)
+      {
+         tree.applyRepulsion(i, x[i], y[i], k3, idealEdgeLength, theta, dx, dy);
+
+         // Weak gravity towards center keeps disconnected components together
+         dx[i] -= (x[i] - cx) * gravity;
+         dy[i] -= (y[i] - cy) * gravity;
+      }
+
+      // Attraction
+      for(int e = 0; e < edgeSource.length; e++)
+      {
+         int s = edgeSource[e], t = edgeTarget[e];
+         if (s == t)
+            continue;
+         double ddx = x[s] - x[t];
+         double ddy = y[s] - y[t];
+         double d = Math.max(Math.sqrt(ddx * ddx + ddy * ddy), MIN_DISTANCE);
+         double f = d / idealEdgeLength; // force d^2/k, divided by d for unit vector
+         dx[s] -= ddx * f;
+         dy[s] -= ddy * f;
+         dx[t] += ddx * f;
+         dy[t] += ddy * f;
+      }
+
+      // Move nodes, limiting displacement by step length
+      double energy = 0;
+      double totalShift = 0;
+      for(int i = 0; i < nodeCount; i++)
+      {
+         double f2 = dx[i] * dx[i] + dy[i] * dy[i];
+         energy += f2;
+         double d = Math.sqrt(f2);
+         if (d < MIN_DISTANCE)
+            continue;
+         double shift = Math.min(d, step);
+         x[i] += dx[i] / d * shift;
+         y[i] += dy[i] / d * shift;
+         totalShift += shift;
+      }
+      averageShift = totalShift / nodeCount;
+      return energy;
+   }
+
+   /**
+    * Barnes-Hut quadtree stored in primitive arrays. Tree is rebuilt on each iteration, storage is reused.
+    */
+   private static class QuadTree
+   {
+      private static final int MAX_DEPTH = 48;
+
+      private int capacity;
+      private int cellCount;
+      private int[] children;    // 4 per cell, 0 means no child (root is never a child)
+      private int[] body;        // body index for leaf cells, -1 for empty or internal cells
+      private double[] mass;
+      private double[] massX;    // weighted sum of X coordinates (center of mass after finalization)
+      private double[] massY;
+      private double[] cellX;    // cell center
+      private double[] cellY;
+      private double[] halfSize;
+      private int[] depth;
+      private int[] stack;
+
+      QuadTree(int nodeCount)
+      {
+         allocate(Math.max(nodeCount * 2, 16));
+         stack = new int[256];
+      }
+
+      private void allocate(int newCapacity)
+      {
+         if (children == null)
+         {
+            children = new int[newCapacity * 4];
+            body = new int[newCapacity];
+            mass = new double[newCapacity];
+            massX = new double[newCapacity];
+            massY = new double[newCapacity];
+            cellX = new double[newCapacity];
+            cellY = new double[newCapacity];
+            halfSize = new double[newCapacity];
+            depth = new int[newCapacity];
+         }
+         else
+         {
+            children = Arrays.copyOf(children, newCapacity * 4);
+            body = Arrays.copyOf(body, newCapacity);
+            mass = Arrays.copyOf(mass, newCapacity);
+            massX = Arrays.copyOf(massX, newCapacity);
+            massY = Arrays.copyOf(massY, newCapacity);
+            cellX = Arrays.copyOf(cellX, newCapacity);
+            cellY = Arrays.copyOf(cellY, newCapacity);
+            halfSize = Arrays.copyOf(halfSize, newCapacity);
+            depth = Arrays.copyOf(depth, newCapacity);
+         }
+         capacity = newCapacity;
+      }
+
+      private int newCell(double cx, double cy, double hs, int d)
+      {
+         if (cellCount == capacity)
+            allocate(capacity * 2);
+         int c = cellCount++;
+         children[c * 4] = 0;
+         children[c * 4 + 1] = 0;
+         children[c * 4 + 2] = 0;
+         children[c * 4 + 3] = 0;
+         body[c] = -1;
+         mass[c] = 0;
+         massX[c] = 0;
+         massY[c] = 0;
+         cellX[c] = cx;
+         cellY[c] = cy;
+         halfSize[c] = hs;
+         depth[c] = d;
+         return c;
+      }
+
+      double getCenterX()
+      {
+         return massX[0];
+      }
+
+      double getCenterY()
+      {
+         return massY[0];
+      }
+
+      /**
+       * Build tree for given positions.
+       */
+      void build(double[] x, double[] y, int n)
+      {
+         double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE, maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+         for(int i = 0; i < n; i++)
+         {
+            minX = Math.min(minX, x[i]);
+            maxX = Math.max(maxX, x[i]);
+            minY = Math.min(minY, y[i]);
+            maxY = Math.max(maxY, y[i]);
+         }
+         cellCount = 0;
+         newCell((minX + maxX) / 2, (minY + maxY) / 2, Math.max(Math.max(maxX - minX, maxY - minY) / 2, 1) * 1.0001, 0);
+         for(int i = 0; i < n; i++)
+            insert(i, x, y);
+         for(int c = 0; c < cellCount; c++)
+         {
+            massX[c] /= mass[c];
+            massY[c] /= mass[c];
+         }
+      }
+
+      /**
+       * Insert body into tree.
+       */
+      private void insert(int b, double[] x, double[] y)
+      {
+         double bx = x[b], by = y[b];
+         int c = 0;
+         while(true)
+         {
+            mass[c] += 1;
+            massX[c] += bx;
+            massY[c] += by;
+
+            if ((mass[c] == 1) && (children[c * 4] == 0) && (children[c * 4 + 1] == 0) && (children[c * 4 + 2] == 0) && (children[c * 4 + 3] == 0))
+            {
+               body[c] = b; // empty leaf
+               return;
+            }
+
+            if (body[c] >= 0)
+            {
+               if (depth[c] >= MAX_DEPTH)
+                  return; // coincident bodies stay aggregated in single leaf
+
+               // Push existing body one level down
+               int existing = body[c];
+               body[c] = -1;
+               int q = quadrant(c, x[existing], y[existing]);
+               int child = createChild(c, q);
+               mass[child] = 1;
+               massX[child] = x[existing];
+               massY[child] = y[existing];
+               body[child] = existing;
+            }
+
+            int q = quadrant(c, bx, by);
+            int child = children[c * 4 + q];
+            if (child == 0)
+               child = createChild(c, q);
+            c = child;
+         }
+      }
+
+      private int quadrant(int c, double px, double py)
+      {
+         return ((px >= cellX[c]) ? 1 : 0) | ((py >= cellY[c]) ? 2 : 0);
+      }
+
+      private int createChild(int c, int q)
+      {
+         double hs = halfSize[c] / 2;
+         double cx = cellX[c] + (((q & 1) != 0) ? hs : -hs);
+         double cy = cellY[c] + (((q & 2) != 0) ? hs : -hs);
+         int child = newCell(cx, cy, hs, depth[c] + 1);
+         children[c * 4 + q] = child;
+         return child;
+      }
+
+      /**
+       * Accumulate repulsive force acting on given body.
+       */
+      void applyRepulsion(int b, double bx, double by, double k3, double k, double theta, double[] dx, double[] dy)
+      {
+         double fx = 0, fy = 0;
+         int sp = 0;
+         stack[sp++] = 0;
+         while(sp > 0)
+         {
+            int c = stack[--sp];
+            if (body[c] == b)
+            {
+               if (mass[c] <= 1)
+                  continue;
+            }
+
+            double ddx = bx - massX[c];
+            double ddy = by - massY[c];
+            double d2 = ddx * ddx + ddy * ddy;
+            boolean leaf = (children[c * 4] == 0) && (children[c * 4 + 1] == 0) && (children[c * 4 + 2] == 0) && (children[c * 4 + 3] == 0);
+            double size = halfSize[c] * 2;
+            if (leaf || (size * size < theta * theta * d2))
+            {
+               double m = (body[c] == b) ? mass[c] - 1 : mass[c];
+               if (d2 < MIN_DISTANCE * MIN_DISTANCE)
+               {
+                  // Coincident nodes - push apart in deterministic pseudo-random direction
+                  double angle = (b * 0.618033988749895) * 2 * Math.PI;
+                  fx += Math.cos(angle) * k * m;
+                  fy += Math.sin(angle) * k * m;
+               }
+               else
+               {
+                  double f = k3 / (d2 * Math.sqrt(d2)) * m; // force k^3/d^2, divided by d for unit vector
+                  fx += ddx * f;
+                  fy += ddy * f;
+               }
+               continue;
+            }
+
+            if (sp + 4 > stack.length)
+               stack = Arrays.copyOf(stack, stack.length * 2);
+            for(int q = 0; q < 4; q++)
+            {
+               int child = children[c * 4 + q];
+               if (child != 0)
+                  stack[sp++] = child;
+            }
+         }
+         dx[b] += fx;
+         dy[b] += fy;
+      }
+   }
+}
@@ -38,7 +38,6 @@
 import org.eclipse.gef4.zest.layouts.algorithms.CompositeLayoutAlgorithm;
 import org.eclipse.gef4.zest.layouts.algorithms.GridLayoutAlgorithm;
 import org.eclipse.gef4.zest.layouts.algorithms.RadialLayoutAlgorithm;
-import org.eclipse.gef4.zest.layouts.algorithms.SpringLayoutAlgorithm;
 import org.eclipse.gef4.zest.layouts.algorithms.TreeLayoutAlgorithm;
 import org.eclipse.jface.action.Action;
 import org.eclipse.jface.action.GroupMarker;
@@ -102,6 +101,7 @@
 import org.netxms.ui.eclipse.networkmaps.Activator;
 import org.netxms.ui.eclipse.networkmaps.Messages;
 import org.netxms.ui.eclipse.networkmaps.algorithms.ExpansionAlgorithm;
+import org.netxms.ui.eclipse.networkmaps.algorithms.ForceDirectedLayout;
 import org.netxms.ui.eclipse.networkmaps.algorithms.ManualLayout;
 import org.netxms.ui.eclipse.networkmaps.api.ObjectDoubleClickHandlerRegistry;
 import org.netxms.ui.eclipse.networkmaps.views.helpers.BendpointEditor;
@@ -154,6 +154,7 @@ public abstract class AbstractNetworkMapView extends ViewPart implements ISelect
 	protected boolean allowManualLayout = false; // True if manual layout can be switched on
 	protected boolean automaticLayoutEnabled = true; // Current layout mode - automatic or manual
 	protected boolean alwaysFitLayout = false;
+	private ForceDirectedLayout forceDirectedLayout = null;
    protected boolean disableGeolocationBackground = false;
 
 	protected Action actionRefresh;
@@ -469,12 +470,16 @@ protected void setLayoutAlgorithm(MapLayoutAlgorithm alg, boolean forceChange)
 			automaticLayoutEnabled = true;
 		}
 
+		cancelForceDirectedLayout();
+
 		LayoutAlgorithm algorithm;
 
 		switch(alg)
 		{
 			case SPRING:
-				algorithm = new SpringLayoutAlgorithm();
+				// Calculated on background thread; produces non-overlapping layout by itself, so expansion is not needed
+				forceDirectedLayout = new ForceDirectedLayout(alwaysFitLayout);
+				algorithm = forceDirectedLayout;
 				break;
 			case RADIAL:
 				algorithm = new RadialLayoutAlgorithm();
@@ -494,13 +499,25 @@ protected void setLayoutAlgorithm(MapLayoutAlgorithm alg, boolean forceChange)
 				break;
 		}
 
-		viewer.setLayoutAlgorithm(alwaysFitLayout ? algorithm : new CompositeLayoutAlgorithm(new LayoutAlgorithm[] { algorithm, new ExpansionAlgorithm() }));
+		viewer.setLayoutAlgorithm((alwaysFitLayout || (algorithm == forceDirectedLayout)) ? algorithm : new CompositeLayoutAlgorithm(new LayoutAlgorithm[] { algorithm, new ExpansionAlgorithm() }));
 
 		actionSetAlgorithm[layoutAlgorithm.getValue()].setChecked(false);
 		layoutAlgorithm = alg;
 		actionSetAlgorithm[layoutAlgorithm.getValue()].setChecked(true);
 	}
 
+	/**
+	 * Cancel background layout calculation if it is running
+	 */
+	private void cancelForceDirectedLayout()
+	{
+		if (forceDirectedLayout != null)
+		{
+			forceDirectedLayout.cancel();
+			forceDirectedLayout = null;
+		}
+	}
+
 	/**
 	 * Update stored object positions with actual positions read from graph control
 	 */
@@ -528,6 +545,7 @@ protected void updateObjectPositions()
 	 */
 	protected void setManualLayout()
 	{
+		cancelForceDirectedLayout();
 		updateObjectPositions();
 
 		automaticLayoutEnabled = false;
@@ -1203,6 +1221,7 @@ public void dispose()
 			settings.put(viewId + ".objectFigureType", labelProvider.getObjectFigureType().ordinal()); //$NON-NLS-1$
 		}
 		removeDciFromRequestList();
+		cancelForceDirectedLayout();
 		super.dispose();
 	}
 
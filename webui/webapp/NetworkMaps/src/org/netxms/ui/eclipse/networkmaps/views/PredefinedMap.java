@@ -18,8 +18,10 @@
  */
 package org.netxms.ui.eclipse.networkmaps.views;
 
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.jface.action.Action;
@@ -308,7 +310,10 @@ protected void runInternal(IProgressMonitor monitor) throws Exception
                public void run()
                {
                   if (!viewer.getControl().isDisposed())
+                  {
+                     prefetchImages();
                      refreshMap();
+                  }
                }
             });
          }
@@ -323,6 +328,39 @@ protected String getErrorMessage()
       job.start();
 	}
 
+   /**
+    * Request loading of all library images referenced by map in one batch
+    */
+   private void prefetchImages()
+   {
+      Set<UUID> images = new HashSet<UUID>();
+      if ((mapObject.getBackground() != null) && !mapObject.getBackground().equals(NXCommon.EMPTY_GUID) &&
+          !mapObject.getBackground().equals(org.netxms.client.objects.NetworkMap.GEOMAP_BACKGROUND))
+         images.add(mapObject.getBackground());
+
+      for(NetworkMapElement e : mapPage.getElements())
+      {
+         if (e instanceof NetworkMapObject)
+         {
+            AbstractObject object = session.findObjectById(((NetworkMapObject)e).getObjectId());
+            if ((object != null) && (object.getMapImage() != null) && !object.getMapImage().equals(NXCommon.EMPTY_GUID))
+               images.add(object.getMapImage());
+         }
+         else if ((e instanceof NetworkMapDecoration) && (((NetworkMapDecoration)e).getDecorationType() == NetworkMapDecoration.IMAGE))
+         {
+            try
+            {
+               images.add(UUID.fromString(((NetworkMapDecoration)e).getTitle()));
+            }
+            catch(IllegalArgumentException ex)
+            {
+            }
+         }
+      }
+
+      ImageProvider.getInstance().prefetchImages(images);
+   }
+
    /**
     * @see org.netxms.ui.eclipse.networkmaps.views.AbstractNetworkMapView#createActions()
     */